@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.management;
+
+import org.neo4j.jmx.Description;
+import org.neo4j.jmx.ManagementInterface;
+
+@ManagementInterface( name = CacheWarmUp.NAME )
+@Description( "Progress of loading the pages and entities that were hot before the last start back into the caches" )
+public interface CacheWarmUp
+{
+    final String NAME = "Cache Warm-Up";
+
+    @Description( "The number of pages and entities the warm-up set out to load" )
+    long getTarget();
+
+    @Description( "The number of pages and entities the warm-up has loaded so far" )
+    long getProgress();
+
+    @Description( "Whether the warm-up has finished, or there was nothing to warm up" )
+    boolean isCompleted();
+}
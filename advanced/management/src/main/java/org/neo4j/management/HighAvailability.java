@@ -46,6 +46,14 @@ public interface HighAvailability
     @Description( "The latest transaction id present in this instance's store" )
     long getLastCommittedTxId();
 
+    @Description( "(If this is the master) How many transactions each slave is behind this instance, as of its "
+                  + "latest request for updates" )
+    String[] getSlaveLag();
+
+    @Description( "Compression ratio and throughput of the transactions and store files sent and received "
+                  + "compressed between this instance and the rest of the cluster" )
+    String getCompressionStatistics();
+
     @Description( "Information about all instances in this cluster" )
     ClusterMemberInfo[] getInstancesInCluster();
 
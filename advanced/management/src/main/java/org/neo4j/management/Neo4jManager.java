@@ -234,7 +234,12 @@ public final class Neo4jManager extends KernelProxy implements Kernel
         return getBeans( Cache.class );
     }
 
-    public LockManager getLockManagerBean()
+    public CacheWarmUp getCacheWarmUpBean()
+    {
+        return getBean( CacheWarmUp.class );
+    }
+
+        public LockManager getLockManagerBean()
     {
         return getBean( LockManager.class );
     }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.management.impl;
+
+import javax.management.NotCompliantMBeanException;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.jmx.impl.ManagementBeanProvider;
+import org.neo4j.jmx.impl.ManagementData;
+import org.neo4j.jmx.impl.Neo4jMBean;
+import org.neo4j.kernel.impl.core.StartupStatistics;
+import org.neo4j.management.CacheWarmUp;
+
+@Service.Implementation( ManagementBeanProvider.class )
+public final class CacheWarmUpBean extends ManagementBeanProvider
+{
+    public CacheWarmUpBean()
+    {
+        super( CacheWarmUp.class );
+    }
+
+    @Override
+    protected Neo4jMBean createMBean( ManagementData management ) throws NotCompliantMBeanException
+    {
+        return new CacheWarmUpImpl( management );
+    }
+
+    @Override
+    protected Neo4jMBean createMXBean( ManagementData management ) throws NotCompliantMBeanException
+    {
+        return new CacheWarmUpImpl( management, true );
+    }
+
+    private static class CacheWarmUpImpl extends Neo4jMBean implements CacheWarmUp
+    {
+        private final StartupStatistics startupStatistics;
+
+        CacheWarmUpImpl( ManagementData management ) throws NotCompliantMBeanException
+        {
+            super( management );
+            this.startupStatistics = startupStatistics( management );
+        }
+
+        CacheWarmUpImpl( ManagementData management, boolean isMxBean )
+        {
+            super( management, isMxBean );
+            this.startupStatistics = startupStatistics( management );
+        }
+
+        private StartupStatistics startupStatistics( ManagementData management )
+        {
+            return management.resolveDependency( StartupStatistics.class );
+        }
+
+        @Override
+        public long getTarget()
+        {
+            return startupStatistics.cacheWarmUpTarget();
+        }
+
+        @Override
+        public long getProgress()
+        {
+            return startupStatistics.cacheWarmUpProgress();
+        }
+
+        @Override
+        public boolean isCompleted()
+        {
+            return startupStatistics.isCacheWarmUpCompleted();
+        }
+    }
+}
@@ -19,17 +19,22 @@
  */
 package org.neo4j.consistency;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
 
 import org.neo4j.consistency.checking.full.ConsistencyCheckIncompleteException;
 import org.neo4j.consistency.checking.full.FullCheck;
+import org.neo4j.consistency.checking.full.TransactionRangeCheck;
 import org.neo4j.consistency.report.ConsistencySummaryStatistics;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.progress.ProgressMonitorFactory;
 import org.neo4j.index.lucene.LuceneLabelScanStoreBuilder;
+import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.DefaultFileSystemAbstraction;
 import org.neo4j.kernel.DefaultIdGeneratorFactory;
 import org.neo4j.kernel.api.direct.DirectStoreAccess;
@@ -41,15 +46,37 @@ import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.nioneo.store.NeoStore;
 import org.neo4j.kernel.impl.nioneo.store.StoreAccess;
 import org.neo4j.kernel.impl.nioneo.store.StoreFactory;
+import org.neo4j.kernel.impl.nioneo.store.StoreId;
+import org.neo4j.kernel.impl.nioneo.store.TransactionIdStore;
 import org.neo4j.kernel.impl.pagecache.LifecycledPageCache;
+import org.neo4j.kernel.impl.transaction.xaframework.DefaultTxIdGenerator;
+import org.neo4j.kernel.impl.transaction.xaframework.LogRotationControl;
+import org.neo4j.kernel.impl.transaction.xaframework.LogicalTransactionStore;
+import org.neo4j.kernel.impl.transaction.xaframework.NoSuchTransactionException;
+import org.neo4j.kernel.impl.transaction.xaframework.PhysicalLogFile;
+import org.neo4j.kernel.impl.transaction.xaframework.PhysicalLogFiles;
+import org.neo4j.kernel.impl.transaction.xaframework.PhysicalLogicalTransactionStore;
+import org.neo4j.kernel.impl.transaction.xaframework.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.xaframework.TransactionMetadataCache.TransactionMetadata;
 import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.kernel.impl.util.Providers;
 import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.kernel.monitoring.Monitors;
 
+import static java.lang.String.format;
+
 import static org.neo4j.kernel.impl.nioneo.store.StoreFactory.configForStoreDir;
+import static org.neo4j.kernel.impl.transaction.xaframework.log.pruning.LogPruneStrategyFactory.NO_PRUNING;
 
 public class ConsistencyCheckService
 {
+    /**
+     * Name of the file in the store directory that holds the id of the last transaction that was found consistent
+     * by a check with {@link ConsistencyCheckSettings#consistency_check_incremental} set, together with the
+     * {@link StoreId} of the store that was checked and the checksum of that transaction, if it was in the logs.
+     */
+    public static final String LAST_CHECKED_TRANSACTION_FILE_NAME = "consistency-check.last-tx";
+
     private final Date timestamp;
 
     public ConsistencyCheckService()
@@ -90,29 +117,22 @@ public class ConsistencyCheckService
         {
             neoStore.makeStoreOk();
             StoreAccess store = new StoreAccess( neoStore );
-            LabelScanStore labelScanStore = null;
-            try {
-
-                labelScanStore =
-                    new LuceneLabelScanStoreBuilder( storeDir, store.getRawNeoStore(), fileSystem, logger ).build();
-                SchemaIndexProvider indexes = new LuceneSchemaIndexProvider( DirectoryFactory.PERSISTENT, tuningConfiguration );
-                DirectStoreAccess stores = new DirectStoreAccess( store, labelScanStore, indexes );
-                summary = new FullCheck( tuningConfiguration, progressFactory )
-                        .execute( stores, StringLogger.tee( logger, report ) );
+            boolean incremental = tuningConfiguration.get( ConsistencyCheckSettings.consistency_check_incremental );
+            long lastCommittedTxId = neoStore.getLastCommittingTransactionId();
+            LogicalTransactionStore transactionStore =
+                    incremental ? openTransactionStore( fileSystem, new File( storeDir ), neoStore ) : null;
+            summary = incremental ? checkTransactionsSinceLastCheck( fileSystem, new File( storeDir ), neoStore,
+                    transactionStore, store, lastCommittedTxId, progressFactory, logger,
+                    StringLogger.tee( logger, report ) ) : null;
+            if ( summary == null )
+            {
+                summary = runFullCheck( storeDir, tuningConfiguration, fileSystem, store, progressFactory, logger,
+                        StringLogger.tee( logger, report ) );
             }
-            finally
+            if ( incremental && summary.isConsistent() )
             {
-                try
-                {
-                    if ( null != labelScanStore )
-                    {
-                        labelScanStore.shutdown();
-                    }
-                }
-                catch ( IOException e )
-                {
-                    logger.error( "Faiure during shutdown of label scan store", e );
-                }
+                writeLastCheck( fileSystem, new File( storeDir ), new LastCheck( lastCommittedTxId,
+                        neoStore.getStoreId(), checksumOf( transactionStore, lastCommittedTxId ) ), logger );
             }
         }
         finally
@@ -123,6 +143,14 @@ public class ConsistencyCheckService
             jobScheduler.shutdown();
         }
 
+        for ( Map.Entry<String, Long> store : summary.getRecordsPerSecond().entrySet() )
+        {
+            if ( store.getValue() > 0 )
+            {
+                logger.debug( String.format( "Checked %s at %d records/s", store.getKey(), store.getValue() ) );
+            }
+        }
+
         if ( !summary.isConsistent() )
         {
             logger.logMessage( String.format( "See '%s' for a detailed consistency report.", reportFile.getPath() ) );
@@ -132,6 +160,213 @@ public class ConsistencyCheckService
         return Result.SUCCESS;
     }
 
+    private ConsistencySummaryStatistics runFullCheck( String storeDir, Config tuningConfiguration,
+                                                       FileSystemAbstraction fileSystem, StoreAccess store,
+                                                       ProgressMonitorFactory progressFactory, StringLogger logger,
+                                                       StringLogger reportingLogger )
+            throws ConsistencyCheckIncompleteException
+    {
+        LabelScanStore labelScanStore = null;
+        try
+        {
+            labelScanStore =
+                new LuceneLabelScanStoreBuilder( storeDir, store.getRawNeoStore(), fileSystem, logger ).build();
+            SchemaIndexProvider indexes = new LuceneSchemaIndexProvider( DirectoryFactory.PERSISTENT, tuningConfiguration );
+            DirectStoreAccess stores = new DirectStoreAccess( store, labelScanStore, indexes );
+            return new FullCheck( tuningConfiguration, progressFactory ).execute( stores, reportingLogger );
+        }
+        finally
+        {
+            try
+            {
+                if ( null != labelScanStore )
+                {
+                    labelScanStore.shutdown();
+                }
+            }
+            catch ( IOException e )
+            {
+                logger.error( "Faiure during shutdown of label scan store", e );
+            }
+        }
+    }
+
+    /**
+     * Checks the records changed by the transactions committed since the last check recorded in the store
+     * directory, or returns {@code null} if the whole store has to be checked instead. That is also the case if the
+     * recorded check was of another store, or of another history of this one, which would make the transactions
+     * committed since then miss changes that were never checked.
+     */
+    private ConsistencySummaryStatistics checkTransactionsSinceLastCheck( FileSystemAbstraction fileSystem,
+            File storeDir, NeoStore neoStore, LogicalTransactionStore transactionStore, StoreAccess store,
+            long lastCommittedTxId, ProgressMonitorFactory progressFactory, StringLogger logger,
+            StringLogger reportingLogger ) throws ConsistencyCheckIncompleteException
+    {
+        LastCheck lastCheck = readLastCheck( fileSystem, storeDir, logger );
+        if ( lastCheck == null )
+        {
+            logger.logMessage( "No previous consistency check of this store, checking the whole store." );
+            return null;
+        }
+        if ( !lastCheck.storeId.equals( neoStore.getStoreId() ) )
+        {
+            logger.logMessage( format( "The last consistency check was of another store, %s, " +
+                    "checking the whole store.", lastCheck.storeId ) );
+            return null;
+        }
+        long lastCheckedTxId = lastCheck.txId;
+        if ( lastCheckedTxId > lastCommittedTxId )
+        {
+            logger.logMessage( format( "The last consistency check at transaction %d is newer than the store, " +
+                    "checking the whole store.", lastCheckedTxId ) );
+            return null;
+        }
+        if ( lastCheck.checksum != null )
+        {
+            Long checksum = checksumOf( transactionStore, lastCheckedTxId );
+            if ( checksum == null )
+            {
+                logger.logMessage( format( "Transactions since the last consistency check at transaction %d " +
+                        "have been pruned from the logs, checking the whole store.", lastCheckedTxId ) );
+                return null;
+            }
+            if ( !checksum.equals( lastCheck.checksum ) )
+            {
+                logger.logMessage( format( "Transaction %d is not the one found consistent by the last consistency " +
+                        "check, checking the whole store.", lastCheckedTxId ) );
+                return null;
+            }
+        }
+        if ( lastCheckedTxId == lastCommittedTxId )
+        {
+            logger.logMessage( format( "No transactions committed since the last consistency check at transaction %d.",
+                    lastCheckedTxId ) );
+            return new ConsistencySummaryStatistics();
+        }
+
+        logger.logMessage( format( "Checking transactions %d-%d, committed since the last consistency check.",
+                lastCheckedTxId + 1, lastCommittedTxId ) );
+        try
+        {
+            return new TransactionRangeCheck( progressFactory ).execute( store, transactionStore,
+                    lastCheckedTxId + 1, lastCommittedTxId, reportingLogger );
+        }
+        catch ( ConsistencyCheckIncompleteException e )
+        {
+            if ( e.getCause() instanceof NoSuchTransactionException )
+            {
+                logger.logMessage( format( "Transactions since the last consistency check at transaction %d " +
+                        "have been pruned from the logs, checking the whole store.", lastCheckedTxId ) );
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The transaction store is only read from, so it isn't started, which would recover and append to the log,
+     * and has no recovery visitor.
+     */
+    private static LogicalTransactionStore openTransactionStore( FileSystemAbstraction fileSystem, File storeDir,
+                                                                 NeoStore neoStore )
+    {
+        TransactionMetadataCache transactionMetadataCache = new TransactionMetadataCache( 1000, 100_000 );
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( storeDir, PhysicalLogFile.DEFAULT_NAME, fileSystem );
+        PhysicalLogFile logFile = new PhysicalLogFile( fileSystem, logFiles, Long.MAX_VALUE, NO_PRUNING, neoStore,
+                neoStore, PhysicalLogFile.NO_MONITOR, LogRotationControl.NO_ROTATION_CONTROL,
+                transactionMetadataCache, null );
+        return new PhysicalLogicalTransactionStore( logFile,
+                new DefaultTxIdGenerator( Providers.<TransactionIdStore>singletonProvider( neoStore ) ),
+                transactionMetadataCache, neoStore );
+    }
+
+    /**
+     * @return the checksum of the given transaction, or {@code null} if it isn't in the logs.
+     */
+    private static Long checksumOf( LogicalTransactionStore transactionStore, long txId )
+    {
+        try
+        {
+            TransactionMetadata metadata = transactionStore.getMetadataFor( txId );
+            return metadata == null ? null : metadata.getChecksum();
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+    }
+
+    private static LastCheck readLastCheck( FileSystemAbstraction fileSystem, File storeDir, StringLogger logger )
+    {
+        File file = new File( storeDir, LAST_CHECKED_TRANSACTION_FILE_NAME );
+        if ( !fileSystem.fileExists( file ) )
+        {
+            return null;
+        }
+        try ( BufferedReader reader = new BufferedReader( fileSystem.openAsReader( file, "UTF-8" ) ) )
+        {
+            return LastCheck.parse( reader.readLine() );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            logger.warn( "Could not read the last checked transaction from " + file, e );
+            return null;
+        }
+    }
+
+    private static void writeLastCheck( FileSystemAbstraction fileSystem, File storeDir, LastCheck lastCheck,
+                                        StringLogger logger )
+    {
+        File file = new File( storeDir, LAST_CHECKED_TRANSACTION_FILE_NAME );
+        try ( Writer writer = fileSystem.openAsWriter( file, "UTF-8", false ) )
+        {
+            writer.write( lastCheck.format() );
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Could not record the last checked transaction in " + file, e );
+        }
+    }
+
+    /**
+     * What {@link #LAST_CHECKED_TRANSACTION_FILE_NAME} holds, on a single line: the transaction id, the creation
+     * time and random id of the store, and the checksum of the transaction, or {@code -} if it wasn't in the logs.
+     */
+    private static class LastCheck
+    {
+        private static final String NO_CHECKSUM = "-";
+
+        private final long txId;
+        private final StoreId storeId;
+        private final Long checksum;
+
+        LastCheck( long txId, StoreId storeId, Long checksum )
+        {
+            this.txId = txId;
+            this.storeId = storeId;
+            this.checksum = checksum;
+        }
+
+        static LastCheck parse( String line )
+        {
+            String[] fields = line.trim().split( " " );
+            if ( fields.length != 4 )
+            {
+                throw new IllegalArgumentException( "Expected a transaction id, store id and checksum, got '" +
+                        line + "'" );
+            }
+            return new LastCheck( Long.parseLong( fields[0] ),
+                    new StoreId( Long.parseLong( fields[1] ), Long.parseLong( fields[2] ) ),
+                    NO_CHECKSUM.equals( fields[3] ) ? null : Long.valueOf( fields[3] ) );
+        }
+
+        String format()
+        {
+            return txId + " " + storeId.getCreationTime() + " " + storeId.getRandomId() + " " +
+                   (checksum == null ? NO_CHECKSUM : checksum.toString());
+        }
+    }
+
     private File chooseReportPath( Config tuningConfiguration )
     {
         final File reportPath = tuningConfiguration.get( ConsistencyCheckSettings.consistency_check_report_file );
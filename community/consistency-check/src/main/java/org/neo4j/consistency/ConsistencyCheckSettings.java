@@ -53,10 +53,17 @@ public class ConsistencyCheckSettings
             "checking the native stores, so it may be useful to turn off this check for very large databases.")
     public static final Setting<Boolean> consistency_check_indexes = setting( "consistency_check_indexes", BOOLEAN, TRUE );
 
-    @Description("Window pool implementation to be used when running consistency check")
+    @Description("Order in which the consistency check runs its checks. PARALLEL splits each store up between all " +
+            "available processors and loads upcoming pages in the background, which is the fastest on large stores.")
     public static final Setting<TaskExecutionOrder> consistency_check_execution_order =
             setting( "consistency_check_execution_order", options( TaskExecutionOrder.class ), TaskExecutionOrder.MULTI_PASS.name() );
 
+    @Description("Only check the records changed by the transactions committed since the last consistency check " +
+            "of the store that was run with this setting, and found no inconsistencies. A full check is done instead " +
+            "when there is no such check, when it was of another store or of another history of this one, or when " +
+            "the logs of those transactions have been pruned. Only full checks check the label scan store and indexes.")
+    public static final Setting<Boolean> consistency_check_incremental = setting( "consistency_check_incremental", BOOLEAN, FALSE );
+
     @SuppressWarnings("unchecked")
     @Description("File name for inconsistencies log file. If not specified, logs to a file in the store directory.")
     public static final
@@ -41,6 +41,7 @@ public class ConsistencyCheckTool
 {
     private static final String RECOVERY = "recovery";
     private static final String CONFIG = "config";
+    private static final String INCREMENTAL = "incremental";
 
     public static void main( String[] args )
     {
@@ -148,6 +149,10 @@ public class ConsistencyCheckTool
                         propertyFilePath ), e );
             }
         }
+        if ( arguments.getBoolean( INCREMENTAL, false, true ) )
+        {
+            specifiedProperties.put( ConsistencyCheckSettings.consistency_check_incremental.name(), "true" );
+        }
         specifiedProperties.put( GraphDatabaseSettings.store_dir.name(), storeDir );
         return new Config( specifiedProperties, GraphDatabaseSettings.class, ConsistencyCheckSettings.class );
     }
@@ -155,9 +160,10 @@ public class ConsistencyCheckTool
     private String usage()
     {
         return lines(
-                Args.jarUsage( getClass(), "[-propowner] [-recovery] [-config <neo4j.properties>] <storedir>" ),
+                Args.jarUsage( getClass(), "[-propowner] [-recovery] [-incremental] [-config <neo4j.properties>] <storedir>" ),
                 "WHERE:   <storedir>         is the path to the store to check",
                 "         -recovery          to perform recovery on the store before checking",
+                "         -incremental       to only check the transactions committed since the last check",
                 "         <neo4j.properties> is the location of an optional properties file",
                 "                            containing tuning parameters for the consistency check"
         );
@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.consistency.checking.full;
+
+import java.util.Arrays;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.impl.nioneo.store.DynamicRecord;
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.PropertyBlock;
+import org.neo4j.kernel.impl.nioneo.store.PropertyRecord;
+import org.neo4j.kernel.impl.nioneo.store.PropertyType;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
+import org.neo4j.kernel.impl.nioneo.store.StoreAccess;
+import org.neo4j.kernel.impl.nioneo.xa.command.Command;
+import org.neo4j.kernel.impl.nioneo.xa.command.NeoCommandHandler;
+
+/**
+ * Collects the ids of the records changed by the commands of a number of transactions, by store. Once all
+ * transactions have been visited, {@link #addNeighbours(StoreAccess)} adds the records that the changed records
+ * directly refer to, as they are in the store. Ids are kept sorted so that the stores are read in order.
+ */
+class AffectedRecords extends NeoCommandHandler.Adapter
+{
+    final PrimitiveLongSet nodes = Primitive.longSet();
+    final PrimitiveLongSet nodeLabels = Primitive.longSet();
+    final PrimitiveLongSet relationships = Primitive.longSet();
+    final PrimitiveLongSet relationshipGroups = Primitive.longSet();
+    final PrimitiveLongSet properties = Primitive.longSet();
+    final PrimitiveLongSet strings = Primitive.longSet();
+    final PrimitiveLongSet arrays = Primitive.longSet();
+    final PrimitiveLongSet relationshipTypeTokens = Primitive.longSet();
+    final PrimitiveLongSet labelTokens = Primitive.longSet();
+    final PrimitiveLongSet propertyKeyTokens = Primitive.longSet();
+    boolean schemaChanged;
+
+    @Override
+    public boolean visitNodeCommand( Command.NodeCommand command )
+    {
+        add( nodes, command.getKey() );
+        for ( DynamicRecord record : command.getAfter().getDynamicLabelRecords() )
+        {
+            add( nodeLabels, record.getLongId() );
+        }
+        return false;
+    }
+
+    @Override
+    public boolean visitRelationshipCommand( Command.RelationshipCommand command )
+    {
+        add( relationships, command.getKey() );
+        return false;
+    }
+
+    @Override
+    public boolean visitPropertyCommand( Command.PropertyCommand command )
+    {
+        add( properties, command.getKey() );
+        add( nodes, command.getNodeId() );
+        add( relationships, command.getRelId() );
+        for ( PropertyBlock block : command.getAfter().getPropertyBlocks() )
+        {
+            PropertyType type = block.forceGetType();
+            for ( DynamicRecord record : block.getValueRecords() )
+            {
+                if ( type == PropertyType.STRING )
+                {
+                    add( strings, record.getLongId() );
+                }
+                else if ( type == PropertyType.ARRAY )
+                {
+                    add( arrays, record.getLongId() );
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean visitRelationshipGroupCommand( Command.RelationshipGroupCommand command )
+    {
+        add( relationshipGroups, command.getKey() );
+        return false;
+    }
+
+    @Override
+    public boolean visitRelationshipTypeTokenCommand( Command.RelationshipTypeTokenCommand command )
+    {
+        add( relationshipTypeTokens, command.getKey() );
+        return false;
+    }
+
+    @Override
+    public boolean visitLabelTokenCommand( Command.LabelTokenCommand command )
+    {
+        add( labelTokens, command.getKey() );
+        return false;
+    }
+
+    @Override
+    public boolean visitPropertyKeyTokenCommand( Command.PropertyKeyTokenCommand command )
+    {
+        add( propertyKeyTokens, command.getKey() );
+        return false;
+    }
+
+    @Override
+    public boolean visitSchemaRuleCommand( Command.SchemaRuleCommand command )
+    {
+        schemaChanged = true;
+        return false;
+    }
+
+    /**
+     * Adds the records that the changed nodes, relationships, properties and relationship groups refer to, but
+     * not the records that those in turn refer to.
+     */
+    void addNeighbours( StoreAccess stores )
+    {
+        long[] changedNodes = sorted( nodes );
+        long[] changedRelationships = sorted( relationships );
+        long[] changedProperties = sorted( properties );
+        long[] changedGroups = sorted( relationshipGroups );
+
+        for ( long id : changedNodes )
+        {
+            NodeRecord node = stores.getNodeStore().forceGetRecord( id );
+            add( node.isDense() ? relationshipGroups : relationships, node.getNextRel() );
+            add( properties, node.getNextProp() );
+        }
+        for ( long id : changedRelationships )
+        {
+            RelationshipRecord relationship = stores.getRelationshipStore().forceGetRecord( id );
+            add( nodes, relationship.getFirstNode() );
+            add( nodes, relationship.getSecondNode() );
+            // The first relationship in a chain keeps the length of the chain instead of a previous relationship
+            if ( !relationship.isFirstInFirstChain() )
+            {
+                add( relationships, relationship.getFirstPrevRel() );
+            }
+            if ( !relationship.isFirstInSecondChain() )
+            {
+                add( relationships, relationship.getSecondPrevRel() );
+            }
+            add( relationships, relationship.getFirstNextRel() );
+            add( relationships, relationship.getSecondNextRel() );
+            add( properties, relationship.getNextProp() );
+        }
+        for ( long id : changedProperties )
+        {
+            PropertyRecord property = stores.getPropertyStore().forceGetRecord( id );
+            add( properties, property.getPrevProp() );
+            add( properties, property.getNextProp() );
+        }
+        for ( long id : changedGroups )
+        {
+            RelationshipGroupRecord group = stores.getRelationshipGroupStore().forceGetRecord( id );
+            add( nodes, group.getOwningNode() );
+            add( relationshipGroups, group.getNext() );
+            add( relationships, group.getFirstOut() );
+            add( relationships, group.getFirstIn() );
+            add( relationships, group.getFirstLoop() );
+        }
+    }
+
+    long size()
+    {
+        return nodes.size() + nodeLabels.size() + relationships.size() + relationshipGroups.size() +
+                properties.size() + strings.size() + arrays.size() + relationshipTypeTokens.size() +
+                labelTokens.size() + propertyKeyTokens.size();
+    }
+
+    /**
+     * The ids in {@code ids} in ascending order, so that records are read in the order they are in the store.
+     */
+    static long[] sorted( PrimitiveLongSet ids )
+    {
+        long[] result = new long[ids.size()];
+        int i = 0;
+        for ( PrimitiveLongIterator iterator = ids.iterator(); iterator.hasNext(); )
+        {
+            result[i++] = iterator.next();
+        }
+        Arrays.sort( result );
+        return result;
+    }
+
+    private static void add( PrimitiveLongSet ids, long id )
+    {
+        // Missing references are all negative, e.g. Record.NO_NEXT_RELATIONSHIP
+        if ( id >= 0 )
+        {
+            ids.add( id );
+        }
+    }
+}
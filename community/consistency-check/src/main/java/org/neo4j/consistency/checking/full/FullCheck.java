@@ -70,7 +70,15 @@ public class FullCheck
         InconsistencyReport report = new InconsistencyReport( new InconsistencyMessageLogger( logger ), summary );
 
         OwnerCheck ownerCheck = new OwnerCheck( checkPropertyOwners );
-        execute( stores, ownerCheck, recordAccess( stores.nativeStores() ), report );
+        List<StoppableRunnable> tasks = execute( stores, ownerCheck, recordAccess( stores.nativeStores() ), report );
+        for ( StoppableRunnable task : tasks )
+        {
+            if ( task instanceof StoreProcessorTask )
+            {
+                StoreProcessorTask<?> storeTask = (StoreProcessorTask<?>) task;
+                summary.storeChecked( storeTask.name(), storeTask.recordsChecked(), storeTask.millisSpent() );
+            }
+        }
         ownerCheck.scanForOrphanChains( progressFactory );
 
         if ( !summary.isConsistent() )
@@ -80,7 +88,7 @@ public class FullCheck
         return summary;
     }
 
-    void execute( final DirectStoreAccess directStoreAccess, CheckDecorator decorator, final DiffRecordAccess recordAccess,
+    List<StoppableRunnable> execute( final DirectStoreAccess directStoreAccess, CheckDecorator decorator, final DiffRecordAccess recordAccess,
                   final InconsistencyReport report )
             throws ConsistencyCheckIncompleteException
     {
@@ -105,6 +113,7 @@ public class FullCheck
             );
 
             order.execute( tasks, progress.build() );
+            return tasks;
         }
         catch ( Exception e )
         {
@@ -19,6 +19,10 @@
  */
 package org.neo4j.consistency.checking.full;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 import org.neo4j.consistency.checking.SchemaRecordCheck;
 import org.neo4j.helpers.progress.ProgressMonitorFactory;
 import org.neo4j.kernel.impl.nioneo.store.AbstractBaseRecord;
@@ -39,6 +43,13 @@ public class SchemaStoreProcessorTask<R extends AbstractBaseRecord> extends Stor
         this.schemaRecordCheck = schemaRecordCheck;
     }
 
+    @Override
+    List<Runnable> partitions( int count, Executor readAhead )
+    {
+        // The schema record check is set on the processor for the whole pass, so keep it in one piece
+        return Collections.<Runnable>singletonList( this );
+    }
+
     @Override
     protected void beforeProcessing( StoreProcessor processor )
     {
@@ -19,6 +19,13 @@
  */
 package org.neo4j.consistency.checking.full;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.neo4j.helpers.progress.ProgressListener;
 import org.neo4j.helpers.progress.ProgressMonitorFactory;
 import org.neo4j.kernel.impl.nioneo.store.AbstractBaseRecord;
@@ -28,10 +35,19 @@ import static java.lang.String.format;
 
 class StoreProcessorTask<R extends AbstractBaseRecord> implements StoppableRunnable
 {
+    /**
+     * Partitions are processed in batches of about this many bytes worth of records, while the pages of the
+     * next batch are loaded in the background.
+     */
+    static final int BATCH_SIZE_IN_BYTES = 1 << 20;
+    private static final int READ_AHEAD_STRIDE_IN_BYTES = 4096;
+
     private final RecordStore<R> store;
+    private final String name;
     private final StoreProcessor[] processors;
     private final ProgressListener[] progressListeners;
-
+    private final AtomicLong recordsChecked = new AtomicLong();
+    private volatile long startTime, endTime;
 
     StoreProcessorTask( RecordStore<R> store,
                         ProgressMonitorFactory.MultiPartBuilder builder,
@@ -50,6 +66,7 @@ class StoreProcessorTask<R extends AbstractBaseRecord> implements StoppableRunna
         String storeFileName = store.getStorageFileName().getName();
 
         String sanitizedBuilderPrefix = builderPrefix == null ? "" : builderPrefix;
+        this.name = partName( storeFileName, sanitizedBuilderPrefix );
 
         if ( order == TaskExecutionOrder.MULTI_PASS )
         {
@@ -84,10 +101,56 @@ class StoreProcessorTask<R extends AbstractBaseRecord> implements StoppableRunna
         return format( "%s_pass_%s%d", storeFileName, prefix, i );
     }
 
+    String name()
+    {
+        return name;
+    }
+
+    long recordsChecked()
+    {
+        return recordsChecked.get();
+    }
+
+    long millisSpent()
+    {
+        return Math.max( 0, endTime - startTime );
+    }
+
+    /**
+     * Splits this task into at most {@code count} runnables, each checking a contiguous range of the store, so
+     * that a single large store can be checked by several threads. Only single pass tasks can be split up,
+     * others are returned as a single runnable. Each range is checked in batches, handing the loading of the
+     * pages of the next batch to {@code readAhead} while checking the current one.
+     */
+    List<Runnable> partitions( int count, Executor readAhead )
+    {
+        long lowId = store.getNumberOfReservedLowIds();
+        long highId = store.getHighId();
+        if ( processors.length != 1 || highId <= lowId )
+        {
+            return Collections.<Runnable>singletonList( this );
+        }
+
+        long batchSize = Math.max( 1, BATCH_SIZE_IN_BYTES / Math.max( 1, store.getRecordSize() ) );
+        long batches = (highId - lowId + batchSize - 1) / batchSize;
+        long partitionSize = batchSize * ((batches + count - 1) / count);
+        int partitionCount = (int) ((highId - lowId + partitionSize - 1) / partitionSize);
+
+        AtomicInteger remaining = new AtomicInteger( partitionCount );
+        List<Runnable> partitions = new ArrayList<>( partitionCount );
+        for ( long fromId = lowId; fromId < highId; fromId += partitionSize )
+        {
+            partitions.add( new Partition( fromId, Math.min( highId, fromId + partitionSize ), batchSize,
+                    readAhead, remaining ) );
+        }
+        return partitions;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public void run()
     {
+        startTime = System.currentTimeMillis();
         for ( int i = 0; i < processors.length; i++ )
         {
             StoreProcessor processor = processors[i];
@@ -105,6 +168,9 @@ class StoreProcessorTask<R extends AbstractBaseRecord> implements StoppableRunna
                 afterProcessing(processor);
             }
         }
+        recordsChecked.addAndGet( processors.length * Math.max( 0, store.getHighId() -
+                store.getNumberOfReservedLowIds() ) );
+        endTime = System.currentTimeMillis();
     }
 
     protected void beforeProcessing( StoreProcessor processor )
@@ -123,4 +189,101 @@ class StoreProcessorTask<R extends AbstractBaseRecord> implements StoppableRunna
         processors[0].stopScanning();
     }
 
+    private class Partition implements Runnable
+    {
+        private final long fromId, toId, batchSize;
+        private final Executor readAhead;
+        private final AtomicInteger remaining;
+
+        Partition( long fromId, long toId, long batchSize, Executor readAhead, AtomicInteger remaining )
+        {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.batchSize = batchSize;
+            this.readAhead = readAhead;
+            this.remaining = remaining;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void run()
+        {
+            StoreProcessor processor = processors[0];
+            ProgressListener progress = progressListeners[0];
+            synchronized ( progress )
+            {
+                if ( startTime == 0 )
+                {
+                    startTime = System.currentTimeMillis();
+                }
+            }
+            try
+            {
+                for ( long batchStart = fromId; batchStart < toId; batchStart += batchSize )
+                {
+                    long batchEnd = Math.min( toId, batchStart + batchSize );
+                    if ( batchEnd < toId )
+                    {
+                        readAhead.execute( new PageLoader( batchEnd, Math.min( toId, batchEnd + batchSize ) ) );
+                    }
+                    processor.applyRange( store, batchStart, batchEnd );
+                    recordsChecked.addAndGet( batchEnd - batchStart );
+                    synchronized ( progress )
+                    {
+                        progress.add( batchEnd - batchStart );
+                    }
+                }
+            }
+            catch ( Throwable e )
+            {
+                synchronized ( progress )
+                {
+                    progress.failed( e );
+                }
+            }
+            finally
+            {
+                if ( remaining.decrementAndGet() == 0 )
+                {
+                    endTime = System.currentTimeMillis();
+                    synchronized ( progress )
+                    {
+                        progress.done();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Touches one record per page of a range of the store, so that the pages are already in memory by the time
+     * the records are checked.
+     */
+    private class PageLoader implements Runnable
+    {
+        private final long fromId, toId;
+
+        PageLoader( long fromId, long toId )
+        {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        public void run()
+        {
+            long stride = Math.max( 1, READ_AHEAD_STRIDE_IN_BYTES / Math.max( 1, store.getRecordSize() ) );
+            try
+            {
+                for ( long id = fromId; id < toId; id += stride )
+                {
+                    store.forceGetRecord( id );
+                }
+            }
+            catch ( RuntimeException e )
+            {
+                // Only an optimization, the checking itself will run into the same problem and report it
+            }
+        }
+    }
 }
@@ -19,9 +19,11 @@
  */
 package org.neo4j.consistency.checking.full;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.neo4j.helpers.progress.Completion;
@@ -102,6 +104,75 @@ public enum TaskExecutionOrder
                 throw new ConsistencyCheckIncompleteException( e );
             }
         }
+    },
+    /**
+     * Checks each record store using all available processors, splitting it up into ranges that are checked
+     * concurrently while the pages of upcoming ranges are loaded in the background. Record stores are checked
+     * one after the other, in the same order as with {@link #SINGLE_THREADED}, so that the schema passes still
+     * see each other's results. The remaining checks, of the label scan store and indexes, run alongside each other.
+     */
+    PARALLEL
+    {
+        @Override
+        void execute( List<StoppableRunnable> tasks, Completion completion )
+                throws ConsistencyCheckIncompleteException
+        {
+            int processors = Runtime.getRuntime().availableProcessors();
+            ExecutorService executor = Executors.newFixedThreadPool( processors );
+            ExecutorService readAhead = Executors.newFixedThreadPool( processors );
+            try
+            {
+                List<Future<?>> running = new ArrayList<>();
+                for ( StoppableRunnable task : tasks )
+                {
+                    if ( task instanceof StoreProcessorTask )
+                    {
+                        awaitAll( running );
+                        for ( Runnable partition : ((StoreProcessorTask<?>) task).partitions( processors, readAhead ) )
+                        {
+                            running.add( executor.submit( partition ) );
+                        }
+                        awaitAll( running );
+                    }
+                    else
+                    {
+                        running.add( executor.submit( task ) );
+                    }
+                }
+                awaitAll( running );
+                completion.await( 0, TimeUnit.SECONDS );
+            }
+            catch ( Exception e )
+            {
+                for ( StoppableRunnable task : tasks )
+                {
+                    task.stopScanning();
+                }
+                throw new ConsistencyCheckIncompleteException( e );
+            }
+            finally
+            {
+                executor.shutdown();
+                readAhead.shutdownNow();
+                try
+                {
+                    executor.awaitTermination( 10, TimeUnit.SECONDS );
+                }
+                catch ( InterruptedException e )
+                {
+                    // don't care
+                }
+            }
+        }
+
+        private void awaitAll( List<Future<?>> running ) throws Exception
+        {
+            for ( Future<?> future : running )
+            {
+                future.get();
+            }
+            running.clear();
+        }
     };
 
     abstract void execute( List<StoppableRunnable> tasks, Completion completion )
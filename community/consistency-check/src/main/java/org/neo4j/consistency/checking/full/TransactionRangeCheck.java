@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.consistency.checking.full;
+
+import java.io.IOException;
+
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.consistency.checking.CheckDecorator;
+import org.neo4j.consistency.checking.SchemaRecordCheck;
+import org.neo4j.consistency.report.ConsistencyReporter;
+import org.neo4j.consistency.report.ConsistencySummaryStatistics;
+import org.neo4j.consistency.report.InconsistencyMessageLogger;
+import org.neo4j.consistency.report.InconsistencyReport;
+import org.neo4j.helpers.progress.ProgressListener;
+import org.neo4j.helpers.progress.ProgressMonitorFactory;
+import org.neo4j.kernel.impl.nioneo.store.AbstractBaseRecord;
+import org.neo4j.kernel.impl.nioneo.store.DynamicRecord;
+import org.neo4j.kernel.impl.nioneo.store.RecordStore;
+import org.neo4j.kernel.impl.nioneo.store.SchemaStorage;
+import org.neo4j.kernel.impl.nioneo.store.StoreAccess;
+import org.neo4j.kernel.impl.nioneo.xa.command.NeoCommandHandler;
+import org.neo4j.kernel.impl.transaction.xaframework.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.xaframework.IOCursor;
+import org.neo4j.kernel.impl.transaction.xaframework.LogicalTransactionStore;
+import org.neo4j.kernel.impl.util.StringLogger;
+
+import static java.lang.String.format;
+
+/**
+ * Checks only the records changed by a range of committed transactions, together with the records they directly
+ * refer to, using the same record checks as {@link FullCheck}. Meant for stores that have been fully checked up to
+ * some earlier transaction, such as a backup that is updated incrementally and checked after each update.
+ * The label scan store and the indexes are not checked, and neither are the owners of property chains.
+ */
+public class TransactionRangeCheck
+{
+    private final ProgressMonitorFactory progressFactory;
+
+    public TransactionRangeCheck( ProgressMonitorFactory progressFactory )
+    {
+        this.progressFactory = progressFactory;
+    }
+
+    /**
+     * Checks the records changed by the transactions from {@code fromTxId} up to and including {@code toTxId},
+     * as they are in {@code stores}.
+     */
+    public ConsistencySummaryStatistics execute( StoreAccess stores, LogicalTransactionStore transactions,
+                                                 long fromTxId, long toTxId, StringLogger logger )
+            throws ConsistencyCheckIncompleteException
+    {
+        AffectedRecords affected = new AffectedRecords();
+        NeoCommandHandler.HandlerVisitor visitor = new NeoCommandHandler.HandlerVisitor( affected );
+        try ( IOCursor<CommittedTransactionRepresentation> cursor = transactions.getTransactions( fromTxId ) )
+        {
+            while ( cursor.next() && cursor.get().getCommitEntry().getTxId() <= toTxId )
+            {
+                cursor.get().getTransactionRepresentation().accept( visitor );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new ConsistencyCheckIncompleteException( e );
+        }
+
+        ConsistencySummaryStatistics summary = new ConsistencySummaryStatistics();
+        execute( stores, affected, format( "Consistency check of transactions %d-%d", fromTxId, toTxId ),
+                new InconsistencyReport( new InconsistencyMessageLogger( logger ), summary ) );
+
+        if ( !summary.isConsistent() )
+        {
+            logger.logMessage( "Inconsistencies found: " + summary );
+        }
+        return summary;
+    }
+
+    void execute( StoreAccess stores, AffectedRecords affected, String process, InconsistencyReport report )
+            throws ConsistencyCheckIncompleteException
+    {
+        affected.addNeighbours( stores );
+        StoreProcessor processor = new StoreProcessor( CheckDecorator.NONE,
+                new ConsistencyReporter( FullCheck.recordAccess( stores ), report ) );
+        ProgressListener progress = progressFactory.singlePart( process, affected.size() );
+        try
+        {
+            check( processor, stores.getNodeStore(), affected.nodes, progress );
+            check( processor, stores.getNodeDynamicLabelStore(), affected.nodeLabels, progress );
+            check( processor, stores.getRelationshipStore(), affected.relationships, progress );
+            check( processor, stores.getRelationshipGroupStore(), affected.relationshipGroups, progress );
+            check( processor, stores.getPropertyStore(), affected.properties, progress );
+            check( processor, stores.getStringStore(), affected.strings, progress );
+            check( processor, stores.getArrayStore(), affected.arrays, progress );
+            check( processor, stores.getRelationshipTypeTokenStore(), affected.relationshipTypeTokens, progress );
+            check( processor, stores.getLabelTokenStore(), affected.labelTokens, progress );
+            check( processor, stores.getPropertyKeyTokenStore(), affected.propertyKeyTokens, progress );
+            if ( affected.schemaChanged )
+            {
+                checkSchema( processor, stores.getSchemaStore() );
+            }
+            progress.done();
+        }
+        catch ( RuntimeException e )
+        {
+            progress.failed( e );
+            throw new ConsistencyCheckIncompleteException( e );
+        }
+    }
+
+    private static <R extends AbstractBaseRecord> void check( StoreProcessor processor, RecordStore<R> store,
+                                                              PrimitiveLongSet ids, ProgressListener progress )
+    {
+        for ( long id : AffectedRecords.sorted( ids ) )
+        {
+            store.accept( processor, store.forceGetRecord( id ) );
+            progress.add( 1 );
+        }
+    }
+
+    /**
+     * Schema rules refer to each other, so the schema store, which is small, is checked as a whole in the same
+     * passes as in {@link ConsistencyCheckTasks}.
+     */
+    @SuppressWarnings("unchecked")
+    private static void checkSchema( StoreProcessor processor, RecordStore<DynamicRecord> schemaStore )
+    {
+        processor.applyFiltered( schemaStore );
+        SchemaRecordCheck schemaCheck = new SchemaRecordCheck( new SchemaStorage( schemaStore ) );
+        try
+        {
+            processor.setSchemaRecordCheck( schemaCheck );
+            processor.applyFiltered( schemaStore );
+            processor.setSchemaRecordCheck( schemaCheck.forObligationChecking() );
+            processor.applyFiltered( schemaStore );
+        }
+        finally
+        {
+            processor.setSchemaRecordCheck( null );
+        }
+    }
+}
@@ -19,7 +19,9 @@
  */
 package org.neo4j.consistency.report;
 
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -32,6 +34,8 @@ public class ConsistencySummaryStatistics
             new EnumMap<RecordType, AtomicInteger>( RecordType.class );
     private final AtomicInteger totalInconsistencyCount = new AtomicInteger();
     private final AtomicLong errorCount = new AtomicLong(), warningCount = new AtomicLong();
+    private final Map<String, Long> recordsPerSecond =
+            Collections.synchronizedMap( new LinkedHashMap<String, Long>() );
 
     public ConsistencySummaryStatistics()
     {
@@ -73,6 +77,25 @@ public class ConsistencySummaryStatistics
         return totalInconsistencyCount.get();
     }
 
+    /**
+     * Records how long it took to check the records of a store, or of one pass over it.
+     */
+    public void storeChecked( String name, long records, long millis )
+    {
+        recordsPerSecond.put( name, records * 1000 / Math.max( 1, millis ) );
+    }
+
+    /**
+     * @return the number of records checked per second, by store, in the order the stores were checked.
+     */
+    public Map<String, Long> getRecordsPerSecond()
+    {
+        synchronized ( recordsPerSecond )
+        {
+            return new LinkedHashMap<>( recordsPerSecond );
+        }
+    }
+
     void update( RecordType recordType, int errors, int warnings )
     {
         if ( errors > 0 )
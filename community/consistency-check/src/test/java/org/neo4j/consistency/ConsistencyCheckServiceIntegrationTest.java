@@ -20,6 +20,8 @@
 package org.neo4j.consistency;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Date;
 
 import org.junit.Rule;
@@ -29,16 +31,21 @@ import org.neo4j.consistency.checking.GraphStoreFixture;
 import org.neo4j.graphdb.DynamicRelationshipType;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.progress.ProgressMonitorFactory;
 import org.neo4j.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.transaction.xaframework.PhysicalLogFile;
 import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.test.TargetDirectory;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import static org.neo4j.consistency.ConsistencyCheckService.defaultLogFileName;
@@ -105,6 +112,100 @@ public class ConsistencyCheckServiceIntegrationTest
         assertTrue( "Inconsistency report file " + specificLogFile + " not generated", specificLogFile.exists() );
     }
 
+    @Test
+    public void shouldFindInconsistenciesInTransactionsSinceTheLastCheckWhenCheckingIncrementally() throws Exception
+    {
+        // given
+        ConsistencyCheckService service = new ConsistencyCheckService();
+        Config configuration = new Config(
+                stringMap( ConsistencyCheckSettings.consistency_check_incremental.name(), "true" ),
+                GraphDatabaseSettings.class, ConsistencyCheckSettings.class );
+        assertEquals( ConsistencyCheckService.Result.SUCCESS, service.runFullConsistencyCheck(
+                fixture.directory().getPath(), configuration, ProgressMonitorFactory.NONE, StringLogger.DEV_NULL ) );
+        String lastCheckedTx = lastCheckedTransaction();
+        breakNodeStore();
+
+        // when
+        StringBuffer log = new StringBuffer();
+        ConsistencyCheckService.Result result = service.runFullConsistencyCheck( fixture.directory().getPath(),
+                configuration, ProgressMonitorFactory.NONE, StringLogger.wrap( log ) );
+
+        // then
+        assertEquals( ConsistencyCheckService.Result.FAILURE, result );
+        assertThat( log.toString(), containsString( "Checking transactions " ) );
+        assertEquals( "inconsistent transactions should not be recorded as checked",
+                lastCheckedTx, lastCheckedTransaction() );
+    }
+
+    @Test
+    public void shouldCheckTheWholeStoreIfTheTransactionsSinceTheLastCheckHaveBeenPruned() throws Exception
+    {
+        // given
+        ConsistencyCheckService service = new ConsistencyCheckService();
+        Config configuration = new Config(
+                stringMap( ConsistencyCheckSettings.consistency_check_incremental.name(), "true" ),
+                GraphDatabaseSettings.class, ConsistencyCheckSettings.class );
+        service.runFullConsistencyCheck( fixture.directory().getPath(), configuration,
+                ProgressMonitorFactory.NONE, StringLogger.DEV_NULL );
+        breakNodeStore();
+        for ( File file : fixture.directory().listFiles() )
+        {
+            if ( file.getName().startsWith( PhysicalLogFile.DEFAULT_NAME ) )
+            {
+                assertTrue( file.delete() );
+            }
+        }
+
+        // when
+        StringBuffer log = new StringBuffer();
+        ConsistencyCheckService.Result result = service.runFullConsistencyCheck( fixture.directory().getPath(),
+                configuration, ProgressMonitorFactory.NONE, StringLogger.wrap( log ) );
+
+        // then
+        assertEquals( ConsistencyCheckService.Result.FAILURE, result );
+        assertThat( log.toString(), containsString( "checking the whole store" ) );
+    }
+
+    @Test
+    public void shouldCheckTheWholeStoreIfTheLastCheckWasOfAnotherStore() throws Exception
+    {
+        // given a store that has been checked
+        ConsistencyCheckService service = new ConsistencyCheckService();
+        Config configuration = new Config(
+                stringMap( ConsistencyCheckSettings.consistency_check_incremental.name(), "true" ),
+                GraphDatabaseSettings.class, ConsistencyCheckSettings.class );
+        assertEquals( ConsistencyCheckService.Result.SUCCESS, service.runFullConsistencyCheck(
+                fixture.directory().getPath(), configuration, ProgressMonitorFactory.NONE, StringLogger.DEV_NULL ) );
+
+        // and another store taking its place
+        File otherStoreDir = new File( testDirectory.directory(), "other" );
+        GraphDatabaseService otherDb = new GraphDatabaseFactory().newEmbeddedDatabase( otherStoreDir.getPath() );
+        try ( org.neo4j.graphdb.Transaction tx = otherDb.beginTx() )
+        {
+            otherDb.createNode();
+            tx.success();
+        }
+        otherDb.shutdown();
+        Files.copy( new File( fixture.directory(), ConsistencyCheckService.LAST_CHECKED_TRANSACTION_FILE_NAME ).toPath(),
+                new File( otherStoreDir, ConsistencyCheckService.LAST_CHECKED_TRANSACTION_FILE_NAME ).toPath() );
+
+        // when
+        StringBuffer log = new StringBuffer();
+        ConsistencyCheckService.Result result = service.runFullConsistencyCheck( otherStoreDir.getPath(),
+                configuration, ProgressMonitorFactory.NONE, StringLogger.wrap( log ) );
+
+        // then
+        assertEquals( ConsistencyCheckService.Result.SUCCESS, result );
+        assertThat( log.toString(), containsString( "was of another store" ) );
+        assertThat( log.toString(), not( containsString( "Checking transactions " ) ) );
+    }
+
+    private String lastCheckedTransaction() throws IOException
+    {
+        return new String( Files.readAllBytes( new File( fixture.directory(),
+                ConsistencyCheckService.LAST_CHECKED_TRANSACTION_FILE_NAME ).toPath() ), "UTF-8" );
+    }
+
     private void breakNodeStore() throws TransactionFailureException
     {
         fixture.apply( new GraphStoreFixture.Transaction()
@@ -111,6 +111,24 @@ public class ConsistencyCheckToolTest
         assertTrue( config.getValue().get( ConsistencyCheckSettings.consistency_check_property_owners ) );
     }
 
+    @Test
+    public void checksIncrementallyIfRequested() throws Exception
+    {
+        // given
+        String[] args = {storeDirectory.directory().getPath(), "-incremental"};
+        ConsistencyCheckService service = mock( ConsistencyCheckService.class );
+        PrintStream systemOut = mock( PrintStream.class );
+
+        // when
+        new ConsistencyCheckTool( service, systemOut ).run( args );
+
+        // then
+        ArgumentCaptor<Config> config = ArgumentCaptor.forClass( Config.class );
+        verify( service ).runFullConsistencyCheck( anyString(), config.capture(),
+                any( ProgressMonitorFactory.class ), any( StringLogger.class ));
+        assertTrue( config.getValue().get( ConsistencyCheckSettings.consistency_check_incremental ) );
+    }
+
     @Test
     public void exitWithFailureIndicatingCorrectUsageIfNoArgumentsSupplied() throws Exception
     {
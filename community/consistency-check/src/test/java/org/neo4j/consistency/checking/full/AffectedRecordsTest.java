@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.consistency.checking.full;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.nioneo.store.LabelTokenRecord;
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.PropertyRecord;
+import org.neo4j.kernel.impl.nioneo.store.RecordStore;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
+import org.neo4j.kernel.impl.nioneo.store.StoreAccess;
+import org.neo4j.kernel.impl.nioneo.xa.command.Command;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.neo4j.consistency.checking.full.AffectedRecords.sorted;
+
+@SuppressWarnings("unchecked")
+public class AffectedRecordsTest
+{
+    @Test
+    public void shouldCollectTheIdsOfChangedRecordsByStore() throws Exception
+    {
+        // given
+        AffectedRecords affected = new AffectedRecords();
+        PropertyRecord property = new PropertyRecord( 7 );
+        property.setNodeId( 3 );
+
+        // when
+        new Command.NodeCommand().init( new NodeRecord( 1 ), new NodeRecord( 1 ) ).handle( affected );
+        new Command.RelationshipCommand().init( new RelationshipRecord( 5 ) ).handle( affected );
+        new Command.PropertyCommand().init( new PropertyRecord( 7 ), property ).handle( affected );
+        new Command.LabelTokenCommand().init( new LabelTokenRecord( 2 ) ).handle( affected );
+
+        // then
+        assertArrayEquals( new long[]{1, 3}, sorted( affected.nodes ) );
+        assertArrayEquals( new long[]{5}, sorted( affected.relationships ) );
+        assertArrayEquals( new long[]{7}, sorted( affected.properties ) );
+        assertArrayEquals( new long[]{2}, sorted( affected.labelTokens ) );
+        assertEquals( 5, affected.size() );
+    }
+
+    @Test
+    public void shouldAddTheRecordsThatChangedRecordsReferToButNoFurther() throws Exception
+    {
+        // given
+        RelationshipRecord relationship = new RelationshipRecord( 5, 1, 2, 0 );
+        relationship.setFirstInFirstChain( false );
+        relationship.setFirstPrevRel( 3 );
+        relationship.setFirstNextRel( 8 );
+        relationship.setSecondPrevRel( 42 ); // the length of the chain, since it's first in that chain
+        relationship.setNextProp( 20 );
+
+        StoreAccess stores = mock( StoreAccess.class );
+        RecordStore<RelationshipRecord> relationshipStore = mock( RecordStore.class );
+        when( relationshipStore.forceGetRecord( 5 ) ).thenReturn( relationship );
+        when( stores.getRelationshipStore() ).thenReturn( relationshipStore );
+
+        AffectedRecords affected = new AffectedRecords();
+        new Command.RelationshipCommand().init( relationship ).handle( affected );
+
+        // when
+        affected.addNeighbours( stores );
+
+        // then
+        assertArrayEquals( new long[]{1, 2}, sorted( affected.nodes ) );
+        assertArrayEquals( new long[]{3, 5, 8}, sorted( affected.relationships ) );
+        assertArrayEquals( new long[]{20}, sorted( affected.properties ) );
+        assertTrue( affected.relationshipGroups.isEmpty() );
+        verify( stores, never() ).getNodeStore();
+        verify( stores, never() ).getPropertyStore();
+        verify( relationshipStore, never() ).forceGetRecord( 3 );
+    }
+}
@@ -135,6 +135,37 @@ public class ExecutionOrderIntegrationTest
         }
     }
 
+    @Test
+    public void shouldRunSameChecksInParallelAsInSingleThreadedPass() throws Exception
+    {
+        // given
+        StoreAccess store = fixture.directStoreAccess().nativeStores();
+        DiffRecordAccess access = FullCheck.recordAccess( store );
+
+        FullCheck singlePass = new FullCheck( config( TaskExecutionOrder.SINGLE_THREADED ),
+                ProgressMonitorFactory.NONE );
+        FullCheck parallel = new FullCheck( config( TaskExecutionOrder.PARALLEL ),
+                ProgressMonitorFactory.NONE );
+
+        ConsistencySummaryStatistics parallelSummary = new ConsistencySummaryStatistics();
+        ConsistencySummaryStatistics singlePassSummary = new ConsistencySummaryStatistics();
+        InconsistencyLogger logger = mock( InconsistencyLogger.class );
+        InvocationLog singlePassChecks = new InvocationLog();
+        InvocationLog parallelChecks = new InvocationLog();
+
+        // when
+        singlePass.execute( fixture.directStoreAccess(), new LogDecorator( singlePassChecks ), access,
+                new InconsistencyReport( logger, singlePassSummary ) );
+
+        parallel.execute( fixture.directStoreAccess(), new LogDecorator( parallelChecks ), access,
+                new InconsistencyReport( logger, parallelSummary ) );
+
+        // then
+        verifyZeroInteractions( logger );
+        assertEquals( "Expected no inconsistencies in parallel.", 0, parallelSummary.getTotalInconsistencyCount() );
+        assertSameChecks( singlePassChecks.data, parallelChecks.data );
+    }
+
     static Config config( TaskExecutionOrder executionOrder )
     {
         return new Config( stringMap(
@@ -148,7 +179,7 @@ public class ExecutionOrderIntegrationTest
         private final Map<String, Integer> duplicates = new HashMap<>();
 
         @SuppressWarnings("ThrowableResultOfMethodCallIgnored")
-        void log( PendingReferenceCheck check, InvocationOnMock invocation )
+        synchronized void log( PendingReferenceCheck check, InvocationOnMock invocation )
         {
             Method method = invocation.getMethod();
             if ( Object.class == method.getDeclaringClass() && "finalize".equals( method.getName() ) )
@@ -19,17 +19,23 @@
  */
 package org.neo4j.consistency.checking.full;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.neo4j.consistency.checking.full.TaskExecutionOrder.MULTI_PASS;
+import static org.neo4j.consistency.checking.full.TaskExecutionOrder.PARALLEL;
 import static org.neo4j.consistency.checking.full.TaskExecutionOrder.SINGLE_THREADED;
 
 import java.io.File;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -113,4 +119,77 @@ public class StoreProcessorTaskTest
 
         assertNotSame(listener1.getValue(), listener2.getValue());
     }
+
+    @Test
+    public void parallelShouldSplitTheStoreIntoContiguousRanges() throws Exception
+    {
+        // given
+        StoreProcessor processor = mock( StoreProcessor.class );
+        NodeStore store = mock( NodeStore.class );
+        when( store.getStorageFileName() ).thenReturn( new File( "node-store" ) );
+        when( store.getRecordSize() ).thenReturn( NodeStore.RECORD_SIZE );
+        long batchSize = StoreProcessorTask.BATCH_SIZE_IN_BYTES / NodeStore.RECORD_SIZE;
+        when( store.getHighId() ).thenReturn( batchSize * 3 / 2 );
+
+        StoreProcessorTask<NodeRecord> task = new StoreProcessorTask<>(
+                store, ProgressMonitorFactory.NONE.multipleParts( "check" ), PARALLEL, processor );
+
+        // when
+        List<Runnable> partitions = task.partitions( 4, mock( Executor.class ) );
+        for ( Runnable partition : partitions )
+        {
+            partition.run();
+        }
+
+        // then
+        assertEquals( 2, partitions.size() );
+        verify( processor ).applyRange( store, 0, batchSize );
+        verify( processor ).applyRange( store, batchSize, batchSize * 3 / 2 );
+        assertEquals( batchSize * 3 / 2, task.recordsChecked() );
+    }
+
+    @Test
+    public void parallelShouldLoadTheNextBatchWhileCheckingTheCurrentOne() throws Exception
+    {
+        // given
+        StoreProcessor processor = mock( StoreProcessor.class );
+        NodeStore store = mock( NodeStore.class );
+        when( store.getStorageFileName() ).thenReturn( new File( "node-store" ) );
+        when( store.getRecordSize() ).thenReturn( NodeStore.RECORD_SIZE );
+        long batchSize = StoreProcessorTask.BATCH_SIZE_IN_BYTES / NodeStore.RECORD_SIZE;
+        when( store.getHighId() ).thenReturn( batchSize * 3 );
+        Executor readAhead = mock( Executor.class );
+
+        StoreProcessorTask<NodeRecord> task = new StoreProcessorTask<>(
+                store, ProgressMonitorFactory.NONE.multipleParts( "check" ), PARALLEL, processor );
+
+        // when
+        List<Runnable> partitions = task.partitions( 1, readAhead );
+        partitions.get( 0 ).run();
+
+        // then
+        assertEquals( 1, partitions.size() );
+        verify( processor, times( 3 ) ).applyRange( same( store ), anyLong(), anyLong() );
+        verify( readAhead, times( 2 ) ).execute( any( Runnable.class ) );
+    }
+
+    @Test
+    public void multiPassTasksShouldNotBeSplitUp() throws Exception
+    {
+        // given
+        NodeStore store = mock( NodeStore.class );
+        when( store.getStorageFileName() ).thenReturn( new File( "node-store" ) );
+        when( store.getHighId() ).thenReturn( 1_000_000L );
+
+        StoreProcessorTask<NodeRecord> task = new StoreProcessorTask<>(
+                store, ProgressMonitorFactory.NONE.multipleParts( "check" ), MULTI_PASS,
+                mock( StoreProcessor.class ), mock( StoreProcessor.class ), mock( StoreProcessor.class ) );
+
+        // when
+        List<Runnable> partitions = task.partitions( 4, mock( Executor.class ) );
+
+        // then
+        assertEquals( 1, partitions.size() );
+        assertEquals( task, partitions.get( 0 ) );
+    }
 }
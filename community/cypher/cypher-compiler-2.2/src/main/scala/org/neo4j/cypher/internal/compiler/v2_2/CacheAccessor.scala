@@ -19,12 +19,15 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_2
 
+import org.neo4j.cypher.internal.LRUCache
+
 object CacheAccessor {
   type PlanCache[K, T] = (K, => T) => T
 }
 
 trait CacheAccessor[K, T] {
   def getOrElseUpdate(cache: CacheAccessor.PlanCache[K, T])(key: K, f: => T): T
+  def replace(cache: LRUCache[K, T])(key: K, f: => T): T
 }
 
 class MonitoringCacheAccessor[K, T](monitor: CypherCacheHitMonitor[K]) extends CacheAccessor[K, T] {
@@ -43,4 +46,11 @@ class MonitoringCacheAccessor[K, T](monitor: CypherCacheHitMonitor[K]) extends C
 
     value
   }
+
+  def replace(cache: LRUCache[K, T])(key: K, f: => T): T = {
+    monitor.cacheDiscard(key)
+    val value = f
+    cache.put(key, value)
+    value
+  }
 }
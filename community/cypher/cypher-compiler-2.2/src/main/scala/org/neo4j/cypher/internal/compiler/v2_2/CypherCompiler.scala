@@ -27,9 +27,10 @@ import org.neo4j.cypher.internal.compiler.v2_2.commands.AbstractQuery
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan._
 import org.neo4j.cypher.internal.compiler.v2_2.parser.{CypherParser, ParserMonitor}
 import org.neo4j.cypher.internal.compiler.v2_2.planner.{Planner, PlanningMonitor}
-import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.{CachedMetricsFactory, SimpleMetricsFactory}
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.{CachedMetricsFactory, GreedyJoinOrdering, JoinOrdering, PlanningStrategyConfiguration, QueryGraphSolver, SimpleMetricsFactory}
 import org.neo4j.cypher.internal.compiler.v2_2.spi.PlanContext
 import org.neo4j.graphdb.GraphDatabaseService
+import org.neo4j.helpers.Clock
 import org.neo4j.kernel.monitoring.{Monitors => KernelMonitors}
 
 trait SemanticCheckMonitor {
@@ -50,6 +51,7 @@ trait CypherCacheFlushingMonitor[T] {
 trait CypherCacheHitMonitor[T] {
   def cacheHit(key: T)
   def cacheMiss(key: T)
+  def cacheDiscard(key: T)
 }
 
 trait CypherCacheMonitor[T, E] extends CypherCacheHitMonitor[T] with CypherCacheFlushingMonitor[E]
@@ -59,7 +61,9 @@ trait AstCacheMonitor extends CypherCacheMonitor[Statement, CacheAccessor[Statem
 object CypherCompilerFactory {
   val monitorTag = "cypher2.1"
 
-  def ronjaCompiler(graph: GraphDatabaseService, queryCacheSize: Int, kernelMonitors: KernelMonitors): CypherCompiler = {
+  def ronjaCompiler(graph: GraphDatabaseService, queryCacheSize: Int, statsDivergenceThreshold: Double,
+                    queryPlanTTL: Long, clock: Clock, kernelMonitors: KernelMonitors,
+                    joinOrdering: JoinOrdering = GreedyJoinOrdering): CypherCompiler = {
     val monitors = new Monitors(kernelMonitors)
     val parser = new CypherParser(monitors.newMonitor[ParserMonitor[ast.Statement]](monitorTag))
     val checker = new SemanticChecker(monitors.newMonitor[SemanticCheckMonitor](monitorTag))
@@ -67,9 +71,10 @@ object CypherCompilerFactory {
     val planBuilderMonitor = monitors.newMonitor[NewQueryPlanSuccessRateMonitor](monitorTag)
     val planningMonitor = monitors.newMonitor[PlanningMonitor](monitorTag)
     val metricsFactory = CachedMetricsFactory(SimpleMetricsFactory)
-    val planner = new Planner(monitors, metricsFactory, planningMonitor)
+    val queryGraphSolver = QueryGraphSolver(PlanningStrategyConfiguration.default.copy(joinOrdering = joinOrdering))
+    val planner = new Planner(monitors, metricsFactory, planningMonitor, queryGraphSolver = queryGraphSolver)
     val pipeBuilder = new LegacyVsNewPipeBuilder(new LegacyPipeBuilder(monitors), planner, planBuilderMonitor)
-    val execPlanBuilder = new ExecutionPlanBuilder(graph, pipeBuilder)
+    val execPlanBuilder = new ExecutionPlanBuilder(graph, statsDivergenceThreshold, queryPlanTTL, clock, pipeBuilder)
     val planCacheFactory = () => new LRUCache[ast.Statement, ExecutionPlan](queryCacheSize)
     val cacheMonitor = monitors.newMonitor[AstCacheMonitor](monitorTag)
     val cache = new MonitoringCacheAccessor[ast.Statement, ExecutionPlan](cacheMonitor)
@@ -77,13 +82,14 @@ object CypherCompilerFactory {
     new CypherCompiler(parser, checker, execPlanBuilder, rewriter, cache, planCacheFactory, cacheMonitor, monitors)
   }
 
-  def legacyCompiler(graph: GraphDatabaseService, queryCacheSize: Int, kernelMonitors: KernelMonitors): CypherCompiler = {
+  def legacyCompiler(graph: GraphDatabaseService, queryCacheSize: Int, statsDivergenceThreshold: Double,
+                     queryPlanTTL: Long, clock: Clock, kernelMonitors: KernelMonitors): CypherCompiler = {
     val monitors = new Monitors(kernelMonitors)
     val parser = new CypherParser(monitors.newMonitor[ParserMonitor[ast.Statement]](monitorTag))
     val checker = new SemanticChecker(monitors.newMonitor[SemanticCheckMonitor](monitorTag))
     val rewriter = new ASTRewriter(monitors.newMonitor[AstRewritingMonitor](monitorTag))
     val pipeBuilder = new LegacyPipeBuilder(monitors)
-    val execPlanBuilder = new ExecutionPlanBuilder(graph, pipeBuilder)
+    val execPlanBuilder = new ExecutionPlanBuilder(graph, statsDivergenceThreshold, queryPlanTTL, clock, pipeBuilder)
     val planCacheFactory = () => new LRUCache[ast.Statement, ExecutionPlan](queryCacheSize)
     val cacheMonitor = monitors.newMonitor[AstCacheMonitor](monitorTag)
     val cache = new MonitoringCacheAccessor[ast.Statement, ExecutionPlan](cacheMonitor)
@@ -115,15 +121,21 @@ case class CypherCompiler(parser: CypherParser,
 
   def planPreparedQuery(parsedQuery: PreparedQuery, context: PlanContext): (ExecutionPlan, Map[String, Any]) = {
     val cache = provideCache(cacheAccessor, cacheMonitor, context)
-    val plan = cacheAccessor.getOrElseUpdate(cache)(parsedQuery.statement, {
+    var planned = false
+    val cachedPlan = cacheAccessor.getOrElseUpdate(cache)(parsedQuery.statement, {
+      planned = true
       executionPlanBuilder.build(context, parsedQuery)
     })
+    val plan = if (!planned && cachedPlan.isStale(context.statistics))
+      cacheAccessor.replace(cache)(parsedQuery.statement, executionPlanBuilder.build(context, parsedQuery))
+    else
+      cachedPlan
     (plan, parsedQuery.extractedParams)
   }
 
   private def provideCache(cacheAccessor: CacheAccessor[Statement, ExecutionPlan],
                            monitor: CypherCacheFlushingMonitor[CacheAccessor[Statement, ExecutionPlan]],
-                           context: PlanContext) =
+                           context: PlanContext): LRUCache[Statement, ExecutionPlan] =
     context.getOrCreateFromSchemaState(cacheAccessor, {
       monitor.cacheFlushDetected(cacheAccessor)
       planCacheFactory()
@@ -23,6 +23,7 @@ import org.neo4j.cypher.internal.compiler.v2_2.ast.Statement
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.PipeInfo
 import org.neo4j.cypher.internal.compiler.v2_2.parser.ParserMonitor
 import org.neo4j.cypher.internal.compiler.v2_2.planner.PlanningMonitor
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.Cost
 import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans.LogicalPlan
 import org.parboiled.errors.ParseError
 
@@ -37,6 +38,8 @@ trait StagesTimingMonitor {
 
   def planningTimeElapsed(query: String, ms: Long)
 
+  def planCostEstimated(query: String, solver: String, estimatedCost: Double)
+
   def executionPlanBuilding(query: String, ms: Long)
 }
 
@@ -94,6 +97,10 @@ class StagesTimingListener(monitors: Monitors, monitor: StagesTimingMonitor) {
       start(query)
     }
 
+    def costedPlan(query: String, solver: String, estimatedCost: Cost, planningTimeMillis: Long) {
+      monitor.planCostEstimated(query, solver, estimatedCost.gummyBears)
+    }
+
     def successfulPlanning(query: String, p: PipeInfo) {
       end(query, monitor.executionPlanBuilding)
     }
@@ -57,10 +57,9 @@ case class Equals(a: Expression, b: Expression) extends Predicate with Comparer
     else             None
   }
 
-  def isMatch(m: ExecutionContext)(implicit state: QueryState): Option[Boolean] = {
-    val a1 = a(m)
-    val b1 = b(m)
+  def isMatch(m: ExecutionContext)(implicit state: QueryState): Option[Boolean] = areEqual(a(m), b(m))
 
+  def areEqual(a1: Any, b1: Any)(implicit state: QueryState): Option[Boolean] =
     (a1, b1) match {
       case (null, _)                                             => None
       case (_, null)                                             => None
@@ -71,7 +70,6 @@ case class Equals(a: Expression, b: Expression) extends Predicate with Comparer
       case (l, r: Relationship) if !l.isInstanceOf[Relationship] => incomparable(l, r)
       case _                                                     => Some(a1 == b1)
     }
-  }
 
   private def incomparable(lhs: Any, rhs: Any)(implicit state: QueryState): Nothing =
     throw new IncomparableValuesException(textWithType(lhs), textWithType(rhs))
@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.compiler.v2_2.commands
 
 import expressions.Expression
 import org.neo4j.cypher.internal.compiler.v2_2._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.compiled.{CompiledExpression, ExpressionCompiler}
 import pipes.QueryState
 import org.neo4j.cypher.PatternException
 
@@ -31,4 +32,16 @@ case class SortItem(expression: Expression, ascending: Boolean) {
         "For instance, you cannot use the rand() function in the expression")
     else
       expression.apply(ctx)
+
+  /*
+  The sort key as a compiled expression. A key that is not deterministic is evaluated through this item, so that
+  it fails the same way, and only once there is a row to sort.
+   */
+  def compile(compiler: ExpressionCompiler): CompiledExpression =
+    if (expression.isDeterministic)
+      compiler.compile(expression)
+    else
+      new CompiledExpression {
+        def apply(ctx: ExecutionContext, state: QueryState) = SortItem.this(ctx)(state)
+      }
 }
@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.commands.compiled
+
+import org.neo4j.cypher.ArithmeticException
+import org.neo4j.cypher.internal.compiler.v2_2._
+import org.neo4j.cypher.internal.compiler.v2_2.commands._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions._
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.QueryState
+import org.neo4j.graphdb.NotFoundException
+
+/*
+Compiled expressions are flattened, specialized versions of the interpreted expression trees in
+commands.expressions. They are built once per pipe and then evaluated for every row, so they avoid the per row
+overhead of the interpreter: the Option and tuple allocations, the boxing of intermediate booleans, and the
+pattern matching over all possible value types where the types are already known.
+ */
+abstract class CompiledExpression {
+  def apply(ctx: ExecutionContext, state: QueryState): Any
+}
+
+object CompiledPredicate {
+  final val FALSE: Byte = 0
+  final val TRUE: Byte = 1
+  final val UNKNOWN: Byte = 2
+
+  def fromOption(result: Option[Boolean]): Byte =
+    if (result.isEmpty) UNKNOWN else if (result.get) TRUE else FALSE
+
+  def fromBoolean(result: Boolean): Byte = if (result) TRUE else FALSE
+}
+
+/*
+Predicates use three valued logic. Instead of Option[Boolean] the truth value is encoded as a byte, so that
+evaluating a predicate never allocates.
+ */
+abstract class CompiledPredicate extends CompiledExpression {
+  import CompiledPredicate._
+
+  def eval(ctx: ExecutionContext, state: QueryState): Byte
+
+  def isTrue(ctx: ExecutionContext, state: QueryState): Boolean = eval(ctx, state) == TRUE
+
+  def apply(ctx: ExecutionContext, state: QueryState): Any = eval(ctx, state) match {
+    case TRUE  => true
+    case FALSE => false
+    case _     => null
+  }
+}
+
+final case class InterpretedExpression(inner: Expression) extends CompiledExpression {
+  def apply(ctx: ExecutionContext, state: QueryState) = inner(ctx)(state)
+}
+
+final case class InterpretedPredicate(inner: Predicate) extends CompiledPredicate {
+  def eval(ctx: ExecutionContext, state: QueryState) = CompiledPredicate.fromOption(inner.isMatch(ctx)(state))
+}
+
+final case class ConstantExpression(value: Any) extends CompiledExpression {
+  def apply(ctx: ExecutionContext, state: QueryState) = value
+}
+
+final case class ConstantPredicate(value: Byte) extends CompiledPredicate {
+  def eval(ctx: ExecutionContext, state: QueryState) = value
+}
+
+final case class IdentifierLookup(name: String) extends CompiledExpression {
+  def apply(ctx: ExecutionContext, state: QueryState) =
+    ctx.getOrElse(name, throw new NotFoundException("Unknown identifier `%s`.".format(name)))
+}
+
+final case class ParameterLookup(name: String) extends CompiledExpression {
+  def apply(ctx: ExecutionContext, state: QueryState) = state.getParam(name)
+}
+
+/*
+Arithmetic on two longs or two doubles is done directly on the primitive values; every other combination of
+values is handed to the interpreted expression, which knows how to widen mixed numbers, concatenate strings and
+collections, and how to fail.
+ */
+abstract class CompiledArithmetic(left: CompiledExpression, right: CompiledExpression) extends CompiledExpression {
+  def apply(ctx: ExecutionContext, state: QueryState): Any = {
+    val l = left(ctx, state)
+    val r = right(ctx, state)
+
+    if (l.isInstanceOf[java.lang.Long] && r.isInstanceOf[java.lang.Long])
+      longs(l.asInstanceOf[Long], r.asInstanceOf[Long])
+    else if (l.isInstanceOf[java.lang.Double] && r.isInstanceOf[java.lang.Double])
+      doubles(l.asInstanceOf[Double], r.asInstanceOf[Double])
+    else
+      fallback(l, r)
+  }
+
+  protected def longs(l: Long, r: Long): Any
+  protected def doubles(l: Double, r: Double): Any
+  protected def fallback(l: Any, r: Any): Any
+
+  protected def numbers(interpreted: Arithmetics, l: Any, r: Any): Any = (l, r) match {
+    case (null, _)              => null
+    case (_, null)              => null
+    case (x: Number, y: Number) => interpreted.calc(x, y)
+    case _                      => interpreted.throwTypeError(r, l)
+  }
+}
+
+final case class CompiledAdd(interpreted: Add, left: CompiledExpression, right: CompiledExpression)
+  extends CompiledArithmetic(left, right) {
+  protected def longs(l: Long, r: Long) = l + r
+  protected def doubles(l: Double, r: Double) = l + r
+  protected def fallback(l: Any, r: Any) = interpreted.add(l, r)
+}
+
+final case class CompiledSubtract(interpreted: Subtract, left: CompiledExpression, right: CompiledExpression)
+  extends CompiledArithmetic(left, right) {
+  protected def longs(l: Long, r: Long) = l - r
+  protected def doubles(l: Double, r: Double) = l - r
+  protected def fallback(l: Any, r: Any) = numbers(interpreted, l, r)
+}
+
+final case class CompiledMultiply(interpreted: Multiply, left: CompiledExpression, right: CompiledExpression)
+  extends CompiledArithmetic(left, right) {
+  protected def longs(l: Long, r: Long) = l * r
+  protected def doubles(l: Double, r: Double) = l * r
+  protected def fallback(l: Any, r: Any) = numbers(interpreted, l, r)
+}
+
+final case class CompiledDivide(interpreted: Divide, left: CompiledExpression, right: CompiledExpression)
+  extends CompiledArithmetic(left, right) {
+  protected def longs(l: Long, r: Long) =
+    if (r == 0L) throw new ArithmeticException("/ by zero") else l / r
+  protected def doubles(l: Double, r: Double) =
+    if (r == 0.0) throw new ArithmeticException("/ by zero") else l / r
+  protected def fallback(l: Any, r: Any) =
+    if (r == 0) throw new ArithmeticException("/ by zero") else numbers(interpreted, l, r)
+}
+
+final case class CompiledAnd(a: CompiledPredicate, b: CompiledPredicate) extends CompiledPredicate {
+  import CompiledPredicate._
+
+  // Both sides are always evaluated, just like the interpreted And does
+  def eval(ctx: ExecutionContext, state: QueryState) = {
+    val l = a.eval(ctx, state)
+    val r = b.eval(ctx, state)
+    if (l == FALSE || r == FALSE) FALSE
+    else if (l == UNKNOWN || r == UNKNOWN) UNKNOWN
+    else TRUE
+  }
+}
+
+final case class CompiledAnds(predicates: Array[CompiledPredicate]) extends CompiledPredicate {
+  import CompiledPredicate._
+
+  def eval(ctx: ExecutionContext, state: QueryState): Byte = {
+    var result = TRUE
+    var i = 0
+    while (i < predicates.length) {
+      val r = predicates(i).eval(ctx, state)
+      if (r == FALSE)
+        return FALSE
+      if (r == UNKNOWN)
+        result = UNKNOWN
+      i += 1
+    }
+    result
+  }
+}
+
+final case class CompiledOr(a: CompiledPredicate, b: CompiledPredicate) extends CompiledPredicate {
+  import CompiledPredicate._
+
+  def eval(ctx: ExecutionContext, state: QueryState) = {
+    val l = a.eval(ctx, state)
+    val r = b.eval(ctx, state)
+    if (l == TRUE || r == TRUE) TRUE
+    else if (l == UNKNOWN || r == UNKNOWN) UNKNOWN
+    else FALSE
+  }
+}
+
+final case class CompiledOrs(predicates: Array[CompiledPredicate]) extends CompiledPredicate {
+  import CompiledPredicate._
+
+  def eval(ctx: ExecutionContext, state: QueryState): Byte = {
+    var result = FALSE
+    var i = 0
+    while (i < predicates.length) {
+      val r = predicates(i).eval(ctx, state)
+      if (r == TRUE)
+        return TRUE
+      if (r == UNKNOWN)
+        result = UNKNOWN
+      i += 1
+    }
+    result
+  }
+}
+
+final case class CompiledNot(a: CompiledPredicate) extends CompiledPredicate {
+  import CompiledPredicate._
+
+  def eval(ctx: ExecutionContext, state: QueryState) = a.eval(ctx, state) match {
+    case TRUE  => FALSE
+    case FALSE => TRUE
+    case _     => UNKNOWN
+  }
+}
+
+final case class CompiledXor(a: CompiledPredicate, b: CompiledPredicate) extends CompiledPredicate {
+  import CompiledPredicate._
+
+  def eval(ctx: ExecutionContext, state: QueryState) = {
+    val l = a.eval(ctx, state)
+    val r = b.eval(ctx, state)
+    if (l == UNKNOWN || r == UNKNOWN) UNKNOWN
+    else fromBoolean(l != r)
+  }
+}
+
+final case class CompiledIsNull(expression: CompiledExpression) extends CompiledPredicate {
+  def eval(ctx: ExecutionContext, state: QueryState) =
+    CompiledPredicate.fromBoolean(expression(ctx, state) == null)
+}
+
+final case class CompiledEquals(interpreted: Equals, left: CompiledExpression, right: CompiledExpression)
+  extends CompiledPredicate {
+  import CompiledPredicate._
+
+  def eval(ctx: ExecutionContext, state: QueryState) = {
+    val l = left(ctx, state)
+    val r = right(ctx, state)
+
+    if (l == null || r == null)
+      UNKNOWN
+    else if (l.isInstanceOf[java.lang.Long] && r.isInstanceOf[java.lang.Long])
+      fromBoolean(l.asInstanceOf[Long] == r.asInstanceOf[Long])
+    else if (l.isInstanceOf[String] && r.isInstanceOf[String])
+      fromBoolean(l.equals(r))
+    else
+      fromOption(interpreted.areEqual(l, r)(state))
+  }
+}
+
+/*
+Used for <, <=, > and >= when both sides are known to be numbers. Values of the same primitive type are compared
+directly, everything else goes through the Comparer used by the interpreter.
+ */
+final case class CompiledNumericComparison(interpreted: ComparablePredicate,
+                                           left: CompiledExpression,
+                                           right: CompiledExpression) extends CompiledPredicate with Comparer {
+  import CompiledPredicate._
+
+  def eval(ctx: ExecutionContext, state: QueryState) = {
+    val l = left(ctx, state)
+    val r = right(ctx, state)
+
+    if (l == null || r == null)
+      UNKNOWN
+    else if (l.isInstanceOf[java.lang.Long] && r.isInstanceOf[java.lang.Long])
+      fromBoolean(interpreted.compare(java.lang.Long.compare(l.asInstanceOf[Long], r.asInstanceOf[Long])))
+    else if (l.isInstanceOf[java.lang.Double] && r.isInstanceOf[java.lang.Double])
+      fromBoolean(interpreted.compare(java.lang.Double.compare(l.asInstanceOf[Double], r.asInstanceOf[Double])))
+    else
+      fromBoolean(interpreted.compare(compare(l, r)(state)))
+  }
+}
+
+final case class CompiledComparison(interpreted: ComparablePredicate,
+                                    left: CompiledExpression,
+                                    right: CompiledExpression) extends CompiledPredicate with Comparer {
+  import CompiledPredicate._
+
+  def eval(ctx: ExecutionContext, state: QueryState) = {
+    val l = left(ctx, state)
+    val r = right(ctx, state)
+
+    if (l == null || r == null)
+      UNKNOWN
+    else
+      fromBoolean(interpreted.compare(compare(l, r)(state)))
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.commands.compiled
+
+import org.neo4j.cypher.internal.compiler.v2_2.commands._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions._
+import org.neo4j.cypher.internal.compiler.v2_2.symbols._
+
+/*
+Turns interpreted expression and predicate trees into compiled ones. The symbol table is used to find out which
+sub expressions are known to be numbers, so that numeric comparisons can be specialized. Anything that is not
+supported here is wrapped as is and evaluated by the interpreter.
+ */
+case class ExpressionCompiler(symbols: SymbolTable) {
+
+  def compile(expression: Expression): CompiledExpression = expression match {
+    case p: Predicate                 => compilePredicate(p)
+    case Literal(v)                   => ConstantExpression(v)
+    case Identifier(name)             => IdentifierLookup(name)
+    case ParameterExpression(name)    => ParameterLookup(name)
+    case e@Add(a, b)                  => CompiledAdd(e, compile(a), compile(b))
+    case e@Subtract(a, b)             => CompiledSubtract(e, compile(a), compile(b))
+    case e@Multiply(a, b)             => CompiledMultiply(e, compile(a), compile(b))
+    case e@Divide(a, b)               => CompiledDivide(e, compile(a), compile(b))
+    case e                            => InterpretedExpression(e)
+  }
+
+  def compilePredicate(predicate: Predicate): CompiledPredicate = predicate match {
+    case True()                       => ConstantPredicate(CompiledPredicate.TRUE)
+    case p: And                       => CompiledAnd(compilePredicate(p.a), compilePredicate(p.b))
+    case Ands(predicates)             => CompiledAnds(predicates.map(compilePredicate).toArray)
+    case Or(a, b)                     => CompiledOr(compilePredicate(a), compilePredicate(b))
+    case Ors(predicates)              => CompiledOrs(predicates.map(compilePredicate).toArray)
+    case Not(a)                       => CompiledNot(compilePredicate(a))
+    case Xor(a, b)                    => CompiledXor(compilePredicate(a), compilePredicate(b))
+    case IsNull(e)                    => CompiledIsNull(compile(e))
+    case p@Equals(a, b)               => CompiledEquals(p, compile(a), compile(b))
+    case p@LessThan(a, b)             => comparison(p, a, b)
+    case p@LessThanOrEqual(a, b)      => comparison(p, a, b)
+    case p@GreaterThan(a, b)          => comparison(p, a, b)
+    case p@GreaterThanOrEqual(a, b)   => comparison(p, a, b)
+    case p                            => InterpretedPredicate(p)
+  }
+
+  private def comparison(p: ComparablePredicate, a: Expression, b: Expression): CompiledPredicate =
+    if (isNumeric(a) && isNumeric(b))
+      CompiledNumericComparison(p, compile(a), compile(b))
+    else
+      CompiledComparison(p, compile(a), compile(b))
+
+  private def isNumeric(expression: Expression): Boolean = expression match {
+    case Literal(_: Number)                         => true
+    case Identifier(name)                           => symbols.identifiers.get(name).exists(CTNumber.isAssignableFrom)
+    case Add(a, b)                                  => isNumeric(a) && isNumeric(b)
+    case _: Subtract | _: Multiply | _: Divide      => true
+    case _: Modulo                                  => true
+    case _                                          => false
+  }
+}
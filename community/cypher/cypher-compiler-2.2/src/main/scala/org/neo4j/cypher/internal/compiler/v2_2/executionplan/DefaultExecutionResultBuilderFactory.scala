@@ -24,6 +24,7 @@ import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription
 import org.neo4j.cypher.{ExecutionResult, CypherException}
 import org.neo4j.cypher.internal.compiler.v2_2._
 import org.neo4j.cypher.internal.compiler.v2_2.pipes._
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.spill.QueryMemoryTracker
 import org.neo4j.cypher.internal.compiler.v2_2.spi.{QueryContext, CSVResources}
 import org.neo4j.graphdb.GraphDatabaseService
 
@@ -33,7 +34,7 @@ case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: Lis
 
   case class ExecutionWorkflowBuilder() extends ExecutionResultBuilder {
     private val taskCloser = new TaskCloser
-    private var externalResource: ExternalResource = new CSVResources(taskCloser)
+    private var maybeExternalResource: Option[ExternalResource] = None
     private var maybeQueryContext: Option[QueryContext] = None
     private var pipeDecorator: PipeDecorator = NullPipeDecorator
     private var exceptionDecorator: CypherException => CypherException = identity
@@ -43,8 +44,9 @@ case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: Lis
     }
 
     def setLoadCsvPeriodicCommitObserver(batchRowCount: Long) {
-      val observer = new LoadCsvPeriodicCommitObserver(batchRowCount, externalResource, queryContext)
-      externalResource = observer
+      val resources = new CSVResources(taskCloser, queryContext.jobScheduler, CSVResources.readAheadRowsFor(batchRowCount))
+      val observer = new LoadCsvPeriodicCommitObserver(batchRowCount, resources, queryContext)
+      maybeExternalResource = Some(observer)
       setExceptionDecorator(observer)
     }
 
@@ -58,7 +60,11 @@ case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: Lis
 
     def build(graph: GraphDatabaseService, queryId: AnyRef, params: Map[String, Any]): InternalExecutionResult = {
       taskCloser.addTask(queryContext.close)
-      val state = new QueryState(graph, queryContext, externalResource, params, pipeDecorator, queryId = queryId)
+      val memory = QueryMemoryTracker(queryContext.queryMemoryBudget, profiling = pipeDecorator != NullPipeDecorator,
+        queryContext.spillDirectory)
+      taskCloser.addTask(_ => memory.close())
+      val externalResource = maybeExternalResource.getOrElse(new CSVResources(taskCloser, queryContext.jobScheduler))
+      val state = new QueryState(graph, queryContext, externalResource, params, pipeDecorator, queryId = queryId, memory = memory)
       try {
         try {
           createResults(state)
@@ -19,12 +19,14 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_2.executionplan
 
-import org.neo4j.cypher.internal.compiler.v2_2.spi.QueryContext
+import org.neo4j.cypher.internal.compiler.v2_2.spi.{GraphStatistics, QueryContext}
 import org.neo4j.cypher.ExecutionResult
 
 abstract class ExecutionPlan {
   def execute(queryContext: QueryContext, params: Map[String, Any]): InternalExecutionResult
   def profile(queryContext: QueryContext, params: Map[String, Any]): InternalExecutionResult
   def isPeriodicCommit: Boolean
+  def isUpdating: Boolean
+  def isStale(statistics: => GraphStatistics): Boolean
 }
 
@@ -27,10 +27,11 @@ import org.neo4j.cypher.internal.compiler.v2_2.executionplan.builders._
 import org.neo4j.cypher.internal.compiler.v2_2.pipes._
 import org.neo4j.cypher.internal.compiler.v2_2.planner.CantHandleQueryException
 import org.neo4j.cypher.internal.compiler.v2_2.profiler.Profiler
-import org.neo4j.cypher.internal.compiler.v2_2.spi.{PlanContext, QueryContext, UpdateCountingQueryContext}
+import org.neo4j.cypher.internal.compiler.v2_2.spi._
 import org.neo4j.cypher.internal.compiler.v2_2.symbols.SymbolTable
 import org.neo4j.cypher.{ExecutionResult, PeriodicCommitInOpenTransactionException}
 import org.neo4j.graphdb.GraphDatabaseService
+import org.neo4j.helpers.Clock
 
 case class PipeInfo(pipe: Pipe,
                     updating: Boolean,
@@ -50,25 +51,44 @@ trait PipeBuilder {
 }
 
 class ExecutionPlanBuilder(graph: GraphDatabaseService,
+                           statsDivergenceThreshold: Double,
+                           queryPlanTTL: Long,
+                           clock: Clock,
                            pipeBuilder: PipeBuilder) extends PatternGraphBuilder {
 
   def build(planContext: PlanContext, inputQuery: PreparedQuery): ExecutionPlan = {
     val abstractQuery = inputQuery.abstractQuery
 
-    val pipeInfo = pipeBuilder.producePlan(inputQuery, planContext)
+    val statisticsSnapshot = new MutableGraphStatisticsSnapshot()
+    val instrumentedPlanContext = new DelegatingPlanContext(planContext) {
+      override val statistics = InstrumentedGraphStatistics(planContext.statistics, statisticsSnapshot)
+    }
+
+    val pipeInfo = parallelizeReads(pipeBuilder.producePlan(inputQuery, instrumentedPlanContext))
     val PipeInfo(pipe, _, periodicCommitInfo) = pipeInfo
 
     val columns = getQueryResultColumns(abstractQuery, pipe.symbols)
     val resultBuilderFactory = new DefaultExecutionResultBuilderFactory(pipeInfo, columns, inputQuery.planType)
     val func = getExecutionPlanFunction(periodicCommitInfo, abstractQuery.getQueryText, resultBuilderFactory)
+    val fingerprint = new PlanFingerprintReference(clock, queryPlanTTL, statsDivergenceThreshold,
+      fingerprintFrom(statisticsSnapshot.freeze))
 
     new ExecutionPlan {
       def execute(queryContext: QueryContext, params: Map[String, Any]) = func(queryContext, params, false)
       def profile(queryContext: QueryContext, params: Map[String, Any]) = func(new UpdateCountingQueryContext(queryContext), params, true)
       def isPeriodicCommit = periodicCommitInfo.isDefined
+      def isUpdating = pipeInfo.updating
+      def isStale(statistics: => GraphStatistics) = fingerprint.isStale(statistics)
     }
   }
 
+  private def parallelizeReads(pipeInfo: PipeInfo): PipeInfo =
+    if (pipeInfo.updating) pipeInfo else pipeInfo.copy(pipe = ParallelReadPipe.parallelize(pipeInfo.pipe))
+
+  // Plans built without consulting any statistics, e.g. by the rule based planner, never go stale
+  private def fingerprintFrom(snapshot: GraphStatisticsSnapshot): Option[PlanFingerprint] =
+    if (snapshot.isEmpty) None else Some(PlanFingerprint(clock.currentTimeMillis(), snapshot))
+
   private def getQueryResultColumns(q: AbstractQuery, currentSymbols: SymbolTable): List[String] = q match {
     case in: PeriodicCommitQuery =>
       getQueryResultColumns(in.query, currentSymbols)
@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.executionplan
+
+import org.neo4j.cypher.internal.compiler.v2_2.spi.{GraphStatistics, GraphStatisticsSnapshot}
+import org.neo4j.helpers.Clock
+
+case class PlanFingerprint(lastCheckTimeMillis: Long, snapshot: GraphStatisticsSnapshot)
+
+/*
+Decides whether a cached plan should be replanned because the statistics it was built on have diverged
+from the current ones. Statistics are only compared once per minimal time to live, so that a frequently
+executed query does not pay for the comparison on every execution.
+ */
+class PlanFingerprintReference(clock: Clock, minimalTimeToLive: Long, statsDivergenceThreshold: Double,
+                               @volatile private var fingerprint: Option[PlanFingerprint]) {
+
+  def isStale(statistics: => GraphStatistics): Boolean = fingerprint.fold(false) { f =>
+    val currentTimeMillis = clock.currentTimeMillis()
+    f.lastCheckTimeMillis + minimalTimeToLive <= currentTimeMillis && {
+      val currentSnapshot = f.snapshot.recompute(statistics)
+      val stale = f.snapshot.diverges(currentSnapshot, statsDivergenceThreshold)
+      if (!stale)
+        fingerprint = Some(f.copy(lastCheckTimeMillis = currentTimeMillis))
+      stale
+    }
+  }
+}
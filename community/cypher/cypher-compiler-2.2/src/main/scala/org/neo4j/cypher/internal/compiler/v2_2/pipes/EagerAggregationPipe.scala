@@ -24,10 +24,12 @@ import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.{Aggregation
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects._
 import org.neo4j.cypher.internal.compiler.v2_2.pipes.aggregation.AggregationFunction
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.spill.{OperatorMemory, SpillFile, UnspillableValueException}
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription.Arguments
 import org.neo4j.cypher.internal.compiler.v2_2.symbols._
 
 import scala.collection.mutable.{Map => MutableMap}
+import scala.util.hashing.MurmurHash3
 
 // Eager aggregation means that this pipe will eagerly load the whole resulting sub graphs before starting
 // to emit aggregated results.
@@ -48,11 +50,31 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expres
     SymbolTable(keyIdentifiers ++ aggrIdentifiers)
   }
 
-  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) = {
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    val result = aggregate(input, state, state.memory.forPipe(this), depth = 0)
+
+    if (result.isEmpty && keyNames.isEmpty) {
+      createEmptyResult(state.params)
+    } else {
+      result
+    }
+  }
+
+  private val keyNames: Seq[String] = keyExpressions.map(_._1).toSeq
+  private val aggregationNames: Seq[String] = aggregations.map(_._1).toSeq
+
+  /*
+   * Groups are kept in memory as long as they fit in the memory budget of the query. Once they don't, rows for groups
+   * not already in memory are hash partitioned to disk, and each partition is aggregated on its own after the groups
+   * in memory have been emitted. A partition that still does not fit is partitioned again, up to a maximum depth.
+   */
+  private def aggregate(input: Iterator[ExecutionContext], state: QueryState, memory: OperatorMemory, depth: Int): Iterator[ExecutionContext] = {
     // This is the temporary storage used while the aggregation is going on
     val result = MutableMap[NiceHasher, (ExecutionContext, Seq[AggregationFunction])]()
-    val keyNames: Seq[String] = keyExpressions.map(_._1).toSeq
-    val aggregationNames: Seq[String] = aggregations.map(_._1).toSeq
+    var allocated = 0L
+    var partitions: Array[SpillFile] = null
+    var spillable = keyNames.nonEmpty && depth < EagerAggregationPipe.MAX_PARTITION_DEPTH
+    val partitionBuffers = EagerAggregationPipe.PARTITIONS * SpillFile.BUFFER_SIZE.toLong
 
     def createResults(key: NiceHasher, aggregator: scala.Seq[AggregationFunction], ctx: ExecutionContext): ExecutionContext = {
       val newMap = MutableMaps.empty
@@ -66,31 +88,94 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expres
       ctx.newFrom(newMap)
     }
 
-    def createEmptyResult(params:Map[String,Any]): Iterator[ExecutionContext] = {
-      val newMap = MutableMaps.empty
-      val aggregationNamesAndFunctions = aggregationNames zip aggregations.map(_._2.createAggregationFunction.result)
+    def groupSize(groupValues: NiceHasher, ctx: ExecutionContext) =
+      memory.estimate(ctx) + memory.estimate(groupValues.original) + EagerAggregationPipe.FUNCTION_SIZE * aggregations.size
+
+    def newGroup(groupValues: NiceHasher, ctx: ExecutionContext, size: Long) {
+      val aggregateFunctions: Seq[AggregationFunction] = aggregations.map(_._2.createAggregationFunction).toSeq
+      result(groupValues) = (ctx, aggregateFunctions)
+      allocated += size
+      aggregateFunctions.foreach(func => func(ctx)(state))
+    }
 
-      aggregationNamesAndFunctions.toMap
-        .foreach { case (name, zeroValue) => newMap += name -> zeroValue  }
-      Iterator.single(ExecutionContext(newMap))
+    def aggregateInMemory(ctx: ExecutionContext) {
+      val groupValues: NiceHasher = new NiceHasher(keyNames.map(ctx))
+      result.get(groupValues) match {
+        case Some((_, functions)) =>
+          functions.foreach(func => func(ctx)(state))
+
+        case None =>
+          val size = groupSize(groupValues, ctx)
+          memory.allocate(size)
+          newGroup(groupValues, ctx, size)
+      }
+    }
+
+    def spill(groupValues: NiceHasher, ctx: ExecutionContext): Boolean = try {
+      if (partitions == null) {
+        // Every partition holds a write buffer until the input has been partitioned
+        memory.allocate(partitionBuffers)
+        partitions = Array.fill(EagerAggregationPipe.PARTITIONS)(memory.newSpillFile())
+      }
+
+      val hash = MurmurHash3.mix(EagerAggregationPipe.PARTITION_SEED + depth, groupValues.hashCode())
+      partitions((hash & Int.MaxValue) % partitions.length).write(ctx)
+      true
+    } catch {
+      case _: UnspillableValueException =>
+        // Bring back what was spilled so far, and keep all groups in memory from here on
+        val spilled = partitions
+        partitions = null
+        spillable = false
+        memory.release(partitionBuffers)
+        spilled.foreach(partition => partition.read(state.query).foreach(aggregateInMemory))
+        false
     }
 
     input.foreach(ctx => {
       val groupValues: NiceHasher = new NiceHasher(keyNames.map(ctx))
-      val aggregateFunctions: Seq[AggregationFunction] = aggregations.map(_._2.createAggregationFunction).toSeq
-      val (_, functions) = result.getOrElseUpdate(groupValues, (ctx, aggregateFunctions))
-      functions.foreach(func => func(ctx)(state))
+      result.get(groupValues) match {
+        case Some((_, functions)) =>
+          functions.foreach(func => func(ctx)(state))
+
+        case None =>
+          val size = groupSize(groupValues, ctx)
+          if (partitions == null && memory.tryAllocate(size)) {
+            newGroup(groupValues, ctx, size)
+          } else if (!(spillable && spill(groupValues, ctx))) {
+            memory.allocate(size)
+            newGroup(groupValues, ctx, size)
+          }
+      }
     })
 
-    if (result.isEmpty && keyNames.isEmpty) {
-      createEmptyResult(state.params)
+    val inMemory = result.map {
+      case (key, (ctx, aggregator)) => createResults(key, aggregator, ctx)
+    }.toIterator
+
+    if (partitions == null) {
+      memory.releaseWhenExhausted(inMemory, allocated)
     } else {
-      result.map {
-        case (key, (ctx, aggregator)) => createResults(key, aggregator, ctx)
-      }.toIterator
+      partitions.foreach(_.finish())
+      memory.release(partitionBuffers)
+      partitions.foreach(memory.spilled)
+      inMemory ++ {
+        result.clear()
+        memory.release(allocated)
+        partitions.iterator.flatMap(partition => aggregate(partition.read(state.query), state, memory, depth + 1))
+      }
     }
   }
 
+  private def createEmptyResult(params:Map[String,Any]): Iterator[ExecutionContext] = {
+    val newMap = MutableMaps.empty
+    val aggregationNamesAndFunctions = aggregationNames zip aggregations.map(_._2.createAggregationFunction.result)
+
+    aggregationNamesAndFunctions.toMap
+      .foreach { case (name, zeroValue) => newMap += name -> zeroValue  }
+    Iterator.single(ExecutionContext(newMap))
+  }
+
   def planDescription = source.planDescription.andThen(this, "EagerAggregation", Arguments.KeyNames(keyExpressions.keys.toSeq))
 
   override def effects = Effects.NONE
@@ -102,3 +187,10 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expres
 
   override def localEffects = keyExpressions.effects
 }
+
+object EagerAggregationPipe {
+  private val PARTITIONS = 16
+  private val MAX_PARTITION_DEPTH = 4
+  private val PARTITION_SEED = 0x3c074a61
+  private val FUNCTION_SIZE = 64L
+}
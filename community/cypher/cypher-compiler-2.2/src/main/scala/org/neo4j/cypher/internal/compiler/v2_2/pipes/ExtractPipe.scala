@@ -20,6 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_2.pipes
 
 import org.neo4j.cypher.internal.compiler.v2_2._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.compiled.{CompiledExpression, ExpressionCompiler}
 import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.{CachedExpression, Expression, Identifier}
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects._
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription.Arguments.KeyNames
@@ -61,6 +62,13 @@ case class ExtractPipe(source: Pipe, expressions: Map[String, Expression], hack_
     source.symbols.add(newIdentifiers)
   }
 
+  private lazy val compiledExpressions: Array[(String, CompiledExpression)] = {
+    val compiler = ExpressionCompiler(source.symbols)
+    expressions.toArray.map {
+      case (name, expression) => name -> compiler.compile(expression)
+    }
+  }
+
   /*
   Most of the time, we can execute expressions and put the results straight back into the original execution context.
   Some times, an expression we want to run can overwrite an identifier that already exists in the context. In these
@@ -75,17 +83,17 @@ case class ExtractPipe(source: Pipe, expressions: Map[String, Expression], hack_
     }
 
     val applyExpressionsOverwritingOriginal = (ctx: ExecutionContext, state: QueryState) => {
-      expressions.foreach {
+      compiledExpressions.foreach {
         case (name, expression) =>
-          ctx += name -> expression(ctx)(state)
+          ctx += name -> expression(ctx, state)
       }
       ctx
     }
     val applyExpressionsWhileKeepingOriginal = (ctx: ExecutionContext, state: QueryState) => {
       val original = ctx.clone()
-      expressions.foreach {
+      compiledExpressions.foreach {
         case (name, expression) =>
-          ctx += name -> expression(original)(state)
+          ctx += name -> expression(original, state)
       }
       ctx
     }
@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.compiler.v2_2.pipes
 
 import org.neo4j.cypher.internal.compiler.v2_2._
 import org.neo4j.cypher.internal.compiler.v2_2.commands.Predicate
+import org.neo4j.cypher.internal.compiler.v2_2.commands.compiled.ExpressionCompiler
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription.Arguments.LegacyExpression
 
@@ -28,8 +29,10 @@ case class FilterPipe(source: Pipe, predicate: Predicate)
                      (implicit pipeMonitor: PipeMonitor) extends PipeWithSource(source, pipeMonitor) {
   val symbols = source.symbols
 
+  private lazy val compiledPredicate = ExpressionCompiler(symbols).compilePredicate(predicate)
+
   protected def internalCreateResults(input: Iterator[ExecutionContext],state: QueryState) =
-    input.filter(ctx => predicate.isTrue(ctx)(state))
+    input.filter(ctx => compiledPredicate.isTrue(ctx, state))
 
   def planDescription = source.planDescription.andThen(this, "Filter", LegacyExpression(predicate))
 
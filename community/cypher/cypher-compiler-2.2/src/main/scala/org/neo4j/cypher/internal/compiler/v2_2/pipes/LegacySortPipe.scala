@@ -21,7 +21,9 @@ package org.neo4j.cypher.internal.compiler.v2_2.pipes
 
 import org.neo4j.cypher.internal.compiler.v2_2._
 import org.neo4j.cypher.internal.compiler.v2_2.commands.SortItem
+import org.neo4j.cypher.internal.compiler.v2_2.commands.compiled.{CompiledExpression, ExpressionCompiler}
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects._
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.spill.ExternalSorter
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription.Arguments.LegacyExpression
 
 import scala.math.signum
@@ -30,9 +32,14 @@ case class LegacySortPipe(source: Pipe, sortDescription: List[SortItem])
               (implicit pipeMonitor: PipeMonitor) extends PipeWithSource(source, pipeMonitor) with ExecutionContextComparer {
   def symbols = source.symbols
 
+  private lazy val sortKeys: Array[CompiledExpression] = {
+    val compiler = ExpressionCompiler(source.symbols)
+    sortDescription.map(_.compile(compiler)).toArray
+  }
+  private val ascending: Array[Boolean] = sortDescription.map(_.ascending).toArray
+
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) =
-    input.toList.
-      sortWith((a, b) => compareBy(a, b, sortDescription)(state)).iterator
+    new ExternalSorter(state.memory.forPipe(this), (a, b) => compareBy(a, b, sortKeys, ascending)(state)).sort(input, state)
 
   def planDescription =
     source.planDescription.andThen(this, "Sort", sortDescription.map(item => LegacyExpression(item.expression)):_*)
@@ -46,17 +53,17 @@ case class LegacySortPipe(source: Pipe, sortDescription: List[SortItem])
 }
 
 trait ExecutionContextComparer extends Comparer {
-  def compareBy(a: ExecutionContext, b: ExecutionContext, order: Seq[SortItem])(implicit qtx: QueryState): Boolean = order match {
-    case Nil => false
-    case head :: tail => {
-      val aVal = head(a)
-      val bVal = head(b)
-      signum(compare(aVal, bVal)) match {
-        case 1 => !head.ascending
-        case -1 => head.ascending
-        case 0 => compareBy(a, b, tail)
+  def compareBy(a: ExecutionContext, b: ExecutionContext, keys: Array[CompiledExpression], ascending: Array[Boolean])
+               (implicit qtx: QueryState): Boolean = {
+    var i = 0
+    while (i < keys.length) {
+      val key = keys(i)
+      signum(compare(key(a, qtx), key(b, qtx))) match {
+        case 1 => return !ascending(i)
+        case -1 => return ascending(i)
+        case _ => i += 1
       }
     }
+    false
   }
-
 }
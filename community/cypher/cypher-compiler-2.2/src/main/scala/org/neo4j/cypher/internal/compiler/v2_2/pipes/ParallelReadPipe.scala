@@ -0,0 +1,358 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes
+
+import java.util.concurrent.{ArrayBlockingQueue, BlockingQueue, ExecutionException, Future, TimeUnit}
+
+import org.neo4j.cypher.internal.compiler.v2_2._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions._
+import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.aggregation.AggregationFunction
+import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription.Arguments.IntroducedIdentifier
+import org.neo4j.cypher.internal.compiler.v2_2.planDescription.{NoChildren, PlanDescriptionImpl}
+import org.neo4j.cypher.internal.compiler.v2_2.symbols._
+import org.neo4j.cypher.internal.helpers.TypeSafeMathSupport
+import org.neo4j.graphdb.Node
+
+import scala.collection.mutable
+
+/*
+ * Morsel driven execution of read-only aggregations and DISTINCT.
+ *
+ * The coordinating thread runs the leaf scan of the plan and cuts the node ids it produces into morsels. Worker
+ * threads pull morsels from a bounded queue, run the streaming part of the plan (filters, expands and projections)
+ * on them in transactions of their own, and build partial results. The partial results are finally merged on the
+ * coordinating thread.
+ *
+ * Every partial result remembers the position in the scan of the first row it saw, so that unless the rows are
+ * going to be sorted anyway, the results come out in the same order as when running serially.
+ *
+ * If the query context does not offer parallel reads, or the query is being profiled, the original pipe is used.
+ */
+case class ParallelReadPipe(serial: Pipe, morselSize: Int = ParallelReadPipe.DEFAULT_MORSEL_SIZE,
+                            preserveOrder: Boolean = true)
+                           (implicit val monitor: PipeMonitor) extends Pipe {
+
+  import ParallelReadPipe._
+
+  private val leaf = leafOf(serial)
+
+  override def createResults(state: QueryState): Iterator[ExecutionContext] = state.query.parallelReads match {
+    case Some(_) if state.decorator == NullPipeDecorator => super.createResults(state)
+    case _ => serial.createResults(state)
+  }
+
+  protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
+    val reads = state.query.parallelReads.get
+    val morsels = new ArrayBlockingQueue[Morsel](reads.workers * 4)
+
+    val partials: Seq[Future[Partial]] = (1 to reads.workers).map { _ =>
+      val cursor = new MorselCursor
+      val workerPipe = replaceLeaf(serial, MorselScanPipe(leaf.ident, morsels, cursor))
+      reads.submit(worker => runPartial(workerPipe, cursor, state.copy(query = worker)))
+    }
+
+    var completed = false
+    try {
+      completed = scan(state, morsels, partials)
+    } finally {
+      endScan(morsels, partials, completed)
+    }
+
+    merge(partials.map(waitFor), state)
+  }
+
+  private def scan(state: QueryState, morsels: BlockingQueue[Morsel], partials: Seq[Future[Partial]]): Boolean = {
+    val nodes = leaf.createResults(state)
+    var sequence = 0L
+    while (nodes.hasNext) {
+      val morsel = new mutable.ArrayBuilder.ofLong
+      var count = 0
+      while (count < morselSize && nodes.hasNext) {
+        morsel += nodes.next()(leaf.ident).asInstanceOf[Node].getId
+        count += 1
+      }
+
+      val next = Morsel(sequence, morsel.result())
+      sequence += 1
+      while (!morsels.offer(next, 10, TimeUnit.MILLISECONDS)) {
+        // A failed worker no longer takes morsels, so stop scanning and let its failure surface
+        if (partials.exists(_.isDone))
+          return false
+      }
+    }
+    true
+  }
+
+  private def endScan(morsels: BlockingQueue[Morsel], partials: Seq[Future[Partial]], completed: Boolean) {
+    if (!completed)
+      morsels.clear()
+
+    partials.foreach { _ =>
+      while (!morsels.offer(END_OF_SCAN, 10, TimeUnit.MILLISECONDS)) {
+        if (partials.forall(_.isDone))
+          return
+      }
+    }
+  }
+
+  private def waitFor(partial: Future[Partial]): Partial = try {
+    partial.get
+  } catch {
+    case e: ExecutionException => throw e.getCause
+  }
+
+  private def runPartial(workerPipe: Pipe, cursor: MorselCursor, state: QueryState): Partial = workerPipe match {
+    case EagerAggregationPipe(source, keyExpressions, aggregations) =>
+      val keyNames = keyExpressions.keys.toSeq
+      val aggregationExpressions = aggregations.values.toSeq
+      // Collected lists have to be concatenated in scan order, so those are kept apart for every morsel
+      val perMorsel = preserveOrder && aggregationExpressions.exists(_.isInstanceOf[Collect])
+      val groups = mutable.Map[NiceHasher, (ExecutionContext, Seq[AggregationFunction], Position)]()
+      val partial = Seq.newBuilder[PartialGroup]
+      var morsel = -1L
+      var row = 0L
+
+      def flush() {
+        groups.foreach {
+          case (key, (ctx, functions, position)) => partial += PartialGroup(key, ctx, functions.map(_.result), position)
+        }
+        groups.clear()
+      }
+
+      source.createResults(state).foreach { ctx =>
+        if (cursor.morsel != morsel) {
+          if (perMorsel)
+            flush()
+          morsel = cursor.morsel
+          row = 0
+        }
+        val groupValues = new NiceHasher(keyNames.map(ctx))
+        val (_, functions, _) = groups.getOrElseUpdate(groupValues,
+          (ctx, aggregationExpressions.map(_.createAggregationFunction), Position(morsel, row)))
+        functions.foreach(func => func(ctx)(state))
+        row += 1
+      }
+      flush()
+      partial.result()
+
+    case distinct: DistinctPipe =>
+      var morsel = -1L
+      var row = 0L
+      distinct.createResults(state).map { ctx =>
+        if (cursor.morsel != morsel) {
+          morsel = cursor.morsel
+          row = 0
+        }
+        row += 1
+        PartialGroup(new NiceHasher(distinct.keyNames.map(ctx)), ctx, Seq.empty, Position(morsel, row - 1))
+      }.toList
+  }
+
+  private def inScanOrder(partials: Seq[Partial]): Iterator[PartialGroup] =
+    if (preserveOrder) partials.flatten.sortBy(_.position).iterator else partials.iterator.flatten
+
+  private def merge(partials: Seq[Partial], state: QueryState): Iterator[ExecutionContext] = serial match {
+    case EagerAggregationPipe(_, keyExpressions, aggregations) =>
+      val keyNames = keyExpressions.keys.toSeq
+      val aggregationNames = aggregations.keys.toSeq
+      val combiners = aggregations.values.toSeq.map(combinerFor)
+      // Inserting the groups in the order they were first seen gives the same iteration order as the serial pipe
+      val groups = mutable.Map[NiceHasher, (ExecutionContext, Array[Any])]()
+
+      inScanOrder(partials).foreach { group =>
+        groups.get(group.key) match {
+          case None =>
+            groups(group.key) = (group.ctx, group.values.toArray)
+          case Some((_, merged)) =>
+            combiners.indices.foreach(i => merged(i) = combiners(i)(merged(i), group.values(i), state))
+        }
+      }
+
+      if (groups.isEmpty && keyNames.isEmpty) {
+        val zeroValues = aggregations.map { case (name, expression) => name -> expression.createAggregationFunction.result }
+        Iterator.single(ExecutionContext(MutableMaps.create(zeroValues)))
+      } else {
+        groups.iterator.map {
+          case (key, (ctx, merged)) => ctx.newFrom((keyNames zip key.original) ++ (aggregationNames zip merged))
+        }
+      }
+
+    case _: DistinctPipe =>
+      val seen = mutable.Set[NiceHasher]()
+      inScanOrder(partials).collect {
+        case group if seen.add(group.key) => group.ctx
+      }
+  }
+
+  def symbols: SymbolTable = serial.symbols
+
+  def planDescription = serial.planDescription
+
+  def sources: Seq[Pipe] = serial.sources
+
+  def exists(pred: Pipe => Boolean) = pred(this) || serial.exists(pred)
+
+  override def localEffects = serial.localEffects
+
+  override def effects = serial.effects
+
+  def dup(sources: List[Pipe]): Pipe = copy(serial = serial.dup(sources))
+}
+
+object ParallelReadPipe extends TypeSafeMathSupport with Comparer {
+  val DEFAULT_MORSEL_SIZE = 1024
+
+  private val END_OF_SCAN = Morsel(-1, Array.empty[Long])
+
+  private type Partial = Seq[PartialGroup]
+  private type Combiner = (Any, Any, QueryState) => Any
+
+  /*
+   * Where in the scan a row came from: the sequence number of its morsel, and the number of rows that the worker
+   * produced from that morsel before it.
+   */
+  private case class Position(morsel: Long, row: Long)
+
+  private implicit val positionOrdering: Ordering[Position] = Ordering.by((p: Position) => (p.morsel, p.row))
+
+  private case class PartialGroup(key: NiceHasher, ctx: ExecutionContext, values: Seq[Any], position: Position)
+
+  /*
+   * Wraps every aggregation or DISTINCT that sits on top of a read-only scan, and whose partial results can be
+   * merged, into a ParallelReadPipe. Results that are sorted right away do not need to keep the serial order.
+   */
+  def parallelize(pipe: Pipe, preserveOrder: Boolean = true): Pipe = pipe match {
+    case aggregation@EagerAggregationPipe(source, _, aggregations)
+      if isMorselChain(source) && aggregations.values.forall(isCombinable) =>
+      ParallelReadPipe(aggregation, preserveOrder = preserveOrder)(aggregation.monitor)
+
+    case distinct@DistinctPipe(source, _) if isMorselChain(source) =>
+      ParallelReadPipe(distinct, preserveOrder = preserveOrder)(distinct.monitor)
+
+    case _ =>
+      val sources = pipe.sources.map(source => parallelize(source, preserveOrder = orderMatters(pipe, preserveOrder)))
+      if ((sources zip pipe.sources).forall { case (rewritten, original) => rewritten eq original })
+        pipe
+      else
+        pipe.dup(sources.toList)
+  }
+
+  // Whether the order of the rows coming into the pipe can be observed in the results of the query
+  private def orderMatters(pipe: Pipe, orderMattersAbove: Boolean) = pipe match {
+    case _: SortPipe | _: LegacySortPipe | _: TopPipe => false
+    case _: FilterPipe | _: ExtractPipe | _: ProjectionNewPipe => orderMattersAbove
+    case _ => true
+  }
+
+  private def isMorselChain(pipe: Pipe): Boolean = !pipe.effects.writes() && (pipe match {
+    case _: AllNodesScanPipe | _: NodeByLabelScanPipe => true
+    case _: FilterPipe | _: ExpandPipe | _: OptionalExpandPipe | _: ExtractPipe | _: ProjectionNewPipe =>
+      isMorselChain(pipe.sources.head)
+    case _ => false
+  })
+
+  private def isCombinable(aggregation: AggregationExpression) = aggregation match {
+    case _: Count | _: CountStar | _: Sum | _: Min | _: Max | _: Collect => true
+    case _ => false
+  }
+
+  private def combinerFor(aggregation: AggregationExpression): Combiner = aggregation match {
+    case _: Count | _: CountStar =>
+      (a, b, _) => a.asInstanceOf[Long] + b.asInstanceOf[Long]
+    case _: Sum =>
+      (a, b, _) => plus(a, b)
+    case _: Min =>
+      (a, b, state) => if (a == null || (b != null && compare(a, b)(state) > 0)) b else a
+    case _: Max =>
+      (a, b, state) => if (a == null || (b != null && compare(a, b)(state) < 0)) b else a
+    case _: Collect =>
+      (a, b, _) => a.asInstanceOf[Seq[Any]] ++ b.asInstanceOf[Seq[Any]]
+  }
+
+  private case class Leaf(ident: String, pipe: Pipe) {
+    def createResults(state: QueryState) = pipe.createResults(state)
+  }
+
+  private def leafOf(pipe: Pipe): Leaf = pipe match {
+    case scan: AllNodesScanPipe => Leaf(scan.ident, scan)
+    case scan: NodeByLabelScanPipe => Leaf(scan.ident, scan)
+    case _ => leafOf(pipe.sources.head)
+  }
+
+  private def replaceLeaf(pipe: Pipe, replacement: Pipe): Pipe =
+    if (pipe.sources.isEmpty) replacement else pipe.dup(List(replaceLeaf(pipe.sources.head, replacement)))
+}
+
+case class Morsel(sequence: Long, ids: Array[Long])
+
+/*
+ * Tells which morsel the rows a worker is currently producing come from.
+ */
+class MorselCursor {
+  @volatile var morsel = -1L
+}
+
+/*
+ * The worker side leaf of a ParallelReadPipe, producing the nodes of the morsels handed out by the coordinating thread.
+ */
+case class MorselScanPipe(ident: String, morsels: BlockingQueue[Morsel], cursor: MorselCursor = new MorselCursor)
+                         (implicit val monitor: PipeMonitor) extends Pipe {
+
+  protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = new Iterator[ExecutionContext] {
+    private var morsel = Array.empty[Long]
+    private var position = 0
+    private var exhausted = false
+
+    def hasNext = {
+      while (!exhausted && position == morsel.length) {
+        val next = morsels.take()
+        cursor.morsel = next.sequence
+        morsel = next.ids
+        position = 0
+        exhausted = morsel.isEmpty
+      }
+      !exhausted
+    }
+
+    def next() = {
+      if (!hasNext)
+        Iterator.empty.next()
+      val id = morsel(position)
+      position += 1
+      ExecutionContext.from(ident -> state.query.nodeOps.getById(id))
+    }
+  }
+
+  def exists(pred: Pipe => Boolean) = pred(this)
+
+  def planDescription = PlanDescriptionImpl(this, "MorselScan", NoChildren, Seq(IntroducedIdentifier(ident)))
+
+  def symbols: SymbolTable = new SymbolTable(Map(ident -> CTNode))
+
+  override def localEffects = Effects.READS_NODES
+
+  def dup(sources: List[Pipe]): Pipe = {
+    require(sources.isEmpty)
+    this
+  }
+
+  def sources: Seq[Pipe] = Seq.empty
+}
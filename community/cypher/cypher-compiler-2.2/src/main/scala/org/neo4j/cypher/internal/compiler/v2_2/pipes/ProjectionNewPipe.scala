@@ -20,6 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_2.pipes
 
 import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.commands.compiled.{CompiledExpression, ExpressionCompiler}
 import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.Expression
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription.Arguments.KeyNames
 import org.neo4j.cypher.internal.compiler.v2_2.symbols.SymbolTable
@@ -35,13 +36,20 @@ case class ProjectionNewPipe(source: Pipe, expressions: Map[String, Expression])
     source.symbols.add(newIdentifiers)
   }
 
+  private lazy val compiledExpressions: Array[(String, CompiledExpression)] = {
+    val compiler = ExpressionCompiler(source.symbols)
+    expressions.toArray.map {
+      case (name, expression) => name -> compiler.compile(expression)
+    }
+  }
+
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) =
     input.map {
       original =>
         val projection = ExecutionContext.empty
-        expressions.foreach {
+        compiledExpressions.foreach {
           case (name, expression) =>
-            projection += name -> expression(original)(state)
+            projection += name -> expression(original, state)
         }
 
         projection
@@ -20,6 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_2.pipes
 
 import org.neo4j.cypher.internal.compiler.v2_2._
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.spill.QueryMemoryTracker
 import org.neo4j.cypher.internal.compiler.v2_2.spi.QueryContext
 import org.neo4j.cypher.ParameterNotFoundException
 import org.neo4j.graphdb.GraphDatabaseService
@@ -33,7 +34,8 @@ case class QueryState(db: GraphDatabaseService,
                       decorator: PipeDecorator,
                       timeReader: TimeReader = new TimeReader,
                       var initialContext: Option[ExecutionContext] = None,
-                      queryId: AnyRef = UUID.randomUUID().toString) {
+                      queryId: AnyRef = UUID.randomUUID().toString,
+                      memory: QueryMemoryTracker = new QueryMemoryTracker) {
   def readTimeStamp(): Long = timeReader.getTime
 
   def graphDatabaseAPI: GraphDatabaseAPI = db match {
@@ -20,6 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_2.pipes
 
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.spill.ExternalSorter
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription.Arguments.KeyNames
 import org.neo4j.cypher.internal.compiler.v2_2.{Comparer, ExecutionContext}
 
@@ -32,8 +33,7 @@ case class Descending(id:String) extends SortDescription
 case class SortPipe(source: Pipe, orderBy: Seq[SortDescription])(implicit monitor: PipeMonitor)
   extends PipeWithSource(source, monitor) with Comparer {
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
-    input.toList.
-      sortWith((a, b) => compareBy(a, b, orderBy)(state)).iterator
+    new ExternalSorter(state.memory.forPipe(this), (a, b) => compareBy(a, b, orderBy)(state)).sort(input, state)
 
   def planDescription = source.planDescription.andThen(this, "Sort", KeyNames(orderBy.map(_.id)))
 
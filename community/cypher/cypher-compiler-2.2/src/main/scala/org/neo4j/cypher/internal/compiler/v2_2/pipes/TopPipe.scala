@@ -23,6 +23,7 @@ import java.util.Comparator
 
 import org.neo4j.cypher.internal.compiler.v2_2._
 import org.neo4j.cypher.internal.compiler.v2_2.commands.SortItem
+import org.neo4j.cypher.internal.compiler.v2_2.commands.compiled.{CompiledExpression, ExpressionCompiler}
 import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.Expression
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription.Arguments.{KeyExpressions, LegacyExpression}
@@ -39,6 +40,11 @@ case class TopPipe(source: Pipe, sortDescription: List[SortItem], countExpressio
   val sortItems = sortDescription.toArray
   val sortItemsCount = sortItems.size
 
+  private lazy val sortKeys: Array[CompiledExpression] = {
+    val compiler = ExpressionCompiler(source.symbols)
+    sortItems.map(_.compile(compiler))
+  }
+
   type SortDataWithContext = (Array[Any],ExecutionContext)
 
   class LessThanComparator(comparer: Comparer)(implicit qtx : QueryState) extends Ordering[SortDataWithContext] {
@@ -62,7 +68,7 @@ case class TopPipe(source: Pipe, sortDescription: List[SortItem], countExpressio
     java.util.Arrays.binarySearch(array.asInstanceOf[Array[SortDataWithContext]],key, comparator)
   }
 
-  def arrayEntry(ctx : ExecutionContext)(implicit qtx : QueryState) : SortDataWithContext = (sortItems.map(_(ctx)),ctx)
+  def arrayEntry(ctx : ExecutionContext)(implicit qtx : QueryState) : SortDataWithContext = (sortKeys.map(_(ctx, qtx)),ctx)
 
   protected def internalCreateResults(input:Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
     implicit val s = state
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import java.util.{Comparator, PriorityQueue}
+
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.QueryState
+
+import scala.collection.mutable.ArrayBuffer
+
+/*
+ * Sorts rows within the memory budget of the query. Whenever the budget is used up, the rows collected so far are
+ * sorted and written to disk as a run, and the runs are merged when the input is exhausted. Like the in-memory sort
+ * it replaces, the sort is stable.
+ *
+ * At most fanIn sources are merged at once, so that a large sort does not open a file, and allocate a read buffer,
+ * for every run. When there are more runs, consecutive runs are first merged into longer runs. The read and write
+ * buffers of a merge are accounted for as memory of the operator.
+ */
+class ExternalSorter(memory: OperatorMemory, lessThan: (ExecutionContext, ExecutionContext) => Boolean,
+                     fanIn: Int = ExternalSorter.MERGE_FAN_IN) {
+  require(fanIn >= 2, "Can not merge fewer than two runs at a time")
+
+  def sort(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    val runs = ArrayBuffer[SpillFile]()
+    val buffer = ArrayBuffer[ExecutionContext]()
+    var buffered = 0L
+    var canSpill = true
+
+    input.foreach { row =>
+      val size = memory.estimate(row)
+      if (!memory.tryAllocate(size)) {
+        if (canSpill && buffer.nonEmpty) {
+          canSpill = spill(buffer, runs)
+          if (canSpill) {
+            memory.release(buffered)
+            buffered = 0L
+          }
+        }
+        if (!memory.tryAllocate(size))
+          memory.allocate(size)
+      }
+      buffered += size
+      buffer += row
+    }
+
+    val sorted = buffer.sortWith(lessThan).iterator
+    if (runs.isEmpty)
+      memory.releaseWhenExhausted(sorted, buffered)
+    else {
+      // The rows still in memory are the last source of the final merge
+      var remaining: Seq[SpillFile] = runs
+      while (remaining.size >= fanIn)
+        remaining = mergePass(remaining, state)
+      val buffers = remaining.size * SpillFile.BUFFER_SIZE.toLong
+      memory.allocate(buffers)
+      memory.releaseWhenExhausted(new MergingIterator(remaining.map(_.read(state.query)) :+ sorted, lessThan), buffered + buffers)
+    }
+  }
+
+  // Merges every fanIn consecutive runs into one, which keeps merging consecutive runs stable
+  private def mergePass(runs: Seq[SpillFile], state: QueryState): Seq[SpillFile] =
+    runs.grouped(fanIn).map(group => if (group.size == 1) group.head else merge(group, state)).toIndexedSeq
+
+  private def merge(runs: Seq[SpillFile], state: QueryState): SpillFile = {
+    val buffers = (runs.size + 1) * SpillFile.BUFFER_SIZE.toLong
+    memory.allocate(buffers)
+    try {
+      val merged = memory.newSpillFile()
+      new MergingIterator(runs.map(_.read(state.query)), lessThan).foreach(merged.write)
+      merged.finish()
+      memory.spilled(merged)
+      merged
+    } finally {
+      memory.release(buffers)
+    }
+  }
+
+  private def spill(buffer: ArrayBuffer[ExecutionContext], runs: ArrayBuffer[SpillFile]): Boolean = {
+    val run = memory.newSpillFile()
+    try {
+      buffer.sortWith(lessThan).foreach(run.write)
+      run.finish()
+      memory.spilled(run)
+      runs += run
+      buffer.clear()
+      true
+    } catch {
+      case _: UnspillableValueException =>
+        run.delete()
+        false
+    }
+  }
+}
+
+object ExternalSorter {
+  val MERGE_FAN_IN = 16
+}
+
+/*
+ * Merges sorted iterators. Equal rows are taken from the earlier iterator first, keeping a merge of consecutive
+ * stable runs stable.
+ */
+class MergingIterator(sources: Seq[Iterator[ExecutionContext]], lessThan: (ExecutionContext, ExecutionContext) => Boolean)
+  extends Iterator[ExecutionContext] {
+
+  private val heads = new PriorityQueue[(ExecutionContext, Int)](math.max(1, sources.size), new Comparator[(ExecutionContext, Int)] {
+    def compare(a: (ExecutionContext, Int), b: (ExecutionContext, Int)) =
+      if (lessThan(a._1, b._1)) -1
+      else if (lessThan(b._1, a._1)) 1
+      else Integer.compare(a._2, b._2)
+  })
+
+  sources.indices.foreach(advance)
+
+  def hasNext = !heads.isEmpty
+
+  def next() = {
+    if (!hasNext)
+      Iterator.empty.next()
+    val (row, source) = heads.poll()
+    advance(source)
+    row
+  }
+
+  private def advance(source: Int) {
+    if (sources(source).hasNext)
+      heads.add((sources(source).next(), source))
+  }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.graphdb.{Path, PropertyContainer}
+
+/*
+ * A rough estimate of the heap retained by query values. It only has to be good enough to decide when to spill.
+ */
+object MemoryEstimator {
+  private val OBJECT = 16L
+  private val REFERENCE = 8L
+  private val ENTRY = 32L
+
+  def estimate(row: ExecutionContext): Long =
+    row.m.foldLeft(OBJECT * 3) { case (size, (key, value)) => size + ENTRY + estimate(key) + estimate(value) }
+
+  def estimate(value: Any): Long = value match {
+    case null => 0L
+    case s: String => OBJECT * 2 + 2L * s.length
+    case _: PropertyContainer => OBJECT * 2
+    case p: Path => OBJECT + (OBJECT * 2 + REFERENCE) * (p.length() * 2 + 1)
+    case m: collection.Map[_, _] => m.foldLeft(OBJECT * 3) { case (size, (k, v)) => size + ENTRY + estimate(k) + estimate(v) }
+    case t: Traversable[_] => t.foldLeft(OBJECT * 2) { (size, v) => size + REFERENCE + estimate(v) }
+    case a: Array[AnyRef] => a.foldLeft(OBJECT) { (size, v) => size + REFERENCE + estimate(v) }
+    case a: Array[_] => OBJECT + 8L * a.length
+    case _ => OBJECT
+  }
+}
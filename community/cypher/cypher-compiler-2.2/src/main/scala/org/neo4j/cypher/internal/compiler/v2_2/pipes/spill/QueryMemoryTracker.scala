@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import java.io.File
+
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.Pipe
+
+import scala.collection.mutable
+
+/*
+ * Keeps track of the heap used by the materializing operators of a query. Once the budget is used up, operators
+ * that can do so spill their state to temporary files, which are removed when the query is closed.
+ *
+ * Estimating sizes is not free, so unless a budget is set, or the query is profiled, nothing is accounted for.
+ */
+class QueryMemoryTracker(val budget: Long = Long.MaxValue, val isTracking: Boolean = false,
+                         spillDirectory: Option[File] = None) {
+
+  private var allocated = 0L
+  private val operators = mutable.Map[Pipe, OperatorMemory]()
+  private val spillFiles = mutable.ListBuffer[SpillFile]()
+
+  def forPipe(pipe: Pipe): OperatorMemory = synchronized {
+    operators.getOrElseUpdate(pipe, new OperatorMemory(this))
+  }
+
+  def usageOf(pipe: Pipe): Option[OperatorMemory] = synchronized {
+    operators.get(pipe)
+  }
+
+  def newSpillFile(): SpillFile = synchronized {
+    val directory = spillDirectory.orNull
+    if (directory != null)
+      directory.mkdirs()
+    val file = new SpillFile(File.createTempFile("cypher-spill-", ".tmp", directory))
+    spillFiles += file
+    file
+  }
+
+  def close() {
+    synchronized {
+      spillFiles.foreach(_.delete())
+      spillFiles.clear()
+    }
+  }
+
+  private[spill] def reserve(bytes: Long, force: Boolean): Boolean = synchronized {
+    if (force || allocated + bytes <= budget) {
+      allocated += bytes
+      true
+    } else
+      false
+  }
+
+  private[spill] def release(bytes: Long) {
+    synchronized {
+      allocated -= bytes
+    }
+  }
+}
+
+object QueryMemoryTracker {
+  def apply(budget: Option[Long], profiling: Boolean, spillDirectory: Option[File]): QueryMemoryTracker = budget match {
+    case Some(bytes) => new QueryMemoryTracker(bytes, isTracking = true, spillDirectory)
+    case _ => new QueryMemoryTracker(isTracking = profiling, spillDirectory = spillDirectory)
+  }
+}
+
+/*
+ * The memory accounting of a single operator, as shown in PROFILE output.
+ */
+final class OperatorMemory(tracker: QueryMemoryTracker) {
+
+  private var current = 0L
+  private var _peak = 0L
+  private var _spilledBytes = 0L
+  private var _spills = 0
+
+  def peak = _peak
+
+  def inUse = current
+
+  def spilledBytes = _spilledBytes
+
+  def spills = _spills
+
+  def isTracking = tracker.isTracking
+
+  def estimate(value: Any): Long = if (isTracking) MemoryEstimator.estimate(value) else 0L
+
+  // Reserves the bytes if they fit in the budget of the query
+  def tryAllocate(bytes: Long): Boolean =
+    !isTracking || (tracker.reserve(bytes, force = false) && allocated(bytes))
+
+  // Reserves the bytes even if they exceed the budget, for state that can not be spilled
+  def allocate(bytes: Long) {
+    if (isTracking && tracker.reserve(bytes, force = true))
+      allocated(bytes)
+  }
+
+  def release(bytes: Long) {
+    if (isTracking) {
+      tracker.release(bytes)
+      current -= bytes
+    }
+  }
+
+  // Releases the bytes once the iterator over the state they account for has been consumed
+  def releaseWhenExhausted[T](iterator: Iterator[T], bytes: Long): Iterator[T] =
+    if (!isTracking || bytes == 0L)
+      iterator
+    else
+      new Iterator[T] {
+        private var released = false
+
+        def hasNext = {
+          val more = iterator.hasNext
+          if (!more && !released) {
+            released = true
+            release(bytes)
+          }
+          more
+        }
+
+        def next() = iterator.next()
+      }
+
+  def newSpillFile(): SpillFile = tracker.newSpillFile()
+
+  def spilled(file: SpillFile) {
+    _spills += 1
+    _spilledBytes += file.byteCount
+  }
+
+  private def allocated(bytes: Long) = {
+    current += bytes
+    _peak = math.max(_peak, current)
+    true
+  }
+}
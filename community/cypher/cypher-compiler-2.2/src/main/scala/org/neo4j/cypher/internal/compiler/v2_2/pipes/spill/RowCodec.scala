@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import java.io.{DataInput, DataOutput}
+import java.nio.charset.Charset
+
+import org.neo4j.cypher.internal.PathImpl
+import org.neo4j.cypher.internal.compiler.v2_2.spi.QueryContext
+import org.neo4j.cypher.internal.compiler.v2_2.{ExecutionContext, MutableMaps}
+import org.neo4j.graphdb.{Node, Path, PropertyContainer, Relationship}
+
+import scala.collection.JavaConverters._
+
+class UnspillableValueException(value: Any) extends RuntimeException(s"Can not spill a value of type ${value.getClass}")
+
+/*
+ * Binary encoding of rows for spilling. Nodes and relationships are written as ids, and looked up again in the query
+ * context when read back.
+ */
+object RowCodec {
+  private final val NULL = 0
+  private final val TRUE = 1
+  private final val FALSE = 2
+  private final val BYTE = 3
+  private final val SHORT = 4
+  private final val INT = 5
+  private final val LONG = 6
+  private final val FLOAT = 7
+  private final val DOUBLE = 8
+  private final val CHAR = 9
+  private final val STRING = 10
+  private final val NODE = 11
+  private final val RELATIONSHIP = 12
+  private final val PATH = 13
+  private final val LIST = 14
+  private final val MAP = 15
+  private final val ARRAY = 16
+
+  private val UTF8 = Charset.forName("UTF-8")
+
+  def write(row: ExecutionContext, out: DataOutput) {
+    if (row.mutationCommands.nonEmpty)
+      throw new UnspillableValueException(row.mutationCommands)
+
+    out.writeInt(row.m.size)
+    row.m.foreach {
+      case (key, value) =>
+        writeString(key, out)
+        writeValue(value, out)
+    }
+  }
+
+  def read(in: DataInput, query: QueryContext): ExecutionContext = {
+    val size = in.readInt()
+    val entries = (0 until size).map(_ => readString(in) -> readValue(in, query))
+    ExecutionContext(MutableMaps.create(entries: _*))
+  }
+
+  private def writeValue(value: Any, out: DataOutput) {
+    value match {
+      case null => out.writeByte(NULL)
+      case b: Boolean => out.writeByte(if (b) TRUE else FALSE)
+      case b: Byte => out.writeByte(BYTE); out.writeByte(b)
+      case s: Short => out.writeByte(SHORT); out.writeShort(s)
+      case i: Int => out.writeByte(INT); out.writeInt(i)
+      case l: Long => out.writeByte(LONG); out.writeLong(l)
+      case f: Float => out.writeByte(FLOAT); out.writeFloat(f)
+      case d: Double => out.writeByte(DOUBLE); out.writeDouble(d)
+      case c: Char => out.writeByte(CHAR); out.writeChar(c)
+      case s: String => out.writeByte(STRING); writeString(s, out)
+      case n: Node => out.writeByte(NODE); out.writeLong(n.getId)
+      case r: Relationship => out.writeByte(RELATIONSHIP); out.writeLong(r.getId)
+      case p: Path =>
+        val entities = p.iterator().asScala.toSeq
+        out.writeByte(PATH)
+        out.writeInt(entities.size)
+        entities.foreach(writeValue(_, out))
+      case m: collection.Map[_, _] =>
+        out.writeByte(MAP)
+        out.writeInt(m.size)
+        m.foreach {
+          case (k: String, v) => writeString(k, out); writeValue(v, out)
+          case _ => throw new UnspillableValueException(m)
+        }
+      case s: Seq[_] =>
+        out.writeByte(LIST)
+        out.writeInt(s.size)
+        s.foreach(writeValue(_, out))
+      case a: Array[_] => writeArray(a, out)
+      case _ => throw new UnspillableValueException(value)
+    }
+  }
+
+  private def readValue(in: DataInput, query: QueryContext): Any = in.readByte().toInt match {
+    case NULL => null
+    case TRUE => true
+    case FALSE => false
+    case BYTE => in.readByte()
+    case SHORT => in.readShort()
+    case INT => in.readInt()
+    case LONG => in.readLong()
+    case FLOAT => in.readFloat()
+    case DOUBLE => in.readDouble()
+    case CHAR => in.readChar()
+    case STRING => readString(in)
+    case NODE => query.nodeOps.getById(in.readLong())
+    case RELATIONSHIP => query.relationshipOps.getById(in.readLong())
+    case PATH => PathImpl(readSeq(in, query).map(_.asInstanceOf[PropertyContainer]): _*)
+    case LIST => readSeq(in, query)
+    case MAP => (0 until in.readInt()).map(_ => readString(in) -> readValue(in, query)).toMap
+    case ARRAY => readArray(in)
+  }
+
+  private def readSeq(in: DataInput, query: QueryContext): List[Any] =
+    List.fill(in.readInt())(readValue(in, query))
+
+  // Property arrays keep their component type, so they are written as such
+  private def writeArray(array: Array[_], out: DataOutput) {
+    out.writeByte(ARRAY)
+    array match {
+      case a: Array[Boolean] => out.writeByte(TRUE); out.writeInt(a.length); a.foreach(out.writeBoolean)
+      case a: Array[Byte] => out.writeByte(BYTE); out.writeInt(a.length); a.foreach(out.writeByte(_))
+      case a: Array[Short] => out.writeByte(SHORT); out.writeInt(a.length); a.foreach(out.writeShort(_))
+      case a: Array[Int] => out.writeByte(INT); out.writeInt(a.length); a.foreach(out.writeInt)
+      case a: Array[Long] => out.writeByte(LONG); out.writeInt(a.length); a.foreach(out.writeLong)
+      case a: Array[Float] => out.writeByte(FLOAT); out.writeInt(a.length); a.foreach(out.writeFloat)
+      case a: Array[Double] => out.writeByte(DOUBLE); out.writeInt(a.length); a.foreach(out.writeDouble)
+      case a: Array[Char] => out.writeByte(CHAR); out.writeInt(a.length); a.foreach(out.writeChar(_))
+      case a: Array[String] => out.writeByte(STRING); out.writeInt(a.length); a.foreach(writeString(_, out))
+      case _ => throw new UnspillableValueException(array)
+    }
+  }
+
+  private def readArray(in: DataInput): Any = {
+    val componentType = in.readByte()
+    val length = in.readInt()
+    componentType.toInt match {
+      case TRUE => Array.fill(length)(in.readBoolean())
+      case BYTE => Array.fill(length)(in.readByte())
+      case SHORT => Array.fill(length)(in.readShort())
+      case INT => Array.fill(length)(in.readInt())
+      case LONG => Array.fill(length)(in.readLong())
+      case FLOAT => Array.fill(length)(in.readFloat())
+      case DOUBLE => Array.fill(length)(in.readDouble())
+      case CHAR => Array.fill(length)(in.readChar())
+      case STRING => Array.fill(length)(readString(in))
+    }
+  }
+
+  private def writeString(s: String, out: DataOutput) {
+    val bytes = s.getBytes(UTF8)
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+
+  private def readString(in: DataInput): String = {
+    val bytes = new Array[Byte](in.readInt())
+    in.readFully(bytes)
+    new String(bytes, UTF8)
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import java.io._
+
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.spi.QueryContext
+
+/*
+ * A temporary file of rows. Rows are appended until the file is finished, and then read back, once, after which it
+ * is deleted. The file is only open, and holds a buffer of BUFFER_SIZE bytes, while it is being written or read.
+ */
+final class SpillFile(file: File) {
+
+  private val buffer = new ByteArrayOutputStream()
+  private val bufferOut = new DataOutputStream(buffer)
+  private var out: DataOutputStream = null
+  private var finished = false
+  private var in: DataInputStream = null
+  private var _rowCount = 0L
+  private var _byteCount = 0L
+
+  def rowCount = _rowCount
+
+  def byteCount = _byteCount
+
+  /*
+   * Rows are encoded completely before anything is written, so a row holding values that can not be spilled leaves
+   * the file intact.
+   */
+  def write(row: ExecutionContext) {
+    if (finished)
+      throw new IllegalStateException("Can not write to a spill file that has been finished")
+    buffer.reset()
+    RowCodec.write(row, bufferOut)
+    if (out == null)
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), SpillFile.BUFFER_SIZE))
+    out.writeInt(buffer.size())
+    buffer.writeTo(out)
+    _rowCount += 1
+    _byteCount += 4 + buffer.size()
+  }
+
+  def read(query: QueryContext): Iterator[ExecutionContext] = {
+    finish()
+    in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), SpillFile.BUFFER_SIZE))
+
+    new Iterator[ExecutionContext] {
+      private var remaining = _rowCount
+
+      def hasNext = {
+        if (remaining == 0)
+          delete()
+        remaining > 0
+      }
+
+      def next() = {
+        if (!hasNext)
+          Iterator.empty.next()
+        remaining -= 1
+        in.readInt()
+        RowCodec.read(in, query)
+      }
+    }
+  }
+
+  def delete() {
+    finish()
+    if (in != null) {
+      in.close()
+      in = null
+    }
+    file.delete()
+  }
+
+  // Closes the file for writing, after which it can only be read or deleted
+  def finish() {
+    finished = true
+    if (out != null) {
+      out.close()
+      out = null
+    }
+  }
+}
+
+object SpillFile {
+  val BUFFER_SIZE = 64 * 1024
+}
@@ -60,6 +60,8 @@ object PlanDescription {
     case class LabelName(label: String) extends Argument
     case class KeyNames(keys: Seq[String]) extends Argument
     case class KeyExpressions(expressions: Seq[commands.expressions.Expression]) extends Argument
+    case class PeakMemory(bytes: Long) extends Argument
+    case class SpilledToDisk(spills: Int, bytes: Long) extends Argument
   }
 }
 
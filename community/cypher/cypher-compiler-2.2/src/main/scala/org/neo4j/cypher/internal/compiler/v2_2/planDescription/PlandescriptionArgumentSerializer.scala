@@ -33,6 +33,8 @@ object PlandescriptionArgumentSerializer {
       case LabelName(label) => s":$label"
       case KeyNames(keys) => keys.mkString(SEPARATOR)
       case KeyExpressions(expressions) => expressions.mkString(SEPARATOR)
+      case PeakMemory(bytes) => s"peak memory $bytes bytes"
+      case SpilledToDisk(spills, bytes) => s"spilled $spills times, $bytes bytes"
       case _ => arg.toString
     }
   }
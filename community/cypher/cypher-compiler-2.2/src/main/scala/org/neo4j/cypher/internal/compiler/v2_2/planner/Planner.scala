@@ -49,8 +49,12 @@ case class Planner(monitors: Monitors,
     Planner.rewriteStatement(statement) match {
       case ast: Query =>
         monitor.startedPlanning(query)
-        val (logicalPlan, pipeBuildContext) = produceQueryPlan(ast, semanticTable)(planContext)
+        val planningStarted = System.currentTimeMillis()
+        val (logicalPlan, pipeBuildContext, metrics) = planQuery(ast, semanticTable)(planContext)
+        val planningTime = System.currentTimeMillis() - planningStarted
         monitor.foundPlan(query, logicalPlan)
+        // The cost model used while planning caches by plan, so this reuses the costs computed to choose the plan
+        monitor.costedPlan(query, queryGraphSolver.toString, metrics.cost(logicalPlan), planningTime)
         val result = executionPlanBuilder.build(logicalPlan)(pipeBuildContext)
         monitor.successfulPlanning(query, result)
         result
@@ -61,6 +65,11 @@ case class Planner(monitors: Monitors,
   }
 
   def produceQueryPlan(ast: Query, semanticTable: SemanticTable)(planContext: PlanContext): (LogicalPlan, PipeExecutionBuilderContext) = {
+    val (plan, pipeBuildContext, _) = planQuery(ast, semanticTable)(planContext)
+    (plan, pipeBuildContext)
+  }
+
+  private def planQuery(ast: Query, semanticTable: SemanticTable)(planContext: PlanContext): (LogicalPlan, PipeExecutionBuilderContext, Metrics) = {
     tokenResolver.resolve(ast)(semanticTable, planContext)
     val QueryPlanInput(plannerQuery, patternInExpression) = plannerQueryBuilder.produce(ast)
 
@@ -75,7 +84,7 @@ case class Planner(monitors: Monitors,
       queryPlan.plan
     })
 
-    (plan, pipeBuildContext)
+    (plan, pipeBuildContext, metrics)
   }
 }
 
@@ -97,5 +106,6 @@ object Planner {
 trait PlanningMonitor {
   def startedPlanning(q: String)
   def foundPlan(q: String, p: LogicalPlan)
+  def costedPlan(q: String, solver: String, estimatedCost: Cost, planningTimeMillis: Long)
   def successfulPlanning(q: String, p: PipeInfo)
 }
@@ -28,19 +28,31 @@ import org.neo4j.cypher.internal.compiler.v2_2.ast.PatternExpression
 class GreedyQueryGraphSolver(config: PlanningStrategyConfiguration = PlanningStrategyConfiguration.default)
   extends QueryGraphSolver {
 
-  def plan(queryGraph: QueryGraph)(implicit context: LogicalPlanningContext, subQueryLookupTable: Map[PatternExpression, QueryGraph], leafPlan: Option[QueryPlan] = None) = {
   import CandidateGenerator._
 
+  def plan(queryGraph: QueryGraph)(implicit context: LogicalPlanningContext, subQueryLookupTable: Map[PatternExpression, QueryGraph], leafPlan: Option[QueryPlan] = None) = {
+    val leaves: PlanTable = generateLeafPlanTable(queryGraph, leafPlan)
+    solveFrom(leaves, queryGraph).uniquePlan
+  }
+
+  protected def generateLeafPlanTable(queryGraph: QueryGraph, leafPlan: Option[QueryPlan])(implicit context: LogicalPlanningContext, subQueryLookupTable: Map[PatternExpression, QueryGraph]): PlanTable = {
     val select = config.applySelections.asFunctionInContext
     val pickBest = config.pickBestCandidate.asFunctionInContext
 
-    def generateLeafPlanTable(): PlanTable = {
-      val leafPlanCandidateLists = config.leafPlanners.candidateLists(queryGraph)
-      val leafPlanCandidateListsWithSelections = leafPlanCandidateLists.map(_.map(select(_, queryGraph)))
-      val bestLeafPlans: Iterable[QueryPlan] = leafPlanCandidateListsWithSelections.flatMap(pickBest(_))
-      val startTable: PlanTable = leafPlan.foldLeft(PlanTable.empty)(_ + _)
-      bestLeafPlans.foldLeft(startTable)(_ + _)
-    }
+    val leafPlanCandidateLists = config.leafPlanners.candidateLists(queryGraph)
+    val leafPlanCandidateListsWithSelections = leafPlanCandidateLists.map(_.map(select(_, queryGraph)))
+    val bestLeafPlans: Iterable[QueryPlan] = leafPlanCandidateListsWithSelections.flatMap(pickBest(_))
+    val startTable: PlanTable = leafPlan.foldLeft(PlanTable.empty)(_ + _)
+    bestLeafPlans.foldLeft(startTable)(_ + _)
+  }
+
+  /*
+  Greedily grows the plans in the given table until a single plan covers the whole query graph: first by expanding
+  and joining, then by solving optional matches, and finally by cartesian products of whatever is left.
+   */
+  protected def solveFrom(table: PlanTable, queryGraph: QueryGraph)(implicit context: LogicalPlanningContext, subQueryLookupTable: Map[PatternExpression, QueryGraph]): PlanTable = {
+    val select = config.applySelections.asFunctionInContext
+    val pickBest = config.pickBestCandidate.asFunctionInContext
 
     def findBestPlan(planGenerator: CandidateGenerator[PlanTable]): PlanTable => PlanTable = {
       (planTable: PlanTable) =>
@@ -51,11 +63,10 @@ class GreedyQueryGraphSolver(config: PlanningStrategyConfiguration = PlanningStr
         best.fold(planTable)(planTable + _)
     }
 
-    val leaves: PlanTable = generateLeafPlanTable()
-    val afterExpandOrJoin = iterateUntilConverged(findBestPlan(expandsOrJoins))(leaves)
+    val afterExpandOrJoin = iterateUntilConverged(findBestPlan(expandsOrJoins))(table)
     val afterOptionalApplies = iterateUntilConverged(findBestPlan(optionalMatches))(afterExpandOrJoin)
-    val afterCartesianProduct = iterateUntilConverged(findBestPlan(cartesianProduct))(afterOptionalApplies)
-
-    afterCartesianProduct.uniquePlan
+    iterateUntilConverged(findBestPlan(cartesianProduct))(afterOptionalApplies)
   }
+
+  override def toString = "greedy"
 }
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.planner.logical
+
+import org.neo4j.cypher.internal.compiler.v2_2.ast.PatternExpression
+import org.neo4j.cypher.internal.compiler.v2_2.planner.QueryGraph
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans.{IdName, PatternRelationship, QueryPlan}
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps.QueryPlanProducer._
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps.expand
+import org.neo4j.helpers.Clock
+
+import scala.collection.mutable
+
+/*
+Iterative dynamic programming over the connected parts of a query graph.
+
+Starting from the leaf plans, every round extends the plans found in the previous round by one expand, or joins them
+with a disjoint connected plan found earlier, and keeps only the cheapest plan for each set of solved nodes and
+relationships. When the table grows beyond maxTableSize, the most complete plan of the round is kept as a new building
+block and all plans overlapping it are dropped. When the time budget runs out, enumeration stops and the greedy phases
+finish the plan from what has been found so far.
+ */
+class IDPQueryGraphSolver(config: PlanningStrategyConfiguration = PlanningStrategyConfiguration.default,
+                          maxTableSize: Int = IDPJoinOrdering.DEFAULT_MAX_TABLE_SIZE,
+                          timeBudgetMillis: Long = IDPJoinOrdering.DEFAULT_TIME_BUDGET_MILLIS,
+                          clock: Clock = Clock.SYSTEM_CLOCK)
+  extends GreedyQueryGraphSolver(config) {
+
+  private type Solved = (Set[IdName], Set[PatternRelationship])
+
+  override def plan(queryGraph: QueryGraph)(implicit context: LogicalPlanningContext, subQueryLookupTable: Map[PatternExpression, QueryGraph], leafPlan: Option[QueryPlan] = None) = {
+    val leaves = generateLeafPlanTable(queryGraph, leafPlan)
+    val connected =
+      if (queryGraph.patternRelationships.isEmpty) leaves
+      else enumerateConnectedPlans(leaves, queryGraph)
+    solveFrom(connected, queryGraph).uniquePlan
+  }
+
+  private def enumerateConnectedPlans(leaves: PlanTable, queryGraph: QueryGraph)(implicit context: LogicalPlanningContext, subQueryLookupTable: Map[PatternExpression, QueryGraph]): PlanTable = {
+    val select = config.applySelections.asFunctionInContext
+    val pickBest = config.pickBestCandidate.asFunctionInContext
+    val deadline = clock.currentTimeMillis() + timeBudgetMillis
+
+    val table = mutable.LinkedHashMap[Solved, QueryPlan]()
+    leaves.plans.foreach(plan => table(solved(plan)) = plan)
+    var frontier: Seq[QueryPlan] = leaves.plans
+
+    while (frontier.nonEmpty && clock.currentTimeMillis() <= deadline) {
+      val candidates = frontier.flatMap { plan =>
+        expand(PlanTable.empty + plan, queryGraph).plans ++ joinsWithTable(plan, table.values.toSeq)
+      }.map(select(_, queryGraph))
+
+      val improved = mutable.LinkedHashMap[Solved, QueryPlan]()
+      candidates.groupBy(solved).foreach {
+        case (key, plans) =>
+          val existing = table.get(key)
+          pickBest(CandidateList(existing.toSeq ++ plans)).foreach { best =>
+            if (existing != Some(best)) {
+              table(key) = best
+              improved(key) = best
+            }
+          }
+      }
+      frontier = improved.values.toSeq
+
+      if (frontier.nonEmpty && table.size > maxTableSize) {
+        val building = frontier.minBy(plan => (-solved(plan)._2.size, context.cost(plan.plan)))
+        val (nodes, rels) = solved(building)
+        table.retain {
+          (key, plan) => plan == building || ((key._2 & rels).isEmpty && !key._1.subsetOf(nodes))
+        }
+        frontier = Seq(building)
+      }
+    }
+
+    table.values.toSeq
+      .sortBy(plan => (-solved(plan)._2.size, context.cost(plan.plan)))
+      .foldLeft(PlanTable.empty)(_ + _)
+  }
+
+  /*
+  Only plans that both solve relationships are joined, so every round strictly grows the solved relationships and
+  enumeration ends after at most as many rounds as there are relationships in the query graph.
+   */
+  private def joinsWithTable(plan: QueryPlan, others: Seq[QueryPlan]): Seq[QueryPlan] = {
+    val rels = solved(plan)._2
+    if (rels.isEmpty)
+      Seq.empty
+    else
+      others.flatMap { other =>
+        val otherRels = solved(other)._2
+        val shared = (plan.availableSymbols & other.availableSymbols).toList
+        shared match {
+          case id :: Nil if otherRels.nonEmpty && (otherRels & rels).isEmpty => Some(planNodeHashJoin(id, plan, other))
+          case _ => None
+        }
+      }
+  }
+
+  private def solved(plan: QueryPlan): Solved =
+    (plan.solved.graph.patternNodes, plan.solved.graph.patternRelationships)
+
+  override def toString = s"idp(maxTableSize=$maxTableSize, timeBudget=${timeBudgetMillis}ms)"
+}
@@ -30,3 +30,11 @@ trait PlanningStrategy {
 trait QueryGraphSolver {
   def plan(queryGraph: QueryGraph)(implicit context: LogicalPlanningContext, subQueryLookupTable: Map[PatternExpression, QueryGraph], leafPlan: Option[QueryPlan] = None): QueryPlan
 }
+
+object QueryGraphSolver {
+  def apply(config: PlanningStrategyConfiguration = PlanningStrategyConfiguration.default): QueryGraphSolver =
+    config.joinOrdering match {
+      case GreedyJoinOrdering => new GreedyQueryGraphSolver(config)
+      case IDPJoinOrdering(maxTableSize, timeBudgetMillis) => new IDPQueryGraphSolver(config, maxTableSize, timeBudgetMillis)
+    }
+}
@@ -25,7 +25,8 @@ import org.neo4j.cypher.internal.compiler.v2_2.planner.QueryGraph
 case class PlanningStrategyConfiguration(
   leafPlanners: LeafPlannerList,
   applySelections: PlanTransformer[QueryGraph],
-  pickBestCandidate: CandidateSelector
+  pickBestCandidate: CandidateSelector,
+  joinOrdering: JoinOrdering = GreedyJoinOrdering
 )
 
 object PlanningStrategyConfiguration {
@@ -54,4 +55,24 @@ object PlanningStrategyConfiguration {
   )
 }
 
+sealed trait JoinOrdering
 
+// Grows the cheapest plan one step at a time
+case object GreedyJoinOrdering extends JoinOrdering
+
+// Enumerates connected sub plans by cost, bounded by table size and planning time
+case class IDPJoinOrdering(maxTableSize: Int = IDPJoinOrdering.DEFAULT_MAX_TABLE_SIZE,
+                           timeBudgetMillis: Long = IDPJoinOrdering.DEFAULT_TIME_BUDGET_MILLIS) extends JoinOrdering
+
+object IDPJoinOrdering {
+  val DEFAULT_MAX_TABLE_SIZE = 128
+  val DEFAULT_TIME_BUDGET_MILLIS = 1000L
+}
+
+object JoinOrdering {
+  def apply(name: String): JoinOrdering = name.toLowerCase match {
+    case "greedy" => GreedyJoinOrdering
+    case "idp" => IDPJoinOrdering()
+    case _ => throw new IllegalArgumentException(s"Unknown join ordering: $name")
+  }
+}
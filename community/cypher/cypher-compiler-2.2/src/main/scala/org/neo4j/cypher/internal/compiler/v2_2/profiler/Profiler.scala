@@ -24,6 +24,7 @@ import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.PlanDescription.Arguments
 import org.neo4j.cypher.internal.compiler.v2_2._
 import org.neo4j.cypher.internal.compiler.v2_2.pipes.{NullPipe, Pipe, PipeDecorator, QueryState}
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.spill.QueryMemoryTracker
 import org.neo4j.cypher.internal.compiler.v2_2.spi.{DelegatingOperations, DelegatingQueryContext, Operations, QueryContext}
 import org.neo4j.graphdb.{Node, PropertyContainer, Relationship}
 
@@ -33,6 +34,7 @@ class Profiler extends PipeDecorator {
 
   val dbHitsStats: mutable.Map[Pipe, ProfilingQueryContext] = mutable.Map.empty
   val rowStats: mutable.Map[Pipe, ProfilingIterator] = mutable.Map.empty
+  private var memory: Option[QueryMemoryTracker] = None
 
 
   def decorate(pipe: Pipe, iter: Iterator[ExecutionContext]): Iterator[ExecutionContext] = decoratePipe(pipe, iter) {
@@ -49,6 +51,7 @@ class Profiler extends PipeDecorator {
     }
 
     dbHitsStats(pipe) = decoratedContext
+    memory = Some(state.memory)
     state.copy(query = decoratedContext)
   }
 
@@ -67,9 +70,20 @@ class Profiler extends PipeDecorator {
         val rows = rowStats.get(pipe).map(_.count).getOrElse(0L)
         val dbhits = dbHitsStats.get(pipe).map(_.count).getOrElse(0L)
 
-        input
+        val profiled = input
           .addArgument(Arguments.Rows(rows))
           .addArgument(Arguments.DbHits(dbhits))
+
+        memory.flatMap(_.usageOf(pipe)) match {
+          case Some(usage) if usage.spills > 0 =>
+            profiled
+              .addArgument(Arguments.PeakMemory(usage.peak))
+              .addArgument(Arguments.SpilledToDisk(usage.spills, usage.spilledBytes))
+          case Some(usage) =>
+            profiled.addArgument(Arguments.PeakMemory(usage.peak))
+          case None =>
+            profiled
+        }
     }
   }
 }
@@ -25,33 +25,62 @@ import au.com.bytecode.opencsv.CSVReader
 import org.neo4j.cypher.internal.compiler.v2_2.TaskCloser
 import org.neo4j.cypher.LoadExternalResourceException
 import org.neo4j.cypher.internal.compiler.v2_2.pipes.ExternalResource
+import org.neo4j.kernel.impl.util.JobScheduler
 
 object CSVResources {
   val DEFAULT_FIELD_TERMINATOR: Char = ','
+  val DEFAULT_READ_AHEAD_ROWS: Int = 4 * 1024
+  val MAX_READ_AHEAD_ROWS: Int = 64 * 1024
+
+  // Reads a whole periodic commit batch ahead where possible, so the next batch is parsed while the current one commits
+  def readAheadRowsFor(batchRowCount: Long): Int =
+    math.min(math.max(batchRowCount, DEFAULT_READ_AHEAD_ROWS), MAX_READ_AHEAD_ROWS).toInt
 }
 
-class CSVResources(cleaner: TaskCloser) extends ExternalResource {
+class CSVResources(cleaner: TaskCloser, scheduler: Option[JobScheduler] = None,
+                   readAheadRows: Int = CSVResources.DEFAULT_READ_AHEAD_ROWS) extends ExternalResource {
 
   def getCsvIterator(url: URL, fieldTerminator: Option[String] = None): Iterator[Array[String]] = {
     val inputStream = openStream(url)
-    val reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"))
-    val csvReader = new CSVReader(reader, fieldTerminator.map(_.charAt(0)).getOrElse(CSVResources.DEFAULT_FIELD_TERMINATOR))
+    val reader = new InputStreamReader(inputStream, "UTF-8")
+    val separator = fieldTerminator.map(_.charAt(0)).getOrElse(CSVResources.DEFAULT_FIELD_TERMINATOR)
+    val readRow: () => Array[String] =
+      if (url.getProtocol == "file") {
+        val tokenizer = new CSVTokenizer(reader, separator)
+        () => tokenizer.readNext()
+      } else {
+        val csvReader = new CSVReader(new BufferedReader(reader), separator)
+        () => csvReader.readNext()
+      }
 
-    cleaner.addTask(_ => {
-      csvReader.close()
-    })
+    scheduler match {
+      case Some(jobs) =>
+        // The stream is closed rather than the reader, as closing the reader waits for a read in progress
+        val iterator = new ReadAheadCSVIterator(url, readRow, inputStream, jobs, readAheadRows)
+        cleaner.addTask(_ => iterator.close())
+        iterator
 
-    new Iterator[Array[String]] {
-      var nextRow: Array[String] = csvReader.readNext()
+      case None =>
+        cleaner.addTask(_ => reader.close())
+        new Iterator[Array[String]] {
+          var nextRow: Array[String] = readNext()
 
-      def hasNext: Boolean = nextRow != null
+          def hasNext: Boolean = nextRow != null
 
-      def next(): Array[String] = {
-        if (!hasNext) Iterator.empty.next()
-        val row = nextRow
-        nextRow = csvReader.readNext()
-        row
-      }
+          def next(): Array[String] = {
+            if (!hasNext) Iterator.empty.next()
+            val row = nextRow
+            nextRow = readNext()
+            row
+          }
+
+          private def readNext() = try {
+            readRow()
+          } catch {
+            case e: IOException =>
+              throw new LoadExternalResourceException(s"Couldn't load the external resource at: $url", e)
+          }
+        }
     }
   }
 
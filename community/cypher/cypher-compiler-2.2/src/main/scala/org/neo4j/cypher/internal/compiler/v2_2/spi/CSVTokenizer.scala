@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.spi
+
+import java.io.{Closeable, Reader}
+import java.util.Arrays
+
+import au.com.bytecode.opencsv.CSVParser
+
+import scala.collection.mutable.ArrayBuffer
+
+/*
+Reads CSV rows straight out of a char buffer, producing the same rows as opencsv's CSVReader.
+
+Most lines in bulk imports contain neither quotes nor escapes, and those are split on the field terminator without
+creating an intermediate line string. Lines that do contain them, or that continue a quoted field over several lines,
+are handed to opencsv's own parser.
+ */
+class CSVTokenizer(reader: Reader, separator: Char, initialBufferSize: Int = CSVTokenizer.DEFAULT_BUFFER_SIZE)
+  extends Closeable {
+
+  private val parser = new CSVParser(separator)
+  private val fields = new ArrayBuffer[String]
+  private var buffer = new Array[Char](initialBufferSize)
+  private var start = 0
+  private var end = 0
+  private var endOfInput = false
+  private var skipLineFeed = false
+
+  /**
+   * @return the fields of the next row, or null when there are no more rows
+   */
+  def readNext(): Array[String] = {
+    var result: Array[String] = null
+    do {
+      val line = readLine()
+      if (line == null)
+        return result
+      if (line.length > 0)
+        result = if (result == null) line else result ++ line
+    } while (parser.isPending)
+    result
+  }
+
+  def close() {
+    reader.close()
+  }
+
+  private def readLine(): Array[String] = {
+    if (skipLineFeed) {
+      skipLineFeed = false
+      if ((start < end || fill()) && buffer(start) == '\n')
+        start += 1
+    }
+
+    var scanned = 0
+    var needsParser = parser.isPending
+    while (true) {
+      val i = start + scanned
+      if (i == end) {
+        if (!fill()) {
+          if (scanned == 0)
+            return null
+          val line = fieldsOf(start, end, needsParser)
+          start = end
+          return line
+        }
+      } else {
+        val c = buffer(i)
+        if (c == '\n' || c == '\r') {
+          val line = fieldsOf(start, i, needsParser)
+          start = i + 1
+          skipLineFeed = c == '\r'
+          return line
+        }
+        if (c == CSVParser.DEFAULT_QUOTE_CHARACTER || c == CSVParser.DEFAULT_ESCAPE_CHARACTER)
+          needsParser = true
+        scanned += 1
+      }
+    }
+    null
+  }
+
+  private def fieldsOf(from: Int, to: Int, needsParser: Boolean): Array[String] =
+    if (needsParser) {
+      parser.parseLineMulti(new String(buffer, from, to - from))
+    } else {
+      fields.clear()
+      var fieldStart = from
+      var i = from
+      while (i < to) {
+        if (buffer(i) == separator) {
+          fields += new String(buffer, fieldStart, i - fieldStart)
+          fieldStart = i + 1
+        }
+        i += 1
+      }
+      fields += new String(buffer, fieldStart, to - fieldStart)
+      fields.toArray
+    }
+
+  // Moves the unread chars to the front of the buffer, growing it if a single line fills it, and reads more input.
+  private def fill(): Boolean = {
+    if (endOfInput)
+      return false
+    if (start > 0) {
+      System.arraycopy(buffer, start, buffer, 0, end - start)
+      end -= start
+      start = 0
+    }
+    if (end == buffer.length)
+      buffer = Arrays.copyOf(buffer, buffer.length * 2)
+    val read = reader.read(buffer, end, buffer.length - end)
+    if (read < 0) {
+      endOfInput = true
+      false
+    } else {
+      end += read
+      true
+    }
+  }
+}
+
+object CSVTokenizer {
+  val DEFAULT_BUFFER_SIZE = 64 * 1024
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.spi
+
+import org.neo4j.kernel.api.constraints.UniquenessConstraint
+import org.neo4j.kernel.api.index.IndexDescriptor
+
+class DelegatingPlanContext(inner: PlanContext) extends PlanContext {
+
+  def getIndexRule(labelName: String, propertyKey: String): Option[IndexDescriptor] =
+    inner.getIndexRule(labelName, propertyKey)
+
+  def getUniqueIndexRule(labelName: String, propertyKey: String): Option[IndexDescriptor] =
+    inner.getUniqueIndexRule(labelName, propertyKey)
+
+  def getUniquenessConstraint(labelName: String, propertyKey: String): Option[UniquenessConstraint] =
+    inner.getUniquenessConstraint(labelName, propertyKey)
+
+  def checkNodeIndex(idxName: String) {
+    inner.checkNodeIndex(idxName)
+  }
+
+  def checkRelIndex(idxName: String) {
+    inner.checkRelIndex(idxName)
+  }
+
+  def getOrCreateFromSchemaState[T](key: Any, f: => T): T = inner.getOrCreateFromSchemaState(key, f)
+
+  def statistics: GraphStatistics = inner.statistics
+
+  def getLabelName(id: Int): String = inner.getLabelName(id)
+
+  def getOptLabelId(labelName: String): Option[Int] = inner.getOptLabelId(labelName)
+
+  def getLabelId(labelName: String): Int = inner.getLabelId(labelName)
+
+  def getPropertyKeyName(id: Int): String = inner.getPropertyKeyName(id)
+
+  def getOptPropertyKeyId(propertyKeyName: String): Option[Int] = inner.getOptPropertyKeyId(propertyKeyName)
+
+  def getPropertyKeyId(propertyKeyName: String): Int = inner.getPropertyKeyId(propertyKeyName)
+
+  def getRelTypeName(id: Int): String = inner.getRelTypeName(id)
+
+  def getOptRelTypeId(relType: String): Option[Int] = inner.getOptRelTypeId(relType)
+
+  def getRelTypeId(relType: String): Int = inner.getRelTypeId(relType)
+}
@@ -19,8 +19,11 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_2.spi
 
+import java.io.File
+
 import org.neo4j.graphdb.{Relationship, PropertyContainer, Direction, Node}
 import org.neo4j.kernel.api.index.IndexDescriptor
+import org.neo4j.kernel.impl.util.JobScheduler
 
 class DelegatingQueryContext(inner: QueryContext) extends QueryContext {
 
@@ -87,6 +90,14 @@ class DelegatingQueryContext(inner: QueryContext) extends QueryContext {
 
   def withAnyOpenQueryContext[T](work: (QueryContext) => T): T = inner.withAnyOpenQueryContext(work)
 
+  override def parallelReads: Option[ParallelReads] = inner.parallelReads
+
+  override def queryMemoryBudget: Option[Long] = inner.queryMemoryBudget
+
+  override def spillDirectory: Option[File] = inner.spillDirectory
+
+  override def jobScheduler: Option[JobScheduler] = inner.jobScheduler
+
   def exactUniqueIndexSearch(index: IndexDescriptor, value: Any): Option[Node] = singleDbHit(inner.exactUniqueIndexSearch(index, value))
 
   override def commitAndRestartTx() {
@@ -109,6 +109,14 @@ class ExceptionTranslatingQueryContext(inner: QueryContext) extends DelegatingQu
         work(new ExceptionTranslatingQueryContext(qc))
       ))
 
+  override def parallelReads: Option[ParallelReads] =
+    super.parallelReads.map(reads => new ParallelReads {
+      def workers = reads.workers
+
+      def submit[T](work: (QueryContext) => T) =
+        reads.submit(qc => translateException(work(new ExceptionTranslatingQueryContext(qc))))
+    })
+
   override def isLabelSetOnNode(label: Int, node: Long): Boolean =
     translateException(super.isLabelSetOnNode(label, node))
 
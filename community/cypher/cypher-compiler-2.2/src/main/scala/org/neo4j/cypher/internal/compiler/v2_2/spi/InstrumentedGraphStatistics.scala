@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.spi
+
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.{Cardinality, Multiplier}
+import org.neo4j.cypher.internal.compiler.v2_2.{LabelId, RelTypeId}
+import org.neo4j.graphdb.Direction
+
+import scala.collection.mutable
+
+sealed trait StatisticsKey {
+  def valueIn(statistics: GraphStatistics): Double
+}
+
+case object NodesCardinality extends StatisticsKey {
+  def valueIn(statistics: GraphStatistics) = statistics.nodesCardinality.amount
+}
+
+case class NodesWithLabelCardinality(labelId: LabelId) extends StatisticsKey {
+  def valueIn(statistics: GraphStatistics) = statistics.nodesWithLabelCardinality(labelId).amount
+}
+
+case class NodesWithLabelSelectivity(labelId: LabelId) extends StatisticsKey {
+  def valueIn(statistics: GraphStatistics) = statistics.nodesWithLabelSelectivity(labelId).coefficient
+}
+
+case class RelationshipsWithTypeSelectivity(relTypeId: RelTypeId) extends StatisticsKey {
+  def valueIn(statistics: GraphStatistics) = statistics.relationshipsWithTypeSelectivity(relTypeId).coefficient
+}
+
+case class DegreeByRelationshipTypeAndDirection(relTypeId: RelTypeId, direction: Direction) extends StatisticsKey {
+  def valueIn(statistics: GraphStatistics) =
+    statistics.degreeByRelationshipTypeAndDirection(relTypeId, direction).coefficient
+}
+
+case class DegreeByLabelRelationshipTypeAndDirection(labelId: LabelId, relTypeId: RelTypeId, direction: Direction)
+  extends StatisticsKey {
+  def valueIn(statistics: GraphStatistics) =
+    statistics.degreeByLabelRelationshipTypeAndDirection(labelId, relTypeId, direction).coefficient
+}
+
+/*
+The values of all statistics that were consulted while planning a query. Comparing a snapshot with the
+values the same statistics have now tells us if the plan was built on assumptions that no longer hold.
+ */
+case class GraphStatisticsSnapshot(statsValues: Map[StatisticsKey, Double] = Map.empty) {
+
+  def recompute(statistics: GraphStatistics): GraphStatisticsSnapshot =
+    GraphStatisticsSnapshot(statsValues.keys.map(key => key -> key.valueIn(statistics)).toMap)
+
+  def diverges(snapshot: GraphStatisticsSnapshot, minThreshold: Double): Boolean = {
+    assert(statsValues.keySet == snapshot.statsValues.keySet)
+    statsValues.exists {
+      case (key, e1) =>
+        val e2 = snapshot.statsValues(key)
+        val largest = math.max(math.abs(e1), math.abs(e2))
+        largest > 0.0 && math.abs(e1 - e2) / largest > minThreshold
+    }
+  }
+
+  def isEmpty = statsValues.isEmpty
+}
+
+class MutableGraphStatisticsSnapshot(val map: mutable.Map[StatisticsKey, Double] = mutable.Map.empty) {
+  def freeze: GraphStatisticsSnapshot = GraphStatisticsSnapshot(map.toMap)
+}
+
+/*
+Records every statistic asked for by the planner in the given snapshot, so that a plan can later be
+checked against the statistics it was built on.
+ */
+case class InstrumentedGraphStatistics(inner: GraphStatistics, snapshot: MutableGraphStatisticsSnapshot)
+  extends GraphStatistics {
+
+  def nodesCardinality =
+    Cardinality(record(NodesCardinality))
+
+  def nodesWithLabelCardinality(labelId: LabelId) =
+    Cardinality(record(NodesWithLabelCardinality(labelId)))
+
+  def nodesWithLabelSelectivity(labelId: LabelId) =
+    Multiplier(record(NodesWithLabelSelectivity(labelId)))
+
+  def relationshipsWithTypeSelectivity(relTypeId: RelTypeId) =
+    Multiplier(record(RelationshipsWithTypeSelectivity(relTypeId)))
+
+  def degreeByRelationshipTypeAndDirection(relTypeId: RelTypeId, direction: Direction) =
+    Multiplier(record(DegreeByRelationshipTypeAndDirection(relTypeId, direction)))
+
+  def degreeByLabelRelationshipTypeAndDirection(labelId: LabelId, relTypeId: RelTypeId, direction: Direction) =
+    Multiplier(record(DegreeByLabelRelationshipTypeAndDirection(labelId, relTypeId, direction)))
+
+  private def record(key: StatisticsKey): Double =
+    snapshot.map.getOrElseUpdate(key, key.valueIn(inner))
+}
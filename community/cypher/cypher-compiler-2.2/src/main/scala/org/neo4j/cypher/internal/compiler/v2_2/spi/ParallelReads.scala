@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.spi
+
+import java.util.concurrent.Future
+
+/*
+ * Runs read-only work on separate worker threads. Kernel statements are bound to the thread that opened them, so
+ * every piece of work is handed a query context of its own, backed by a read transaction on the worker thread.
+ * Such a transaction does not see uncommitted state of the submitting transaction.
+ */
+trait ParallelReads {
+  def workers: Int
+
+  def submit[T](work: (QueryContext) => T): Future[T]
+}
@@ -20,7 +20,10 @@
 
 package org.neo4j.cypher.internal.compiler.v2_2.spi
 
+import java.io.File
+
 import org.neo4j.graphdb._
+import org.neo4j.kernel.impl.util.JobScheduler
 import org.neo4j.kernel.api.constraints.UniquenessConstraint
 import org.neo4j.kernel.api.index.IndexDescriptor
 import org.neo4j.cypher.QueryStatistics
@@ -90,6 +93,27 @@ trait QueryContext extends TokenContext {
 
   def hasLocalFileAccess: Boolean = false
 
+  /**
+   * Gives access to worker threads with their own read transactions, if this context allows read-only
+   * parts of a query to be executed in parallel.
+   */
+  def parallelReads: Option[ParallelReads] = None
+
+  /**
+   * The number of bytes materializing operators of a query may keep in memory before spilling to disk, if limited.
+   */
+  def queryMemoryBudget: Option[Long] = None
+
+  /**
+   * The directory materializing operators spill to, or the temporary directory of the JVM if not given.
+   */
+  def spillDirectory: Option[File] = None
+
+  /**
+   * Runs background work of a query, such as reading LOAD CSV input ahead of the query, if available.
+   */
+  def jobScheduler: Option[JobScheduler] = None
+
   /**
    * This should not be used. We'll remove sooner (or later). Don't do it.
    */
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.spi
+
+import java.io.{Closeable, IOException}
+import java.net.URL
+import java.util.concurrent.{ArrayBlockingQueue, TimeUnit}
+
+import org.neo4j.cypher.LoadExternalResourceException
+import org.neo4j.kernel.impl.util.JobScheduler
+
+/*
+Reads and parses CSV rows as a background job, ahead of the query consuming them.
+
+Rows are handed over in chunks through a bounded queue, so the reader stays at most readAheadRows rows ahead, and keeps
+parsing while the query thread is busy evaluating expressions or committing a periodic commit batch.
+ */
+class ReadAheadCSVIterator(url: URL, readRow: () => Array[String], source: Closeable, scheduler: JobScheduler,
+                           readAheadRows: Int = CSVResources.DEFAULT_READ_AHEAD_ROWS,
+                           chunkSize: Int = ReadAheadCSVIterator.CHUNK_SIZE)
+  extends Iterator[Array[String]] {
+
+  import ReadAheadCSVIterator._
+
+  private val queue = new ArrayBlockingQueue[Chunk](math.max(2, (readAheadRows + chunkSize - 1) / chunkSize))
+  @volatile private var closed = false
+
+  private var rows: Array[Array[String]] = Array.empty
+  private var position = 0
+  private var size = 0
+  private var exhausted = false
+
+  scheduler.schedule(JobScheduler.Group.loadCsvReader, new Runnable {
+    def run() {
+      try {
+        var chunk = new Array[Array[String]](chunkSize)
+        var count = 0
+        var row = readRow()
+        while (row != null && !closed) {
+          chunk(count) = row
+          count += 1
+          if (count == chunkSize) {
+            hand(Rows(chunk, count))
+            chunk = new Array[Array[String]](chunkSize)
+            count = 0
+          }
+          row = readRow()
+        }
+        hand(Rows(chunk, count))
+        hand(EndOfRows)
+      } catch {
+        case t: Throwable => hand(Failed(t))
+      }
+    }
+  })
+
+  def hasNext: Boolean = {
+    while (position == size && !exhausted) {
+      queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) match {
+        case null =>
+          // Nothing more is handed over once closed
+          if (closed)
+            exhausted = true
+        case Rows(chunk, count) =>
+          rows = chunk
+          position = 0
+          size = count
+        case EndOfRows =>
+          exhausted = true
+        case Failed(t) =>
+          exhausted = true
+          throw translate(t)
+      }
+    }
+    position < size
+  }
+
+  def next(): Array[String] = {
+    if (!hasNext) Iterator.empty.next()
+    val row = rows(position)
+    rows(position) = null
+    position += 1
+    row
+  }
+
+  /**
+   * Stops the background reader and closes the source, without waiting for the reader. A read in progress fails on
+   * the closed source, or finishes the row it is parsing, after which the reader exits.
+   */
+  def close() {
+    closed = true
+    queue.clear()
+    source.close()
+  }
+
+  private def hand(chunk: Chunk) {
+    while (!closed && !queue.offer(chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {}
+  }
+
+  private def translate(t: Throwable): Throwable = t match {
+    case e: IOException => new LoadExternalResourceException(s"Couldn't load the external resource at: $url", e)
+    case e => e
+  }
+}
+
+object ReadAheadCSVIterator {
+  val CHUNK_SIZE = 256
+  private val OFFER_TIMEOUT_MILLIS = 100L
+  private val POLL_TIMEOUT_MILLIS = 100L
+
+  private sealed trait Chunk
+  private case class Rows(rows: Array[Array[String]], count: Int) extends Chunk
+  private case object EndOfRows extends Chunk
+  private case class Failed(cause: Throwable) extends Chunk
+}
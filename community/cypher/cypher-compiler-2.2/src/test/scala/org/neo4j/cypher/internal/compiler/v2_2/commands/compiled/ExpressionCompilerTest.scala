@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.commands.compiled
+
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.commands._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions._
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.QueryStateHelper
+import org.neo4j.cypher.internal.compiler.v2_2.symbols._
+import org.neo4j.cypher.{ArithmeticException, CypherTypeException, IncomparableValuesException, PatternException}
+
+class ExpressionCompilerTest extends CypherFunSuite {
+
+  private val state = QueryStateHelper.emptyWith(params = Map("p" -> 10L, "s" -> "foo"))
+  private val ctx = ExecutionContext.from("a" -> 3L, "b" -> 4.5, "c" -> "bar", "n" -> null, "i" -> 7)
+  private val symbols = SymbolTable(Map("a" -> CTInteger, "b" -> CTFloat, "c" -> CTString, "n" -> CTAny, "i" -> CTInteger))
+  private val compiler = ExpressionCompiler(symbols)
+
+  test("should compile arithmetic to the same values as the interpreter") {
+    val values = Seq(Literal(2L), Literal(2.5), Literal(3), Literal("x"), Literal(null),
+                     Identifier("a"), Identifier("b"), Identifier("i"), ParameterExpression("p"))
+
+    for (l <- values; r <- values) {
+      assertSameResult(Add(l, r))
+      assertSameResult(Subtract(l, r))
+      assertSameResult(Multiply(l, r))
+      assertSameResult(Divide(l, r))
+    }
+  }
+
+  test("should compile comparisons to the same values as the interpreter") {
+    val values = Seq(Literal(2L), Literal(2.5), Literal(3), Literal(null), Literal("x"),
+                     Identifier("a"), Identifier("b"), Identifier("c"), Identifier("n"), ParameterExpression("s"))
+
+    for (l <- values; r <- values) {
+      assertSameResult(Equals(l, r))
+      assertSameResult(LessThan(l, r))
+      assertSameResult(LessThanOrEqual(l, r))
+      assertSameResult(GreaterThan(l, r))
+      assertSameResult(GreaterThanOrEqual(l, r))
+    }
+  }
+
+  test("should compile boolean logic to the same values as the interpreter") {
+    val predicates = Seq(True(), Not(True()), Equals(Literal(null), Literal(1L)))
+
+    for (l <- predicates; r <- predicates) {
+      assertSameResult(And(l, r))
+      assertSameResult(Or(l, r))
+      assertSameResult(Xor(l, r))
+      assertSameResult(Ands(List(l, r, True())))
+      assertSameResult(Ors(List(l, Not(True()), r)))
+      assertSameResult(Not(l))
+      assertSameResult(IsNull(Identifier("n")))
+    }
+  }
+
+  test("should compile nested filter expressions") {
+    val predicate = Ands(List(
+      GreaterThan(Add(Identifier("a"), Identifier("b")), ParameterExpression("p")),
+      Not(IsNull(Identifier("c"))),
+      Or(Equals(Identifier("c"), Literal("bar")), LessThan(Identifier("a"), Literal(0L)))))
+
+    assertSameResult(predicate)
+  }
+
+  test("should use primitive comparisons for numeric operands") {
+    compiler.compilePredicate(LessThan(Identifier("a"), Literal(1L))) shouldBe a [CompiledNumericComparison]
+    compiler.compilePredicate(LessThan(Identifier("c"), Literal(1L))) shouldBe a [CompiledComparison]
+  }
+
+  test("should fall back to the interpreter for unsupported expressions") {
+    val regex = LiteralRegularExpression(Identifier("c"), Literal("b.*"))
+
+    compiler.compilePredicate(regex) should equal(InterpretedPredicate(regex))
+    compiler.compile(ToStringFunction(Identifier("a"))) should equal(InterpretedExpression(ToStringFunction(Identifier("a"))))
+    assertSameResult(regex)
+  }
+
+  test("should not short circuit And, just like the interpreter") {
+    val failing = LessThan(Identifier("a"), Identifier("c"))
+
+    intercept[IncomparableValuesException](compiler.compilePredicate(And(Not(True()), failing)).eval(ctx, state))
+    compiler.compilePredicate(Ands(List(Not(True()), failing))).eval(ctx, state) should equal(CompiledPredicate.FALSE)
+  }
+
+  test("should throw the same errors as the interpreter") {
+    intercept[CypherTypeException](compiler.compile(Subtract(Identifier("c"), Literal(1L)))(ctx, state))
+    intercept[ArithmeticException](compiler.compile(Divide(Identifier("a"), Literal(0L)))(ctx, state))
+    intercept[ArithmeticException](compiler.compile(Divide(Literal(null), Literal(0.0)))(ctx, state))
+    intercept[ArithmeticException](compiler.compile(Divide(Literal(1L), Literal(0L)))(ctx, state))
+  }
+
+  test("should compile sort keys, and fail on keys that are not deterministic only when evaluated") {
+    val key = SortItem(Add(Identifier("a"), Identifier("b")), ascending = true).compile(compiler)
+    val random = SortItem(RandFunction(), ascending = true).compile(compiler)
+
+    key(ctx, state) should equal(7.5)
+    intercept[PatternException](random(ctx, state))
+  }
+
+  private def assertSameResult(expression: Expression) {
+    val interpreted = evaluate(expression(ctx)(state))
+    val compiled = evaluate(compiler.compile(expression)(ctx, state))
+
+    withClue(expression.toString) {
+      compiled should equal(interpreted)
+    }
+  }
+
+  private def evaluate(f: => Any): Either[Class[_], Any] =
+    try {
+      Right(f)
+    } catch {
+      case e: Exception => Left(e.getClass)
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.executionplan
+
+import java.util.concurrent.TimeUnit.MILLISECONDS
+
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.HardcodedGraphStatisticsValues
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.Cardinality
+import org.neo4j.cypher.internal.compiler.v2_2.spi.{GraphStatisticsSnapshot, NodesCardinality}
+import org.neo4j.helpers.FakeClock
+
+class PlanFingerprintReferenceTest extends CypherFunSuite {
+
+  test("should not be stale if statistics have not diverged") {
+    val clock = new FakeClock
+    val fingerprint = PlanFingerprint(clock.currentTimeMillis(), GraphStatisticsSnapshot(Map(NodesCardinality -> 100.0)))
+    val reference = new PlanFingerprintReference(clock, 1000, 0.5, Some(fingerprint))
+
+    clock.forward(2000, MILLISECONDS)
+
+    reference.isStale(statisticsWithNodes(110)) should equal(false)
+  }
+
+  test("should be stale if statistics have diverged and the time to live has passed") {
+    val clock = new FakeClock
+    val fingerprint = PlanFingerprint(clock.currentTimeMillis(), GraphStatisticsSnapshot(Map(NodesCardinality -> 100.0)))
+    val reference = new PlanFingerprintReference(clock, 1000, 0.5, Some(fingerprint))
+
+    clock.forward(2000, MILLISECONDS)
+
+    reference.isStale(statisticsWithNodes(1000)) should equal(true)
+  }
+
+  test("should not be stale if statistics have diverged but the time to live has not passed") {
+    val clock = new FakeClock
+    val fingerprint = PlanFingerprint(clock.currentTimeMillis(), GraphStatisticsSnapshot(Map(NodesCardinality -> 100.0)))
+    val reference = new PlanFingerprintReference(clock, 1000, 0.5, Some(fingerprint))
+
+    clock.forward(500, MILLISECONDS)
+
+    reference.isStale(statisticsWithNodes(1000)) should equal(false)
+  }
+
+  test("should only compare statistics once per time to live") {
+    val clock = new FakeClock
+    val fingerprint = PlanFingerprint(clock.currentTimeMillis(), GraphStatisticsSnapshot(Map(NodesCardinality -> 100.0)))
+    val reference = new PlanFingerprintReference(clock, 1000, 0.5, Some(fingerprint))
+    var comparisons = 0
+    def statistics = {
+      comparisons += 1
+      statisticsWithNodes(100)
+    }
+
+    clock.forward(2000, MILLISECONDS)
+    reference.isStale(statistics)
+    clock.forward(500, MILLISECONDS)
+    reference.isStale(statistics)
+
+    comparisons should equal(1)
+  }
+
+  test("should compare against the statistics the plan was built on, not the last checked ones") {
+    val clock = new FakeClock
+    val fingerprint = PlanFingerprint(clock.currentTimeMillis(), GraphStatisticsSnapshot(Map(NodesCardinality -> 100.0)))
+    val reference = new PlanFingerprintReference(clock, 1000, 0.5, Some(fingerprint))
+
+    clock.forward(2000, MILLISECONDS)
+    reference.isStale(statisticsWithNodes(140)) should equal(false)
+    clock.forward(2000, MILLISECONDS)
+    reference.isStale(statisticsWithNodes(210)) should equal(true)
+  }
+
+  test("should never be stale without a fingerprint") {
+    val clock = new FakeClock
+    val reference = new PlanFingerprintReference(clock, 0, 0.0, None)
+
+    clock.forward(2000, MILLISECONDS)
+
+    reference.isStale(statisticsWithNodes(1000)) should equal(false)
+  }
+
+  private def statisticsWithNodes(nodes: Double) = new HardcodedGraphStatisticsValues {
+    override def nodesCardinality = Cardinality(nodes)
+  }
+}
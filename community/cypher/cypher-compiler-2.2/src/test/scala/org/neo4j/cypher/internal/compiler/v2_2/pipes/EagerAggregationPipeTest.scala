@@ -23,6 +23,7 @@ import org.neo4j.cypher.SyntaxException
 import org.neo4j.cypher.internal.commons.CypherFunSuite
 import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions._
 import org.neo4j.cypher.internal.compiler.v2_2.commands.values.TokenType.PropertyKey
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.spill.QueryMemoryTracker
 import org.neo4j.cypher.internal.compiler.v2_2.symbols._
 
 class EagerAggregationPipeTest extends CypherFunSuite {
@@ -102,6 +103,37 @@ class EagerAggregationPipeTest extends CypherFunSuite {
     getResults(aggregationPipe) should equal(List(Map("count(name)" -> 3)))
   }
 
+  test("should spill groups to disk and aggregate them when over the memory budget") {
+    val source = new FakePipe((0 until 1000).map(i => Map("name" -> s"name ${i % 100}", "age" -> i)), createSymbolTableFor("name"))
+
+    val returnItems = createReturnItemsFor("name")
+    val grouping = Map("count(*)" -> CountStar(), "collect(age)" -> Collect(Identifier("age")))
+    val aggregationPipe = new EagerAggregationPipe(source, returnItems, grouping)
+    val memory = new QueryMemoryTracker(budget = 5000, isTracking = true)
+
+    val results = aggregationPipe.createResults(QueryStateHelper.empty.copy(memory = memory)).map(_.m.toMap).toList
+
+    results should have size 100
+    results.foreach { row =>
+      row("count(*)") should equal(10)
+      row("collect(age)").asInstanceOf[Seq[Int]].map(_ % 100).distinct should have size 1
+    }
+    memory.usageOf(aggregationPipe).get.spills should be > 0
+  }
+
+  test("should release the memory of the groups once they have been emitted") {
+    val source = new FakePipe((0 until 100).map(i => Map("name" -> s"name ${i % 10}")), createSymbolTableFor("name"))
+
+    val aggregationPipe = new EagerAggregationPipe(source, createReturnItemsFor("name"), Map("count(*)" -> CountStar()))
+    val memory = new QueryMemoryTracker(isTracking = true)
+
+    val results = aggregationPipe.createResults(QueryStateHelper.empty.copy(memory = memory))
+
+    memory.usageOf(aggregationPipe).get.inUse should be > 0L
+    results.toList should have size 10
+    memory.usageOf(aggregationPipe).get.inUse should equal(0L)
+  }
+
   private def createSymbolTableFor(name: String) = name -> CTNode
 
   private def getResults(p: Pipe) = p.createResults(QueryStateHelper.empty).map(_.m.toMap).toList
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes
+
+import java.util.concurrent.{Callable, ExecutorService, Executors, Future}
+
+import org.mockito.Matchers.anyLong
+import org.mockito.Mockito.when
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.{GreaterThan, True}
+import org.neo4j.cypher.internal.compiler.v2_2.spi.{Operations, ParallelReads, QueryContext}
+import org.neo4j.graphdb.Node
+
+class ParallelReadPipeTest extends CypherFunSuite {
+
+  private implicit val monitor = mock[PipeMonitor]
+
+  private var executor: ExecutorService = null
+
+  override protected def initTest() {
+    super.initTest()
+    executor = Executors.newFixedThreadPool(4)
+  }
+
+  override protected def stopTest() {
+    executor.shutdownNow()
+    super.stopTest()
+  }
+
+  private val groupKey = Map("key" -> Modulo(IdFunction(Identifier("n")), Literal(7)))
+
+  test("should aggregate in parallel the same as serially") {
+    val nodes = createNodes(10000)
+    val aggregations = Map[String, AggregationExpression](
+      "count" -> CountStar(),
+      "sum" -> Sum(IdFunction(Identifier("n"))),
+      "min" -> Min(IdFunction(Identifier("n"))),
+      "max" -> Max(IdFunction(Identifier("n"))))
+    val serial = EagerAggregationPipe(AllNodesScanPipe("n"), groupKey, aggregations)
+
+    val expected = serial.createResults(serialState(nodes)).map(_.toMap).toSet
+    val result = ParallelReadPipe(serial, morselSize = 100).createResults(parallelState(nodes, workers = 4)).map(_.toMap).toSet
+
+    result should equal(expected)
+    result should have size 7
+  }
+
+  test("should concatenate collected values from all workers") {
+    val nodes = createNodes(1000)
+    val serial = EagerAggregationPipe(AllNodesScanPipe("n"), Map.empty, Map("ids" -> Collect(IdFunction(Identifier("n")))))
+
+    val result = ParallelReadPipe(serial, morselSize = 10).createResults(parallelState(nodes, workers = 3)).toList
+
+    result should have size 1
+    result.head("ids").asInstanceOf[Seq[Any]] should equal(0L until 1000L)
+  }
+
+  test("should produce groups in the same order as the serial pipe") {
+    val nodes = createNodes(10000)
+    val key = Map("key" -> Modulo(IdFunction(Identifier("n")), Literal(97)))
+    val serial = EagerAggregationPipe(AllNodesScanPipe("n"), key, Map("count" -> CountStar()))
+
+    val expected = serial.createResults(serialState(nodes)).map(_.toMap).toList
+    val result = ParallelReadPipe(serial, morselSize = 10).createResults(parallelState(nodes, workers = 4)).map(_.toMap).toList
+
+    result should equal(expected)
+  }
+
+  test("should return zero values for empty input without grouping keys") {
+    val serial = EagerAggregationPipe(AllNodesScanPipe("n"), Map.empty, Map("count" -> CountStar()))
+
+    val result = ParallelReadPipe(serial).createResults(parallelState(Seq.empty, workers = 2)).map(_.toMap).toList
+
+    result should equal(List(Map("count" -> 0L)))
+  }
+
+  test("should run distinct in parallel after filtering") {
+    val nodes = createNodes(5000)
+    val filtered = FilterPipe(AllNodesScanPipe("n"), GreaterThan(IdFunction(Identifier("n")), Literal(99)))
+    val serial = DistinctPipe(filtered, groupKey)
+
+    val expected = serial.createResults(serialState(nodes)).map(_.toMap).toList
+    val result = ParallelReadPipe(serial, morselSize = 64).createResults(parallelState(nodes, workers = 4)).map(_.toMap).toList
+
+    result should equal(expected)
+  }
+
+  test("should execute serially when the query context does not offer parallel reads") {
+    val nodes = createNodes(10)
+    val serial = EagerAggregationPipe(AllNodesScanPipe("n"), Map.empty, Map("count" -> CountStar()))
+
+    val result = ParallelReadPipe(serial).createResults(serialState(nodes)).map(_.toMap).toList
+
+    result should equal(List(Map("count" -> 10L)))
+  }
+
+  test("should propagate failures of workers") {
+    val nodes = createNodes(1000)
+    val failingWorker = queryContextFor(nodes)
+    when(failingWorker.nodeOps.getById(anyLong())).thenThrow(new IllegalStateException("boom"))
+    val serial = EagerAggregationPipe(AllNodesScanPipe("n"), Map.empty, Map("count" -> CountStar()))
+
+    intercept[IllegalStateException](
+      ParallelReadPipe(serial, morselSize = 1).createResults(parallelState(nodes, workers = 2, failingWorker)).toList
+    )
+  }
+
+  test("should only parallelize aggregations on top of read-only scans") {
+    val chain = FilterPipe(AllNodesScanPipe("n"), True())
+
+    ParallelReadPipe.parallelize(EagerAggregationPipe(chain, Map.empty, Map("count" -> CountStar()))) shouldBe a [ParallelReadPipe]
+    ParallelReadPipe.parallelize(DistinctPipe(chain, groupKey)) shouldBe a [ParallelReadPipe]
+    ParallelReadPipe.parallelize(EagerAggregationPipe(chain, Map.empty, Map("avg" -> Avg(IdFunction(Identifier("n")))))) shouldBe an [EagerAggregationPipe]
+    ParallelReadPipe.parallelize(EagerAggregationPipe(NullPipe(), Map.empty, Map("count" -> CountStar()))) shouldBe an [EagerAggregationPipe]
+  }
+
+  test("should not preserve the order of results that are sorted right away") {
+    val aggregation = EagerAggregationPipe(AllNodesScanPipe("n"), groupKey, Map("count" -> CountStar()))
+
+    val sorted = ParallelReadPipe.parallelize(SortPipe(aggregation, List(Ascending("key"))))
+    val unsorted = ParallelReadPipe.parallelize(SlicePipe(aggregation, None, Some(Literal(1))))
+
+    sorted.sources.head.asInstanceOf[ParallelReadPipe].preserveOrder should equal(false)
+    unsorted.sources.head.asInstanceOf[ParallelReadPipe].preserveOrder should equal(true)
+  }
+
+  test("should parallelize aggregations nested below other pipes") {
+    val aggregation = EagerAggregationPipe(AllNodesScanPipe("n"), groupKey, Map("count" -> CountStar()))
+
+    val rewritten = ParallelReadPipe.parallelize(SlicePipe(aggregation, None, Some(Literal(1))))
+
+    rewritten.sources.head shouldBe a [ParallelReadPipe]
+  }
+
+  private def createNodes(count: Int): Seq[Node] = (0 until count).map { id =>
+    val node = mock[Node]
+    when(node.getId).thenReturn(id.toLong)
+    node
+  }
+
+  private def queryContextFor(nodes: Seq[Node]): QueryContext = {
+    val nodeOps = mock[Operations[Node]]
+    when(nodeOps.all).thenAnswer(new Answer[Iterator[Node]] {
+      def answer(invocation: InvocationOnMock) = nodes.iterator
+    })
+    when(nodeOps.getById(anyLong())).thenAnswer(new Answer[Node] {
+      def answer(invocation: InvocationOnMock) = nodes(invocation.getArguments()(0).asInstanceOf[Long].toInt)
+    })
+    val query = mock[QueryContext]
+    when(query.nodeOps).thenReturn(nodeOps)
+    query
+  }
+
+  private def serialState(nodes: Seq[Node]) = QueryStateHelper.emptyWith(query = queryContextFor(nodes))
+
+  private def parallelState(nodes: Seq[Node], workers: Int, worker: QueryContext = null) = {
+    val query = queryContextFor(nodes)
+    val reads = new ExecutorParallelReads(workers, Option(worker).getOrElse(queryContextFor(nodes)))
+    when(query.parallelReads).thenReturn(Some(reads))
+    QueryStateHelper.emptyWith(query = query)
+  }
+
+  private class ExecutorParallelReads(val workers: Int, worker: QueryContext) extends ParallelReads {
+    def submit[T](work: (QueryContext) => T): Future[T] = executor.submit(new Callable[T] {
+      def call() = work(worker)
+    })
+  }
+}
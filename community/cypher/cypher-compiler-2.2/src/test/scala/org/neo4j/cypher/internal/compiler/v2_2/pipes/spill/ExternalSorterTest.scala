@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import java.io.File
+import java.nio.file.Files
+
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.{NullPipe, PipeMonitor, QueryStateHelper}
+
+import scala.util.Random
+
+class ExternalSorterTest extends CypherFunSuite {
+
+  private implicit val monitor = mock[PipeMonitor]
+  private val byValue = (a: ExecutionContext, b: ExecutionContext) => a("value").asInstanceOf[Int] < b("value").asInstanceOf[Int]
+
+  test("should sort in memory when within budget") {
+    val memory = new QueryMemoryTracker(isTracking = true).forPipe(NullPipe())
+    val input = rows(Random.shuffle((0 until 100).toList))
+
+    val result = new ExternalSorter(memory, byValue).sort(input.iterator, QueryStateHelper.empty).toList
+
+    result.map(_("value")) should equal(0 until 100)
+    memory.spills should equal(0)
+    memory.peak should be > 0L
+  }
+
+  test("should spill sorted runs and merge them when over budget") {
+    val memory = new QueryMemoryTracker(budget = 2000, isTracking = true).forPipe(NullPipe())
+    val input = rows(Random.shuffle((0 until 1000).toList))
+
+    val result = new ExternalSorter(memory, byValue).sort(input.iterator, QueryStateHelper.empty).toList
+
+    result.map(_("value")) should equal(0 until 1000)
+    memory.spills should be > 1
+    memory.spilledBytes should be > 0L
+  }
+
+  test("should keep the sort stable across runs") {
+    val memory = new QueryMemoryTracker(budget = 1000, isTracking = true).forPipe(NullPipe())
+    val input = (0 until 300).map(i => ExecutionContext.from("value" -> i % 3, "position" -> i))
+
+    val result = new ExternalSorter(memory, byValue).sort(input.iterator, QueryStateHelper.empty).toList
+
+    result.map(_("position")) should equal((0 until 300).sortBy(_ % 3))
+    memory.spills should be > 0
+  }
+
+  test("should keep rows in memory when they can not be spilled") {
+    val memory = new QueryMemoryTracker(budget = 100, isTracking = true).forPipe(NullPipe())
+    val unspillable = new Object
+    val input = (0 until 50).reverse.map(i => ExecutionContext.from("value" -> i, "other" -> unspillable))
+
+    val result = new ExternalSorter(memory, byValue).sort(input.iterator, QueryStateHelper.empty).toList
+
+    result.map(_("value")) should equal(0 until 50)
+    memory.spills should equal(0)
+  }
+
+  test("should release the memory of the sorted rows once they have been consumed") {
+    val memory = new QueryMemoryTracker(isTracking = true).forPipe(NullPipe())
+
+    val result = new ExternalSorter(memory, byValue).sort(rows(List(3, 1, 2)).iterator, QueryStateHelper.empty)
+
+    memory.inUse should be > 0L
+    result.toList
+    memory.inUse should equal(0L)
+  }
+
+  test("should release the memory of the last run once the merged rows have been consumed") {
+    val memory = new QueryMemoryTracker(budget = 2000, isTracking = true).forPipe(NullPipe())
+    val input = rows(Random.shuffle((0 until 1000).toList))
+
+    new ExternalSorter(memory, byValue).sort(input.iterator, QueryStateHelper.empty).toList
+
+    memory.spills should be > 0
+    memory.inUse should equal(0L)
+  }
+
+  test("should spill to the spill directory of the query") {
+    val directory = new File(Files.createTempDirectory("spill-test").toFile, "cypher-spill")
+    val tracker = new QueryMemoryTracker(budget = 2000, isTracking = true, spillDirectory = Some(directory))
+    val input = rows(Random.shuffle((0 until 1000).toList))
+
+    try {
+      val result = new ExternalSorter(tracker.forPipe(NullPipe()), byValue).sort(input.iterator, QueryStateHelper.empty)
+
+      directory.listFiles() should not be empty
+      result.toList.map(_("value")) should equal(0 until 1000)
+    } finally {
+      tracker.close()
+    }
+    directory.listFiles() shouldBe empty
+  }
+
+  test("should merge more runs than the fan in over several passes, with few files open at once") {
+    val directory = new File(Files.createTempDirectory("spill-test").toFile, "cypher-spill")
+    val tracker = new QueryMemoryTracker(budget = 1000, isTracking = true, spillDirectory = Some(directory))
+    val memory = tracker.forPipe(NullPipe())
+    val input = (0 until 1000).reverse.map(i => ExecutionContext.from("value" -> i % 10, "position" -> i))
+
+    try {
+      val result = new ExternalSorter(memory, byValue, fanIn = 3).sort(input.iterator, QueryStateHelper.empty)
+
+      directory.listFiles().length should be < 3
+      result.toList.map(_("position")) should equal((0 until 1000).reverse.sortBy(_ % 10))
+      memory.spills should be > 3
+      memory.inUse should equal(0L)
+    } finally {
+      tracker.close()
+    }
+    directory.listFiles() shouldBe empty
+  }
+
+  test("should account for the buffers of the final merge") {
+    val memory = new QueryMemoryTracker(budget = 2000, isTracking = true).forPipe(NullPipe())
+    val input = rows(Random.shuffle((0 until 1000).toList))
+
+    new ExternalSorter(memory, byValue, fanIn = 3).sort(input.iterator, QueryStateHelper.empty)
+
+    memory.peak should be >= 2L * SpillFile.BUFFER_SIZE
+  }
+
+  test("should not account for memory when not tracking") {
+    val memory = new QueryMemoryTracker().forPipe(NullPipe())
+
+    new ExternalSorter(memory, byValue).sort(rows(List(3, 1, 2)).iterator, QueryStateHelper.empty).toList
+
+    memory.peak should equal(0L)
+  }
+
+  private def rows(values: Seq[Int]) = values.map(value => ExecutionContext.from("value" -> value, "name" -> s"row $value"))
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
+
+import org.mockito.Mockito.when
+import org.neo4j.cypher.internal.PathImpl
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.spi.{Operations, QueryContext}
+import org.neo4j.graphdb.{Node, Relationship}
+
+class RowCodecTest extends CypherFunSuite {
+
+  test("should round trip simple values") {
+    val row = roundTrip(ExecutionContext.from(
+      "null" -> null,
+      "boolean" -> true,
+      "int" -> 42,
+      "long" -> 42L,
+      "double" -> 4.2,
+      "string" -> "räksmörgås"))
+
+    row("null") should equal(null)
+    row("boolean") should equal(true)
+    row("int") should equal(42)
+    row("long") should equal(42L)
+    row("double") should equal(4.2)
+    row("string") should equal("räksmörgås")
+  }
+
+  test("should round trip collections, maps and property arrays") {
+    val row = roundTrip(ExecutionContext.from(
+      "list" -> List(1L, "two", List(3.0)),
+      "map" -> Map("key" -> List("value")),
+      "longs" -> Array(1L, 2L, 3L),
+      "strings" -> Array("a", "b")))
+
+    row("list") should equal(List(1L, "two", List(3.0)))
+    row("map") should equal(Map("key" -> List("value")))
+    row("longs").asInstanceOf[Array[Long]] should equal(Array(1L, 2L, 3L))
+    row("strings").asInstanceOf[Array[String]] should equal(Array("a", "b"))
+  }
+
+  test("should look up nodes, relationships and paths again by id") {
+    val node = mock[Node]
+    val other = mock[Node]
+    val relationship = mock[Relationship]
+    when(node.getId).thenReturn(1L)
+    when(other.getId).thenReturn(2L)
+    when(relationship.getId).thenReturn(3L)
+
+    val nodeOps = mock[Operations[Node]]
+    when(nodeOps.getById(1L)).thenReturn(node)
+    when(nodeOps.getById(2L)).thenReturn(other)
+    val relationshipOps = mock[Operations[Relationship]]
+    when(relationshipOps.getById(3L)).thenReturn(relationship)
+    val query = mock[QueryContext]
+    when(query.nodeOps).thenReturn(nodeOps)
+    when(query.relationshipOps).thenReturn(relationshipOps)
+
+    val row = roundTrip(ExecutionContext.from("n" -> node, "r" -> relationship, "p" -> PathImpl(node, relationship, other)), query)
+
+    row("n") should equal(node)
+    row("r") should equal(relationship)
+    row("p") should equal(PathImpl(node, relationship, other))
+  }
+
+  test("should refuse values it can not encode") {
+    intercept[UnspillableValueException](roundTrip(ExecutionContext.from("x" -> new Object)))
+  }
+
+  private def roundTrip(row: ExecutionContext, query: QueryContext = null): ExecutionContext = {
+    val bytes = new ByteArrayOutputStream()
+    RowCodec.write(row, new DataOutputStream(bytes))
+    RowCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray)), query)
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.planner.logical
+
+import org.neo4j.graphdb.Direction
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.planner.LogicalPlanningTestSupport2
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans._
+import org.neo4j.cypher.internal.compiler.v2_2.ast.NotEquals
+import org.neo4j.cypher.internal.compiler.v2_2.ast.Identifier
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps.QueryPlanProducer
+
+class IDPQueryGraphSolverTest extends CypherFunSuite with LogicalPlanningTestSupport2 {
+
+  import QueryPlanProducer._
+
+  test("should build plans containing expand for single relationship pattern") {
+    queryGraphSolver = new IDPQueryGraphSolver()
+
+    planFor("MATCH (a)-[r]->(b) RETURN r").plan.plan should equal(
+      Projection(
+        Expand(
+          AllNodesScan("a"),
+          "a", Direction.OUTGOING, Seq.empty, "b", "r", SimplePatternLength
+        ),
+        Map("r" -> Identifier("r") _)
+      )
+    )
+  }
+
+  test("should build plans containing joins when they are cheapest") {
+    queryGraphSolver = new IDPQueryGraphSolver()
+    val r1 = PatternRelationship("r1", ("a", "b"), Direction.INCOMING, Seq(), SimplePatternLength)
+    val r2 = PatternRelationship("r2", ("b", "c"), Direction.OUTGOING, Seq(), SimplePatternLength)
+
+    (new given {
+      cardinality = mapCardinality {
+        case _: AllNodesScan => 200
+        case Expand(_, IdName("b"), _, _, _, _, _) => 10000
+        case _: Expand => 10
+        case _: NodeHashJoin => 20
+        case _ => Double.MaxValue
+      }
+    } planFor "MATCH (a)<-[r1]-(b)-[r2]->(c) RETURN b").plan should equal(
+      planRegularProjection(
+        planSelection(
+          Seq(NotEquals(Identifier("r1") _, Identifier("r2") _) _),
+          planNodeHashJoin("b",
+            planExpand(planAllNodesScan("a"), "a", Direction.INCOMING, Seq(), "b", "r1", SimplePatternLength, r1),
+            planExpand(planAllNodesScan("c"), "c", Direction.INCOMING, Seq(), "b", "r2", SimplePatternLength, r2)
+          )
+        ),
+        expressions = Map("b" -> Identifier("b") _)
+      )
+    )
+  }
+
+  test("should solve the whole pattern when the table is compressed after every round") {
+    queryGraphSolver = new IDPQueryGraphSolver(maxTableSize = 1)
+
+    val plan = planFor("MATCH (a)-[r1]->(b)-[r2]->(c)-[r3]->(d) RETURN a, d").plan
+
+    plan.solved.graph.patternRelationships.map(_.name) should equal(Set[IdName]("r1", "r2", "r3"))
+  }
+
+  test("should fall back to the greedy phases when the time budget is exhausted") {
+    val query = "MATCH (a)-[r1]->(b)-[r2]->(c), (c)-[r3]->(a) RETURN a"
+    queryGraphSolver = new GreedyQueryGraphSolver()
+    val greedyPlan = planFor(query).plan
+
+    queryGraphSolver = new IDPQueryGraphSolver(timeBudgetMillis = -1)
+    planFor(query).plan should equal(greedyPlan)
+  }
+
+  test("should pick the solver from the join ordering configuration") {
+    val default = PlanningStrategyConfiguration.default
+
+    QueryGraphSolver(default) shouldBe a [GreedyQueryGraphSolver]
+    QueryGraphSolver(default.copy(joinOrdering = JoinOrdering("idp"))) shouldBe an [IDPQueryGraphSolver]
+    JoinOrdering("greedy") should equal(GreedyJoinOrdering)
+    evaluating { JoinOrdering("bushy") } should produce[IllegalArgumentException]
+  }
+}
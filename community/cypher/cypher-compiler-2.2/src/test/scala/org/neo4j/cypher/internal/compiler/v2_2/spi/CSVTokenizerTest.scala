@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.spi
+
+import java.io.StringReader
+
+import au.com.bytecode.opencsv.CSVReader
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+
+class CSVTokenizerTest extends CypherFunSuite {
+
+  test("should split lines on the field terminator") {
+    tokenize("a,b,c\n1,2,3\n") should equal(List(List("a", "b", "c"), List("1", "2", "3")))
+  }
+
+  test("should use a custom field terminator") {
+    tokenize("122\tfoo\n23\tbar\n", '\t') should equal(List(List("122", "foo"), List("23", "bar")))
+  }
+
+  test("should keep empty fields and lines") {
+    tokenize("a,,c\n\n,\n") should equal(List(List("a", "", "c"), List(""), List("", "")))
+  }
+
+  test("should return the last line without a line terminator") {
+    tokenize("1,2\n3,4") should equal(List(List("1", "2"), List("3", "4")))
+  }
+
+  test("should handle all kinds of line terminators") {
+    tokenize("1\r\n2\r3\n4") should equal(List(List("1"), List("2"), List("3"), List("4")))
+  }
+
+  test("should return nothing for empty input") {
+    tokenize("") should equal(List.empty)
+  }
+
+  test("should grow the buffer for lines longer than it") {
+    val longField = "x" * 100
+    tokenize(s"$longField,$longField\n1,2\n", bufferSize = 16) should equal(List(List(longField, longField), List("1", "2")))
+  }
+
+  test("should produce the same rows as opencsv for quoted and escaped fields") {
+    val input =
+      "\"a,b\",c\n" +
+      "\"she said \"\"hi\"\"\",d\n" +
+      "\"escaped \\\" quote\",e\n" +
+      "\"multi\nline\",f\r\n" +
+      "plain,\"\"\n"
+
+    tokenize(input, bufferSize = 8) should equal(readWithOpenCsv(input))
+  }
+
+  private def tokenize(input: String, separator: Char = ',', bufferSize: Int = CSVTokenizer.DEFAULT_BUFFER_SIZE): List[List[String]] = {
+    val tokenizer = new CSVTokenizer(new StringReader(input), separator, bufferSize)
+    Iterator.continually(tokenizer.readNext()).takeWhile(_ != null).map(_.toList).toList
+  }
+
+  private def readWithOpenCsv(input: String): List[List[String]] = {
+    val reader = new CSVReader(new StringReader(input))
+    Iterator.continually(reader.readNext()).takeWhile(_ != null).map(_.toList).toList
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.spi
+
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.{Cardinality, Multiplier}
+import org.neo4j.cypher.internal.compiler.v2_2.{HardcodedGraphStatistics, HardcodedGraphStatisticsValues, LabelId, RelTypeId}
+import org.neo4j.graphdb.Direction
+
+class GraphStatisticsSnapshotTest extends CypherFunSuite {
+
+  test("records the statistics asked for during planning") {
+    val snapshot = new MutableGraphStatisticsSnapshot()
+    val instrumented = InstrumentedGraphStatistics(HardcodedGraphStatistics, snapshot)
+
+    instrumented.nodesCardinality
+    instrumented.nodesWithLabelCardinality(LabelId(21))
+    instrumented.degreeByRelationshipTypeAndDirection(RelTypeId(4), Direction.OUTGOING)
+
+    snapshot.freeze should equal(GraphStatisticsSnapshot(Map(
+      NodesCardinality -> HardcodedGraphStatistics.NODES_CARDINALITY.amount,
+      NodesWithLabelCardinality(LabelId(21)) -> HardcodedGraphStatistics.NODES_WITH_LABEL_CARDINALITY.amount,
+      DegreeByRelationshipTypeAndDirection(RelTypeId(4), Direction.OUTGOING) ->
+        HardcodedGraphStatistics.DEGREE_BY_RELATIONSHIP_TYPE_AND_DIRECTION.coefficient
+    )))
+  }
+
+  test("answers with the values of the underlying statistics") {
+    val instrumented = InstrumentedGraphStatistics(HardcodedGraphStatistics, new MutableGraphStatisticsSnapshot())
+
+    instrumented.nodesCardinality should equal(HardcodedGraphStatistics.NODES_CARDINALITY)
+    instrumented.nodesWithLabelSelectivity(LabelId(0)) should equal(HardcodedGraphStatistics.NODES_WITH_LABEL_SELECTIVITY)
+  }
+
+  test("recomputes the same statistics against new values") {
+    val snapshot = GraphStatisticsSnapshot(Map(NodesCardinality -> 10.0, NodesWithLabelSelectivity(LabelId(1)) -> 0.5))
+
+    val recomputed = snapshot.recompute(statisticsWith(nodes = 100.0, labelSelectivity = 0.25))
+
+    recomputed should equal(GraphStatisticsSnapshot(Map(NodesCardinality -> 100.0, NodesWithLabelSelectivity(LabelId(1)) -> 0.25)))
+  }
+
+  test("diverges when any statistic has changed more than the threshold") {
+    val before = GraphStatisticsSnapshot(Map(NodesCardinality -> 100.0, NodesWithLabelSelectivity(LabelId(1)) -> 0.5))
+    val after = GraphStatisticsSnapshot(Map(NodesCardinality -> 101.0, NodesWithLabelSelectivity(LabelId(1)) -> 0.1))
+
+    before.diverges(after, 0.5) should equal(true)
+    after.diverges(before, 0.5) should equal(true)
+  }
+
+  test("does not diverge when all statistics have changed less than the threshold") {
+    val before = GraphStatisticsSnapshot(Map(NodesCardinality -> 100.0, NodesWithLabelSelectivity(LabelId(1)) -> 0.5))
+    val after = GraphStatisticsSnapshot(Map(NodesCardinality -> 140.0, NodesWithLabelSelectivity(LabelId(1)) -> 0.4))
+
+    before.diverges(after, 0.5) should equal(false)
+  }
+
+  test("does not diverge when statistics stay at zero") {
+    val snapshot = GraphStatisticsSnapshot(Map(NodesCardinality -> 0.0))
+
+    snapshot.diverges(snapshot, 0.0) should equal(false)
+  }
+
+  private def statisticsWith(nodes: Double, labelSelectivity: Double) = new HardcodedGraphStatisticsValues {
+    override def nodesCardinality = Cardinality(nodes)
+    override def nodesWithLabelSelectivity(labelId: LabelId) = Multiplier(labelSelectivity)
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.spi
+
+import java.io.{Closeable, IOException}
+import java.net.URL
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{CountDownLatch, TimeUnit}
+
+import org.neo4j.cypher.LoadExternalResourceException
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.kernel.impl.util.JobScheduler
+import org.neo4j.kernel.impl.util.JobScheduler.{Group, JobHandle}
+import org.neo4j.kernel.lifecycle.LifecycleAdapter
+
+class ReadAheadCSVIteratorTest extends CypherFunSuite {
+
+  val url = new URL("file:///tmp/something.csv")
+
+  test("should return all rows in order across chunks") {
+    val rows = (1 to 1000).map(i => Array(i.toString)).iterator
+
+    val result = new ReadAheadCSVIterator(url, readRowsFrom(rows), NoSource, new ThreadPerJobScheduler, readAheadRows = 10, chunkSize = 3).toList
+
+    result.map(_.toList) should equal((1 to 1000).map(i => List(i.toString)).toList)
+  }
+
+  test("should return nothing for an empty source") {
+    new ReadAheadCSVIterator(url, () => null, NoSource, new ThreadPerJobScheduler).hasNext should equal(false)
+  }
+
+  test("should surface read failures as external resource failures") {
+    var read = 0
+    val failing = () => {
+      read += 1
+      if (read > 2) throw new IOException("disk on fire")
+      Array("row")
+    }
+    val iterator = new ReadAheadCSVIterator(url, failing, NoSource, new ThreadPerJobScheduler, chunkSize = 1)
+
+    iterator.next()
+    iterator.next()
+    evaluating {
+      iterator.next()
+    } should produce[LoadExternalResourceException]
+  }
+
+  test("should close the source without waiting for a read in progress, and stop reading") {
+    val read = new AtomicInteger()
+    val readingSecondRow = new CountDownLatch(1)
+    val finishRead = new CountDownLatch(1)
+    val sourceClosed = new CountDownLatch(1)
+    val scheduler = new ThreadPerJobScheduler
+    val iterator = new ReadAheadCSVIterator(url, () => {
+      if (read.incrementAndGet() == 2) {
+        readingSecondRow.countDown()
+        finishRead.await()
+      }
+      Array("row")
+    }, new Closeable {
+      def close() {
+        sourceClosed.countDown()
+      }
+    }, scheduler, readAheadRows = 2, chunkSize = 1)
+    iterator.next()
+    readingSecondRow.await()
+
+    iterator.close()
+
+    sourceClosed.getCount should equal(0)
+    finishRead.countDown()
+    scheduler.awaitJobs()
+    read.get() should equal(2)
+  }
+
+  test("should stop waiting for rows when closed") {
+    val startRead = new CountDownLatch(1)
+    val scheduler = new ThreadPerJobScheduler
+    val iterator = new ReadAheadCSVIterator(url, () => {
+      startRead.await()
+      Array("row")
+    }, NoSource, scheduler)
+
+    iterator.close()
+
+    iterator.hasNext should equal(false)
+    startRead.countDown()
+    scheduler.awaitJobs()
+  }
+
+  private def readRowsFrom(rows: Iterator[Array[String]]): () => Array[String] =
+    () => if (rows.hasNext) rows.next() else null
+
+  private object NoSource extends Closeable {
+    def close() {}
+  }
+
+  private class ThreadPerJobScheduler extends LifecycleAdapter with JobScheduler {
+    private var threads = List[Thread]()
+
+    def schedule(group: Group, job: Runnable): JobHandle = {
+      val thread = new Thread(job)
+      thread.start()
+      threads = thread :: threads
+      new JobHandle {
+        def cancel(mayInterruptIfRunning: Boolean) {}
+      }
+    }
+
+    def scheduleRecurring(group: Group, runnable: Runnable, period: Long, timeUnit: TimeUnit): JobHandle =
+      throw new UnsupportedOperationException
+
+    def scheduleRecurring(group: Group, runnable: Runnable, initialDelay: Long, period: Long, timeUnit: TimeUnit): JobHandle =
+      throw new UnsupportedOperationException
+
+    def awaitJobs() {
+      threads.foreach(_.join(TimeUnit.SECONDS.toMillis(10)))
+      threads.foreach(_.isAlive should equal(false))
+    }
+  }
+}
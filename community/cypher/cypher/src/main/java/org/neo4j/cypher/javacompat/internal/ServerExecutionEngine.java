@@ -55,4 +55,12 @@ public class ServerExecutionEngine extends ExecutionEngine
     {
         return serverExecutionEngine.isPeriodicCommit( query );
     }
+
+    /**
+     * Tells whether the plan of the query writes to the database, planning the query if it is not cached already.
+     */
+    public boolean isUpdating( String query )
+    {
+        return serverExecutionEngine.isUpdating( query );
+    }
 }
@@ -96,12 +96,20 @@ class ExecutionEngine(graph: GraphDatabaseService, logger: StringLogger = String
           cacheMonitor.cacheFlushDetected(statement)
           new LRUCache[String, (ExecutionPlan, Map[String, Any])](getPlanCacheSize)
         })
-        cacheAccessor.getOrElseUpdate(cache)(queryText, {
+        val cachedPlan = cacheAccessor.getOrElseUpdate(cache)(queryText, {
           touched = true
           val parsedQuery = parseQuery(queryText)
           val queryPlan = parsedQuery.plan(statement)
           queryPlan
         })
+
+        if (!touched && cachedPlan._1.isStale(statement)) {
+          // the statistics the plan was built on have diverged too much, so plan the query again
+          touched = true
+          cacheAccessor.replace(cache)(queryText, parseQuery(queryText).plan(statement))
+        } else {
+          cachedPlan
+        }
       }
       catch {
         case (t: Throwable) =>
@@ -29,6 +29,9 @@ import org.neo4j.kernel.monitoring.{Monitors => KernelMonitors}
 
 object CypherCompiler {
   val DEFAULT_QUERY_CACHE_SIZE: Int = 128
+  val DEFAULT_STATISTICS_DIVERGENCE_THRESHOLD: Double = 0.5
+  val DEFAULT_QUERY_PLAN_TTL: Long = 1000
+  val DEFAULT_JOIN_ORDERING: String = "greedy"
 }
 
 case class PreParsedQuery(statement: String, version: CypherVersion, planType: PlanType)
@@ -41,11 +44,16 @@ class CypherCompiler(graph: GraphDatabaseService,
                      optionParser: CypherOptionParser) {
 
   private val queryCacheSize: Int = getQueryCacheSize
+  private val statsDivergenceThreshold: Double = getStatisticsDivergenceThreshold
+  private val queryPlanTTL: Long = getMinimumTimeBeforeReplanning
+  private val joinOrdering: String = getJoinOrdering
   private val compatibilityFor1_9 = CompatibilityFor1_9(graph, queryCacheSize)
   private val compatibilityFor2_0 = CompatibilityFor2_0(graph, queryCacheSize)
   private val compatibilityFor2_1 = CompatibilityFor2_1(graph, queryCacheSize, kernelMonitors, kernelAPI)
-  private val compatibilityFor2_2Legacy = CompatibilityFor2_2Legacy(graph, queryCacheSize, kernelMonitors, kernelAPI)
-  private val compatibilityFor2_2Experimental = CompatibilityFor2_2Experimental(graph, queryCacheSize, kernelMonitors, kernelAPI)
+  private val compatibilityFor2_2Legacy =
+    CompatibilityFor2_2Legacy(graph, queryCacheSize, statsDivergenceThreshold, queryPlanTTL, kernelMonitors, kernelAPI)
+  private val compatibilityFor2_2Experimental =
+    CompatibilityFor2_2Experimental(graph, queryCacheSize, statsDivergenceThreshold, queryPlanTTL, joinOrdering, kernelMonitors, kernelAPI)
 
   @throws(classOf[SyntaxException])
   def parseQuery(queryText: String): ParsedQuery = {
@@ -91,6 +99,33 @@ class CypherCompiler(graph: GraphDatabaseService,
     })
       .applyOrElse(graph, (_: GraphDatabaseService) => CypherCompiler.DEFAULT_QUERY_CACHE_SIZE)
 
+  private def getStatisticsDivergenceThreshold : Double =
+    optGraphAs[InternalAbstractGraphDatabase]
+      .andThen(_.getConfig.get(GraphDatabaseSettings.query_statistics_divergence_threshold))
+      .andThen({
+      case v: java.lang.Double => v.doubleValue()
+      case _                   => CypherCompiler.DEFAULT_STATISTICS_DIVERGENCE_THRESHOLD
+    })
+      .applyOrElse(graph, (_: GraphDatabaseService) => CypherCompiler.DEFAULT_STATISTICS_DIVERGENCE_THRESHOLD)
+
+  private def getMinimumTimeBeforeReplanning : Long =
+    optGraphAs[InternalAbstractGraphDatabase]
+      .andThen(_.getConfig.get(GraphDatabaseSettings.cypher_min_replan_interval))
+      .andThen({
+      case v: java.lang.Long => v.longValue()
+      case _                 => CypherCompiler.DEFAULT_QUERY_PLAN_TTL
+    })
+      .applyOrElse(graph, (_: GraphDatabaseService) => CypherCompiler.DEFAULT_QUERY_PLAN_TTL)
+
+  private def getJoinOrdering : String =
+    optGraphAs[InternalAbstractGraphDatabase]
+      .andThen(_.getConfig.get(GraphDatabaseSettings.cypher_join_ordering))
+      .andThen({
+      case v: String => v
+      case _         => CypherCompiler.DEFAULT_JOIN_ORDERING
+    })
+      .applyOrElse(graph, (_: GraphDatabaseService) => CypherCompiler.DEFAULT_JOIN_ORDERING)
+
   private def optGraphAs[T <: GraphDatabaseService : Manifest]: PartialFunction[GraphDatabaseService, T] = {
     case (db: T) => db
   }
@@ -32,6 +32,18 @@ class ServerExecutionEngine(graph: GraphDatabaseService, logger: StringLogger =
   extends ExecutionEngine(graph, logger) {
 
   def isPeriodicCommit(query: String) = parseQuery(query).isPeriodicCommit
+
+  // Plans the query, or takes its plan from the cache, without executing it
+  def isUpdating(query: String): Boolean = {
+    val (plan, _, txInfo) = planQuery(query)
+    try {
+      plan.isUpdating
+    } finally {
+      txInfo.statement.close()
+      txInfo.tx.success()
+      txInfo.tx.close()
+    }
+  }
 }
 
 
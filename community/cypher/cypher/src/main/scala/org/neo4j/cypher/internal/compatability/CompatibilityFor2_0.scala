@@ -55,5 +55,10 @@ case class CompatibilityFor2_0(graph: GraphDatabaseService, queryCacheSize: Int)
       LegacyExecutionResultWrapper(inner.execute(queryContext(graph, txInfo), params))
 
     def isPeriodicCommit = false
+
+    // Plans of older versions do not tell whether they write, so they are taken to do so
+    def isUpdating = true
+
+    def isStale(statement: Statement) = false
   }
 }
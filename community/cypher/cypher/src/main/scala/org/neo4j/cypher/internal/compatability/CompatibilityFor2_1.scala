@@ -60,5 +60,10 @@ case class CompatibilityFor2_1(graph: GraphDatabaseService, queryCacheSize: Int,
       LegacyExecutionResultWrapper(inner.execute(queryContext(graph, txInfo), params))
 
     def isPeriodicCommit = inner.isPeriodicCommit
+
+    // Plans of older versions do not tell whether they write, so they are taken to do so
+    def isUpdating = true
+
+    def isStale(statement: Statement) = false
   }
 }
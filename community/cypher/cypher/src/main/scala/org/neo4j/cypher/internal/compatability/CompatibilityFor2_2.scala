@@ -27,8 +27,10 @@ import org.neo4j.cypher.internal.compiler.v2_2
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.{ExecutionPlan => ExecutionPlan_v2_2, InternalExecutionResult}
 import org.neo4j.cypher.internal.compiler.v2_2.spi.{ExceptionTranslatingQueryContext => ExceptionTranslatingQueryContext_v2_2}
 import org.neo4j.cypher.internal.compiler.v2_2.CypherCompilerFactory
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.JoinOrdering
 import org.neo4j.cypher.internal.spi.v2_2.{TransactionBoundPlanContext, TransactionBoundQueryContext}
 import org.neo4j.graphdb.GraphDatabaseService
+import org.neo4j.helpers.Clock
 import org.neo4j.kernel.GraphDatabaseAPI
 import org.neo4j.kernel.api.{KernelAPI, Statement}
 import org.neo4j.kernel.monitoring.{Monitors => KernelMonitors}
@@ -39,6 +41,8 @@ trait CompatibilityFor2_2 {
 
   val graph: GraphDatabaseService
   val queryCacheSize: Int
+  val statsDivergenceThreshold: Double
+  val queryPlanTTL: Long
   val kernelMonitors: KernelMonitors
   val kernelAPI: KernelAPI
 
@@ -70,6 +74,11 @@ trait CompatibilityFor2_2 {
       ExecutionResultWrapperFor2_2(inner.execute(queryContext(graph, txInfo), params))
 
     def isPeriodicCommit = inner.isPeriodicCommit
+
+    def isUpdating = inner.isUpdating
+
+    def isStale(statement: Statement) =
+      inner.isStale(new TransactionBoundPlanContext(statement, kernelAPI, graph).statistics)
   }
 }
 
@@ -103,13 +112,20 @@ case class ExecutionResultWrapperFor2_2(inner: InternalExecutionResult) extends
 
 case class CompatibilityFor2_2Experimental(graph: GraphDatabaseService,
                                            queryCacheSize: Int,
+                                           statsDivergenceThreshold: Double,
+                                           queryPlanTTL: Long,
+                                           joinOrdering: String,
                                            kernelMonitors: KernelMonitors,
                                            kernelAPI: KernelAPI) extends CompatibilityFor2_2 {
-  protected val compiler = CypherCompilerFactory.ronjaCompiler(graph, queryCacheSize, kernelMonitors)
+  protected val compiler = CypherCompilerFactory.ronjaCompiler(
+    graph, queryCacheSize, statsDivergenceThreshold, queryPlanTTL, Clock.SYSTEM_CLOCK, kernelMonitors, JoinOrdering(joinOrdering))
 }
 case class CompatibilityFor2_2Legacy(graph: GraphDatabaseService,
                                            queryCacheSize: Int,
+                                           statsDivergenceThreshold: Double,
+                                           queryPlanTTL: Long,
                                            kernelMonitors: KernelMonitors,
                                            kernelAPI: KernelAPI) extends CompatibilityFor2_2 {
-  protected val compiler = CypherCompilerFactory.legacyCompiler(graph, queryCacheSize, kernelMonitors)
+  protected val compiler = CypherCompilerFactory.legacyCompiler(
+    graph, queryCacheSize, statsDivergenceThreshold, queryPlanTTL, Clock.SYSTEM_CLOCK, kernelMonitors)
 }
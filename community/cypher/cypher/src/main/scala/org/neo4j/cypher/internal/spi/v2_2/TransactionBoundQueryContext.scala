@@ -39,6 +39,9 @@ import org.neo4j.cypher.internal.compiler.v2_2.spi._
 import org.neo4j.collection.primitive.PrimitiveLongIterator
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge
 import org.neo4j.graphdb.factory.GraphDatabaseSettings
+import org.neo4j.kernel.impl.util.JobScheduler
+import java.io.File
+import java.util.concurrent.{ConcurrentLinkedQueue, Callable, Future, FutureTask}
 
 final class TransactionBoundQueryContext(graph: GraphDatabaseAPI,
                                          var tx: Transaction,
@@ -47,6 +50,7 @@ final class TransactionBoundQueryContext(graph: GraphDatabaseAPI,
   extends TransactionBoundTokenContext(statement) with QueryContext {
 
   private var open = true
+  private val workerTasks = new ConcurrentLinkedQueue[Future[_]]
   private val txBridge = graph.getDependencyResolver.resolveDependency(classOf[ThreadToStatementContextBridge])
 
   def isOpen = open
@@ -57,6 +61,8 @@ final class TransactionBoundQueryContext(graph: GraphDatabaseAPI,
 
   def close(success: Boolean) {
     try {
+      // Workers of a query that was not fully consumed must not keep reading after it is closed
+      cancelWorkers()
       statement.close()
 
       if (success)
@@ -70,6 +76,14 @@ final class TransactionBoundQueryContext(graph: GraphDatabaseAPI,
     }
   }
 
+  private def cancelWorkers() {
+    var task = workerTasks.poll()
+    while (task != null) {
+      task.cancel(true)
+      task = workerTasks.poll()
+    }
+  }
+
   def withAnyOpenQueryContext[T](work: (QueryContext) => T): T = {
     if (open) {
       work(this)
@@ -280,6 +294,61 @@ final class TransactionBoundQueryContext(graph: GraphDatabaseAPI,
     case _ => true
   }
 
+  override def queryMemoryBudget: Option[Long] = graph match {
+    case iagdb: InternalAbstractGraphDatabase => Option(iagdb.getConfig.get(GraphDatabaseSettings.cypher_query_memory_budget)).map(_.longValue())
+    case _ => None
+  }
+
+  override def spillDirectory: Option[File] = graph match {
+    case iagdb: InternalAbstractGraphDatabase => Option(iagdb.getConfig.get(GraphDatabaseSettings.cypher_spill_directory))
+    case _ => None
+  }
+
+  override def jobScheduler: Option[JobScheduler] =
+    Some(graph.getDependencyResolver.resolveDependency(classOf[JobScheduler]))
+
+  override lazy val parallelReads: Option[ParallelReads] = {
+    val workers = graph match {
+      case iagdb: InternalAbstractGraphDatabase => iagdb.getConfig.get(GraphDatabaseSettings.cypher_parallel_workers).intValue()
+      case _ => 0
+    }
+
+    // Workers can not see the state of the transaction of this context, so only parallelize in a fresh transaction
+    if (isTopLevelTx && workers > 1)
+      Some(new WorkerTransactions(workers))
+    else
+      None
+  }
+
+  private class WorkerTransactions(val workers: Int) extends ParallelReads {
+    private val scheduler = graph.getDependencyResolver.resolveDependency(classOf[JobScheduler])
+
+    def submit[T](work: (QueryContext) => T): Future[T] = {
+      val task = new FutureTask[T](new Callable[T] {
+        def call(): T = {
+          val workerTx = graph.beginTx()
+          try {
+            val workerStatement = txBridge.instance()
+            val result = try {
+              work(new TransactionBoundQueryContext(graph, workerTx, false, workerStatement))
+            }
+            finally {
+              workerStatement.close()
+            }
+            workerTx.success()
+            result
+          }
+          finally {
+            workerTx.close()
+          }
+        }
+      })
+      workerTasks.add(task)
+      scheduler.schedule(JobScheduler.Group.cypherWorker, task)
+      task
+    }
+  }
+
   private val tokenNameLookup = new StatementTokenNameLookup(statement.readOperations())
 
   override def commitAndRestartTx() {
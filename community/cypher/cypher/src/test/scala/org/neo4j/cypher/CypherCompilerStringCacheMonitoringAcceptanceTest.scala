@@ -23,7 +23,7 @@ import org.neo4j.kernel.api
 
 class CypherCompilerStringCacheMonitoringAcceptanceTest extends ExecutionEngineFunSuite {
 
-  case class CacheCounts(hits: Int = 0, misses: Int = 0, flushes: Int = 0)
+  case class CacheCounts(hits: Int = 0, misses: Int = 0, flushes: Int = 0, discards: Int = 0)
 
   class CacheCounter(var counts: CacheCounts = CacheCounts()) extends StringCacheMonitor {
     def cacheMiss(key: String) {
@@ -34,6 +34,10 @@ class CypherCompilerStringCacheMonitoringAcceptanceTest extends ExecutionEngineF
       counts = counts.copy(hits = counts.hits + 1)
     }
 
+    def cacheDiscard(key: String) {
+      counts = counts.copy(discards = counts.discards + 1)
+    }
+
     def cacheFlushDetected(justBeforeKey: api.Statement) {
       counts = counts.copy(flushes = counts.flushes + 1)
     }
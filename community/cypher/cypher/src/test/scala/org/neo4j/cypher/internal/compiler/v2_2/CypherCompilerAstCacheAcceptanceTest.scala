@@ -19,16 +19,22 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_2
 
+import java.util.concurrent.TimeUnit.{MILLISECONDS, SECONDS}
+
 import org.neo4j.cypher.internal.Normal
 import org.neo4j.cypher.internal.commons.CypherFunSuite
 import org.neo4j.cypher.internal.compiler.v2_2.ast.Statement
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.ExecutionPlan
 import org.neo4j.cypher.GraphDatabaseTestSupport
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.Cardinality
+import org.neo4j.cypher.internal.compiler.v2_2.spi.{DelegatingPlanContext, PlanContext}
+import org.neo4j.helpers.{Clock, FakeClock}
 
 class CypherCompilerAstCacheAcceptanceTest extends CypherFunSuite with GraphDatabaseTestSupport {
-  def createCompiler() = CypherCompilerFactory.ronjaCompiler(graph, 128, kernelMonitors)
+  def createCompiler(queryPlanTTL: Long = 1000, clock: Clock = Clock.SYSTEM_CLOCK) =
+    CypherCompilerFactory.ronjaCompiler(graph, 128, 0.5, queryPlanTTL, clock, kernelMonitors)
 
-  case class CacheCounts(hits: Int = 0, misses: Int = 0, flushes: Int = 0)
+  case class CacheCounts(hits: Int = 0, misses: Int = 0, flushes: Int = 0, discards: Int = 0)
 
   class CacheCounter(var counts: CacheCounts = CacheCounts()) extends AstCacheMonitor {
     def cacheHit(key: Statement) {
@@ -39,11 +45,20 @@ class CypherCompilerAstCacheAcceptanceTest extends CypherFunSuite with GraphData
       counts = counts.copy(misses = counts.misses + 1)
     }
 
+    def cacheDiscard(key: Statement) {
+      counts = counts.copy(discards = counts.discards + 1)
+    }
+
     def cacheFlushDetected(justBeforeKey: CacheAccessor[Statement, ExecutionPlan]) {
       counts = counts.copy(flushes = counts.flushes + 1)
     }
   }
 
+  class MutableGraphStatistics extends HardcodedGraphStatisticsValues {
+    var nodes = NODES_CARDINALITY
+    override def nodesCardinality = nodes
+  }
+
   test("should monitor cache misses") {
     val counter = new CacheCounter()
     val compiler = createCompiler()
@@ -76,4 +91,40 @@ class CypherCompilerAstCacheAcceptanceTest extends CypherFunSuite with GraphData
 
     counter.counts should equal(CacheCounts(hits = 0, misses = 2, flushes = 2))
   }
+
+  test("should discard and replan plans whose statistics have diverged") {
+    val clock = new FakeClock
+    val compiler = createCompiler(queryPlanTTL = 1000, clock = clock)
+    val counter = new CacheCounter()
+    compiler.monitors.addMonitorListener(counter)
+    val stats = new MutableGraphStatistics
+    def context: PlanContext = new DelegatingPlanContext(planContext) {
+      override def statistics = stats
+    }
+
+    graph.inTx { compiler.planQuery("match (n:Person) return n", context, Normal) }
+    stats.nodes = Cardinality(10000000)
+    clock.forward(2, SECONDS)
+    graph.inTx { compiler.planQuery("match (n:Person) return n", context, Normal) }
+
+    counter.counts should equal(CacheCounts(hits = 1, misses = 1, flushes = 1, discards = 1))
+  }
+
+  test("should not replan before the minimal time to live has passed") {
+    val clock = new FakeClock
+    val compiler = createCompiler(queryPlanTTL = 1000, clock = clock)
+    val counter = new CacheCounter()
+    compiler.monitors.addMonitorListener(counter)
+    val stats = new MutableGraphStatistics
+    def context: PlanContext = new DelegatingPlanContext(planContext) {
+      override def statistics = stats
+    }
+
+    graph.inTx { compiler.planQuery("match (n:Person) return n", context, Normal) }
+    stats.nodes = Cardinality(10000000)
+    clock.forward(500, MILLISECONDS)
+    graph.inTx { compiler.planQuery("match (n:Person) return n", context, Normal) }
+
+    counter.counts should equal(CacheCounts(hits = 1, misses = 1, flushes = 1, discards = 0))
+  }
 }
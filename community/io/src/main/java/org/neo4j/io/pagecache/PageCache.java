@@ -55,4 +55,15 @@ public interface PageCache
 
     /** The max number of cached pages. */
     int maxCachedPages();
+
+    /**
+     * Visit the ids of the pages currently cached, for each mapped file. The ids are relative to the page size the
+     * file was mapped with, and are snapshots taken while pages keep getting loaded and evicted.
+     */
+    void visitCachedPages( CachedPagesVisitor visitor );
+
+    interface CachedPagesVisitor
+    {
+        void visit( File file, int filePageSize, long[] pageIds );
+    }
 }
@@ -140,4 +140,14 @@ public class StandardPageCache implements PageCache, Runnable
     {
         return table.maxCachedPages();
     }
+
+    @Override
+    public synchronized void visitCachedPages( CachedPagesVisitor visitor )
+    {
+        for ( Map.Entry<File, StandardPagedFile> entry : pagedFiles.entrySet() )
+        {
+            StandardPagedFile file = entry.getValue();
+            visitor.visit( entry.getKey(), file.pageSize(), file.cachedPageIds() );
+        }
+    }
 }
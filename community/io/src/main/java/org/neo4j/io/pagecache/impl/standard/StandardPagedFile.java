@@ -21,6 +21,8 @@ package org.neo4j.io.pagecache.impl.standard;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
@@ -172,6 +174,27 @@ public class StandardPagedFile implements PagedFile
         return filePages.size();
     }
 
+    /**
+     * @return the ids of the pages of this file that are loaded in the cache right now, in no particular order.
+     */
+    long[] cachedPageIds()
+    {
+        long[] pageIds = new long[filePages.size()];
+        int count = 0;
+        for ( Map.Entry<Long, Object> entry : filePages.entrySet() )
+        {
+            if ( entry.getValue() instanceof PinnablePage )
+            {
+                if ( count == pageIds.length )
+                {   // Pages got loaded while we looked
+                    pageIds = Arrays.copyOf( pageIds, count * 2 + 1 );
+                }
+                pageIds[count++] = entry.getKey();
+            }
+        }
+        return count == pageIds.length ? pageIds : Arrays.copyOf( pageIds, count );
+    }
+
     /**
      * @return true if this file is still open and we managed to claim a reference to it.
      */
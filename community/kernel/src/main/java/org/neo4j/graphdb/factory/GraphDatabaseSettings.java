@@ -36,6 +36,8 @@ import org.neo4j.kernel.impl.cache.MonitorGc;
 import static org.neo4j.helpers.Settings.ANY;
 import static org.neo4j.helpers.Settings.BOOLEAN;
 import static org.neo4j.helpers.Settings.BYTES;
+import static org.neo4j.helpers.Settings.DOUBLE;
+import static org.neo4j.helpers.Settings.DURATION;
 import static org.neo4j.helpers.Settings.FALSE;
 import static org.neo4j.helpers.Settings.INTEGER;
 import static org.neo4j.helpers.Settings.DirectMemoryUsage.directMemoryUsage;
@@ -49,6 +51,7 @@ import static org.neo4j.helpers.Settings.matches;
 import static org.neo4j.helpers.Settings.min;
 import static org.neo4j.helpers.Settings.options;
 import static org.neo4j.helpers.Settings.port;
+import static org.neo4j.helpers.Settings.range;
 import static org.neo4j.helpers.Settings.setting;
 
 /**
@@ -69,6 +72,22 @@ public abstract class GraphDatabaseSettings
             + "See the chapter on caches in the manual for more information.")
     public static final Setting<String> cache_type = setting( "cache_type", options( availableCaches() ), availableCaches()[0] );
 
+    @Description("Whether to periodically record which store file pages and which nodes and relationships are " +
+            "hot, and to load them in the background when the database starts, so that the page cache and the " +
+            "object caches are warm again soon after a restart or a cluster role switch. The database accepts " +
+            "requests while warming up.")
+    public static final Setting<Boolean> cache_warmup_enabled = setting( "cache_warmup_enabled", BOOLEAN, FALSE );
+
+    @Description("How often to record which pages and entities are hot, when cache_warmup_enabled is set. " +
+            "The profile is also recorded when the database shuts down.")
+    public static final Setting<Long> cache_warmup_profile_interval = setting( "cache_warmup_profile_interval",
+            DURATION, "1m" );
+
+    @Description("The maximum number of nodes, and of relationships, to record and warm up the caches with, when " +
+            "cache_warmup_enabled is set.")
+    public static final Setting<Integer> cache_warmup_max_entities = setting( "cache_warmup_max_entities", INTEGER,
+            "1000000", min( 0 ) );
+
     @Description("Print out the effective Neo4j configuration after startup.")
     public static final Setting<Boolean> dump_configuration = setting("dump_configuration", BOOLEAN, FALSE );
 
@@ -98,6 +117,36 @@ public abstract class GraphDatabaseSettings
     @Description("Used to set the number of Cypher query execution plans that are cached.")
     public static Setting<Integer> query_cache_size = setting( "query_cache_size", INTEGER, "100", min( 0 ) );
 
+    @Description("The threshold when a cached Cypher plan is considered stale. If any of the statistics the plan " +
+            "was based on has changed relatively more than this value, the plan is discarded and the query " +
+            "replanned on next use. A value of 0 means replan as soon as any of those statistics has changed, and 1 " +
+            "means never replan.")
+    public static Setting<Double> query_statistics_divergence_threshold = setting(
+            "dbms.cypher.statistics_divergence_threshold", DOUBLE, "0.5", range( 0.0, 1.0 ) );
+
+    @Description("The minimum time a cached Cypher plan is kept before its statistics are compared against the " +
+            "current statistics of the database, bounding the time spent replanning queries.")
+    public static Setting<Long> cypher_min_replan_interval = setting( "dbms.cypher.min_replan_interval", DURATION,
+            "1s" );
+
+    @Description("The number of worker threads a read-only Cypher query may use to scan and aggregate the graph in " +
+            "parallel. Each worker runs in a read transaction of its own, so only queries that do not run inside " +
+            "an explicit transaction are parallelized. Workers of all queries share a pool with one thread per " +
+            "processor. A value of 0 or 1 disables parallel execution.")
+    public static Setting<Integer> cypher_parallel_workers = setting( "dbms.cypher.parallel_workers", INTEGER, "0",
+            min( 0 ) );
+
+    @Description("The amount of memory a single Cypher query may use for sorting and aggregating, before these " +
+            "operations start spilling to temporary files on disk. If not set, queries are not limited.")
+    public static Setting<Long> cypher_query_memory_budget = setting( "dbms.cypher.query_memory_budget", BYTES,
+            NO_DEFAULT );
+
+    @Description("The join ordering strategy of the cost based Cypher planner. 'greedy' grows the cheapest plan one " +
+            "step at a time, while 'idp' enumerates connected sub plans by cost, which finds cheaper plans for " +
+            "larger patterns at the expense of planning time.")
+    public static Setting<String> cypher_join_ordering = setting( "dbms.cypher.join_ordering",
+            options( "greedy", "idp" ), "greedy" );
+
     @Description("Determines if Cypher will allow using file URL when importing data using LOAD CSV. Setting this " +
             "value to false will cause Neo4j to fail LOAD CSV queries that import data from the file system")
     public static Setting<Boolean> allow_file_urls = setting( "allow_file_urls", BOOLEAN, TRUE );
@@ -110,6 +159,12 @@ public abstract class GraphDatabaseSettings
             "setting. This should generally not be changed.")
     public static final Setting<File> neo_store = setting("neo_store", PATH, "neostore", basePath(store_dir) );
 
+    @Description("The directory Cypher queries spill sorts and aggregations to when they exceed the query memory " +
+            "budget, either an absolute path or relative to the store_dir setting. Spill files are removed when " +
+            "the query is closed.")
+    public static final Setting<File> cypher_spill_directory = setting( "dbms.cypher.spill_directory", PATH,
+            "cypher-spill", basePath( store_dir ) );
+
     // Remote logging
     @Description("Whether to enable logging to a remote server or not.")
     public static final Setting<Boolean> remote_logging_enabled = setting("remote_logging_enabled", BOOLEAN, FALSE );
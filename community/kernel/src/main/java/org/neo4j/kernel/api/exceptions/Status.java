@@ -76,7 +76,11 @@ public interface Status
         // client
         Invalid( ClientError, "The client provided an invalid request." ),
         InvalidFormat( ClientError, "The client provided a request that was missing required fields, or had values " +
-                "that are not allowed." );
+                "that are not allowed." ),
+
+        // transient
+        SchedulingTimeout( TransientError, "The request could not be scheduled for execution in time, because too " +
+                "many requests of the same kind were already executing. Retrying later may succeed." );
         private final Code code;
 
         @Override
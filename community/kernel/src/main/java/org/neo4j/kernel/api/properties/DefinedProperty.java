@@ -52,6 +52,14 @@ public abstract class DefinedProperty extends Property implements SizeOfObject
     @Override
     public abstract Object value();
 
+    /**
+     * @return whether or not the value of this property is at hand, as opposed to being loaded on first access.
+     */
+    public boolean isValueLoaded()
+    {
+        return true;
+    }
+
     @Override
     public Object value( Object defaultValue )
     {
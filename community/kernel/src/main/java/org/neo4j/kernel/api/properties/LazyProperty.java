@@ -62,6 +62,12 @@ abstract class LazyProperty<T> extends DefinedProperty
         return castAndPrepareForReturn( value );
     }
 
+    @Override
+    public boolean isValueLoaded()
+    {
+        return !(value instanceof Callable<?>);
+    }
+
     protected Object produceValue()
     {
         try
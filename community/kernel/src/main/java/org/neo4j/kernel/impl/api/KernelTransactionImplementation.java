@@ -587,6 +587,8 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                 throw new TransactionFailureException( Status.Transaction.HookFailed, hooksState.failure(), "" );
             }
 
+            // Any locks that were deferred must be held before the changes are turned into records
+            locks.prepareForCommit();
             prepareRecordChangesFromTransactionState();
 
             // Convert changes into commands and commit
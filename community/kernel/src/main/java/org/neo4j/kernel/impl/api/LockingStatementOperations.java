@@ -94,14 +94,14 @@ public class LockingStatementOperations implements
         // by ConstraintEnforcingEntityOperations included the full cake, with locking included.
         state.locks().acquireShared( ResourceTypes.SCHEMA, schemaResource() );
 
-        state.locks().acquireExclusive( ResourceTypes.NODE, nodeId );
+        state.locks().acquireDeferrableExclusive( ResourceTypes.NODE, nodeId );
         return entityWriteDelegate.nodeAddLabel( state, nodeId, labelId );
     }
 
     @Override
     public boolean nodeRemoveLabel( KernelStatement state, long nodeId, int labelId ) throws EntityNotFoundException
     {
-        state.locks().acquireExclusive( ResourceTypes.NODE, nodeId );
+        state.locks().acquireDeferrableExclusive( ResourceTypes.NODE, nodeId );
         return entityWriteDelegate.nodeRemoveLabel( state, nodeId, labelId );
     }
 
@@ -202,7 +202,7 @@ public class LockingStatementOperations implements
     @Override
     public void nodeDelete( KernelStatement state, long nodeId )
     {
-        state.locks().acquireExclusive( ResourceTypes.NODE, nodeId );
+        state.locks().acquireDeferrableExclusive( ResourceTypes.NODE, nodeId );
         entityWriteDelegate.nodeDelete( state, nodeId );
     }
 
@@ -215,8 +215,8 @@ public class LockingStatementOperations implements
     @Override
     public long relationshipCreate( KernelStatement state, int relationshipTypeId, long startNodeId, long endNodeId )
     {   // TODO 2.2-future Don't lock it, it's a new relationship so it isn't seen by anyone else anyway
-        state.locks().acquireExclusive( ResourceTypes.NODE, startNodeId );
-        state.locks().acquireExclusive( ResourceTypes.NODE, endNodeId );
+        state.locks().acquireDeferrableExclusive( ResourceTypes.NODE, startNodeId );
+        state.locks().acquireDeferrableExclusive( ResourceTypes.NODE, endNodeId );
         return entityWriteDelegate.relationshipCreate( state, relationshipTypeId, startNodeId, endNodeId );
     }
 
@@ -230,8 +230,8 @@ public class LockingStatementOperations implements
                 @Override
                 public void visit( long relId, long startNode, long endNode, int type )
                 {
-                    state.locks().acquireExclusive( ResourceTypes.NODE, startNode );
-                    state.locks().acquireExclusive( ResourceTypes.NODE, endNode );
+                    state.locks().acquireDeferrableExclusive( ResourceTypes.NODE, startNode );
+                    state.locks().acquireDeferrableExclusive( ResourceTypes.NODE, endNode );
                 }
             });
         }
@@ -239,7 +239,7 @@ public class LockingStatementOperations implements
         {
             throw new IllegalStateException( "Unable to delete relationship[" + relationshipId+ "] since it is already deleted." );
         }
-        state.locks().acquireExclusive( ResourceTypes.RELATIONSHIP, relationshipId );
+        state.locks().acquireDeferrableExclusive( ResourceTypes.RELATIONSHIP, relationshipId );
         entityWriteDelegate.relationshipDelete( state, relationshipId );
     }
 
@@ -297,7 +297,7 @@ public class LockingStatementOperations implements
         // by ConstraintEnforcingEntityOperations included the full cake, with locking included.
         state.locks().acquireShared( ResourceTypes.SCHEMA, schemaResource() );
 
-        state.locks().acquireExclusive( ResourceTypes.NODE, nodeId );
+        state.locks().acquireDeferrableExclusive( ResourceTypes.NODE, nodeId );
         return entityWriteDelegate.nodeSetProperty( state, nodeId, property );
     }
 
@@ -305,7 +305,7 @@ public class LockingStatementOperations implements
     public Property nodeRemoveProperty( KernelStatement state, long nodeId, int propertyKeyId )
             throws EntityNotFoundException
     {
-        state.locks().acquireExclusive( ResourceTypes.NODE, nodeId );
+        state.locks().acquireDeferrableExclusive( ResourceTypes.NODE, nodeId );
         return entityWriteDelegate.nodeRemoveProperty( state, nodeId, propertyKeyId );
     }
 
@@ -313,7 +313,7 @@ public class LockingStatementOperations implements
     public Property relationshipSetProperty( KernelStatement state, long relationshipId, DefinedProperty property )
             throws EntityNotFoundException
     {
-        state.locks().acquireExclusive( ResourceTypes.RELATIONSHIP, relationshipId );
+        state.locks().acquireDeferrableExclusive( ResourceTypes.RELATIONSHIP, relationshipId );
         return entityWriteDelegate.relationshipSetProperty( state, relationshipId, property );
     }
 
@@ -321,7 +321,7 @@ public class LockingStatementOperations implements
     public Property relationshipRemoveProperty( KernelStatement state, long relationshipId, int propertyKeyId )
             throws EntityNotFoundException
     {
-        state.locks().acquireExclusive( ResourceTypes.RELATIONSHIP, relationshipId );
+        state.locks().acquireDeferrableExclusive( ResourceTypes.RELATIONSHIP, relationshipId );
         return entityWriteDelegate.relationshipRemoveProperty( state, relationshipId, propertyKeyId );
     }
 
@@ -20,7 +20,9 @@
 package org.neo4j.kernel.impl.api;
 
 import java.io.IOException;
+import java.util.List;
 
+import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.impl.api.LegacyIndexApplier.ProviderLookup;
 import org.neo4j.kernel.impl.api.index.IndexingService;
@@ -29,8 +31,12 @@ import org.neo4j.kernel.impl.index.IndexConfigStore;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.nioneo.store.NeoStore;
 import org.neo4j.kernel.impl.nioneo.xa.PropertyLoader;
+import org.neo4j.kernel.impl.nioneo.xa.command.Command;
+import org.neo4j.kernel.impl.nioneo.xa.command.Command.SchemaRuleCommand;
+import org.neo4j.kernel.impl.nioneo.xa.command.NeoBatchIndexApplier;
 import org.neo4j.kernel.impl.nioneo.xa.command.NeoTransactionIndexApplier;
 import org.neo4j.kernel.impl.nioneo.xa.command.NeoTransactionStoreApplier;
+import org.neo4j.kernel.impl.transaction.xaframework.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.xaframework.TransactionRepresentation;
 
 public class TransactionRepresentationStoreApplier
@@ -75,4 +81,50 @@ public class TransactionRepresentationStoreApplier
             representation.accept( applier );
         }
     }
+
+    /**
+     * Applies the given transactions, in order, the way recovered transactions are applied. Records are written
+     * to the stores transaction by transaction, but schema index and label scan store changes are written once,
+     * for all of the transactions together, after the last one has been applied to the stores, or before the
+     * first one that changes the schema.
+     */
+    public void applyBatch( List<CommittedTransactionRepresentation> transactions ) throws IOException
+    {
+        NeoBatchIndexApplier indexApplier = new NeoBatchIndexApplier( indexingService, labelScanStore,
+                neoStore.getNodeStore(), neoStore.getPropertyStore(), cacheAccess, propertyLoader );
+        for ( CommittedTransactionRepresentation transaction : transactions )
+        {
+            if ( changesSchema( transaction.getTransactionRepresentation() ) )
+            {
+                // Indexes created here will be populated from the stores, so bring them up to date before
+                indexApplier.flush();
+            }
+            NeoTransactionStoreApplier storeApplier = new NeoTransactionStoreApplier( neoStore, indexingService,
+                    cacheAccess, lockService, transaction.getCommitEntry().getTxId(), true );
+            LegacyIndexApplier legacyIndexApplier = new LegacyIndexApplier( indexConfigStore,
+                    legacyIndexProviderLookup, true );
+
+            try ( CommandApplierFacade applier = new CommandApplierFacade(
+                    storeApplier, indexApplier, legacyIndexApplier ) )
+            {
+                transaction.getTransactionRepresentation().accept( applier );
+            }
+        }
+        indexApplier.flush();
+    }
+
+    private static boolean changesSchema( TransactionRepresentation representation ) throws IOException
+    {
+        final boolean[] changesSchema = new boolean[1];
+        representation.accept( new Visitor<Command, IOException>()
+        {
+            @Override
+            public boolean visit( Command command )
+            {
+                changesSchema[0] = command instanceof SchemaRuleCommand;
+                return !changesSchema[0];
+            }
+        } );
+        return changesSchema[0];
+    }
 }
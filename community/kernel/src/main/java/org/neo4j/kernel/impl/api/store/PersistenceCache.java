@@ -86,6 +86,8 @@ public class PersistenceCache
     };
     private final AutoLoadingCache<NodeImpl> nodeCache;
     private final AutoLoadingCache<RelationshipImpl> relationshipCache;
+    private final boolean nodeCacheTracksChanges;
+    private final boolean relationshipCacheTracksChanges;
     private GraphPropertiesImpl graphProperties;
     private final RelationshipLoader relationshipLoader;
     private final PropertyKeyTokenHolder propertyKeyTokenHolder;
@@ -103,6 +105,8 @@ public class PersistenceCache
     {
         this.nodeCache = nodeCache;
         this.relationshipCache = relationshipCache;
+        this.nodeCacheTracksChanges = nodeCache.tracksChanges();
+        this.relationshipCacheTracksChanges = relationshipCache.tracksChanges();
         this.entityFactory = entityFactory;
         this.graphProperties = entityFactory.newGraphProperties();
         this.relationshipLoader = relationshipLoader;
@@ -144,7 +148,9 @@ public class PersistenceCache
     }
 
     /**
-     * Applies changes made by a transaction that was just committed.
+     * Applies changes made by a transaction that was just committed. Caches that
+     * {@link AutoLoadingCache#tracksChanges() track changes} get the new size of every changed entity they have
+     * cached reported to them, which is how they learn that the entity has changed.
      *
      * TODO you know what? the argument here shouldn't be a TxState, because that means that only transactions
      * made on this machine by client code will be applied to cache. We could make PersistenceCache a
@@ -167,6 +173,7 @@ public class PersistenceCache
                 if ( node != null )
                 {
                     node.commitPropertyMaps( translateAddedAndChangedProperties( added, changed ), removed );
+                    committed( node );
                 }
             }
 
@@ -179,6 +186,7 @@ public class PersistenceCache
                 {
                     node.commitRelationshipMaps( translateAddedRelationships( added ),
                             translateRemovedRelationships( removed ) );
+                    committed( node );
                 }
             }
 
@@ -190,6 +198,11 @@ public class PersistenceCache
                 if ( relationship != null )
                 {
                     relationship.commitPropertyMaps( translateAddedAndChangedProperties( added, changed ), removed );
+                    if ( relationshipCacheTracksChanges )
+                    {
+                        RELATIONSHIP_CACHE_SIZE_LISTENER.newSize( relationship,
+                                relationship.sizeOfObjectInBytesIncludingOverhead() );
+                    }
                 }
             }
 
@@ -315,10 +328,19 @@ public class PersistenceCache
                     labels[i] = (int)labelsAfter[i];
                 }
                 node.commitLabels( labels );
+                committed( node );
             }
         }
     }
 
+    private void committed( NodeImpl node )
+    {
+        if ( nodeCacheTracksChanges )
+        {
+            NODE_CACHE_SIZE_LISTENER.newSize( node, node.sizeOfObjectInBytesIncludingOverhead() );
+        }
+    }
+
     public void evictNode( long nodeId )
     {
         nodeCache.remove( nodeId );
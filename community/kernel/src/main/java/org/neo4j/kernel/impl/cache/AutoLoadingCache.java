@@ -21,6 +21,8 @@ package org.neo4j.kernel.impl.cache;
 
 import java.util.Collection;
 
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+
 /**
  * Cache that know itself how to load entities into the cache when requested.
  *
@@ -103,6 +105,15 @@ public class AutoLoadingCache<E extends EntityWithSizeObject> implements Cache<E
         return actual.get( key );
     }
 
+    /**
+     * @return whether or not the actual cache needs to hear about every change committed to its entities.
+     * @see ChangeTrackingCache
+     */
+    public boolean tracksChanges()
+    {
+        return actual instanceof ChangeTrackingCache;
+    }
+
     @Override
     public void clear()
     {
@@ -144,4 +155,10 @@ public class AutoLoadingCache<E extends EntityWithSizeObject> implements Cache<E
     {
         actual.printStatistics();
     }
+
+    @Override
+    public void visitKeys( PrimitiveLongVisitor visitor )
+    {
+        actual.visitKeys( visitor );
+    }
 }
@@ -21,6 +21,8 @@ package org.neo4j.kernel.impl.cache;
 
 import java.util.Collection;
 
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+
 public interface Cache<E extends EntityWithSizeObject>
 {
     /**
@@ -82,4 +84,12 @@ public interface Cache<E extends EntityWithSizeObject>
     void updateSize( E entity, int newSize );
 
     void printStatistics();
+
+    /**
+     * Visits the keys of the elements in the cache right now, for example to record which entities are hot.
+     * Elements put or removed while visiting may or may not be visited.
+     *
+     * @param visitor the visitor to give the keys to
+     */
+    void visitKeys( PrimitiveLongVisitor visitor );
 }
@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.cache;
 import java.util.Collection;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+
 public class NoCache<E extends EntityWithSizeObject> implements Cache<E>
 {
     private final String name;
@@ -97,4 +99,9 @@ public class NoCache<E extends EntityWithSizeObject> implements Cache<E>
     {
         // do nothing
     }
+
+    @Override
+    public void visitKeys( PrimitiveLongVisitor visitor )
+    {
+    }
 }
@@ -26,6 +26,8 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+
 public class ReferenceCache<E extends EntityWithSizeObject> implements Cache<E>
 {
     final static int MAX_NUM_PUT_BEFORE_POLL = 5000;
@@ -171,6 +173,18 @@ public class ReferenceCache<E extends EntityWithSizeObject> implements Cache<E>
         // do nothing
     }
 
+    @Override
+    public void visitKeys( PrimitiveLongVisitor visitor )
+    {
+        for ( ReferenceWithKey<Long, E> ref : cache.values() )
+        {
+            if ( ref.get() != null )
+            {
+                visitor.visited( ref.key() );
+            }
+        }
+    }
+
     private void recordPutAndPollIfNeeded( int elementsCount )
     {
         int count = putCounter.addAndGet( elementsCount );
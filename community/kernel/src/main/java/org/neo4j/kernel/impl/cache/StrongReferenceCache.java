@@ -23,6 +23,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+
 public class StrongReferenceCache<E extends EntityWithSizeObject> implements Cache<E>
 {
     private final ConcurrentHashMap<Long,E> cache = new ConcurrentHashMap<>();
@@ -116,4 +118,13 @@ public class StrongReferenceCache<E extends EntityWithSizeObject> implements Cac
     {
         // do nothing
     }
+
+    @Override
+    public void visitKeys( PrimitiveLongVisitor visitor )
+    {
+        for ( Long key : cache.keySet() )
+        {
+            visitor.visited( key );
+        }
+    }
 }
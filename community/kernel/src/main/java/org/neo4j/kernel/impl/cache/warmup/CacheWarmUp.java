@@ -0,0 +1,508 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache.warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.store.StoreReadLayer;
+import org.neo4j.kernel.impl.cache.Cache;
+import org.neo4j.kernel.impl.cache.warmup.HotSetProfile.FilePages;
+import org.neo4j.kernel.impl.core.StartupStatisticsProvider;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.cache_warmup_max_entities;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.cache_warmup_profile_interval;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.read_only;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.store_dir;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+
+/**
+ * Keeps a {@link HotSetProfile} of the store directory up to date while the database runs, and loads the pages and
+ * entities in it back into the page cache and the node and relationship caches in the background when the database
+ * starts. Only pages of store files the database has mapped are loaded. Loading happens in two phases, pages first and
+ * then entities, since loading entities reads those pages: no entity is loaded until every page has been. Within a
+ * phase the work is split into batches of consecutive ids, which a number of threads load in parallel, each batch in
+ * file order.
+ *
+ * The profile is only recorded once the warm-up has finished, so that a restart in the middle of warming up doesn't
+ * replace a good profile with whatever happened to be loaded by then.
+ */
+public class CacheWarmUp extends LifecycleAdapter
+{
+    public static final String PROFILE_FILE_NAME = "neo4j.hotset";
+    static final int PAGES_PER_BATCH = 128;
+    static final int ENTITIES_PER_BATCH = 512;
+
+    private final FileSystemAbstraction fs;
+    private final File storeDir;
+    private final PageCache pageCache;
+    private final Cache<?> nodeCache;
+    private final Cache<?> relationshipCache;
+    private final StoreReadLayer store;
+    private final JobScheduler scheduler;
+    private final StartupStatisticsProvider startupStatistics;
+    private final StringLogger logger;
+    private final long profileInterval;
+    private final int maxEntities;
+    private final boolean readOnly;
+
+    private final Queue<Batch> pageBatches = new ConcurrentLinkedQueue<>();
+    private final Queue<Batch> entityBatches = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger runningWorkers = new AtomicInteger();
+    private volatile CountDownLatch pagesLoaded = new CountDownLatch( 0 );
+    private volatile CountDownLatch workersDone = new CountDownLatch( 0 );
+    private volatile boolean stopped;
+    private volatile boolean warm;
+    private volatile long warmUpStartTime;
+    private JobScheduler.JobHandle profilingHandle;
+
+    public CacheWarmUp( FileSystemAbstraction fs, Config config, PageCache pageCache, Cache<?> nodeCache,
+                        Cache<?> relationshipCache, StoreReadLayer store, JobScheduler scheduler,
+                        StartupStatisticsProvider startupStatistics, StringLogger logger )
+    {
+        this.fs = fs;
+        this.storeDir = config.get( store_dir );
+        this.pageCache = pageCache;
+        this.nodeCache = nodeCache;
+        this.relationshipCache = relationshipCache;
+        this.store = store;
+        this.scheduler = scheduler;
+        this.startupStatistics = startupStatistics;
+        this.logger = logger;
+        this.profileInterval = config.get( cache_warmup_profile_interval );
+        this.maxEntities = config.get( cache_warmup_max_entities );
+        this.readOnly = config.get( read_only );
+    }
+
+    @Override
+    public void start()
+    {
+        stopped = false;
+        warm = true;
+        HotSetProfile profile = loadProfile();
+        if ( profile != null )
+        {
+            startWarmUp( profile );
+        }
+
+        if ( !readOnly )
+        {
+            profilingHandle = scheduler.scheduleRecurring( JobScheduler.Group.cacheWarmUp, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if ( warm && !stopped )
+                    {
+                        saveProfile();
+                    }
+                }
+            }, profileInterval, profileInterval, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        stopped = true;
+        if ( profilingHandle != null )
+        {
+            profilingHandle.cancel( false );
+            profilingHandle = null;
+        }
+        try
+        {
+            workersDone.await();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        pageBatches.clear();
+        entityBatches.clear();
+
+        if ( warm && !readOnly )
+        {   // Record what's hot right before shutting down, for the next start
+            saveProfile();
+        }
+    }
+
+    private void startWarmUp( HotSetProfile profile )
+    {
+        final Map<File, Integer> mappedFiles = new HashMap<>();
+        pageCache.visitCachedPages( new PageCache.CachedPagesVisitor()
+        {
+            @Override
+            public void visit( File file, int filePageSize, long[] pageIds )
+            {
+                mappedFiles.put( file.getAbsoluteFile(), filePageSize );
+            }
+        } );
+        for ( FilePages filePages : profile.pages() )
+        {
+            File file = new File( storeDir, filePages.fileName() ).getAbsoluteFile();
+            // Page ids are of no use if the page size has changed since the profile was recorded
+            if ( Integer.valueOf( filePages.filePageSize() ).equals( mappedFiles.get( file ) ) )
+            {
+                long[] pageIds = filePages.pageIds();
+                for ( int from = 0; from < pageIds.length; from += PAGES_PER_BATCH )
+                {
+                    pageBatches.add( new PageBatch( file, filePages.filePageSize(), pageIds, from,
+                            Math.min( pageIds.length, from + PAGES_PER_BATCH ) ) );
+                }
+            }
+        }
+        addEntityBatches( profile.nodeIds(), true );
+        addEntityBatches( profile.relationshipIds(), false );
+        int batchCount = pageBatches.size() + entityBatches.size();
+        if ( batchCount == 0 )
+        {
+            return;
+        }
+
+        long target = 0;
+        for ( Batch batch : pageBatches )
+        {
+            target += batch.size();
+        }
+        for ( Batch batch : entityBatches )
+        {
+            target += batch.size();
+        }
+        warm = false;
+        warmUpStartTime = System.currentTimeMillis();
+        startupStatistics.cacheWarmUpStarted( target );
+        logger.info( "Warming up caches with " + target + " pages and entities" );
+
+        int workers = Math.min( Runtime.getRuntime().availableProcessors(), batchCount );
+        runningWorkers.set( workers );
+        pagesLoaded = new CountDownLatch( workers );
+        workersDone = new CountDownLatch( workers );
+        for ( int i = 0; i < workers; i++ )
+        {
+            scheduler.schedule( JobScheduler.Group.cacheWarmUp, new Worker() );
+        }
+    }
+
+    private void addEntityBatches( long[] ids, boolean nodes )
+    {
+        for ( int from = 0; from < ids.length; from += ENTITIES_PER_BATCH )
+        {
+            entityBatches.add( new EntityBatch( ids, from, Math.min( ids.length, from + ENTITIES_PER_BATCH ), nodes ) );
+        }
+    }
+
+    private void workerDone()
+    {
+        if ( runningWorkers.decrementAndGet() == 0 )
+        {
+            startupStatistics.cacheWarmUpCompleted();
+            if ( !stopped )
+            {
+                warm = true;
+                logger.info( "Warmed up caches with " + startupStatistics.cacheWarmUpProgress() +
+                        " pages and entities in " + (System.currentTimeMillis() - warmUpStartTime) + "ms" );
+            }
+        }
+        workersDone.countDown();
+    }
+
+    private File profileFile()
+    {
+        return new File( storeDir, PROFILE_FILE_NAME );
+    }
+
+    private HotSetProfile loadProfile()
+    {
+        File file = profileFile();
+        if ( !fs.fileExists( file ) )
+        {
+            return null;
+        }
+        try ( DataInputStream in = new DataInputStream( new BufferedInputStream( fs.openAsInputStream( file ) ) ) )
+        {
+            return HotSetProfile.read( in );
+        }
+        catch ( IOException e )
+        {   // Just start cold, the profile will be recorded again soon enough
+            logger.warn( "Unable to read hot set profile " + file + ", not warming up caches", e );
+            return null;
+        }
+    }
+
+    private synchronized void saveProfile()
+    {
+        File file = profileFile();
+        File tempFile = new File( storeDir, PROFILE_FILE_NAME + ".tmp" );
+        try
+        {
+            HotSetProfile profile = recordProfile();
+            try ( DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream( fs.openAsOutputStream( tempFile, false ) ) ) )
+            {
+                profile.write( out );
+            }
+            fs.deleteFile( file );
+            fs.renameFile( tempFile, file );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            logger.warn( "Unable to record hot set profile " + file, e );
+        }
+    }
+
+    HotSetProfile recordProfile()
+    {
+        final File directory = storeDir.getAbsoluteFile();
+        final List<FilePages> pages = new ArrayList<>();
+        pageCache.visitCachedPages( new PageCache.CachedPagesVisitor()
+        {
+            @Override
+            public void visit( File file, int filePageSize, long[] pageIds )
+            {
+                if ( pageIds.length > 0 && directory.equals( file.getAbsoluteFile().getParentFile() ) )
+                {
+                    pages.add( new FilePages( file.getName(), filePageSize, pageIds ) );
+                }
+            }
+        } );
+        return new HotSetProfile( pages, keysOf( nodeCache ), keysOf( relationshipCache ) );
+    }
+
+    private long[] keysOf( Cache<?> cache )
+    {
+        KeyCollector keys = new KeyCollector( maxEntities );
+        cache.visitKeys( keys );
+        return keys.keys();
+    }
+
+    private static class KeyCollector implements PrimitiveLongVisitor
+    {
+        private final int max;
+        private long[] keys = new long[16];
+        private int count;
+
+        KeyCollector( int max )
+        {
+            this.max = max;
+        }
+
+        @Override
+        public void visited( long key )
+        {
+            if ( count < max )
+            {
+                if ( count == keys.length )
+                {
+                    keys = Arrays.copyOf( keys, Math.min( max, count * 2 ) );
+                }
+                keys[count++] = key;
+            }
+        }
+
+        long[] keys()
+        {
+            return Arrays.copyOf( keys, count );
+        }
+    }
+
+    private class Worker implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            try
+            {
+                try
+                {
+                    load( pageBatches );
+                }
+                finally
+                {
+                    pagesLoaded.countDown();
+                }
+                if ( awaitPagesLoaded() )
+                {
+                    load( entityBatches );
+                }
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                if ( !stopped )
+                {
+                    logger.warn( "Cache warm-up failed, continuing with caches partly warmed up", e );
+                    pageBatches.clear();
+                    entityBatches.clear();
+                }
+            }
+            finally
+            {
+                workerDone();
+            }
+        }
+
+        private void load( Queue<Batch> batches ) throws IOException
+        {
+            Batch batch;
+            while ( !stopped && (batch = batches.poll()) != null )
+            {
+                batch.load();
+                startupStatistics.cacheWarmUpProgressed( batch.size() );
+            }
+        }
+
+        /**
+         * Waits for all workers to be done with the pages, so that entities are read through a warm page cache.
+         *
+         * @return {@code false} if stopped while waiting.
+         */
+        private boolean awaitPagesLoaded()
+        {
+            try
+            {
+                while ( !pagesLoaded.await( 100, TimeUnit.MILLISECONDS ) )
+                {
+                    if ( stopped )
+                    {
+                        return false;
+                    }
+                }
+                return !stopped;
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private abstract class Batch
+    {
+        final long[] ids;
+        final int from;
+        final int to;
+
+        Batch( long[] ids, int from, int to )
+        {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+        }
+
+        int size()
+        {
+            return to - from;
+        }
+
+        abstract void load() throws IOException;
+    }
+
+    private class PageBatch extends Batch
+    {
+        private final File file;
+        private final int filePageSize;
+
+        PageBatch( File file, int filePageSize, long[] pageIds, int from, int to )
+        {
+            super( pageIds, from, to );
+            this.file = file;
+            this.filePageSize = filePageSize;
+        }
+
+        @Override
+        void load() throws IOException
+        {
+            PagedFile pagedFile = pageCache.map( file, filePageSize );
+            try
+            {
+                for ( int i = from; i < to && !stopped; i++ )
+                {
+                    try ( PageCursor cursor = pagedFile.io( ids[i], PF_SHARED_LOCK ) )
+                    {
+                        cursor.next();
+                    }
+                }
+            }
+            finally
+            {
+                pageCache.unmap( file );
+            }
+        }
+    }
+
+    private class EntityBatch extends Batch
+    {
+        private final boolean nodes;
+
+        EntityBatch( long[] ids, int from, int to, boolean nodes )
+        {
+            super( ids, from, to );
+            this.nodes = nodes;
+        }
+
+        @Override
+        void load()
+        {
+            for ( int i = from; i < to && !stopped; i++ )
+            {
+                try
+                {
+                    if ( nodes )
+                    {
+                        store.nodeGetLabels( ids[i] );
+                        store.nodeGetAllProperties( ids[i] );
+                    }
+                    else
+                    {
+                        store.relationshipGetAllProperties( ids[i] );
+                    }
+                }
+                catch ( EntityNotFoundException e )
+                {   // Deleted since the profile was recorded
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache.warmup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Which pages of which store files, and which nodes and relationships, were hot when the profile was recorded.
+ * All ids are kept sorted, so that they can be loaded back in file order and be written compactly as the
+ * variable length encoded differences between consecutive ids.
+ */
+public class HotSetProfile
+{
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<FilePages> pages;
+    private final long[] nodeIds;
+    private final long[] relationshipIds;
+
+    public HotSetProfile( List<FilePages> pages, long[] nodeIds, long[] relationshipIds )
+    {
+        this.pages = pages;
+        this.nodeIds = sorted( nodeIds );
+        this.relationshipIds = sorted( relationshipIds );
+    }
+
+    public List<FilePages> pages()
+    {
+        return Collections.unmodifiableList( pages );
+    }
+
+    public long[] nodeIds()
+    {
+        return nodeIds;
+    }
+
+    public long[] relationshipIds()
+    {
+        return relationshipIds;
+    }
+
+    /**
+     * @return the total number of pages and entities in this profile.
+     */
+    public long size()
+    {
+        long size = nodeIds.length + relationshipIds.length;
+        for ( FilePages file : pages )
+        {
+            size += file.pageIds.length;
+        }
+        return size;
+    }
+
+    public void write( DataOutputStream out ) throws IOException
+    {
+        out.writeInt( FORMAT_VERSION );
+        writeVarLong( out, pages.size() );
+        for ( FilePages file : pages )
+        {
+            out.writeUTF( file.fileName );
+            out.writeInt( file.filePageSize );
+            writeIds( out, file.pageIds );
+        }
+        writeIds( out, nodeIds );
+        writeIds( out, relationshipIds );
+    }
+
+    /**
+     * @throws IOException if the profile is incomplete or was written in an unknown format.
+     */
+    public static HotSetProfile read( DataInputStream in ) throws IOException
+    {
+        int version = in.readInt();
+        if ( version != FORMAT_VERSION )
+        {
+            throw new IOException( "Unknown hot set profile format version " + version );
+        }
+        int numberOfFiles = (int) readVarLong( in );
+        List<FilePages> pages = new ArrayList<>( numberOfFiles );
+        for ( int i = 0; i < numberOfFiles; i++ )
+        {
+            String fileName = in.readUTF();
+            int filePageSize = in.readInt();
+            pages.add( new FilePages( fileName, filePageSize, readIds( in ) ) );
+        }
+        long[] nodeIds = readIds( in );
+        long[] relationshipIds = readIds( in );
+        return new HotSetProfile( pages, nodeIds, relationshipIds );
+    }
+
+    private static void writeIds( DataOutputStream out, long[] ids ) throws IOException
+    {
+        writeVarLong( out, ids.length );
+        long previous = 0;
+        for ( long id : ids )
+        {
+            writeVarLong( out, id - previous );
+            previous = id;
+        }
+    }
+
+    private static long[] readIds( DataInputStream in ) throws IOException
+    {
+        long[] ids = new long[(int) readVarLong( in )];
+        long previous = 0;
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            ids[i] = previous += readVarLong( in );
+        }
+        return ids;
+    }
+
+    private static void writeVarLong( DataOutputStream out, long value ) throws IOException
+    {
+        while ( (value & ~0x7FL) != 0 )
+        {
+            out.writeByte( (int) ((value & 0x7F) | 0x80) );
+            value >>>= 7;
+        }
+        out.writeByte( (int) value );
+    }
+
+    private static long readVarLong( DataInputStream in ) throws IOException
+    {
+        long value = 0;
+        for ( int shift = 0; shift < 64; shift += 7 )
+        {
+            byte b = in.readByte();
+            value |= (b & 0x7FL) << shift;
+            if ( (b & 0x80) == 0 )
+            {
+                return value;
+            }
+        }
+        throw new IOException( "Malformed hot set profile" );
+    }
+
+    private static long[] sorted( long[] ids )
+    {
+        Arrays.sort( ids );
+        return ids;
+    }
+
+    /**
+     * The hot pages of one store file. Page ids are relative to the page size the file was mapped with.
+     */
+    public static class FilePages
+    {
+        private final String fileName;
+        private final int filePageSize;
+        private final long[] pageIds;
+
+        public FilePages( String fileName, int filePageSize, long[] pageIds )
+        {
+            this.fileName = fileName;
+            this.filePageSize = filePageSize;
+            this.pageIds = sorted( pageIds );
+        }
+
+        public String fileName()
+        {
+            return fileName;
+        }
+
+        public int filePageSize()
+        {
+            return filePageSize;
+        }
+
+        public long[] pageIds()
+        {
+            return pageIds;
+        }
+    }
+}
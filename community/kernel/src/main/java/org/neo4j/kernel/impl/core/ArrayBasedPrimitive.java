@@ -180,6 +180,27 @@ abstract class ArrayBasedPrimitive extends Primitive implements EntityWithSizeOb
 
     protected abstract Property noProperty( int key );
 
+    /**
+     * @return the properties cached for this entity, sorted by key, or {@code null} if they haven't been loaded.
+     * The returned array is never modified, changes to the properties replace it.
+     */
+    public DefinedProperty[] getCachedPropertiesIfLoaded()
+    {
+        return properties;
+    }
+
+    /**
+     * Sets the cached properties of an entity that hasn't loaded its properties, for caches keeping entities
+     * in serialized form.
+     */
+    public synchronized void restoreCachedProperties( DefinedProperty[] sortedProperties )
+    {
+        if ( properties == null )
+        {
+            properties = sortedProperties;
+        }
+    }
+
     @Override
     protected void setProperties( Iterator<DefinedProperty> properties )
     {
@@ -298,6 +298,7 @@ public class NodeImpl extends ArrayBasedPrimitive
         int i = 0;
         for ( RelIdArray array : tmpRelMap.values() )
         {
+            array.shrink();
             result[i++] = array;
         }
         sort( result );
@@ -313,23 +314,6 @@ public class NodeImpl extends ArrayBasedPrimitive
         }
     };
 
-    /* This is essentially a deliberate misuse of Comparator, knowing details about Arrays#binarySearch.
-     * The signature is binarySearch( T[] array, T key, Comparator<T> ), but in this case we're
-     * comparing RelIdArray[] to an int as key. To avoid having to create a new object for
-     * the key for each call we create a single Comparator taking the RelIdArray as first
-     * argument and the key as the second, as #binarySearch does internally. Although the int
-     * here will be boxed I imagine it to be slightly better, with Integer caching for low
-     * integers. */
-    @SuppressWarnings("rawtypes")
-    private static final Comparator RELATIONSHIP_TYPE_COMPARATOR_FOR_BINARY_SEARCH = new Comparator()
-    {
-        @Override
-        public int compare( Object o1, Object o2 )
-        {
-            return ((RelIdArray) o1).getType() - (Integer) o2;
-        }
-    };
-
     private static void sort( RelIdArray[] array )
     {
         Arrays.sort( array, RELATIONSHIP_TYPE_COMPARATOR_FOR_SORTING );
@@ -475,12 +459,31 @@ public class NodeImpl extends ArrayBasedPrimitive
         }
     }
 
-    @SuppressWarnings("unchecked")
     private RelIdArray getRelIdArray( int type )
     {
+        // Binary search on the type directly, instead of through Arrays#binarySearch and a boxed key
         RelIdArray[] localRelationships = relationships;
-        int index = Arrays.binarySearch( localRelationships, type, RELATIONSHIP_TYPE_COMPARATOR_FOR_BINARY_SEARCH );
-        return index < 0 ? null : localRelationships[index];
+        int low = 0;
+        int high = localRelationships.length - 1;
+        while ( low <= high )
+        {
+            int middle = (low + high) >>> 1;
+            RelIdArray candidate = localRelationships[middle];
+            int candidateType = candidate.getType();
+            if ( candidateType < type )
+            {
+                low = middle + 1;
+            }
+            else if ( candidateType > type )
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return candidate;
+            }
+        }
+        return null;
     }
 
     private void putRelIdArray( RelIdArray addRels )
@@ -622,6 +625,38 @@ public class NodeImpl extends ArrayBasedPrimitive
         return binarySearch( labels, labelId ) >= 0;
     }
 
+    /**
+     * @return the cached labels of this node, sorted, or {@code null} if they haven't been loaded.
+     */
+    public int[] getCachedLabelsIfLoaded()
+    {
+        return labels;
+    }
+
+    /**
+     * @return the cached relationships of this node, one {@link RelIdArray} per type, or {@code null} unless
+     * all of them have been loaded.
+     */
+    public RelIdArray[] getCachedRelationshipsIfAllLoaded()
+    {
+        RelIdArray[] localRelationships = relationships;
+        return localRelationships != null && !hasMoreRelationshipsToLoad() ? localRelationships : null;
+    }
+
+    /**
+     * Sets all relationships of a node that hasn't loaded any, for caches keeping nodes in serialized form.
+     */
+    public synchronized void restoreCachedRelationships( RelIdArray[] allRelationships )
+    {
+        if ( relationships == null )
+        {
+            RelIdArray[] array = allRelationships.length == 0 ? NO_RELATIONSHIPS : allRelationships.clone();
+            sort( array );
+            relChainPosition = RelationshipLoadingPosition.EMPTY;
+            relationships = array;
+        }
+    }
+
     public synchronized void commitLabels( int[] labels )
     {
         this.labels = labels;
@@ -22,4 +22,20 @@ package org.neo4j.kernel.impl.core;
 public interface StartupStatistics
 {
     int numberOfRecoveredTransactions();
+
+    /**
+     * @return the number of pages and entities the cache warm-up set out to load at the last start, or 0 if
+     * there was nothing to warm up.
+     */
+    long cacheWarmUpTarget();
+
+    /**
+     * @return the number of pages and entities the cache warm-up has loaded so far.
+     */
+    long cacheWarmUpProgress();
+
+    /**
+     * @return whether or not the cache warm-up started at the last start has finished, or was never started.
+     */
+    boolean isCacheWarmUpCompleted();
 }
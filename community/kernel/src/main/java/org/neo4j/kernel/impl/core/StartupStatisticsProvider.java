@@ -19,9 +19,14 @@
  */
 package org.neo4j.kernel.impl.core;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class StartupStatisticsProvider implements StartupStatistics
 {
     private int numberOfRecoveredTransactions;
+    private volatile long cacheWarmUpTarget;
+    private final AtomicLong cacheWarmUpProgress = new AtomicLong();
+    private volatile boolean cacheWarmUpCompleted = true;
 
     public void setNumberOfRecoveredTransactions( int count )
     {
@@ -33,4 +38,39 @@ public class StartupStatisticsProvider implements StartupStatistics
     {
         return numberOfRecoveredTransactions;
     }
+
+    public void cacheWarmUpStarted( long target )
+    {
+        cacheWarmUpCompleted = false;
+        cacheWarmUpProgress.set( 0 );
+        cacheWarmUpTarget = target;
+    }
+
+    public void cacheWarmUpProgressed( long count )
+    {
+        cacheWarmUpProgress.addAndGet( count );
+    }
+
+    public void cacheWarmUpCompleted()
+    {
+        cacheWarmUpCompleted = true;
+    }
+
+    @Override
+    public long cacheWarmUpTarget()
+    {
+        return cacheWarmUpTarget;
+    }
+
+    @Override
+    public long cacheWarmUpProgress()
+    {
+        return cacheWarmUpProgress.get();
+    }
+
+    @Override
+    public boolean isCacheWarmUpCompleted()
+    {
+        return cacheWarmUpCompleted;
+    }
 }
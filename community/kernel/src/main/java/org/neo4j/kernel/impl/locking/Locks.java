@@ -86,6 +86,14 @@ public interface Locks extends Lifecycle
          */
         void acquireExclusive(ResourceType resourceType, long ... resourceIds) throws AcquireLockTimeoutException;
 
+        /**
+         * Same as {@link #acquireExclusive(ResourceType, long...)}, but for the locks the kernel takes implicitly on
+         * the entities a transaction writes to. Implementations may defer parts of acquiring such locks until
+         * {@link #prepareForCommit()}, so this must not be used for locks that were explicitly asked for.
+         */
+        void acquireDeferrableExclusive(ResourceType resourceType, long ... resourceIds)
+                throws AcquireLockTimeoutException;
+
         /** Try grabbing exclusive lock, not waiting and returning a boolean indicating if we got the lock. */
         boolean tryExclusiveLock( ResourceType resourceType, long ... resourceIds );
 
@@ -107,6 +115,12 @@ public interface Locks extends Lifecycle
         /** Release all locks. */
         void releaseAll();
 
+        /**
+         * Called by the owning transaction right before it turns its changes into commands. Implementations that
+         * defer acquiring some of their locks must have acquired all of them by the time this method returns.
+         */
+        void prepareForCommit() throws AcquireLockTimeoutException;
+
         /** Releases all locks, using the client after calling this is undefined. */
         @Override
         void close();
@@ -31,6 +31,12 @@ public class NoOpClient implements Locks.Client
     {
     }
 
+    @Override
+    public void acquireDeferrableExclusive( Locks.ResourceType resourceType, long... resourceIds )
+            throws AcquireLockTimeoutException
+    {
+    }
+
     @Override
     public boolean tryExclusiveLock( Locks.ResourceType resourceType, long... resourceIds )
     {
@@ -73,6 +79,11 @@ public class NoOpClient implements Locks.Client
     {
     }
 
+    @Override
+    public void prepareForCommit()
+    {
+    }
+
     @Override
     public long getIdentifier()
     {
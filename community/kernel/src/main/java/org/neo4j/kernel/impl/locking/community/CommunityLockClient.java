@@ -75,6 +75,12 @@ public class CommunityLockClient implements Locks.Client
         }
     }
 
+    @Override
+    public void acquireDeferrableExclusive( Locks.ResourceType resourceType, long... resourceIds )
+    {
+        acquireExclusive( resourceType, resourceIds );
+    }
+
     @Override
     public boolean tryExclusiveLock( Locks.ResourceType resourceType, long... resourceIds )
     {
@@ -200,6 +206,12 @@ public class CommunityLockClient implements Locks.Client
         releaseAll();
     }
 
+    @Override
+    public void prepareForCommit()
+    {
+        // All locks are acquired right away
+    }
+
     @Override
     public long getIdentifier()
     {
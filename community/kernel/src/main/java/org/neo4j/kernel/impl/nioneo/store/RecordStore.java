@@ -225,6 +225,19 @@ public interface RecordStore<R extends AbstractBaseRecord> extends IdSequence
             apply( store, progressListener, filters );
         }
 
+        /**
+         * Processes the records with ids from {@code fromId}, inclusive, to {@code toId}, exclusive, so that
+         * different ranges of the same store can be processed by different threads. Progress is left to the caller.
+         */
+        public <R extends AbstractBaseRecord> void applyRange( RecordStore<R> store, long fromId, long toId )
+                throws FAILURE
+        {
+            for ( long id = fromId; id < toId && continueScanning; id++ )
+            {
+                store.accept( this, getRecord( store, id ) );
+            }
+        }
+
         private <R extends AbstractBaseRecord> void apply( RecordStore<R> store, ProgressListener progressListener,
                 Predicate<? super R>... filters ) throws FAILURE
         {
@@ -38,6 +38,7 @@ import org.neo4j.helpers.Exceptions;
 import org.neo4j.helpers.Provider;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.InternalAbstractGraphDatabase;
 import org.neo4j.kernel.TransactionEventHandlers;
 import org.neo4j.kernel.api.KernelAPI;
@@ -76,6 +77,7 @@ import org.neo4j.kernel.impl.api.store.StoreReadLayer;
 import org.neo4j.kernel.impl.cache.AutoLoadingCache;
 import org.neo4j.kernel.impl.cache.BridgingCacheAccess;
 import org.neo4j.kernel.impl.cache.Cache;
+import org.neo4j.kernel.impl.cache.warmup.CacheWarmUp;
 import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
 import org.neo4j.kernel.impl.core.Caches;
 import org.neo4j.kernel.impl.core.DenseNodeImpl;
@@ -547,6 +549,12 @@ public class NeoStoreXaDataSource implements NeoStoreProvider, Lifecycle, LogRot
             } );
             life.add( indexingService );
             life.add( labelScanStore );
+            if ( config.get( GraphDatabaseSettings.cache_warmup_enabled ) )
+            {
+                life.add( new CacheWarmUp( fs, config, dependencyResolver.resolveDependency( PageCache.class ),
+                        nodeCache, relationshipCache, storeLayer, scheduler, startupStatistics,
+                        logging.getMessagesLog( CacheWarmUp.class ) ) );
+            }
 
             kernel.registerTransactionHook( transactionEventHandlers );
             neoStore.setRecoveredStatus( true );
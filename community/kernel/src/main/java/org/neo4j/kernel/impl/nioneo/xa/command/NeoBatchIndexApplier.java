@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.xa.command;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.index.IndexUpdates;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.nioneo.store.NodeStore;
+import org.neo4j.kernel.impl.nioneo.store.PropertyStore;
+import org.neo4j.kernel.impl.nioneo.xa.PropertyLoader;
+
+/**
+ * Gathers the index and label scan store changes of many transactions, and applies them all at once in
+ * {@link #flush()}. {@link #close()} marks the end of each transaction.
+ *
+ * Index updates are computed when each transaction ends, since they may need to read the store as it was then,
+ * and are applied in the order of the transactions. The label changes of a node are merged into one change from
+ * the labels it had before the first of the transactions to those it had after the last.
+ */
+public class NeoBatchIndexApplier extends NeoTransactionIndexApplier
+{
+    private final List<NodePropertyUpdate> indexUpdates = new ArrayList<>();
+    private final Set<Long> changedNodeIds = new HashSet<>();
+    private final Map<Long, NodeLabelUpdate> mergedLabelUpdates = new HashMap<>();
+
+    public NeoBatchIndexApplier( IndexingService indexingService, LabelScanStore labelScanStore,
+            NodeStore nodeStore, PropertyStore propertyStore, CacheAccessBackDoor cacheAccess,
+            PropertyLoader propertyLoader )
+    {
+        super( indexingService, labelScanStore, nodeStore, propertyStore, cacheAccess, propertyLoader );
+    }
+
+    @Override
+    public void close()
+    {
+        super.close();
+        reset();
+    }
+
+    @Override
+    protected void applyLabelUpdates( List<NodeLabelUpdate> labelUpdates )
+    {
+        for ( NodeLabelUpdate update : labelUpdates )
+        {
+            NodeLabelUpdate previous = mergedLabelUpdates.get( update.getNodeId() );
+            mergedLabelUpdates.put( update.getNodeId(), previous == null ? update :
+                    NodeLabelUpdate.labelChanges( update.getNodeId(), previous.getLabelsBefore(),
+                            update.getLabelsAfter() ) );
+        }
+    }
+
+    @Override
+    protected void applyIndexUpdates( IndexUpdates updates )
+    {
+        for ( NodePropertyUpdate update : updates )
+        {
+            indexUpdates.add( update );
+        }
+        changedNodeIds.addAll( updates.changedNodeIds() );
+    }
+
+    /**
+     * Applies the changes of all transactions gathered since the previous flush.
+     */
+    public void flush()
+    {
+        if ( !mergedLabelUpdates.isEmpty() )
+        {
+            super.applyLabelUpdates( new ArrayList<>( mergedLabelUpdates.values() ) );
+            mergedLabelUpdates.clear();
+        }
+
+        if ( !changedNodeIds.isEmpty() )
+        {
+            super.applyIndexUpdates( new GatheredIndexUpdates( indexUpdates, changedNodeIds ) );
+            indexUpdates.clear();
+            changedNodeIds.clear();
+        }
+    }
+
+    private static class GatheredIndexUpdates implements IndexUpdates
+    {
+        private final List<NodePropertyUpdate> updates;
+        private final Set<Long> changedNodeIds;
+
+        GatheredIndexUpdates( List<NodePropertyUpdate> updates, Set<Long> changedNodeIds )
+        {
+            this.updates = updates;
+            this.changedNodeIds = changedNodeIds;
+        }
+
+        @Override
+        public Set<Long> changedNodeIds()
+        {
+            return changedNodeIds;
+        }
+
+        @Override
+        public Iterator<NodePropertyUpdate> iterator()
+        {
+            return updates.iterator();
+        }
+    }
+}
@@ -29,6 +29,7 @@ import java.util.Map;
 
 import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.index.IndexUpdates;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
 import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
@@ -88,18 +89,38 @@ public class NeoTransactionIndexApplier extends NeoCommandHandler.Adapter
     {
         if ( !labelUpdates.isEmpty() )
         {
-            updateLabelScanStore();
-            cacheAccess.applyLabelUpdates( labelUpdates );
+            applyLabelUpdates( labelUpdates );
         }
 
         if ( !nodeCommands.isEmpty() || !propertyCommands.isEmpty() )
         {
-            indexingService.updateIndexes( new LazyIndexUpdates(
+            applyIndexUpdates( new LazyIndexUpdates(
                     nodeStore, propertyStore, propertyCommands, nodeCommands, propertyLoader ) );
         }
     }
 
-    private void updateLabelScanStore()
+    /**
+     * Forgets the changes gathered so far, so that this applier can gather the changes of another transaction.
+     */
+    protected void reset()
+    {
+        nodeCommands.clear();
+        propertyCommands.clear();
+        labelUpdates.clear();
+    }
+
+    protected void applyLabelUpdates( List<NodeLabelUpdate> labelUpdates )
+    {
+        updateLabelScanStore( labelUpdates );
+        cacheAccess.applyLabelUpdates( labelUpdates );
+    }
+
+    protected void applyIndexUpdates( IndexUpdates updates )
+    {
+        indexingService.updateIndexes( updates );
+    }
+
+    private void updateLabelScanStore( List<NodeLabelUpdate> labelUpdates )
     {
         Collections.sort(labelUpdates, nodeLabelUpdateComparator );
 
@@ -112,6 +112,12 @@ public class LifecycledPageCache extends LifecycleAdapter implements PageCache
         return pageCache.maxCachedPages();
     }
 
+    @Override
+    public void visitCachedPages( CachedPagesVisitor visitor )
+    {
+        pageCache.visitCachedPages( visitor );
+    }
+
     public void dumpConfiguration( StringLogger messagesLog )
     {
         long totalPhysicalMemMb = Settings.DirectMemoryUsage.totalPhysicalMemory() / 1024 / 1024;
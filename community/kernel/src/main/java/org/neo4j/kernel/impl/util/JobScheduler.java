@@ -47,6 +47,27 @@ public interface JobScheduler extends Lifecycle
          */
         heuristics,
         pageCacheEviction,
+
+        /**
+         * Records which pages and entities are hot, and loads them back into the caches after a restart.
+         */
+        cacheWarmUp,
+
+        /**
+         * Executes morsels of read-only Cypher queries in parallel, on a pool with one thread per processor.
+         */
+        cypherWorker,
+
+        /**
+         * Reads and parses the input of LOAD CSV ahead of the query consuming it.
+         */
+        loadCsvReader,
+
+        /**
+         * Applies transactions pulled from another instance, or read from logs, in batches, while the next batch
+         * is being read.
+         */
+        transactionBatchApplier,
     }
 
     interface JobHandle
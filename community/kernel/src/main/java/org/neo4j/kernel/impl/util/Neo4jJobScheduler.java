@@ -28,12 +28,14 @@ import org.neo4j.helpers.DaemonThreadFactory;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 public class Neo4jJobScheduler extends LifecycleAdapter implements JobScheduler
 {
     private final String id;
 
     private ExecutorService executor;
+    private ExecutorService cypherWorkerExecutor;
     private ScheduledThreadPoolExecutor scheduledExecutor;
 
     public Neo4jJobScheduler()
@@ -50,13 +52,17 @@ public class Neo4jJobScheduler extends LifecycleAdapter implements JobScheduler
     public void init()
     {
         this.executor = newCachedThreadPool( new DaemonThreadFactory( "Neo4j " + id ) );
+        // Bounded, so that concurrent parallel queries queue up for the processors instead of adding threads
+        this.cypherWorkerExecutor = newFixedThreadPool( Runtime.getRuntime().availableProcessors(),
+                new DaemonThreadFactory( "Neo4j " + id + " Cypher worker" ) );
         this.scheduledExecutor = new ScheduledThreadPoolExecutor( 2 );
     }
 
     @Override
     public JobHandle schedule( Group group, Runnable job )
     {
-        return new Handle( this.executor.submit( job ) );
+        ExecutorService executor = group == Group.cypherWorker ? cypherWorkerExecutor : this.executor;
+        return new Handle( executor.submit( job ) );
     }
 
     @Override
@@ -93,6 +99,23 @@ public class Neo4jJobScheduler extends LifecycleAdapter implements JobScheduler
             exception = new RuntimeException(e);
         }
 
+        try
+        {
+            if(cypherWorkerExecutor != null)
+            {
+                cypherWorkerExecutor.shutdownNow();
+                cypherWorkerExecutor.awaitTermination( 5, TimeUnit.SECONDS );
+                cypherWorkerExecutor = null;
+            }
+        } catch(RuntimeException e)
+        {
+            exception = e;
+        }
+        catch ( InterruptedException e )
+        {
+            exception = new RuntimeException(e);
+        }
+
         try
         {
             if(scheduledExecutor != null)
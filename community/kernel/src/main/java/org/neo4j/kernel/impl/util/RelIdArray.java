@@ -27,9 +27,8 @@ import org.neo4j.graphdb.Direction;
 import org.neo4j.kernel.impl.cache.SizeOfObject;
 import org.neo4j.kernel.impl.nioneo.store.RelationshipGroupRecord;
 
-import static java.lang.System.arraycopy;
-
 import static org.neo4j.kernel.impl.cache.SizeOfs.withArrayOverhead;
+import static org.neo4j.kernel.impl.cache.SizeOfs.withArrayOverheadIncludingReferences;
 import static org.neo4j.kernel.impl.cache.SizeOfs.withObjectOverhead;
 import static org.neo4j.kernel.impl.cache.SizeOfs.withReference;
 
@@ -135,19 +134,10 @@ public class RelIdArray implements SizeOfObject
     public void add( long id, DirectionWrapper direction )
     {
         IdBlock block = direction.getBlock( this );
-        if ( block == null || !block.accepts( id ) )
+        if ( block == null )
         {
-            IdBlock newBlock = null;
-            if ( block == null && LowIdBlock.idIsLow( id ) )
-            {
-                newBlock = new LowIdBlock();
-            }
-            else
-            {
-                newBlock = block != null ? block.upgradeToHighIdBlock() : new HighIdBlock();
-            }
-            direction.setBlock( this, newBlock );
-            block = newBlock;
+            block = new IdBlock();
+            direction.setBlock( this, block );
         }
         block.add( id );
     }
@@ -220,18 +210,31 @@ public class RelIdArray implements SizeOfObject
         {   // We've got no ids for that direction, just pop it right in (a copy of it)
             direction.setBlock( this, fromBlock.copyAndShrink() );
         }
-        else if ( toBlock.accepts( fromBlock ) )
-        {   // We've got some existing ids and the new ids are compatible, so add them
-            toBlock.addAll( fromBlock );
-        }
         else
-        {   // We've got some existing ids, but ids aren't compatible. Upgrade and add them to the upgraded block
-            toBlock = toBlock.upgradeToHighIdBlock();
+        {   // We've got some existing ids, append the new ones after them
             toBlock.addAll( fromBlock );
-            direction.setBlock( this, toBlock );
         }
     }
 
+    /**
+     * @return the number of ids added with exactly the given direction, where {@link DirectionWrapper#BOTH}
+     * means loops. Unlike {@link #length(DirectionWrapper)} this doesn't include loops for the other directions.
+     */
+    public int exactLength( DirectionWrapper direction )
+    {
+        IdBlock block = direction.getBlock( this );
+        return block != null ? block.length() : 0;
+    }
+
+    /**
+     * @return an iterator over the ids added with exactly the given direction, in the order they were added.
+     * @see #exactLength(DirectionWrapper)
+     */
+    public RelIdIterator exactIterator( DirectionWrapper direction )
+    {
+        return new RelIdIteratorImpl( this, direction.exactDirections );
+    }
+
     public boolean isEmpty()
     {
         return outBlock == null && inBlock == null && getLastLoopBlock() == null ;
@@ -359,10 +362,12 @@ public class RelIdArray implements SizeOfObject
         };
 
         private final Direction direction;
+        private final DirectionWrapper[] exactDirections;
 
         private DirectionWrapper( Direction direction )
         {
             this.direction = direction;
+            this.exactDirections = new DirectionWrapper[] { this };
         }
 
         RelIdIterator iterator( RelIdArray ids )
@@ -403,301 +408,147 @@ public class RelIdArray implements SizeOfObject
         }
     }
 
-    public static abstract class IdBlock implements SizeOfObject
+    /**
+     * The ids added with one direction, in the order they were added. Each id is stored as the difference to
+     * the id before it, zig-zag and variable-length encoded, so ids loaded from a relationship chain, which
+     * tend to lie close to one another, take a byte or two each. The bytes live in chunks: only the last chunk
+     * grows and the others are trimmed and never changed again, so appending copies at most one chunk and
+     * copies of a block can share all but the last one.
+     */
+    public static class IdBlock implements SizeOfObject
     {
-        abstract void shrink();
+        static final int CHUNK_SIZE = 1024;
+        private static final int INITIAL_CHUNK_SIZE = 8;
+        private static final int MAX_ENCODED_SIZE = 10;
+        private static final byte[][] NO_CHUNKS = new byte[0][];
+
+        private byte[][] fullChunks = NO_CHUNKS;
+        private byte[] lastChunk;
+        private int position;
+        private int length;
+        private long lastId;
 
-        void add( long id )
+        IdBlock()
         {
-            int length = ensureSpace( 1 );
-            set( id, length );
-            setLength( length+1 );
+            this( INITIAL_CHUNK_SIZE );
         }
 
-        void addAll( IdBlock block )
+        private IdBlock( int initialChunkSize )
         {
-            int otherBlockLength = block.length();
-            int length = ensureSpace( otherBlockLength+1 );
-            append( block, length+1, otherBlockLength );
-            setLength( otherBlockLength+length );
-        }
-
-        /**
-         * Returns the number of ids in the array, not the array size.
-         */
-        int ensureSpace( int delta )
-        {
-            int length = length();
-            int newLength = length+delta;
-            int capacity = capacity();
-            if ( newLength >= capacity )
-            {   // We're out of space, try doubling the size
-                int calculatedLength = capacity*2;
-                if ( newLength > calculatedLength )
-                {   // Doubling the size wasn't enough, go with double what was required
-                    calculatedLength = newLength*2;
-                }
-                extendArrayTo( length, calculatedLength );
-            }
-            return length;
+            lastChunk = new byte[initialChunkSize];
         }
 
-        protected abstract boolean accepts( long id );
-
-        protected abstract boolean accepts( IdBlock block );
-
-        protected abstract IdBlock copyAndShrink();
-
-        abstract IdBlock upgradeToHighIdBlock();
-
-        protected abstract void extendArrayTo( int numberOfItemsToCopy, int newLength );
-
-        protected abstract void setLength( int length );
-
-        protected abstract int length();
-
-        protected abstract int capacity();
-
-        protected abstract void append( IdBlock source, int targetStartIndex, int itemsToCopy );
-
-        protected abstract long get( int index );
-
-        protected abstract void set( long id, int index );
-    }
-
-    private static class LowIdBlock extends IdBlock
-    {
-        // First element is the actual length w/o the slack
-        private int[] ids = new int[3];
-
         @Override
         public int sizeOfObjectInBytesIncludingOverhead()
         {
-            return withObjectOverhead( withReference( withArrayOverhead( 4*ids.length ) ) );
-        }
-
-        public static boolean idIsLow( long id )
-        {
-            return (id & 0xFF00000000L) == 0;
-        }
-
-        @Override
-        protected boolean accepts( long id )
-        {
-            return idIsLow( id );
-        }
-
-        @Override
-        protected boolean accepts( IdBlock block )
-        {
-            return block instanceof LowIdBlock;
-        }
-
-        @Override
-        protected void append( IdBlock source, int targetStartIndex, int itemsToCopy )
-        {
-            if ( source instanceof LowIdBlock )
-            {
-                arraycopy( ((LowIdBlock)source).ids, 1, ids, targetStartIndex, itemsToCopy );
-            }
-            else
+            int fullChunksSize = 0;
+            if ( fullChunks.length > 0 )
             {
-                throw new IllegalArgumentException( source.toString() );
+                fullChunksSize = withArrayOverheadIncludingReferences( 0, fullChunks.length );
+                for ( byte[] chunk : fullChunks )
+                {
+                    fullChunksSize += withArrayOverhead( chunk.length );
+                }
             }
+            return withObjectOverhead( 8/*lastId*/ + 8/*position and length*/ +
+                    withReference( withArrayOverhead( lastChunk.length ) ) + withReference( fullChunksSize ) );
         }
 
-        @Override
-        IdBlock upgradeToHighIdBlock()
-        {
-            return new HighIdBlock( this );
-        }
-
-        @Override
-        void shrink()
+        void add( long id )
         {
-            if ( capacity() > length() )
+            ensureSpace();
+            long delta = id - lastId;
+            long value = (delta << 1) ^ (delta >> 63);
+            while ( (value & ~0x7FL) != 0 )
             {
-                ids = Arrays.copyOf( ids, length()+1 );
+                lastChunk[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
             }
+            lastChunk[position++] = (byte) value;
+            lastId = id;
+            length++;
         }
 
-        @Override
-        protected IdBlock copyAndShrink()
-        {
-            LowIdBlock copy = new LowIdBlock();
-            copy.ids = Arrays.copyOf( ids, length()+1 );
-            return copy;
-        }
-
-        @Override
-        protected void extendArrayTo( int numberOfItemsToCopy, int newLength )
-        {
-            int[] newIds = new int[newLength+1];
-            arraycopy( ids, 0, newIds, 0, numberOfItemsToCopy+1 );
-            ids = newIds;
-        }
-
-        @Override
-        protected int length()
-        {
-            return ids[0];
-        }
-
-        @Override
-        protected int capacity()
-        {
-            return ids.length-1;
-        }
-
-        @Override
-        protected void setLength( int length )
-        {
-            ids[0] = length;
-        }
-
-        @Override
-        protected long get( int index )
-        {
-            assert index >= 0 && index < length();
-            return ids[index+1]&0xFFFFFFFFL;
-        }
-
-        @Override
-        protected void set( long id, int index )
-        {
-            ids[index+1] = (int) id; // guarded from outside that this is indeed an int
-        }
-    }
-
-    private static class HighIdBlock extends IdBlock
-    {
-        // First element is the actual length w/o the slack
-        private int[] ids;
-        private byte[] highBits;
-
-        public HighIdBlock()
-        {
-            ids = new int[3];
-            highBits = new byte[3];
-        }
-
-        private HighIdBlock( LowIdBlock lowIdBlock )
-        {
-            ids = Arrays.copyOf( lowIdBlock.ids, lowIdBlock.ids.length );
-            highBits = new byte[ids.length];
-        }
-
-        @Override
-        public int sizeOfObjectInBytesIncludingOverhead()
-        {
-            return withObjectOverhead(
-                    withReference( withArrayOverhead( 4*ids.length ) ) +
-                            withReference( withArrayOverhead( ids.length ) ) );
-        }
-
-        @Override
-        protected boolean accepts( long id )
-        {
-            return true;
-        }
-
-        @Override
-        protected boolean accepts( IdBlock block )
+        void addAll( IdBlock block )
         {
-            return true;
+            for ( IteratorState ids = new IteratorState( block ); ids.hasNext(); )
+            {
+                add( ids.next() );
+            }
         }
 
-        @Override
-        protected void append( IdBlock source, int targetStartIndex, int itemsToCopy )
+        private void ensureSpace()
         {
-            if ( source instanceof LowIdBlock )
+            if ( position + MAX_ENCODED_SIZE <= lastChunk.length )
             {
-                arraycopy( ((LowIdBlock)source).ids, 1, ids, targetStartIndex, itemsToCopy );
+                return;
+            }
+
+            if ( lastChunk.length < CHUNK_SIZE )
+            {   // Still room to grow the last chunk, try doubling it
+                int newSize = Math.max( Math.min( lastChunk.length*2, CHUNK_SIZE ), position + MAX_ENCODED_SIZE );
+                lastChunk = Arrays.copyOf( lastChunk, newSize );
             }
             else
-            {
-                arraycopy( ((HighIdBlock)source).ids, 1, ids, targetStartIndex, itemsToCopy );
-                arraycopy( ((HighIdBlock)source).highBits, 1, highBits, targetStartIndex, itemsToCopy );
+            {   // The last chunk is full, trim it and start a new one
+                byte[][] chunks = Arrays.copyOf( fullChunks, fullChunks.length+1 );
+                chunks[fullChunks.length] = position == lastChunk.length ? lastChunk :
+                        Arrays.copyOf( lastChunk, position );
+                fullChunks = chunks;
+                lastChunk = new byte[CHUNK_SIZE];
+                position = 0;
             }
         }
 
-        @Override
-        IdBlock upgradeToHighIdBlock()
-        {
-            return this;
-        }
-
-        @Override
         void shrink()
         {
-            int itemsToCopy = length()+1;
-            ids = Arrays.copyOf( ids, itemsToCopy );
-            highBits = Arrays.copyOf( highBits, itemsToCopy );
+            if ( position < lastChunk.length )
+            {
+                lastChunk = Arrays.copyOf( lastChunk, position );
+            }
         }
 
-        @Override
-        protected IdBlock copyAndShrink()
+        IdBlock copyAndShrink()
         {
-            HighIdBlock copy = new HighIdBlock();
-            int itemsToCopy = length()+1;
-            copy.ids = Arrays.copyOf( ids, itemsToCopy );
-            copy.highBits = Arrays.copyOf( highBits, itemsToCopy );
+            IdBlock copy = new IdBlock( 0 );
+            copy.fullChunks = fullChunks;
+            copy.lastChunk = Arrays.copyOf( lastChunk, position );
+            copy.position = position;
+            copy.length = length;
+            copy.lastId = lastId;
             return copy;
         }
 
-        @Override
-        protected void extendArrayTo( int numberOfItemsToCopy, int newLength )
-        {
-            int[] newIds = new int[newLength+1];
-            byte[] newHighBits = new byte[newLength+1];
-            arraycopy( ids, 0, newIds, 0, numberOfItemsToCopy+1 );
-            arraycopy( highBits, 0, newHighBits, 0, numberOfItemsToCopy+1 );
-            ids = newIds;
-            highBits = newHighBits;
-        }
-
-        @Override
-        protected int length()
-        {
-            return ids[0];
-        }
-
-        @Override
-        protected int capacity()
-        {
-            return ids.length-1;
-        }
-
-        @Override
-        protected void setLength( int length )
-        {
-            ids[0] = length;
-        }
-
-        @Override
-        protected long get( int index )
+        int length()
         {
-            return ((long)highBits[index+1] << 32) | ids[index+1]&0xFFFFFFFFL;
+            return length;
         }
 
-        @Override
-        protected void set( long id, int index )
+        /*
+         * Full chunks are exactly as long as the ids in them, while the last one may have room for more
+         */
+        byte[] chunk( int index )
         {
-            ids[index+1] = (int)id;
-            highBits[index+1] = (byte) ((id&0xFF00000000L) >>> 32);
+            return index < fullChunks.length ? fullChunks[index] : lastChunk;
         }
     }
 
+    /**
+     * Decodes the ids of an {@link IdBlock}, up to as many as it had when this state was created or last
+     * {@link #update(IdBlock) updated}.
+     */
     private static class IteratorState
     {
         private IdBlock block;
         private int relativePosition;
         private int length;
+        private int chunkIndex;
+        private int offset;
+        private long id;
 
-        public IteratorState( IdBlock block, int relativePosition )
+        IteratorState( IdBlock block )
         {
             this.block = block;
-            this.relativePosition = relativePosition;
             this.length = block.length();
         }
 
@@ -711,12 +562,40 @@ public class RelIdArray implements SizeOfObject
          */
         long next()
         {
-            return block.get( relativePosition++ );
+            byte[] chunk = block.chunk( chunkIndex );
+            if ( offset == chunk.length )
+            {
+                chunk = block.chunk( ++chunkIndex );
+                offset = 0;
+            }
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = chunk[offset++];
+                value |= (b & 0x7FL) << shift;
+                shift += 7;
+            }
+            while ( b < 0 );
+            id += (value >>> 1) ^ -(value & 1);
+            relativePosition++;
+            return id;
         }
 
         public void update( IdBlock block )
         {
-            this.block = block;
+            if ( block != this.block )
+            {   // Not just more ids appended to our block, so find our way back to the same position in this one
+                int position = Math.min( relativePosition, block.length() );
+                this.block = block;
+                relativePosition = chunkIndex = offset = 0;
+                id = 0;
+                while ( relativePosition < position )
+                {
+                    next();
+                }
+            }
             this.length = block.length();
         }
     }
@@ -751,7 +630,7 @@ public class RelIdArray implements SizeOfObject
 
             if ( block != null )
             {
-                currentState = new IteratorState( block, 0 );
+                currentState = new IteratorState( block );
                 states[directionPosition] = currentState;
             }
         }
@@ -824,7 +703,7 @@ public class RelIdArray implements SizeOfObject
                 IdBlock block = currentDirection.getBlock( ids );
                 if ( block != null )
                 {
-                    currentState = new IteratorState( block, 0 );
+                    currentState = new IteratorState( block );
                     states[directionPosition] = currentState;
                     return true;
                 }
@@ -871,59 +750,29 @@ public class RelIdArray implements SizeOfObject
         {
             return null;
         }
-        RelIdArray newArray = null;
+        // Ids can't be removed from the encoded blocks in place, so copy the ones to keep into new blocks
+        RelIdArray newArray = src != null ? src.newSimilarInstance() : add.newSimilarInstance();
         if ( src != null )
         {
-            newArray = src.newSimilarInstance();
-            newArray.addAll( src );
-            evictExcluded( newArray, remove );
-        }
-        else
-        {
-            newArray = add.newSimilarInstance();
+            addAllExcept( newArray, src, remove );
         }
         if ( add != null )
         {
             newArray = newArray.upgradeIfNeeded( add );
-            for ( RelIdIteratorImpl fromIterator = (RelIdIteratorImpl) add.iterator( DirectionWrapper.BOTH );
-                  fromIterator.hasNext();)
-            {
-                long value = fromIterator.next();
-                if ( !remove.contains( value ) )
-                {
-                    newArray.add( value, fromIterator.currentDirection );
-                }
-            }
+            addAllExcept( newArray, add, remove );
         }
         return newArray;
     }
 
-    private static void evictExcluded( RelIdArray ids, PrimitiveLongSet excluded )
+    private static void addAllExcept( RelIdArray target, RelIdArray source, PrimitiveLongSet excluded )
     {
-        for ( RelIdIteratorImpl iterator = (RelIdIteratorImpl) DirectionWrapper.BOTH.iterator( ids );
-              iterator.hasNext(); )
+        for ( RelIdIteratorImpl fromIterator = (RelIdIteratorImpl) DirectionWrapper.BOTH.iterator( source );
+              fromIterator.hasNext(); )
         {
-            long value = iterator.next();
-            if ( excluded.contains( value ) )
+            long value = fromIterator.next();
+            if ( !excluded.contains( value ) )
             {
-                boolean swapSuccessful = false;
-                IteratorState state = iterator.currentState;
-                IdBlock block = state.block;
-                for ( int j = block.length() - 1; j >= state.relativePosition; j--)
-                {
-                    long backValue = block.get( j );
-                    block.setLength( block.length()-1 );
-                    if ( !excluded.contains( backValue) )
-                    {
-                        block.set( backValue, state.relativePosition-1 );
-                        swapSuccessful = true;
-                        break;
-                    }
-                }
-                if ( !swapSuccessful ) // all elements from pos in remove
-                {
-                    block.setLength( block.length()-1 );
-                }
+                target.add( value, fromIterator.currentDirection );
             }
         }
     }
@@ -33,6 +33,8 @@ public interface BackupMonitor
 
     void streamingFile( File storefile );
 
+    void appliedTransactionBatch( int transactionCount, long applyTimeMillis );
+
     public static class Adapter implements BackupMonitor
     {
         @Override
@@ -59,6 +61,11 @@ public interface BackupMonitor
         public void streamingFile( File storefile )
         { // Do nothing
         }
+
+        @Override
+        public void appliedTransactionBatch( int transactionCount, long applyTimeMillis )
+        { // Do nothing
+        }
     }
 
     public static final BackupMonitor NONE = new Adapter();
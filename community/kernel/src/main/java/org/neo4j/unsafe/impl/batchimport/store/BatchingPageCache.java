@@ -193,6 +193,11 @@ public class BatchingPageCache implements PageCache
         return 1;
     }
 
+    @Override
+    public void visitCachedPages( CachedPagesVisitor visitor )
+    {   // Only ever holds the page currently being written, nothing worth recording
+    }
+
     class BatchingPagedFile implements PagedFile
     {
         private final BatchingPageCursor singleCursor;
@@ -69,8 +69,8 @@ public class LockingStatementOperationsTest
         lockingOps.relationshipCreate( state, 1, 2, 3);
 
         // then
-        order.verify( locks ).acquireExclusive( ResourceTypes.NODE, 2 );
-        order.verify( locks ).acquireExclusive( ResourceTypes.NODE, 3 );
+        order.verify( locks ).acquireDeferrableExclusive( ResourceTypes.NODE, 2 );
+        order.verify( locks ).acquireDeferrableExclusive( ResourceTypes.NODE, 3 );
         order.verify( entityWriteOps ).relationshipCreate( state, 1, 2, 3 );
     }
 
@@ -81,10 +81,20 @@ public class LockingStatementOperationsTest
         lockingOps.nodeAddLabel( state, 123, 456 );
 
         // then
-        order.verify( locks ).acquireExclusive( ResourceTypes.NODE, 123 );
+        order.verify( locks ).acquireDeferrableExclusive( ResourceTypes.NODE, 123 );
         order.verify( entityWriteOps ).nodeAddLabel( state, 123, 456 );
     }
 
+    @Test
+    public void shouldNotAllowDeferringExplicitlyAcquiredExclusiveLocks() throws Exception
+    {
+        // when
+        lockingOps.acquireExclusive( state, ResourceTypes.NODE, new long[]{123} );
+
+        // then
+        order.verify( locks ).acquireExclusive( ResourceTypes.NODE, 123 );
+    }
+
     @Test
     public void shouldAcquireSchemaReadLockBeforeAddingLabelToNode() throws Exception
     {
@@ -106,7 +116,7 @@ public class LockingStatementOperationsTest
         lockingOps.nodeSetProperty( state, 123, property );
 
         // then
-        order.verify( locks ).acquireExclusive( ResourceTypes.NODE, 123 );
+        order.verify( locks ).acquireDeferrableExclusive( ResourceTypes.NODE, 123 );
         order.verify( entityWriteOps ).nodeSetProperty( state, 123, property );
     }
 
@@ -131,7 +141,7 @@ public class LockingStatementOperationsTest
         lockingOps.nodeDelete( state, 123 );
 
         //THEN
-        order.verify( locks ).acquireExclusive( ResourceTypes.NODE, 123 );
+        order.verify( locks ).acquireDeferrableExclusive( ResourceTypes.NODE, 123 );
         order.verify( entityWriteOps ).nodeDelete( state, 123 );
     }
 
@@ -32,7 +32,10 @@ import org.neo4j.kernel.impl.core.RelationshipLoader;
 import static java.util.Arrays.asList;
 
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -87,6 +90,38 @@ public class PersistenceCacheTest
         verify(node).commitLabels( new int[]{1} );
     }
 
+    @Test
+    public void shouldOnlyReportSizesOfChangedEntitiesToCachesTrackingChanges() throws Exception
+    {
+        // GIVEN
+        NodeImpl node = mock( NodeImpl.class );
+        when( nodeCache.getIfCached( nodeId ) ).thenReturn( node );
+
+        // WHEN
+        persistenceCache.apply( asList( labelChanges( nodeId, new long[]{2l}, new long[]{1l} ) ) );
+
+        // THEN
+        verify( node, never() ).sizeOfObjectInBytesIncludingOverhead();
+        verify( nodeCache, never() ).updateSize( any( NodeImpl.class ), anyInt() );
+    }
+
+    @Test
+    public void shouldReportSizesOfChangedEntitiesToCachesTrackingChanges() throws Exception
+    {
+        // GIVEN
+        NodeImpl node = mock( NodeImpl.class );
+        when( node.sizeOfObjectInBytesIncludingOverhead() ).thenReturn( 100 );
+        when( nodeCache.getIfCached( nodeId ) ).thenReturn( node );
+        when( nodeCache.tracksChanges() ).thenReturn( true );
+        persistenceCache = newPersistenceCache();
+
+        // WHEN
+        persistenceCache.apply( asList( labelChanges( nodeId, new long[]{2l}, new long[]{1l} ) ) );
+
+        // THEN
+        verify( nodeCache ).updateSize( node, 100 );
+    }
+
     private PersistenceCache persistenceCache;
     private AutoLoadingCache<NodeImpl> nodeCache;
     private final long nodeId = 1;
@@ -96,11 +131,17 @@ public class PersistenceCacheTest
     public void init()
     {
         nodeCache = mock( AutoLoadingCache.class );
+        persistenceCache = newPersistenceCache();
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private PersistenceCache newPersistenceCache()
+    {
         AutoLoadingCache<RelationshipImpl> relCache = mock( AutoLoadingCache.class );
         EntityFactory entityFactory = mock( EntityFactory.class );
         GraphPropertiesImpl graphProperties = mock( GraphPropertiesImpl.class );
         when( entityFactory.newGraphProperties() ).thenReturn( graphProperties );
-        persistenceCache = new PersistenceCache( nodeCache, relCache, entityFactory,
+        return new PersistenceCache( nodeCache, relCache, entityFactory,
                 mock( RelationshipLoader.class ), null, null, null );
     }
 }
@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache.warmup;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.standard.StandardPageCache;
+import org.neo4j.kernel.api.EntityType;
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.store.StoreReadLayer;
+import org.neo4j.kernel.impl.cache.StrongReferenceCache;
+import org.neo4j.kernel.impl.core.NodeImpl;
+import org.neo4j.kernel.impl.core.RelationshipImpl;
+import org.neo4j.kernel.impl.core.StartupStatisticsProvider;
+import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.test.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.cache_warmup_max_entities;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.cache_warmup_profile_interval;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.store_dir;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+
+public class CacheWarmUpTest
+{
+    private static final int FILE_PAGE_SIZE = 64;
+
+    @Rule
+    public EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+
+    private final File storeDir = new File( "store" ).getAbsoluteFile();
+    private final File storeFile = new File( storeDir, "neostore.nodestore.db" );
+    private final Neo4jJobScheduler scheduler = new Neo4jJobScheduler();
+    private final StartupStatisticsProvider startupStatistics = new StartupStatisticsProvider();
+    private final StoreReadLayer store = mock( StoreReadLayer.class );
+    private final StrongReferenceCache<NodeImpl> nodeCache = new StrongReferenceCache<>( "nodes" );
+    private final StrongReferenceCache<RelationshipImpl> relationshipCache = new StrongReferenceCache<>( "rels" );
+
+    @Before
+    public void setUp() throws Exception
+    {
+        scheduler.init();
+        fsRule.get().mkdirs( storeDir );
+        try ( StoreChannel channel = fsRule.get().open( storeFile, "rw" ) )
+        {
+            channel.write( ByteBuffer.allocate( FILE_PAGE_SIZE * CacheWarmUp.PAGES_PER_BATCH * 2 ) );
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldWarmUpPagesAndEntitiesThatWereHotAtShutdown() throws Exception
+    {
+        // GIVEN a database that had some pages and entities cached when it shut down
+        PageCache pageCache = newPageCache();
+        PagedFile pagedFile = pageCache.map( storeFile, FILE_PAGE_SIZE );
+        load( pagedFile, 2, 9, 5 );
+        nodeCache.put( new NodeImpl( 10 ) );
+        nodeCache.put( new NodeImpl( 3 ) );
+        relationshipCache.put( new RelationshipImpl( 7, 1, 2, 0 ) );
+        CacheWarmUp warmUp = newWarmUp( pageCache );
+        warmUp.start();
+        warmUp.stop();
+        pageCache.close();
+
+        // WHEN starting it again with cold caches
+        pageCache = newPageCache();
+        pageCache.map( storeFile, FILE_PAGE_SIZE );
+        when( store.nodeGetLabels( 10 ) ).thenThrow( new EntityNotFoundException( EntityType.NODE, 10 ) );
+        warmUp = newWarmUp( pageCache );
+        warmUp.start();
+        awaitWarmUp();
+        warmUp.stop();
+
+        // THEN
+        assertArrayEquals( new long[] {2, 5, 9}, cachedPages( pageCache ).get( storeFile ) );
+        verify( store ).nodeGetLabels( 3 );
+        verify( store ).nodeGetAllProperties( 3 );
+        verify( store ).nodeGetLabels( 10 );
+        verify( store, never() ).nodeGetAllProperties( 10 );
+        verify( store ).relationshipGetAllProperties( 7 );
+        assertEquals( 6, startupStatistics.cacheWarmUpTarget() );
+        assertEquals( 6, startupStatistics.cacheWarmUpProgress() );
+    }
+
+    @Test
+    public void shouldLoadAllPagesBeforeAnyEntity() throws Exception
+    {
+        // GIVEN a profile with more pages than fit in one batch, and an entity
+        PageCache pageCache = newPageCache( CacheWarmUp.PAGES_PER_BATCH * 4 );
+        long[] pageIds = new long[CacheWarmUp.PAGES_PER_BATCH * 2];
+        for ( int i = 0; i < pageIds.length; i++ )
+        {
+            pageIds[i] = i;
+        }
+        load( pageCache.map( storeFile, FILE_PAGE_SIZE ), pageIds );
+        nodeCache.put( new NodeImpl( 3 ) );
+        CacheWarmUp warmUp = newWarmUp( pageCache );
+        warmUp.start();
+        warmUp.stop();
+        pageCache.close();
+
+        // WHEN
+        final PageCache coldPageCache = newPageCache( CacheWarmUp.PAGES_PER_BATCH * 4 );
+        coldPageCache.map( storeFile, FILE_PAGE_SIZE );
+        final AtomicReference<long[]> pagesWhenLoadingEntity = new AtomicReference<>();
+        when( store.nodeGetLabels( 3 ) ).thenAnswer( new Answer<Object>()
+        {
+            @Override
+            public Object answer( InvocationOnMock invocation )
+            {
+                pagesWhenLoadingEntity.set( cachedPages( coldPageCache ).get( storeFile ) );
+                return null;
+            }
+        } );
+        warmUp = newWarmUp( coldPageCache );
+        warmUp.start();
+        awaitWarmUp();
+        warmUp.stop();
+
+        // THEN
+        assertArrayEquals( pageIds, pagesWhenLoadingEntity.get() );
+    }
+
+    @Test
+    public void shouldNotWarmUpPagesOfFilesMappedWithAnotherPageSize() throws Exception
+    {
+        // GIVEN
+        PageCache pageCache = newPageCache();
+        load( pageCache.map( storeFile, FILE_PAGE_SIZE ), 1 );
+        CacheWarmUp warmUp = newWarmUp( pageCache );
+        warmUp.start();
+        warmUp.stop();
+        pageCache.close();
+
+        // WHEN
+        pageCache = newPageCache();
+        pageCache.map( storeFile, FILE_PAGE_SIZE * 2 );
+        warmUp = newWarmUp( pageCache );
+        warmUp.start();
+        awaitWarmUp();
+        warmUp.stop();
+
+        // THEN
+        assertArrayEquals( new long[0], cachedPages( pageCache ).get( storeFile ) );
+    }
+
+    @Test
+    public void shouldStartColdWithoutProfile() throws Exception
+    {
+        // WHEN
+        CacheWarmUp warmUp = newWarmUp( newPageCache() );
+        warmUp.start();
+
+        // THEN
+        assertTrue( startupStatistics.isCacheWarmUpCompleted() );
+        assertEquals( 0, startupStatistics.cacheWarmUpTarget() );
+        warmUp.stop();
+        assertTrue( fsRule.get().fileExists( new File( storeDir, CacheWarmUp.PROFILE_FILE_NAME ) ) );
+    }
+
+    @Test
+    public void shouldStartColdWithCorruptProfile() throws Exception
+    {
+        // GIVEN
+        try ( StoreChannel channel = fsRule.get().open(
+                new File( storeDir, CacheWarmUp.PROFILE_FILE_NAME ), "rw" ) )
+        {
+            channel.write( ByteBuffer.wrap( new byte[] {0, 0, 0, 1, (byte) 0xFF} ) );
+        }
+
+        // WHEN
+        CacheWarmUp warmUp = newWarmUp( newPageCache() );
+        warmUp.start();
+
+        // THEN
+        assertTrue( startupStatistics.isCacheWarmUpCompleted() );
+        warmUp.stop();
+    }
+
+    @Test
+    public void shouldRecordOnlyUpToMaxEntities() throws Exception
+    {
+        // GIVEN
+        for ( int id = 0; id < 100; id++ )
+        {
+            nodeCache.put( new NodeImpl( id ) );
+        }
+        Config config = new Config( stringMap( store_dir.name(), storeDir.getPath(),
+                cache_warmup_max_entities.name(), "10" ) );
+        CacheWarmUp warmUp = new CacheWarmUp( fsRule.get(), config, newPageCache(), nodeCache,
+                relationshipCache, store, scheduler, startupStatistics, StringLogger.DEV_NULL );
+
+        // WHEN
+        HotSetProfile profile = warmUp.recordProfile();
+
+        // THEN
+        assertEquals( 10, profile.nodeIds().length );
+    }
+
+    private CacheWarmUp newWarmUp( PageCache pageCache )
+    {
+        Config config = new Config( stringMap( store_dir.name(), storeDir.getPath(),
+                cache_warmup_profile_interval.name(), "60m" ) );
+        return new CacheWarmUp( fsRule.get(), config, pageCache, nodeCache, relationshipCache, store, scheduler,
+                startupStatistics, StringLogger.DEV_NULL );
+    }
+
+    private PageCache newPageCache()
+    {
+        return newPageCache( 64 );
+    }
+
+    private PageCache newPageCache( int maxPages )
+    {
+        return new StandardPageCache( fsRule.get(), maxPages, FILE_PAGE_SIZE * 2 );
+    }
+
+    private void load( PagedFile pagedFile, long... pageIds ) throws Exception
+    {
+        for ( long pageId : pageIds )
+        {
+            try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+        }
+    }
+
+    private Map<File, long[]> cachedPages( PageCache pageCache )
+    {
+        final Map<File, long[]> pages = new HashMap<>();
+        pageCache.visitCachedPages( new PageCache.CachedPagesVisitor()
+        {
+            @Override
+            public void visit( File file, int filePageSize, long[] pageIds )
+            {
+                Arrays.sort( pageIds );
+                pages.put( file, pageIds );
+            }
+        } );
+        return pages;
+    }
+
+    private void awaitWarmUp() throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + 10_000;
+        while ( !startupStatistics.isCacheWarmUpCompleted() && System.currentTimeMillis() < end )
+        {
+            Thread.sleep( 10 );
+        }
+        assertTrue( "Warm-up didn't complete in time", startupStatistics.isCacheWarmUpCompleted() );
+    }
+}
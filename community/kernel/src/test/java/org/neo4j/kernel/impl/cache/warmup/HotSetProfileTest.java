@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache.warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.cache.warmup.HotSetProfile.FilePages;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HotSetProfileTest
+{
+    @Test
+    public void shouldWriteAndReadBackSortedIds() throws Exception
+    {
+        // GIVEN
+        HotSetProfile profile = new HotSetProfile( asList(
+                new FilePages( "neostore.nodestore.db", 8190, new long[] {12, 3, 7} ),
+                new FilePages( "neostore.relationshipstore.db", 8177, new long[0] ) ),
+                new long[] {Long.MAX_VALUE, 0, 1L << 40}, new long[] {5} );
+
+        // WHEN
+        HotSetProfile read = HotSetProfile.read( new DataInputStream(
+                new ByteArrayInputStream( bytesOf( profile ) ) ) );
+
+        // THEN
+        assertEquals( 2, read.pages().size() );
+        assertEquals( "neostore.nodestore.db", read.pages().get( 0 ).fileName() );
+        assertEquals( 8190, read.pages().get( 0 ).filePageSize() );
+        assertArrayEquals( new long[] {3, 7, 12}, read.pages().get( 0 ).pageIds() );
+        assertArrayEquals( new long[0], read.pages().get( 1 ).pageIds() );
+        assertArrayEquals( new long[] {0, 1L << 40, Long.MAX_VALUE}, read.nodeIds() );
+        assertArrayEquals( new long[] {5}, read.relationshipIds() );
+        assertEquals( 7, read.size() );
+    }
+
+    @Test
+    public void shouldWriteConsecutiveIdsCompactly() throws Exception
+    {
+        // GIVEN
+        long[] ids = new long[10_000];
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            ids[i] = 1_000_000_000L + i;
+        }
+
+        // WHEN
+        byte[] bytes = bytesOf( new HotSetProfile( Arrays.<FilePages>asList(), ids, new long[0] ) );
+
+        // THEN
+        assertTrue( "Expected about one byte per id, but was " + bytes.length, bytes.length < ids.length + 32 );
+    }
+
+    @Test( expected = IOException.class )
+    public void shouldFailToReadTruncatedProfile() throws Exception
+    {
+        // GIVEN
+        byte[] bytes = bytesOf( new HotSetProfile( Arrays.<FilePages>asList(), new long[] {1, 2, 3}, new long[0] ) );
+
+        // WHEN
+        HotSetProfile.read( new DataInputStream( new ByteArrayInputStream( Arrays.copyOf( bytes, bytes.length - 2 ) ) ) );
+    }
+
+    private byte[] bytesOf( HotSetProfile profile ) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try ( DataOutputStream out = new DataOutputStream( bytes ) )
+        {
+            profile.write( out );
+        }
+        return bytes.toByteArray();
+    }
+}
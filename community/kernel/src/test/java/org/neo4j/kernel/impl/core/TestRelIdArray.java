@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.Test;
@@ -179,6 +180,101 @@ public class TestRelIdArray
         arrayTo.add( 2, DirectionWrapper.INCOMING );
     }
 
+    @Test
+    public void shouldKeepOrderOfIdsSpanningManyChunks() throws Exception
+    {
+        // GIVEN
+        RelIdArray array = new RelIdArray( 0 );
+        List<Long> expected = new ArrayList<>();
+        Random random = new Random( 1234 );
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            long id = i % 100 == 0 ? Math.abs( random.nextLong() ) : random.nextInt( 1_000_000 );
+            array.add( id, OUTGOING );
+            expected.add( id );
+        }
+
+        // WHEN
+        List<Long> ids = new ArrayList<>();
+        for ( RelIdIterator iterator = array.exactIterator( OUTGOING ); iterator.hasNext(); )
+        {
+            ids.add( iterator.next() );
+        }
+
+        // THEN
+        assertEquals( expected, ids );
+        assertEquals( expected.size(), array.exactLength( OUTGOING ) );
+    }
+
+    @Test
+    public void shouldSeeIdsAppendedIntoNewChunksAfterDepletingIterator() throws Exception
+    {
+        // GIVEN
+        RelIdArray ids = new RelIdArray( 0 );
+        Set<Long> first = new HashSet<>();
+        for ( long id = 0; id < 1_000; id++ )
+        {
+            ids.add( id, OUTGOING );
+            first.add( id );
+        }
+        ids.shrink();
+        RelIdIterator iterator = ids.iterator( OUTGOING );
+        assertEquals( first, deplete( iterator ) );
+
+        // WHEN
+        RelIdArray more = new RelIdArray( 0 );
+        Set<Long> second = new HashSet<>();
+        for ( long id = 1L << 40; id < (1L << 40) + 1_000; id++ )
+        {
+            more.add( id, OUTGOING );
+            second.add( id );
+        }
+        iterator.updateSource( ids.addAll( more ), OUTGOING );
+
+        // THEN
+        assertEquals( second, deplete( iterator ) );
+    }
+
+    @Test
+    public void shouldContinueIteratingAfterIdsAheadOfIteratorAreRemoved() throws Exception
+    {
+        // GIVEN
+        RelIdArray ids = new RelIdArray( 0 );
+        for ( long id = 1; id <= 5; id++ )
+        {
+            ids.add( id, OUTGOING );
+        }
+        RelIdIterator iterator = ids.iterator( OUTGOING );
+        assertEquals( 1L, iterator.next() );
+        assertEquals( 2L, iterator.next() );
+
+        // WHEN
+        PrimitiveLongSet remove = Primitive.longSet();
+        remove.add( 4L );
+        iterator.updateSource( RelIdArray.from( ids, null, remove ), OUTGOING );
+
+        // THEN
+        assertEquals( asSet( 3L, 5L ), deplete( iterator ) );
+    }
+
+    @Test
+    public void shouldStoreIdsLoadedFromChainInAboutOneByteEach() throws Exception
+    {
+        // GIVEN
+        RelIdArray ids = new RelIdArray( 0 );
+        int count = 100_000;
+
+        // WHEN
+        for ( long id = 5_000_000_000L + count; id > 5_000_000_000L; id-- )
+        {
+            ids.add( id, INCOMING );
+        }
+        ids.shrink();
+
+        // THEN
+        assertTrue( ids.sizeOfObjectInBytesIncludingOverhead() < count * 2 );
+    }
+
     private Set<Long> deplete( RelIdIterator iterator )
     {
         HashSet<Long> set = new HashSet<>();
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.xa.command;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.index.IndexUpdates;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.nioneo.store.DynamicRecord;
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.NodeStore;
+import org.neo4j.kernel.impl.nioneo.store.PropertyStore;
+import org.neo4j.kernel.impl.nioneo.xa.PropertyLoader;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+
+public class NeoBatchIndexApplierTest
+{
+    private final IndexingService indexingService = mock( IndexingService.class );
+    private final LabelScanStore labelScanStore = mock( LabelScanStore.class );
+    private final NodeStore nodeStore = mock( NodeStore.class );
+    private final PropertyStore propertyStore = mock( PropertyStore.class );
+    private final CacheAccessBackDoor cacheAccess = mock( CacheAccessBackDoor.class );
+    private final PropertyLoader propertyLoader = mock( PropertyLoader.class );
+
+    private final NeoBatchIndexApplier applier = new NeoBatchIndexApplier( indexingService, labelScanStore,
+            nodeStore, propertyStore, cacheAccess, propertyLoader );
+
+    @Test
+    public void shouldApplyChangesOfAllTransactionsOnlyWhenFlushed() throws IOException
+    {
+        // GIVEN
+        when( labelScanStore.newWriter() ).thenReturn( mock( LabelScanWriter.class ) );
+
+        // WHEN
+        applier.visitNodeCommand( labelChange( 11 ) );
+        applier.close();
+        applier.visitNodeCommand( labelChange( 12 ) );
+        applier.close();
+
+        // THEN
+        verifyZeroInteractions( indexingService, cacheAccess, labelScanStore );
+
+        // and WHEN
+        applier.flush();
+
+        // THEN
+        ArgumentCaptor<IndexUpdates> updates = ArgumentCaptor.forClass( IndexUpdates.class );
+        verify( indexingService, times( 1 ) ).updateIndexes( updates.capture() );
+        assertEquals( asSet( 11L, 12L ), updates.getValue().changedNodeIds() );
+        verify( labelScanStore, times( 1 ) ).newWriter();
+    }
+
+    @Test
+    public void shouldMergeLabelChangesOfTheSameNode() throws IOException
+    {
+        // GIVEN
+        when( labelScanStore.newWriter() ).thenReturn( mock( LabelScanWriter.class ) );
+
+        // WHEN
+        applier.visitNodeCommand( labelChange( 11 ) );
+        applier.close();
+        applier.visitNodeCommand( labelChange( 11 ) );
+        applier.close();
+        applier.flush();
+
+        // THEN
+        verify( cacheAccess, times( 1 ) ).applyLabelUpdates( eq( Arrays.asList(
+                NodeLabelUpdate.labelChanges( 11, new long[]{}, new long[]{} ) ) ) );
+    }
+
+    @Test
+    public void shouldNotApplyAnythingTwice() throws IOException
+    {
+        // GIVEN
+        when( labelScanStore.newWriter() ).thenReturn( mock( LabelScanWriter.class ) );
+        applier.visitNodeCommand( labelChange( 11 ) );
+        applier.close();
+        applier.flush();
+
+        // WHEN
+        applier.flush();
+
+        // THEN
+        verify( indexingService, times( 1 ) ).updateIndexes( any( IndexUpdates.class ) );
+        verify( cacheAccess, times( 1 ) ).applyLabelUpdates( anyCollectionOf( NodeLabelUpdate.class ) );
+    }
+
+    private Command.NodeCommand labelChange( long nodeId )
+    {
+        NodeRecord before = new NodeRecord( nodeId );
+        before.setLabelField( 17, Collections.<DynamicRecord>emptySet() );
+        NodeRecord after = new NodeRecord( nodeId );
+        after.setLabelField( 18, Collections.<DynamicRecord>emptySet() );
+        return new Command.NodeCommand().init( before, after );
+    }
+}
@@ -37,6 +37,7 @@ import static org.neo4j.server.database.InjectableProvider.providerForSingleton;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -44,6 +45,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.servlet.Filter;
 
 import org.apache.commons.configuration.Configuration;
@@ -72,6 +75,7 @@ import org.neo4j.server.database.GraphDatabaseServiceProvider;
 import org.neo4j.server.database.InjectableProvider;
 import org.neo4j.server.database.RrdDbWrapper;
 import org.neo4j.server.guard.GuardingRequestFilter;
+import org.neo4j.server.guard.QueryScheduler;
 import org.neo4j.server.modules.RESTApiModule;
 import org.neo4j.server.modules.ServerModule;
 import org.neo4j.server.plugins.PluginInvocatorProvider;
@@ -132,6 +136,8 @@ public abstract class AbstractNeoServer implements NeoServer
 
     private TransactionFacade transactionFacade;
     private TransactionHandleRegistry transactionRegistry;
+    private QueryScheduler queryScheduler;
+    private ObjectName querySchedulerName;
 
     protected abstract PreFlightTasks createPreflightTasks();
 
@@ -193,6 +199,7 @@ public abstract class AbstractNeoServer implements NeoServer
                 rrdDbWrapper = new RrdFactory( configurator.configuration(), logging )
                         .createRrdDbAndSampler( database, rrdDbScheduler );
 
+                queryScheduler = createQueryScheduler();
                 transactionFacade = createTransactionalActions();
 
                 cypherExecutor = new CypherExecutor( database, logging.getMessagesLog( CypherExecutor.class ) );
@@ -301,10 +308,71 @@ public abstract class AbstractNeoServer implements NeoServer
                 new TransitionalPeriodTransactionMessContainer( database.getGraph() ),
                 new ServerExecutionEngine( database.getGraph(), logging.getMessagesLog( ExecutionEngine.class ) ),
                 transactionRegistry,
-                baseUri(), logging.getMessagesLog( TransactionFacade.class )
+                baseUri(), logging.getMessagesLog( TransactionFacade.class ),
+                queryScheduler,
+                configurator.configuration().getInt( Configurator.TRANSACTION_BINARY_MAX_VALUE_LENGTH,
+                        Configurator.DEFAULT_TRANSACTION_BINARY_MAX_VALUE_LENGTH )
         );
     }
 
+    /**
+     * Limits the number of concurrently executing read and write statements, and of all statements together, with a
+     * limit of 0 meaning unlimited.
+     */
+    private QueryScheduler createQueryScheduler()
+    {
+        Configuration configuration = configurator.configuration();
+        int processors = Runtime.getRuntime().availableProcessors();
+        int maxReads = configuration.getInt( Configurator.QUERY_SCHEDULER_MAX_READS_PROPERTY_KEY, processors * 2 );
+        int maxWrites = configuration.getInt( Configurator.QUERY_SCHEDULER_MAX_WRITES_PROPERTY_KEY, processors );
+        int maxQueued = configuration.getInt( Configurator.QUERY_SCHEDULER_MAX_QUEUED_PROPERTY_KEY,
+                Configurator.DEFAULT_QUERY_SCHEDULER_MAX_QUEUED );
+        long queueTimeout = SECONDS.toMillis( configuration.getInt(
+                Configurator.QUERY_SCHEDULER_QUEUE_TIMEOUT_PROPERTY_KEY,
+                Configurator.DEFAULT_QUERY_SCHEDULER_QUEUE_TIMEOUT ) );
+        int maxQueries = configuration.getInt( Configurator.QUERY_SCHEDULER_MAX_CONCURRENT_QUERIES_PROPERTY_KEY, 0 );
+
+        QueryScheduler scheduler = new QueryScheduler(
+                maxReads > 0 ? maxReads : Integer.MAX_VALUE,
+                maxWrites > 0 ? maxWrites : Integer.MAX_VALUE,
+                maxQueued > 0 ? maxQueued : Integer.MAX_VALUE,
+                queueTimeout,
+                Math.max( maxQueries, 0 ) );
+        registerQueryScheduler( scheduler );
+        return scheduler;
+    }
+
+    private void registerQueryScheduler( QueryScheduler scheduler )
+    {
+        try
+        {
+            ObjectName name = new ObjectName(
+                    "org.neo4j.server:name=Query Scheduler,port=" + getWebServerPort() );
+            ManagementFactory.getPlatformMBeanServer().registerMBean( scheduler, name );
+            querySchedulerName = name;
+        }
+        catch ( JMException e )
+        {
+            log.warn( "Unable to register the query scheduler with JMX: " + e.getMessage() );
+        }
+    }
+
+    private void unregisterQueryScheduler()
+    {
+        if ( querySchedulerName != null )
+        {
+            try
+            {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean( querySchedulerName );
+            }
+            catch ( JMException e )
+            {
+                log.warn( "Unable to unregister the query scheduler from JMX: " + e.getMessage() );
+            }
+            querySchedulerName = null;
+        }
+    }
+
     /**
      * We are going to ensure the minimum timeout is 2 seconds. The timeout value is communicated to the user in
      * seconds rounded down, meaning if a user set a 1 second timeout, he would be told there was less than 1 second
@@ -585,6 +653,13 @@ public abstract class AbstractNeoServer implements NeoServer
                     stopModules();
                 }
             },
+            new Runnable() {
+                @Override
+                public void run()
+                {
+                    unregisterQueryScheduler();
+                }
+            },
             new Runnable() {
                 @Override
                 public void run()
@@ -713,6 +788,7 @@ public abstract class AbstractNeoServer implements NeoServer
         singletons.add( new OutputFormatProvider( repository ) );
         singletons.add( new CypherExecutorProvider( cypherExecutor ) );
         singletons.add( providerForSingleton( transactionFacade, TransactionFacade.class ) );
+        singletons.add( providerForSingleton( queryScheduler, QueryScheduler.class ) );
         singletons.add( new TransactionFilter( database ) );
         singletons.add( new LoggingProvider( logging ) );
 
@@ -57,6 +57,19 @@ public interface Configurator
     String WEBSERVER_MAX_THREADS_PROPERTY_KEY = "org.neo4j.server.webserver.maxthreads";
     String WEBSERVER_LIMIT_EXECUTION_TIME_PROPERTY_KEY = "org.neo4j.server.webserver.limit.executiontime";
     String WEBSERVER_ENABLE_STATISTICS_COLLECTION = "org.neo4j.server.webserver.statistics";
+    String WEBSERVER_TRANSACTION_MAX_CONCURRENT_REQUESTS_PROPERTY_KEY =
+            "org.neo4j.server.webserver.transaction.max_concurrent_requests";
+    String WEBSERVER_TRANSACTION_QUEUE_SIZE_PROPERTY_KEY = "org.neo4j.server.webserver.transaction.queue_size";
+    int DEFAULT_WEBSERVER_TRANSACTION_QUEUE_SIZE = 1000;
+
+    String QUERY_SCHEDULER_MAX_READS_PROPERTY_KEY = "org.neo4j.server.query_scheduler.max_concurrent_reads";
+    String QUERY_SCHEDULER_MAX_WRITES_PROPERTY_KEY = "org.neo4j.server.query_scheduler.max_concurrent_writes";
+    String QUERY_SCHEDULER_MAX_QUEUED_PROPERTY_KEY = "org.neo4j.server.query_scheduler.max_queued";
+    int DEFAULT_QUERY_SCHEDULER_MAX_QUEUED = 1000;
+    String QUERY_SCHEDULER_QUEUE_TIMEOUT_PROPERTY_KEY = "org.neo4j.server.query_scheduler.queue_timeout";
+    int DEFAULT_QUERY_SCHEDULER_QUEUE_TIMEOUT = 30/*seconds*/;
+    String QUERY_SCHEDULER_MAX_CONCURRENT_QUERIES_PROPERTY_KEY =
+            "org.neo4j.server.query_scheduler.max_concurrent_queries";
 
     String REST_API_PATH_PROPERTY_KEY = "org.neo4j.server.webadmin.data.uri";
     String REST_API_PACKAGE = "org.neo4j.server.rest.web";
@@ -110,6 +123,9 @@ public interface Configurator
     String TRANSACTION_TIMEOUT = "org.neo4j.server.transaction.timeout";
     int DEFAULT_TRANSACTION_TIMEOUT = 60/*seconds*/;
 
+    String TRANSACTION_BINARY_MAX_VALUE_LENGTH = "org.neo4j.server.transaction.binary.max_value_length";
+    int DEFAULT_TRANSACTION_BINARY_MAX_VALUE_LENGTH = 16 * 1024 * 1024;
+
     Configuration configuration();
 
     Map<String, String> getDatabaseTuningProperties();
@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.guard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Admission control for Cypher statements executed by the server.
+ * <p/>
+ * Statements are grouped into classes by the endpoint they arrive on and by whether their execution plan reads or
+ * writes. Each class
+ * has a bounded number of execution slots; statements that find no free slot wait, in arrival order, for at most the
+ * queue timeout. On top of that the number of statements executing at the same time, whatever their class, can be
+ * limited. This limit is a plain count: it does not measure or estimate the memory a statement uses.
+ * <p/>
+ * A {@link Ticket} is handed out for every admitted statement, and must be closed once the statement and its result
+ * have been fully processed.
+ */
+public class QueryScheduler implements QuerySchedulerMBean
+{
+    public enum AccessMode
+    {
+        READ, WRITE
+    }
+
+    private final int maxConcurrentReads;
+    private final int maxConcurrentWrites;
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+    private final int maxConcurrentQueries;
+    private final Semaphore queries;
+    private final ConcurrentMap<String, QueryClass> classes = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxConcurrentQueries number of statements of all classes together that may execute at the same time, or
+     * 0 for no such limit.
+     */
+    public QueryScheduler( int maxConcurrentReads, int maxConcurrentWrites, int maxQueued, long queueTimeoutMillis,
+                           int maxConcurrentQueries )
+    {
+        this.maxConcurrentReads = maxConcurrentReads;
+        this.maxConcurrentWrites = maxConcurrentWrites;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.maxConcurrentQueries = maxConcurrentQueries;
+        this.queries = maxConcurrentQueries > 0 ? new Semaphore( maxConcurrentQueries, true ) : null;
+    }
+
+    public static QueryScheduler unlimited()
+    {
+        return new QueryScheduler( Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 0, 0 );
+    }
+
+    /**
+     * Waits until a statement arriving on the given endpoint may execute.
+     *
+     * @param mode whether the statement writes, as told by its compiled execution plan.
+     *
+     * @throws QueryAdmissionException if the statement was not admitted within the queue timeout, or if too many
+     * statements of its class are already waiting.
+     */
+    public Ticket admit( String endpoint, AccessMode mode ) throws QueryAdmissionException
+    {
+        QueryClass queryClass = classFor( endpoint, mode );
+
+        if ( queryClass.queued.incrementAndGet() > maxQueued )
+        {
+            queryClass.queued.decrementAndGet();
+            throw queryClass.reject( "there are already " + maxQueued + " statements waiting" );
+        }
+        try
+        {
+            long start = System.nanoTime();
+            if ( !queryClass.slots.tryAcquire( queueTimeoutMillis, MILLISECONDS ) )
+            {
+                throw queryClass.reject( "no execution slot became available within " + queueTimeoutMillis + "ms" );
+            }
+            if ( queries != null )
+            {
+                long remaining = queueTimeoutMillis - MILLISECONDS.convert( System.nanoTime() - start, NANOSECONDS );
+                if ( !queries.tryAcquire( Math.max( remaining, 0 ), MILLISECONDS ) )
+                {
+                    queryClass.slots.release();
+                    throw queryClass.reject( "there were already " + maxConcurrentQueries +
+                            " statements executing for " + queueTimeoutMillis + "ms" );
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw queryClass.reject( "interrupted while waiting for admission" );
+        }
+        finally
+        {
+            queryClass.queued.decrementAndGet();
+        }
+
+        queryClass.active.incrementAndGet();
+        queryClass.admitted.incrementAndGet();
+        return new Ticket( queryClass );
+    }
+
+    private QueryClass classFor( String endpoint, AccessMode mode )
+    {
+        String name = endpoint + "/" + mode;
+        QueryClass queryClass = classes.get( name );
+        if ( queryClass == null )
+        {
+            int slots = mode == AccessMode.READ ? maxConcurrentReads : maxConcurrentWrites;
+            QueryClass candidate = new QueryClass( name, mode, slots );
+            queryClass = classes.putIfAbsent( name, candidate );
+            if ( queryClass == null )
+            {
+                queryClass = candidate;
+            }
+        }
+        return queryClass;
+    }
+
+    public class Ticket implements AutoCloseable
+    {
+        private final QueryClass queryClass;
+        private boolean closed;
+
+        private Ticket( QueryClass queryClass )
+        {
+            this.queryClass = queryClass;
+        }
+
+        @Override
+        public void close()
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+            if ( queries != null )
+            {
+                queries.release();
+            }
+            queryClass.active.decrementAndGet();
+            queryClass.slots.release();
+        }
+    }
+
+    private static class QueryClass
+    {
+        private final String name;
+        private final AccessMode mode;
+        private final Semaphore slots;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        QueryClass( String name, AccessMode mode, int slots )
+        {
+            this.name = name;
+            this.mode = mode;
+            this.slots = new Semaphore( slots, true );
+        }
+
+        QueryAdmissionException reject( String reason )
+        {
+            rejected.incrementAndGet();
+            return new QueryAdmissionException( "The " + name + " statement was not scheduled for execution, " +
+                    "because " + reason + "." );
+        }
+    }
+
+    @Override
+    public int getActiveReadQueries()
+    {
+        return sum( AccessMode.READ, true );
+    }
+
+    @Override
+    public int getActiveWriteQueries()
+    {
+        return sum( AccessMode.WRITE, true );
+    }
+
+    @Override
+    public int getQueuedReadQueries()
+    {
+        return sum( AccessMode.READ, false );
+    }
+
+    @Override
+    public int getQueuedWriteQueries()
+    {
+        return sum( AccessMode.WRITE, false );
+    }
+
+    private int sum( AccessMode mode, boolean active )
+    {
+        int sum = 0;
+        for ( QueryClass queryClass : classes.values() )
+        {
+            if ( queryClass.mode == mode )
+            {
+                sum += active ? queryClass.active.get() : queryClass.queued.get();
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public long getAdmittedQueries()
+    {
+        long sum = 0;
+        for ( QueryClass queryClass : classes.values() )
+        {
+            sum += queryClass.admitted.get();
+        }
+        return sum;
+    }
+
+    @Override
+    public long getRejectedQueries()
+    {
+        long sum = 0;
+        for ( QueryClass queryClass : classes.values() )
+        {
+            sum += queryClass.rejected.get();
+        }
+        return sum;
+    }
+
+    @Override
+    public int getMaxConcurrentQueries()
+    {
+        return maxConcurrentQueries;
+    }
+
+    @Override
+    public String[] getQueryClasses()
+    {
+        List<String> lines = new ArrayList<>();
+        for ( Map.Entry<String, QueryClass> entry : classes.entrySet() )
+        {
+            QueryClass queryClass = entry.getValue();
+            lines.add( entry.getKey() + ": " + queryClass.active.get() + " active, " + queryClass.queued.get() +
+                    " queued, " + queryClass.admitted.get() + " admitted, " + queryClass.rejected.get() +
+                    " rejected" );
+        }
+        return lines.toArray( new String[lines.size()] );
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.guard;
+
+/**
+ * Management interface of the {@link QueryScheduler}, exposing how many statements are currently executing and
+ * waiting for admission.
+ */
+public interface QuerySchedulerMBean
+{
+    int getActiveReadQueries();
+
+    int getActiveWriteQueries();
+
+    int getQueuedReadQueries();
+
+    int getQueuedWriteQueries();
+
+    long getAdmittedQueries();
+
+    long getRejectedQueries();
+
+    /**
+     * @return the number of statements of all classes together that may execute at the same time, or 0 if unlimited.
+     */
+    int getMaxConcurrentQueries();
+
+    /**
+     * @return one line per query class, e.g. "transaction/READ: 2 active, 0 queued, 140 admitted, 0 rejected".
+     */
+    String[] getQueryClasses();
+}
@@ -39,18 +39,25 @@ import org.neo4j.server.rest.web.ExtensionService;
 import org.neo4j.server.rest.web.ResourcesService;
 import org.neo4j.server.rest.web.RestfulGraphDatabase;
 import org.neo4j.server.rest.web.TransactionalService;
+import org.neo4j.server.web.AsyncRequestFilter;
 import org.neo4j.server.web.WebServer;
 
 import static org.neo4j.server.JAXRSHelper.listFrom;
+import static org.neo4j.server.configuration.Configurator.DEFAULT_WEBSERVER_TRANSACTION_QUEUE_SIZE;
 import static org.neo4j.server.configuration.Configurator.WEBSERVER_LIMIT_EXECUTION_TIME_PROPERTY_KEY;
+import static org.neo4j.server.configuration.Configurator.WEBSERVER_TRANSACTION_MAX_CONCURRENT_REQUESTS_PROPERTY_KEY;
+import static org.neo4j.server.configuration.Configurator.WEBSERVER_TRANSACTION_QUEUE_SIZE_PROPERTY_KEY;
 
 public class RESTApiModule implements ServerModule
 {
+    private static final String TRANSACTION_PATH_SPEC = "/transaction/*";
+
     private PluginManager plugins;
     private final Configuration config;
     private final WebServer webServer;
     private final Database database;
     private GuardingRequestFilter requestTimeLimitFilter;
+    private AsyncRequestFilter transactionExecutionFilter;
     private final ConsoleLogger log;
     private final Logging logging;
 
@@ -73,6 +80,8 @@ public class RESTApiModule implements ServerModule
             webServer.addJAXRSClasses( getClassNames(), restApiUri.toString(), null );
             loadPlugins();
 
+            // Must come before the time limit, so the guard is not running while a request waits for its turn
+            setupTransactionExecution();
             setupRequestTimeLimit();
 
             log.log( "Mounted REST API at [%s]", restApiUri.toString() );
@@ -103,6 +112,7 @@ public class RESTApiModule implements ServerModule
             webServer.removeJAXRSClasses( getClassNames(), restApiUri().toString() );
 
         tearDownRequestTimeLimit();
+        tearDownTransactionExecution();
         unloadPlugins();
         }
         catch ( URISyntaxException e )
@@ -118,6 +128,29 @@ public class RESTApiModule implements ServerModule
         }
     }
 
+    private void setupTransactionExecution()
+    {
+        int maxConcurrentRequests = config.getInt( WEBSERVER_TRANSACTION_MAX_CONCURRENT_REQUESTS_PROPERTY_KEY, 0 );
+        if ( maxConcurrentRequests > 0 )
+        {
+            transactionExecutionFilter = new AsyncRequestFilter( maxConcurrentRequests,
+                    config.getInt( WEBSERVER_TRANSACTION_QUEUE_SIZE_PROPERTY_KEY,
+                            DEFAULT_WEBSERVER_TRANSACTION_QUEUE_SIZE ),
+                    logging.getMessagesLog( AsyncRequestFilter.class ) );
+            webServer.addFilter( transactionExecutionFilter, TRANSACTION_PATH_SPEC );
+        }
+    }
+
+    private void tearDownTransactionExecution()
+    {
+        if ( transactionExecutionFilter != null )
+        {
+            webServer.removeFilter( transactionExecutionFilter, TRANSACTION_PATH_SPEC );
+            transactionExecutionFilter.stop();
+            transactionExecutionFilter = null;
+        }
+    }
+
     private void setupRequestTimeLimit() {
         Integer limit = config.getInteger( WEBSERVER_LIMIT_EXECUTION_TIME_PROPERTY_KEY, null );
         if ( limit != null )
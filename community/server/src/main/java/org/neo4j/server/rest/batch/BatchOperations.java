@@ -145,7 +145,8 @@ public abstract class BatchOperations
         {
             if (token == JsonToken.START_OBJECT)
             {
-                String jobMethod="", jobPath="", jobBody="";
+                String jobMethod="", jobPath="";
+                JsonNode jobBody = null;
                 Integer jobId = null;
                 while ((token = jp.nextToken()) != JsonToken.END_OBJECT && token != null )
                 {
@@ -163,7 +164,7 @@ public abstract class BatchOperations
                         jobId = jp.getIntValue();
                         break;
                     case BODY_KEY:
-                        jobBody = readBody( jp );
+                        jobBody = mapper.readTree( jp );
                         break;
                     }
                 }
@@ -174,9 +175,8 @@ public abstract class BatchOperations
         }
     }
 
-    private String readBody( JsonParser jp ) throws IOException
+    private String writeBody( JsonNode node ) throws IOException
     {
-        JsonNode node = mapper.readTree( jp );
         StringWriter out = new StringWriter();
         JsonGenerator gen = jsonFactory
                 .createJsonGenerator(out);
@@ -186,6 +186,15 @@ public abstract class BatchOperations
         return out.toString();
     }
 
+    /**
+     * Performs a job with its body as read from the batch. Subclasses may execute jobs from the parsed body, rather
+     * than from its JSON text.
+     */
+    protected void performRequest( UriInfo uriInfo, String method, String path, JsonNode body, Integer id, HttpHeaders httpHeaders, Map<Integer, String> locations ) throws IOException, ServletException
+    {
+        performRequest( uriInfo, method, path, body == null ? "" : writeBody( body ), id, httpHeaders, locations );
+    }
+
     protected void performRequest( UriInfo uriInfo, String method, String path, String body, Integer id, HttpHeaders httpHeaders, Map<Integer, String> locations ) throws IOException, ServletException
     {
         path = replaceLocationPlaceholders(path, locations);
@@ -190,6 +190,20 @@ public class OutputFormat
         representation.serialize( format, baseUri, null );
     }
 
+    /**
+     * Serializes the representation to another format, with URIs and extensions as this output format would.
+     */
+    public void write( Representation representation, RepresentationFormat format )
+    {
+        representation.serialize( format, baseUri, extensions );
+    }
+
+    public <REPR extends Representation & EntityRepresentation> URI location( REPR representation )
+            throws BadInputException
+    {
+        return uri( representation );
+    }
+
     private byte[] toBytes( String entity, boolean mustFail )
     {
         byte[] entityAsBytes;
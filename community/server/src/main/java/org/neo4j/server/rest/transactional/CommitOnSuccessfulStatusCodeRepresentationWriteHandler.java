@@ -23,12 +23,14 @@ import com.sun.jersey.api.core.HttpContext;
 import com.sun.jersey.api.core.HttpResponseContext;
 
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.server.guard.QueryScheduler;
 import org.neo4j.server.rest.repr.RepresentationWriteHandler;
 
 public class CommitOnSuccessfulStatusCodeRepresentationWriteHandler implements RepresentationWriteHandler
 {
     private final HttpContext httpContext;
     private Transaction transaction;
+    private QueryScheduler.Ticket queryTicket;
 
     public CommitOnSuccessfulStatusCodeRepresentationWriteHandler( HttpContext httpContext, Transaction transaction )
     {
@@ -57,7 +59,17 @@ public class CommitOnSuccessfulStatusCodeRepresentationWriteHandler implements R
     @Override
     public void onRepresentationFinal()
     {
-        closeTransaction();
+        try
+        {
+            closeTransaction();
+        }
+        finally
+        {
+            if ( queryTicket != null )
+            {
+                queryTicket.close();
+            }
+        }
     }
 
 
@@ -70,4 +82,9 @@ public class CommitOnSuccessfulStatusCodeRepresentationWriteHandler implements R
     {
         this.transaction = transaction;
     }
+
+    public void setQueryTicket( QueryScheduler.Ticket queryTicket )
+    {
+        this.queryTicket = queryTicket;
+    }
 }
@@ -21,12 +21,12 @@ package org.neo4j.server.rest.transactional;
 
 public class DeserializationException extends Exception
 {
-    DeserializationException( String message )
+    public DeserializationException( String message )
     {
         super( message );
     }
 
-    DeserializationException( String message, Throwable cause )
+    public DeserializationException( String message, Throwable cause )
     {
         super( message + ": " + cause.getMessage(), cause );
     }
@@ -76,6 +76,15 @@ public class StatementDeserializer extends PrefetchingIterator<Statement>
         }
     }
 
+    /**
+     * For deserializers of other formats, which read their statements themselves.
+     */
+    protected StatementDeserializer()
+    {
+        this.input = null;
+        this.state = State.FINISHED;
+    }
+
     public Iterator<Neo4jError> errors()
     {
         return errors == null ? NO_ERRORS : errors.iterator();
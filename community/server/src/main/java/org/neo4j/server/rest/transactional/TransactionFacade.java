@@ -21,6 +21,9 @@ package org.neo4j.server.rest.transactional;
 
 import org.neo4j.cypher.javacompat.internal.ServerExecutionEngine;
 import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.server.guard.QueryScheduler;
+import org.neo4j.server.rest.transactional.binary.BinaryExecutionResultSerializer;
+import org.neo4j.server.rest.transactional.binary.BinaryStatementDeserializer;
 import org.neo4j.server.rest.transactional.error.TransactionLifecycleException;
 import org.neo4j.server.rest.web.TransactionUriScheme;
 
@@ -56,14 +59,31 @@ public class TransactionFacade
     private final TransactionRegistry registry;
     private final StringLogger log;
     private final URI baseUri;
+    private final QueryScheduler scheduler;
+    private final int binaryMaxValueLength;
 
     public TransactionFacade( TransitionalPeriodTransactionMessContainer kernel, ServerExecutionEngine engine,
                               TransactionRegistry registry, URI baseUri, StringLogger log )
+    {
+        this( kernel, engine, registry, baseUri, log, QueryScheduler.unlimited() );
+    }
+
+    public TransactionFacade( TransitionalPeriodTransactionMessContainer kernel, ServerExecutionEngine engine,
+                              TransactionRegistry registry, URI baseUri, StringLogger log, QueryScheduler scheduler )
+    {
+        this( kernel, engine, registry, baseUri, log, scheduler, BinaryStatementDeserializer.DEFAULT_MAX_VALUE_LENGTH );
+    }
+
+    public TransactionFacade( TransitionalPeriodTransactionMessContainer kernel, ServerExecutionEngine engine,
+                              TransactionRegistry registry, URI baseUri, StringLogger log, QueryScheduler scheduler,
+                              int binaryMaxValueLength )
     {
         this.kernel = kernel;
         this.engine = engine;
         this.registry = registry;
         this.log = log;
+        this.scheduler = scheduler;
+        this.binaryMaxValueLength = binaryMaxValueLength;
         try {
           this.baseUri = new URI(baseUri+"db/data");
         } catch (URISyntaxException e) {
@@ -73,7 +93,7 @@ public class TransactionFacade
 
     public TransactionHandle newTransactionHandle( TransactionUriScheme uriScheme ) throws TransactionLifecycleException
     {
-        return new TransactionHandle( kernel, engine, registry, uriScheme, log );
+        return new TransactionHandle( kernel, engine, registry, uriScheme, log, scheduler );
     }
 
     public TransactionHandle findTransactionHandle( long txId ) throws TransactionLifecycleException
@@ -95,4 +115,14 @@ public class TransactionFacade
     {
         return new ExecutionResultSerializer( output, baseUri, log );
     }
+
+    public StatementDeserializer binaryDeserializer( InputStream input )
+    {
+        return new BinaryStatementDeserializer( input, binaryMaxValueLength );
+    }
+
+    public ExecutionResultSerializer binarySerializer( OutputStream output )
+    {
+        return new BinaryExecutionResultSerializer( output, baseUri, log );
+    }
 }
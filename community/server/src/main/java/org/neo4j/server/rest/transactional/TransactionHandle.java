@@ -33,6 +33,8 @@ import org.neo4j.kernel.DeadlockDetectedException;
 import org.neo4j.kernel.api.exceptions.Status;
 import org.neo4j.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.server.guard.QueryAdmissionException;
+import org.neo4j.server.guard.QueryScheduler;
 import org.neo4j.server.rest.transactional.error.InternalBeginTransactionError;
 import org.neo4j.server.rest.transactional.error.Neo4jError;
 import org.neo4j.server.rest.web.TransactionUriScheme;
@@ -53,25 +55,39 @@ import org.neo4j.server.rest.web.TransactionUriScheme;
  *
  * All of the public methods on this class are "single-shot"; once you have called one method, the handle returns itself
  * to the registry. If you want to use it again, you'll need to acquire it back from the registry to ensure exclusive use.
+ *
+ * Every statement is admitted by the {@link QueryScheduler} before it executes, and holds on to its admission until
+ * its result has been written out.
  */
 public class TransactionHandle implements TransactionTerminationHandle
 {
+    static final String ENDPOINT = "transaction";
+
     private final TransitionalPeriodTransactionMessContainer txManagerFacade;
     private final ServerExecutionEngine engine;
     private final TransactionRegistry registry;
     private final TransactionUriScheme uriScheme;
     private final StringLogger log;
+    private final QueryScheduler scheduler;
     private final long id;
     private TransitionalTxManagementKernelTransaction context;
 
     public TransactionHandle( TransitionalPeriodTransactionMessContainer txManagerFacade, ServerExecutionEngine engine,
                               TransactionRegistry registry, TransactionUriScheme uriScheme, StringLogger log )
+    {
+        this( txManagerFacade, engine, registry, uriScheme, log, QueryScheduler.unlimited() );
+    }
+
+    public TransactionHandle( TransitionalPeriodTransactionMessContainer txManagerFacade, ServerExecutionEngine engine,
+                              TransactionRegistry registry, TransactionUriScheme uriScheme, StringLogger log,
+                              QueryScheduler scheduler )
     {
         this.txManagerFacade = txManagerFacade;
         this.engine = engine;
         this.registry = registry;
         this.uriScheme = uriScheme;
         this.log = log;
+        this.scheduler = scheduler;
         this.id = registry.begin( this );
     }
 
@@ -282,11 +298,16 @@ public class TransactionHandle implements TransactionTerminationHandle
             {
                 Statement statement = statements.next();
                 ExecutionResult result;
-                try
+                try ( QueryScheduler.Ticket ignored = scheduler.admit( ENDPOINT, accessModeOf( statement ) ) )
                 {
                     result = engine.execute( statement.statement(), statement.parameters() );
                     output.statementResult(result, statement.includeStats(), statement.resultDataContents());
                 }
+                catch ( QueryAdmissionException e )
+                {
+                    errors.add( new Neo4jError( Status.Request.SchedulingTimeout, e ) );
+                    break;
+                }
                 catch ( CypherException e )
                 {
                     errors.add( new Neo4jError( e.status(), e ) );
@@ -335,11 +356,18 @@ public class TransactionHandle implements TransactionTerminationHandle
                     throw new InvalidSemanticsException("Cannot execute another statement after executing PERIODIC COMMIT statement in the same transaction");
                 }
 
-                result = engine.execute( statement.statement(), statement.parameters() );
-                ensureActiveTransaction();
-                output.statementResult( result, statement.includeStats(), statement.resultDataContents() );
+                try ( QueryScheduler.Ticket ignored = scheduler.admit( ENDPOINT, accessModeOf( statement ) ) )
+                {
+                    result = engine.execute( statement.statement(), statement.parameters() );
+                    ensureActiveTransaction();
+                    output.statementResult( result, statement.includeStats(), statement.resultDataContents() );
+                }
                 closeContextAndCollectErrors(errors);
             }
+            catch ( QueryAdmissionException e )
+            {
+                errors.add( new Neo4jError( Status.Request.SchedulingTimeout, e ) );
+            }
             catch ( CypherException e )
             {
                 errors.add( new Neo4jError( e.status(), e ) );
@@ -367,4 +395,11 @@ public class TransactionHandle implements TransactionTerminationHandle
         {
             errors.add( new Neo4jError( Status.General.UnknownFailure, e ) );
         }
-    }}
+    }
+
+    private QueryScheduler.AccessMode accessModeOf( Statement statement )
+    {
+        return engine.isUpdating( statement.statement() ) ? QueryScheduler.AccessMode.WRITE
+                                                           : QueryScheduler.AccessMode.READ;
+    }
+}
@@ -0,0 +1,574 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client for the transactional endpoint speaking the {@link BinaryProtocol binary protocol}.
+ * <p/>
+ * Statements and their parameters are streamed to the server, and rows are read from the response as they are
+ * consumed:
+ * <pre>
+ * BinaryCypherClient client = new BinaryCypherClient( URI.create( "http://localhost:7474/db/data/" ) );
+ * try ( BinaryCypherClient.Response response = client.execute( new BinaryCypherClient.Statement( "MATCH (n) RETURN n" ) ) )
+ * {
+ *     BinaryCypherClient.Response.Result result = response.nextResult();
+ *     while ( result.next() )
+ *     {
+ *         Object node = result.get( 0 );
+ *     }
+ * }
+ * </pre>
+ */
+public class BinaryCypherClient
+{
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+
+    private final URI transactionUri;
+
+    public BinaryCypherClient( URI dataUri )
+    {
+        this.transactionUri = dataUri.resolve( "transaction" );
+    }
+
+    /**
+     * Executes the statements in a new transaction, and commits it.
+     */
+    public Response execute( Statement... statements ) throws IOException
+    {
+        return post( URI.create( transactionUri + "/commit" ), statements );
+    }
+
+    /**
+     * Begins a transaction, executing the given statements in it.
+     */
+    public Transaction begin( Statement... statements ) throws IOException
+    {
+        return new Transaction( post( transactionUri, statements ) );
+    }
+
+    private static Response post( URI uri, Statement[] statements ) throws IOException
+    {
+        HttpURLConnection connection = open( uri, "POST" );
+        connection.setDoOutput( true );
+        connection.setChunkedStreamingMode( 0 );
+        try ( OutputStream body = connection.getOutputStream() )
+        {
+            ChunkedOutputStream chunks = new ChunkedOutputStream( body );
+            ValueWriter out = new ValueWriter( chunks );
+            for ( Statement statement : statements )
+            {
+                out.writeTag( BinaryProtocol.STATEMENT );
+                out.writeString( statement.statement );
+                out.write( statement.parameters );
+                out.writeBoolean( statement.includeStats );
+            }
+            out.writeTag( BinaryProtocol.END );
+            out.flush();
+            chunks.close();
+        }
+        return new Response( connection );
+    }
+
+    private static HttpURLConnection open( URI uri, String method ) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        connection.setRequestMethod( method );
+        connection.setConnectTimeout( CONNECT_TIMEOUT_MILLIS );
+        connection.setRequestProperty( "Content-Type", BinaryProtocol.MEDIA_TYPE_STRING );
+        connection.setRequestProperty( "Accept", BinaryProtocol.MEDIA_TYPE_STRING );
+        return connection;
+    }
+
+    public static class Statement
+    {
+        private final String statement;
+        private final Map<String, Object> parameters;
+        private final boolean includeStats;
+
+        public Statement( String statement )
+        {
+            this( statement, Collections.<String, Object>emptyMap(), false );
+        }
+
+        public Statement( String statement, Map<String, Object> parameters )
+        {
+            this( statement, parameters, false );
+        }
+
+        public Statement( String statement, Map<String, Object> parameters, boolean includeStats )
+        {
+            this.statement = statement;
+            this.parameters = parameters;
+            this.includeStats = includeStats;
+        }
+    }
+
+    /**
+     * An open transaction. Every operation reads the response of the previous one to its end first.
+     */
+    public static class Transaction
+    {
+        private final URI commitUri;
+        private final URI uri;
+        private Response last;
+
+        private Transaction( Response begin ) throws IOException
+        {
+            this.last = begin;
+            String commit = begin.commitUri();
+            if ( commit == null )
+            {
+                begin.close();
+                throw new IOException( "Failed to begin transaction: " + begin.errors() );
+            }
+            this.commitUri = URI.create( commit );
+            this.uri = URI.create( commit.substring( 0, commit.length() - "/commit".length() ) );
+        }
+
+        /**
+         * The response of the statements the transaction was begun with.
+         */
+        public Response response()
+        {
+            return last;
+        }
+
+        public Response execute( Statement... statements ) throws IOException
+        {
+            last.close();
+            return last = post( uri, statements );
+        }
+
+        public Response commit( Statement... statements ) throws IOException
+        {
+            last.close();
+            return last = post( commitUri, statements );
+        }
+
+        public Response rollback() throws IOException
+        {
+            last.close();
+            HttpURLConnection connection = open( uri, "DELETE" );
+            return last = new Response( connection );
+        }
+    }
+
+    /**
+     * The streamed response to a request. Results must be consumed in order; moving to the next result skips the
+     * remaining rows of the current one.
+     */
+    public static class Response implements AutoCloseable
+    {
+        private final InputStream body;
+        private final ValueReader in;
+        private final List<Error> errors = new ArrayList<>();
+        private String commitUri;
+        private Long transactionExpires;
+        private Result current;
+        private boolean resultPending;
+        private boolean ended;
+
+        private Response( HttpURLConnection connection ) throws IOException
+        {
+            int status = connection.getResponseCode();
+            if ( status >= 300 )
+            {
+                throw new IOException( "Request to " + connection.getURL() + " failed with status " + status + ": " +
+                        readFully( connection.getErrorStream() ) );
+            }
+            this.body = connection.getInputStream();
+            this.in = new ValueReader( new ChunkedInputStream( body ) );
+            advance();
+        }
+
+        public String commitUri()
+        {
+            return commitUri;
+        }
+
+        public boolean hasNextResult() throws IOException
+        {
+            if ( current != null )
+            {
+                current.skip();
+                current = null;
+                advance();
+            }
+            return resultPending;
+        }
+
+        public Result nextResult() throws IOException
+        {
+            if ( !hasNextResult() )
+            {
+                throw new IllegalStateException( "There are no more results" );
+            }
+            resultPending = false;
+            return current = new Result( in.readStrings() );
+        }
+
+        /**
+         * Reads the response to its end, and returns the errors reported by the server.
+         */
+        public List<Error> errors() throws IOException
+        {
+            while ( hasNextResult() )
+            {
+                nextResult();
+            }
+            return errors;
+        }
+
+        /**
+         * @return the time, in milliseconds, at which the transaction expires if left open, or null if the
+         * transaction is no longer open
+         */
+        public Long transactionExpires() throws IOException
+        {
+            errors();
+            return transactionExpires;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                errors();
+            }
+            finally
+            {
+                body.close();
+            }
+        }
+
+        // Reads records up to the next result, or the end of the response
+        private void advance() throws IOException
+        {
+            while ( !ended && !resultPending )
+            {
+                byte tag = in.readTag();
+                switch ( tag )
+                {
+                case BinaryProtocol.COMMIT_URI:
+                    commitUri = in.readString();
+                    break;
+                case BinaryProtocol.RESULT_START:
+                    resultPending = true;
+                    break;
+                case BinaryProtocol.ERRORS:
+                    int count = in.readInt();
+                    for ( int i = 0; i < count; i++ )
+                    {
+                        String code = in.readString();
+                        String message = in.readString();
+                        String stackTrace = in.readBoolean() ? in.readString() : null;
+                        errors.add( new Error( code, message, stackTrace ) );
+                    }
+                    break;
+                case BinaryProtocol.TRANSACTION:
+                    transactionExpires = in.readLong();
+                    break;
+                case BinaryProtocol.END:
+                    ended = true;
+                    break;
+                default:
+                    throw new IOException( "Unexpected record type " + tag );
+                }
+            }
+        }
+
+        /**
+         * A statement result, read row by row as a cursor.
+         */
+        public class Result
+        {
+            private final List<String> columns;
+            private final Object[] row;
+            private Map<String, Object> stats;
+            private boolean done;
+
+            private Result( List<String> columns )
+            {
+                this.columns = columns;
+                this.row = new Object[columns.size()];
+            }
+
+            public List<String> columns()
+            {
+                return columns;
+            }
+
+            /**
+             * Moves to the next row.
+             *
+             * @return false if there are no more rows
+             */
+            public boolean next() throws IOException
+            {
+                if ( done )
+                {
+                    return false;
+                }
+                byte tag = in.readTag();
+                if ( tag == BinaryProtocol.ROW )
+                {
+                    for ( int i = 0; i < row.length; i++ )
+                    {
+                        row[i] = in.read();
+                    }
+                    return true;
+                }
+                if ( tag != BinaryProtocol.RESULT_END )
+                {
+                    throw new IOException( "Unexpected record type " + tag );
+                }
+                done = true;
+                if ( in.readBoolean() )
+                {
+                    stats = readStats();
+                }
+                return false;
+            }
+
+            public Object get( int column )
+            {
+                return row[column];
+            }
+
+            public Object get( String column )
+            {
+                return row[columns.indexOf( column )];
+            }
+
+            /**
+             * The statistics of the statement, available once all rows have been read, if they were asked for.
+             */
+            public Map<String, Object> stats()
+            {
+                return stats;
+            }
+
+            private void skip() throws IOException
+            {
+                while ( next() )
+                {
+                    // skip remaining rows
+                }
+            }
+
+            private Map<String, Object> readStats() throws IOException
+            {
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put( "contains_updates", in.readBoolean() );
+                stats.put( "nodes_created", in.readInt() );
+                stats.put( "nodes_deleted", in.readInt() );
+                stats.put( "properties_set", in.readInt() );
+                stats.put( "relationships_created", in.readInt() );
+                stats.put( "relationship_deleted", in.readInt() );
+                stats.put( "labels_added", in.readInt() );
+                stats.put( "labels_removed", in.readInt() );
+                stats.put( "indexes_added", in.readInt() );
+                stats.put( "indexes_removed", in.readInt() );
+                stats.put( "constraints_added", in.readInt() );
+                stats.put( "constraints_removed", in.readInt() );
+                return stats;
+            }
+        }
+
+        private static String readFully( InputStream stream ) throws IOException
+        {
+            if ( stream == null )
+            {
+                return "";
+            }
+            try ( InputStream in = stream )
+            {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[1024];
+                int read;
+                while ( (read = in.read( buffer )) != -1 )
+                {
+                    bytes.write( buffer, 0, read );
+                }
+                return new String( bytes.toByteArray(), StandardCharsets.UTF_8 );
+            }
+        }
+    }
+
+    public static class Error
+    {
+        private final String code;
+        private final String message;
+        private final String stackTrace;
+
+        Error( String code, String message, String stackTrace )
+        {
+            this.code = code;
+            this.message = message;
+            this.stackTrace = stackTrace;
+        }
+
+        public String code()
+        {
+            return code;
+        }
+
+        public String message()
+        {
+            return message;
+        }
+
+        public String stackTrace()
+        {
+            return stackTrace;
+        }
+
+        @Override
+        public String toString()
+        {
+            return code + ": " + message;
+        }
+    }
+
+    public static class Node
+    {
+        private final long id;
+        private final List<String> labels;
+        private final Map<String, Object> properties;
+
+        Node( long id, List<String> labels, Map<String, Object> properties )
+        {
+            this.id = id;
+            this.labels = labels;
+            this.properties = properties;
+        }
+
+        public long id()
+        {
+            return id;
+        }
+
+        public List<String> labels()
+        {
+            return labels;
+        }
+
+        public Map<String, Object> properties()
+        {
+            return properties;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Node[" + id + "]" + labels + properties;
+        }
+    }
+
+    public static class Relationship
+    {
+        private final long id;
+        private final String type;
+        private final long startNodeId;
+        private final long endNodeId;
+        private final Map<String, Object> properties;
+
+        Relationship( long id, String type, long startNodeId, long endNodeId, Map<String, Object> properties )
+        {
+            this.id = id;
+            this.type = type;
+            this.startNodeId = startNodeId;
+            this.endNodeId = endNodeId;
+            this.properties = properties;
+        }
+
+        public long id()
+        {
+            return id;
+        }
+
+        public String type()
+        {
+            return type;
+        }
+
+        public long startNodeId()
+        {
+            return startNodeId;
+        }
+
+        public long endNodeId()
+        {
+            return endNodeId;
+        }
+
+        public Map<String, Object> properties()
+        {
+            return properties;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Relationship[" + id + "," + startNodeId + "-" + type + "->" + endNodeId + "]" + properties;
+        }
+    }
+
+    public static class Path
+    {
+        private final List<Node> nodes;
+        private final List<Relationship> relationships;
+
+        Path( List<Node> nodes, List<Relationship> relationships )
+        {
+            this.nodes = nodes;
+            this.relationships = relationships;
+        }
+
+        public List<Node> nodes()
+        {
+            return nodes;
+        }
+
+        public List<Relationship> relationships()
+        {
+            return relationships;
+        }
+
+        public int length()
+        {
+            return relationships.size();
+        }
+    }
+}
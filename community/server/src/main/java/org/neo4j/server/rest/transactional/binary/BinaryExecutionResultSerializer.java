@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.cypher.javacompat.ExecutionResult;
+import org.neo4j.cypher.javacompat.QueryStatistics;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.server.rest.transactional.ExecutionResultSerializer;
+import org.neo4j.server.rest.transactional.ResultDataContent;
+import org.neo4j.server.rest.transactional.error.Neo4jError;
+
+/**
+ * Writes results in the {@link BinaryProtocol binary protocol}, following the same call order as the JSON
+ * {@link ExecutionResultSerializer}. Rows are written to the response in chunks as they are pulled from the result,
+ * so large results are streamed rather than buffered.
+ */
+public class BinaryExecutionResultSerializer extends ExecutionResultSerializer
+{
+    private final ChunkedOutputStream chunks;
+    private final ValueWriter out;
+    private final StringLogger log;
+    private boolean errorsWritten;
+
+    public BinaryExecutionResultSerializer( OutputStream output, URI baseUri, StringLogger log )
+    {
+        super( baseUri, log );
+        this.log = log;
+        this.chunks = new ChunkedOutputStream( output );
+        this.out = new ValueWriter( chunks );
+    }
+
+    @Override
+    public void transactionCommitUri( URI commitUri )
+    {
+        try
+        {
+            out.writeTag( BinaryProtocol.COMMIT_URI );
+            out.writeString( commitUri.toString() );
+        }
+        catch ( IOException e )
+        {
+            loggedIOException( e );
+        }
+    }
+
+    @Override
+    public void statementResult( ExecutionResult result, boolean includeStats,
+                                 ResultDataContent... resultDataContents ) throws IOException
+    {
+        try
+        {
+            List<String> columns = result.columns();
+            out.writeTag( BinaryProtocol.RESULT_START );
+            out.writeStrings( columns );
+            writeRows( columns, result.iterator() );
+            out.writeTag( BinaryProtocol.RESULT_END );
+            out.writeBoolean( includeStats );
+            if ( includeStats )
+            {
+                writeStats( result.getQueryStatistics() );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw loggedIOException( e );
+        }
+    }
+
+    @Override
+    public void errors( Iterable<? extends Neo4jError> errors )
+    {
+        try
+        {
+            int count = 0;
+            for ( Neo4jError ignored : errors )
+            {
+                count++;
+            }
+            out.writeTag( BinaryProtocol.ERRORS );
+            out.writeInt( count );
+            for ( Neo4jError error : errors )
+            {
+                out.writeString( error.status().code().serialize() );
+                out.writeString( String.valueOf( error.getMessage() ) );
+                boolean includeStackTrace = error.shouldSerializeStackTrace();
+                out.writeBoolean( includeStackTrace );
+                if ( includeStackTrace )
+                {
+                    out.writeString( error.getStackTraceAsString() );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            loggedIOException( e );
+        }
+        finally
+        {
+            errorsWritten = true;
+        }
+    }
+
+    @Override
+    public void transactionStatus( long expiryDate )
+    {
+        try
+        {
+            out.writeTag( BinaryProtocol.TRANSACTION );
+            out.writeLong( expiryDate );
+        }
+        catch ( IOException e )
+        {
+            loggedIOException( e );
+        }
+    }
+
+    @Override
+    public void finish()
+    {
+        try
+        {
+            if ( !errorsWritten )
+            {
+                errors( Collections.<Neo4jError>emptyList() );
+            }
+            out.writeTag( BinaryProtocol.END );
+            out.flush();
+            chunks.close();
+        }
+        catch ( IOException e )
+        {
+            loggedIOException( e );
+        }
+    }
+
+    private void writeRows( List<String> columns, ResourceIterator<Map<String, Object>> rows ) throws IOException
+    {
+        try
+        {
+            while ( rows.hasNext() )
+            {
+                Map<String, Object> row = rows.next();
+                out.writeTag( BinaryProtocol.ROW );
+                for ( String column : columns )
+                {
+                    out.write( row.get( column ) );
+                }
+            }
+        }
+        finally
+        {
+            rows.close(); // free associated resources as early a possible
+        }
+    }
+
+    private void writeStats( QueryStatistics stats ) throws IOException
+    {
+        out.writeBoolean( stats.containsUpdates() );
+        out.writeInt( stats.getNodesCreated() );
+        out.writeInt( stats.getDeletedNodes() );
+        out.writeInt( stats.getPropertiesSet() );
+        out.writeInt( stats.getRelationshipsCreated() );
+        out.writeInt( stats.getDeletedRelationships() );
+        out.writeInt( stats.getLabelsAdded() );
+        out.writeInt( stats.getLabelsRemoved() );
+        out.writeInt( stats.getIndexesAdded() );
+        out.writeInt( stats.getIndexesRemoved() );
+        out.writeInt( stats.getConstraintsAdded() );
+        out.writeInt( stats.getConstraintsRemoved() );
+    }
+
+    private IOException loggedIOException( IOException exception )
+    {
+        log.error( "Failed to generate binary output.", exception );
+        return exception;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Constants of the binary transactional protocol, a compact alternative to the JSON format of the transactional
+ * endpoint for large results.
+ * <p/>
+ * Request and response bodies are sent as a sequence of length prefixed chunks, ended by an empty chunk, see
+ * {@link ChunkedOutputStream}. Within that stream, a request is a sequence of {@link #STATEMENT} records followed by
+ * {@link #END}. A response is a sequence of records, each starting with a tag byte:
+ * <ul>
+ * <li>{@link #COMMIT_URI}: the commit uri of the transaction, as a string</li>
+ * <li>{@link #RESULT_START}: the columns of a statement result, as a list of strings</li>
+ * <li>{@link #ROW}: one value per column</li>
+ * <li>{@link #RESULT_END}: whether statistics follow, and if so the statistics</li>
+ * <li>{@link #ERRORS}: the number of errors, each with code, message and an optional stack trace</li>
+ * <li>{@link #TRANSACTION}: the expiry time of the transaction, in milliseconds</li>
+ * <li>{@link #END}: no more records</li>
+ * </ul>
+ * Values are typed, see {@link ValueWriter}.
+ */
+public final class BinaryProtocol
+{
+    public static final String MEDIA_TYPE_STRING = "application/vnd.neo4j.binary";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf( MEDIA_TYPE_STRING );
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+
+    // Records
+    public static final byte STATEMENT = 'S';
+    public static final byte COMMIT_URI = 'C';
+    public static final byte RESULT_START = 'R';
+    public static final byte ROW = 'r';
+    public static final byte RESULT_END = 'E';
+    public static final byte ERRORS = 'X';
+    public static final byte TRANSACTION = 'T';
+    public static final byte END = 'F';
+
+    // Values
+    public static final byte NULL = 0;
+    public static final byte TRUE = 1;
+    public static final byte FALSE = 2;
+    public static final byte INTEGER = 3;
+    public static final byte FLOAT = 4;
+    public static final byte STRING = 5;
+    public static final byte LIST = 6;
+    public static final byte MAP = 7;
+    public static final byte NODE = 8;
+    public static final byte RELATIONSHIP = 9;
+    public static final byte PATH = 10;
+
+    private BinaryProtocol()
+    {
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.server.rest.transactional.DeserializationException;
+import org.neo4j.server.rest.transactional.ResultDataContent;
+import org.neo4j.server.rest.transactional.Statement;
+import org.neo4j.server.rest.transactional.StatementDeserializer;
+import org.neo4j.server.rest.transactional.error.Neo4jError;
+
+import static org.neo4j.helpers.collection.IteratorUtil.emptyIterator;
+
+/**
+ * Reads statements sent in the {@link BinaryProtocol binary protocol}. Parameters are read as the statement is
+ * needed, so a large request is never held in memory as a whole. Like in the JSON format, parameters can not be
+ * nodes, relationships or paths.
+ */
+public class BinaryStatementDeserializer extends StatementDeserializer
+{
+    public static final int DEFAULT_MAX_VALUE_LENGTH = 16 * 1024 * 1024;
+
+    private static final Iterator<Neo4jError> NO_ERRORS = emptyIterator();
+    private static final ResultDataContent[] NO_RESULT_DATA_CONTENTS = new ResultDataContent[0];
+    private static final Map<String, Object> NO_PARAMETERS = Collections.emptyMap();
+
+    private final ValueReader input;
+    private boolean started;
+    private boolean finished;
+    private List<Neo4jError> errors = null;
+
+    public BinaryStatementDeserializer( InputStream input )
+    {
+        this( input, DEFAULT_MAX_VALUE_LENGTH );
+    }
+
+    /**
+     * @param maxValueLength the maximum number of bytes in a string and elements in a list or map.
+     */
+    public BinaryStatementDeserializer( InputStream input, int maxValueLength )
+    {
+        this.input = new ValueReader( new ChunkedInputStream( input ), maxValueLength, false );
+    }
+
+    @Override
+    public Iterator<Neo4jError> errors()
+    {
+        return errors == null ? NO_ERRORS : errors.iterator();
+    }
+
+    @Override
+    protected Statement fetchNextOrNull()
+    {
+        if ( finished )
+        {
+            return null;
+        }
+        try
+        {
+            byte tag;
+            try
+            {
+                tag = input.readTag();
+            }
+            catch ( EOFException e )
+            {
+                if ( started )
+                {
+                    throw e;
+                }
+                // An empty request body, as when beginning a transaction without statements
+                finished = true;
+                return null;
+            }
+            started = true;
+
+            switch ( tag )
+            {
+            case BinaryProtocol.STATEMENT:
+                String statement = input.readString();
+                Object parameters = input.read();
+                boolean includeStats = input.readBoolean();
+                if ( parameters != null && !(parameters instanceof Map) )
+                {
+                    return fail( new Neo4jError( Status.Request.InvalidFormat, new DeserializationException(
+                            "Unable to deserialize request. Parameters must be a map." ) ) );
+                }
+                return new Statement( statement, parameters == null ? NO_PARAMETERS : asParameters( parameters ),
+                        includeStats, NO_RESULT_DATA_CONTENTS );
+            case BinaryProtocol.END:
+                finished = true;
+                return null;
+            default:
+                return fail( new Neo4jError( Status.Request.InvalidFormat,
+                        new DeserializationException( "Unable to deserialize request. Unexpected record type " + tag ) ) );
+            }
+        }
+        catch ( EOFException e )
+        {
+            return fail( new Neo4jError( Status.Request.InvalidFormat,
+                    new DeserializationException( "Unable to deserialize request. The request ended unexpectedly." ) ) );
+        }
+        catch ( MalformedValueException e )
+        {
+            return fail( new Neo4jError( Status.Request.InvalidFormat,
+                    new DeserializationException( "Unable to deserialize request. " + e.getMessage() ) ) );
+        }
+        catch ( IOException e )
+        {
+            return fail( new Neo4jError( Status.Network.UnknownFailure, e ) );
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asParameters( Object parameters )
+    {
+        return (Map<String, Object>) parameters;
+    }
+
+    private Statement fail( Neo4jError error )
+    {
+        finished = true;
+        if ( errors == null )
+        {
+            errors = new LinkedList<>();
+        }
+        errors.add( error );
+        return null;
+    }
+}
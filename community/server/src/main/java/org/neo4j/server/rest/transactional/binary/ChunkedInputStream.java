@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the chunks written by {@link ChunkedOutputStream} as one continuous stream, which ends at the empty chunk
+ * marking the end of the message.
+ */
+public class ChunkedInputStream extends InputStream
+{
+    private final InputStream in;
+    private int remainingInChunk;
+    private boolean ended;
+
+    public ChunkedInputStream( InputStream in )
+    {
+        this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if ( !ensureChunk() )
+        {
+            return -1;
+        }
+        int b = in.read();
+        if ( b < 0 )
+        {
+            throw new EOFException( "Stream ended in the middle of a chunk" );
+        }
+        remainingInChunk--;
+        return b;
+    }
+
+    @Override
+    public int read( byte[] bytes, int offset, int length ) throws IOException
+    {
+        if ( length == 0 )
+        {
+            return 0;
+        }
+        if ( !ensureChunk() )
+        {
+            return -1;
+        }
+        int read = in.read( bytes, offset, Math.min( length, remainingInChunk ) );
+        if ( read < 0 )
+        {
+            throw new EOFException( "Stream ended in the middle of a chunk" );
+        }
+        remainingInChunk -= read;
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return ended ? 0 : Math.min( remainingInChunk, in.available() );
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+
+    private boolean ensureChunk() throws IOException
+    {
+        while ( remainingInChunk == 0 && !ended )
+        {
+            int length = readLength();
+            if ( length == 0 )
+            {
+                ended = true;
+            }
+            remainingInChunk = length;
+        }
+        return !ended;
+    }
+
+    private int readLength() throws IOException
+    {
+        int length = 0;
+        for ( int i = 0; i < 4; i++ )
+        {
+            int b = in.read();
+            if ( b < 0 )
+            {
+                throw new EOFException( "Stream ended before the end of the message" );
+            }
+            length = (length << 8) | b;
+        }
+        if ( length < 0 )
+        {
+            throw new MalformedValueException( "Invalid chunk length " + length );
+        }
+        return length;
+    }
+}
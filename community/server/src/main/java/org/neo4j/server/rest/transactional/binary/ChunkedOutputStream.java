@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Buffers written bytes and writes them as chunks, each prefixed with its length as a 4 byte integer. Closing the
+ * stream writes the last chunk followed by an empty chunk, which marks the end of the message, but leaves the
+ * underlying stream open.
+ */
+public class ChunkedOutputStream extends OutputStream
+{
+    private final OutputStream out;
+    private final byte[] chunk;
+    private final byte[] header = new byte[4];
+    private int position;
+    private boolean closed;
+
+    public ChunkedOutputStream( OutputStream out )
+    {
+        this( out, BinaryProtocol.DEFAULT_CHUNK_SIZE );
+    }
+
+    public ChunkedOutputStream( OutputStream out, int chunkSize )
+    {
+        this.out = out;
+        this.chunk = new byte[chunkSize];
+    }
+
+    @Override
+    public void write( int b ) throws IOException
+    {
+        if ( position == chunk.length )
+        {
+            writeChunk();
+        }
+        chunk[position++] = (byte) b;
+    }
+
+    @Override
+    public void write( byte[] bytes, int offset, int length ) throws IOException
+    {
+        while ( length > 0 )
+        {
+            if ( position == chunk.length )
+            {
+                writeChunk();
+            }
+            int toCopy = Math.min( length, chunk.length - position );
+            System.arraycopy( bytes, offset, chunk, position, toCopy );
+            position += toCopy;
+            offset += toCopy;
+            length -= toCopy;
+        }
+    }
+
+    /**
+     * Sends what has been written so far as a chunk, so that a streaming reader can act on it.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        writeChunk();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if ( !closed )
+        {
+            closed = true;
+            writeChunk();
+            writeLength( 0 );
+            out.flush();
+        }
+    }
+
+    private void writeChunk() throws IOException
+    {
+        if ( position > 0 )
+        {
+            writeLength( position );
+            out.write( chunk, 0, position );
+            position = 0;
+        }
+    }
+
+    private void writeLength( int length ) throws IOException
+    {
+        header[0] = (byte) (length >>> 24);
+        header[1] = (byte) (length >>> 16);
+        header[2] = (byte) (length >>> 8);
+        header[3] = (byte) length;
+        out.write( header, 0, header.length );
+    }
+}
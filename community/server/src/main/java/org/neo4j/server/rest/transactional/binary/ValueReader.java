@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.FALSE;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.FLOAT;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.INTEGER;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.LIST;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.MAP;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.NODE;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.NULL;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.PATH;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.RELATIONSHIP;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.STRING;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.TRUE;
+
+/**
+ * Reads the values written by {@link ValueWriter}. Integers are read as {@link Long}, floats as {@link Double},
+ * lists as {@link List} and maps as {@link Map}. Graph entities are read as the value classes of
+ * {@link BinaryCypherClient}.
+ * <p/>
+ * Lengths are checked before anything is allocated for them: negative lengths, lengths over the maximum and, where
+ * entities are not accepted, graph entities fail with a {@link MalformedValueException}. Collections only grow as
+ * their elements are actually read, so a length larger than what follows can not allocate more than that.
+ */
+public class ValueReader
+{
+    private static final int MAX_INITIAL_CAPACITY = 16;
+
+    private final DataInputStream in;
+    private final int maxLength;
+    private final boolean acceptEntities;
+
+    public ValueReader( InputStream in )
+    {
+        this( in, Integer.MAX_VALUE, true );
+    }
+
+    /**
+     * @param maxLength the maximum number of bytes in a string and elements in a list or map.
+     * @param acceptEntities whether nodes, relationships and paths are accepted as values.
+     */
+    public ValueReader( InputStream in, int maxLength, boolean acceptEntities )
+    {
+        this.in = new DataInputStream( in );
+        this.maxLength = maxLength;
+        this.acceptEntities = acceptEntities;
+    }
+
+    public byte readTag() throws IOException
+    {
+        return in.readByte();
+    }
+
+    public boolean readBoolean() throws IOException
+    {
+        return in.readBoolean();
+    }
+
+    public int readInt() throws IOException
+    {
+        return in.readInt();
+    }
+
+    public long readLong() throws IOException
+    {
+        return in.readLong();
+    }
+
+    public String readString() throws IOException
+    {
+        byte[] bytes = new byte[readLength()];
+        in.readFully( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    public List<String> readStrings() throws IOException
+    {
+        int size = readLength();
+        List<String> strings = new ArrayList<>( initialCapacity( size ) );
+        for ( int i = 0; i < size; i++ )
+        {
+            strings.add( readString() );
+        }
+        return strings;
+    }
+
+    public Object read() throws IOException
+    {
+        byte tag = in.readByte();
+        switch ( tag )
+        {
+        case NULL:
+            return null;
+        case TRUE:
+            return Boolean.TRUE;
+        case FALSE:
+            return Boolean.FALSE;
+        case INTEGER:
+            return in.readLong();
+        case FLOAT:
+            return in.readDouble();
+        case STRING:
+            return readString();
+        case LIST:
+            return readList();
+        case MAP:
+            return readMap();
+        case NODE:
+            checkEntitiesAccepted();
+            return readNode();
+        case RELATIONSHIP:
+            checkEntitiesAccepted();
+            return readRelationship();
+        case PATH:
+            checkEntitiesAccepted();
+            return readPath();
+        default:
+            throw new MalformedValueException( "Unknown value type " + tag );
+        }
+    }
+
+    public Map<String, Object> readMap() throws IOException
+    {
+        int size = readLength();
+        Map<String, Object> map = new LinkedHashMap<>( initialCapacity( size ) * 2 );
+        for ( int i = 0; i < size; i++ )
+        {
+            String key = readString();
+            map.put( key, read() );
+        }
+        return map;
+    }
+
+    private List<Object> readList() throws IOException
+    {
+        int size = readLength();
+        List<Object> list = new ArrayList<>( initialCapacity( size ) );
+        for ( int i = 0; i < size; i++ )
+        {
+            list.add( read() );
+        }
+        return list;
+    }
+
+    private int readLength() throws IOException
+    {
+        int length = in.readInt();
+        if ( length < 0 || length > maxLength )
+        {
+            throw new MalformedValueException( "Invalid length " + length + ", the maximum length is " + maxLength );
+        }
+        return length;
+    }
+
+    private static int initialCapacity( int size )
+    {
+        return Math.min( size, MAX_INITIAL_CAPACITY );
+    }
+
+    private void checkEntitiesAccepted() throws MalformedValueException
+    {
+        if ( !acceptEntities )
+        {
+            throw new MalformedValueException( "Nodes, relationships and paths are not accepted as values here" );
+        }
+    }
+
+    private BinaryCypherClient.Node readNode() throws IOException
+    {
+        long id = in.readLong();
+        List<String> labels = readStrings();
+        return new BinaryCypherClient.Node( id, labels, readMap() );
+    }
+
+    private BinaryCypherClient.Relationship readRelationship() throws IOException
+    {
+        long id = in.readLong();
+        String type = readString();
+        long startNodeId = in.readLong();
+        long endNodeId = in.readLong();
+        return new BinaryCypherClient.Relationship( id, type, startNodeId, endNodeId, readMap() );
+    }
+
+    private BinaryCypherClient.Path readPath() throws IOException
+    {
+        int nodeCount = readLength();
+        List<BinaryCypherClient.Node> nodes = new ArrayList<>( initialCapacity( nodeCount ) );
+        for ( int i = 0; i < nodeCount; i++ )
+        {
+            nodes.add( readNode() );
+        }
+        int relationshipCount = readLength();
+        List<BinaryCypherClient.Relationship> relationships = new ArrayList<>( initialCapacity( relationshipCount ) );
+        for ( int i = 0; i < relationshipCount; i++ )
+        {
+            relationships.add( readRelationship() );
+        }
+        return new BinaryCypherClient.Path( nodes, relationships );
+    }
+}
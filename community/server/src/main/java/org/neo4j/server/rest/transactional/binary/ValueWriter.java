@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.FALSE;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.FLOAT;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.INTEGER;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.LIST;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.MAP;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.NODE;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.NULL;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.PATH;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.RELATIONSHIP;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.STRING;
+import static org.neo4j.server.rest.transactional.binary.BinaryProtocol.TRUE;
+
+/**
+ * Writes typed values of the binary protocol. Every value starts with a tag byte:
+ * <ul>
+ * <li>null, true and false are the tag alone</li>
+ * <li>integers are 8 byte longs and floats 8 byte doubles</li>
+ * <li>strings are the length of their UTF-8 encoding followed by the encoded bytes</li>
+ * <li>lists and maps are their size followed by their values, or their keys and values</li>
+ * <li>nodes are their id, labels and properties</li>
+ * <li>relationships are their id, type, start node id, end node id and properties</li>
+ * <li>paths are their nodes followed by their relationships</li>
+ * </ul>
+ * Arrays and other iterables are written as lists, other numbers as floats and any other value as its string form.
+ */
+public class ValueWriter
+{
+    private final DataOutputStream out;
+
+    public ValueWriter( OutputStream out )
+    {
+        this.out = new DataOutputStream( out );
+    }
+
+    public void writeTag( byte tag ) throws IOException
+    {
+        out.writeByte( tag );
+    }
+
+    public void writeBoolean( boolean value ) throws IOException
+    {
+        out.writeBoolean( value );
+    }
+
+    public void writeInt( int value ) throws IOException
+    {
+        out.writeInt( value );
+    }
+
+    public void writeLong( long value ) throws IOException
+    {
+        out.writeLong( value );
+    }
+
+    public void writeString( String value ) throws IOException
+    {
+        byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    public void writeStrings( Iterable<String> values ) throws IOException
+    {
+        List<String> strings = toList( values );
+        out.writeInt( strings.size() );
+        for ( String value : strings )
+        {
+            writeString( value );
+        }
+    }
+
+    public void write( Object value ) throws IOException
+    {
+        if ( value == null )
+        {
+            out.writeByte( NULL );
+        }
+        else if ( value instanceof Boolean )
+        {
+            out.writeByte( (Boolean) value ? TRUE : FALSE );
+        }
+        else if ( value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte )
+        {
+            out.writeByte( INTEGER );
+            out.writeLong( ((Number) value).longValue() );
+        }
+        else if ( value instanceof Number )
+        {
+            out.writeByte( FLOAT );
+            out.writeDouble( ((Number) value).doubleValue() );
+        }
+        else if ( value instanceof String || value instanceof Character )
+        {
+            out.writeByte( STRING );
+            writeString( value.toString() );
+        }
+        else if ( value instanceof Node )
+        {
+            out.writeByte( NODE );
+            writeNode( (Node) value );
+        }
+        else if ( value instanceof Relationship )
+        {
+            out.writeByte( RELATIONSHIP );
+            writeRelationship( (Relationship) value );
+        }
+        else if ( value instanceof Path )
+        {
+            out.writeByte( PATH );
+            writePath( (Path) value );
+        }
+        else if ( value instanceof Map )
+        {
+            out.writeByte( MAP );
+            writeMap( (Map<?, ?>) value );
+        }
+        else if ( value instanceof Iterable )
+        {
+            out.writeByte( LIST );
+            writeList( toList( (Iterable<?>) value ) );
+        }
+        else if ( value.getClass().isArray() )
+        {
+            out.writeByte( LIST );
+            int length = Array.getLength( value );
+            out.writeInt( length );
+            for ( int i = 0; i < length; i++ )
+            {
+                write( Array.get( value, i ) );
+            }
+        }
+        else
+        {
+            out.writeByte( STRING );
+            writeString( value.toString() );
+        }
+    }
+
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    private void writeMap( Map<?, ?> map ) throws IOException
+    {
+        out.writeInt( map.size() );
+        for ( Map.Entry<?, ?> entry : map.entrySet() )
+        {
+            writeString( String.valueOf( entry.getKey() ) );
+            write( entry.getValue() );
+        }
+    }
+
+    private void writeList( List<?> values ) throws IOException
+    {
+        out.writeInt( values.size() );
+        for ( Object value : values )
+        {
+            write( value );
+        }
+    }
+
+    private void writeNode( Node node ) throws IOException
+    {
+        out.writeLong( node.getId() );
+        List<String> labels = new ArrayList<>();
+        for ( Label label : node.getLabels() )
+        {
+            labels.add( label.name() );
+        }
+        writeStrings( labels );
+        writeProperties( node );
+    }
+
+    private void writeRelationship( Relationship relationship ) throws IOException
+    {
+        out.writeLong( relationship.getId() );
+        writeString( relationship.getType().name() );
+        out.writeLong( relationship.getStartNode().getId() );
+        out.writeLong( relationship.getEndNode().getId() );
+        writeProperties( relationship );
+    }
+
+    private void writePath( Path path ) throws IOException
+    {
+        List<Node> nodes = toList( path.nodes() );
+        out.writeInt( nodes.size() );
+        for ( Node node : nodes )
+        {
+            writeNode( node );
+        }
+        List<Relationship> relationships = toList( path.relationships() );
+        out.writeInt( relationships.size() );
+        for ( Relationship relationship : relationships )
+        {
+            writeRelationship( relationship );
+        }
+    }
+
+    private void writeProperties( PropertyContainer entity ) throws IOException
+    {
+        List<String> keys = toList( entity.getPropertyKeys() );
+        out.writeInt( keys.size() );
+        for ( String key : keys )
+        {
+            writeString( key );
+            write( entity.getProperty( key ) );
+        }
+    }
+
+    private static <T> List<T> toList( Iterable<T> values )
+    {
+        if ( values instanceof List )
+        {
+            return (List<T>) values;
+        }
+        List<T> list = values instanceof Collection ? new ArrayList<T>( ((Collection<T>) values).size() ) :
+                new ArrayList<T>();
+        for ( T value : values )
+        {
+            list.add( value );
+        }
+        return list;
+    }
+}
@@ -53,12 +53,15 @@ public class BatchOperationService {
 
     private final OutputFormat output;
     private final WebServer webServer;
+    private final DatabaseActions actions;
     private RepresentationWriteHandler representationWriteHandler = RepresentationWriteHandler.DO_NOTHING;
 
-    public BatchOperationService( @Context WebServer webServer, @Context OutputFormat output )
+    public BatchOperationService( @Context WebServer webServer, @Context OutputFormat output,
+                                  @Context DatabaseActions actions )
     {
         this.output = output;
         this.webServer = webServer;
+        this.actions = actions;
     }
 
     public void setRepresentationWriteHandler( RepresentationWriteHandler representationWriteHandler )
@@ -115,8 +118,8 @@ public class BatchOperationService {
                                 }
                             }
                         };
-                        new StreamingBatchOperations( webServer ).readAndExecuteOperations( uriInfo, httpHeaders, body,
-                                servletOutputStream );
+                        new DirectBatchOperations( webServer, actions, output )
+                                .readAndExecuteOperations( uriInfo, httpHeaders, body, servletOutputStream );
                         representationWriteHandler.onRepresentationWritten();
                     }
                     catch ( Exception e )
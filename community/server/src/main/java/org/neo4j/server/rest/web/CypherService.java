@@ -26,14 +26,18 @@ import javax.ws.rs.Path;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 
 import org.neo4j.cypher.CypherException;
 import org.neo4j.cypher.javacompat.ExecutionResult;
 import org.neo4j.cypher.javacompat.internal.ServerExecutionEngine;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.server.database.CypherExecutor;
+import org.neo4j.server.guard.QueryAdmissionException;
+import org.neo4j.server.guard.QueryScheduler;
 import org.neo4j.server.rest.repr.BadInputException;
 import org.neo4j.server.rest.repr.CypherResultRepresentation;
+import org.neo4j.server.rest.repr.ExceptionRepresentation;
 import org.neo4j.server.rest.repr.InputFormat;
 import org.neo4j.server.rest.repr.OutputFormat;
 import org.neo4j.server.rest.transactional.CommitOnSuccessfulStatusCodeRepresentationWriteHandler;
@@ -42,6 +46,7 @@ import org.neo4j.server.rest.transactional.CommitOnSuccessfulStatusCodeRepresent
 public class CypherService
 {
 
+    private static final String ENDPOINT = "cypher";
     private static final String PARAMS_KEY = "params";
     private static final String QUERY_KEY = "query";
 
@@ -53,14 +58,17 @@ public class CypherService
     private CypherExecutor cypherExecutor;
     private OutputFormat output;
     private InputFormat input;
+    private final QueryScheduler scheduler;
 
     public CypherService( @Context CypherExecutor cypherExecutor, @Context InputFormat input,
-                          @Context OutputFormat output, @Context GraphDatabaseService database )
+                          @Context OutputFormat output, @Context GraphDatabaseService database,
+                          @Context QueryScheduler scheduler )
     {
         this.cypherExecutor = cypherExecutor;
         this.input = input;
         this.output = output;
         this.database = database;
+        this.scheduler = scheduler;
     }
 
     public OutputFormat getOutputFormat()
@@ -98,6 +106,9 @@ public class CypherService
             ServerExecutionEngine executionEngine = cypherExecutor.getExecutionEngine();
             boolean periodicCommitQuery = executionEngine.isPeriodicCommit( query );
             CommitOnSuccessfulStatusCodeRepresentationWriteHandler handler = (CommitOnSuccessfulStatusCodeRepresentationWriteHandler) this.output.getRepresentationWriteHandler();
+            // The ticket is released by the handler once the result has been streamed
+            handler.setQueryTicket( scheduler.admit( ENDPOINT, executionEngine.isUpdating( query ) ?
+                    QueryScheduler.AccessMode.WRITE : QueryScheduler.AccessMode.READ ) );
             if ( periodicCommitQuery )
             {
                 handler.closeTransaction();
@@ -121,6 +132,10 @@ public class CypherService
 
             return output.ok( new CypherResultRepresentation( result, includeStats, includePlan ) );
         }
+        catch ( QueryAdmissionException e )
+        {
+            return output.response( Status.SERVICE_UNAVAILABLE, new ExceptionRepresentation( e ) );
+        }
         catch ( Throwable e )
         {
             if (e.getCause() instanceof CypherException)
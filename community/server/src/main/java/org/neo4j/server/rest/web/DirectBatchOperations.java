@@ -0,0 +1,398 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.web;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.servlet.ServletException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.UriInfo;
+
+import org.codehaus.jackson.JsonNode;
+
+import org.neo4j.graphdb.ConstraintViolationException;
+import org.neo4j.server.rest.domain.BatchOperationFailedException;
+import org.neo4j.server.rest.domain.EndNodeNotFoundException;
+import org.neo4j.server.rest.domain.StartNodeNotFoundException;
+import org.neo4j.server.rest.repr.BadInputException;
+import org.neo4j.server.rest.repr.ExceptionRepresentation;
+import org.neo4j.server.rest.repr.NodeRepresentation;
+import org.neo4j.server.rest.repr.OutputFormat;
+import org.neo4j.server.rest.repr.RelationshipRepresentation;
+import org.neo4j.server.rest.repr.formats.StreamingJsonFormat;
+import org.neo4j.server.web.WebServer;
+
+import static java.lang.String.format;
+
+/**
+ * Streaming batch operations that execute the most common jobs, creating and deleting entities and setting their
+ * properties and labels, directly against {@link DatabaseActions}.
+ * <p/>
+ * Those jobs skip dispatching an internal request through the servlet container, and the re-serialization and
+ * re-parsing of their bodies that comes with it. Their responses are the same as when dispatched. Any other job is
+ * dispatched as before.
+ */
+public class DirectBatchOperations extends StreamingBatchOperations
+{
+    private static final Pattern NODES = Pattern.compile( "node" );
+    private static final Pattern NODE = Pattern.compile( "node/(\\d+)" );
+    private static final Pattern NODE_RELATIONSHIPS = Pattern.compile( "node/(\\d+)/relationships" );
+    private static final Pattern NODE_PROPERTIES = Pattern.compile( "node/(\\d+)/properties" );
+    private static final Pattern NODE_PROPERTY = Pattern.compile( "node/(\\d+)/properties/([^/]+)" );
+    private static final Pattern NODE_LABELS = Pattern.compile( "node/(\\d+)/labels" );
+    private static final Pattern RELATIONSHIP = Pattern.compile( "relationship/(\\d+)" );
+    private static final Pattern RELATIONSHIP_PROPERTIES = Pattern.compile( "relationship/(\\d+)/properties" );
+    private static final Pattern RELATIONSHIP_PROPERTY = Pattern.compile( "relationship/(\\d+)/properties/([^/]+)" );
+
+    private static final String HEADER_TRANSACTION = "Transaction";
+
+    private final DatabaseActions actions;
+    private final OutputFormat output;
+    private final StreamingJsonFormat json = new StreamingJsonFormat();
+
+    public DirectBatchOperations( WebServer webServer, DatabaseActions actions, OutputFormat output )
+    {
+        super( webServer );
+        this.actions = actions;
+        this.output = output;
+    }
+
+    @Override
+    protected void performRequest( UriInfo uriInfo, String method, String path, JsonNode body, Integer id,
+                                   HttpHeaders httpHeaders, Map<Integer, String> locations )
+            throws IOException, ServletException
+    {
+        String resolvedPath = replaceLocationPlaceholders( path, locations );
+        URI targetUri = calculateTargetUri( uriInfo, resolvedPath );
+        String relativePath = uriInfo.getBaseUri().relativize( targetUri ).getPath();
+
+        Job job = job( method, relativePath );
+        if ( job == null || targetUri.getRawQuery() != null )
+        {
+            super.performRequest( uriInfo, method, path, body, id, httpHeaders, locations );
+            return;
+        }
+
+        results.startOperation( resolvedPath, id );
+        try
+        {
+            Object input = body == null ? null : replacePlaceholders( mapper.readValue( body, Object.class ),
+                    locations );
+            job.execute( actions( httpHeaders ), input, id );
+        }
+        catch ( NodeNotFoundException | RelationshipNotFoundException | StartNodeNotFoundException e )
+        {
+            fail( 404, e, method, resolvedPath, id );
+        }
+        catch ( BadInputException | EndNodeNotFoundException | ClassCastException e )
+        {
+            fail( 400, e, method, resolvedPath, id );
+        }
+        catch ( OperationFailureException | ConstraintViolationException e )
+        {
+            fail( 409, e, method, resolvedPath, id );
+        }
+        catch ( ArrayStoreException e )
+        {
+            String message = "Invalid JSON array in POST body: " + mapper.writeValueAsString( body );
+            results.writeError( 400, message );
+            throw new BatchOperationFailedException( 400, message, e );
+        }
+        catch ( IOException | BatchOperationFailedException e )
+        {
+            throw e;
+        }
+        catch ( Exception e )
+        {
+            results.writeError( 500, e.getMessage() );
+            throw new BatchOperationFailedException( 500, e.getMessage(), e );
+        }
+    }
+
+    // Reported the same way as the error response of a dispatched request would be
+    private void fail( int status, Exception cause, String method, String path, Integer id ) throws IOException
+    {
+        output.write( new ExceptionRepresentation( cause ), json.writeTo( results.getServletOutputStream() ) );
+        results.writeError( status, null );
+        String message = "Error " + status + " executing batch operation: " + ((id != null) ? id + ". " : "") +
+                method + " " + path;
+        throw new BatchOperationFailedException( status, message, new OperationFailureException( cause.getMessage() ) );
+    }
+
+    private DatabaseActions actions( HttpHeaders httpHeaders )
+    {
+        String force = httpHeaders.getRequestHeaders().getFirst( HEADER_TRANSACTION );
+        return force == null ? actions : actions.forceMode( ForceMode.valueOf( force ) );
+    }
+
+    private Job job( String method, String path )
+    {
+        Matcher matcher;
+        switch ( method )
+        {
+        case "POST":
+            if ( NODES.matcher( path ).matches() )
+            {
+                return new CreateNode();
+            }
+            if ( (matcher = NODE_RELATIONSHIPS.matcher( path )).matches() )
+            {
+                return new CreateRelationship( Long.parseLong( matcher.group( 1 ) ) );
+            }
+            if ( (matcher = NODE_LABELS.matcher( path )).matches() )
+            {
+                return new AddNodeLabels( Long.parseLong( matcher.group( 1 ) ) );
+            }
+            return null;
+        case "PUT":
+            if ( (matcher = NODE_PROPERTIES.matcher( path )).matches() )
+            {
+                return new SetProperties( false, Long.parseLong( matcher.group( 1 ) ), null );
+            }
+            if ( (matcher = NODE_PROPERTY.matcher( path )).matches() )
+            {
+                return new SetProperties( false, Long.parseLong( matcher.group( 1 ) ), matcher.group( 2 ) );
+            }
+            if ( (matcher = RELATIONSHIP_PROPERTIES.matcher( path )).matches() )
+            {
+                return new SetProperties( true, Long.parseLong( matcher.group( 1 ) ), null );
+            }
+            if ( (matcher = RELATIONSHIP_PROPERTY.matcher( path )).matches() )
+            {
+                return new SetProperties( true, Long.parseLong( matcher.group( 1 ) ), matcher.group( 2 ) );
+            }
+            return null;
+        case "DELETE":
+            if ( (matcher = NODE.matcher( path )).matches() )
+            {
+                return new Delete( false, Long.parseLong( matcher.group( 1 ) ) );
+            }
+            if ( (matcher = RELATIONSHIP.matcher( path )).matches() )
+            {
+                return new Delete( true, Long.parseLong( matcher.group( 1 ) ) );
+            }
+            return null;
+        default:
+            return null;
+        }
+    }
+
+    // Back references are replaced in the values of the parsed body, the same way they are in its text when dispatched
+    private Object replacePlaceholders( Object value, Map<Integer, String> locations )
+    {
+        if ( value instanceof String )
+        {
+            return replaceLocationPlaceholders( (String) value, locations );
+        }
+        if ( value instanceof Map )
+        {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<String, Object> result = new LinkedHashMap<>( map.size() * 2 );
+            for ( Map.Entry<?, ?> entry : map.entrySet() )
+            {
+                result.put( replaceLocationPlaceholders( (String) entry.getKey(), locations ),
+                        replacePlaceholders( entry.getValue(), locations ) );
+            }
+            return result;
+        }
+        if ( value instanceof List )
+        {
+            List<?> list = (List<?>) value;
+            List<Object> result = new ArrayList<>( list.size() );
+            for ( Object item : list )
+            {
+                result.add( replacePlaceholders( item, locations ) );
+            }
+            return result;
+        }
+        return value;
+    }
+
+    // Anything but a map fails with a ClassCastException, reported as a bad request as when dispatched
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map( Object input )
+    {
+        return input == null ? Collections.<String, Object>emptyMap() : (Map<String, Object>) input;
+    }
+
+    private static long extractNodeId( String uri ) throws BadInputException
+    {
+        try
+        {
+            return Long.parseLong( uri.substring( uri.lastIndexOf( "/" ) + 1 ) );
+        }
+        catch ( NumberFormatException | NullPointerException ex )
+        {
+            throw new BadInputException( ex );
+        }
+    }
+
+    private void created( NodeRepresentation representation, Integer id ) throws IOException, BadInputException
+    {
+        output.write( representation, json.writeTo( results.getServletOutputStream() ) );
+        results.addOperationResult( 201, id, output.location( representation ).toString() );
+    }
+
+    private void created( RelationshipRepresentation representation, Integer id )
+            throws IOException, BadInputException
+    {
+        output.write( representation, json.writeTo( results.getServletOutputStream() ) );
+        results.addOperationResult( 201, id, output.location( representation ).toString() );
+    }
+
+    private void noContent( Integer id ) throws IOException
+    {
+        results.addOperationResult( 204, id, null );
+    }
+
+    private abstract static class Job
+    {
+        abstract void execute( DatabaseActions actions, Object input, Integer id ) throws Exception;
+    }
+
+    private class CreateNode extends Job
+    {
+        @Override
+        void execute( DatabaseActions actions, Object input, Integer id ) throws Exception
+        {
+            created( actions.createNode( map( input ) ), id );
+        }
+    }
+
+    private class CreateRelationship extends Job
+    {
+        private final long startNodeId;
+
+        CreateRelationship( long startNodeId )
+        {
+            this.startNodeId = startNodeId;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void execute( DatabaseActions actions, Object input, Integer id ) throws Exception
+        {
+            Map<String, Object> data = map( input );
+            long endNodeId = extractNodeId( (String) data.get( "to" ) );
+            String type = (String) data.get( "type" );
+            Map<String, Object> properties = (Map<String, Object>) data.get( "data" );
+            created( actions.createRelationship( startNodeId, endNodeId, type, properties ), id );
+        }
+    }
+
+    private class AddNodeLabels extends Job
+    {
+        private final long nodeId;
+
+        AddNodeLabels( long nodeId )
+        {
+            this.nodeId = nodeId;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void execute( DatabaseActions actions, Object input, Integer id ) throws Exception
+        {
+            if ( input instanceof String )
+            {
+                actions.addLabelToNode( nodeId, Collections.singletonList( (String) input ) );
+            }
+            else if ( input instanceof Collection )
+            {
+                actions.addLabelToNode( nodeId, (Collection<String>) input );
+            }
+            else
+            {
+                throw new BadInputException( format( "Label name must be a string. Got: '%s'", input ) );
+            }
+            noContent( id );
+        }
+    }
+
+    private class SetProperties extends Job
+    {
+        private final boolean relationship;
+        private final long entityId;
+        private final String key;
+
+        SetProperties( boolean relationship, long entityId, String key )
+        {
+            this.relationship = relationship;
+            this.entityId = entityId;
+            this.key = key;
+        }
+
+        @Override
+        void execute( DatabaseActions actions, Object input, Integer id ) throws Exception
+        {
+            if ( key == null && relationship )
+            {
+                actions.setAllRelationshipProperties( entityId, map( input ) );
+            }
+            else if ( key == null )
+            {
+                actions.setAllNodeProperties( entityId, map( input ) );
+            }
+            else if ( relationship )
+            {
+                actions.setRelationshipProperty( entityId, key, input );
+            }
+            else
+            {
+                actions.setNodeProperty( entityId, key, input );
+            }
+            noContent( id );
+        }
+    }
+
+    private class Delete extends Job
+    {
+        private final boolean relationship;
+        private final long entityId;
+
+        Delete( boolean relationship, long entityId )
+        {
+            this.relationship = relationship;
+            this.entityId = entityId;
+        }
+
+        @Override
+        void execute( DatabaseActions actions, Object input, Integer id ) throws Exception
+        {
+            if ( relationship )
+            {
+                actions.deleteRelationship( entityId );
+            }
+            else
+            {
+                actions.deleteNode( entityId );
+            }
+            noContent( id );
+        }
+    }
+}
@@ -44,7 +44,7 @@ public class StreamingBatchOperations extends BatchOperations
 {
 
     private static final Logger LOGGER = Log.getLogger(StreamingBatchOperations.class);
-    private StreamingBatchOperationResults results;
+    protected StreamingBatchOperationResults results;
 
     public StreamingBatchOperations( WebServer webServer )
     {
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.List;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.POST;
@@ -31,6 +32,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
@@ -38,9 +40,11 @@ import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
 import org.neo4j.server.rest.transactional.ExecutionResultSerializer;
+import org.neo4j.server.rest.transactional.StatementDeserializer;
 import org.neo4j.server.rest.transactional.TransactionFacade;
 import org.neo4j.server.rest.transactional.TransactionHandle;
 import org.neo4j.server.rest.transactional.TransactionTerminationHandle;
+import org.neo4j.server.rest.transactional.binary.BinaryProtocol;
 import org.neo4j.server.rest.transactional.error.Neo4jError;
 import org.neo4j.server.rest.transactional.error.TransactionLifecycleException;
 
@@ -67,11 +71,91 @@ public class TransactionalService
     @Consumes({MediaType.APPLICATION_JSON})
     @Produces({MediaType.APPLICATION_JSON})
     public Response executeStatementsInNewTransaction( final InputStream input )
+    {
+        return executeStatementsInNewTransaction( input, Format.JSON );
+    }
+
+    @POST
+    @Consumes({BinaryProtocol.MEDIA_TYPE_STRING})
+    @Produces({BinaryProtocol.MEDIA_TYPE_STRING})
+    public Response executeBinaryStatementsInNewTransaction( final InputStream input )
+    {
+        return executeStatementsInNewTransaction( input, Format.BINARY );
+    }
+
+    @POST
+    @Path("/{id}")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response executeStatements( @PathParam("id") final long id, final InputStream input )
+    {
+        return executeStatements( id, input, Format.JSON );
+    }
+
+    @POST
+    @Path("/{id}")
+    @Consumes({BinaryProtocol.MEDIA_TYPE_STRING})
+    @Produces({BinaryProtocol.MEDIA_TYPE_STRING})
+    public Response executeBinaryStatements( @PathParam("id") final long id, final InputStream input )
+    {
+        return executeStatements( id, input, Format.BINARY );
+    }
+
+    @POST
+    @Path("/{id}/commit")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response commitTransaction( @PathParam("id") final long id, final InputStream input )
+    {
+        return commitTransaction( id, input, Format.JSON );
+    }
+
+    @POST
+    @Path("/{id}/commit")
+    @Consumes({BinaryProtocol.MEDIA_TYPE_STRING})
+    @Produces({BinaryProtocol.MEDIA_TYPE_STRING})
+    public Response commitBinaryTransaction( @PathParam("id") final long id, final InputStream input )
+    {
+        return commitTransaction( id, input, Format.BINARY );
+    }
+
+    @POST
+    @Path("/commit")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response commitNewTransaction( final InputStream input )
+    {
+        return commitNewTransaction( input, Format.JSON );
+    }
+
+    @POST
+    @Path("/commit")
+    @Consumes({BinaryProtocol.MEDIA_TYPE_STRING})
+    @Produces({BinaryProtocol.MEDIA_TYPE_STRING})
+    public Response commitNewBinaryTransaction( final InputStream input )
+    {
+        return commitNewTransaction( input, Format.BINARY );
+    }
+
+    /**
+     * A rollback has no request body, so the format can not be told from its content type. The response is JSON,
+     * unless the binary format is explicitly preferred over JSON in the accepted media types.
+     */
+    @DELETE
+    @Path("/{id}")
+    @Consumes({MediaType.APPLICATION_JSON, BinaryProtocol.MEDIA_TYPE_STRING})
+    @Produces({MediaType.APPLICATION_JSON, BinaryProtocol.MEDIA_TYPE_STRING})
+    public Response rollbackTransaction( @PathParam("id") final long id, @Context HttpHeaders headers )
+    {
+        return rollbackTransaction( id, Format.preferredIn( headers.getAcceptableMediaTypes() ) );
+    }
+
+    private Response executeStatementsInNewTransaction( final InputStream input, Format format )
     {
         try
         {
             TransactionHandle transactionHandle = facade.newTransactionHandle( uriScheme );
-            return createdResponse( transactionHandle, executeStatements( input, transactionHandle ) );
+            return createdResponse( transactionHandle, executeStatements( input, transactionHandle, format ) );
         }
         catch ( TransactionLifecycleException e )
         {
@@ -79,11 +163,7 @@ public class TransactionalService
         }
     }
 
-    @POST
-    @Path("/{id}")
-    @Consumes({MediaType.APPLICATION_JSON})
-    @Produces({MediaType.APPLICATION_JSON})
-    public Response executeStatements( @PathParam("id") final long id, final InputStream input )
+    private Response executeStatements( final long id, final InputStream input, Format format )
     {
         final TransactionHandle transactionHandle;
         try
@@ -94,14 +174,10 @@ public class TransactionalService
         {
             return invalidTransaction( e );
         }
-        return okResponse( executeStatements( input, transactionHandle ) );
+        return okResponse( executeStatements( input, transactionHandle, format ) );
     }
 
-    @POST
-    @Path("/{id}/commit")
-    @Consumes({MediaType.APPLICATION_JSON})
-    @Produces({MediaType.APPLICATION_JSON})
-    public Response commitTransaction( @PathParam("id") final long id, final InputStream input )
+    private Response commitTransaction( final long id, final InputStream input, Format format )
     {
         final TransactionHandle transactionHandle;
         try
@@ -112,14 +188,10 @@ public class TransactionalService
         {
             return invalidTransaction( e );
         }
-        return okResponse( executeStatementsAndCommit( input, transactionHandle, false ) );
+        return okResponse( executeStatementsAndCommit( input, transactionHandle, false, format ) );
     }
 
-    @POST
-    @Path("/commit")
-    @Consumes({MediaType.APPLICATION_JSON})
-    @Produces({MediaType.APPLICATION_JSON})
-    public Response commitNewTransaction( final InputStream input )
+    private Response commitNewTransaction( final InputStream input, Format format )
     {
         final TransactionHandle transactionHandle;
         try
@@ -130,14 +202,11 @@ public class TransactionalService
         {
             return invalidTransaction( e );
         }
-        final StreamingOutput streamingResults = executeStatementsAndCommit( input, transactionHandle, true );
+        final StreamingOutput streamingResults = executeStatementsAndCommit( input, transactionHandle, true, format );
         return okResponse( streamingResults );
     }
 
-    @DELETE
-    @Path("/{id}")
-    @Consumes({MediaType.APPLICATION_JSON})
-    public Response rollbackTransaction( @PathParam("id") final long id )
+    private Response rollbackTransaction( final long id, Format format )
     {
         final TransactionHandle transactionHandle;
         try
@@ -148,7 +217,10 @@ public class TransactionalService
         {
             return invalidTransaction( e );
         }
-        return okResponse( rollback( transactionHandle ) );
+        return Response.ok()
+                .entity( rollback( transactionHandle, format ) )
+                .type( format.mediaType )
+                .build();
     }
 
     private Response invalidTransaction( TransactionLifecycleException e )
@@ -172,21 +244,22 @@ public class TransactionalService
                 .build();
     }
 
-    private StreamingOutput executeStatements( final InputStream input, final TransactionHandle transactionHandle )
+    private StreamingOutput executeStatements( final InputStream input, final TransactionHandle transactionHandle,
+                                               final Format format )
     {
         return new StreamingOutput()
         {
             @Override
             public void write( OutputStream output ) throws IOException, WebApplicationException
             {
-                transactionHandle.execute( facade.deserializer( input ), facade.serializer( output ) );
+                transactionHandle.execute( format.deserializer( facade, input ), format.serializer( facade, output ) );
             }
         };
     }
 
     private StreamingOutput executeStatementsAndCommit( final InputStream input,
                                                         final TransactionHandle transactionHandle,
-                                                        final boolean pristine )
+                                                        final boolean pristine, final Format format )
     {
         return new StreamingOutput()
         {
@@ -194,12 +267,13 @@ public class TransactionalService
             public void write( OutputStream output ) throws IOException, WebApplicationException
             {
                 OutputStream wrappedOutput = pristine ? new InterruptingOutputStream( output, transactionHandle ) : output;
-                transactionHandle.commit( facade.deserializer( input ), facade.serializer( wrappedOutput ), pristine );
+                transactionHandle.commit( format.deserializer( facade, input ), format.serializer( facade, wrappedOutput ),
+                        pristine );
             }
         };
     }
 
-    private StreamingOutput rollback( final TransactionHandle transactionHandle )
+    private StreamingOutput rollback( final TransactionHandle transactionHandle, final Format format )
     {
         return new StreamingOutput()
         {
@@ -208,7 +282,7 @@ public class TransactionalService
             {
                 if ( transactionHandle != null )
                 {
-                    transactionHandle.rollback( facade.serializer( output ) );
+                    transactionHandle.rollback( format.serializer( facade, output ) );
                 }
             }
         };
@@ -228,6 +302,71 @@ public class TransactionalService
         };
     }
 
+    private enum Format
+    {
+        JSON( MediaType.APPLICATION_JSON_TYPE )
+                {
+                    @Override
+                    StatementDeserializer deserializer( TransactionFacade facade, InputStream input )
+                    {
+                        return facade.deserializer( input );
+                    }
+
+                    @Override
+                    ExecutionResultSerializer serializer( TransactionFacade facade, OutputStream output )
+                    {
+                        return facade.serializer( output );
+                    }
+                },
+        BINARY( BinaryProtocol.MEDIA_TYPE )
+                {
+                    @Override
+                    StatementDeserializer deserializer( TransactionFacade facade, InputStream input )
+                    {
+                        return facade.binaryDeserializer( input );
+                    }
+
+                    @Override
+                    ExecutionResultSerializer serializer( TransactionFacade facade, OutputStream output )
+                    {
+                        return facade.binarySerializer( output );
+                    }
+                };
+
+        final MediaType mediaType;
+
+        Format( MediaType mediaType )
+        {
+            this.mediaType = mediaType;
+        }
+
+        /**
+         * The first format named in the accepted media types, ignoring wildcards, or JSON if there is none.
+         */
+        static Format preferredIn( List<MediaType> acceptableMediaTypes )
+        {
+            for ( MediaType type : acceptableMediaTypes )
+            {
+                if ( type.isWildcardType() || type.isWildcardSubtype() )
+                {
+                    continue;
+                }
+                for ( Format format : values() )
+                {
+                    if ( type.isCompatible( format.mediaType ) )
+                    {
+                        return format;
+                    }
+                }
+            }
+            return JSON;
+        }
+
+        abstract StatementDeserializer deserializer( TransactionFacade facade, InputStream input );
+
+        abstract ExecutionResultSerializer serializer( TransactionFacade facade, OutputStream output );
+    }
+
     public static class TransactionUriBuilder implements TransactionUriScheme
     {
         private final UriInfo uriInfo;
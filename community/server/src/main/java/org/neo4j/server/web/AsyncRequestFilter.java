@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.web;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.neo4j.kernel.impl.util.StringLogger;
+
+/**
+ * Limits the number of requests that are served at the same time, without holding a web server thread for each
+ * request waiting for its turn.
+ * <p/>
+ * A request that can not be served right away is suspended with {@link ServletRequest#startAsync()}, which returns
+ * its thread to the web server. When a request being served finishes, the oldest suspended request is resumed with
+ * {@link AsyncContext#dispatch()}, so the container serves it on one of its own threads. When too many requests are
+ * waiting already, requests are refused with {@code 503 Service Unavailable}.
+ * <p/>
+ * Requests continuing a transaction that is already open, such as {@code /transaction/12/commit}, are resumed ahead
+ * of requests starting a new one, since the open transaction holds on to its locks and state until it is finished.
+ * <p/>
+ * Admitted requests are served on the web server threads, and their results are written with blocking writes, so a
+ * slow client holds on to its permit until its whole result has been written.
+ */
+public class AsyncRequestFilter implements Filter
+{
+    private static final String ADMITTED = AsyncRequestFilter.class.getName() + ".admitted";
+    private static final Pattern OPEN_TRANSACTION = Pattern.compile( ".*/transaction/[0-9]+(/.*)?" );
+
+    private final Semaphore permits;
+    private final int queueSize;
+    private final Queue<AsyncContext> waitingInTransaction = new ConcurrentLinkedQueue<>();
+    private final Queue<AsyncContext> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final StringLogger log;
+    private volatile boolean stopped;
+
+    public AsyncRequestFilter( int maxConcurrentRequests, int queueSize, StringLogger log )
+    {
+        this.permits = new Semaphore( maxConcurrentRequests );
+        this.queueSize = queueSize;
+        this.log = log;
+    }
+
+    @Override
+    public void init( FilterConfig filterConfig ) throws ServletException
+    {
+    }
+
+    @Override
+    public void doFilter( ServletRequest request, ServletResponse response, FilterChain chain )
+            throws IOException, ServletException
+    {
+        if ( request.getDispatcherType() == DispatcherType.ASYNC && request.getAttribute( ADMITTED ) != null )
+        {
+            // A suspended request, resumed once it was given a permit
+            request.removeAttribute( ADMITTED );
+            serve( request, response, chain );
+        }
+        else if ( request.getDispatcherType() != DispatcherType.REQUEST || !request.isAsyncSupported() )
+        {
+            chain.doFilter( request, response );
+        }
+        else if ( permits.tryAcquire() )
+        {
+            serve( request, response, chain );
+        }
+        else if ( reserveWaitingSlot() )
+        {
+            AsyncContext async = request.startAsync( request, response );
+            // Transactions have timeouts of their own, and there is no telling how long a request waits for its turn
+            async.setTimeout( 0 );
+            if ( continuesOpenTransaction( (HttpServletRequest) request ) )
+            {
+                waitingInTransaction.add( async );
+            }
+            else
+            {
+                waiting.add( async );
+            }
+            admitWaiting();
+        }
+        else
+        {
+            refuse( (HttpServletResponse) response );
+        }
+    }
+
+    private static boolean continuesOpenTransaction( HttpServletRequest request )
+    {
+        return OPEN_TRANSACTION.matcher( request.getRequestURI() ).matches();
+    }
+
+    private boolean reserveWaitingSlot()
+    {
+        if ( stopped )
+        {
+            return false;
+        }
+        if ( waitingCount.incrementAndGet() > queueSize )
+        {
+            waitingCount.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void serve( ServletRequest request, ServletResponse response, FilterChain chain )
+            throws IOException, ServletException
+    {
+        try
+        {
+            chain.doFilter( request, response );
+        }
+        finally
+        {
+            permits.release();
+            admitWaiting();
+        }
+    }
+
+    private void admitWaiting()
+    {
+        while ( (!waitingInTransaction.isEmpty() || !waiting.isEmpty()) && permits.tryAcquire() )
+        {
+            AsyncContext async = nextWaiting();
+            if ( async == null )
+            {
+                permits.release();
+                return;
+            }
+            waitingCount.decrementAndGet();
+            async.getRequest().setAttribute( ADMITTED, Boolean.TRUE );
+            try
+            {
+                async.dispatch();
+            }
+            catch ( IllegalStateException e )
+            {
+                // The request was completed in the meantime, for example because the client went away
+                log.debug( "Could not resume a suspended request", e );
+                permits.release();
+            }
+        }
+    }
+
+    private AsyncContext nextWaiting()
+    {
+        AsyncContext async = waitingInTransaction.poll();
+        return async != null ? async : waiting.poll();
+    }
+
+    private void refuse( HttpServletResponse response ) throws IOException
+    {
+        response.sendError( HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                "Too many requests are waiting to be served, try again later." );
+    }
+
+    /**
+     * Stops admitting requests, and refuses the requests that are still waiting for their turn.
+     */
+    public void stop()
+    {
+        stopped = true;
+        for ( AsyncContext async = nextWaiting(); async != null; async = nextWaiting() )
+        {
+            waitingCount.decrementAndGet();
+            try
+            {
+                refuse( (HttpServletResponse) async.getResponse() );
+            }
+            catch ( IOException | IllegalStateException e )
+            {
+                log.debug( "Could not refuse a suspended request", e );
+            }
+            finally
+            {
+                async.complete();
+            }
+        }
+    }
+
+    int waitingRequests()
+    {
+        return waitingCount.get();
+    }
+
+    @Override
+    public void destroy()
+    {
+    }
+}
@@ -63,6 +63,7 @@ public abstract class JaxRsServletHolderFactory
         Collection<InjectableProvider<?>> injectableProviders = mergeInjectables( defaultInjectables, injectables );
         ServletContainer container = new NeoServletContainer( injectableProviders );
         ServletHolder servletHolder = new ServletHolder( container );
+        servletHolder.setAsyncSupported( true );
         servletHolder.setInitParameter( ResourceConfig.FEATURE_DISABLE_WADL, String.valueOf( !wadlEnabled ) );
         configure( servletHolder, toCommaSeparatedList( items ) );
         servletHolder.setInitParameter( ResourceConfig.PROPERTY_CONTAINER_RESPONSE_FILTERS, AllowAjaxFilter.class.getName() );
@@ -561,12 +561,19 @@ public class Jetty9WebServer implements WebServer
 
     private void addFiltersTo( ServletContextHandler context )
     {
+        // Requests resumed by an AsyncRequestFilter are dispatched again from the start of the filter chain. The
+        // filters ahead of it have seen those requests already, so they only run on the first dispatch.
+        EnumSet<DispatcherType> dispatches = EnumSet.complementOf( EnumSet.of( DispatcherType.ASYNC ) );
         for ( FilterDefinition filterDef : filters )
         {
-            context.addFilter( new FilterHolder(
-                            filterDef.getFilter() ),
-                    filterDef.getPathSpec(), EnumSet.allOf( DispatcherType.class )
-            );
+            if ( filterDef.getFilter() instanceof AsyncRequestFilter )
+            {
+                dispatches = EnumSet.allOf( DispatcherType.class );
+            }
+            FilterHolder holder = new FilterHolder( filterDef.getFilter() );
+            // Filters must not prevent requests from being handed off to be served asynchronously
+            holder.setAsyncSupported( true );
+            context.addFilter( holder, filterDef.getPathSpec(), dispatches );
         }
     }
 
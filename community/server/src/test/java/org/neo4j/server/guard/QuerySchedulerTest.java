@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.guard;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.server.guard.QueryScheduler.AccessMode.READ;
+import static org.neo4j.server.guard.QueryScheduler.AccessMode.WRITE;
+
+public class QuerySchedulerTest
+{
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldQueueStatementsUntilASlotIsFree() throws Exception
+    {
+        // Given
+        final QueryScheduler scheduler = new QueryScheduler( 1, 1, 10, SECONDS.toMillis( 10 ), 0 );
+        QueryScheduler.Ticket first = scheduler.admit( "transaction", READ );
+
+        // When
+        Future<QueryScheduler.Ticket> second = executor.submit( admit( scheduler, READ ) );
+        awaitQueued( scheduler, 1 );
+
+        // Then
+        assertEquals( 1, scheduler.getActiveReadQueries() );
+        first.close();
+        second.get( 10, SECONDS ).close();
+        assertEquals( 0, scheduler.getActiveReadQueries() );
+        assertEquals( 2, scheduler.getAdmittedQueries() );
+    }
+
+    @Test
+    public void shouldAdmitWritesWhileReadsAreSaturated() throws Exception
+    {
+        // Given
+        QueryScheduler scheduler = new QueryScheduler( 1, 1, 10, 0, 0 );
+        scheduler.admit( "transaction", READ );
+
+        // When
+        scheduler.admit( "transaction", WRITE );
+
+        // Then
+        assertEquals( 1, scheduler.getActiveReadQueries() );
+        assertEquals( 1, scheduler.getActiveWriteQueries() );
+    }
+
+    @Test
+    public void shouldRejectStatementsThatWaitLongerThanTheQueueTimeout() throws Exception
+    {
+        // Given
+        QueryScheduler scheduler = new QueryScheduler( 1, 1, 10, 10, 0 );
+        scheduler.admit( "transaction", WRITE );
+
+        // When
+        try
+        {
+            scheduler.admit( "transaction", WRITE );
+            fail( "Should not have been admitted" );
+        }
+        catch ( QueryAdmissionException e )
+        {
+            // Then
+            assertEquals( 1, scheduler.getRejectedQueries() );
+            assertEquals( 0, scheduler.getQueuedWriteQueries() );
+        }
+    }
+
+    @Test
+    public void shouldOnlyAdmitAsManyStatementsOfAllClassesAsTheConcurrentQueryLimitAllows() throws Exception
+    {
+        // Given
+        QueryScheduler scheduler = new QueryScheduler( 10, 10, 10, 10, 2 );
+        QueryScheduler.Ticket first = scheduler.admit( "transaction", READ );
+        scheduler.admit( "transaction", READ );
+
+        // When
+        try
+        {
+            scheduler.admit( "transaction", WRITE );
+            fail( "Should not have been admitted" );
+        }
+        catch ( QueryAdmissionException e )
+        {
+            // Then
+            assertEquals( 2, scheduler.getActiveReadQueries() );
+            assertEquals( 0, scheduler.getActiveWriteQueries() );
+        }
+        first.close();
+        scheduler.admit( "transaction", WRITE );
+    }
+
+    @Test
+    public void shouldRefuseStatementsWhenTheQueueIsFull() throws Exception
+    {
+        // Given
+        QueryScheduler scheduler = new QueryScheduler( 1, 1, 1, SECONDS.toMillis( 10 ), 0 );
+        scheduler.admit( "transaction", READ );
+        executor.submit( admit( scheduler, READ ) );
+        awaitQueued( scheduler, 1 );
+
+        // When
+        try
+        {
+            scheduler.admit( "transaction", READ );
+            fail( "Should not have been admitted" );
+        }
+        catch ( QueryAdmissionException e )
+        {
+            // Then
+            assertTrue( scheduler.getQueryClasses()[0].contains( "1 rejected" ) );
+        }
+    }
+
+    private Callable<QueryScheduler.Ticket> admit( final QueryScheduler scheduler, final QueryScheduler.AccessMode mode )
+    {
+        return new Callable<QueryScheduler.Ticket>()
+        {
+            @Override
+            public QueryScheduler.Ticket call() throws Exception
+            {
+                return scheduler.admit( "transaction", mode );
+            }
+        };
+    }
+
+    private void awaitQueued( QueryScheduler scheduler, int queued ) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + SECONDS.toMillis( 10 );
+        while ( scheduler.getQueuedReadQueries() != queued )
+        {
+            if ( System.currentTimeMillis() > end )
+            {
+                fail( "Expected " + queued + " queued statements, but had " + scheduler.getQueuedReadQueries() );
+            }
+            Thread.sleep( 1 );
+        }
+    }
+}
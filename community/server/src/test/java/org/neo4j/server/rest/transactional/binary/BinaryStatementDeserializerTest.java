@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+
+import org.junit.Test;
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.server.rest.transactional.Statement;
+import org.neo4j.server.rest.transactional.error.Neo4jError;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.neo4j.helpers.collection.MapUtil.map;
+
+public class BinaryStatementDeserializerTest
+{
+    @Test
+    public void shouldDeserializeStatements() throws Exception
+    {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChunkedOutputStream chunks = new ChunkedOutputStream( bytes );
+        ValueWriter out = new ValueWriter( chunks );
+        writeStatement( out, "MATCH (n) RETURN n", map( "one", 12L ), false );
+        writeStatement( out, "CREATE (n)", null, true );
+        out.writeTag( BinaryProtocol.END );
+        out.flush();
+        chunks.close();
+
+        // When
+        BinaryStatementDeserializer de = new BinaryStatementDeserializer(
+                new ByteArrayInputStream( bytes.toByteArray() ) );
+
+        // Then
+        assertThat( de.hasNext(), equalTo( true ) );
+        Statement first = de.next();
+        assertThat( first.statement(), equalTo( "MATCH (n) RETURN n" ) );
+        assertThat( first.parameters(), equalTo( map( "one", 12L ) ) );
+        assertThat( first.includeStats(), equalTo( false ) );
+
+        assertThat( de.hasNext(), equalTo( true ) );
+        Statement second = de.next();
+        assertThat( second.statement(), equalTo( "CREATE (n)" ) );
+        assertThat( second.parameters().isEmpty(), equalTo( true ) );
+        assertThat( second.includeStats(), equalTo( true ) );
+
+        assertThat( de.hasNext(), equalTo( false ) );
+        assertThat( de.errors().hasNext(), equalTo( false ) );
+    }
+
+    @Test
+    public void shouldAcceptEmptyRequestBody() throws Exception
+    {
+        // When
+        BinaryStatementDeserializer de = new BinaryStatementDeserializer( new ByteArrayInputStream( new byte[0] ) );
+
+        // Then
+        assertThat( de.hasNext(), equalTo( false ) );
+        assertThat( de.errors().hasNext(), equalTo( false ) );
+    }
+
+    @Test
+    public void shouldReportTruncatedRequest() throws Exception
+    {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChunkedOutputStream chunks = new ChunkedOutputStream( bytes );
+        ValueWriter out = new ValueWriter( chunks );
+        writeStatement( out, "RETURN 1", null, false );
+        out.flush();
+        chunks.flush();
+
+        // When
+        BinaryStatementDeserializer de = new BinaryStatementDeserializer(
+                new ByteArrayInputStream( bytes.toByteArray() ) );
+
+        // Then
+        assertThat( de.hasNext(), equalTo( true ) );
+        de.next();
+        assertThat( de.hasNext(), equalTo( false ) );
+        assertSingleError( de.errors(), Status.Request.InvalidFormat );
+    }
+
+    @Test
+    public void shouldReportUnknownRecord() throws Exception
+    {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChunkedOutputStream chunks = new ChunkedOutputStream( bytes );
+        ValueWriter out = new ValueWriter( chunks );
+        out.writeTag( (byte) 'Q' );
+        out.flush();
+        chunks.close();
+
+        // When
+        BinaryStatementDeserializer de = new BinaryStatementDeserializer(
+                new ByteArrayInputStream( bytes.toByteArray() ) );
+
+        // Then
+        assertThat( de.hasNext(), equalTo( false ) );
+        assertSingleError( de.errors(), Status.Request.InvalidFormat );
+    }
+
+    @Test
+    public void shouldReportNegativeLength() throws Exception
+    {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChunkedOutputStream chunks = new ChunkedOutputStream( bytes );
+        ValueWriter out = new ValueWriter( chunks );
+        out.writeTag( BinaryProtocol.STATEMENT );
+        out.writeInt( -1 );
+        out.flush();
+        chunks.close();
+
+        // When
+        BinaryStatementDeserializer de = new BinaryStatementDeserializer(
+                new ByteArrayInputStream( bytes.toByteArray() ) );
+
+        // Then
+        assertThat( de.hasNext(), equalTo( false ) );
+        assertSingleError( de.errors(), Status.Request.InvalidFormat );
+    }
+
+    @Test
+    public void shouldReportLengthAboveLimit() throws Exception
+    {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChunkedOutputStream chunks = new ChunkedOutputStream( bytes );
+        ValueWriter out = new ValueWriter( chunks );
+        writeStatement( out, "MATCH (n) RETURN n", null, false );
+        out.writeTag( BinaryProtocol.END );
+        out.flush();
+        chunks.close();
+
+        // When
+        BinaryStatementDeserializer de = new BinaryStatementDeserializer(
+                new ByteArrayInputStream( bytes.toByteArray() ), 8 );
+
+        // Then
+        assertThat( de.hasNext(), equalTo( false ) );
+        assertSingleError( de.errors(), Status.Request.InvalidFormat );
+    }
+
+    @Test
+    public void shouldReportEntityParameter() throws Exception
+    {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChunkedOutputStream chunks = new ChunkedOutputStream( bytes );
+        ValueWriter out = new ValueWriter( chunks );
+        out.writeTag( BinaryProtocol.STATEMENT );
+        out.writeString( "RETURN {node}" );
+        out.writeTag( BinaryProtocol.MAP );
+        out.writeInt( 1 );
+        out.writeString( "node" );
+        out.writeTag( BinaryProtocol.NODE );
+        out.writeLong( 0 );
+        out.flush();
+        chunks.close();
+
+        // When
+        BinaryStatementDeserializer de = new BinaryStatementDeserializer(
+                new ByteArrayInputStream( bytes.toByteArray() ) );
+
+        // Then
+        assertThat( de.hasNext(), equalTo( false ) );
+        assertSingleError( de.errors(), Status.Request.InvalidFormat );
+    }
+
+    private void writeStatement( ValueWriter out, String statement, Object parameters, boolean includeStats )
+            throws Exception
+    {
+        out.writeTag( BinaryProtocol.STATEMENT );
+        out.writeString( statement );
+        out.write( parameters );
+        out.writeBoolean( includeStats );
+    }
+
+    private void assertSingleError( Iterator<Neo4jError> errors, Status status )
+    {
+        assertThat( errors.hasNext(), equalTo( true ) );
+        assertThat( errors.next().status(), equalTo( status ) );
+        assertThat( errors.hasNext(), equalTo( false ) );
+    }
+}
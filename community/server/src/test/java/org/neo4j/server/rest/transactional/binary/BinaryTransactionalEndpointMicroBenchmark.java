@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+import org.neo4j.server.NeoServer;
+import org.neo4j.server.helpers.ServerHelper;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import static org.neo4j.helpers.collection.MapUtil.map;
+
+/**
+ * Compares streaming a large result through the JSON and the binary transactional endpoint.
+ */
+public class BinaryTransactionalEndpointMicroBenchmark
+{
+    private static final String QUERY = "MATCH (n:Item) RETURN n.id, n.name, n.score";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public static void main( String... args ) throws Exception
+    {
+        int nodes = Integer.getInteger( "nodes", 100_000 );
+        int iterations = Integer.getInteger( "iterations", 10 );
+
+        NeoServer server = ServerHelper.createNonPersistentServer();
+        try
+        {
+            URI dataUri = server.baseUri().resolve( "db/data/" );
+            BinaryCypherClient client = new BinaryCypherClient( dataUri );
+            client.execute( new BinaryCypherClient.Statement(
+                    "UNWIND range(1, {nodes}) AS i CREATE (:Item {id: i, name: 'item ' + i, score: i / 3.0})",
+                    map( "nodes", nodes ) ) ).close();
+
+            for ( int i = 0; i < iterations; i++ )
+            {
+                report( "json", nodes, json( dataUri, nodes ) );
+                report( "binary", nodes, binary( client ) );
+            }
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    private static long json( URI dataUri, int expectedRows ) throws IOException
+    {
+        long start = nanoTime();
+        HttpURLConnection connection = (HttpURLConnection) dataUri.resolve( "transaction/commit" ).toURL()
+                .openConnection();
+        connection.setRequestMethod( "POST" );
+        connection.setDoOutput( true );
+        connection.setRequestProperty( "Content-Type", "application/json" );
+        connection.setRequestProperty( "Accept", "application/json" );
+        try ( OutputStream body = connection.getOutputStream() )
+        {
+            body.write( ("{\"statements\":[{\"statement\":\"" + QUERY + "\"}]}").getBytes( StandardCharsets.UTF_8 ) );
+        }
+        int rows = 0;
+        try ( InputStream body = connection.getInputStream();
+              JsonParser parser = JSON_FACTORY.createJsonParser( body ) )
+        {
+            // Parse every value of the response, as the binary client decodes every value it reads
+            for ( JsonToken token = parser.nextToken(); token != null; token = parser.nextToken() )
+            {
+                if ( token == JsonToken.FIELD_NAME && "row".equals( parser.getCurrentName() ) )
+                {
+                    rows++;
+                }
+                else if ( token == JsonToken.VALUE_STRING )
+                {
+                    parser.getText();
+                }
+                else if ( token.isNumeric() )
+                {
+                    parser.getNumberValue();
+                }
+            }
+        }
+        if ( rows != expectedRows )
+        {
+            throw new IllegalStateException( "Expected " + expectedRows + " rows, but parsed " + rows );
+        }
+        return nanoTime() - start;
+    }
+
+    private static long binary( BinaryCypherClient client ) throws IOException
+    {
+        long start = nanoTime();
+        try ( BinaryCypherClient.Response response = client.execute( new BinaryCypherClient.Statement( QUERY ) ) )
+        {
+            BinaryCypherClient.Response.Result result = response.nextResult();
+            while ( result.next() )
+            {
+                result.get( 0 );
+            }
+        }
+        return nanoTime() - start;
+    }
+
+    private static void report( String protocol, int rows, long nanos )
+    {
+        long millis = Math.max( 1, NANOSECONDS.toMillis( nanos ) );
+        System.out.printf( "%-6s %,d rows in %,d ms: %,d rows/s%n", protocol, rows, millis, rows * 1000L / millis );
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.neo4j.helpers.collection.MapUtil.map;
+
+public class ValueWriterTest
+{
+    @Test
+    public void shouldRoundTripValuesAcrossChunks() throws Exception
+    {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChunkedOutputStream chunks = new ChunkedOutputStream( bytes, 16 );
+        ValueWriter out = new ValueWriter( chunks );
+        Map<String, Object> map = map( "name", "Tobias", "age", 42L, "height", 1.8, "tags", asList( "a", "b" ) );
+
+        // When
+        out.write( map );
+        out.write( null );
+        out.write( true );
+        out.write( 7 );
+        out.write( new String[]{"x", "y"} );
+        out.write( "åäö" );
+        out.flush();
+        chunks.close();
+
+        // Then
+        ValueReader in = new ValueReader( new ChunkedInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) );
+        assertThat( in.read(), equalTo( (Object) map ) );
+        assertThat( in.read(), equalTo( null ) );
+        assertThat( in.read(), equalTo( (Object) Boolean.TRUE ) );
+        assertThat( in.read(), equalTo( (Object) 7L ) );
+        assertThat( in.read(), equalTo( (Object) asList( "x", "y" ) ) );
+        assertThat( in.read(), equalTo( (Object) "åäö" ) );
+        assertEndOfMessage( in );
+    }
+
+    @Test
+    public void shouldWriteNodes() throws Exception
+    {
+        // Given
+        Node node = mock( Node.class );
+        when( node.getId() ).thenReturn( 3L );
+        when( node.getLabels() ).thenReturn( Arrays.<Label>asList( DynamicLabel.label( "Person" ) ) );
+        when( node.getPropertyKeys() ).thenReturn( asList( "name" ) );
+        when( node.getProperty( "name" ) ).thenReturn( "Emil" );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChunkedOutputStream chunks = new ChunkedOutputStream( bytes );
+        ValueWriter out = new ValueWriter( chunks );
+
+        // When
+        out.write( node );
+        out.flush();
+        chunks.close();
+
+        // Then
+        ValueReader in = new ValueReader( new ChunkedInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) );
+        BinaryCypherClient.Node read = (BinaryCypherClient.Node) in.read();
+        assertThat( read.id(), equalTo( 3L ) );
+        assertThat( read.labels(), equalTo( (List<String>) asList( "Person" ) ) );
+        assertThat( read.properties(), equalTo( (Map<String, Object>) map( "name", "Emil" ) ) );
+    }
+
+    @Test
+    public void shouldFailOnTruncatedChunk() throws Exception
+    {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChunkedOutputStream chunks = new ChunkedOutputStream( bytes );
+        new ValueWriter( chunks ).writeString( "a string that will be cut short" );
+        chunks.flush();
+        byte[] truncated = Arrays.copyOf( bytes.toByteArray(), 10 );
+
+        // When
+        InputStream in = new ChunkedInputStream( new ByteArrayInputStream( truncated ) );
+        try
+        {
+            new ValueReader( in ).readString();
+            fail( "Should have failed" );
+        }
+        // Then
+        catch ( EOFException e )
+        {
+            // expected
+        }
+    }
+
+    private void assertEndOfMessage( ValueReader in ) throws IOException
+    {
+        try
+        {
+            in.readTag();
+            fail( "Expected the end of the message" );
+        }
+        catch ( EOFException e )
+        {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.transactional.integration;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.server.rest.AbstractRestFunctionalTestBase;
+import org.neo4j.server.rest.transactional.binary.BinaryCypherClient;
+import org.neo4j.server.rest.transactional.binary.BinaryCypherClient.Response;
+import org.neo4j.server.rest.transactional.binary.BinaryCypherClient.Statement;
+import org.neo4j.server.rest.transactional.binary.BinaryCypherClient.Transaction;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import static org.neo4j.helpers.collection.MapUtil.map;
+
+public class BinaryTransactionIT extends AbstractRestFunctionalTestBase
+{
+    private final BinaryCypherClient client = new BinaryCypherClient( URI.create( getDataUri() ) );
+
+    @Test
+    public void shouldStreamRowsOfCommittedStatement() throws Exception
+    {
+        try ( Response response = client.execute( new Statement( "UNWIND range(1, {count}) AS i RETURN i, 'row' + i AS name",
+                map( "count", 1000 ) ) ) )
+        {
+            BinaryCypherClient.Response.Result result = response.nextResult();
+            assertThat( result.columns(), equalTo( asList( "i", "name" ) ) );
+
+            long rows = 0;
+            while ( result.next() )
+            {
+                rows++;
+                assertThat( result.get( 0 ), equalTo( (Object) rows ) );
+                assertThat( result.get( "name" ), equalTo( (Object) ("row" + rows) ) );
+            }
+            assertThat( rows, equalTo( 1000L ) );
+            assertThat( response.hasNextResult(), equalTo( false ) );
+            assertThat( response.errors().isEmpty(), equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void shouldReturnEntitiesAndStatistics() throws Exception
+    {
+        try ( Response response = client.execute( new Statement(
+                "CREATE p = (a:Person {name: 'a'})-[r:KNOWS]->(b:Person {name: 'b'}) RETURN a, r, p",
+                map(), true ) ) )
+        {
+            BinaryCypherClient.Response.Result result = response.nextResult();
+            assertThat( result.next(), equalTo( true ) );
+
+            BinaryCypherClient.Node node = (BinaryCypherClient.Node) result.get( "a" );
+            assertThat( node.labels(), equalTo( asList( "Person" ) ) );
+            assertThat( node.properties().get( "name" ), equalTo( (Object) "a" ) );
+
+            BinaryCypherClient.Relationship relationship = (BinaryCypherClient.Relationship) result.get( "r" );
+            assertThat( relationship.type(), equalTo( "KNOWS" ) );
+            assertThat( relationship.startNodeId(), equalTo( node.id() ) );
+
+            BinaryCypherClient.Path path = (BinaryCypherClient.Path) result.get( "p" );
+            assertThat( path.length(), equalTo( 1 ) );
+
+            assertThat( result.next(), equalTo( false ) );
+            assertThat( result.stats().get( "nodes_created" ), equalTo( (Object) 2 ) );
+            assertThat( result.stats().get( "relationships_created" ), equalTo( (Object) 1 ) );
+        }
+    }
+
+    @Test
+    public void shouldReportErrors() throws Exception
+    {
+        try ( Response response = client.execute( new Statement( "THIS IS NOT CYPHER" ) ) )
+        {
+            List<BinaryCypherClient.Error> errors = response.errors();
+            assertThat( errors.size(), equalTo( 1 ) );
+            assertThat( errors.get( 0 ).code(), equalTo( Status.Statement.InvalidSyntax.code().serialize() ) );
+        }
+    }
+
+    @Test
+    public void begin__execute__commit() throws Exception
+    {
+        long nodesBefore = countNodes();
+
+        Transaction transaction = client.begin();
+        assertThat( transaction.response().transactionExpires(), notNullValue() );
+
+        Response execute = transaction.execute( new Statement( "CREATE (n)" ) );
+        assertThat( execute.errors().isEmpty(), equalTo( true ) );
+
+        Response commit = transaction.commit();
+        assertThat( commit.errors().isEmpty(), equalTo( true ) );
+        assertThat( commit.transactionExpires(), nullValue() );
+        commit.close();
+
+        assertThat( countNodes(), equalTo( nodesBefore + 1 ) );
+    }
+
+    @Test
+    public void begin__execute__rollback() throws Exception
+    {
+        long nodesBefore = countNodes();
+
+        Transaction transaction = client.begin( new Statement( "CREATE (n)" ) );
+        assertThat( transaction.response().errors().isEmpty(), equalTo( true ) );
+
+        transaction.rollback().close();
+
+        assertThat( countNodes(), equalTo( nodesBefore ) );
+    }
+
+    private long countNodes() throws Exception
+    {
+        try ( Response response = client.execute( new Statement( "MATCH (n) RETURN count(n)" ) ) )
+        {
+            BinaryCypherClient.Response.Result result = response.nextResult();
+            result.next();
+            return (Long) result.get( 0 );
+        }
+    }
+}
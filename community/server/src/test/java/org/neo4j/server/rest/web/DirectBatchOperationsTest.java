@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.rest.web;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.UriInfo;
+
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.helpers.FakeClock;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.server.rest.domain.BatchOperationFailedException;
+import org.neo4j.server.rest.domain.JsonHelper;
+import org.neo4j.server.rest.paging.LeaseManager;
+import org.neo4j.server.rest.repr.OutputFormat;
+import org.neo4j.server.rest.repr.formats.JsonFormat;
+import org.neo4j.server.web.WebServer;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DirectBatchOperationsTest
+{
+    private static final URI BASE_URI = URI.create( "http://localhost:7474/db/data/" );
+
+    private GraphDatabaseAPI graph;
+    private WebServer webServer;
+    private DirectBatchOperations operations;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp()
+    {
+        graph = (GraphDatabaseAPI) new TestGraphDatabaseFactory().newImpermanentDatabase();
+        webServer = mock( WebServer.class );
+        operations = new DirectBatchOperations( webServer,
+                new DatabaseActions( new LeaseManager( new FakeClock() ), ForceMode.forced, graph ),
+                new OutputFormat( new JsonFormat(), BASE_URI, null ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        graph.shutdown();
+    }
+
+    @Test
+    public void shouldExecuteJobsWithoutDispatchingThem() throws Exception
+    {
+        // Given
+        String batch = "[" +
+                "{\"method\":\"POST\",\"to\":\"/node\",\"id\":0,\"body\":{\"name\":\"a\"}}," +
+                "{\"method\":\"POST\",\"to\":\"/node\",\"id\":1}," +
+                "{\"method\":\"POST\",\"to\":\"{0}/relationships\",\"id\":2," +
+                "\"body\":{\"to\":\"{1}\",\"type\":\"KNOWS\",\"data\":{\"since\":2010}}}," +
+                "{\"method\":\"PUT\",\"to\":\"{1}/properties/name\",\"id\":3,\"body\":\"b\"}," +
+                "{\"method\":\"POST\",\"to\":\"{1}/labels\",\"id\":4,\"body\":\"Person\"}" +
+                "]";
+
+        // When
+        List<Map<String, Object>> results = execute( batch );
+
+        // Then
+        verify( webServer, never() ).invokeDirectly( anyString(), any( InternalJettyServletRequest.class ),
+                any( InternalJettyServletResponse.class ) );
+        assertEquals( 5, results.size() );
+        assertEquals( 201, results.get( 0 ).get( "status" ) );
+        assertEquals( 201, results.get( 2 ).get( "status" ) );
+        assertEquals( 204, results.get( 3 ).get( "status" ) );
+        assertEquals( 204, results.get( 4 ).get( "status" ) );
+
+        String firstLocation = (String) results.get( 0 ).get( "location" );
+        String secondLocation = (String) results.get( 1 ).get( "location" );
+        assertEquals( firstLocation + "/relationships", results.get( 2 ).get( "from" ) );
+        assertEquals( "a", ((Map<?, ?>) ((Map<?, ?>) results.get( 0 ).get( "body" )).get( "data" )).get( "name" ) );
+
+        try ( Transaction ignored = graph.beginTx() )
+        {
+            Node first = graph.getNodeById( idOf( firstLocation ) );
+            Node second = graph.getNodeById( idOf( secondLocation ) );
+            Relationship knows = first.getSingleRelationship( DynamicRelationshipType.withName( "KNOWS" ),
+                    Direction.OUTGOING );
+            assertEquals( second, knows.getEndNode() );
+            assertEquals( 2010, knows.getProperty( "since" ) );
+            assertEquals( "b", second.getProperty( "name" ) );
+            assertEquals( true, second.hasLabel( DynamicLabel.label( "Person" ) ) );
+        }
+    }
+
+    @Test
+    public void shouldReportFailingJobAsDispatchedRequestWould() throws Exception
+    {
+        // Given
+        String batch = "[{\"method\":\"PUT\",\"to\":\"/node/1234/properties\",\"id\":0,\"body\":{\"name\":\"a\"}}]";
+
+        // When
+        try
+        {
+            execute( batch );
+            fail( "Should have failed" );
+        }
+        catch ( BatchOperationFailedException e )
+        {
+            // Then
+            assertEquals( 404, e.getStatus() );
+        }
+        List<Map<String, Object>> results = JsonHelper.jsonToList( output.toString( "UTF-8" ) );
+        assertEquals( 404, results.get( 0 ).get( "status" ) );
+    }
+
+    private List<Map<String, Object>> execute( String batch ) throws Exception
+    {
+        UriInfo uriInfo = mock( UriInfo.class );
+        when( uriInfo.getBaseUri() ).thenReturn( BASE_URI );
+        HttpHeaders headers = mock( HttpHeaders.class );
+        when( headers.getRequestHeaders() ).thenReturn( new MultivaluedMapImpl() );
+
+        try ( Transaction tx = graph.beginTx() )
+        {
+            operations.readAndExecuteOperations( uriInfo, headers,
+                    new ByteArrayInputStream( batch.getBytes( "UTF-8" ) ), servletOutputStream() );
+            tx.success();
+        }
+        return JsonHelper.jsonToList( output.toString( "UTF-8" ) );
+    }
+
+    private long idOf( String location )
+    {
+        return Long.parseLong( location.substring( location.lastIndexOf( '/' ) + 1 ) );
+    }
+
+    private ServletOutputStream servletOutputStream()
+    {
+        return new ServletOutputStream()
+        {
+            @Override
+            public void write( int b ) throws IOException
+            {
+                output.write( b );
+            }
+
+            @Override
+            public boolean isReady()
+            {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener( WriteListener writeListener )
+            {
+            }
+        };
+    }
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.server.web;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.junit.After;
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.kernel.logging.DevNullLoggingService;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class AsyncRequestFilterTest
+{
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch( 1 );
+    private final AtomicInteger served = new AtomicInteger();
+    private final List<String> servedPaths = new CopyOnWriteArrayList<>();
+    private Server server;
+    private Jetty9WebServer webServer;
+    private AsyncRequestFilter filter;
+    private int port;
+
+    @After
+    public void stop() throws Exception
+    {
+        release.countDown();
+        clients.shutdownNow();
+        if ( server != null )
+        {
+            server.stop();
+        }
+        if ( webServer != null )
+        {
+            webServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldServeRequestsDirectlyWhileBelowTheLimit() throws Exception
+    {
+        // Given
+        start( 2, 10 );
+
+        // When
+        int status = get( "/fast" );
+
+        // Then
+        assertEquals( HttpServletResponse.SC_OK, status );
+        assertEquals( 1, served.get() );
+    }
+
+    @Test
+    public void shouldResumeWaitingRequestWhenRequestBeingServedFinishes() throws Exception
+    {
+        // Given
+        start( 1, 10 );
+        Future<Integer> blocking = getInBackground( "/block" );
+        awaitServed( 1 );
+
+        // When
+        Future<Integer> waiting = getInBackground( "/fast" );
+        awaitWaiting( 1 );
+        release.countDown();
+
+        // Then
+        assertEquals( HttpServletResponse.SC_OK, (int) blocking.get( 10, TimeUnit.SECONDS ) );
+        assertEquals( HttpServletResponse.SC_OK, (int) waiting.get( 10, TimeUnit.SECONDS ) );
+        assertEquals( 2, served.get() );
+        assertEquals( 0, filter.waitingRequests() );
+    }
+
+    @Test
+    public void shouldRefuseRequestsWhenTooManyAreWaiting() throws Exception
+    {
+        // Given
+        start( 1, 1 );
+        Future<Integer> blocking = getInBackground( "/block" );
+        awaitServed( 1 );
+        Future<Integer> waiting = getInBackground( "/fast" );
+        awaitWaiting( 1 );
+
+        // When
+        int status = get( "/fast" );
+
+        // Then
+        assertEquals( HttpServletResponse.SC_SERVICE_UNAVAILABLE, status );
+        release.countDown();
+        assertEquals( HttpServletResponse.SC_OK, (int) blocking.get( 10, TimeUnit.SECONDS ) );
+        assertEquals( HttpServletResponse.SC_OK, (int) waiting.get( 10, TimeUnit.SECONDS ) );
+    }
+
+    @Test
+    public void shouldRefuseWaitingRequestsWhenStopped() throws Exception
+    {
+        // Given
+        start( 1, 10 );
+        Future<Integer> blocking = getInBackground( "/block" );
+        awaitServed( 1 );
+        Future<Integer> waiting = getInBackground( "/fast" );
+        awaitWaiting( 1 );
+
+        // When
+        filter.stop();
+
+        // Then
+        assertEquals( HttpServletResponse.SC_SERVICE_UNAVAILABLE, (int) waiting.get( 10, TimeUnit.SECONDS ) );
+        release.countDown();
+        assertEquals( HttpServletResponse.SC_OK, (int) blocking.get( 10, TimeUnit.SECONDS ) );
+    }
+
+    @Test
+    public void shouldResumeRequestsForOpenTransactionsFirst() throws Exception
+    {
+        // Given
+        start( 1, 10 );
+        Future<Integer> blocking = getInBackground( "/block" );
+        awaitServed( 1 );
+        Future<Integer> starting = getInBackground( "/transaction" );
+        awaitWaiting( 1 );
+        Future<Integer> continuing = getInBackground( "/transaction/12/commit" );
+        awaitWaiting( 2 );
+
+        // When
+        release.countDown();
+
+        // Then
+        assertEquals( HttpServletResponse.SC_OK, (int) blocking.get( 10, TimeUnit.SECONDS ) );
+        assertEquals( HttpServletResponse.SC_OK, (int) starting.get( 10, TimeUnit.SECONDS ) );
+        assertEquals( HttpServletResponse.SC_OK, (int) continuing.get( 10, TimeUnit.SECONDS ) );
+        assertEquals( asList( "/block", "/transaction/12/commit", "/transaction" ), servedPaths );
+    }
+
+    @Test
+    public void shouldNotRunFiltersAheadOfItAgainWhenResumingRequest() throws Exception
+    {
+        // Given
+        final AtomicInteger resumedAheadOfFilter = new AtomicInteger();
+        filter = new AsyncRequestFilter( 1, 10, StringLogger.DEV_NULL );
+        webServer = new Jetty9WebServer( DevNullLoggingService.DEV_NULL );
+        webServer.setAddress( "127.0.0.1" );
+        port = 7879;
+        webServer.setPort( port );
+        webServer.addJAXRSClasses( asList( HelloWorldWebResource.class.getName() ), "/", null );
+        webServer.addFilter( new PassThroughFilter()
+        {
+            @Override
+            public void doFilter( ServletRequest request, ServletResponse response, FilterChain chain )
+                    throws IOException, ServletException
+            {
+                if ( request.getDispatcherType() == DispatcherType.ASYNC )
+                {
+                    resumedAheadOfFilter.incrementAndGet();
+                }
+                chain.doFilter( request, response );
+            }
+        }, "/*" );
+        webServer.addFilter( filter, "/*" );
+        webServer.addFilter( new PassThroughFilter()
+        {
+            @Override
+            public void doFilter( ServletRequest request, ServletResponse response, FilterChain chain )
+                    throws IOException, ServletException
+            {
+                serve( (HttpServletRequest) request );
+                chain.doFilter( request, response );
+            }
+        }, "/*" );
+        webServer.start();
+        Future<Integer> blocking = getInBackground( "/block" );
+        awaitServed( 1 );
+        Future<Integer> waiting = getInBackground( "/fast" );
+        awaitWaiting( 1 );
+
+        // When
+        release.countDown();
+        blocking.get( 10, TimeUnit.SECONDS );
+        waiting.get( 10, TimeUnit.SECONDS );
+
+        // Then
+        assertEquals( 2, served.get() );
+        assertEquals( 0, resumedAheadOfFilter.get() );
+    }
+
+    private void start( int maxConcurrentRequests, int queueSize ) throws Exception
+    {
+        filter = new AsyncRequestFilter( maxConcurrentRequests, queueSize, StringLogger.DEV_NULL );
+        server = new Server( 0 );
+        ServletContextHandler context = new ServletContextHandler();
+        FilterHolder filterHolder = new FilterHolder( filter );
+        filterHolder.setAsyncSupported( true );
+        context.addFilter( filterHolder, "/*", EnumSet.allOf( DispatcherType.class ) );
+        ServletHolder servletHolder = new ServletHolder( new HttpServlet()
+        {
+            @Override
+            protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws IOException
+            {
+                serve( request );
+                response.setStatus( HttpServletResponse.SC_OK );
+            }
+        } );
+        servletHolder.setAsyncSupported( true );
+        context.addServlet( servletHolder, "/*" );
+        server.setHandler( context );
+        server.start();
+        port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+    }
+
+    private void serve( HttpServletRequest request )
+    {
+        served.incrementAndGet();
+        servedPaths.add( request.getRequestURI() );
+        if ( request.getRequestURI().endsWith( "/block" ) )
+        {
+            try
+            {
+                release.await();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int get( String path ) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL( "http://localhost:" + port + path )
+                .openConnection();
+        try
+        {
+            return connection.getResponseCode();
+        }
+        finally
+        {
+            connection.disconnect();
+        }
+    }
+
+    private Future<Integer> getInBackground( final String path )
+    {
+        return clients.submit( new Callable<Integer>()
+        {
+            @Override
+            public Integer call() throws Exception
+            {
+                return get( path );
+            }
+        } );
+    }
+
+    private abstract static class PassThroughFilter implements Filter
+    {
+        @Override
+        public void init( FilterConfig filterConfig )
+        {
+        }
+
+        @Override
+        public void destroy()
+        {
+        }
+    }
+
+    private void awaitServed( int requests ) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 10 );
+        while ( served.get() < requests && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 10 );
+        }
+        assertEquals( requests, served.get() );
+    }
+
+    private void awaitWaiting( int requests ) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 10 );
+        while ( filter.waitingRequests() < requests && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 10 );
+        }
+        assertEquals( requests, filter.waitingRequests() );
+    }
+}
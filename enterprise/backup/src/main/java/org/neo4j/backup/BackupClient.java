@@ -19,6 +19,8 @@
  */
 package org.neo4j.backup;
 
+import java.io.IOException;
+
 import org.jboss.netty.buffer.ChannelBuffer;
 
 import org.neo4j.com.Client;
@@ -27,7 +29,9 @@ import org.neo4j.com.Protocol;
 import org.neo4j.com.RequestContext;
 import org.neo4j.com.RequestType;
 import org.neo4j.com.Response;
+import org.neo4j.com.Serializer;
 import org.neo4j.com.TargetCaller;
+import org.neo4j.com.storecopy.StoreCopyProgress;
 import org.neo4j.com.storecopy.StoreWriter;
 import org.neo4j.com.storecopy.ToNetworkStoreWriter;
 import org.neo4j.kernel.impl.nioneo.store.StoreId;
@@ -39,10 +43,21 @@ import static org.neo4j.backup.BackupServer.PROTOCOL_VERSION;
 
 class BackupClient extends Client<TheBackupInterface> implements TheBackupInterface
 {
+    private final boolean compressStoreCopy;
+    private final boolean compressTxStreams;
+
     public BackupClient( String hostNameOrIp, int port, Logging logging, Monitors monitors, StoreId storeId )
+    {
+        this( hostNameOrIp, port, logging, monitors, storeId, false, false );
+    }
+
+    public BackupClient( String hostNameOrIp, int port, Logging logging, Monitors monitors, StoreId storeId,
+            boolean compressStoreCopy, boolean compressTxStreams )
     {
         super( hostNameOrIp, port, logging, monitors, storeId, FRAME_LENGTH, PROTOCOL_VERSION, 40 * 1000,
                 Client.DEFAULT_MAX_NUMBER_OF_CONCURRENT_CHANNELS_PER_CLIENT, FRAME_LENGTH );
+        this.compressStoreCopy = compressStoreCopy;
+        this.compressTxStreams = compressTxStreams;
     }
 
     @Override
@@ -52,6 +67,19 @@ class BackupClient extends Client<TheBackupInterface> implements TheBackupInterf
                 Protocol.EMPTY_SERIALIZER, new Protocol.FileStreamsDeserializer( storeWriter ) );
     }
 
+    @Override
+    public Response<Void> resumableFullBackup( StoreWriter storeWriter, final StoreCopyProgress progress )
+    {
+        return sendRequest( BackupRequestType.RESUMABLE_FULL_BACKUP, RequestContext.EMPTY, new Serializer()
+        {
+            @Override
+            public void write( ChannelBuffer buffer ) throws IOException
+            {
+                progress.serialize( buffer );
+            }
+        }, new Protocol.FileStreamsDeserializer( storeWriter ) );
+    }
+
     @Override
     public Response<Void> incrementalBackup( RequestContext context )
     {
@@ -62,7 +90,13 @@ class BackupClient extends Client<TheBackupInterface> implements TheBackupInterf
     @Override
     protected boolean shouldCheckStoreId( RequestType<TheBackupInterface> type )
     {
-        return type != BackupRequestType.FULL_BACKUP;
+        return type != BackupRequestType.FULL_BACKUP && type != BackupRequestType.RESUMABLE_FULL_BACKUP;
+    }
+
+    @Override
+    protected boolean shouldCompressResponse( RequestType<TheBackupInterface> type )
+    {
+        return type == BackupRequestType.INCREMENTAL_BACKUP ? compressTxStreams : compressStoreCopy;
     }
 
     public static enum BackupRequestType implements RequestType<TheBackupInterface>
@@ -84,6 +118,16 @@ class BackupClient extends Client<TheBackupInterface> implements TheBackupInterf
             {
                 return master.incrementalBackup( context );
             }
+        }, Protocol.VOID_SERIALIZER ),
+        RESUMABLE_FULL_BACKUP( new TargetCaller<TheBackupInterface, Void>()
+        {
+            @Override
+            public Response<Void> call( TheBackupInterface master, RequestContext context,
+                    ChannelBuffer input, ChannelBuffer target )
+            {
+                return master.resumableFullBackup( new ToNetworkStoreWriter( target, new Monitors() ),
+                        StoreCopyProgress.deserialize( input ) );
+            }
         }, Protocol.VOID_SERIALIZER )
 
         ;
@@ -19,9 +19,12 @@
  */
 package org.neo4j.backup;
 
+import java.io.IOException;
+
 import org.neo4j.com.RequestContext;
 import org.neo4j.com.Response;
 import org.neo4j.com.storecopy.ResponsePacker;
+import org.neo4j.com.storecopy.StoreCopyProgress;
 import org.neo4j.com.storecopy.StoreCopyServer;
 import org.neo4j.com.storecopy.StoreWriter;
 import org.neo4j.kernel.GraphDatabaseAPI;
@@ -60,11 +63,41 @@ class BackupImpl implements TheBackupInterface
 
     @Override
     public Response<Void> fullBackup( StoreWriter writer )
+    {
+        return fullBackup( writer, null );
+    }
+
+    @Override
+    public Response<Void> resumableFullBackup( StoreWriter writer, StoreCopyProgress progress )
+    {
+        if ( progress.isStarted() && !canServeTransactionsFrom( progress.startTransactionId() ) )
+        {
+            // Too long since that backup was interrupted, it will have to start over
+            progress = StoreCopyProgress.notStarted();
+        }
+        return fullBackup( writer, progress );
+    }
+
+    private boolean canServeTransactionsFrom( long transactionIdWhenStartingCopy )
+    {
+        try
+        {
+            long oldestExistingTransactionId = logFileInformation.getFirstExistingTxId();
+            return oldestExistingTransactionId != -1 && oldestExistingTransactionId <= transactionIdWhenStartingCopy;
+        }
+        catch ( IOException e )
+        {
+            return false;
+        }
+    }
+
+    private Response<Void> fullBackup( StoreWriter writer, StoreCopyProgress progress )
     {
         try ( StoreWriter storeWriter = writer )
         {
             backupMonitor.startCopyingFiles();
-            RequestContext copyStartContext = storeCopyServer.flushStoresAndStreamStoreFiles( storeWriter );
+            RequestContext copyStartContext = storeCopyServer.flushStoresAndStreamStoreFiles( storeWriter,
+                    progress );
             ResponsePacker responsePacker = new StoreCopyResponsePacker( logicalTransactionStore,
                     transactionIdStore, logFileInformation, db,
                     copyStartContext.lastAppliedTransaction()+1 ); // mandatory transaction id
@@ -37,7 +37,7 @@ import org.neo4j.kernel.monitoring.Monitors;
 
 class BackupServer extends Server<TheBackupInterface, Object>
 {
-    static final byte PROTOCOL_VERSION = 1;
+    static final byte PROTOCOL_VERSION = 2;
     private final BackupRequestType[] contexts = BackupRequestType.values();
     static int DEFAULT_PORT = 6362;
     static final int FRAME_LENGTH = Protocol.MEGA * 4;
@@ -33,6 +33,7 @@ import org.neo4j.com.RequestContext;
 import org.neo4j.com.Response;
 import org.neo4j.com.storecopy.ResponseUnpacker.TxHandler;
 import org.neo4j.com.storecopy.StoreCopyClient;
+import org.neo4j.com.storecopy.StoreCopyProgress;
 import org.neo4j.com.storecopy.StoreWriter;
 import org.neo4j.com.storecopy.TransactionCommittingResponseUnpacker;
 import org.neo4j.consistency.ConsistencyCheckService;
@@ -60,6 +61,7 @@ import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.kernel.logging.ConsoleLogger;
 import org.neo4j.kernel.logging.DevNullLoggingService;
 import org.neo4j.kernel.logging.Logging;
+import org.neo4j.kernel.monitoring.BackupMonitor;
 import org.neo4j.kernel.monitoring.Monitors;
 
 /**
@@ -89,6 +91,11 @@ class BackupService
         }
     }
 
+    /**
+     * Number of transactions of an incremental backup to apply at a time.
+     */
+    static final int INCREMENTAL_BATCH_SIZE = 1000;
+
     private final FileSystemAbstraction fileSystem;
     private final StringLogger logger;
 
@@ -109,7 +116,7 @@ class BackupService
     }
 
     BackupOutcome doFullBackup( final String sourceHostNameOrIp, final int sourcePort, String targetDirectory,
-            boolean checkConsistency, Config tuningConfiguration )
+            boolean checkConsistency, final Config tuningConfiguration )
     {
         if ( directoryContainsDb( targetDirectory ) )
         {
@@ -126,17 +133,26 @@ class BackupService
         {
             StoreCopyClient storeCopier = new StoreCopyClient( tuningConfiguration, loadKernelExtensions(),
                     new ConsoleLogger( StringLogger.SYSTEM ), new DefaultFileSystemAbstraction() );
-            storeCopier.copyStore( new StoreCopyClient.StoreCopyRequester()
+            storeCopier.copyStore( new StoreCopyClient.ResumableStoreCopyRequester()
             {
                 private BackupClient client;
 
                 @Override
                 public Response<?> copyStore( StoreWriter writer )
+                {
+                    return copyStore( writer, null );
+                }
+
+                @Override
+                public Response<?> copyStore( StoreWriter writer, StoreCopyProgress progress )
                 {
                     client = new BackupClient( sourceHostNameOrIp, sourcePort, new DevNullLoggingService(),
-                            new Monitors(), null );
+                            new Monitors(), null,
+                            tuningConfiguration.get( OnlineBackupSettings.online_backup_compress_store_copy ),
+                            tuningConfiguration.get( OnlineBackupSettings.online_backup_compress_tx_streams ) );
                     client.start();
-                    return client.fullBackup( writer );
+                    return progress != null ? client.resumableFullBackup( writer, progress )
+                                            : client.fullBackup( writer );
                 }
 
                 @Override
@@ -180,6 +196,12 @@ class BackupService
 
     BackupOutcome doIncrementalBackup( String sourceHostNameOrIp, int sourcePort, String targetDirectory,
             boolean verification ) throws IncrementalBackupNotPossibleException
+    {
+        return doIncrementalBackup( sourceHostNameOrIp, sourcePort, targetDirectory, verification, new Config() );
+    }
+
+    BackupOutcome doIncrementalBackup( String sourceHostNameOrIp, int sourcePort, String targetDirectory,
+            boolean verification, Config tuningConfiguration ) throws IncrementalBackupNotPossibleException
     {
         if ( !directoryContainsDb( targetDirectory ) )
         {
@@ -199,7 +221,8 @@ class BackupService
         BackupOutcome outcome = null;
         try
         {
-            outcome = doIncrementalBackup( sourceHostNameOrIp, sourcePort, targetDb );
+            outcome = incrementalWithContext( sourceHostNameOrIp, sourcePort, targetDb, slaveContextOf( targetDb ),
+                    tuningConfiguration.get( OnlineBackupSettings.online_backup_compress_tx_streams ) );
         }
         finally
         {
@@ -218,7 +241,7 @@ class BackupService
         }
         try
         {
-            return doIncrementalBackup( sourceHostNameOrIp, sourcePort, targetDirectory, verification );
+            return doIncrementalBackup( sourceHostNameOrIp, sourcePort, targetDirectory, verification, config );
         }
         catch ( IncrementalBackupNotPossibleException e )
         {
@@ -242,7 +265,7 @@ class BackupService
     BackupOutcome doIncrementalBackup( String sourceHostNameOrIp, int sourcePort, GraphDatabaseAPI targetDb )
             throws IncrementalBackupNotPossibleException
     {
-        return incrementalWithContext( sourceHostNameOrIp, sourcePort, targetDb, slaveContextOf( targetDb ) );
+        return incrementalWithContext( sourceHostNameOrIp, sourcePort, targetDb, slaveContextOf( targetDb ), false );
     }
 
     private RequestContext slaveContextOf( GraphDatabaseAPI graphDb )
@@ -285,12 +308,13 @@ class BackupService
      * @return A backup context, ready to perform
      */
     private BackupOutcome incrementalWithContext( String sourceHostNameOrIp, int sourcePort,
-            GraphDatabaseAPI targetDb, RequestContext context ) throws IncrementalBackupNotPossibleException
+            GraphDatabaseAPI targetDb, RequestContext context, boolean compressTxStreams )
+            throws IncrementalBackupNotPossibleException
     {
         DependencyResolver resolver = targetDb.getDependencyResolver();
         BackupClient client = new BackupClient( sourceHostNameOrIp, sourcePort,
                 resolver.resolveDependency( Logging.class ),
-                resolver.resolveDependency( Monitors.class ), targetDb.storeId() );
+                resolver.resolveDependency( Monitors.class ), targetDb.storeId(), false, compressTxStreams );
         client.start();
         boolean consistent = false;
         ProgressTxHandler handler = new ProgressTxHandler();
@@ -299,7 +323,8 @@ class BackupService
             Response<Void> response = client.incrementalBackup( context );
             TransactionCommittingResponseUnpacker unpacker = new TransactionCommittingResponseUnpacker( resolver );
             unpacker.start();
-            unpacker.unpackResponse( response, handler );
+            unpacker.unpackResponseInBatches( response, handler, INCREMENTAL_BATCH_SIZE,
+                    resolver.resolveDependency( Monitors.class ).newMonitor( BackupMonitor.class, getClass() ) );
             consistent = true;
         }
         catch ( RuntimeException e )
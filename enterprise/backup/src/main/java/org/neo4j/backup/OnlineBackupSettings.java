@@ -20,6 +20,7 @@
 package org.neo4j.backup;
 
 import static org.neo4j.helpers.Settings.BOOLEAN;
+import static org.neo4j.helpers.Settings.FALSE;
 import static org.neo4j.helpers.Settings.HOSTNAME_PORT;
 import static org.neo4j.helpers.Settings.TRUE;
 import static org.neo4j.helpers.Settings.setting;
@@ -40,4 +41,14 @@ public class OnlineBackupSettings
     @Description("Listening server for online backups")
     public static final Setting<HostnamePort> online_backup_server = setting( "online_backup_server", HOSTNAME_PORT,
             "0.0.0.0:6362-6372" );
+
+    @Description("Whether the backup client should ask the server to compress the store files it sends during a " +
+            "full backup")
+    public static final Setting<Boolean> online_backup_compress_store_copy = setting(
+            "online_backup_compress_store_copy", BOOLEAN, FALSE );
+
+    @Description("Whether the backup client should ask the server to compress the transactions it sends during an " +
+            "incremental backup")
+    public static final Setting<Boolean> online_backup_compress_tx_streams = setting(
+            "online_backup_compress_tx_streams", BOOLEAN, FALSE );
 }
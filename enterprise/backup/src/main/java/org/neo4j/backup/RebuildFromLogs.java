@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
+import org.neo4j.com.storecopy.TransactionBatchApplier;
 import org.neo4j.consistency.ConsistencyCheckSettings;
 import org.neo4j.consistency.checking.full.ConsistencyCheckIncompleteException;
 import org.neo4j.consistency.checking.full.FullCheck;
@@ -49,7 +50,9 @@ import org.neo4j.kernel.impl.transaction.xaframework.ReadAheadLogChannel;
 import org.neo4j.kernel.impl.transaction.xaframework.ReadableLogChannel;
 import org.neo4j.kernel.impl.transaction.xaframework.ReaderLogVersionBridge;
 import org.neo4j.kernel.impl.transaction.xaframework.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.kernel.monitoring.BackupMonitor;
 
 import static java.lang.String.format;
 
@@ -60,10 +63,12 @@ import static org.neo4j.kernel.impl.transaction.xaframework.ReadAheadLogChannel.
 class RebuildFromLogs
 {
     private static final FileSystemAbstraction FS = new DefaultFileSystemAbstraction();
+    private static final int BATCH_SIZE = 1000;
 
     private final StoreAccess stores;
     private final NeoStoreXaDataSource dataSource;
     private final TransactionRepresentationStoreApplier storeApplier;
+    private final JobScheduler scheduler;
 
     RebuildFromLogs( GraphDatabaseAPI graphdb )
     {
@@ -71,9 +76,10 @@ class RebuildFromLogs
         this.dataSource = graphdb.getDependencyResolver().resolveDependency( DataSourceManager.class ).getDataSource();
         this.storeApplier = graphdb.getDependencyResolver().resolveDependency(
                 TransactionRepresentationStoreApplier.class );
+        this.scheduler = graphdb.getDependencyResolver().resolveDependency( JobScheduler.class );
     }
 
-    RebuildFromLogs applyTransactionsFrom( ProgressListener progress, File sourceDir ) throws IOException
+    RebuildFromLogs applyTransactionsFrom( final ProgressListener progress, File sourceDir ) throws IOException
     {
         PhysicalLogFiles logFiles = new PhysicalLogFiles( sourceDir, FS );
         int startVersion = 0;
@@ -83,12 +89,23 @@ class RebuildFromLogs
                 new PhysicalLogVersionedStoreChannel( FS.open( logFile, "R" ), startVersion ),
                 versionBridge, DEFAULT_READ_AHEAD_SIZE );
 
-        try (IOCursor<CommittedTransactionRepresentation> cursor = new PhysicalTransactionCursor( logChannel,
-                new VersionAwareLogEntryReader() ) )
+        try ( IOCursor<CommittedTransactionRepresentation> cursor = new PhysicalTransactionCursor( logChannel,
+                new VersionAwareLogEntryReader() );
+              TransactionBatchApplier batchApplier = new TransactionBatchApplier( scheduler,
+                      new TransactionBatchApplier.BatchHandler()
+                      {
+                          @Override
+                          public void apply( List<CommittedTransactionRepresentation> transactions )
+                                  throws IOException
+                          {
+                              storeApplier.applyBatch( transactions );
+                              progress.add( transactions.size() );
+                          }
+                      }, BATCH_SIZE, BackupMonitor.NONE ) )
         {
             while (cursor.next())
             {
-                storeApplier.apply( cursor.get().getTransactionRepresentation(), cursor.get().getCommitEntry().getTxId(), true );
+                batchApplier.queue( cursor.get() );
             }
         }
 
@@ -21,11 +21,18 @@ package org.neo4j.backup;
 
 import org.neo4j.com.Response;
 import org.neo4j.com.RequestContext;
+import org.neo4j.com.storecopy.StoreCopyProgress;
 import org.neo4j.com.storecopy.StoreWriter;
 
 public interface TheBackupInterface
 {
     Response<Void> fullBackup( StoreWriter writer );
+
+    /**
+     * Like {@link #fullBackup(StoreWriter)}, but skipping the files that a previous, interrupted, full backup
+     * has already copied, according to the given progress.
+     */
+    Response<Void> resumableFullBackup( StoreWriter writer, StoreCopyProgress progress );
     
     Response<Void> incrementalBackup( RequestContext context );
 }
@@ -21,7 +21,9 @@ package org.neo4j.backup;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -38,6 +40,8 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
+import org.neo4j.com.storecopy.StoreCopyClient;
+import org.neo4j.com.storecopy.StoreCopyProgress;
 import org.neo4j.graphdb.DynamicRelationshipType;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
@@ -52,6 +56,7 @@ import org.neo4j.kernel.GraphDatabaseAPI;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.core.KernelPanicEventGenerator;
 import org.neo4j.kernel.impl.nioneo.store.NeoStore;
+import org.neo4j.kernel.impl.nioneo.store.StoreId;
 import org.neo4j.kernel.impl.nioneo.store.TransactionIdStore;
 import org.neo4j.kernel.impl.nioneo.xa.DataSourceManager;
 import org.neo4j.kernel.impl.storemigration.StoreFile20;
@@ -71,6 +76,7 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 import static org.neo4j.test.DoubleLatch.awaitLatch;
@@ -223,6 +229,56 @@ public class BackupServiceIT
         assertEquals( DbRepresentation.of( storeDir ), DbRepresentation.of( backupDir ) );
     }
 
+    @Test
+    public void shouldNotLeaveStoreCopyProgressBehindAfterAFullBackup() throws Throwable
+    {
+        // given
+        GraphDatabaseService db = createDb( storeDir, defaultBackupPortHostParams() );
+        createAndIndexNode( db, 1 );
+
+        // when
+        BackupService backupService = new BackupService( fileSystem );
+        backupService.doFullBackup( BACKUP_HOST, backupPort, backupDir.getAbsolutePath(), false,
+                new Config( defaultBackupPortHostParams() ) );
+        db.shutdown();
+
+        // then
+        File tempCopy = new File( backupDir, StoreCopyClient.TEMP_COPY_DIRECTORY_NAME );
+        assertFalse( new File( tempCopy, StoreCopyProgress.START_FILE_NAME ).exists() );
+        assertFalse( new File( tempCopy, StoreCopyProgress.PROGRESS_FILE_NAME ).exists() );
+        assertFalse( new File( backupDir, StoreCopyProgress.START_FILE_NAME ).exists() );
+        assertEquals( DbRepresentation.of( storeDir ), DbRepresentation.of( backupDir ) );
+    }
+
+    @Test
+    public void shouldStartAnInterruptedFullBackupOverIfItWasOfAnotherStore() throws Throwable
+    {
+        // given
+        GraphDatabaseService db = createDb( storeDir, defaultBackupPortHostParams() );
+        createAndIndexNode( db, 1 );
+        File tempCopy = new File( backupDir, StoreCopyClient.TEMP_COPY_DIRECTORY_NAME );
+        fileSystem.mkdirs( tempCopy );
+        try ( FileChannel start = new FileOutputStream(
+                new File( tempCopy, StoreCopyProgress.START_FILE_NAME ) ).getChannel() )
+        {
+            start.write( StoreCopyProgress.startFileContents( 1, new StoreId( 1, 2 ) ) );
+        }
+        StoreCopyProgress.fileCompleted( tempCopy, NODE_STORE );
+        try ( FileOutputStream nodeStore = new FileOutputStream( new File( tempCopy, NODE_STORE ) ) )
+        {
+            nodeStore.write( new byte[]{1, 2, 3} );
+        }
+
+        // when
+        BackupService backupService = new BackupService( fileSystem );
+        backupService.doFullBackup( BACKUP_HOST, backupPort, backupDir.getAbsolutePath(), false,
+                new Config( defaultBackupPortHostParams() ) );
+        db.shutdown();
+
+        // then
+        assertEquals( DbRepresentation.of( storeDir ), DbRepresentation.of( backupDir ) );
+    }
+
     @Test
     public void shouldFindTransactionLogContainingLastNeoStoreTransactionInAnEmptyStore() throws IOException
     {
@@ -28,13 +28,16 @@ import org.neo4j.helpers.HostnamePort;
 import static org.neo4j.helpers.Settings.ANY;
 import static org.neo4j.helpers.Settings.BOOLEAN;
 import static org.neo4j.helpers.Settings.DURATION;
+import static org.neo4j.helpers.Settings.FALSE;
 import static org.neo4j.helpers.Settings.HOSTNAME_PORT;
+import static org.neo4j.helpers.Settings.INTEGER;
 import static org.neo4j.helpers.Settings.MANDATORY;
 import static org.neo4j.helpers.Settings.STRING;
 import static org.neo4j.helpers.Settings.TRUE;
 import static org.neo4j.helpers.Settings.illegalValueMessage;
 import static org.neo4j.helpers.Settings.list;
 import static org.neo4j.helpers.Settings.matches;
+import static org.neo4j.helpers.Settings.min;
 import static org.neo4j.helpers.Settings.setting;
 
 import org.neo4j.helpers.Function;
@@ -84,6 +87,11 @@ public class ClusterSettings
     @Description( "Whether to allow this instance to create a cluster if unable to join." )
     public static final Setting<Boolean> allow_init_cluster = setting( "ha.allow_init_cluster", BOOLEAN, TRUE );
 
+    @Description( "Whether to send cluster messages, and the member availability events broadcast through them, " +
+            "in a compact binary format instead of using Java serialization. Messages in either format can always be received, but only enable this when all " +
+            "members of the cluster can receive the binary format." )
+    public static final Setting<Boolean> binary_messages = setting( "ha.cluster_binary_messages", BOOLEAN, FALSE );
+
     // Timeout settings
 
     /*
@@ -138,6 +146,17 @@ public class ClusterSettings
     @Description( "Timeout for learning values. Defaults to ha.default_timeout." )
     public static final Setting<Long> learn_timeout = setting( "ha.learn_timeout", DURATION, default_timeout );
 
+    @Description( "Maximum number of Paxos instances the coordinator runs at the same time. Values broadcast while " +
+            "that many instances are in progress wait for one of them to finish." )
+    public static final Setting<Integer> paxos_max_concurrent_instances = setting(
+            "ha.paxos_max_concurrent_instances", INTEGER, "10", min( 1 ) );
+
+    @Description( "Maximum number of waiting broadcast values the coordinator proposes together in a single Paxos " +
+            "instance, which keeps cluster events flowing when many of them happen at once, e.g. during rolling " +
+            "restarts. Values larger than 1 require all members of the cluster to support batched proposals." )
+    public static final Setting<Integer> paxos_proposal_batch_size = setting( "ha.paxos_proposal_batch_size",
+            INTEGER, "1", min( 1 ) );
+
     @Description( "Timeout for waiting for other members to finish a role election. Defaults to ha.paxos_timeout." )
     public static final Setting<Long> election_timeout = setting( "ha.election_timeout", DURATION, paxos_timeout );
 
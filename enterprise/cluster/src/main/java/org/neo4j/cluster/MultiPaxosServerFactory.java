@@ -75,12 +75,23 @@ public class MultiPaxosServerFactory
     private Monitors monitors;
     private final ClusterConfiguration initialConfig;
     private final Logging logging;
+    private final int maxConcurrentInstances;
+    private final int proposalBatchSize;
 
     public MultiPaxosServerFactory( Monitors monitors, ClusterConfiguration initialConfig, Logging logging )
+    {
+        this( monitors, initialConfig, logging, MultiPaxosContext.DEFAULT_MAX_CONCURRENT_INSTANCES,
+                MultiPaxosContext.DEFAULT_PROPOSAL_BATCH_SIZE );
+    }
+
+    public MultiPaxosServerFactory( Monitors monitors, ClusterConfiguration initialConfig, Logging logging,
+                                    int maxConcurrentInstances, int proposalBatchSize )
     {
         this.monitors = monitors;
         this.initialConfig = initialConfig;
         this.logging = logging;
+        this.maxConcurrentInstances = maxConcurrentInstances;
+        this.proposalBatchSize = proposalBatchSize;
     }
 
     @Override
@@ -101,7 +112,7 @@ public class MultiPaxosServerFactory
                 new ClusterConfiguration( initialConfig.getName(), logging.getMessagesLog( ClusterConfiguration.class ),
                         initialConfig.getMemberURIs() ),
                 executor, logging, objectInputStreamFactory, objectOutputStreamFactory, acceptorInstanceStore, timeouts,
-                electionCredentialsProvider
+                electionCredentialsProvider, maxConcurrentInstances, proposalBatchSize
         );
 
         SnapshotContext snapshotContext = new SnapshotContext( context.getClusterContext(),
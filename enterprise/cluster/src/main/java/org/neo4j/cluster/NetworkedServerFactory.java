@@ -110,6 +110,12 @@ public class NetworkedServerFactory
             {
                 return config.get( ClusterSettings.cluster_server ).getPort();
             }
+
+            @Override
+            public boolean useBinaryMessages()
+            {
+                return config.get( ClusterSettings.binary_messages );
+            }
         }, receiver, logging );
 
         ExecutorLifecycleAdapter stateMachineExecutor = new ExecutorLifecycleAdapter( new Factory<ExecutorService>()
@@ -100,6 +100,8 @@ public class ClusterClient extends LifecycleAdapter
 
         boolean isAllowedToCreateCluster();
 
+        boolean useBinaryMessages();
+
         // Cluster timeout settings
         long defaultTimeout(); // default is 5s
 
@@ -127,6 +129,10 @@ public class ClusterClient extends LifecycleAdapter
 
         long clusterJoinTimeout(); // Whether to timeout the whole process or not
 
+        int maxConcurrentPaxosInstances();
+
+        int paxosProposalBatchSize();
+
         String name(); // Cluster client name, if any
     }
 
@@ -164,6 +170,12 @@ public class ClusterClient extends LifecycleAdapter
                 return config.get( ClusterSettings.allow_init_cluster );
             }
 
+            @Override
+            public boolean useBinaryMessages()
+            {
+                return config.get( ClusterSettings.binary_messages );
+            }
+
             // Timeouts
             @Override
             public long defaultTimeout()
@@ -243,6 +255,18 @@ public class ClusterClient extends LifecycleAdapter
                 return config.get( clusterJoinTimeout );
             }
 
+            @Override
+            public int maxConcurrentPaxosInstances()
+            {
+                return config.get( ClusterSettings.paxos_max_concurrent_instances );
+            }
+
+            @Override
+            public int paxosProposalBatchSize()
+            {
+                return config.get( ClusterSettings.paxos_proposal_batch_size );
+            }
+
             @Override
             public String name()
             {
@@ -280,7 +304,8 @@ public class ClusterClient extends LifecycleAdapter
 
         MultiPaxosServerFactory protocolServerFactory = new MultiPaxosServerFactory( monitors,
                 new ClusterConfiguration( config
-                        .getClusterName(), logging.getMessagesLog( ClusterConfiguration.class ) ), logging
+                        .getClusterName(), logging.getMessagesLog( ClusterConfiguration.class ) ), logging,
+                config.maxConcurrentPaxosInstances(), config.paxosProposalBatchSize()
         );
 
         InMemoryAcceptorInstanceStore acceptorInstanceStore = new InMemoryAcceptorInstanceStore();
@@ -323,6 +348,12 @@ public class ClusterClient extends LifecycleAdapter
             {
                 return config.getAddress().getPort();
             }
+
+            @Override
+            public boolean useBinaryMessages()
+            {
+                return config.useBinaryMessages();
+            }
         }, receiver, logging );
 
         ExecutorLifecycleAdapter stateMachineExecutor = new ExecutorLifecycleAdapter( new Factory<ExecutorService>()
@@ -55,6 +55,7 @@ import org.jboss.netty.util.ThreadNameDeterminer;
 import org.jboss.netty.util.ThreadRenamingRunnable;
 
 import org.neo4j.cluster.com.message.Message;
+import org.neo4j.cluster.com.message.MessageEncoder;
 import org.neo4j.cluster.com.message.MessageSender;
 import org.neo4j.cluster.com.message.MessageType;
 import org.neo4j.helpers.Listeners;
@@ -84,6 +85,8 @@ public class NetworkSender
         int defaultPort(); // This is the default port to try to connect to
 
         int port(); // This is the port we are listening on
+
+        boolean useBinaryMessages(); // Whether to send messages in the binary format or using serialization
     }
 
     public interface NetworkChannelsListener
@@ -400,7 +403,8 @@ public class NetworkSender
         public ChannelPipeline getPipeline() throws Exception
         {
             ChannelPipeline pipeline = Channels.pipeline();
-            pipeline.addLast( "frameEncoder", new ObjectEncoder( 2048 ) );
+            pipeline.addLast( "frameEncoder", config.useBinaryMessages() ? new MessageEncoder( 2048 ) :
+                    new ObjectEncoder( 2048 ) );
             pipeline.addLast( "sender", new NetworkMessageSender() );
             return pipeline;
         }
@@ -0,0 +1,771 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cluster.com.message;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.StreamCorruptedException;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferInputStream;
+import org.jboss.netty.buffer.ChannelBufferOutputStream;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import org.neo4j.cluster.InstanceId;
+import org.neo4j.cluster.protocol.atomicbroadcast.Payload;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.AcceptorMessage;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.AtomicBroadcastMessage;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.LearnerMessage;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.ProposalBatch;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.ProposerMessage;
+import org.neo4j.cluster.protocol.cluster.ClusterMessage;
+import org.neo4j.cluster.protocol.election.ElectionContext;
+import org.neo4j.cluster.protocol.election.ElectionMessage;
+import org.neo4j.cluster.protocol.election.ServerIdElectionCredentials;
+import org.neo4j.cluster.protocol.heartbeat.HeartbeatMessage;
+import org.neo4j.cluster.protocol.omega.OmegaMessage;
+import org.neo4j.cluster.protocol.snapshot.SnapshotMessage;
+import org.neo4j.helpers.UTF8;
+
+/**
+ * Hand written binary format for cluster {@link Message messages}, replacing Java serialization for the messages
+ * that make up the bulk of the cluster traffic, i.e. Paxos and heartbeats. A frame starts with {@link #MAGIC}
+ * followed by {@link #VERSION}, then the message type, the headers and finally the payload.
+ * <p>
+ * Message types are written as an index into {@link #MESSAGE_TYPES} and the ordinal of the constant, headers
+ * use a single byte for the {@link #HEADERS standard header} names and payloads are tagged with the type they
+ * have. Values that are {@link Externalizable} are written using their own
+ * {@link Externalizable#writeExternal(ObjectOutput) writeExternal}, prefixed by their class name, which covers
+ * e.g. election credentials and the member availability events broadcast through Paxos, see
+ * {@link #encodeValue(Object)}. Payload types that have no binary representation, which are the rarely sent ones
+ * such as snapshots and cluster configuration changes, are written using Java serialization inside the binary
+ * frame.
+ * <p>
+ * The format is versioned. New message types, headers and payload tags may only ever be appended, and any other
+ * change requires a new {@link #VERSION}, which older instances will refuse to decode.
+ */
+public class MessageCodec
+{
+    /**
+     * First byte of a binary frame. Frames written using Java serialization always start with the stream version
+     * of the serialization protocol instead, which is how the two can be told apart.
+     */
+    public static final byte MAGIC = (byte) 0xB1;
+    public static final byte VERSION = 1;
+
+    private static final Class<?>[] MESSAGE_TYPES = {
+            AcceptorMessage.class,
+            ProposerMessage.class,
+            LearnerMessage.class,
+            AtomicBroadcastMessage.class,
+            HeartbeatMessage.class,
+            ClusterMessage.class,
+            ElectionMessage.class,
+            SnapshotMessage.class,
+            OmegaMessage.class,
+    };
+    private static final byte MESSAGE_TYPE_BY_NAME = -1;
+
+    private static final String[] HEADERS = {
+            Message.CONVERSATION_ID,
+            Message.CREATED_BY,
+            Message.FROM,
+            Message.TO,
+            Message.INSTANCE_ID,
+            org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId.INSTANCE,
+    };
+    private static final byte HEADER_BY_NAME = -1;
+
+    // Payload tags
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte TRUE = 4;
+    private static final byte FALSE = 5;
+    private static final byte URI_VALUE = 6;
+    private static final byte INSTANCE_ID = 7;
+    private static final byte PAXOS_INSTANCE_ID = 8;
+    private static final byte PAYLOAD = 9;
+    private static final byte PREPARE_STATE = 10;
+    private static final byte ACCEPT_STATE = 11;
+    private static final byte PROMISE_STATE = 12;
+    private static final byte REJECT_PREPARE = 13;
+    private static final byte REJECT_ACCEPT_STATE = 14;
+    private static final byte ACCEPTED_STATE = 15;
+    private static final byte LEARN_STATE = 16;
+    private static final byte LEARN_REQUEST_STATE = 17;
+    private static final byte LEARN_FAILED_STATE = 18;
+    private static final byte I_AM_ALIVE_STATE = 19;
+    private static final byte SUSPICIONS_STATE = 20;
+    private static final byte PROPOSAL_BATCH = 21;
+    private static final byte VOTE_REQUEST = 22;
+    private static final byte VOTED_DATA = 23;
+    private static final byte VERSIONED_VOTED_DATA = 24;
+    private static final byte SERVER_ID_CREDENTIALS = 25;
+    private static final byte EXTERNALIZABLE = 26;
+    private static final byte SERIALIZED = 127;
+
+    private final ClassLoader classLoader;
+
+    public MessageCodec( ClassLoader classLoader )
+    {
+        this.classLoader = classLoader;
+    }
+
+    public void encode( Message<?> message, ChannelBuffer target ) throws IOException
+    {
+        target.writeByte( MAGIC );
+        target.writeByte( VERSION );
+        writeMessageType( message.getMessageType(), target );
+
+        Map<String, String> headers = message.getHeaders();
+        writeVarLong( headers.size(), target );
+        for ( Map.Entry<String, String> header : headers.entrySet() )
+        {
+            writeHeaderName( header.getKey(), target );
+            writeString( header.getValue(), target );
+        }
+
+        writeValue( message.getPayload(), target );
+    }
+
+    /**
+     * Decodes a message previously written by {@link #encode(Message, ChannelBuffer)}, reading all of it
+     * from the given buffer.
+     */
+    @SuppressWarnings( "unchecked" )
+    public Message<?> decode( ChannelBuffer source ) throws IOException
+    {
+        byte magic = source.readByte();
+        if ( magic != MAGIC )
+        {
+            throw new StreamCorruptedException( "Not a binary cluster message, starts with " + magic );
+        }
+        byte version = source.readByte();
+        if ( version != VERSION )
+        {
+            throw new StreamCorruptedException( "Unsupported cluster message format version " + version +
+                    ", only version " + VERSION + " is supported" );
+        }
+        MessageType messageType = readMessageType( source );
+
+        int headerCount = (int) readVarLong( source );
+        String[] headers = new String[headerCount * 2];
+        for ( int i = 0; i < headers.length; i += 2 )
+        {
+            headers[i] = readHeaderName( source );
+            headers[i + 1] = readString( source );
+        }
+
+        Message message = new Message( messageType, readValue( source ) );
+        for ( int i = 0; i < headers.length; i += 2 )
+        {
+            message.setHeader( headers[i], headers[i + 1] );
+        }
+        return message;
+    }
+
+    /**
+     * Encodes a single value, such as one broadcast through Paxos, into a standalone binary frame. Like messages,
+     * the frame starts with {@link #MAGIC}, which tells it apart from a value written using Java serialization.
+     */
+    public byte[] encodeValue( Object value ) throws IOException
+    {
+        ChannelBuffer target = ChannelBuffers.dynamicBuffer();
+        target.writeByte( MAGIC );
+        target.writeByte( VERSION );
+        writeValue( value, target );
+        byte[] bytes = new byte[target.readableBytes()];
+        target.readBytes( bytes );
+        return bytes;
+    }
+
+    /**
+     * Decodes a value previously written by {@link #encodeValue(Object)}.
+     */
+    public Object decodeValue( byte[] bytes, int offset, int length ) throws IOException
+    {
+        ChannelBuffer source = ChannelBuffers.wrappedBuffer( bytes, offset, length );
+        byte magic = source.readByte();
+        if ( magic != MAGIC )
+        {
+            throw new StreamCorruptedException( "Not a binary cluster value, starts with " + magic );
+        }
+        byte version = source.readByte();
+        if ( version != VERSION )
+        {
+            throw new StreamCorruptedException( "Unsupported cluster value format version " + version +
+                    ", only version " + VERSION + " is supported" );
+        }
+        return readValue( source );
+    }
+
+    private void writeMessageType( MessageType messageType, ChannelBuffer target )
+    {
+        Enum<?> constant = (Enum<?>) messageType;
+        Class<?> type = constant.getDeclaringClass();
+        byte typeId = MESSAGE_TYPE_BY_NAME;
+        for ( int i = 0; i < MESSAGE_TYPES.length; i++ )
+        {
+            if ( MESSAGE_TYPES[i] == type )
+            {
+                typeId = (byte) i;
+                break;
+            }
+        }
+        target.writeByte( typeId );
+        if ( typeId == MESSAGE_TYPE_BY_NAME )
+        {
+            writeString( type.getName(), target );
+        }
+        writeVarLong( constant.ordinal(), target );
+    }
+
+    private MessageType readMessageType( ChannelBuffer source ) throws IOException
+    {
+        byte typeId = source.readByte();
+        Class<?> type;
+        if ( typeId == MESSAGE_TYPE_BY_NAME )
+        {
+            String name = readString( source );
+            try
+            {
+                type = Class.forName( name, false, classLoader );
+            }
+            catch ( ClassNotFoundException e )
+            {
+                throw new StreamCorruptedException( "Unknown message type " + name );
+            }
+        }
+        else if ( typeId >= 0 && typeId < MESSAGE_TYPES.length )
+        {
+            type = MESSAGE_TYPES[typeId];
+        }
+        else
+        {
+            throw new StreamCorruptedException( "Unknown message type id " + typeId );
+        }
+
+        int ordinal = (int) readVarLong( source );
+        Object[] constants = type.getEnumConstants();
+        if ( constants == null || ordinal < 0 || ordinal >= constants.length )
+        {
+            throw new StreamCorruptedException( "Unknown message type " + type.getName() + "#" + ordinal );
+        }
+        return (MessageType) constants[ordinal];
+    }
+
+    private void writeHeaderName( String name, ChannelBuffer target )
+    {
+        for ( int i = 0; i < HEADERS.length; i++ )
+        {
+            if ( HEADERS[i].equals( name ) )
+            {
+                target.writeByte( i );
+                return;
+            }
+        }
+        target.writeByte( HEADER_BY_NAME );
+        writeString( name, target );
+    }
+
+    private String readHeaderName( ChannelBuffer source ) throws IOException
+    {
+        byte id = source.readByte();
+        if ( id == HEADER_BY_NAME )
+        {
+            return readString( source );
+        }
+        if ( id < 0 || id >= HEADERS.length )
+        {
+            throw new StreamCorruptedException( "Unknown header id " + id );
+        }
+        return HEADERS[id];
+    }
+
+    private void writeValue( Object value, ChannelBuffer target ) throws IOException
+    {
+        Class<?> type = value == null ? null : value.getClass();
+        if ( type == null )
+        {
+            target.writeByte( NULL );
+        }
+        else if ( type == String.class )
+        {
+            target.writeByte( STRING );
+            writeString( (String) value, target );
+        }
+        else if ( type == Integer.class )
+        {
+            target.writeByte( INTEGER );
+            writeVarLong( (Integer) value, target );
+        }
+        else if ( type == Long.class )
+        {
+            target.writeByte( LONG );
+            writeVarLong( (Long) value, target );
+        }
+        else if ( type == Boolean.class )
+        {
+            target.writeByte( (Boolean) value ? TRUE : FALSE );
+        }
+        else if ( type == URI.class )
+        {
+            target.writeByte( URI_VALUE );
+            writeString( value.toString(), target );
+        }
+        else if ( type == InstanceId.class )
+        {
+            target.writeByte( INSTANCE_ID );
+            writeVarLong( ((InstanceId) value).toIntegerIndex(), target );
+        }
+        else if ( type == org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId.class )
+        {
+            target.writeByte( PAXOS_INSTANCE_ID );
+            writeVarLong( ((org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId) value).getId(),
+                    target );
+        }
+        else if ( type == Payload.class )
+        {
+            Payload payload = (Payload) value;
+            target.writeByte( PAYLOAD );
+            writeVarLong( payload.getLen(), target );
+            target.writeBytes( payload.getBuf(), 0, payload.getLen() );
+        }
+        else if ( type == AcceptorMessage.PrepareState.class )
+        {
+            target.writeByte( PREPARE_STATE );
+            writeVarLong( ((AcceptorMessage.PrepareState) value).getBallot(), target );
+        }
+        else if ( type == AcceptorMessage.AcceptState.class )
+        {
+            AcceptorMessage.AcceptState state = (AcceptorMessage.AcceptState) value;
+            target.writeByte( ACCEPT_STATE );
+            writeVarLong( state.getBallot(), target );
+            writeValue( state.getValue(), target );
+        }
+        else if ( type == ProposerMessage.PromiseState.class )
+        {
+            ProposerMessage.PromiseState state = (ProposerMessage.PromiseState) value;
+            target.writeByte( PROMISE_STATE );
+            writeVarLong( state.getBallot(), target );
+            writeValue( state.getValue(), target );
+        }
+        else if ( type == ProposerMessage.RejectPrepare.class )
+        {
+            target.writeByte( REJECT_PREPARE );
+            writeVarLong( ((ProposerMessage.RejectPrepare) value).getBallot(), target );
+        }
+        else if ( type == ProposerMessage.RejectAcceptState.class )
+        {
+            target.writeByte( REJECT_ACCEPT_STATE );
+        }
+        else if ( type == ProposerMessage.AcceptedState.class )
+        {
+            target.writeByte( ACCEPTED_STATE );
+        }
+        else if ( type == LearnerMessage.LearnState.class )
+        {
+            target.writeByte( LEARN_STATE );
+            writeValue( ((LearnerMessage.LearnState) value).getValue(), target );
+        }
+        else if ( type == LearnerMessage.LearnRequestState.class )
+        {
+            target.writeByte( LEARN_REQUEST_STATE );
+        }
+        else if ( type == LearnerMessage.LearnFailedState.class )
+        {
+            target.writeByte( LEARN_FAILED_STATE );
+        }
+        else if ( type == HeartbeatMessage.IAmAliveState.class )
+        {
+            target.writeByte( I_AM_ALIVE_STATE );
+            writeValue( ((HeartbeatMessage.IAmAliveState) value).getServer(), target );
+        }
+        else if ( type == HeartbeatMessage.SuspicionsState.class )
+        {
+            Set<InstanceId> suspicions = ((HeartbeatMessage.SuspicionsState) value).getSuspicions();
+            target.writeByte( SUSPICIONS_STATE );
+            writeVarLong( suspicions == null ? -1 : suspicions.size(), target );
+            if ( suspicions != null )
+            {
+                for ( InstanceId suspicion : suspicions )
+                {
+                    writeVarLong( suspicion.toIntegerIndex(), target );
+                }
+            }
+        }
+        else if ( type == ProposalBatch.class )
+        {
+            ProposalBatch batch = (ProposalBatch) value;
+            target.writeByte( PROPOSAL_BATCH );
+            writeVarLong( batch.size(), target );
+            for ( int i = 0; i < batch.size(); i++ )
+            {
+                writeValue( batch.getValue( i ), target );
+                writeValue( batch.getConversationId( i ), target );
+            }
+        }
+        else if ( type == ElectionContext.VoteRequest.class )
+        {
+            ElectionContext.VoteRequest request = (ElectionContext.VoteRequest) value;
+            target.writeByte( VOTE_REQUEST );
+            writeString( request.getRole(), target );
+            writeVarLong( request.getVersion(), target );
+        }
+        else if ( type == ElectionMessage.VotedData.class || type == ElectionMessage.VersionedVotedData.class )
+        {
+            ElectionMessage.VotedData voted = (ElectionMessage.VotedData) value;
+            boolean versioned = type == ElectionMessage.VersionedVotedData.class;
+            target.writeByte( versioned ? VERSIONED_VOTED_DATA : VOTED_DATA );
+            writeString( voted.getRole(), target );
+            writeValue( voted.getInstanceId(), target );
+            writeValue( voted.getVoteCredentials(), target );
+            if ( versioned )
+            {
+                writeVarLong( ((ElectionMessage.VersionedVotedData) voted).getVersion(), target );
+            }
+        }
+        else if ( type == ServerIdElectionCredentials.class )
+        {
+            target.writeByte( SERVER_ID_CREDENTIALS );
+            writeString( ((ServerIdElectionCredentials) value).getCredentials().toString(), target );
+        }
+        else if ( value instanceof Externalizable && hasPublicNoArgConstructor( type ) )
+        {
+            target.writeByte( EXTERNALIZABLE );
+            writeString( type.getName(), target );
+            try ( ExternalizableOutput out = new ExternalizableOutput( target ) )
+            {
+                ((Externalizable) value).writeExternal( out );
+            }
+        }
+        else
+        {
+            target.writeByte( SERIALIZED );
+            writeSerialized( value, target );
+        }
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private Object readValue( ChannelBuffer source ) throws IOException
+    {
+        byte tag = source.readByte();
+        switch ( tag )
+        {
+        case NULL:
+            return null;
+        case STRING:
+            return readString( source );
+        case INTEGER:
+            return (int) readVarLong( source );
+        case LONG:
+            return readVarLong( source );
+        case TRUE:
+            return Boolean.TRUE;
+        case FALSE:
+            return Boolean.FALSE;
+        case URI_VALUE:
+            return URI.create( readString( source ) );
+        case INSTANCE_ID:
+            return new InstanceId( (int) readVarLong( source ) );
+        case PAXOS_INSTANCE_ID:
+            return new org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId( readVarLong( source ) );
+        case PAYLOAD:
+        {
+            byte[] bytes = new byte[readLength( source )];
+            source.readBytes( bytes );
+            return new Payload( bytes, bytes.length );
+        }
+        case PREPARE_STATE:
+            return new AcceptorMessage.PrepareState( readVarLong( source ) );
+        case ACCEPT_STATE:
+        {
+            long ballot = readVarLong( source );
+            return new AcceptorMessage.AcceptState( ballot, readValue( source ) );
+        }
+        case PROMISE_STATE:
+        {
+            long ballot = readVarLong( source );
+            return new ProposerMessage.PromiseState( ballot, readValue( source ) );
+        }
+        case REJECT_PREPARE:
+            return new ProposerMessage.RejectPrepare( readVarLong( source ) );
+        case REJECT_ACCEPT_STATE:
+            return new ProposerMessage.RejectAcceptState();
+        case ACCEPTED_STATE:
+            return new ProposerMessage.AcceptedState();
+        case LEARN_STATE:
+            return new LearnerMessage.LearnState( readValue( source ) );
+        case LEARN_REQUEST_STATE:
+            return new LearnerMessage.LearnRequestState();
+        case LEARN_FAILED_STATE:
+            return new LearnerMessage.LearnFailedState();
+        case I_AM_ALIVE_STATE:
+            return new HeartbeatMessage.IAmAliveState( (InstanceId) readValue( source ) );
+        case SUSPICIONS_STATE:
+        {
+            int count = (int) readVarLong( source );
+            Set<InstanceId> suspicions = null;
+            if ( count >= 0 )
+            {
+                suspicions = new HashSet<>();
+                for ( int i = 0; i < count; i++ )
+                {
+                    suspicions.add( new InstanceId( (int) readVarLong( source ) ) );
+                }
+            }
+            return new HeartbeatMessage.SuspicionsState( suspicions );
+        }
+        case PROPOSAL_BATCH:
+        {
+            int size = (int) readVarLong( source );
+            ProposalBatch batch = new ProposalBatch();
+            for ( int i = 0; i < size; i++ )
+            {
+                Object value = readValue( source );
+                batch.add( value, (String) readValue( source ) );
+            }
+            return batch;
+        }
+        case VOTE_REQUEST:
+        {
+            String role = readString( source );
+            return new ElectionContext.VoteRequest( role, readVarLong( source ) );
+        }
+        case VOTED_DATA:
+        {
+            String role = readString( source );
+            InstanceId instanceId = (InstanceId) readValue( source );
+            return new ElectionMessage.VotedData( role, instanceId, (Comparable<Object>) readValue( source ) );
+        }
+        case VERSIONED_VOTED_DATA:
+        {
+            String role = readString( source );
+            InstanceId instanceId = (InstanceId) readValue( source );
+            Comparable<Object> credentials = (Comparable<Object>) readValue( source );
+            return new ElectionMessage.VersionedVotedData( role, instanceId, credentials, readVarLong( source ) );
+        }
+        case SERVER_ID_CREDENTIALS:
+            return new ServerIdElectionCredentials( URI.create( readString( source ) ) );
+        case EXTERNALIZABLE:
+            return readExternalizable( source );
+        case SERIALIZED:
+            return readSerialized( source );
+        default:
+            throw new StreamCorruptedException( "Unknown payload tag " + tag );
+        }
+    }
+
+    private Object readExternalizable( ChannelBuffer source ) throws IOException
+    {
+        String name = readString( source );
+        Externalizable value;
+        try
+        {
+            Class<?> type = Class.forName( name, false, classLoader );
+            if ( !Externalizable.class.isAssignableFrom( type ) )
+            {
+                throw new StreamCorruptedException( name + " is not Externalizable" );
+            }
+            value = (Externalizable) type.newInstance();
+        }
+        catch ( ClassNotFoundException | InstantiationException | IllegalAccessException e )
+        {
+            throw new StreamCorruptedException( "Unable to instantiate " + name + ": " + e );
+        }
+        try ( ExternalizableInput in = new ExternalizableInput( source ) )
+        {
+            value.readExternal( in );
+        }
+        catch ( ClassNotFoundException e )
+        {
+            throw new IOException( e );
+        }
+        return value;
+    }
+
+    private static boolean hasPublicNoArgConstructor( Class<?> type )
+    {
+        try
+        {
+            type.getConstructor();
+            return true;
+        }
+        catch ( NoSuchMethodException e )
+        {
+            return false;
+        }
+    }
+
+    private void writeSerialized( Object value, ChannelBuffer target ) throws IOException
+    {
+        // Length prefixed, since object streams may read past the end of the object
+        int lengthIndex = target.writerIndex();
+        target.writeInt( 0 );
+        try ( ObjectOutputStream out = new ObjectOutputStream( new ChannelBufferOutputStream( target ) ) )
+        {
+            out.writeObject( value );
+        }
+        target.setInt( lengthIndex, target.writerIndex() - lengthIndex - 4 );
+    }
+
+    private Object readSerialized( ChannelBuffer source ) throws IOException
+    {
+        int length = source.readInt();
+        int end = source.readerIndex() + length;
+        try ( ObjectInputStream in = new ClassLoaderObjectInputStream(
+                new ChannelBufferInputStream( source, length ), classLoader ) )
+        {
+            return in.readObject();
+        }
+        catch ( ClassNotFoundException e )
+        {
+            throw new IOException( e );
+        }
+        finally
+        {
+            source.readerIndex( end );
+        }
+    }
+
+    private static void writeString( String value, ChannelBuffer target )
+    {
+        byte[] bytes = UTF8.encode( value );
+        writeVarLong( bytes.length, target );
+        target.writeBytes( bytes );
+    }
+
+    private static String readString( ChannelBuffer source ) throws IOException
+    {
+        byte[] bytes = new byte[readLength( source )];
+        source.readBytes( bytes );
+        return UTF8.decode( bytes );
+    }
+
+    private static int readLength( ChannelBuffer source ) throws IOException
+    {
+        long length = readVarLong( source );
+        if ( length < 0 || length > source.readableBytes() )
+        {
+            throw new StreamCorruptedException( "Invalid length " + length );
+        }
+        return (int) length;
+    }
+
+    /**
+     * Zig-zag encoded variable length long, so that small values, negative or not, take up only a byte or two.
+     */
+    static void writeVarLong( long value, ChannelBuffer target )
+    {
+        long bits = (value << 1) ^ (value >> 63);
+        while ( (bits & ~0x7FL) != 0 )
+        {
+            target.writeByte( (int) ((bits & 0x7F) | 0x80) );
+            bits >>>= 7;
+        }
+        target.writeByte( (int) bits );
+    }
+
+    static long readVarLong( ChannelBuffer source ) throws IOException
+    {
+        long bits = 0;
+        for ( int shift = 0; shift < 64; shift += 7 )
+        {
+            byte b = source.readByte();
+            bits |= (long) (b & 0x7F) << shift;
+            if ( (b & 0x80) == 0 )
+            {
+                return (bits >>> 1) ^ -(bits & 1);
+            }
+        }
+        throw new StreamCorruptedException( "Malformed variable length number" );
+    }
+
+    /**
+     * Lets {@link Externalizable} values write their primitives straight to the frame, with any objects they
+     * write being encoded as values of their own.
+     */
+    private class ExternalizableOutput extends ChannelBufferOutputStream implements ObjectOutput
+    {
+        ExternalizableOutput( ChannelBuffer target )
+        {
+            super( target );
+        }
+
+        @Override
+        public void writeObject( Object value ) throws IOException
+        {
+            writeValue( value, buffer() );
+        }
+    }
+
+    private class ExternalizableInput extends ChannelBufferInputStream implements ObjectInput
+    {
+        private final ChannelBuffer source;
+
+        ExternalizableInput( ChannelBuffer source )
+        {
+            super( source );
+            this.source = source;
+        }
+
+        @Override
+        public Object readObject() throws IOException
+        {
+            return readValue( source );
+        }
+    }
+
+    private static class ClassLoaderObjectInputStream extends ObjectInputStream
+    {
+        private final ClassLoader classLoader;
+
+        ClassLoaderObjectInputStream( InputStream in, ClassLoader classLoader ) throws IOException
+        {
+            super( in );
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass( ObjectStreamClass desc ) throws IOException, ClassNotFoundException
+        {
+            try
+            {
+                return Class.forName( desc.getName(), false, classLoader );
+            }
+            catch ( ClassNotFoundException e )
+            {
+                return super.resolveClass( desc );
+            }
+        }
+    }
+}
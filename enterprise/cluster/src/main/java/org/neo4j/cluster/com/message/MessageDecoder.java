@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cluster.com.message;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.serialization.ObjectDecoder;
+
+/**
+ * Reads {@link Message messages} written either by {@link MessageEncoder} or, by instances not using the binary
+ * format, by {@link org.jboss.netty.handler.codec.serialization.ObjectEncoder}. The first byte after the length
+ * prefix tells which, so the two formats can be mixed freely in a cluster, even on the same connection.
+ */
+public class MessageDecoder extends ObjectDecoder
+{
+    private static final int LENGTH_FIELD_SIZE = 4;
+
+    private final int maxObjectSize;
+    private final MessageCodec codec;
+
+    public MessageDecoder( int maxObjectSize, ClassLoader classLoader )
+    {
+        super( maxObjectSize, classLoader );
+        this.maxObjectSize = maxObjectSize;
+        this.codec = new MessageCodec( classLoader );
+    }
+
+    @Override
+    protected Object decode( ChannelHandlerContext ctx, Channel channel, ChannelBuffer buffer ) throws Exception
+    {
+        if ( buffer.readableBytes() <= LENGTH_FIELD_SIZE )
+        {
+            return null;
+        }
+
+        int start = buffer.readerIndex();
+        int length = buffer.getInt( start );
+        if ( buffer.getByte( start + LENGTH_FIELD_SIZE ) != MessageCodec.MAGIC || length > maxObjectSize )
+        {   // Serialized message, or one too large for us, which the frame decoder deals with
+            return super.decode( ctx, channel, buffer );
+        }
+        if ( buffer.readableBytes() < LENGTH_FIELD_SIZE + length )
+        {
+            return null;
+        }
+
+        ChannelBuffer frame = buffer.slice( start + LENGTH_FIELD_SIZE, length );
+        buffer.readerIndex( start + LENGTH_FIELD_SIZE + length );
+        return codec.decode( frame );
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cluster.com.message;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
+
+/**
+ * Writes {@link Message messages} in the binary format of {@link MessageCodec}, framed by a length prefix the
+ * same way as {@link org.jboss.netty.handler.codec.serialization.ObjectEncoder} frames serialized messages, so
+ * that {@link MessageDecoder} can read both.
+ */
+public class MessageEncoder extends OneToOneEncoder
+{
+    private final MessageCodec codec = new MessageCodec( getClass().getClassLoader() );
+    private final int estimatedLength;
+
+    public MessageEncoder( int estimatedLength )
+    {
+        this.estimatedLength = estimatedLength;
+    }
+
+    @Override
+    protected Object encode( ChannelHandlerContext ctx, Channel channel, Object msg ) throws Exception
+    {
+        if ( !(msg instanceof Message) )
+        {
+            return msg;
+        }
+
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer( estimatedLength,
+                ctx.getChannel().getConfig().getBufferFactory() );
+        buffer.writeInt( 0 );
+        codec.encode( (Message<?>) msg, buffer );
+        buffer.setInt( 0, buffer.writerIndex() - 4 );
+        return buffer;
+    }
+}
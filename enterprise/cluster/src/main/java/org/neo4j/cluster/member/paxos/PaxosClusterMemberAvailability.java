@@ -48,11 +48,21 @@ public class PaxosClusterMemberAvailability implements ClusterMemberAvailability
     private BindingListener bindingListener;
     private ObjectInputStreamFactory objectInputStreamFactory;
     private ObjectOutputStreamFactory objectOutputStreamFactory;
+    private final boolean binaryPayloads;
 
     public PaxosClusterMemberAvailability( InstanceId myId, BindingNotifier binding, AtomicBroadcast atomicBroadcast,
                                            Logging logging, ObjectInputStreamFactory objectInputStreamFactory,
                                            ObjectOutputStreamFactory objectOutputStreamFactory )
     {
+        this( myId, binding, atomicBroadcast, logging, objectInputStreamFactory, objectOutputStreamFactory, false );
+    }
+
+    public PaxosClusterMemberAvailability( InstanceId myId, BindingNotifier binding, AtomicBroadcast atomicBroadcast,
+                                           Logging logging, ObjectInputStreamFactory objectInputStreamFactory,
+                                           ObjectOutputStreamFactory objectOutputStreamFactory,
+                                           boolean binaryPayloads )
+    {
+        this.binaryPayloads = binaryPayloads;
         this.myId = myId;
         this.binding = binding;
         this.atomicBroadcast = atomicBroadcast;
@@ -75,7 +85,8 @@ public class PaxosClusterMemberAvailability implements ClusterMemberAvailability
     public void init()
             throws Throwable
     {
-        serializer = new AtomicBroadcastSerializer( objectInputStreamFactory, objectOutputStreamFactory );
+        serializer = new AtomicBroadcastSerializer( objectInputStreamFactory, objectOutputStreamFactory,
+                binaryPayloads );
 
         binding.addBindingListener( bindingListener );
     }
@@ -25,24 +25,45 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
+import org.neo4j.cluster.com.message.MessageCodec;
+
 /**
  * Serializes and deserializes value to/from Payloads.
+ * <p>
+ * Values are written using Java serialization, or using the binary format of {@link MessageCodec} if asked to. Since
+ * broadcast values are delivered to every member of the cluster, the binary format must only be used once all
+ * members can read it. Payloads in either format can always be read, telling them apart by their first byte.
  */
 public class AtomicBroadcastSerializer
 {
     private ObjectInputStreamFactory objectInputStreamFactory;
     private ObjectOutputStreamFactory objectOutputStreamFactory;
+    private final MessageCodec codec = new MessageCodec( getClass().getClassLoader() );
+    private final boolean binary;
 
     public AtomicBroadcastSerializer( ObjectInputStreamFactory objectInputStreamFactory,
                                       ObjectOutputStreamFactory objectOutputStreamFactory )
+    {
+        this( objectInputStreamFactory, objectOutputStreamFactory, false );
+    }
+
+    public AtomicBroadcastSerializer( ObjectInputStreamFactory objectInputStreamFactory,
+                                      ObjectOutputStreamFactory objectOutputStreamFactory, boolean binary )
     {
         this.objectInputStreamFactory = objectInputStreamFactory;
         this.objectOutputStreamFactory = objectOutputStreamFactory;
+        this.binary = binary;
     }
 
     public Payload broadcast(Object value)
         throws IOException
     {
+        if ( binary )
+        {
+            byte[] bytes = codec.encodeValue( value );
+            return new Payload( bytes, bytes.length );
+        }
+
         ByteArrayOutputStream bout = new ByteArrayOutputStream(  );
         ObjectOutputStream oout = objectOutputStreamFactory.create(bout);
         oout.writeObject( value );
@@ -54,6 +75,11 @@ public class AtomicBroadcastSerializer
     public Object receive( Payload payload )
         throws IOException, ClassNotFoundException
     {
+        if ( payload.getLen() > 0 && payload.getBuf()[0] == MessageCodec.MAGIC )
+        {
+            return codec.decodeValue( payload.getBuf(), 0, payload.getLen() );
+        }
+
         ByteArrayInputStream in = new ByteArrayInputStream( payload.getBuf(), 0, payload.getLen() );
         ObjectInputStream oin = objectInputStreamFactory.create( in );
         return oin.readObject();
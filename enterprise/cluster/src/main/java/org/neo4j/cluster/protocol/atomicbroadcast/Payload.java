@@ -56,6 +56,43 @@ public class Payload
         return len;
     }
 
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        Payload that = (Payload) o;
+        if ( len != that.len )
+        {
+            return false;
+        }
+        for ( int i = 0; i < len; i++ )
+        {
+            if ( buf[i] != that.buf[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = len;
+        for ( int i = 0; i < len; i++ )
+        {
+            result = 31 * result + buf[i];
+        }
+        return result;
+    }
+
     @Override
     public void writeExternal( ObjectOutput out )
             throws IOException
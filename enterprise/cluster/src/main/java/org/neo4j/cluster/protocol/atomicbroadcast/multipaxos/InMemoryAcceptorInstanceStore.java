@@ -19,43 +19,95 @@
  */
 package org.neo4j.cluster.protocol.atomicbroadcast.multipaxos;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
  * In memory version of an acceptor instance store.
+ * <p>
+ * Instances are kept in a ring buffer, indexed by instance id, covering the instances following the last delivered
+ * one, which is where practically all instances in progress are. The few instances that fall outside of it, such
+ * as late messages for instances already delivered, are kept in a map on the side.
  */
 public class InMemoryAcceptorInstanceStore
         implements AcceptorInstanceStore
 {
-    private final Map<InstanceId, AcceptorInstance> instances;
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final long[] ids;
+    private final AcceptorInstance[] instances;
+    private final Map<InstanceId, AcceptorInstance> overflow;
 
     private long lastDeliveredInstanceId;
 
     public InMemoryAcceptorInstanceStore()
     {
-        this(new HashMap<InstanceId, AcceptorInstance>(), -1);
+        this( DEFAULT_CAPACITY );
     }
 
-    private InMemoryAcceptorInstanceStore(Map<InstanceId, AcceptorInstance> instances, long lastDeliveredInstanceId)
+    public InMemoryAcceptorInstanceStore( int capacity )
     {
+        this( emptyIds( capacity ), new AcceptorInstance[capacity], new HashMap<InstanceId, AcceptorInstance>(), -1 );
+    }
+
+    private InMemoryAcceptorInstanceStore( long[] ids, AcceptorInstance[] instances,
+                                           Map<InstanceId, AcceptorInstance> overflow, long lastDeliveredInstanceId )
+    {
+        this.ids = ids;
         this.instances = instances;
+        this.overflow = overflow;
         this.lastDeliveredInstanceId = lastDeliveredInstanceId;
     }
 
+    private static long[] emptyIds( int capacity )
+    {
+        if ( capacity < 1 )
+        {
+            throw new IllegalArgumentException( "Capacity must be positive, was " + capacity );
+        }
+        long[] ids = new long[capacity];
+        Arrays.fill( ids, -1 );
+        return ids;
+    }
+
     @Override
     public AcceptorInstance getAcceptorInstance( InstanceId instanceId )
     {
-        AcceptorInstance instance = instances.get( instanceId );
-        if ( instance == null )
+        long id = instanceId.getId();
+        AcceptorInstance instance;
+        if ( !overflow.isEmpty() && (instance = overflow.get( instanceId )) != null )
         {
-            instance = new AcceptorInstance();
-            instances.put( instanceId, instance );
+            return instance;
         }
 
+        if ( fitsInRing( id ) )
+        {
+            int slot = slot( id );
+            if ( ids[slot] != id || instances[slot] == null )
+            {   // Whatever was there is from before the last delivered instance
+                ids[slot] = id;
+                instances[slot] = new AcceptorInstance();
+            }
+            return instances[slot];
+        }
+
+        instance = new AcceptorInstance();
+        overflow.put( instanceId, instance );
         return instance;
     }
 
+    private boolean fitsInRing( long id )
+    {
+        return id > lastDeliveredInstanceId && id - lastDeliveredInstanceId <= ids.length;
+    }
+
+    private int slot( long id )
+    {
+        return (int) (id % ids.length);
+    }
+
     @Override
     public void promise( AcceptorInstance instance, long ballot )
     {
@@ -71,23 +123,89 @@ public class InMemoryAcceptorInstanceStore
     @Override
     public void lastDelivered( InstanceId instanceId )
     {
-        for ( long i = lastDeliveredInstanceId; i <= instanceId.getId(); i++ )
+        long delivered = instanceId.getId();
+        if ( delivered < lastDeliveredInstanceId )
+        {
+            // Moving back, so instances far ahead may no longer fit in the ring
+            lastDeliveredInstanceId = delivered;
+            for ( int slot = 0; slot < ids.length; slot++ )
+            {
+                if ( instances[slot] != null && !fitsInRing( ids[slot] ) )
+                {
+                    overflow.put( new InstanceId( ids[slot] ), instances[slot] );
+                    removeSlot( slot );
+                }
+            }
+            return;
+        }
+
+        if ( delivered - lastDeliveredInstanceId >= ids.length )
+        {
+            for ( int slot = 0; slot < ids.length; slot++ )
+            {
+                if ( ids[slot] <= delivered )
+                {
+                    removeSlot( slot );
+                }
+            }
+        }
+        else
+        {
+            for ( long id = Math.max( lastDeliveredInstanceId, 0 ); id <= delivered; id++ )
+            {
+                int slot = slot( id );
+                if ( ids[slot] == id )
+                {
+                    removeSlot( slot );
+                }
+            }
+        }
+
+        if ( !overflow.isEmpty() )
         {
-            instances.remove( new InstanceId(i) );
+            for ( Iterator<InstanceId> iterator = overflow.keySet().iterator(); iterator.hasNext(); )
+            {
+                if ( iterator.next().getId() <= delivered )
+                {
+                    iterator.remove();
+                }
+            }
         }
 
-        lastDeliveredInstanceId = instanceId.getId();
+        lastDeliveredInstanceId = delivered;
+    }
+
+    private void removeSlot( int slot )
+    {
+        ids[slot] = -1;
+        instances[slot] = null;
     }
 
     @Override
     public void clear()
     {
-        instances.clear();
+        Arrays.fill( ids, -1 );
+        Arrays.fill( instances, null );
+        overflow.clear();
     }
 
     public InMemoryAcceptorInstanceStore snapshot()
     {
-        return new InMemoryAcceptorInstanceStore( new HashMap<>(instances), lastDeliveredInstanceId );
+        return new InMemoryAcceptorInstanceStore( ids.clone(), instances.clone(), new HashMap<>( overflow ),
+                lastDeliveredInstanceId );
+    }
+
+    private Map<InstanceId, AcceptorInstance> allInstances()
+    {
+        Map<InstanceId, AcceptorInstance> all = new HashMap<>( overflow );
+        for ( int slot = 0; slot < ids.length; slot++ )
+        {
+            if ( instances[slot] != null )
+            {
+                all.put( new InstanceId( ids[slot] ), instances[slot] );
+            }
+        }
+        return all;
     }
 
     @Override
@@ -108,7 +226,7 @@ public class InMemoryAcceptorInstanceStore
         {
             return false;
         }
-        if ( !instances.equals( that.instances ) )
+        if ( !allInstances().equals( that.allInstances() ) )
         {
             return false;
         }
@@ -119,7 +237,7 @@ public class InMemoryAcceptorInstanceStore
     @Override
     public int hashCode()
     {
-        int result = instances.hashCode();
+        int result = allInstances().hashCode();
         result = 31 * result + (int) (lastDeliveredInstanceId ^ (lastDeliveredInstanceId >>> 32));
         return result;
     }
@@ -115,8 +115,8 @@ public enum LearnerState
                             if ( instanceId.getId() == context.getLastDeliveredInstanceId() + 1 )
                             {
                                 instance.delivered();
-                                outgoing.offer( Message.internal( AtomicBroadcastMessage.broadcastResponse,
-                                        learnState.getValue() ) );
+                                deliver( Message.internal( AtomicBroadcastMessage.broadcastResponse,
+                                        learnState.getValue() ), outgoing );
                                 context.setLastDeliveredInstanceId( instanceId.getId() );
 
                                 long checkInstanceId = instanceId.getId() + 1;
@@ -129,7 +129,7 @@ public enum LearnerState
                                             AtomicBroadcastMessage.broadcastResponse, instance.value_2 )
                                             .setHeader( InstanceId.INSTANCE, instance.id.toString() )
                                             .setHeader( Message.CONVERSATION_ID, instance.conversationIdHeader );
-                                    outgoing.offer( learnMessage );
+                                    deliver( learnMessage, outgoing );
 
                                     checkInstanceId++;
                                 }
@@ -294,5 +294,31 @@ public enum LearnerState
                     }
                     return context.getUriForId( lastKnownAliveInstance );
                 }
+            };
+
+    /**
+     * Delivers a learned value. Batched values are delivered one by one, each in the conversation it was
+     * broadcast in, so that the broadcasters see them just like values learned in instances of their own.
+     */
+    private static void deliver( Message<AtomicBroadcastMessage> response, MessageHolder outgoing )
+    {
+        Object value = response.getPayload();
+        if ( !(value instanceof ProposalBatch) )
+        {
+            outgoing.offer( response );
+            return;
+        }
+
+        ProposalBatch batch = (ProposalBatch) value;
+        for ( int i = 0; i < batch.size(); i++ )
+        {
+            Message<AtomicBroadcastMessage> valueResponse = Message.internal(
+                    AtomicBroadcastMessage.broadcastResponse, batch.getValue( i ) );
+            if ( batch.getConversationId( i ) != null )
+            {
+                valueResponse.setHeader( Message.CONVERSATION_ID, batch.getConversationId( i ) );
             }
+            outgoing.offer( response.copyHeadersTo( valueResponse ) );
+        }
+    }
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cluster.protocol.atomicbroadcast.multipaxos;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Several broadcast values proposed together in a single Paxos instance. Each value remembers the conversation
+ * it was broadcast in, so that learners can deliver them one by one, just as if they had been proposed in
+ * instances of their own.
+ */
+public class ProposalBatch
+        implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final List<Object> values = new ArrayList<>();
+    private final List<String> conversationIds = new ArrayList<>();
+
+    public void add( Object value, String conversationId )
+    {
+        values.add( value );
+        conversationIds.add( conversationId );
+    }
+
+    public int size()
+    {
+        return values.size();
+    }
+
+    public Object getValue( int index )
+    {
+        return values.get( index );
+    }
+
+    /**
+     * @return the conversation the value at the given index was broadcast in, or {@code null} if none.
+     */
+    public String getConversationId( int index )
+    {
+        return conversationIds.get( index );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ProposalBatch" + values;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+
+        ProposalBatch that = (ProposalBatch) o;
+
+        return values.equals( that.values ) && conversationIds.equals( that.conversationIds );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * values.hashCode() + conversationIds.hashCode();
+    }
+}
@@ -40,6 +40,11 @@ public interface ProposerContext
 
     void pendingValue( Message message );
 
+    /**
+     * Queues a new value to be proposed once there's room for another instance, after the ones already pending.
+     */
+    void queuePendingValue( Message message );
+
     void bookInstance( InstanceId instanceId, Message message );
 
     int nrOfBookedInstances();
@@ -56,6 +61,10 @@ public interface ProposerContext
 
     boolean hasPendingValues();
 
+    /**
+     * Pops the next pending value. If proposal batching is enabled, broadcast values pending after it are proposed
+     * together with it, as a {@link ProposalBatch}.
+     */
     Message popPendingValue();
 
     void leave();
@@ -131,6 +131,8 @@ public enum ProposerState
                                             Message.internal( AtomicBroadcastMessage.failed,
                                                     originalMessage.getPayload() ) ) );
                                     context.cancelTimeout( instanceId );
+                                    // The value will be broadcast again, so give room for it in a new instance
+                                    context.unbookInstance( instanceId );
                                 }
                                 else
                                 {
@@ -292,11 +294,13 @@ public enum ProposerState
                                         ProposerMessage.phase1Timeout, message, message.getPayload() ),
                                         org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId.INSTANCE ) );
                             }
-                            else if ( instance.isState( PaxosInstance.State.closed )
-                                    || instance.isState( PaxosInstance.State.delivered ) )
+                            else if ( (instance.isState( PaxosInstance.State.closed )
+                                    || instance.isState( PaxosInstance.State.delivered ))
+                                    && !message.getPayload().equals( instance.value_2 ) )
                             {
-                                outgoing.offer( message.copyHeadersTo( Message.internal( ProposerMessage.propose,
-                                        message.getPayload() ) ) );
+                                // Another value won this instance, so retry ours in a new one
+                                context.unbookInstance( instanceId );
+                                outgoing.offer( Message.internal( ProposerMessage.propose, message.getPayload() ) );
                             }
                             break;
                         }
@@ -406,6 +410,12 @@ public enum ProposerState
         {
             instanceId = new org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId( message );
         }
+        else if ( !context.canBookInstance() )
+        {
+            // Wait with this value until one of the instances in progress is done
+            context.queuePendingValue( message );
+            return;
+        }
         else
         {
             instanceId = context.newInstanceId();
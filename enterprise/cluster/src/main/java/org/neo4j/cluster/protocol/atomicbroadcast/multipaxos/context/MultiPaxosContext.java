@@ -46,6 +46,9 @@ import org.neo4j.kernel.logging.Logging;
  */
 public class MultiPaxosContext
 {
+    public static final int DEFAULT_MAX_CONCURRENT_INSTANCES = 10;
+    public static final int DEFAULT_PROPOSAL_BATCH_SIZE = 1;
+
     private final ClusterContextImpl clusterContext;
     private final ProposerContextImpl proposerContext;
     private final AcceptorContextImpl acceptorContext;
@@ -66,6 +69,27 @@ public class MultiPaxosContext
                               AcceptorInstanceStore instanceStore,
                               Timeouts timeouts,
                               ElectionCredentialsProvider electionCredentialsProvider )
+    {
+        this( me, roles, configuration, executor, logging, objectInputStreamFactory, objectOutputStreamFactory,
+                instanceStore, timeouts, electionCredentialsProvider, DEFAULT_MAX_CONCURRENT_INSTANCES,
+                DEFAULT_PROPOSAL_BATCH_SIZE );
+    }
+
+    /**
+     * @param maxConcurrentInstances how many Paxos instances the proposer may have in flight at the same time.
+     * @param proposalBatchSize how many pending broadcast values the proposer may propose in a single instance.
+     */
+    public MultiPaxosContext( InstanceId me,
+                              Iterable<ElectionRole> roles,
+                              ClusterConfiguration configuration,
+                              Executor executor,
+                              Logging logging,
+                              ObjectInputStreamFactory objectInputStreamFactory,
+                              ObjectOutputStreamFactory objectOutputStreamFactory,
+                              AcceptorInstanceStore instanceStore,
+                              Timeouts timeouts,
+                              ElectionCredentialsProvider electionCredentialsProvider,
+                              int maxConcurrentInstances, int proposalBatchSize )
     {
         commonState = new CommonContextState(configuration);
         paxosInstances = new PaxosInstanceStore();
@@ -74,7 +98,8 @@ public class MultiPaxosContext
         learnerContext = new LearnerContextImpl(me, commonState, logging, timeouts, paxosInstances, instanceStore, objectInputStreamFactory, objectOutputStreamFactory, heartbeatContext );
         clusterContext = new ClusterContextImpl(me, commonState, logging, timeouts, executor, objectOutputStreamFactory, objectInputStreamFactory, learnerContext, heartbeatContext );
         electionContext = new ElectionContextImpl( me, commonState, logging, timeouts, roles, clusterContext, heartbeatContext, electionCredentialsProvider );
-        proposerContext = new ProposerContextImpl(me, commonState, logging, timeouts, paxosInstances );
+        proposerContext = new ProposerContextImpl(me, commonState, logging, timeouts, paxosInstances,
+                maxConcurrentInstances, proposalBatchSize );
         acceptorContext = new AcceptorContextImpl(me, commonState, logging, timeouts, instanceStore);
         atomicBroadcastContext = new AtomicBroadcastContextImpl(me, commonState, logging, timeouts, executor);
 
@@ -30,6 +30,7 @@ import org.neo4j.cluster.com.message.Message;
 import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId;
 import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.PaxosInstance;
 import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.PaxosInstanceStore;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.ProposalBatch;
 import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.ProposerContext;
 import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.ProposerMessage;
 import org.neo4j.cluster.protocol.cluster.ClusterMessage;
@@ -40,32 +41,38 @@ class ProposerContextImpl
         extends AbstractContextImpl
         implements ProposerContext
 {
-    public static final int MAX_CONCURRENT_INSTANCES = 10;
-
     // ProposerContext
     private final Deque<Message> pendingValues;
     private final Map<InstanceId, Message> bookedInstances;
 
     private final PaxosInstanceStore paxosInstances;
+    private final int maxConcurrentInstances;
+    private final int proposalBatchSize;
 
     ProposerContextImpl( org.neo4j.cluster.InstanceId me, CommonContextState commonState,
                          Logging logging,
-                         Timeouts timeouts, PaxosInstanceStore paxosInstances )
+                         Timeouts timeouts, PaxosInstanceStore paxosInstances,
+                         int maxConcurrentInstances, int proposalBatchSize )
     {
         super( me, commonState, logging, timeouts );
         this.paxosInstances = paxosInstances;
+        this.maxConcurrentInstances = maxConcurrentInstances;
+        this.proposalBatchSize = proposalBatchSize;
         pendingValues = new LinkedList<>(  );
         bookedInstances = new HashMap<>();
     }
 
     private ProposerContextImpl( org.neo4j.cluster.InstanceId me, CommonContextState commonState, Logging logging,
                                  Timeouts timeouts, Deque<Message> pendingValues,
-                                 Map<InstanceId, Message> bookedInstances, PaxosInstanceStore paxosInstances )
+                                 Map<InstanceId, Message> bookedInstances, PaxosInstanceStore paxosInstances,
+                                 int maxConcurrentInstances, int proposalBatchSize )
     {
         super( me, commonState, logging, timeouts );
         this.pendingValues = pendingValues;
         this.bookedInstances = bookedInstances;
         this.paxosInstances = paxosInstances;
+        this.maxConcurrentInstances = maxConcurrentInstances;
+        this.proposalBatchSize = proposalBatchSize;
     }
 
     @Override
@@ -112,6 +119,12 @@ class ProposerContextImpl
         pendingValues.offerFirst( message );
     }
 
+    @Override
+    public void queuePendingValue( Message message )
+    {
+        pendingValues.offerLast( message );
+    }
+
     @Override
     public boolean hasPendingValues()
     {
@@ -121,13 +134,45 @@ class ProposerContextImpl
     @Override
     public Message popPendingValue()
     {
-        return pendingValues.remove();
+        Message first = pendingValues.remove();
+        if ( proposalBatchSize <= 1 || !isBatchable( first ) || pendingValues.isEmpty() ||
+                !isBatchable( pendingValues.peek() ) )
+        {
+            return first;
+        }
+
+        ProposalBatch batch = new ProposalBatch();
+        addToBatch( batch, first );
+        while ( batch.size() < proposalBatchSize && !pendingValues.isEmpty() && isBatchable( pendingValues.peek() ) )
+        {
+            addToBatch( batch, pendingValues.remove() );
+        }
+        return first.copyHeadersTo( Message.internal( ProposerMessage.propose, batch ), Message.CONVERSATION_ID,
+                Message.CREATED_BY );
+    }
+
+    /**
+     * Only plain broadcast values that have never been proposed can go into a batch. Values that already have an
+     * instance must keep it, and configuration changes are treated specially by the proposer and learners.
+     */
+    private boolean isBatchable( Message message )
+    {
+        Object payload = message.getPayload();
+        return payload != null && !(payload instanceof ProposalBatch) &&
+                !(payload instanceof ClusterMessage.ConfigurationChangeState) &&
+                !message.hasHeader( InstanceId.INSTANCE );
+    }
+
+    private void addToBatch( ProposalBatch batch, Message message )
+    {
+        batch.add( message.getPayload(), message.hasHeader( Message.CONVERSATION_ID ) ?
+                message.getHeader( Message.CONVERSATION_ID ) : null );
     }
 
     @Override
     public boolean canBookInstance()
     {
-        return bookedInstances.size() < MAX_CONCURRENT_INSTANCES;
+        return bookedInstances.size() < maxConcurrentInstances;
     }
 
     @Override
@@ -215,7 +260,7 @@ class ProposerContextImpl
                                          PaxosInstanceStore paxosInstancesSnapshot )
     {
         return new ProposerContextImpl( me, commonStateSnapshot, logging, timeouts, new LinkedList<>( pendingValues ),
-                new HashMap<>(bookedInstances), paxosInstancesSnapshot );
+                new HashMap<>(bookedInstances), paxosInstancesSnapshot, maxConcurrentInstances, proposalBatchSize );
     }
 
     @Override
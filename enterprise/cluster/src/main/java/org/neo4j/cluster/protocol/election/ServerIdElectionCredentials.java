@@ -31,6 +31,11 @@ public class ServerIdElectionCredentials implements ElectionCredentials, Seriali
         this.credentials = credentials;
     }
 
+    public URI getCredentials()
+    {
+        return credentials;
+    }
+
     @Override
     public int compareTo( Object o )
     {
@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cluster.com.message;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.ChannelDownstreamHandler;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.embedder.EncoderEmbedder;
+import org.jboss.netty.handler.codec.serialization.ObjectDecoder;
+import org.jboss.netty.handler.codec.serialization.ObjectEncoder;
+
+import org.neo4j.cluster.InstanceId;
+import org.neo4j.cluster.protocol.atomicbroadcast.Payload;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.AcceptorMessage;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.LearnerMessage;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.ProposerMessage;
+import org.neo4j.cluster.protocol.heartbeat.HeartbeatMessage;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Compares encoding and decoding latency, as well as bytes on the wire, of the binary cluster message format and
+ * Java serialization, for the messages that make up most of the cluster traffic. Run with for example
+ * {@code -Diterations=1000000}.
+ */
+public class MessageCodecMicroBenchmark
+{
+    private static final URI FROM = URI.create( "cluster://192.168.0.1:5001" );
+    private static final URI TO = URI.create( "cluster://192.168.0.2:5001" );
+
+    public static void main( String... args ) throws Exception
+    {
+        int iterations = Integer.getInteger( "iterations", 200_000 );
+        for ( Workload workload : Workload.values() )
+        {
+            for ( Format format : Format.values() )
+            {
+                run( workload, format, iterations / 10 ); // warmup
+                run( workload, format, iterations );
+            }
+        }
+    }
+
+    private static void run( Workload workload, Format format, int iterations )
+    {
+        Message<?> message = workload.message();
+        EncoderEmbedder<ChannelBuffer> encoder = new EncoderEmbedder<>( format.encoder() );
+        DecoderEmbedder<Object> decoder = new DecoderEmbedder<>( format.decoder() );
+
+        long bytes = 0, encodeTime = 0, decodeTime = 0;
+        for ( int i = 0; i < iterations; i++ )
+        {
+            long start = nanoTime();
+            encoder.offer( message );
+            ChannelBuffer buffer = encoder.poll();
+            long encoded = nanoTime();
+            bytes += buffer.readableBytes();
+            decoder.offer( buffer );
+            if ( decoder.poll() == null )
+            {
+                throw new IllegalStateException( "Failed to decode " + message );
+            }
+            decodeTime += nanoTime() - encoded;
+            encodeTime += encoded - start;
+        }
+
+        System.out.println( String.format( "%s %s: encode %d ns, decode %d ns, %d bytes", workload, format,
+                encodeTime / iterations, decodeTime / iterations, bytes / iterations ) );
+    }
+
+    enum Format
+    {
+        BINARY
+        {
+            @Override
+            ChannelDownstreamHandler encoder()
+            {
+                return new MessageEncoder( 2048 );
+            }
+        },
+        SERIALIZATION
+        {
+            @Override
+            ChannelDownstreamHandler encoder()
+            {
+                return new ObjectEncoder( 2048 );
+            }
+        };
+
+        abstract ChannelDownstreamHandler encoder();
+
+        ChannelUpstreamHandler decoder()
+        {
+            // Our decoder reads both formats, and peeking at the first byte costs next to nothing
+            return new MessageDecoder( 1024 * 1000, getClass().getClassLoader() );
+        }
+    }
+
+    enum Workload
+    {
+        ACCEPT
+        {
+            @Override
+            Message<?> message()
+            {
+                return paxos( Message.to( AcceptorMessage.accept, TO,
+                        new AcceptorMessage.AcceptState( 1234, new Payload( new byte[200], 200 ) ) ) );
+            }
+        },
+        ACCEPTED
+        {
+            @Override
+            Message<?> message()
+            {
+                return paxos( Message.to( ProposerMessage.accepted, TO, new ProposerMessage.AcceptedState() ) );
+            }
+        },
+        LEARN
+        {
+            @Override
+            Message<?> message()
+            {
+                return paxos( Message.to( LearnerMessage.learn, TO,
+                        new LearnerMessage.LearnState( new Payload( new byte[200], 200 ) ) ) );
+            }
+        },
+        HEARTBEAT
+        {
+            @Override
+            Message<?> message()
+            {
+                return from( Message.to( HeartbeatMessage.i_am_alive, TO,
+                        new HeartbeatMessage.IAmAliveState( new InstanceId( 1 ) ) ) );
+            }
+        },
+        SUSPICIONS
+        {
+            @Override
+            Message<?> message()
+            {
+                return from( Message.to( HeartbeatMessage.suspicions, TO, new HeartbeatMessage.SuspicionsState(
+                        new HashSet<>( Arrays.asList( new InstanceId( 2 ), new InstanceId( 3 ) ) ) ) ) );
+            }
+        };
+
+        abstract Message<?> message();
+
+        private static Message<?> from( Message<?> message )
+        {
+            return message.setHeader( Message.FROM, FROM.toString() )
+                    .setHeader( Message.CREATED_BY, FROM.toString() )
+                    .setHeader( Message.INSTANCE_ID, "1" );
+        }
+
+        private static Message<?> paxos( Message<?> message )
+        {
+            return from( message ).setHeader( Message.CONVERSATION_ID, "1/13#" )
+                    .setHeader( org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId.INSTANCE, "4711" );
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cluster.com.message;
+
+import java.io.StreamCorruptedException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.ChannelDownstreamHandler;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.embedder.EncoderEmbedder;
+import org.jboss.netty.handler.codec.serialization.ObjectEncoder;
+import org.junit.Test;
+
+import org.neo4j.cluster.InstanceId;
+import org.neo4j.cluster.member.paxos.MemberIsAvailable;
+import org.neo4j.cluster.member.paxos.MemberIsUnavailable;
+import org.neo4j.cluster.protocol.atomicbroadcast.Payload;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.AcceptorMessage;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.LearnerMessage;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.ProposalBatch;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.ProposerMessage;
+import org.neo4j.cluster.protocol.cluster.ClusterMessage;
+import org.neo4j.cluster.protocol.election.ElectionContext;
+import org.neo4j.cluster.protocol.election.ElectionMessage;
+import org.neo4j.cluster.protocol.election.NotElectableElectionCredentials;
+import org.neo4j.cluster.protocol.election.ServerIdElectionCredentials;
+import org.neo4j.cluster.protocol.heartbeat.HeartbeatMessage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import static org.neo4j.cluster.com.message.Message.to;
+
+public class MessageCodecTest
+{
+    public enum TestMessage implements MessageType
+    {
+        first, second
+    }
+
+    private static final URI TO = URI.create( "cluster://127.0.0.1:5002" );
+
+    private final MessageCodec codec = new MessageCodec( getClass().getClassLoader() );
+
+    @Test
+    public void shouldRoundTripMessageTypesAndHeaders() throws Exception
+    {
+        assertRoundTrip( to( AcceptorMessage.accept, TO ) );
+        assertRoundTrip( to( HeartbeatMessage.i_am_alive, TO )
+                .setHeader( Message.FROM, "cluster://127.0.0.1:5001" )
+                .setHeader( Message.CONVERSATION_ID, "1/2#" )
+                .setHeader( Message.CREATED_BY, "cluster://127.0.0.1:5001" )
+                .setHeader( Message.INSTANCE_ID, "1" )
+                .setHeader( org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId.INSTANCE, "42" )
+                .setHeader( "custom", "åäö" ) );
+        assertRoundTrip( to( TestMessage.second, TO ) );
+        assertRoundTrip( Message.internal( ClusterMessage.leave ) );
+    }
+
+    @Test
+    public void shouldRoundTripSimplePayloads() throws Exception
+    {
+        assertRoundTrip( to( TestMessage.first, TO, "Hello World" ) );
+        assertRoundTrip( to( TestMessage.first, TO, "" ) );
+        assertRoundTrip( to( TestMessage.first, TO, Integer.MIN_VALUE ) );
+        assertRoundTrip( to( TestMessage.first, TO, -1 ) );
+        assertRoundTrip( to( TestMessage.first, TO, Long.MAX_VALUE ) );
+        assertRoundTrip( to( TestMessage.first, TO, Long.MIN_VALUE ) );
+        assertRoundTrip( to( TestMessage.first, TO, 0L ) );
+        assertRoundTrip( to( TestMessage.first, TO, true ) );
+        assertRoundTrip( to( TestMessage.first, TO, false ) );
+        assertRoundTrip( to( TestMessage.first, TO, URI.create( "cluster://10.0.0.1:5001?serverId=1" ) ) );
+        assertRoundTrip( to( TestMessage.first, TO, new InstanceId( 3 ) ) );
+        assertRoundTrip( to( TestMessage.first, TO,
+                new org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId( 1234567890123L ) ) );
+    }
+
+    @Test
+    public void shouldRoundTripPaxosPayloads() throws Exception
+    {
+        assertRoundTrip( to( AcceptorMessage.prepare, TO, new AcceptorMessage.PrepareState( 1001 ) ) );
+        assertRoundTrip( to( AcceptorMessage.accept, TO, new AcceptorMessage.AcceptState( 1001, "value" ) ) );
+        assertRoundTrip( to( AcceptorMessage.accept, TO, new AcceptorMessage.AcceptState( 1001, null ) ) );
+        assertRoundTrip( to( ProposerMessage.promise, TO, new ProposerMessage.PromiseState( 1002, 5L ) ) );
+        assertRoundTrip( to( ProposerMessage.rejectPrepare, TO, new ProposerMessage.RejectPrepare( 1003 ) ) );
+        assertRoundTrip( to( ProposerMessage.rejectAccept, TO, new ProposerMessage.RejectAcceptState() ) );
+        assertRoundTrip( to( ProposerMessage.accepted, TO, new ProposerMessage.AcceptedState() ) );
+        assertRoundTrip( to( LearnerMessage.learn, TO, new LearnerMessage.LearnState( new InstanceId( 2 ) ) ) );
+        assertRoundTrip( to( LearnerMessage.learnRequest, TO, new LearnerMessage.LearnRequestState() ) );
+        assertRoundTrip( to( LearnerMessage.learnFailed, TO, new LearnerMessage.LearnFailedState() ) );
+
+        ProposalBatch batch = new ProposalBatch();
+        batch.add( "first", "1/1#" );
+        batch.add( 2L, null );
+        assertRoundTrip( to( AcceptorMessage.accept, TO, new AcceptorMessage.AcceptState( 1001, batch ) ) );
+    }
+
+    @Test
+    public void shouldRoundTripHeartbeatPayloads() throws Exception
+    {
+        assertRoundTrip( to( HeartbeatMessage.i_am_alive, TO, new HeartbeatMessage.IAmAliveState(
+                new InstanceId( 1 ) ) ) );
+        assertRoundTrip( to( HeartbeatMessage.suspicions, TO, new HeartbeatMessage.SuspicionsState(
+                new HashSet<>( Arrays.asList( new InstanceId( 1 ), new InstanceId( 2 ) ) ) ) ) );
+        assertRoundTrip( to( HeartbeatMessage.suspicions, TO, new HeartbeatMessage.SuspicionsState(
+                Collections.<InstanceId>emptySet() ) ) );
+        assertRoundTrip( to( HeartbeatMessage.suspicions, TO, new HeartbeatMessage.SuspicionsState( null ) ) );
+    }
+
+    @Test
+    public void shouldRoundTripBroadcastPayloadsOnlyWritingTheirLength() throws Exception
+    {
+        // GIVEN
+        byte[] bytes = new byte[1000];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            bytes[i] = (byte) i;
+        }
+        Payload payload = new Payload( bytes, 300 );
+
+        // WHEN
+        Message<?> read = roundTrip( to( AcceptorMessage.accept, TO, new AcceptorMessage.AcceptState( 7, payload ) ) );
+
+        // THEN
+        AcceptorMessage.AcceptState state = read.getPayload();
+        Payload readPayload = (Payload) state.getValue();
+        assertEquals( 300, readPayload.getLen() );
+        assertArrayEquals( Arrays.copyOf( bytes, 300 ), Arrays.copyOf( readPayload.getBuf(), 300 ) );
+    }
+
+    @Test
+    public void shouldRoundTripElectionPayloads() throws Exception
+    {
+        // GIVEN
+        ElectionContext.VoteRequest request = new ElectionContext.VoteRequest( "coordinator", 17 );
+        ElectionMessage.VotedData voted = new ElectionMessage.VersionedVotedData( "coordinator", new InstanceId( 2 ),
+                (Comparable) new ServerIdElectionCredentials( URI.create( "cluster://10.0.0.2:5001" ) ), 17 );
+        ElectionMessage.VotedData notElectable = new ElectionMessage.VotedData( "coordinator", new InstanceId( 3 ),
+                (Comparable) new NotElectableElectionCredentials() );
+
+        // WHEN
+        ElectionContext.VoteRequest readRequest = roundTrip( to( ElectionMessage.vote, TO, request ) ).getPayload();
+        ElectionMessage.VotedData readVoted = roundTrip( to( ElectionMessage.voted, TO, voted ) ).getPayload();
+        ElectionMessage.VotedData readNotElectable =
+                roundTrip( to( ElectionMessage.voted, TO, notElectable ) ).getPayload();
+
+        // THEN
+        assertEquals( "coordinator", readRequest.getRole() );
+        assertEquals( 17, readRequest.getVersion() );
+
+        assertTrue( readVoted instanceof ElectionMessage.VersionedVotedData );
+        assertEquals( "coordinator", readVoted.getRole() );
+        assertEquals( new InstanceId( 2 ), readVoted.getInstanceId() );
+        assertEquals( 17, ((ElectionMessage.VersionedVotedData) readVoted).getVersion() );
+        assertEquals( URI.create( "cluster://10.0.0.2:5001" ),
+                ((ServerIdElectionCredentials) readVoted.getVoteCredentials()).getCredentials() );
+
+        assertEquals( ElectionMessage.VotedData.class, readNotElectable.getClass() );
+        assertEquals( new InstanceId( 3 ), readNotElectable.getInstanceId() );
+        assertEquals( new NotElectableElectionCredentials(), readNotElectable.getVoteCredentials() );
+    }
+
+    @Test
+    public void shouldRoundTripExternalizablePayloadsWithoutSerialization() throws Exception
+    {
+        // GIVEN
+        MemberIsAvailable available = new MemberIsAvailable( "master", new InstanceId( 1 ),
+                URI.create( "cluster://10.0.0.1:5001" ), URI.create( "ha://10.0.0.1:6001?serverId=1" ) );
+
+        // WHEN
+        byte[] bytes = codec.encodeValue( available );
+
+        // THEN
+        assertEquals( MessageCodec.MAGIC, bytes[0] );
+        assertEquals( "Should not contain a serialization stream", -1,
+                indexOf( bytes, new byte[]{(byte) 0xAC, (byte) 0xED} ) );
+        assertEquals( available, codec.decodeValue( bytes, 0, bytes.length ) );
+        assertRoundTrip( to( AcceptorMessage.accept, TO, new AcceptorMessage.AcceptState( 3, available ) ) );
+
+        MemberIsUnavailable unavailable = roundTrip( to( TestMessage.first, TO, new MemberIsUnavailable( "slave",
+                new InstanceId( 2 ), URI.create( "cluster://10.0.0.2:5001" ) ) ) ).getPayload();
+        assertEquals( "slave", unavailable.getRole() );
+        assertEquals( new InstanceId( 2 ), unavailable.getInstanceId() );
+        assertEquals( URI.create( "cluster://10.0.0.2:5001" ), unavailable.getClusterUri() );
+    }
+
+    @Test
+    public void shouldFallBackToSerializationForOtherPayloads() throws Exception
+    {
+        ClusterMessage.ConfigurationRequestState state = new ClusterMessage.ConfigurationRequestState(
+                new InstanceId( 2 ), URI.create( "cluster://127.0.0.1:5002" ) );
+
+        assertRoundTrip( to( ClusterMessage.configurationRequest, TO, state ) );
+        assertRoundTrip( to( AcceptorMessage.accept, TO, new AcceptorMessage.AcceptState( 1, state ) ) );
+    }
+
+    @Test
+    public void shouldRefuseUnknownFormatVersion() throws Exception
+    {
+        // GIVEN
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+        codec.encode( to( TestMessage.first, TO ), buffer );
+        buffer.setByte( 1, MessageCodec.VERSION + 1 );
+
+        // WHEN
+        try
+        {
+            codec.decode( buffer );
+            fail( "Should have failed" );
+        }
+        catch ( StreamCorruptedException e )
+        {   // THEN good
+        }
+    }
+
+    @Test
+    public void decoderShouldReadBothBinaryAndSerializedMessages() throws Exception
+    {
+        // GIVEN
+        Message<?> first = to( HeartbeatMessage.i_am_alive, TO, new HeartbeatMessage.IAmAliveState(
+                new InstanceId( 1 ) ) ).setHeader( Message.FROM, "cluster://127.0.0.1:5001" );
+        Message<?> second = to( ClusterMessage.configurationRequest, TO, "second" )
+                .setHeader( Message.FROM, "cluster://127.0.0.1:5001" );
+        ChannelBuffer binary = encode( new MessageEncoder( 128 ), first );
+        ChannelBuffer serialized = encode( new ObjectEncoder( 128 ), second );
+
+        // WHEN feeding both in one go, and in small chunks
+        ChannelBuffer stream = ChannelBuffers.wrappedBuffer( binary, serialized, binary.duplicate() );
+        DecoderEmbedder<Object> decoder = new DecoderEmbedder<>(
+                new MessageDecoder( 1024 * 1000, getClass().getClassLoader() ) );
+        while ( stream.readable() )
+        {
+            decoder.offer( stream.readBytes( Math.min( 7, stream.readableBytes() ) ) );
+        }
+        decoder.finish();
+
+        // THEN
+        assertEquals( first, decoder.poll() );
+        assertEquals( second, decoder.poll() );
+        assertEquals( first, decoder.poll() );
+        assertEquals( null, decoder.poll() );
+    }
+
+    private static int indexOf( byte[] bytes, byte[] sequence )
+    {
+        for ( int i = 0; i + sequence.length <= bytes.length; i++ )
+        {
+            if ( Arrays.equals( sequence, Arrays.copyOfRange( bytes, i, i + sequence.length ) ) )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ChannelBuffer encode( ChannelDownstreamHandler encoder, Message<?> message )
+    {
+        EncoderEmbedder<ChannelBuffer> embedder = new EncoderEmbedder<>( encoder );
+        embedder.offer( message );
+        embedder.finish();
+        return embedder.poll();
+    }
+
+    private void assertRoundTrip( Message<?> message ) throws Exception
+    {
+        assertEquals( message, roundTrip( message ) );
+    }
+
+    private Message<?> roundTrip( Message<?> message ) throws Exception
+    {
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+        codec.encode( message, buffer );
+        Message<?> read = codec.decode( buffer );
+        assertEquals( "Should have read the whole message", 0, buffer.readableBytes() );
+        return read;
+    }
+}
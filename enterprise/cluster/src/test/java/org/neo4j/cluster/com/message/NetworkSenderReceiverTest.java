@@ -96,6 +96,33 @@ public class NetworkSenderReceiverTest
         life.shutdown();
     }
 
+    @Test
+    public void shouldReceiveBinaryMessagesFromInstancesAlsoSendingSerializedOnes() throws Exception
+    {
+        // given
+        CountDownLatch latch = new CountDownLatch( 1 );
+        LifeSupport life = new LifeSupport();
+        Server server1 = life.add( new Server( latch, MapUtil.stringMap( ClusterSettings.cluster_server.name(),
+                "localhost:1234", ClusterSettings.server_id.name(), "1",
+                ClusterSettings.initial_hosts.name(), "localhost:1234,localhost:1235",
+                ClusterSettings.binary_messages.name(), "true" ) ) );
+        Server server2 = life.add( new Server( latch, MapUtil.stringMap( ClusterSettings.cluster_server.name(),
+                "localhost:1235", ClusterSettings.server_id.name(), "2",
+                ClusterSettings.initial_hosts.name(), "localhost:1234,localhost:1235" ) ) );
+        life.start();
+
+        // when
+        server1.process( Message.to( TestMessage.helloWorld, URI.create( "cluster://127.0.0.1:1235" ),
+                "Hello World" ) );
+
+        // then
+        latch.await( 5, TimeUnit.SECONDS );
+        assertTrue( "server1 should have processed the message", server1.processedMessage() );
+        assertTrue( "server2 should have processed the message", server2.processedMessage() );
+
+        life.shutdown();
+    }
+
     @Test
     public void senderThatStartsAfterReceiverShouldEventuallyConnectSuccessfully() throws Throwable
     {
@@ -165,6 +192,12 @@ public class NetworkSenderReceiverTest
                 {
                     return 5001;
                 }
+
+                @Override
+                public boolean useBinaryMessages()
+                {
+                    return false;
+                }
             }, receiver, loggingMock );
 
             sender.init();
@@ -299,6 +332,12 @@ public class NetworkSenderReceiverTest
                 {
                     return conf.get( ClusterSettings.cluster_server ).getPort();
                 }
+
+                @Override
+                public boolean useBinaryMessages()
+                {
+                    return conf.get( ClusterSettings.binary_messages );
+                }
             }, networkReceiver, new DevNullLoggingService() ) );
 
             life.add( new LifecycleAdapter()
@@ -43,4 +43,9 @@ public class TrackingMessageHolder implements MessageHolder
     {
         return IteratorUtil.first( messages );
     }
+
+    public <T extends MessageType> List<Message<T>> messages()
+    {
+        return (List) messages;
+    }
 }
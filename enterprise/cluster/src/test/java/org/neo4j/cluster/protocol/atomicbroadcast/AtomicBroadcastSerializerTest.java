@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cluster.protocol.atomicbroadcast;
+
+import java.net.URI;
+
+import org.junit.Test;
+
+import org.neo4j.cluster.InstanceId;
+import org.neo4j.cluster.com.message.MessageCodec;
+import org.neo4j.cluster.member.paxos.MemberIsAvailable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class AtomicBroadcastSerializerTest
+{
+    private final MemberIsAvailable value = new MemberIsAvailable( "master", new InstanceId( 1 ),
+            URI.create( "cluster://10.0.0.1:5001" ), URI.create( "ha://10.0.0.1:6001?serverId=1" ) );
+
+    @Test
+    public void shouldReadBinaryPayloadsRegardlessOfWhatItWrites() throws Exception
+    {
+        // GIVEN
+        Payload payload = serializer( true ).broadcast( value );
+
+        // WHEN/THEN
+        assertEquals( MessageCodec.MAGIC, payload.getBuf()[0] );
+        assertEquals( value, serializer( true ).receive( payload ) );
+        assertEquals( value, serializer( false ).receive( payload ) );
+    }
+
+    @Test
+    public void shouldReadSerializedPayloadsRegardlessOfWhatItWrites() throws Exception
+    {
+        // GIVEN
+        Payload payload = serializer( false ).broadcast( value );
+
+        // WHEN/THEN
+        assertFalse( payload.getBuf()[0] == MessageCodec.MAGIC );
+        assertEquals( value, serializer( true ).receive( payload ) );
+        assertEquals( value, serializer( false ).receive( payload ) );
+    }
+
+    private AtomicBroadcastSerializer serializer( boolean binary )
+    {
+        ObjectStreamFactory streams = new ObjectStreamFactory();
+        return new AtomicBroadcastSerializer( streams, streams, binary );
+    }
+}
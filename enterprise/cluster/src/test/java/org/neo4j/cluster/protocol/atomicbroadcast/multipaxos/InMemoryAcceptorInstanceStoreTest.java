@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cluster.protocol.atomicbroadcast.multipaxos;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class InMemoryAcceptorInstanceStoreTest
+{
+    @Test
+    public void shouldKeepInstancesUntilDelivered() throws Exception
+    {
+        // GIVEN
+        InMemoryAcceptorInstanceStore store = new InMemoryAcceptorInstanceStore( 4 );
+        AcceptorInstance first = store.getAcceptorInstance( new InstanceId( 0 ) );
+        AcceptorInstance second = store.getAcceptorInstance( new InstanceId( 1 ) );
+        store.promise( second, 1001 );
+
+        // WHEN
+        store.lastDelivered( new InstanceId( 0 ) );
+
+        // THEN
+        assertNotSame( first, store.getAcceptorInstance( new InstanceId( 0 ) ) );
+        assertSame( second, store.getAcceptorInstance( new InstanceId( 1 ) ) );
+        assertEquals( 1001, store.getAcceptorInstance( new InstanceId( 1 ) ).getBallot() );
+    }
+
+    @Test
+    public void shouldKeepInstancesTooFarAheadOfTheRingOnTheSide() throws Exception
+    {
+        // GIVEN
+        InMemoryAcceptorInstanceStore store = new InMemoryAcceptorInstanceStore( 4 );
+        AcceptorInstance near = store.getAcceptorInstance( new InstanceId( 2 ) );
+        AcceptorInstance far = store.getAcceptorInstance( new InstanceId( 6 ) ); // same slot as 2
+
+        // WHEN
+        store.lastDelivered( new InstanceId( 3 ) );
+
+        // THEN
+        assertSame( far, store.getAcceptorInstance( new InstanceId( 6 ) ) );
+        assertNotSame( near, store.getAcceptorInstance( new InstanceId( 2 ) ) );
+    }
+
+    @Test
+    public void shouldForgetEverythingDeliveredAfterLargeJump() throws Exception
+    {
+        // GIVEN
+        InMemoryAcceptorInstanceStore store = new InMemoryAcceptorInstanceStore( 4 );
+        AcceptorInstance delivered = store.getAcceptorInstance( new InstanceId( 3 ) );
+        AcceptorInstance pending = store.getAcceptorInstance( new InstanceId( 101 ) );
+
+        // WHEN
+        store.lastDelivered( new InstanceId( 100 ) );
+
+        // THEN
+        assertNotSame( delivered, store.getAcceptorInstance( new InstanceId( 3 ) ) );
+        assertSame( pending, store.getAcceptorInstance( new InstanceId( 101 ) ) );
+    }
+
+    @Test
+    public void shouldKeepInstancesWhenMovingBack() throws Exception
+    {
+        // GIVEN
+        InMemoryAcceptorInstanceStore store = new InMemoryAcceptorInstanceStore( 4 );
+        store.lastDelivered( new InstanceId( 10 ) );
+        AcceptorInstance instance = store.getAcceptorInstance( new InstanceId( 14 ) );
+
+        // WHEN
+        store.lastDelivered( new InstanceId( 5 ) );
+
+        // THEN
+        assertSame( instance, store.getAcceptorInstance( new InstanceId( 14 ) ) );
+    }
+
+    @Test
+    public void snapshotShouldEqualOriginal() throws Exception
+    {
+        // GIVEN
+        InMemoryAcceptorInstanceStore store = new InMemoryAcceptorInstanceStore( 4 );
+        store.getAcceptorInstance( new InstanceId( 1 ) );
+        store.getAcceptorInstance( new InstanceId( 20 ) );
+
+        // WHEN
+        InMemoryAcceptorInstanceStore snapshot = store.snapshot();
+
+        // THEN
+        assertEquals( store, snapshot );
+        assertEquals( store.hashCode(), snapshot.hashCode() );
+    }
+}
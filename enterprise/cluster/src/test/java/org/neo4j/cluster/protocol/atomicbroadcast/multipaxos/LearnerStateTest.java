@@ -20,14 +20,18 @@
 package org.neo4j.cluster.protocol.atomicbroadcast.multipaxos;
 
 import java.net.URI;
+import java.util.List;
 
 import org.junit.Test;
 import org.neo4j.cluster.com.message.Message;
 import org.neo4j.cluster.com.message.MessageHolder;
+import org.neo4j.cluster.com.message.TrackingMessageHolder;
 import org.neo4j.cluster.statemachine.State;
+import org.neo4j.kernel.impl.util.StringLogger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -68,4 +72,35 @@ public class LearnerStateTest
         verify(ctx).setTimeout( "learn", Message.timeout( LearnerMessage.learnTimedout, message ) );
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldDeliverBatchedValuesOneByOneInTheirOwnConversations() throws Throwable
+    {
+        // Given
+        LearnerContext ctx = mock( LearnerContext.class );
+        TrackingMessageHolder outgoing = new TrackingMessageHolder();
+        InstanceId instanceId = new InstanceId( 1 );
+        when( ctx.getLogger( any( Class.class ) ) ).thenReturn( StringLogger.DEV_NULL );
+        when( ctx.getLastDeliveredInstanceId() ).thenReturn( 0l );
+        when( ctx.getLastKnownLearnedInstanceInCluster() ).thenReturn( 1l );
+        PaxosInstanceStore store = mock( PaxosInstanceStore.class );
+        when( ctx.getPaxosInstance( instanceId ) ).thenReturn( new PaxosInstance( store, instanceId ) );
+        when( ctx.getPaxosInstance( new InstanceId( 2 ) ) ).thenReturn( new PaxosInstance( store,
+                new InstanceId( 2 ) ) );
+        ProposalBatch batch = new ProposalBatch();
+        batch.add( "first", "1/1#" );
+        batch.add( "second", "1/2#" );
+
+        // When
+        LearnerState.learner.handle( ctx, Message.internal( LearnerMessage.learn, new LearnerMessage.LearnState(
+                batch ) ).setHeader( InstanceId.INSTANCE, "1" ).setHeader( Message.CONVERSATION_ID, "1/1#" ),
+                outgoing );
+
+        // Then
+        List<Message<AtomicBroadcastMessage>> delivered = outgoing.messages();
+        assertThat( delivered.size(), equalTo( 2 ) );
+        assertThat( delivered.get( 0 ).getPayload(), equalTo( (Object) "first" ) );
+        assertThat( delivered.get( 0 ).getHeader( Message.CONVERSATION_ID ), equalTo( "1/1#" ) );
+        assertThat( delivered.get( 1 ).getPayload(), equalTo( (Object) "second" ) );
+        assertThat( delivered.get( 1 ).getHeader( Message.CONVERSATION_ID ), equalTo( "1/2#" ) );
+    }
+}
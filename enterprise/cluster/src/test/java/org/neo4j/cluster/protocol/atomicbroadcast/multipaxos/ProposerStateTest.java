@@ -42,6 +42,7 @@ import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -89,6 +90,52 @@ public class ProposerStateTest
         verify( context, times(1) ).unbookInstance( instanceId );
     }
 
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    @Test
+    public void phase2TimeoutOfInstanceClosedWithAnotherValueShouldRetryInNextInstance() throws Throwable
+    {
+        // GIVEN
+        ProposerContext context = mock( ProposerContext.class );
+        InstanceId instanceId = new InstanceId( 42 );
+        PaxosInstance paxosInstance = new PaxosInstance( new PaxosInstanceStore(), instanceId );
+        paxosInstance.closed( "another payload", "1/15#" );
+        when( context.getPaxosInstance( instanceId ) ).thenReturn( paxosInstance );
+        MessageHolder outgoing = mock( MessageHolder.class );
+
+        // WHEN
+        ProposerState.proposer.handle( context, phase2Timeout( instanceId, "our payload" ), outgoing );
+
+        // THEN
+        verify( outgoing ).offer( Matchers.<Message<? extends MessageType>>argThat(
+                new MessageArgumentMatcher().onMessageType( ProposerMessage.propose ).withPayload( "our payload" ) ) );
+        verify( context ).unbookInstance( instanceId );
+    }
+
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    @Test
+    public void phase2TimeoutOfInstanceClosedWithOurValueShouldNotProposeItAgain() throws Throwable
+    {
+        // GIVEN
+        ProposerContext context = mock( ProposerContext.class );
+        InstanceId instanceId = new InstanceId( 42 );
+        PaxosInstance paxosInstance = new PaxosInstance( new PaxosInstanceStore(), instanceId );
+        paxosInstance.closed( "our payload", "1/15#" );
+        when( context.getPaxosInstance( instanceId ) ).thenReturn( paxosInstance );
+        MessageHolder outgoing = mock( MessageHolder.class );
+
+        // WHEN
+        ProposerState.proposer.handle( context, phase2Timeout( instanceId, "our payload" ), outgoing );
+
+        // THEN
+        verify( outgoing, never() ).offer( Matchers.<Message<? extends MessageType>>any() );
+        verify( context, never() ).unbookInstance( instanceId );
+    }
+
+    private Message<ProposerMessage> phase2Timeout( InstanceId instanceId, Serializable payload )
+    {
+        return Message.internal( ProposerMessage.phase2Timeout, payload ).setHeader( INSTANCE, instanceId.toString() );
+    }
+
     @Test
     public void proposer_proposePhase1TimeoutShouldCarryOnPayload() throws Throwable
     {
@@ -184,4 +231,23 @@ public class ProposerStateTest
         verify( context ).setTimeout( eq( new org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId( instanceId ) ),
                 argThat( new MessageArgumentMatcher<>().withPayload( payload ) ) );
     }
+
+    @Test
+    public void proposerShouldQueueNewValuesWhileTooManyInstancesAreInProgress() throws Throwable
+    {
+        // GIVEN
+        ProposerContext context = mock( ProposerContext.class );
+        when( context.canBookInstance() ).thenReturn( false );
+        TrackingMessageHolder outgoing = new TrackingMessageHolder();
+        Message<ProposerMessage> message = Message.internal( propose, "myPayload" );
+
+        // WHEN
+        ProposerState.proposer.handle( context, message, outgoing );
+
+        // THEN
+        verify( context ).queuePendingValue( message );
+        verify( context, never() ).newInstanceId();
+        verify( context, never() ).bookInstance(
+                any( org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId.class ), any( Message.class ) );
+    }
 }
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.context;
+
+import java.net.URI;
+
+import org.junit.Test;
+
+import org.neo4j.cluster.InstanceId;
+import org.neo4j.cluster.com.message.Message;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.PaxosInstanceStore;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.ProposalBatch;
+import org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.ProposerMessage;
+import org.neo4j.cluster.protocol.cluster.ClusterMessage;
+import org.neo4j.cluster.timeout.Timeouts;
+import org.neo4j.kernel.logging.DevNullLoggingService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ProposerContextImplTest
+{
+    @Test
+    public void shouldProposePendingBroadcastValuesTogether() throws Exception
+    {
+        // GIVEN
+        ProposerContextImpl context = newContext( 10, 2 );
+        context.queuePendingValue( propose( "first", "1/1#" ) );
+        context.queuePendingValue( propose( "second", "1/2#" ) );
+        context.queuePendingValue( propose( "third", "1/3#" ) );
+
+        // WHEN
+        Message batched = context.popPendingValue();
+        Message rest = context.popPendingValue();
+
+        // THEN
+        ProposalBatch batch = (ProposalBatch) batched.getPayload();
+        assertEquals( 2, batch.size() );
+        assertEquals( "first", batch.getValue( 0 ) );
+        assertEquals( "1/1#", batch.getConversationId( 0 ) );
+        assertEquals( "second", batch.getValue( 1 ) );
+        assertEquals( "1/2#", batch.getConversationId( 1 ) );
+        assertEquals( "1/1#", batched.getHeader( Message.CONVERSATION_ID ) );
+        assertTrue( batched.isInternal() );
+        assertEquals( "third", rest.getPayload() );
+        assertFalse( context.hasPendingValues() );
+    }
+
+    @Test
+    public void shouldNotBatchConfigurationChangesOrValuesThatAlreadyHaveAnInstance() throws Exception
+    {
+        // GIVEN
+        ProposerContextImpl context = newContext( 10, 10 );
+        ClusterMessage.ConfigurationChangeState change = new ClusterMessage.ConfigurationChangeState();
+        change.join( new InstanceId( 2 ), URI.create( "cluster://127.0.0.1:5002" ) );
+        Message reproposal = propose( "reproposed", "1/1#" ).setHeader(
+                org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId.INSTANCE, "4" );
+        Message configurationChange = propose( change, "1/2#" );
+        context.queuePendingValue( reproposal );
+        context.queuePendingValue( configurationChange );
+        context.queuePendingValue( propose( "value", "1/3#" ) );
+
+        // WHEN/THEN
+        assertSame( reproposal, context.popPendingValue() );
+        assertSame( configurationChange, context.popPendingValue() );
+        assertEquals( "value", context.popPendingValue().getPayload() );
+    }
+
+    @Test
+    public void shouldNotBatchWithBatchSizeOne() throws Exception
+    {
+        // GIVEN
+        ProposerContextImpl context = newContext( 10, 1 );
+        Message first = propose( "first", "1/1#" );
+        context.queuePendingValue( first );
+        context.queuePendingValue( propose( "second", "1/2#" ) );
+
+        // WHEN/THEN
+        assertSame( first, context.popPendingValue() );
+    }
+
+    @Test
+    public void shouldLimitNumberOfBookedInstances() throws Exception
+    {
+        // GIVEN
+        ProposerContextImpl context = newContext( 2, 1 );
+
+        // WHEN
+        context.bookInstance( new org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId( 1 ),
+                propose( "first", "1/1#" ) );
+        boolean canBookSecond = context.canBookInstance();
+        context.bookInstance( new org.neo4j.cluster.protocol.atomicbroadcast.multipaxos.InstanceId( 2 ),
+                propose( "second", "1/2#" ) );
+
+        // THEN
+        assertTrue( canBookSecond );
+        assertFalse( context.canBookInstance() );
+    }
+
+    private ProposerContextImpl newContext( int maxConcurrentInstances, int proposalBatchSize )
+    {
+        return new ProposerContextImpl( new InstanceId( 1 ), mock( CommonContextState.class ),
+                new DevNullLoggingService(), mock( Timeouts.class ), new PaxosInstanceStore(),
+                maxConcurrentInstances, proposalBatchSize );
+    }
+
+    private Message propose( Object value, String conversationId )
+    {
+        return Message.internal( ProposerMessage.propose, value ).setHeader( Message.CONVERSATION_ID,
+                conversationId );
+    }
+}
@@ -172,6 +172,31 @@ public class BlockLogBuffer implements WritableLogChannel
         clearInternalBuffer();
     }
 
+    /**
+     * Like {@link #write(ReadableByteChannel)}, but reads from the channel in as big pieces as the given
+     * temporary buffer allows, instead of one block at a time.
+     */
+    public int write( ReadableByteChannel data, ByteBuffer temporaryBuffer ) throws IOException
+    {
+        int result = 0;
+        int bytesRead;
+        temporaryBuffer.clear();
+        while ( (bytesRead = data.read( temporaryBuffer )) >= 0 )
+        {
+            temporaryBuffer.flip();
+            while ( temporaryBuffer.hasRemaining() )
+            {
+                int toCopy = Math.min( byteBuffer.remaining(), temporaryBuffer.remaining() );
+                temporaryBuffer.get( byteArray, byteBuffer.position(), toCopy );
+                byteBuffer.position( byteBuffer.position() + toCopy );
+                checkFlush();
+            }
+            temporaryBuffer.clear();
+            result += bytesRead;
+        }
+        return result;
+    }
+
     public int write( ReadableByteChannel data ) throws IOException
     {
         int result = 0;
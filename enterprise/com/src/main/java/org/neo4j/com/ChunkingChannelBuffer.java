@@ -28,6 +28,7 @@ import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.nio.charset.Charset;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBufferFactory;
@@ -36,6 +37,7 @@ import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelFutureListener;
+import org.neo4j.com.monitor.ChunkCompressionMonitor;
 
 /**
  * A decorator around a {@link ChannelBuffer} which adds the ability to transfer
@@ -55,6 +57,12 @@ import org.jboss.netty.channel.ChannelFutureListener;
  * MAX_WRITE_AHEAD_CHUNKS are left pending - in such a case the write process
  * sleeps until some acknowledgment comes back from the other side that chunks
  * have been read.
+ * <p>
+ * Chunks can optionally be DEFLATE compressed before being written. A compressed chunk has the
+ * {@link #COMPRESSED} bit set in its header, followed by the uncompressed payload length and the
+ * compressed payload. Chunks that don't shrink from compression are sent as they are. On request chunks
+ * the same bit instead tells the server that the client accepts compressed response chunks, which older
+ * versions simply ignore.
  */
 public class ChunkingChannelBuffer implements ChannelBuffer, ChannelFutureListener
 {
@@ -62,7 +70,10 @@ public class ChunkingChannelBuffer implements ChannelBuffer, ChannelFutureListen
     static final byte CONTINUATION_MORE = 1;
     static final byte OUTCOME_SUCCESS = 0;
     static final byte OUTCOME_FAILURE = 1;
+    static final int COMPRESSED = 0x80;
+    static final int HEADER_SIZE = 2;
     private static final int MAX_WRITE_AHEAD_CHUNKS = 5;
+    private static final int MIN_COMPRESSIBLE_CHUNK_SIZE = 512;
 
     private ChannelBuffer buffer;
     private final Channel channel;
@@ -72,22 +83,39 @@ public class ChunkingChannelBuffer implements ChannelBuffer, ChannelFutureListen
     private volatile boolean failure;
     private final byte applicationProtocolVersion;
     private final byte internalProtocolVersion;
+    private final boolean acceptCompressedResponse;
+    private final ChunkCompressionMonitor compressor;
+    private Deflater deflater;
 
     public ChunkingChannelBuffer( ChannelBuffer buffer, Channel channel, int capacity,
             byte internalProtocolVersion, byte applicationProtocolVersion )
+    {
+        this( buffer, channel, capacity, internalProtocolVersion, applicationProtocolVersion, false, null );
+    }
+
+    /**
+     * @param acceptCompressedResponse whether or not to set the {@link #COMPRESSED} bit in the header of every
+     * chunk, which on a request means that the response may be compressed.
+     * @param compressor if not {@code null} chunks are compressed and compression events reported to it.
+     */
+    public ChunkingChannelBuffer( ChannelBuffer buffer, Channel channel, int capacity,
+            byte internalProtocolVersion, byte applicationProtocolVersion,
+            boolean acceptCompressedResponse, ChunkCompressionMonitor compressor )
     {
         this.buffer = buffer;
         this.channel = channel;
         this.capacity = capacity;
         this.internalProtocolVersion = internalProtocolVersion;
         this.applicationProtocolVersion = applicationProtocolVersion;
+        this.acceptCompressedResponse = acceptCompressedResponse;
+        this.compressor = compressor;
         addRoomForContinuationHeader();
     }
 
     private void addRoomForContinuationHeader()
     {
         continuationPosition = writerIndex();
-        // byte 0: [pppp,ppoc] p: internal protocol version, o: outcome, c: continuation
+        // byte 0: [zppp,ppoc] z: compression, p: internal protocol version, o: outcome, c: continuation
         // byte 1: [aaaa,aaaa] a: application protocol version
         buffer.writeBytes( header( CONTINUATION_LAST ) );
     }
@@ -95,7 +123,8 @@ public class ChunkingChannelBuffer implements ChannelBuffer, ChannelFutureListen
     private byte[] header( byte continuation )
     {
         byte[] header = new byte[2];
-        header[0] = (byte)((internalProtocolVersion << 2) | ((failure?OUTCOME_FAILURE:OUTCOME_SUCCESS) << 1) | continuation );
+        header[0] = (byte)((acceptCompressedResponse ? COMPRESSED : 0) | (internalProtocolVersion << 2) |
+                ((failure?OUTCOME_FAILURE:OUTCOME_SUCCESS) << 1) | continuation );
         header[1] = applicationProtocolVersion;
         return header;
     }
@@ -547,11 +576,59 @@ public class ChunkingChannelBuffer implements ChannelBuffer, ChannelFutureListen
             throw new ComException( "Channel has been closed, so no need to try to write to it anymore. Client closed it?" );
 
         waitForClientToCatchUpOnReadingChunks();
-        ChannelFuture future = channel.write( buffer );
+        ChannelFuture future = channel.write( compressor != null ? compressed( buffer ) : buffer );
         future.addListener( this );
         writeAheadCounter.incrementAndGet();
     }
 
+    private ChannelBuffer compressed( ChannelBuffer chunk )
+    {
+        int payloadStart = continuationPosition + HEADER_SIZE;
+        int payloadLength = chunk.writerIndex() - payloadStart;
+        if ( payloadLength < MIN_COMPRESSIBLE_CHUNK_SIZE )
+        {
+            return chunk;
+        }
+
+        long startTime = System.nanoTime();
+        if ( deflater == null )
+        {
+            deflater = new Deflater( Deflater.BEST_SPEED );
+        }
+        else
+        {
+            deflater.reset();
+        }
+        if ( chunk.hasArray() )
+        {
+            deflater.setInput( chunk.array(), chunk.arrayOffset() + payloadStart, payloadLength );
+        }
+        else
+        {
+            byte[] payload = new byte[payloadLength];
+            chunk.getBytes( payloadStart, payload );
+            deflater.setInput( payload );
+        }
+        deflater.finish();
+
+        // Only worth it if the compressed payload, including its length prefix, is smaller than the original
+        byte[] compressed = new byte[payloadLength - 4];
+        int compressedLength = deflater.deflate( compressed );
+        if ( !deflater.finished() )
+        {
+            compressor.chunkCompressed( payloadLength, payloadLength, System.nanoTime() - startTime );
+            return chunk;
+        }
+
+        ChannelBuffer result = ChannelBuffers.buffer( HEADER_SIZE + 4 + compressedLength );
+        result.writeByte( chunk.getByte( continuationPosition ) | COMPRESSED );
+        result.writeByte( chunk.getByte( continuationPosition + 1 ) );
+        result.writeInt( payloadLength );
+        result.writeBytes( compressed, 0, compressedLength );
+        compressor.chunkCompressed( payloadLength, 4 + compressedLength, System.nanoTime() - startTime );
+        return result;
+    }
+
     private void waitForClientToCatchUpOnReadingChunks()
     {
         // Wait until channel gets disconnected or client catches up.
@@ -598,6 +675,11 @@ public class ChunkingChannelBuffer implements ChannelBuffer, ChannelFutureListen
         {
             writeCurrentChunk();
         }
+        if ( deflater != null )
+        {
+            deflater.end();
+            deflater = null;
+        }
     }
 
     public void writeByte( int value )
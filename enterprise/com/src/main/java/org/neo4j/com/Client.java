@@ -43,6 +43,7 @@ import org.jboss.netty.channel.Channels;
 import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 import org.jboss.netty.handler.queue.BlockingReadHandler;
 
+import org.neo4j.com.monitor.ChunkCompressionMonitor;
 import org.neo4j.com.monitor.RequestMonitor;
 import org.neo4j.helpers.Exceptions;
 import org.neo4j.helpers.NamedThreadFactory;
@@ -103,7 +104,8 @@ public abstract class Client<T> extends LifecycleAdapter implements ChannelPipel
         this.maxUnusedChannels = maxConcurrentChannels;
         this.mismatchingVersionHandlers = new ArrayList<>( 2 );
         this.address = new InetSocketAddress( hostNameOrIp, port );
-        this.protocol = new Protocol( chunkSize, applicationProtocolVersion, getInternalProtocolVersion() );
+        this.protocol = new Protocol( chunkSize, applicationProtocolVersion, getInternalProtocolVersion(),
+                monitors.newMonitor( ChunkCompressionMonitor.class, getClass() ) );
 
         msgLog.info( getClass().getSimpleName() + " communication channel created towards " + hostNameOrIp + ":" +
                 port );
@@ -230,7 +232,7 @@ public abstract class Client<T> extends LifecycleAdapter implements ChannelPipel
             requestMonitor.beginRequest( requestContext );
 
             // Request
-            protocol.serializeRequest( channel, output, type, context, serializer );
+            protocol.serializeRequest( channel, output, type, context, serializer, shouldCompressResponse( type ) );
 
             // Response
             @SuppressWarnings("unchecked")
@@ -296,6 +298,15 @@ public abstract class Client<T> extends LifecycleAdapter implements ChannelPipel
         return true;
     }
 
+    /**
+     * @return whether or not the server may compress the response to the given request type. Only worth it for
+     * responses that are both big and compressible, like store files and transaction streams.
+     */
+    protected boolean shouldCompressResponse( RequestType<T> type )
+    {
+        return false;
+    }
+
     protected StoreId getStoreId()
     {
         return storeId;
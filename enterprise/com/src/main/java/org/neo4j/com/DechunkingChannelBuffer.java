@@ -31,12 +31,15 @@ import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.nio.charset.Charset;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBufferFactory;
 import org.jboss.netty.buffer.ChannelBufferIndexFinder;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.handler.queue.BlockingReadHandler;
+import org.neo4j.com.monitor.ChunkCompressionMonitor;
 
 public class DechunkingChannelBuffer implements ChannelBuffer
 {
@@ -48,14 +51,22 @@ public class DechunkingChannelBuffer implements ChannelBuffer
     private boolean failure;
     private final byte applicationProtocolVersion;
     private final byte internalProtocolVersion;
+    private final ChunkCompressionMonitor compressionMonitor;
 
     DechunkingChannelBuffer( BlockingReadHandler<ChannelBuffer> reader, long timeoutMillis, byte internalProtocolVersion,
             byte applicationProtocolVersion )
+    {
+        this( reader, timeoutMillis, internalProtocolVersion, applicationProtocolVersion, null );
+    }
+
+    DechunkingChannelBuffer( BlockingReadHandler<ChannelBuffer> reader, long timeoutMillis, byte internalProtocolVersion,
+            byte applicationProtocolVersion, ChunkCompressionMonitor compressionMonitor )
     {
         this.reader = reader;
         this.timeoutMillis = timeoutMillis;
         this.internalProtocolVersion = internalProtocolVersion;
         this.applicationProtocolVersion = applicationProtocolVersion;
+        this.compressionMonitor = compressionMonitor;
         readNextChunk();
     }
 
@@ -95,13 +106,18 @@ public class DechunkingChannelBuffer implements ChannelBuffer
         /* Header layout:
          * [    ,    ][    ,   x] 0: last chunk in message, 1: there a more chunks after this one
          * [    ,    ][    ,  x ] 0: success, 1: failure
-         * [    ,    ][xxxx,xx  ] internal protocol version
+         * [    ,    ][ xxx,xx  ] internal protocol version
+         * [    ,    ][x   ,    ] 0: plain payload, 1: compressed payload
          * [xxxx,xxxx][    ,    ] application protocol version */
         byte[] header = new byte[2];
         readBuffer.readBytes( header );
         more = (header[0] & 0x1) != 0;
         failure = (header[0] & 0x2) != 0;
         assertSameProtocolVersion( header, internalProtocolVersion, applicationProtocolVersion );
+        if ( (header[0] & ChunkingChannelBuffer.COMPRESSED) != 0 )
+        {
+            readBuffer = decompress( readBuffer );
+        }
 
         if ( !more && buffer == null )
         {
@@ -122,6 +138,39 @@ public class DechunkingChannelBuffer implements ChannelBuffer
         }
     }
 
+    private ChannelBuffer decompress( ChannelBuffer compressed )
+    {
+        long startTime = System.nanoTime();
+        int compressedLength = compressed.readableBytes();
+        int uncompressedLength = compressed.readInt();
+        byte[] input = new byte[compressed.readableBytes()];
+        compressed.readBytes( input );
+        byte[] output = new byte[uncompressedLength];
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput( input );
+            if ( inflater.inflate( output ) != uncompressedLength || !inflater.finished() )
+            {
+                throw new ComException( "Compressed chunk didn't inflate to the expected " + uncompressedLength +
+                        " bytes" );
+            }
+        }
+        catch ( DataFormatException e )
+        {
+            throw new ComException( e );
+        }
+        finally
+        {
+            inflater.end();
+        }
+        if ( compressionMonitor != null )
+        {
+            compressionMonitor.chunkDecompressed( compressedLength, uncompressedLength, System.nanoTime() - startTime );
+        }
+        return ChannelBuffers.wrappedBuffer( output );
+    }
+
     static void assertSameProtocolVersion( byte[] header, byte internalProtocolVersion, byte applicationProtocolVersion )
     {
         /* [aaaa,aaaa][pppp,ppoc]
@@ -31,6 +31,7 @@ import org.jboss.netty.handler.codec.frame.LengthFieldBasedFrameDecoder;
 import org.jboss.netty.handler.codec.frame.LengthFieldPrepender;
 import org.jboss.netty.handler.queue.BlockingReadHandler;
 
+import org.neo4j.com.monitor.ChunkCompressionMonitor;
 import org.neo4j.com.storecopy.StoreWriter;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.impl.nioneo.store.StoreId;
@@ -61,20 +62,39 @@ public class Protocol
     private final int chunkSize;
     private final byte applicationProtocolVersion;
     private final byte internalProtocolVersion;
+    private final ChunkCompressionMonitor compressionMonitor;
 
     public Protocol( int chunkSize, byte applicationProtocolVersion, byte internalProtocolVersion )
+    {
+        this( chunkSize, applicationProtocolVersion, internalProtocolVersion, null );
+    }
+
+    public Protocol( int chunkSize, byte applicationProtocolVersion, byte internalProtocolVersion,
+            ChunkCompressionMonitor compressionMonitor )
     {
         this.chunkSize = chunkSize;
         this.applicationProtocolVersion = applicationProtocolVersion;
         this.internalProtocolVersion = internalProtocolVersion;
+        this.compressionMonitor = compressionMonitor;
     }
 
     public void serializeRequest( Channel channel, ChannelBuffer buffer, RequestType<?> type, RequestContext ctx,
                                   Serializer payload ) throws IOException
+    {
+        serializeRequest( channel, buffer, type, ctx, payload, false );
+    }
+
+    /**
+     * @param acceptCompressedResponse whether or not to let the server know that it may compress the response
+     * to this request. Servers not supporting compression will ignore it.
+     */
+    public void serializeRequest( Channel channel, ChannelBuffer buffer, RequestType<?> type, RequestContext ctx,
+                                  Serializer payload, boolean acceptCompressedResponse ) throws IOException
     {
         buffer.clear();
         ChunkingChannelBuffer chunkingBuffer = new ChunkingChannelBuffer( buffer,
-                channel, chunkSize, internalProtocolVersion, applicationProtocolVersion );
+                channel, chunkSize, internalProtocolVersion, applicationProtocolVersion,
+                acceptCompressedResponse, null );
         chunkingBuffer.writeByte( type.id() );
         writeContext( ctx, chunkingBuffer );
         payload.write( chunkingBuffer );
@@ -86,7 +106,7 @@ public class Protocol
             ResourceReleaser channelReleaser) throws IOException
     {
         final DechunkingChannelBuffer dechunkingBuffer = new DechunkingChannelBuffer( reader, timeout,
-                internalProtocolVersion, applicationProtocolVersion );
+                internalProtocolVersion, applicationProtocolVersion, compressionMonitor );
 
         PAYLOAD response = payloadDeserializer.read( dechunkingBuffer, input );
         StoreId storeId = readStoreId( dechunkingBuffer, input );
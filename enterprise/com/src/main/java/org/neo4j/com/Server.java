@@ -54,6 +54,7 @@ import org.jboss.netty.channel.WriteCompletionEvent;
 import org.jboss.netty.channel.group.ChannelGroup;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.neo4j.com.monitor.ChunkCompressionMonitor;
 import org.neo4j.com.monitor.RequestMonitor;
 import org.neo4j.helpers.Clock;
 import org.neo4j.helpers.Exceptions;
@@ -93,6 +94,7 @@ public abstract class Server<T, R> extends SimpleChannelHandler implements Chann
 {
     private final ByteCounterMonitor byteCounterMonitor;
     private final RequestMonitor requestMonitor;
+    private final ChunkCompressionMonitor compressionMonitor;
     private InetSocketAddress socketAddress;
 
     private static final String INADDR_ANY = "0.0.0.0";
@@ -158,6 +160,7 @@ public abstract class Server<T, R> extends SimpleChannelHandler implements Chann
         this.clock = clock;
         this.byteCounterMonitor = monitors.newMonitor( ByteCounterMonitor.class, getClass() );
         this.requestMonitor = monitors.newMonitor( RequestMonitor.class, getClass() );
+        this.compressionMonitor = monitors.newMonitor( ChunkCompressionMonitor.class, getClass() );
     }
 
     @Override
@@ -469,11 +472,13 @@ public abstract class Server<T, R> extends SimpleChannelHandler implements Chann
 
     protected void handleRequest( ChannelBuffer buffer, final Channel channel )
     {
-        Byte continuation = readContinuationHeader( buffer, channel );
-        if ( continuation == null )
+        Byte header = readContinuationHeader( buffer, channel );
+        if ( header == null )
         {
             return;
         }
+        byte continuation = (byte) (header & 0x1);
+        boolean compressResponse = (header & ChunkingChannelBuffer.COMPRESSED) != 0;
         if ( continuation == ChunkingChannelBuffer.CONTINUATION_MORE )
         {
             PartialRequest partialRequest = partialRequests.get( channel );
@@ -518,7 +523,8 @@ public abstract class Server<T, R> extends SimpleChannelHandler implements Chann
 
             bufferToWriteTo.clear();
             final ChunkingChannelBuffer chunkingBuffer = new ChunkingChannelBuffer( bufferToWriteTo, channel, chunkSize,
-                    getInternalProtocolVersion(), applicationProtocolVersion );
+                    getInternalProtocolVersion(), applicationProtocolVersion, false,
+                    compressResponse ? compressionMonitor : null );
             submitSilent( targetCallExecutor, targetCaller( type, channel, context, chunkingBuffer,
                     bufferToReadFrom ) );
         }
@@ -544,7 +550,7 @@ public abstract class Server<T, R> extends SimpleChannelHandler implements Chann
             });
             return null;
         }
-        return (byte) (header[0] & 0x1);
+        return header[0];
     }
 
     protected Runnable targetCaller( final RequestType<T> type, final Channel channel, final RequestContext context,
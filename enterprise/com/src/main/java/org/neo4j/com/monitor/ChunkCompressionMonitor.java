@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.com.monitor;
+
+/**
+ * Receives an event for every chunk that passes through response compression, on the sending side as well as on
+ * the receiving side. Compression ratio and throughput can be derived from the reported sizes and times.
+ */
+public interface ChunkCompressionMonitor
+{
+    /**
+     * A chunk payload has been considered for compression.
+     *
+     * @param uncompressedBytes size of the chunk payload before compression.
+     * @param sentBytes size of the payload actually put on the wire, which equals uncompressedBytes if the chunk
+     * didn't compress well enough to be worth sending compressed.
+     * @param nanos time spent compressing.
+     */
+    void chunkCompressed( int uncompressedBytes, int sentBytes, long nanos );
+
+    /**
+     * A compressed chunk payload has been received and decompressed.
+     */
+    void chunkDecompressed( int compressedBytes, int uncompressedBytes, long nanos );
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.com.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates {@link ChunkCompressionMonitor} events into totals from which the achieved compression ratio and
+ * the compression/decompression throughput can be read.
+ */
+public class ChunkCompressionStatistics implements ChunkCompressionMonitor
+{
+    private final AtomicLong uncompressedBytesSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong compressionNanos = new AtomicLong();
+    private final AtomicLong compressedBytesReceived = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong decompressionNanos = new AtomicLong();
+
+    @Override
+    public void chunkCompressed( int uncompressedBytes, int sentBytes, long nanos )
+    {
+        uncompressedBytesSent.addAndGet( uncompressedBytes );
+        bytesSent.addAndGet( sentBytes );
+        compressionNanos.addAndGet( nanos );
+    }
+
+    @Override
+    public void chunkDecompressed( int compressedBytes, int uncompressedBytes, long nanos )
+    {
+        compressedBytesReceived.addAndGet( compressedBytes );
+        bytesReceived.addAndGet( uncompressedBytes );
+        decompressionNanos.addAndGet( nanos );
+    }
+
+    /**
+     * @return uncompressed size divided by size on the wire for everything sent, or 1 if nothing has been sent.
+     */
+    public double sentCompressionRatio()
+    {
+        return ratio( uncompressedBytesSent.get(), bytesSent.get() );
+    }
+
+    /**
+     * @return uncompressed size divided by size on the wire for everything received compressed,
+     * or 1 if nothing has been received.
+     */
+    public double receivedCompressionRatio()
+    {
+        return ratio( bytesReceived.get(), compressedBytesReceived.get() );
+    }
+
+    /**
+     * @return uncompressed bytes compressed per second of compression time.
+     */
+    public double compressionThroughput()
+    {
+        return throughput( uncompressedBytesSent.get(), compressionNanos.get() );
+    }
+
+    /**
+     * @return uncompressed bytes produced per second of decompression time.
+     */
+    public double decompressionThroughput()
+    {
+        return throughput( bytesReceived.get(), decompressionNanos.get() );
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "sent: %d bytes as %d (ratio %.2f, %.1f MB/s), received: %d bytes as %d (ratio %.2f, %.1f MB/s)",
+                uncompressedBytesSent.get(), bytesSent.get(), sentCompressionRatio(),
+                compressionThroughput() / (1024 * 1024),
+                bytesReceived.get(), compressedBytesReceived.get(), receivedCompressionRatio(),
+                decompressionThroughput() / (1024 * 1024) );
+    }
+
+    private static double ratio( long uncompressed, long compressed )
+    {
+        return compressed == 0 ? 1d : (double) uncompressed / compressed;
+    }
+
+    private static double throughput( long bytes, long nanos )
+    {
+        return nanos == 0 ? 0d : bytes * 1_000_000_000d / nanos;
+    }
+}
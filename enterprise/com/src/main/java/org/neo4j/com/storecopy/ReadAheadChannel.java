@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.com.storecopy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+
+/**
+ * Reads a file in a background thread, ahead of the thread consuming it through this channel, so that reading
+ * store files from disk overlaps with sending them over the network. While running it borrows
+ * {@link #BUFFERS_PER_FILE} buffers from a shared pool, and hands them back once the consumer has read
+ * everything and closed this channel. Since every reader holds at most that many buffers, a pool with that many
+ * buffers per reader thread guarantees that the file currently being consumed can always be read.
+ */
+class ReadAheadChannel implements ReadableByteChannel, Runnable
+{
+    static final int BUFFERS_PER_FILE = 2;
+    private static final ByteBuffer END_OF_FILE = ByteBuffer.allocate( 0 );
+
+    private final FileSystemAbstraction fileSystem;
+    private final File file;
+    private final BlockingQueue<ByteBuffer> pool;
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>( BUFFERS_PER_FILE );
+    private final BlockingQueue<ByteBuffer> filled = new ArrayBlockingQueue<>( BUFFERS_PER_FILE + 1 );
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private ByteBuffer current;
+
+    ReadAheadChannel( FileSystemAbstraction fileSystem, File file, BlockingQueue<ByteBuffer> pool )
+    {
+        this.fileSystem = fileSystem;
+        this.file = file;
+        this.pool = pool;
+    }
+
+    @Override
+    public void run()
+    {
+        if ( !started.compareAndSet( false, true ) )
+        {   // Closed before we even got started
+            return;
+        }
+
+        try
+        {
+            for ( int i = 0; i < BUFFERS_PER_FILE; i++ )
+            {
+                ByteBuffer buffer = take( pool );
+                if ( buffer == null )
+                {
+                    return;
+                }
+                free.add( buffer );
+            }
+
+            try ( StoreChannel channel = fileSystem.open( file, "r" ) )
+            {
+                while ( !closed )
+                {
+                    ByteBuffer buffer = take( free );
+                    if ( buffer == null )
+                    {
+                        return;
+                    }
+                    buffer.clear();
+                    int read = 0;
+                    while ( buffer.hasRemaining() && (read = channel.read( buffer )) >= 0 )
+                    {
+                        // Keep filling the buffer
+                    }
+                    buffer.flip();
+                    if ( buffer.hasRemaining() )
+                    {
+                        filled.put( buffer );
+                    }
+                    else
+                    {
+                        free.add( buffer );
+                    }
+                    if ( read < 0 )
+                    {
+                        break;
+                    }
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            failure = e;
+        }
+        catch ( InterruptedException e )
+        {
+            failure = new InterruptedIOException( "Interrupted while reading " + file );
+        }
+        finally
+        {
+            filled.offer( END_OF_FILE );
+        }
+    }
+
+    private ByteBuffer take( BlockingQueue<ByteBuffer> queue ) throws InterruptedException
+    {
+        ByteBuffer buffer = null;
+        while ( buffer == null && !closed )
+        {
+            buffer = queue.poll( 100, TimeUnit.MILLISECONDS );
+        }
+        if ( buffer != null && closed )
+        {
+            queue.offer( buffer );
+            return null;
+        }
+        return buffer;
+    }
+
+    @Override
+    public int read( ByteBuffer dst ) throws IOException
+    {
+        if ( closed )
+        {
+            throw new ClosedChannelException();
+        }
+
+        int totalRead = 0;
+        while ( dst.hasRemaining() )
+        {
+            if ( current == null || !current.hasRemaining() )
+            {
+                if ( current != null && current != END_OF_FILE )
+                {
+                    free.add( current );
+                }
+                // Only block for more data if we have nothing to give back yet
+                current = totalRead == 0 ? awaitFilled() : filled.poll();
+                if ( current == null )
+                {
+                    break;
+                }
+            }
+            if ( current == END_OF_FILE )
+            {
+                if ( failure != null )
+                {
+                    throw failure;
+                }
+                return totalRead == 0 ? -1 : totalRead;
+            }
+
+            int count = Math.min( dst.remaining(), current.remaining() );
+            int limit = current.limit();
+            current.limit( current.position() + count );
+            dst.put( current );
+            current.limit( limit );
+            totalRead += count;
+        }
+        return totalRead;
+    }
+
+    private ByteBuffer awaitFilled() throws IOException
+    {
+        try
+        {
+            return filled.take();
+        }
+        catch ( InterruptedException e )
+        {
+            throw new InterruptedIOException( "Interrupted while waiting for " + file );
+        }
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return !closed;
+    }
+
+    /**
+     * Stops the reader, if still running, and hands the buffers of this channel back to the pool. Must be
+     * called by the consumer regardless of whether or not it read the whole file.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        if ( started.compareAndSet( false, true ) )
+        {   // The reader never started, so there's nothing to hand back
+            return;
+        }
+
+        // Wait for the reader to let go of its buffers, unless we've already seen it do that
+        try
+        {
+            while ( current != END_OF_FILE )
+            {
+                if ( current != null )
+                {
+                    free.add( current );
+                }
+                current = filled.take();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        ByteBuffer returned;
+        while ( (returned = free.poll()) != null )
+        {
+            pool.add( returned );
+        }
+    }
+}
@@ -71,6 +71,35 @@ public class ResponsePacker
         return new Response<>( response, db.storeId(), transactions, ResourceReleaser.NO_OP );
     }
 
+    /**
+     * Packs the transactions the requester is missing, but at most up to and including the given transaction id.
+     */
+    public <T> Response<T> packResponse( RequestContext context, T response, final long upToAndIncludingTxId )
+    {
+        final long toStartFrom = context.lastAppliedTransaction() + 1;
+        TransactionStream transactions = new TransactionStream()
+        {
+            @Override
+            public void accept( final Visitor<CommittedTransactionRepresentation, IOException> visitor )
+                    throws IOException
+            {
+                if ( toStartFrom > 0 && toStartFrom <= transactionIdStore.getLastCommittingTransactionId() )
+                {
+                    extractTransactions( toStartFrom, new Visitor<CommittedTransactionRepresentation, IOException>()
+                    {
+                        @Override
+                        public boolean visit( CommittedTransactionRepresentation element ) throws IOException
+                        {
+                            return element.getCommitEntry().getTxId() <= upToAndIncludingTxId &&
+                                   visitor.visit( element );
+                        }
+                    } );
+                }
+            }
+        };
+        return new Response<>( response, db.storeId(), transactions, ResourceReleaser.NO_OP );
+    }
+
     protected Visitor<CommittedTransactionRepresentation, IOException> filterVisitor(
             final Visitor<CommittedTransactionRepresentation, IOException> delegate,
             final Predicate<CommittedTransactionRepresentation> filter )
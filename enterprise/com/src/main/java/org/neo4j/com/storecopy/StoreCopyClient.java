@@ -85,6 +85,15 @@ public class StoreCopyClient
         void done();
     }
 
+    /**
+     * A {@link StoreCopyRequester} that is able to ask the source to resume an interrupted copy, as described by
+     * {@link StoreCopyProgress}.
+     */
+    public interface ResumableStoreCopyRequester extends StoreCopyRequester
+    {
+        Response<?> copyStore( StoreWriter writer, StoreCopyProgress progress ) throws IOException;
+    }
+
     public StoreCopyClient( Config config, Iterable<KernelExtensionFactory<?>> kernelExtensions,
             ConsoleLogger console, FileSystemAbstraction fs )
     {
@@ -99,11 +108,25 @@ public class StoreCopyClient
         // Clear up the current temp directory if there
         File storeDir = config.get( InternalAbstractGraphDatabase.Configuration.store_dir );
         File tempStore = new File( storeDir, TEMP_COPY_DIRECTORY_NAME );
-        cleanDirectory( tempStore );
+        boolean resumable = requester instanceof ResumableStoreCopyRequester;
+        StoreCopyProgress progress = resumable ? StoreCopyProgress.read( tempStore ) : null;
+        if ( progress != null )
+        {
+            console.log( "Resuming store copy, " + progress.completedFiles().size() +
+                    " files have already been copied" );
+            removeIncompleteFiles( tempStore, tempStore, progress );
+        }
+        else
+        {
+            cleanDirectory( tempStore );
+        }
 
         // Request store files and transactions that will need recovery
-        try ( Response response = requester.copyStore( decorateWithProgressIndicator(
-                new ToFileStoreWriter( tempStore ) ) ) )
+        StoreWriter writer = decorateWithProgressIndicator( new ToFileStoreWriter( tempStore, resumable ) );
+        try ( Response response = resumable
+                ? ((ResumableStoreCopyRequester) requester).copyStore( writer,
+                        progress != null ? progress : StoreCopyProgress.notStarted() )
+                : requester.copyStore( writer ) )
         {
             // Update highest archived log id
             // Write transactions that happened during the copy to the currently active logical log
@@ -113,6 +136,7 @@ public class StoreCopyClient
         {
             requester.done();
         }
+        StoreCopyProgress.clear( tempStore );
 
         // Run recovery, so that the transactions we just wrote into the active log will be applied.
         GraphDatabaseService graphDatabaseService = newTempDatabase( tempStore );
@@ -222,6 +246,31 @@ public class StoreCopyClient
         };
     }
 
+    /**
+     * Removes everything from an interrupted copy that wasn't completely copied, like a partially written file
+     * or a transaction log from the last step of the copy. Those will be streamed again.
+     */
+    private void removeIncompleteFiles( File directory, File root, StoreCopyProgress progress ) throws IOException
+    {
+        File[] files = directory.listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+        for ( File file : files )
+        {
+            if ( file.isDirectory() )
+            {
+                removeIncompleteFiles( file, root, progress );
+            }
+            else if ( !StoreCopyProgress.isProgressFile( file.getName() ) &&
+                      !progress.isCompleted( FileUtils.relativePath( root, file ) ) )
+            {
+                FileUtils.deleteFile( file );
+            }
+        }
+    }
+
     private void cleanDirectory( File directory ) throws IOException
     {
         if ( !directory.mkdir() )
@@ -238,6 +287,7 @@ public class StoreCopyClient
         {
             // Skip log files and tx files from temporary database
             return !file.getName().startsWith( "metrics" )
+                    && !StoreCopyProgress.isProgressFile( file.getName() )
                     && !file.getName().equals( StringLogger.DEFAULT_NAME )
                     && !("active_tx_log tm_tx_log.1 tm_tx_log.2").contains( file.getName() );
         }
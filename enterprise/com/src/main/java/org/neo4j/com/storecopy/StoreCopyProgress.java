@@ -0,0 +1,255 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.com.storecopy;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import org.neo4j.com.Protocol;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.kernel.impl.nioneo.store.StoreId;
+
+/**
+ * Keeps track of how far a store copy has come, so that an interrupted copy can be resumed instead of started
+ * over. The server announces which transaction the copy started at, and of which store, by streaming them as the
+ * first file, {@link #START_FILE_NAME}, and the client records every file it has completely written in
+ * {@link #PROGRESS_FILE_NAME}. A resumed copy must apply transactions from the start of the first attempt,
+ * since the files kept from that attempt may be that old. A copy from a different store always starts over.
+ */
+public class StoreCopyProgress
+{
+    public static final String START_FILE_NAME = "store-copy.start";
+    public static final String PROGRESS_FILE_NAME = "store-copy.progress";
+    public static final long NOT_STARTED = -1;
+    private static final int START_FILE_SIZE = 8 + StoreId.SIZE_IN_BYTES;
+    private static final Charset CHARSET = Charset.forName( "UTF-8" );
+
+    private final long startTransactionId;
+    private final StoreId storeId;
+    private final Set<String> completedFiles;
+
+    public StoreCopyProgress( long startTransactionId, StoreId storeId, Set<String> completedFiles )
+    {
+        this.startTransactionId = startTransactionId;
+        this.storeId = storeId;
+        this.completedFiles = completedFiles;
+    }
+
+    public static StoreCopyProgress notStarted()
+    {
+        return new StoreCopyProgress( NOT_STARTED, null, Collections.<String>emptySet() );
+    }
+
+    public boolean isStarted()
+    {
+        return startTransactionId != NOT_STARTED;
+    }
+
+    /**
+     * @return the last committing transaction id when the first attempt of this copy started.
+     */
+    public long startTransactionId()
+    {
+        return startTransactionId;
+    }
+
+    /**
+     * @return the id of the store being copied, or {@code null} if the copy hasn't started.
+     */
+    public StoreId storeId()
+    {
+        return storeId;
+    }
+
+    public boolean isCompleted( String path )
+    {
+        return completedFiles.contains( path );
+    }
+
+    public Set<String> completedFiles()
+    {
+        return completedFiles;
+    }
+
+    public void serialize( ChannelBuffer buffer )
+    {
+        buffer.writeLong( startTransactionId );
+        if ( isStarted() )
+        {
+            buffer.writeBytes( storeId.serialize() );
+        }
+        buffer.writeInt( completedFiles.size() );
+        for ( String path : completedFiles )
+        {
+            Protocol.writeString( buffer, path );
+        }
+    }
+
+    public static StoreCopyProgress deserialize( ChannelBuffer buffer )
+    {
+        long startTransactionId = buffer.readLong();
+        StoreId storeId = null;
+        if ( startTransactionId != NOT_STARTED )
+        {
+            byte[] storeIdBytes = new byte[StoreId.SIZE_IN_BYTES];
+            buffer.readBytes( storeIdBytes );
+            storeId = StoreId.deserialize( storeIdBytes );
+        }
+        int count = buffer.readInt();
+        Set<String> completedFiles = new HashSet<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            completedFiles.add( Protocol.readString( buffer ) );
+        }
+        return new StoreCopyProgress( startTransactionId, storeId, completedFiles );
+    }
+
+    /**
+     * @return the contents of the {@link #START_FILE_NAME} file, that the server streams first.
+     */
+    public static ByteBuffer startFileContents( long startTransactionId, StoreId storeId )
+    {
+        ByteBuffer start = ByteBuffer.allocate( START_FILE_SIZE );
+        start.putLong( startTransactionId ).put( storeId.serialize() ).flip();
+        return start;
+    }
+
+    /**
+     * @return the progress of an interrupted copy into the given directory, or {@code null} if there is nothing
+     * to resume.
+     */
+    public static StoreCopyProgress read( File directory ) throws IOException
+    {
+        File startFile = new File( directory, START_FILE_NAME );
+        File progressFile = new File( directory, PROGRESS_FILE_NAME );
+        if ( !startFile.isFile() || startFile.length() < START_FILE_SIZE || !progressFile.isFile() )
+        {
+            return null;
+        }
+
+        long startTransactionId;
+        StoreId storeId;
+        try ( RandomAccessFile file = new RandomAccessFile( startFile, "r" ) )
+        {
+            startTransactionId = file.readLong();
+            storeId = readStoreId( file );
+        }
+        Set<String> completedFiles = new HashSet<>();
+        try ( BufferedReader reader = new BufferedReader(
+                new InputStreamReader( new FileInputStream( progressFile ), CHARSET ) ) )
+        {
+            String path;
+            while ( (path = reader.readLine()) != null )
+            {
+                if ( !path.isEmpty() && !path.equals( START_FILE_NAME ) )
+                {
+                    completedFiles.add( path );
+                }
+            }
+        }
+        return new StoreCopyProgress( startTransactionId, storeId, completedFiles );
+    }
+
+    /**
+     * Called once the {@link #START_FILE_NAME} file streamed by the server has been written into the given
+     * directory, which held the given progress of an earlier copy. If the server didn't resume that copy, because
+     * the store differs or because it no longer has the transactions needed to resume it, then the files kept from
+     * it are of no use and are removed, so that the new copy starts from an empty directory.
+     */
+    public static void startedAfter( File directory, StoreCopyProgress previous ) throws IOException
+    {
+        File startFile = new File( directory, START_FILE_NAME );
+        long startTransactionId;
+        StoreId storeId;
+        try ( RandomAccessFile file = new RandomAccessFile( startFile, "r" ) )
+        {
+            startTransactionId = file.readLong();
+            storeId = readStoreId( file );
+        }
+        if ( previous.startTransactionId == startTransactionId && previous.storeId.equals( storeId ) )
+        {
+            return;
+        }
+
+        File[] files = directory.listFiles();
+        if ( files != null )
+        {
+            for ( File file : files )
+            {
+                if ( file.isDirectory() )
+                {
+                    FileUtils.deleteRecursively( file );
+                }
+                else if ( !file.getName().equals( START_FILE_NAME ) )
+                {
+                    FileUtils.deleteFile( file );
+                }
+            }
+        }
+    }
+
+    private static StoreId readStoreId( RandomAccessFile file ) throws IOException
+    {
+        byte[] storeIdBytes = new byte[StoreId.SIZE_IN_BYTES];
+        file.readFully( storeIdBytes );
+        return StoreId.deserialize( storeIdBytes );
+    }
+
+    /**
+     * Records that the file at the given path has been completely written into the given directory.
+     */
+    public static void fileCompleted( File directory, String path ) throws IOException
+    {
+        try ( Writer writer = new OutputStreamWriter(
+                new FileOutputStream( new File( directory, PROGRESS_FILE_NAME ), true ), CHARSET ) )
+        {
+            writer.write( path );
+            writer.write( '\n' );
+        }
+    }
+
+    /**
+     * Forgets about the progress of the copy into the given directory, typically because it has completed.
+     */
+    public static void clear( File directory )
+    {
+        new File( directory, START_FILE_NAME ).delete();
+        new File( directory, PROGRESS_FILE_NAME ).delete();
+    }
+
+    public static boolean isProgressFile( String name )
+    {
+        return name.equals( START_FILE_NAME ) || name.equals( PROGRESS_FILE_NAME );
+    }
+}
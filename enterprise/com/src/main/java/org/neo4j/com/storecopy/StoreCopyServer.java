@@ -20,65 +20,139 @@
 package org.neo4j.com.storecopy;
 
 import static org.neo4j.com.RequestContext.anonymous;
+import static org.neo4j.com.storecopy.ReadAheadChannel.BUFFERS_PER_FILE;
 import static org.neo4j.io.fs.FileUtils.getMostCanonicalFile;
 import static org.neo4j.io.fs.FileUtils.relativePath;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.neo4j.com.RequestContext;
 import org.neo4j.com.Response;
 import org.neo4j.com.ServerFailureException;
 import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.helpers.NamedThreadFactory;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.nioneo.store.StoreId;
 import org.neo4j.kernel.impl.nioneo.store.TransactionIdStore;
 import org.neo4j.kernel.impl.nioneo.xa.NeoStoreXaDataSource;
 
 /**
  * Is able to feed store files in a consistent way to a {@link Response} to be picked up by a
  * {@link StoreCopyClient}, for example.
+ * <p>
+ * Up to {@code readAheadFiles} files are read from disk concurrently, ahead of the file currently being written
+ * to the {@link StoreWriter}, so that disk reads overlap with sending the data.
  *
  * @see StoreCopyClient
  */
 public class StoreCopyServer
 {
+    public static final int DEFAULT_READ_AHEAD_FILES = 2;
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
     private final TransactionIdStore transactionIdStore;
     private final NeoStoreXaDataSource dataSource;
     private final FileSystemAbstraction fileSystem;
     private final File storeDirectory;
+    private final int readAheadFiles;
 
     public StoreCopyServer( TransactionIdStore transactionIdStore,
             NeoStoreXaDataSource dataSource, FileSystemAbstraction fileSystem, File storeDirectory )
+    {
+        this( transactionIdStore, dataSource, fileSystem, storeDirectory, DEFAULT_READ_AHEAD_FILES );
+    }
+
+    public StoreCopyServer( TransactionIdStore transactionIdStore,
+            NeoStoreXaDataSource dataSource, FileSystemAbstraction fileSystem, File storeDirectory,
+            int readAheadFiles )
     {
         this.transactionIdStore = transactionIdStore;
         this.dataSource = dataSource;
         this.fileSystem = fileSystem;
         this.storeDirectory = getMostCanonicalFile( storeDirectory );
+        this.readAheadFiles = readAheadFiles;
     }
 
     /**
      * @return a {@link RequestContext} specifying at which point the store copy started.
      */
     public RequestContext flushStoresAndStreamStoreFiles( StoreWriter writer )
+    {
+        return flushStoresAndStreamStoreFiles( writer, null );
+    }
+
+    /**
+     * Like {@link #flushStoresAndStreamStoreFiles(StoreWriter)}, but announces the transaction the copy starts at
+     * as the first file, {@link StoreCopyProgress#START_FILE_NAME}, and skips the files that the given progress
+     * says have already been copied. If the progress is of a copy that has already been started, the copy is
+     * considered to start where that one did.
+     *
+     * @param progress progress of a previous, interrupted, copy or {@link StoreCopyProgress#notStarted()}.
+     * {@code null} means that the client doesn't know about resuming store copies.
+     * @return a {@link RequestContext} specifying at which point the store copy started.
+     */
+    public RequestContext flushStoresAndStreamStoreFiles( StoreWriter writer, StoreCopyProgress progress )
     {
         try
         {
             long transactionIdWhenStartingCopy = transactionIdStore.getLastCommittingTransactionId();
+            StoreId storeId = dataSource.getStoreId();
+            if ( progress != null && progress.isStarted() && !storeId.equals( progress.storeId() ) )
+            {
+                // That copy was of another store, so none of its files can be kept
+                progress = StoreCopyProgress.notStarted();
+            }
+            if ( progress != null && progress.isStarted() )
+            {
+                transactionIdWhenStartingCopy = Math.min( transactionIdWhenStartingCopy,
+                        progress.startTransactionId() );
+            }
             dataSource.forceEverything();
-            ByteBuffer temporaryBuffer = ByteBuffer.allocateDirect( 1024 * 1024 );
+            ByteBuffer temporaryBuffer = ByteBuffer.allocateDirect( READ_BUFFER_SIZE );
+
+            if ( progress != null )
+            {
+                ByteBuffer start = StoreCopyProgress.startFileContents( transactionIdWhenStartingCopy, storeId );
+                writer.write( StoreCopyProgress.START_FILE_NAME, new ByteBufferChannel( start ),
+                        temporaryBuffer, true );
+            }
 
             // Copy the store files
             try ( ResourceIterator<File> files = dataSource.listStoreFiles() )
             {
+                List<File> filesToCopy = new ArrayList<>();
                 while ( files.hasNext() )
                 {
                     File file = files.next();
-                    try ( StoreChannel fileChannel = fileSystem.open( file, "r" ) )
+                    if ( progress == null || !progress.isCompleted( relativePath( storeDirectory, file ) ) )
+                    {
+                        filesToCopy.add( file );
+                    }
+                }
+
+                if ( readAheadFiles > 0 )
+                {
+                    copyWithReadAhead( filesToCopy, writer, temporaryBuffer );
+                }
+                else
+                {
+                    for ( File file : filesToCopy )
                     {
-                        writer.write( relativePath( storeDirectory, file ), fileChannel,
-                                temporaryBuffer, file.length() > 0 );
+                        try ( StoreChannel fileChannel = fileSystem.open( file, "r" ) )
+                        {
+                            writer.write( relativePath( storeDirectory, file ), fileChannel,
+                                    temporaryBuffer, file.length() > 0 );
+                        }
                     }
                 }
             }
@@ -90,4 +164,82 @@ public class StoreCopyServer
             throw new ServerFailureException( e );
         }
     }
+
+    private void copyWithReadAhead( List<File> files, StoreWriter writer, ByteBuffer temporaryBuffer )
+            throws IOException
+    {
+        BlockingQueue<ByteBuffer> pool = new ArrayBlockingQueue<>( readAheadFiles * BUFFERS_PER_FILE );
+        for ( int i = 0; i < readAheadFiles * BUFFERS_PER_FILE; i++ )
+        {
+            pool.add( ByteBuffer.allocateDirect( READ_BUFFER_SIZE ) );
+        }
+
+        ExecutorService readers = Executors.newFixedThreadPool( readAheadFiles,
+                new NamedThreadFactory( "Store copy read-ahead" ) );
+        List<ReadAheadChannel> channels = new ArrayList<>( files.size() );
+        try
+        {
+            // Readers are started in file order, so the file being written is always being read as well
+            for ( File file : files )
+            {
+                ReadAheadChannel channel = new ReadAheadChannel( fileSystem, file, pool );
+                channels.add( channel );
+                readers.execute( channel );
+            }
+
+            for ( int i = 0; i < files.size(); i++ )
+            {
+                File file = files.get( i );
+                try ( ReadAheadChannel channel = channels.get( i ) )
+                {
+                    writer.write( relativePath( storeDirectory, file ), channel, temporaryBuffer,
+                            file.length() > 0 );
+                }
+            }
+        }
+        finally
+        {
+            for ( ReadAheadChannel channel : channels )
+            {
+                channel.close();
+            }
+            readers.shutdown();
+        }
+    }
+
+    private static class ByteBufferChannel implements ReadableByteChannel
+    {
+        private final ByteBuffer source;
+
+        ByteBufferChannel( ByteBuffer source )
+        {
+            this.source = source;
+        }
+
+        @Override
+        public int read( ByteBuffer dst )
+        {
+            if ( !source.hasRemaining() )
+            {
+                return -1;
+            }
+            int count = Math.min( dst.remaining(), source.remaining() );
+            for ( int i = 0; i < count; i++ )
+            {
+                dst.put( source.get() );
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
 }
@@ -26,13 +26,31 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 
+/**
+ * Writes streamed store files into a directory. Data is written through a large direct buffer, rather than the
+ * typically small and heap allocated temporary buffer it's given, to keep the number of file system writes down
+ * and avoid copying into a temporary direct buffer on each write.
+ * <p>
+ * If asked to, it records every file it has completely written, see {@link StoreCopyProgress}, so that an
+ * interrupted copy can be resumed.
+ */
 public class ToFileStoreWriter implements StoreWriter
 {
+    private static final int WRITE_BUFFER_SIZE = 8 * 1024 * 1024;
+
     private final File basePath;
+    private final boolean recordProgress;
+    private ByteBuffer writeBuffer;
 
     public ToFileStoreWriter( File graphDbStoreDir )
+    {
+        this( graphDbStoreDir, false );
+    }
+
+    public ToFileStoreWriter( File graphDbStoreDir, boolean recordProgress )
     {
         this.basePath = graphDbStoreDir;
+        this.recordProgress = recordProgress;
     }
 
     @Override
@@ -41,26 +59,43 @@ public class ToFileStoreWriter implements StoreWriter
     {
         try
         {
-            temporaryBuffer.clear();
             File file = new File( basePath, path );
+            StoreCopyProgress previous = recordProgress && path.equals( StoreCopyProgress.START_FILE_NAME )
+                    ? StoreCopyProgress.read( basePath ) : null;
 
             RandomAccessFile randomAccessFile = null;
             try
             {
                 file.getParentFile().mkdirs();
                 randomAccessFile = new RandomAccessFile( file, "rw" );
+                // This may be a file left over from an interrupted copy
+                randomAccessFile.setLength( 0 );
                 int totalWritten = 0;
+                FileChannel channel = randomAccessFile.getChannel();
                 if ( hasData )
                 {
-                    FileChannel channel = randomAccessFile.getChannel();
-                    while ( data.read( temporaryBuffer ) >= 0 )
+                    ByteBuffer buffer = writeBuffer();
+                    buffer.clear();
+                    while ( data.read( buffer ) >= 0 )
                     {
-                        temporaryBuffer.flip();
-                        totalWritten += temporaryBuffer.limit();
-                        channel.write( temporaryBuffer );
-                        temporaryBuffer.clear();
+                        buffer.flip();
+                        totalWritten += buffer.limit();
+                        while ( buffer.hasRemaining() )
+                        {
+                            channel.write( buffer );
+                        }
+                        buffer.clear();
                     }
                 }
+                if ( recordProgress )
+                {
+                    channel.force( false );
+                    if ( previous != null )
+                    {
+                        StoreCopyProgress.startedAfter( basePath, previous );
+                    }
+                    StoreCopyProgress.fileCompleted( basePath, path );
+                }
                 return totalWritten;
             }
             finally
@@ -77,6 +112,15 @@ public class ToFileStoreWriter implements StoreWriter
         }
     }
 
+    private ByteBuffer writeBuffer()
+    {
+        if ( writeBuffer == null )
+        {
+            writeBuffer = ByteBuffer.allocateDirect( WRITE_BUFFER_SIZE );
+        }
+        return writeBuffer;
+    }
+
     @Override
     public void close()
     {
@@ -49,12 +49,11 @@ public class ToNetworkStoreWriter implements StoreWriter
         targetBuffer.writeShort( chars.length );
         Protocol.writeChars( targetBuffer, chars );
         targetBuffer.writeByte( hasData ? 1 : 0 );
-        // TODO Make use of temporaryBuffer?
         BlockLogBuffer buffer = new BlockLogBuffer( targetBuffer, bufferMonitor );
         int totalWritten = 2 + chars.length*2 + 1;
         if ( hasData )
         {
-            totalWritten += buffer.write( data );
+            totalWritten += buffer.write( data, temporaryBuffer );
             buffer.close();
 
         }
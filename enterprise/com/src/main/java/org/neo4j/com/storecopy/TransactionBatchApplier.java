@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.com.storecopy;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.transaction.xaframework.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.monitoring.BackupMonitor;
+
+/**
+ * Applies transactions in batches, in a job of its own, so that the thread reading them, from a log or from a
+ * response over the network, can decode the next batch while the previous one is being applied. The reading
+ * thread {@link #queue(CommittedTransactionRepresentation) queues} transactions in order, and must
+ * {@link #close()} this applier when done, which waits for every queued transaction to be applied.
+ */
+public class TransactionBatchApplier implements Runnable, AutoCloseable
+{
+    public interface BatchHandler
+    {
+        /**
+         * Applies the given transactions, in order. Called from the job of the applier only.
+         */
+        void apply( List<CommittedTransactionRepresentation> transactions ) throws IOException;
+    }
+
+    private final BatchHandler handler;
+    private final int batchSize;
+    private final BackupMonitor monitor;
+    private final BlockingQueue<CommittedTransactionRepresentation> queue;
+    private final CountDownLatch applied = new CountDownLatch( 1 );
+    private volatile boolean done;
+    private volatile Throwable failure;
+    private boolean failureReported;
+
+    public TransactionBatchApplier( JobScheduler scheduler, BatchHandler handler, int batchSize,
+            BackupMonitor monitor )
+    {
+        this.handler = handler;
+        this.batchSize = batchSize;
+        this.monitor = monitor;
+        // Room for the batch being read while another one is being applied
+        this.queue = new ArrayBlockingQueue<>( batchSize * 2 );
+        scheduler.schedule( JobScheduler.Group.transactionBatchApplier, this );
+    }
+
+    public void queue( CommittedTransactionRepresentation transaction ) throws IOException
+    {
+        try
+        {
+            while ( !queue.offer( transaction, 100, TimeUnit.MILLISECONDS ) )
+            {
+                assertNotFailed();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            throw new InterruptedIOException( "Interrupted while queueing transaction " +
+                    transaction.getCommitEntry().getTxId() );
+        }
+        assertNotFailed();
+    }
+
+    @Override
+    public void run()
+    {
+        List<CommittedTransactionRepresentation> batch = new ArrayList<>( batchSize );
+        try
+        {
+            while ( true )
+            {
+                CommittedTransactionRepresentation first = queue.poll( 100, TimeUnit.MILLISECONDS );
+                if ( first == null )
+                {
+                    // The reader is done once it says so and everything it queued before that has been applied
+                    if ( done && queue.isEmpty() )
+                    {
+                        return;
+                    }
+                    continue;
+                }
+
+                batch.add( first );
+                queue.drainTo( batch, batchSize - 1 );
+                long startTime = System.currentTimeMillis();
+                handler.apply( batch );
+                monitor.appliedTransactionBatch( batch.size(), System.currentTimeMillis() - startTime );
+                batch.clear();
+            }
+        }
+        catch ( Throwable e )
+        {
+            failure = e;
+        }
+        finally
+        {
+            applied.countDown();
+        }
+    }
+
+    /**
+     * Waits for all queued transactions to be applied.
+     *
+     * @throws IOException if applying any of them failed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        done = true;
+        try
+        {
+            applied.await();
+        }
+        catch ( InterruptedException e )
+        {
+            throw new InterruptedIOException( "Interrupted while waiting for transactions to be applied" );
+        }
+        assertNotFailed();
+    }
+
+    private void assertNotFailed() throws IOException
+    {
+        Throwable failure = this.failure;
+        if ( failure == null || failureReported )
+        {
+            return;
+        }
+        // Only once, so that closing after a failed queue() doesn't throw the same exception again
+        failureReported = true;
+        if ( failure instanceof IOException )
+        {
+            throw (IOException) failure;
+        }
+        if ( failure instanceof RuntimeException )
+        {
+            throw (RuntimeException) failure;
+        }
+        if ( failure instanceof Error )
+        {
+            throw (Error) failure;
+        }
+        throw new IOException( failure );
+    }
+}
@@ -20,6 +20,8 @@
 package org.neo4j.com.storecopy;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.neo4j.com.Response;
 import org.neo4j.graphdb.DependencyResolver;
@@ -30,7 +32,9 @@ import org.neo4j.kernel.impl.transaction.xaframework.CommittedTransactionReprese
 import org.neo4j.kernel.impl.transaction.xaframework.LogicalTransactionStore;
 import org.neo4j.kernel.impl.transaction.xaframework.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.xaframework.TransactionMonitor;
+import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.kernel.monitoring.BackupMonitor;
 
 public class TransactionCommittingResponseUnpacker extends ResponseUnpacker.Adapter implements Lifecycle
 {
@@ -38,11 +42,17 @@ public class TransactionCommittingResponseUnpacker extends ResponseUnpacker.Adap
 
     private final DependencyResolver resolver;
     private final int serverId;
+    /**
+     * Serializes applying received transactions to the store, in the order they were appended. The appender itself
+     * is only locked for each append, so that forcing the log is never held up by the store being updated.
+     */
+    private final Object applyLock = new Object();
 
     private TransactionAppender appender;
     private TransactionRepresentationStoreApplier storeApplier;
     private TransactionIdStore transactionIdStore;
     private TransactionMonitor transactionMonitor;
+    private JobScheduler scheduler;
 
     public TransactionCommittingResponseUnpacker( DependencyResolver resolver )
     {
@@ -65,12 +75,11 @@ public class TransactionCommittingResponseUnpacker extends ResponseUnpacker.Adap
             {
                 // synchronized is needed here:
                 // read all about it at TransactionAppender#append(CommittedTransactionRepresentation)
-                synchronized ( appender )
+                synchronized ( applyLock )
                 {
                     if ( appender.append( transaction ) )
                     {
-                        final boolean isMyTx = serverId != NO_SERVER_ID &&
-                                serverId == transaction.getTransactionRepresentation().getAuthorId();
+                        final boolean isMyTx = isMyTx( transaction );
                         final long transactionId = transaction.getCommitEntry().getTxId();
                         if ( !isMyTx )
                         {
@@ -100,6 +109,87 @@ public class TransactionCommittingResponseUnpacker extends ResponseUnpacker.Adap
         return response.response();
     }
 
+    /**
+     * Like {@link #unpackResponse(Response, TxHandler)}, but applies the transactions in batches of up to
+     * {@code batchSize}, in a {@link JobScheduler} job other than the thread reading them from the response.
+     * Schema index and label scan store changes are written once per batch. Meant for catching up on many
+     * transactions at once.
+     */
+    public <T> T unpackResponseInBatches( Response<T> response, final TxHandler handler, int batchSize,
+            BackupMonitor monitor ) throws IOException
+    {
+        try ( final TransactionBatchApplier batchApplier = new TransactionBatchApplier(
+                scheduler, new TransactionBatchApplier.BatchHandler()
+                {
+                    @Override
+                    public void apply( List<CommittedTransactionRepresentation> transactions ) throws IOException
+                    {
+                        applyBatch( transactions, handler );
+                    }
+                }, batchSize, monitor ) )
+        {
+            response.accept( new Visitor<CommittedTransactionRepresentation, IOException>()
+            {
+                @Override
+                public boolean visit( CommittedTransactionRepresentation transaction ) throws IOException
+                {
+                    batchApplier.queue( transaction );
+                    return true;
+                }
+            } );
+        }
+        return response.response();
+    }
+
+    private void applyBatch( List<CommittedTransactionRepresentation> transactions, TxHandler handler )
+            throws IOException
+    {
+        // synchronized is needed here:
+        // read all about it at TransactionAppender#append(CommittedTransactionRepresentation)
+        synchronized ( applyLock )
+        {
+            List<CommittedTransactionRepresentation> appended = new ArrayList<>( transactions.size() );
+            for ( CommittedTransactionRepresentation transaction : transactions )
+            {
+                if ( appender.append( transaction ) )
+                {
+                    appended.add( transaction );
+                    if ( !isMyTx( transaction ) )
+                    {
+                        transactionMonitor.transactionStarted();
+                    }
+                }
+            }
+
+            boolean success = false;
+            try
+            {
+                storeApplier.applyBatch( appended );
+                for ( CommittedTransactionRepresentation transaction : appended )
+                {
+                    handler.accept( transaction );
+                }
+                success = true;
+            }
+            finally
+            {
+                for ( CommittedTransactionRepresentation transaction : appended )
+                {
+                    transactionIdStore.transactionClosed( transaction.getCommitEntry().getTxId() );
+                    if ( !isMyTx( transaction ) )
+                    {
+                        transactionMonitor.transactionFinished( success );
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isMyTx( CommittedTransactionRepresentation transaction )
+    {
+        return serverId != NO_SERVER_ID && serverId == transaction.getTransactionRepresentation().getAuthorId();
+    }
+
     @Override
     public void init() throws Throwable
     {
@@ -113,6 +203,7 @@ public class TransactionCommittingResponseUnpacker extends ResponseUnpacker.Adap
         this.storeApplier = resolver.resolveDependency( TransactionRepresentationStoreApplier.class );
         this.transactionIdStore = resolver.resolveDependency( TransactionIdStore.class );
         this.transactionMonitor = resolver.resolveDependency( TransactionMonitor.class );
+        this.scheduler = resolver.resolveDependency( JobScheduler.class );
     }
 
     @Override
@@ -122,6 +213,7 @@ public class TransactionCommittingResponseUnpacker extends ResponseUnpacker.Adap
         this.storeApplier = null;
         this.transactionIdStore = null;
         this.transactionMonitor = null;
+        this.scheduler = null;
     }
 
     @Override
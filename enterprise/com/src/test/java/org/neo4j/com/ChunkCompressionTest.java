@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.com;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+import org.neo4j.com.monitor.ChunkCompressionStatistics;
+
+public class ChunkCompressionTest
+{
+    private static final byte INTERNAL_VERSION = Server.INTERNAL_PROTOCOL_VERSION;
+    private static final byte APPLICATION_VERSION = 3;
+    private static final int CHUNK_SIZE = 4096;
+
+    private final RecordingChannel channel = new RecordingChannel();
+    private final ChunkCompressionStatistics statistics = new ChunkCompressionStatistics();
+
+    @Test
+    public void shouldCompressAndDecompressChunksOfCompressibleData() throws Exception
+    {
+        // GIVEN
+        byte[] data = new byte[CHUNK_SIZE * 10];
+        for ( int i = 0; i < data.length; i += 100 )
+        {
+            data[i] = (byte) i;
+        }
+
+        // WHEN
+        write( data, statistics );
+        byte[] read = read( data.length );
+
+        // THEN
+        assertArrayEquals( data, read );
+        assertTrue( statistics.sentCompressionRatio() > 5 );
+        assertTrue( statistics.receivedCompressionRatio() > 5 );
+        assertTrue( statistics.compressionThroughput() > 0 );
+    }
+
+    @Test
+    public void shouldSendIncompressibleChunksAsTheyAre() throws Exception
+    {
+        // GIVEN
+        byte[] data = new byte[CHUNK_SIZE * 3];
+        new Random( 1234 ).nextBytes( data );
+
+        // WHEN
+        write( data, statistics );
+        byte[] read = read( data.length );
+
+        // THEN
+        assertArrayEquals( data, read );
+        assertEquals( 1d, statistics.sentCompressionRatio(), 0.0001 );
+        assertEquals( 1d, statistics.receivedCompressionRatio(), 0.0001 );
+    }
+
+    @Test
+    public void shouldFlagAcceptanceOfCompressedResponseWithoutBreakingOlderReaders() throws Exception
+    {
+        // GIVEN
+        ChunkingChannelBuffer request = new ChunkingChannelBuffer( ChannelBuffers.dynamicBuffer(), channel,
+                CHUNK_SIZE, INTERNAL_VERSION, APPLICATION_VERSION, true, null );
+
+        // WHEN
+        request.writeLong( 42 );
+        request.done();
+
+        // THEN
+        ChannelBuffer chunk = channel.asBlockingReadHandler().read();
+        byte[] header = new byte[2];
+        chunk.readBytes( header );
+        assertTrue( (header[0] & ChunkingChannelBuffer.COMPRESSED) != 0 );
+        DechunkingChannelBuffer.assertSameProtocolVersion( header, INTERNAL_VERSION, APPLICATION_VERSION );
+        assertEquals( 42, chunk.readLong() );
+    }
+
+    @Test
+    public void shouldNotCompressWithoutCompressor() throws Exception
+    {
+        // GIVEN
+        byte[] data = new byte[CHUNK_SIZE];
+
+        // WHEN
+        write( data, null );
+        byte[] read = read( data.length );
+
+        // THEN
+        assertArrayEquals( data, read );
+        assertEquals( 1d, statistics.receivedCompressionRatio(), 0.0001 );
+    }
+
+    private void write( byte[] data, ChunkCompressionStatistics compressor )
+    {
+        ChunkingChannelBuffer target = new ChunkingChannelBuffer( ChannelBuffers.dynamicBuffer(), channel,
+                CHUNK_SIZE, INTERNAL_VERSION, APPLICATION_VERSION, false, compressor );
+        for ( int offset = 0; offset < data.length; offset += 1000 )
+        {
+            target.writeBytes( data, offset, Math.min( 1000, data.length - offset ) );
+        }
+        target.done();
+    }
+
+    private byte[] read( int length )
+    {
+        DechunkingChannelBuffer source = new DechunkingChannelBuffer( channel.asBlockingReadHandler(), 1,
+                INTERNAL_VERSION, APPLICATION_VERSION, statistics );
+        byte[] read = new byte[length];
+        for ( int offset = 0; offset < length; offset += 1000 )
+        {
+            source.readBytes( read, offset, Math.min( 1000, length - offset ) );
+        }
+        return read;
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.com.storecopy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.kernel.DefaultFileSystemAbstraction;
+import org.neo4j.test.TargetDirectory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ReadAheadChannelTest
+{
+    @Rule
+    public TargetDirectory.TestDirectory testDir = TargetDirectory.testDirForTest( getClass() );
+    private final DefaultFileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+    private final BlockingQueue<ByteBuffer> pool = newPool( 1, 100 );
+
+    @Test
+    public void shouldReadWholeFileInBackground() throws Exception
+    {
+        // GIVEN
+        byte[] data = randomData( 1234 );
+        ReadAheadChannel channel = new ReadAheadChannel( fs, file( "file", data ), pool );
+
+        // WHEN
+        new Thread( channel ).start();
+        byte[] read = readFully( channel, data.length );
+
+        // THEN
+        assertArrayEquals( data, read );
+        channel.close();
+        assertEquals( ReadAheadChannel.BUFFERS_PER_FILE, pool.size() );
+    }
+
+    @Test
+    public void shouldHandBackBuffersWhenClosedBeforeReadingEverything() throws Exception
+    {
+        // GIVEN
+        ReadAheadChannel channel = new ReadAheadChannel( fs, file( "file", randomData( 10_000 ) ), pool );
+        new Thread( channel ).start();
+        channel.read( ByteBuffer.allocate( 10 ) );
+
+        // WHEN
+        channel.close();
+
+        // THEN
+        assertEquals( ReadAheadChannel.BUFFERS_PER_FILE, pool.size() );
+    }
+
+    @Test
+    public void shouldNotWaitForReaderThatNeverStarted() throws Exception
+    {
+        // GIVEN
+        ReadAheadChannel channel = new ReadAheadChannel( fs, file( "file", randomData( 10 ) ), pool );
+
+        // WHEN
+        channel.close();
+        channel.run();
+
+        // THEN
+        assertEquals( ReadAheadChannel.BUFFERS_PER_FILE, pool.size() );
+    }
+
+    @Test
+    public void shouldReadEmptyFile() throws Exception
+    {
+        // GIVEN
+        ReadAheadChannel channel = new ReadAheadChannel( fs, file( "empty", new byte[0] ), pool );
+        new Thread( channel ).start();
+
+        // WHEN
+        int read = channel.read( ByteBuffer.allocate( 10 ) );
+
+        // THEN
+        assertEquals( -1, read );
+        channel.close();
+        assertEquals( ReadAheadChannel.BUFFERS_PER_FILE, pool.size() );
+    }
+
+    private byte[] readFully( ReadAheadChannel channel, int length ) throws IOException
+    {
+        ByteBuffer target = ByteBuffer.allocate( length + 10 );
+        ByteBuffer smallReads = ByteBuffer.allocate( 33 );
+        while ( channel.read( smallReads ) >= 0 )
+        {
+            smallReads.flip();
+            target.put( smallReads );
+            smallReads.clear();
+        }
+        target.flip();
+        byte[] result = new byte[target.remaining()];
+        target.get( result );
+        return result;
+    }
+
+    private BlockingQueue<ByteBuffer> newPool( int readers, int bufferSize )
+    {
+        BlockingQueue<ByteBuffer> pool = new ArrayBlockingQueue<>( readers * ReadAheadChannel.BUFFERS_PER_FILE );
+        for ( int i = 0; i < readers * ReadAheadChannel.BUFFERS_PER_FILE; i++ )
+        {
+            pool.add( ByteBuffer.allocate( bufferSize ) );
+        }
+        return pool;
+    }
+
+    private File file( String name, byte[] data ) throws IOException
+    {
+        File file = new File( testDir.directory(), name );
+        try ( FileOutputStream out = new FileOutputStream( file ) )
+        {
+            out.write( data );
+        }
+        return file;
+    }
+
+    private byte[] randomData( int length )
+    {
+        byte[] data = new byte[length];
+        new Random( length ).nextBytes( data );
+        return data;
+    }
+}
@@ -22,13 +22,16 @@ package org.neo4j.com.storecopy;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Rule;
 import org.junit.Test;
 
+import org.neo4j.com.RequestContext;
 import org.neo4j.com.Response;
+import org.neo4j.com.ServerFailureException;
 import org.neo4j.com.TransactionStream;
 import org.neo4j.graphdb.DependencyResolver;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -56,8 +59,12 @@ import org.neo4j.test.TargetDirectory;
 import org.neo4j.tooling.GlobalGraphOperations;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -183,6 +190,148 @@ public class RemoteStoreCopierTest
         verify( requester, times( 1 ) ).done();
     }
 
+    @Test
+    public void shouldResumeAnInterruptedStoreCopy() throws Exception
+    {
+        // Given
+        final File originalDir = new File( testDir.directory(), "original" );
+        final File copyDir = new File( testDir.directory(), "copy" );
+        Config config = new Config( stringMap( store_dir.name(), copyDir.getAbsolutePath() ) );
+        final GraphDatabaseAPI original = (GraphDatabaseAPI)new GraphDatabaseFactory()
+                .newEmbeddedDatabase( originalDir.getAbsolutePath() );
+        createNode( original, "BeforeCopyBegins" );
+        final DependencyResolver resolver = original.getDependencyResolver();
+        final StoreCopyServer server = new StoreCopyServer( resolver.resolveDependency( TransactionIdStore.class ),
+                resolver.resolveDependency( DataSourceManager.class ).getDataSource(),
+                resolver.resolveDependency( FileSystemAbstraction.class ), originalDir );
+        StoreCopyClient copier = new StoreCopyClient( config, loadKernelExtensions(),
+                new ConsoleLogger( StringLogger.SYSTEM ), fs );
+        final List<StoreCopyProgress> progresses = new ArrayList<>();
+        final List<String> copiedOnResume = new ArrayList<>();
+        StoreCopyClient.ResumableStoreCopyRequester requester = new StoreCopyClient.ResumableStoreCopyRequester()
+        {
+            @Override
+            public Response<?> copyStore( StoreWriter writer ) throws IOException
+            {
+                throw new UnsupportedOperationException( "Only resumable copies are expected" );
+            }
+
+            @Override
+            public Response<?> copyStore( StoreWriter writer, StoreCopyProgress progress ) throws IOException
+            {
+                progresses.add( progress );
+                boolean firstAttempt = progresses.size() == 1;
+                // The first attempt is interrupted once the start and two store files have been written
+                RequestContext context = server.flushStoresAndStreamStoreFiles( new InterruptingStoreWriter(
+                        writer, firstAttempt ? 3 : Integer.MAX_VALUE, copiedOnResume ), progress );
+                createNode( original, "AfterCopy" );
+                final long firstTransactionId = context.lastAppliedTransaction() + 2;
+                TransactionStream transactions = new TransactionStream()
+                {
+                    @Override
+                    public void accept( Visitor<CommittedTransactionRepresentation, IOException> visitor )
+                            throws IOException
+                    {
+                        LogicalTransactionStore txStore = resolver.resolveDependency( LogicalTransactionStore.class );
+                        try ( IOCursor<CommittedTransactionRepresentation> cursor =
+                                      txStore.getTransactions( firstTransactionId ) )
+                        {
+                            while (cursor.next() && visitor.visit( cursor.get() ));
+                        }
+                    }
+                };
+                return new Response<>( null, original.storeId(), transactions, NO_OP );
+            }
+
+            @Override
+            public void done()
+            {
+            }
+        };
+        try
+        {
+            copier.copyStore( requester );
+            fail( "The first attempt should have been interrupted" );
+        }
+        catch ( ServerFailureException e )
+        {
+            // expected
+        }
+        copiedOnResume.clear();
+        createNode( original, "BetweenAttempts" );
+
+        // When
+        copier.copyStore( requester );
+
+        // Then
+        StoreCopyProgress resumed = progresses.get( 1 );
+        assertFalse( progresses.get( 0 ).isStarted() );
+        assertTrue( resumed.isStarted() );
+        assertEquals( original.storeId(), resumed.storeId() );
+        assertEquals( 2, resumed.completedFiles().size() );
+        for ( String path : resumed.completedFiles() )
+        {
+            assertFalse( copiedOnResume.contains( path ) );
+        }
+        assertFalse( new File( copyDir, StoreCopyProgress.START_FILE_NAME ).exists() );
+
+        GraphDatabaseService copy = new GraphDatabaseFactory().newEmbeddedDatabase( copyDir.getAbsolutePath() );
+        try ( Transaction tx = copy.beginTx() )
+        {
+            GlobalGraphOperations globalOps = GlobalGraphOperations.at( copy );
+            single( globalOps.getAllNodesWithLabel( label( "BeforeCopyBegins" ) ) );
+            single( globalOps.getAllNodesWithLabel( label( "BetweenAttempts" ) ) );
+            single( globalOps.getAllNodesWithLabel( label( "AfterCopy" ) ) );
+            tx.success();
+        }
+        finally
+        {
+            copy.shutdown();
+            original.shutdown();
+        }
+    }
+
+    private static void createNode( GraphDatabaseService db, String label )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.createNode( label( label ) );
+            tx.success();
+        }
+    }
+
+    private static class InterruptingStoreWriter implements StoreWriter
+    {
+        private final StoreWriter delegate;
+        private final List<String> written;
+        private int remainingFiles;
+
+        InterruptingStoreWriter( StoreWriter delegate, int files, List<String> written )
+        {
+            this.delegate = delegate;
+            this.remainingFiles = files;
+            this.written = written;
+        }
+
+        @Override
+        public int write( String path, ReadableByteChannel data, ByteBuffer temporaryBuffer, boolean hasData )
+                throws IOException
+        {
+            if ( remainingFiles-- == 0 )
+            {
+                throw new IOException( "Connection lost" );
+            }
+            written.add( path );
+            return delegate.write( path, data, temporaryBuffer, hasData );
+        }
+
+        @Override
+        public void close()
+        {
+            delegate.close();
+        }
+    }
+
     protected Predicate<CommittedTransactionRepresentation> upToAndIncluding( final long upToAndIncludingTxId )
     {
         return new Predicate<CommittedTransactionRepresentation>()
@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.com.storecopy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.nioneo.store.StoreId;
+import org.neo4j.test.TargetDirectory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StoreCopyProgressTest
+{
+    @Rule
+    public TargetDirectory.TestDirectory testDir = TargetDirectory.testDirForTest( getClass() );
+
+    private final StoreId storeId = new StoreId( 1, 2 );
+
+    @Test
+    public void shouldHaveNothingToResumeInAnEmptyDirectory() throws Exception
+    {
+        assertNull( StoreCopyProgress.read( testDir.directory() ) );
+    }
+
+    @Test
+    public void shouldReadTheStartAndTheCompletedFiles() throws Exception
+    {
+        // GIVEN
+        File directory = testDir.directory();
+        writeStart( directory, 42, storeId );
+        StoreCopyProgress.fileCompleted( directory, "neostore" );
+        StoreCopyProgress.fileCompleted( directory, "schema/label/lucene/segments_1" );
+
+        // WHEN
+        StoreCopyProgress progress = StoreCopyProgress.read( directory );
+
+        // THEN
+        assertTrue( progress.isStarted() );
+        assertEquals( 42, progress.startTransactionId() );
+        assertEquals( storeId, progress.storeId() );
+        assertEquals( new HashSet<>( Arrays.asList( "neostore", "schema/label/lucene/segments_1" ) ),
+                progress.completedFiles() );
+        assertFalse( progress.isCompleted( "neostore.nodestore.db" ) );
+    }
+
+    @Test
+    public void shouldSendTheProgressToTheServer() throws Exception
+    {
+        // GIVEN
+        StoreCopyProgress progress = new StoreCopyProgress( 42, storeId,
+                new HashSet<>( Arrays.asList( "neostore", "neostore.nodestore.db" ) ) );
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+
+        // WHEN
+        progress.serialize( buffer );
+        StoreCopyProgress received = StoreCopyProgress.deserialize( buffer );
+
+        // THEN
+        assertEquals( 42, received.startTransactionId() );
+        assertEquals( storeId, received.storeId() );
+        assertEquals( progress.completedFiles(), received.completedFiles() );
+    }
+
+    @Test
+    public void shouldSendACopyThatHasNotStartedToTheServer() throws Exception
+    {
+        // GIVEN
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+
+        // WHEN
+        StoreCopyProgress.notStarted().serialize( buffer );
+        StoreCopyProgress received = StoreCopyProgress.deserialize( buffer );
+
+        // THEN
+        assertFalse( received.isStarted() );
+        assertTrue( received.completedFiles().isEmpty() );
+    }
+
+    @Test
+    public void shouldKeepTheCopiedFilesWhenTheServerResumesTheCopy() throws Exception
+    {
+        // GIVEN
+        File directory = testDir.directory();
+        writeStart( directory, 42, storeId );
+        StoreCopyProgress.fileCompleted( directory, "neostore" );
+        File copied = createFile( directory, "neostore" );
+        StoreCopyProgress previous = StoreCopyProgress.read( directory );
+
+        // WHEN
+        writeStart( directory, 42, storeId );
+        StoreCopyProgress.startedAfter( directory, previous );
+
+        // THEN
+        assertTrue( copied.exists() );
+        assertTrue( StoreCopyProgress.read( directory ).isCompleted( "neostore" ) );
+    }
+
+    @Test
+    public void shouldStartOverWhenTheServerCopiesAnotherStore() throws Exception
+    {
+        // GIVEN
+        File directory = testDir.directory();
+        writeStart( directory, 42, storeId );
+        StoreCopyProgress.fileCompleted( directory, "neostore" );
+        File copied = createFile( directory, "neostore" );
+        StoreCopyProgress previous = StoreCopyProgress.read( directory );
+
+        // WHEN
+        writeStart( directory, 42, new StoreId( 3, 4 ) );
+        StoreCopyProgress.startedAfter( directory, previous );
+
+        // THEN
+        assertFalse( copied.exists() );
+        assertFalse( new File( directory, StoreCopyProgress.PROGRESS_FILE_NAME ).exists() );
+        assertTrue( new File( directory, StoreCopyProgress.START_FILE_NAME ).exists() );
+    }
+
+    @Test
+    public void shouldStartOverWhenTheServerCannotResumeFromTheSameTransaction() throws Exception
+    {
+        // GIVEN
+        File directory = testDir.directory();
+        writeStart( directory, 42, storeId );
+        StoreCopyProgress.fileCompleted( directory, "neostore" );
+        File copied = createFile( directory, "neostore" );
+        StoreCopyProgress previous = StoreCopyProgress.read( directory );
+
+        // WHEN
+        writeStart( directory, 100, storeId );
+        StoreCopyProgress.startedAfter( directory, previous );
+
+        // THEN
+        assertFalse( copied.exists() );
+    }
+
+    private void writeStart( File directory, long startTransactionId, StoreId storeId ) throws IOException
+    {
+        ByteBuffer start = StoreCopyProgress.startFileContents( startTransactionId, storeId );
+        try ( FileChannel channel = new FileOutputStream(
+                new File( directory, StoreCopyProgress.START_FILE_NAME ) ).getChannel() )
+        {
+            channel.write( start );
+        }
+    }
+
+    private File createFile( File directory, String name ) throws IOException
+    {
+        File file = new File( directory, name );
+        new FileOutputStream( file ).close();
+        return file;
+    }
+}
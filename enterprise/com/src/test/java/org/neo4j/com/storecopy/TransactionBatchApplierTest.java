@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.com.storecopy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.transaction.xaframework.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.kernel.monitoring.BackupMonitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TransactionBatchApplierTest
+{
+    private final Neo4jJobScheduler scheduler = new Neo4jJobScheduler();
+
+    @Before
+    public void startScheduler()
+    {
+        scheduler.init();
+    }
+
+    @After
+    public void stopScheduler()
+    {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldApplyAllQueuedTransactionsInOrderAndInBatches() throws Exception
+    {
+        // GIVEN
+        RecordingHandler handler = new RecordingHandler();
+        BackupMonitor monitor = mock( BackupMonitor.class );
+        List<CommittedTransactionRepresentation> transactions = transactions( 1000 );
+
+        // WHEN
+        try ( TransactionBatchApplier applier = new TransactionBatchApplier( scheduler, handler, 64, monitor ) )
+        {
+            for ( CommittedTransactionRepresentation transaction : transactions )
+            {
+                applier.queue( transaction );
+            }
+        }
+
+        // THEN
+        assertEquals( transactions, handler.applied );
+        assertTrue( "Largest batch was " + handler.largestBatch, handler.largestBatch <= 64 );
+        verify( monitor, atLeastOnce() ).appliedTransactionBatch( anyInt(), anyLong() );
+    }
+
+    @Test
+    public void shouldFailQueueingAfterApplyingFailed() throws Exception
+    {
+        // GIVEN
+        final IOException failure = new IOException( "Unable to apply" );
+        TransactionBatchApplier applier = new TransactionBatchApplier( scheduler,
+                new TransactionBatchApplier.BatchHandler()
+                {
+                    @Override
+                    public void apply( List<CommittedTransactionRepresentation> transactions ) throws IOException
+                    {
+                        throw failure;
+                    }
+                }, 10, BackupMonitor.NONE );
+
+        // WHEN
+        try
+        {
+            for ( CommittedTransactionRepresentation transaction : transactions( 1000 ) )
+            {
+                applier.queue( transaction );
+            }
+            applier.close();
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // THEN
+            assertSame( failure, e );
+        }
+        applier.close();
+    }
+
+    private List<CommittedTransactionRepresentation> transactions( int count )
+    {
+        List<CommittedTransactionRepresentation> transactions = new ArrayList<>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            transactions.add( mock( CommittedTransactionRepresentation.class ) );
+        }
+        return transactions;
+    }
+
+    private static class RecordingHandler implements TransactionBatchApplier.BatchHandler
+    {
+        private final List<CommittedTransactionRepresentation> applied = new ArrayList<>();
+        private int largestBatch;
+
+        @Override
+        public void apply( List<CommittedTransactionRepresentation> transactions )
+        {
+            applied.addAll( transactions );
+            largestBatch = Math.max( largestBatch, transactions.size() );
+        }
+    }
+}
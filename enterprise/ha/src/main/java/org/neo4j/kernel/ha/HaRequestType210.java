@@ -35,6 +35,7 @@ import org.neo4j.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.ha.com.master.HandshakeResult;
 import org.neo4j.kernel.ha.com.master.Master;
 import org.neo4j.kernel.ha.id.IdAllocation;
+import org.neo4j.kernel.ha.lock.LockBatch;
 import org.neo4j.kernel.ha.lock.LockResult;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
@@ -263,6 +264,42 @@ public enum HaRequestType210 implements RequestType<Master>
         }
     }, INTEGER_SERIALIZER ),
 
+    // ==== Since protocol version 8, see MasterClient220
+    STREAM_UPDATES( new TargetCaller<Master, Void>()
+    {
+        @Override
+        public Response<Void> call( Master master, RequestContext context, ChannelBuffer input,
+                ChannelBuffer target )
+        {
+            return master.streamUpdates( context, input.readLong() );
+        }
+    }, VOID_SERIALIZER ),
+
+    // ==== Since protocol version 8, see MasterClient220
+    ACQUIRE_LOCKS( new TargetCaller<Master, LockResult>()
+    {
+        @Override
+        public Response<LockResult> call( Master master, RequestContext context, ChannelBuffer input,
+                ChannelBuffer target )
+        {
+            LockBatch locks = new LockBatch();
+            int count = input.readInt();
+            for ( int i = 0; i < count; i++ )
+            {
+                boolean exclusive = input.readByte() == 1;
+                locks.add( exclusive, ResourceTypes.fromId( input.readInt() ), readResourceIds( input ) );
+            }
+            return master.acquireLocks( context, locks );
+        }
+    }, LOCK_SERIALIZER )
+    {
+        @Override
+        public boolean isLock()
+        {
+            return true;
+        }
+    },
+
     ;
 
 
@@ -300,6 +337,16 @@ public enum HaRequestType210 implements RequestType<Master>
         return false;
     }
 
+    private static long[] readResourceIds( ChannelBuffer input )
+    {
+        long[] ids = new long[input.readInt()];
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            ids[i] = input.readLong();
+        }
+        return ids;
+    }
+
     private static abstract class AquireLockCall implements TargetCaller<Master, LockResult>
     {
         @Override
@@ -307,12 +354,7 @@ public enum HaRequestType210 implements RequestType<Master>
                                           ChannelBuffer input, ChannelBuffer target )
         {
             Locks.ResourceType type = ResourceTypes.fromId( input.readInt() );
-            long[] ids = new long[input.readInt()];
-            for ( int i = 0; i < ids.length; i++ )
-            {
-                ids[i] = input.readLong();
-            }
-            return lock( master, context, type, ids );
+            return lock( master, context, type, readResourceIds( input ) );
         }
 
         protected abstract Response<LockResult> lock( Master master, RequestContext context, Locks.ResourceType type,
@@ -52,6 +52,31 @@ public class HaSettings
     @Description( "Timeout for taking remote (write) locks on slaves. Defaults to ha.read_timeout." )
     public static final Setting<Long> lock_read_timeout = setting( "ha.lock_read_timeout", DURATION, read_timeout );
 
+    @Description( "Whether slaves should defer taking exclusive node and relationship locks on the master and send " +
+            "them in batches, at the latest right before committing, instead of making one round trip to the master " +
+            "per lock. Locks explicitly taken by the application are deferred too, so they no longer guarantee " +
+            "that values read afterwards are up to date before commit, and transactions on the same slave that " +
+            "contend for the same node or relationship fail with a deadlock instead of waiting for each other. " +
+            "Requires all cluster members to support it." )
+    public static final Setting<Boolean> slave_lock_batching = setting( "ha.slave_lock_batching", BOOLEAN,
+            Settings.FALSE );
+
+    @Description( "Maximum number of deferred locks a slave collects before sending them to the master, " +
+            "when ha.slave_lock_batching is enabled." )
+    public static final Setting<Integer> slave_lock_batch_size = setting( "ha.slave_lock_batch_size", INTEGER,
+            "1000", min( 1 ) );
+
+    @Description( "Whether slaves should request new id ranges from the master in the background, before the ones " +
+            "they have run out, instead of making the transaction that needs a new id wait for the round trip." )
+    public static final Setting<Boolean> slave_id_prefetch = setting( "ha.slave_id_prefetch", BOOLEAN,
+            Settings.FALSE );
+
+    @Description( "Maximum number of id ranges per id type a slave requests from the master in one go, when " +
+            "ha.slave_id_prefetch is enabled. Slaves creating many entities request more ranges at a time, up " +
+            "to this limit." )
+    public static final Setting<Integer> slave_id_prefetch_max_ranges = setting( "ha.slave_id_prefetch_max_ranges",
+            INTEGER, "16", min( 1 ) );
+
     @Description( "Maximum number of connections a slave can have to the master." )
     public static final Setting<Integer> max_concurrent_channels_per_slave =
             setting( "ha.max_concurrent_channels_per_slave", INTEGER, "20", min( 1 ) );
@@ -72,9 +97,39 @@ public class HaSettings
     public static final Setting<Long> com_chunk_size =
             setting( "ha.com_chunk_size", BYTES, "2M", min( 1024L ) );
 
+    @Description( "Whether slaves should ask the master to compress the transactions it sends them. Trades CPU " +
+            "for bandwidth, which pays off on slow links such as between data centers." )
+    public static final Setting<Boolean> com_compress_tx_streams = setting( "ha.com_compress_tx_streams", BOOLEAN,
+            Settings.FALSE );
+
+    @Description( "Whether instances should ask the master to compress the store files it sends them when " +
+            "copying the store." )
+    public static final Setting<Boolean> com_compress_store_copy = setting( "ha.com_compress_store_copy", BOOLEAN,
+            Settings.FALSE );
+
     @Description( "Interval of pulling updates from master." )
     public static final Setting<Long> pull_interval = setting( "ha.pull_interval", DURATION, "0s" );
 
+    @Description( "Whether slaves should keep a replication stream open to the master, receiving transactions as " +
+            "soon as they are committed there instead of pulling them every ha.pull_interval. Slaves of a master " +
+            "that doesn't support replication streams pull updates from it every ha.pull_interval instead, or " +
+            "every ha.tx_stream_max_wait if no pull interval is set." )
+    public static final Setting<Boolean> tx_stream_enabled = setting( "ha.tx_stream_enabled", BOOLEAN,
+            Settings.FALSE );
+
+    @Description( "How long the master holds a replication stream request open while waiting for new " +
+            "transactions. Must be well below ha.read_timeout." )
+    public static final Setting<Long> tx_stream_max_wait = setting( "ha.tx_stream_max_wait", DURATION, "5s" );
+
+    @Description( "Maximum number of transactions the master sends to a slave in one replication stream batch." )
+    public static final Setting<Integer> tx_stream_batch_size = setting( "ha.tx_stream_batch_size", INTEGER,
+            "1000", min( 1 ) );
+
+    @Description( "How long the master waits for more transactions to fill up a replication stream batch, once " +
+            "there is at least one transaction to send." )
+    public static final Setting<Long> tx_stream_batch_delay = setting( "ha.tx_stream_batch_delay", DURATION,
+            "2ms" );
+
     @Description( "The amount of slaves the master will ask to replicate a committed transaction. " )
     public static final Setting<Integer> tx_push_factor = setting( "ha.tx_push_factor", INTEGER, "1", min( 0 ) );
 
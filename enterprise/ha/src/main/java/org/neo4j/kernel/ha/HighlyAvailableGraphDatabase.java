@@ -33,6 +33,7 @@ import org.neo4j.cluster.com.BindingNotifier;
 import org.neo4j.cluster.logging.NettyLoggerFactory;
 import org.neo4j.cluster.member.ClusterMemberAvailability;
 import org.neo4j.cluster.member.ClusterMemberEvents;
+import org.neo4j.cluster.member.ClusterMemberListener;
 import org.neo4j.cluster.member.paxos.MemberIsAvailable;
 import org.neo4j.cluster.member.paxos.PaxosClusterMemberAvailability;
 import org.neo4j.cluster.member.paxos.PaxosClusterMemberEvents;
@@ -41,11 +42,13 @@ import org.neo4j.cluster.protocol.cluster.ClusterConfiguration;
 import org.neo4j.cluster.protocol.cluster.ClusterListener;
 import org.neo4j.cluster.protocol.election.ElectionCredentialsProvider;
 import org.neo4j.cluster.protocol.election.NotElectableElectionCredentialsProvider;
+import org.neo4j.com.monitor.ChunkCompressionStatistics;
 import org.neo4j.com.storecopy.TransactionCommittingResponseUnpacker;
 import org.neo4j.graphdb.DependencyResolver;
 import org.neo4j.graphdb.TransactionFailureException;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.graphdb.index.IndexManager;
+import org.neo4j.helpers.Clock;
 import org.neo4j.helpers.Factory;
 import org.neo4j.helpers.Predicate;
 import org.neo4j.helpers.Provider;
@@ -81,6 +84,7 @@ import org.neo4j.kernel.ha.management.ClusterDatabaseInfoProvider;
 import org.neo4j.kernel.ha.management.HighlyAvailableKernelData;
 import org.neo4j.kernel.ha.transaction.CommitPusher;
 import org.neo4j.kernel.ha.transaction.OnDiskLastTxIdGetter;
+import org.neo4j.kernel.ha.transaction.ReplicationStreams;
 import org.neo4j.kernel.ha.transaction.TransactionPropagator;
 import org.neo4j.kernel.impl.api.TransactionCommitProcess;
 import org.neo4j.kernel.impl.api.TransactionHeaderInformation;
@@ -112,6 +116,8 @@ public class HighlyAvailableGraphDatabase extends InternalAbstractGraphDatabase
             = iterable( GraphDatabaseSettings.class, HaSettings.class, ClusterSettings.class );
     private RequestContextFactory requestContextFactory;
     private Slaves slaves;
+    private ReplicationStreams replicationStreams;
+    private ChunkCompressionStatistics compressionStatistics;
     private ClusterMembers members;
     private DelegateInvocationHandler<Master> masterDelegateInvocationHandler;
     private Master master;
@@ -278,6 +284,8 @@ public class HighlyAvailableGraphDatabase extends InternalAbstractGraphDatabase
 
         ObjectStreamFactory objectStreamFactory = new ObjectStreamFactory();
 
+        compressionStatistics = new ChunkCompressionStatistics();
+        monitors.addMonitorListener( compressionStatistics );
 
         clusterClient = new ClusterClient( monitors, ClusterClient.adapt( config ), logging,
                 electionCredentialsProvider,
@@ -335,7 +343,7 @@ public class HighlyAvailableGraphDatabase extends InternalAbstractGraphDatabase
                 .getServerId(), config.get( HaSettings.slave_only ) );
         PaxosClusterMemberAvailability localClusterMemberAvailability = new PaxosClusterMemberAvailability(
                 clusterClient.getServerId(), clusterClient, clusterClient, logging, objectStreamFactory,
-                objectStreamFactory );
+                objectStreamFactory, config.get( ClusterSettings.binary_messages ) );
 
         memberContextDelegateInvocationHandler.setDelegate( localMemberContext );
         clusterEventsDelegateInvocationHandler.setDelegate( localClusterEvents );
@@ -396,8 +404,33 @@ public class HighlyAvailableGraphDatabase extends InternalAbstractGraphDatabase
         slaves = life.add( new HighAvailabilitySlaves( members, clusterClient,
                 this.slaveFactory = new DefaultSlaveFactory( logging, monitors, config.get( HaSettings.com_chunk_size ).intValue() ) ) );
 
+        replicationStreams = new ReplicationStreams( Clock.SYSTEM_CLOCK,
+                Math.max( config.get( HaSettings.tx_stream_max_wait ), config.get( HaSettings.pull_interval ) ) +
+                        config.get( HaSettings.read_timeout ) );
+        clusterEvents.addClusterMemberListener( new ClusterMemberListener.Adapter()
+        {
+            @Override
+            public void memberIsUnavailable( String role, InstanceId unavailableId )
+            {
+                if ( HighAvailabilityModeSwitcher.SLAVE.equals( role ) )
+                {
+                    replicationStreams.slaveLeft( unavailableId.toIntegerIndex() );
+                }
+                else if ( HighAvailabilityModeSwitcher.MASTER.equals( role ) &&
+                        unavailableId.equals( config.get( ClusterSettings.server_id ) ) )
+                {
+                    replicationStreams.allSlavesLeft();
+                }
+            }
+
+            @Override
+            public void memberIsFailed( InstanceId instanceId )
+            {
+                replicationStreams.slaveLeft( instanceId.toIntegerIndex() );
+            }
+        } );
         final TransactionPropagator pusher = life.add (new TransactionPropagator( TransactionPropagator.from( config ),
-                msgLog, slaves, new CommitPusher( jobScheduler ) ) );
+                msgLog, slaves, new CommitPusher( jobScheduler ), replicationStreams ) );
 
         return new CommitProcessFactory()
         {
@@ -419,7 +452,8 @@ public class HighlyAvailableGraphDatabase extends InternalAbstractGraphDatabase
     protected IdGeneratorFactory createIdGeneratorFactory()
     {
         idGeneratorFactory = new HaIdGeneratorFactory( masterDelegateInvocationHandler, logging,
-                requestContextFactory );
+                requestContextFactory, config.get( HaSettings.slave_id_prefetch ),
+                config.get( HaSettings.slave_id_prefetch_max_ranges ), monitors );
         SwitchToSlave switchToSlaveInstance = new SwitchToSlave( logging.getConsoleLog(
                 HighAvailabilityModeSwitcher.class ), config, getDependencyResolver(),
                 (HaIdGeneratorFactory) idGeneratorFactory,
@@ -648,6 +682,14 @@ public class HighlyAvailableGraphDatabase extends InternalAbstractGraphDatabase
                     {
                         result = type.cast( slaves );
                     }
+                    else if ( ReplicationStreams.class.isAssignableFrom( type ) )
+                    {
+                        result = type.cast( replicationStreams );
+                    }
+                    else if ( ChunkCompressionStatistics.class.isAssignableFrom( type ) )
+                    {
+                        result = type.cast( compressionStatistics );
+                    }
                     else if ( ClusterClient.class.isAssignableFrom( type ) )
                     {
                         result = type.cast( clusterClient );
@@ -39,6 +39,7 @@ import org.neo4j.kernel.ha.com.master.MasterImpl;
 import org.neo4j.kernel.ha.com.master.MasterServer;
 import org.neo4j.kernel.ha.com.slave.MasterClient;
 import org.neo4j.kernel.ha.id.IdAllocation;
+import org.neo4j.kernel.ha.lock.LockBatch;
 import org.neo4j.kernel.ha.lock.LockResult;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
@@ -308,6 +309,20 @@ public class MasterClient201 extends Client<Master> implements MasterClient
         return sendRequest( HaRequestType201.PULL_UPDATES, context, EMPTY_SERIALIZER, VOID_DESERIALIZER );
     }
 
+    @Override
+    public Response<Void> streamUpdates( RequestContext context, long maxWaitMillis )
+    {
+        throw new UnsupportedOperationException( "Replication streams are not supported by masters using protocol " +
+                "version " + PROTOCOL_VERSION );
+    }
+
+    @Override
+    public Response<LockResult> acquireLocks( RequestContext context, LockBatch locks )
+    {
+        throw new UnsupportedOperationException( "Batched lock requests are not supported by masters using " +
+                "protocol version " + PROTOCOL_VERSION );
+    }
+
     @Override
     public Response<HandshakeResult> handshake( final long txId, StoreId storeId )
     {
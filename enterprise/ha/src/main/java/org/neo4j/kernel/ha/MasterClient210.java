@@ -38,6 +38,7 @@ import org.neo4j.kernel.ha.com.master.Master;
 import org.neo4j.kernel.ha.com.master.MasterServer;
 import org.neo4j.kernel.ha.com.slave.MasterClient;
 import org.neo4j.kernel.ha.id.IdAllocation;
+import org.neo4j.kernel.ha.lock.LockBatch;
 import org.neo4j.kernel.ha.lock.LockResult;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.nioneo.store.IdRange;
@@ -70,14 +71,35 @@ public class MasterClient210 extends Client<Master> implements MasterClient
     public static final byte PROTOCOL_VERSION = 7;
 
     private final long lockReadTimeout;
+    private final boolean compressTxStreams;
+    private final boolean compressStoreCopy;
     private final ByteCounterMonitor monitor;
 
     public MasterClient210( String hostNameOrIp, int port, Logging logging, Monitors monitors, StoreId storeId,
                             long readTimeoutSeconds, long lockReadTimeout, int maxConcurrentChannels, int chunkSize )
     {
-        super( hostNameOrIp, port, logging, monitors, storeId, MasterServer.FRAME_LENGTH, PROTOCOL_VERSION,
+        this( hostNameOrIp, port, logging, monitors, storeId, readTimeoutSeconds, lockReadTimeout,
+                maxConcurrentChannels, chunkSize, false, false );
+    }
+
+    public MasterClient210( String hostNameOrIp, int port, Logging logging, Monitors monitors, StoreId storeId,
+                            long readTimeoutSeconds, long lockReadTimeout, int maxConcurrentChannels, int chunkSize,
+                            boolean compressTxStreams, boolean compressStoreCopy )
+    {
+        this( hostNameOrIp, port, logging, monitors, storeId, PROTOCOL_VERSION, readTimeoutSeconds, lockReadTimeout,
+                maxConcurrentChannels, chunkSize, compressTxStreams, compressStoreCopy );
+    }
+
+    protected MasterClient210( String hostNameOrIp, int port, Logging logging, Monitors monitors, StoreId storeId,
+                               byte protocolVersion, long readTimeoutSeconds, long lockReadTimeout,
+                               int maxConcurrentChannels, int chunkSize, boolean compressTxStreams,
+                               boolean compressStoreCopy )
+    {
+        super( hostNameOrIp, port, logging, monitors, storeId, MasterServer.FRAME_LENGTH, protocolVersion,
                 readTimeoutSeconds, maxConcurrentChannels, chunkSize );
         this.lockReadTimeout = lockReadTimeout;
+        this.compressTxStreams = compressTxStreams;
+        this.compressStoreCopy = compressStoreCopy;
         this.monitor = monitors.newMonitor( ByteCounterMonitor.class, getClass() );
     }
 
@@ -102,6 +124,13 @@ public class MasterClient210 extends Client<Master> implements MasterClient
         return type != HaRequestType210.COPY_STORE;
     }
 
+    @Override
+    protected boolean shouldCompressResponse( RequestType<Master> type )
+    {
+        // All other responses may carry transactions the slave is missing. Small ones will be sent uncompressed
+        return type == HaRequestType210.COPY_STORE ? compressStoreCopy : compressTxStreams;
+    }
+
     @Override
     public Response<IdAllocation> allocateIds( RequestContext context, final IdType idType )
     {
@@ -208,6 +237,13 @@ public class MasterClient210 extends Client<Master> implements MasterClient
                 new AcquireLockSerializer( type, resourceIds ), LOCK_RESULT_DESERIALIZER );
     }
 
+    @Override
+    public Response<LockResult> acquireLocks( RequestContext context, LockBatch locks )
+    {
+        throw new UnsupportedOperationException( "Batched lock requests are not supported by masters using " +
+                "protocol version " + PROTOCOL_VERSION );
+    }
+
     @Override
     public Response<Long> commitSingleResourceTransaction( RequestContext context, TransactionRepresentation tx )
     {
@@ -249,6 +285,13 @@ public class MasterClient210 extends Client<Master> implements MasterClient
         return sendRequest( HaRequestType210.PULL_UPDATES, context, EMPTY_SERIALIZER, VOID_DESERIALIZER );
     }
 
+    @Override
+    public Response<Void> streamUpdates( RequestContext context, long maxWaitMillis )
+    {
+        throw new UnsupportedOperationException( "Replication streams are not supported by masters using protocol " +
+                "version " + PROTOCOL_VERSION );
+    }
+
     @Override
     public Response<HandshakeResult> handshake( final long txId, StoreId storeId )
     {
@@ -323,4 +366,25 @@ public class MasterClient210 extends Client<Master> implements MasterClient
             }
         }
     }
+
+    protected static class LockBatchSerializer implements Serializer
+    {
+        private final LockBatch locks;
+
+        LockBatchSerializer( LockBatch locks )
+        {
+            this.locks = locks;
+        }
+
+        @Override
+        public void write( ChannelBuffer buffer ) throws IOException
+        {
+            buffer.writeInt( locks.size() );
+            for ( LockBatch.Request request : locks )
+            {
+                buffer.writeByte( request.isExclusive() ? 1 : 0 );
+                new AcquireLockSerializer( request.type(), request.resourceIds() ).write( buffer );
+            }
+        }
+    }
 }
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha;
+
+import java.io.IOException;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import org.neo4j.com.RequestContext;
+import org.neo4j.com.Response;
+import org.neo4j.com.Serializer;
+import org.neo4j.kernel.ha.lock.LockBatch;
+import org.neo4j.kernel.ha.lock.LockResult;
+import org.neo4j.kernel.impl.nioneo.store.StoreId;
+import org.neo4j.kernel.logging.Logging;
+import org.neo4j.kernel.monitoring.Monitors;
+
+import static org.neo4j.com.Protocol.VOID_DESERIALIZER;
+
+/**
+ * Talks to masters that also serve the request types added after {@link MasterClient210}, i.e. replication streams
+ * and batched lock requests.
+ * Those request types are never sent to masters using an older protocol version, since such masters do not answer
+ * requests they don't know of.
+ */
+public class MasterClient220 extends MasterClient210
+{
+    /* Version 8 adds STREAM_UPDATES and ACQUIRE_LOCKS
+     */
+    public static final byte PROTOCOL_VERSION = 8;
+
+    public MasterClient220( String hostNameOrIp, int port, Logging logging, Monitors monitors, StoreId storeId,
+                            long readTimeoutSeconds, long lockReadTimeout, int maxConcurrentChannels, int chunkSize )
+    {
+        this( hostNameOrIp, port, logging, monitors, storeId, readTimeoutSeconds, lockReadTimeout,
+                maxConcurrentChannels, chunkSize, false, false );
+    }
+
+    public MasterClient220( String hostNameOrIp, int port, Logging logging, Monitors monitors, StoreId storeId,
+                            long readTimeoutSeconds, long lockReadTimeout, int maxConcurrentChannels, int chunkSize,
+                            boolean compressTxStreams, boolean compressStoreCopy )
+    {
+        super( hostNameOrIp, port, logging, monitors, storeId, PROTOCOL_VERSION, readTimeoutSeconds, lockReadTimeout,
+                maxConcurrentChannels, chunkSize, compressTxStreams, compressStoreCopy );
+    }
+
+    @Override
+    public Response<Void> streamUpdates( RequestContext context, final long maxWaitMillis )
+    {
+        return sendRequest( HaRequestType210.STREAM_UPDATES, context, new Serializer()
+        {
+            @Override
+            public void write( ChannelBuffer buffer ) throws IOException
+            {
+                buffer.writeLong( maxWaitMillis );
+            }
+        }, VOID_DESERIALIZER );
+    }
+
+    @Override
+    public Response<LockResult> acquireLocks( RequestContext context, LockBatch locks )
+    {
+        return sendRequest( HaRequestType210.ACQUIRE_LOCKS, context, new LockBatchSerializer( locks ),
+                LOCK_RESULT_DESERIALIZER );
+    }
+}
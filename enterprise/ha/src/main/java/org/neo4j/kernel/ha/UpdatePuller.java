@@ -40,8 +40,16 @@ import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.kernel.lifecycle.Lifecycle;
 
+/**
+ * Keeps a slave up to date with its master. Either by pulling updates every {@link HaSettings#pull_interval}, or, if
+ * {@link HaSettings#tx_stream_enabled} is set, by keeping a replication stream open to the master, through which
+ * transactions arrive shortly after they have been committed on the master. A master that does not support
+ * replication streams is pulled from instead, until another master is elected.
+ */
 public class UpdatePuller implements Lifecycle
 {
+    private static final long STREAM_RETRY_INTERVAL = 1000;
+
     private final HighAvailabilityMemberStateMachine memberStateMachine;
     private final Master master;
     private final RequestContextFactory requestContextFactory;
@@ -53,6 +61,8 @@ public class UpdatePuller implements Lifecycle
     private final CappedOperation<Pair<String, ? extends Exception>> cappedLogger;
     private final TransactionCommittingResponseUnpacker unpacker;
     private volatile boolean pullUpdates = false;
+    private volatile UpdateStreamer streamer;
+    private volatile boolean masterSupportsStreams = true;
     private final UpdatePullerHighAvailabilityMemberListener listener;
 
     public UpdatePuller( HighAvailabilityMemberStateMachine memberStateMachine, Master master,
@@ -94,11 +104,23 @@ public class UpdatePuller implements Lifecycle
         }
     }
 
+    private void streamUpdates( long maxWaitMillis ) throws IOException
+    {
+        if ( availabilityGuard.isAvailable( 5000 ) )
+        {
+            Response<Void> response = master.streamUpdates( requestContextFactory.newRequestContext( -3 ),
+                    maxWaitMillis );
+
+            unpacker.unpackResponse( response );
+            lastUpdateTime.setLastUpdateTime( System.currentTimeMillis() );
+        }
+    }
+
     @Override
     public void init() throws Throwable
     {
         long pullInterval = config.get( HaSettings.pull_interval );
-        if ( pullInterval > 0 )
+        if ( pullInterval > 0 && !config.get( HaSettings.tx_stream_enabled ) )
         {
             scheduler.scheduleRecurring( JobScheduler.Group.pullUpdates, new Runnable()
             {
@@ -132,11 +154,19 @@ public class UpdatePuller implements Lifecycle
     {
         this.pullUpdates = true;
         memberStateMachine.addHighAvailabilityMemberListener( listener );
+        if ( config.get( HaSettings.tx_stream_enabled ) )
+        {
+            long maxWait = config.get( HaSettings.tx_stream_max_wait );
+            long pullInterval = config.get( HaSettings.pull_interval );
+            this.streamer = new UpdateStreamer( maxWait, pullInterval > 0 ? pullInterval : maxWait );
+            scheduler.schedule( JobScheduler.Group.pullUpdates, streamer );
+        }
     }
 
     @Override
     public void stop() throws Throwable
     {
+        this.streamer = null;
         this.pullUpdates = false;
         memberStateMachine.removeHighAvailabilityMemberListener( listener );
     }
@@ -146,6 +176,78 @@ public class UpdatePuller implements Lifecycle
     {
     }
 
+    /**
+     * Asks the master for updates over and over, for as long as this instance is a running slave. Each request
+     * returns as soon as there are new transactions on the master, or after the max wait if there are none. If the
+     * master doesn't support replication streams, updates are pulled from it every fallback interval instead.
+     */
+    private class UpdateStreamer implements Runnable
+    {
+        private final long maxWaitMillis;
+        private final long fallbackPullIntervalMillis;
+
+        UpdateStreamer( long maxWaitMillis, long fallbackPullIntervalMillis )
+        {
+            this.maxWaitMillis = maxWaitMillis;
+            this.fallbackPullIntervalMillis = fallbackPullIntervalMillis;
+        }
+
+        @Override
+        public void run()
+        {
+            // A streamer started by an earlier start() may still be finishing its last request, hence the identity check
+            while ( streamer == this )
+            {
+                if ( !pullUpdates )
+                {
+                    pause( STREAM_RETRY_INTERVAL );
+                    continue;
+                }
+                try
+                {
+                    if ( masterSupportsStreams )
+                    {
+                        streamUpdates( maxWaitMillis );
+                    }
+                    else
+                    {
+                        pullUpdates();
+                        pause( fallbackPullIntervalMillis );
+                    }
+                }
+                catch ( UnsupportedOperationException e )
+                {
+                    masterSupportsStreams = false;
+                    logger.info( "The master does not support replication streams, pulling updates every " +
+                            fallbackPullIntervalMillis + "ms instead" );
+                }
+                catch ( ComException e )
+                {
+                    cappedLogger.event( Pair.of( "Streaming updates failed due to network error.", e ) );
+                    pause( STREAM_RETRY_INTERVAL );
+                }
+                catch ( Exception e )
+                {
+                    logger.logMessage( "Streaming updates failed", e );
+                    pause( STREAM_RETRY_INTERVAL );
+                }
+            }
+        }
+
+        private void pause( long millis )
+        {
+            try
+            {
+                Thread.sleep( millis );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                streamer = null;
+            }
+        }
+    }
+
     private class UpdatePullerHighAvailabilityMemberListener extends HighAvailabilityMemberListener.Adapter
     {
         private final InstanceId myInstanceId;
@@ -169,6 +271,8 @@ public class UpdatePuller implements Lifecycle
         {
             if ( event.getInstanceId().equals( myInstanceId ) )
             {
+                // The master may have changed, so give replication streams another try
+                masterSupportsStreams = true;
                 pullUpdates = true;
             }
         }
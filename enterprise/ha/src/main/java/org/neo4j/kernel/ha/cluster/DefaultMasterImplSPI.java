@@ -37,6 +37,7 @@ import org.neo4j.kernel.IdType;
 import org.neo4j.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.ha.com.master.MasterImpl;
 import org.neo4j.kernel.ha.id.IdAllocation;
+import org.neo4j.kernel.ha.transaction.ReplicationStreams;
 import org.neo4j.kernel.impl.api.TransactionCommitProcess;
 import org.neo4j.kernel.impl.core.LabelTokenHolder;
 import org.neo4j.kernel.impl.core.PropertyKeyTokenHolder;
@@ -66,6 +67,7 @@ class DefaultMasterImplSPI implements MasterImpl.SPI
     private final FileSystemAbstraction fileSystem;
     private final File storeDir;
     private final ResponsePacker responsePacker;
+    private final ReplicationStreams replicationStreams;
 
     public DefaultMasterImplSPI( GraphDatabaseAPI graphDb, Logging logging, Monitors monitors )
     {
@@ -81,6 +83,8 @@ class DefaultMasterImplSPI implements MasterImpl.SPI
         this.storeDir = new File( graphDb.getStoreDir() );
         this.txStore = dependencyResolver.resolveDependency( LogicalTransactionStore.class );
         this.responsePacker = new ResponsePacker( txStore, transactionIdStore, graphDb );
+        this.replicationStreams = dependencyResolver.resolveDependency( ReplicationStreams.class );
+        this.replicationStreams.committed( transactionIdStore.getLastCommittingTransactionId() );
     }
 
     @Override
@@ -162,6 +166,24 @@ class DefaultMasterImplSPI implements MasterImpl.SPI
         return responsePacker.packResponse( context, response, wrapLongFilter( filter ) );
     }
 
+    @Override
+    public <T> Response<T> packResponse( RequestContext context, T response, long upToAndIncludingTxId )
+    {
+        return responsePacker.packResponse( context, response, upToAndIncludingTxId );
+    }
+
+    @Override
+    public boolean awaitTransactionsCommittedAfter( long txId, long timeoutMillis ) throws InterruptedException
+    {
+        return replicationStreams.awaitCommittedAfter( txId, timeoutMillis );
+    }
+
+    @Override
+    public void slaveApplied( int machineId, long txId )
+    {
+        replicationStreams.slaveApplied( machineId, txId );
+    }
+
     // TODO there should be no need to wrap this here, provide the proper predicate type from the outside
     // directly instead
     private Predicate<CommittedTransactionRepresentation> wrapLongFilter( final Predicate<Long> filter )
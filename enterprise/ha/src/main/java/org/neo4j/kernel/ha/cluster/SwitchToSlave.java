@@ -124,7 +124,9 @@ public class SwitchToSlave
                 config.get( HaSettings.read_timeout ).intValue(),
                 config.get( HaSettings.lock_read_timeout ).intValue(),
                 config.get( HaSettings.max_concurrent_channels_per_slave ).intValue(),
-                config.get( HaSettings.com_chunk_size ).intValue()  );
+                config.get( HaSettings.com_chunk_size ).intValue(),
+                config.get( HaSettings.com_compress_tx_streams ),
+                config.get( HaSettings.com_compress_store_copy ) );
     }
 
     public URI switchToSlave( LifeSupport haCommunicationLife, URI me, URI masterUri ) throws Throwable
@@ -27,6 +27,7 @@ import org.neo4j.com.storecopy.StoreWriter;
 import org.neo4j.kernel.IdType;
 import org.neo4j.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.ha.id.IdAllocation;
+import org.neo4j.kernel.ha.lock.LockBatch;
 import org.neo4j.kernel.ha.lock.LockResult;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.nioneo.store.StoreId;
@@ -84,9 +85,23 @@ public interface Master
 
     Response<Void> pullUpdates( RequestContext context );
 
+    /**
+     * Like {@link #pullUpdates(RequestContext)}, but if the caller already has all transactions this waits up to
+     * {@code maxWaitMillis} for new ones to be committed, so that a slave calling this in a loop receives
+     * transactions shortly after they have been committed on the master.
+     */
+    Response<Void> streamUpdates( RequestContext context, long maxWaitMillis );
+
     Response<Void> copyStore( RequestContext context, StoreWriter writer );
 
     Response<LockResult> acquireExclusiveLock( RequestContext context, Locks.ResourceType type, long... resourceIds );
 
     Response<LockResult> acquireSharedLock( RequestContext context, Locks.ResourceType type, long... resourceIds );
+
+    /**
+     * Acquires all locks in the batch, in order, on behalf of the specified context. Unlike the single lock
+     * methods this doesn't require {@link #initializeTx(RequestContext)} to have been called first, the first
+     * batch for a context creates its lock client on the master.
+     */
+    Response<LockResult> acquireLocks( RequestContext context, LockBatch locks );
 }
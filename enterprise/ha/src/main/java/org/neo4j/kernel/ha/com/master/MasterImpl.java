@@ -49,6 +49,7 @@ import org.neo4j.kernel.IdType;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.ha.HaSettings;
 import org.neo4j.kernel.ha.id.IdAllocation;
+import org.neo4j.kernel.ha.lock.LockBatch;
 import org.neo4j.kernel.ha.lock.LockResult;
 import org.neo4j.kernel.ha.lock.LockStatus;
 import org.neo4j.kernel.impl.locking.Locks;
@@ -98,6 +99,16 @@ public class MasterImpl extends LifecycleAdapter implements Master
 
         <T> Response<T> packResponse( RequestContext context, T response, Predicate<Long> filter );
 
+        <T> Response<T> packResponse( RequestContext context, T response, long upToAndIncludingTxId );
+
+        /**
+         * @return {@code true} if a transaction with an id higher than {@code txId} has been committed,
+         * {@code false} if none was committed within the given timeout.
+         */
+        boolean awaitTransactionsCommittedAfter( long txId, long timeoutMillis ) throws InterruptedException;
+
+        void slaveApplied( int machineId, long txId );
+
         int getOrCreateLabel( String name );
 
         int getOrCreateProperty( String name );
@@ -112,6 +123,8 @@ public class MasterImpl extends LifecycleAdapter implements Master
     private final Config config;
     private final Monitor monitor;
     private final long epoch;
+    private final int streamBatchSize;
+    private final long streamBatchDelay;
 
     private Map<RequestContext, TimestampedLockClient> slaveLockState = new ConcurrentHashMap<>();
     private ScheduledExecutorService staleSlaveReaper;
@@ -124,6 +137,8 @@ public class MasterImpl extends LifecycleAdapter implements Master
         this.config = config;
         this.monitor = monitor;
         this.epoch = generateEpoch();
+        this.streamBatchSize = config.get( HaSettings.tx_stream_batch_size );
+        this.streamBatchDelay = config.get( HaSettings.tx_stream_batch_delay );
     }
 
     private long generateEpoch()
@@ -150,6 +165,12 @@ public class MasterImpl extends LifecycleAdapter implements Master
 
     @Override
     public Response<Void> initializeTx( RequestContext context )
+    {
+        initializeTx0( context );
+        return packResponse( context, null );
+    }
+
+    private void initializeTx0( RequestContext context )
     {
         monitor.initializeTx( context );
 
@@ -162,7 +183,6 @@ public class MasterImpl extends LifecycleAdapter implements Master
 
         TimestampedLockClient locks = new TimestampedLockClient( spi.acquireClient() );
         slaveLockState.put( context, locks );
-        return packResponse( context, null );
     }
 
     /**
@@ -173,6 +193,7 @@ public class MasterImpl extends LifecycleAdapter implements Master
      * o {@link #copyStore(RequestContext, StoreWriter)}
      * o {@link #copyTransactions(RequestContext, String, long, long)}
      * o {@link #pullUpdates(RequestContext)}
+     * o {@link #streamUpdates(RequestContext, long)}
      *
      * all other methods must have this.
      * @param context the request context containing the epoch the request thinks it's for.
@@ -297,9 +318,31 @@ public class MasterImpl extends LifecycleAdapter implements Master
     @Override
     public Response<Void> pullUpdates( RequestContext context )
     {
+        spi.slaveApplied( context.machineId(), context.lastAppliedTransaction() );
         return packResponse( context, null );
     }
 
+    @Override
+    public Response<Void> streamUpdates( RequestContext context, long maxWaitMillis )
+    {
+        long lastApplied = context.lastAppliedTransaction();
+        spi.slaveApplied( context.machineId(), lastApplied );
+        try
+        {
+            if ( spi.awaitTransactionsCommittedAfter( lastApplied, maxWaitMillis ) && streamBatchDelay > 0 )
+            {
+                // There is something to send. Give a burst of commits a moment to fill up the batch, so that the
+                // slave doesn't get one round trip per transaction
+                spi.awaitTransactionsCommittedAfter( lastApplied + streamBatchSize - 1, streamBatchDelay );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        return spi.packResponse( context, null, lastApplied + streamBatchSize );
+    }
+
     @Override
     public Response<HandshakeResult> handshake( long txId, StoreId storeId )
     {
@@ -375,6 +418,40 @@ public class MasterImpl extends LifecycleAdapter implements Master
         }
     }
 
+    @Override
+    public Response<LockResult> acquireLocks( RequestContext context, LockBatch locks )
+    {
+        assertCorrectEpoch( context );
+        if ( !slaveLockState.containsKey( context ) )
+        {
+            initializeTx0( context );
+        }
+        try
+        {
+            Locks.Client client = getLockClient( context );
+            for ( LockBatch.Request request : locks )
+            {
+                if ( request.isExclusive() )
+                {
+                    client.acquireExclusive( request.type(), request.resourceIds() );
+                }
+                else
+                {
+                    client.acquireShared( request.type(), request.resourceIds() );
+                }
+            }
+            return packResponse( context, new LockResult( LockStatus.OK_LOCKED ) );
+        }
+        catch ( DeadlockDetectedException e )
+        {
+            return packResponse( context, new LockResult( e.getMessage() ) );
+        }
+        catch ( IllegalResourceException e )
+        {
+            return packResponse( context, new LockResult( LockStatus.NOT_LOCKED ) );
+        }
+    }
+
     // =====================================================================
     // Just some methods which aren't really used when running a HA cluster,
     // but exposed so that other tools can reach that information.
@@ -28,15 +28,19 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
+import org.neo4j.com.ObjectSerializer;
 import org.neo4j.com.Protocol;
 import org.neo4j.com.RequestContext;
 import org.neo4j.com.RequestType;
+import org.neo4j.com.Response;
 import org.neo4j.com.Server;
+import org.neo4j.com.TargetCaller;
 import org.neo4j.com.TransactionNotPresentOnMasterException;
 import org.neo4j.com.TxChecksumVerifier;
 import org.neo4j.kernel.ha.HaRequestType210;
-import org.neo4j.kernel.ha.MasterClient210;
+import org.neo4j.kernel.ha.MasterClient220;
 import org.neo4j.kernel.logging.Logging;
 import org.neo4j.kernel.monitoring.Monitors;
 
@@ -48,17 +52,30 @@ public class MasterServer extends Server<Master, Void>
 {
     public static final int FRAME_LENGTH = Protocol.DEFAULT_FRAME_LENGTH;
 
+    private final RequestType<Master>[] requestTypes;
+
     public MasterServer( Master requestTarget, Logging logging, Configuration config,
                          TxChecksumVerifier txVerifier, Monitors monitors )
     {
-        super( requestTarget, config, logging, FRAME_LENGTH, MasterClient210.PROTOCOL_VERSION, txVerifier,
+        this( requestTarget, logging, config, txVerifier, monitors, HaRequestType210.values() );
+    }
+
+    MasterServer( Master requestTarget, Logging logging, Configuration config, TxChecksumVerifier txVerifier,
+                  Monitors monitors, RequestType<Master>[] requestTypes )
+    {
+        super( requestTarget, config, logging, FRAME_LENGTH, MasterClient220.PROTOCOL_VERSION, txVerifier,
                 SYSTEM_CLOCK, monitors );
+        this.requestTypes = requestTypes;
     }
 
+    /**
+     * Request types this master doesn't know of are answered with an {@link UnsupportedOperationException}, which
+     * is what slaves expect when asking for something the master doesn't support.
+     */
     @Override
     protected RequestType<Master> getRequestContext( byte id )
     {
-        return HaRequestType210.values()[id];
+        return id >= 0 && id < requestTypes.length ? requestTypes[id] : new UnknownRequestType( id );
     }
 
     @Override
@@ -101,4 +118,44 @@ public class MasterServer extends Server<Master, Void>
         }
         return new TreeMap<>( ongoingTransactions );
     }
+
+    private static class UnknownRequestType implements RequestType<Master>, TargetCaller<Master, Void>
+    {
+        private final byte id;
+
+        UnknownRequestType( byte id )
+        {
+            this.id = id;
+        }
+
+        @Override
+        public Response<Void> call( Master master, RequestContext context, ChannelBuffer input, ChannelBuffer target )
+        {
+            throw new UnsupportedOperationException( "Unknown request type " + id );
+        }
+
+        @Override
+        public TargetCaller getTargetCaller()
+        {
+            return this;
+        }
+
+        @Override
+        public ObjectSerializer getObjectSerializer()
+        {
+            throw new UnsupportedOperationException( "Unknown request type " + id );
+        }
+
+        @Override
+        public byte id()
+        {
+            return id;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "UNKNOWN(" + id + ")";
+        }
+    }
 }
@@ -25,6 +25,7 @@ import java.util.Map;
 import org.neo4j.com.MismatchingVersionHandler;
 import org.neo4j.kernel.ha.MasterClient201;
 import org.neo4j.kernel.ha.MasterClient210;
+import org.neo4j.kernel.ha.MasterClient220;
 import org.neo4j.kernel.impl.nioneo.store.StoreId;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.kernel.logging.Logging;
@@ -101,12 +102,19 @@ public class MasterClientResolver implements MasterClientFactory, MismatchingVer
          * static final ProtocolVersionCombo PC_20 = new ProtocolVersionCombo( MasterClient20.PROTOCOL_VERSION, 2 ); */
         static final ProtocolVersionCombo PC_201 = new ProtocolVersionCombo( MasterClient201.PROTOCOL_VERSION, 2 );
         static final ProtocolVersionCombo PC_210 = new ProtocolVersionCombo( MasterClient210.PROTOCOL_VERSION, 2 );
+        static final ProtocolVersionCombo PC_220 = new ProtocolVersionCombo( MasterClient220.PROTOCOL_VERSION, 2 );
     }
 
     private final Map<ProtocolVersionCombo, MasterClientFactory> protocolToFactoryMapping;
 
     public MasterClientResolver( Logging logging, int readTimeout, int lockReadTimeout, int channels,
             int chunkSize )
+    {
+        this( logging, readTimeout, lockReadTimeout, channels, chunkSize, false, false );
+    }
+
+    public MasterClientResolver( Logging logging, int readTimeout, int lockReadTimeout, int channels,
+            int chunkSize, boolean compressTxStreams, boolean compressStoreCopy )
     {
         protocolToFactoryMapping = new HashMap<ProtocolVersionCombo, MasterClientFactory>();
         /* Legacy version combos:
@@ -121,7 +129,9 @@ public class MasterClientResolver implements MasterClientFactory, MismatchingVer
         protocolToFactoryMapping.put( ProtocolVersionCombo.PC_201, new F201( logging, readTimeout, lockReadTimeout,
                 channels, chunkSize ) );
         protocolToFactoryMapping.put( ProtocolVersionCombo.PC_210, new F210( logging, readTimeout, lockReadTimeout,
-                channels, chunkSize ) );
+                channels, chunkSize, compressTxStreams, compressStoreCopy ) );
+        protocolToFactoryMapping.put( ProtocolVersionCombo.PC_220, new F220( logging, readTimeout, lockReadTimeout,
+                channels, chunkSize, compressTxStreams, compressStoreCopy ) );
     }
 
     public MasterClientFactory getFor( int applicationProtocol, int internalProtocol )
@@ -146,7 +156,7 @@ public class MasterClientResolver implements MasterClientFactory, MismatchingVer
 
     public MasterClientFactory assignDefaultFactory()
     {
-        return getFor( ProtocolVersionCombo.PC_210.applicationProtocol, ProtocolVersionCombo.PC_210.internalProtocol );
+        return getFor( ProtocolVersionCombo.PC_220.applicationProtocol, ProtocolVersionCombo.PC_220.internalProtocol );
     }
 
     protected static abstract class StaticMasterClientFactory implements MasterClientFactory
@@ -186,17 +196,51 @@ public class MasterClientResolver implements MasterClientFactory, MismatchingVer
 
     public static final class F210 extends StaticMasterClientFactory
     {
+        private final boolean compressTxStreams;
+        private final boolean compressStoreCopy;
+
         public F210( Logging logging, int readTimeoutSeconds, int lockReadTimeout, int maxConcurrentChannels,
                      int chunkSize )
+        {
+            this( logging, readTimeoutSeconds, lockReadTimeout, maxConcurrentChannels, chunkSize, false, false );
+        }
+
+        public F210( Logging logging, int readTimeoutSeconds, int lockReadTimeout, int maxConcurrentChannels,
+                     int chunkSize, boolean compressTxStreams, boolean compressStoreCopy )
         {
             super( logging, readTimeoutSeconds, lockReadTimeout, maxConcurrentChannels, chunkSize );
+            this.compressTxStreams = compressTxStreams;
+            this.compressStoreCopy = compressStoreCopy;
         }
 
         @Override
         public MasterClient instantiate( String hostNameOrIp, int port, Monitors monitors, StoreId storeId, LifeSupport life )
         {
             return life.add( new MasterClient210( hostNameOrIp, port, logging, monitors, storeId,
-                    readTimeoutSeconds, lockReadTimeout, maxConcurrentChannels, chunkSize ) );
+                    readTimeoutSeconds, lockReadTimeout, maxConcurrentChannels, chunkSize,
+                    compressTxStreams, compressStoreCopy ) );
+        }
+    }
+
+    public static final class F220 extends StaticMasterClientFactory
+    {
+        private final boolean compressTxStreams;
+        private final boolean compressStoreCopy;
+
+        public F220( Logging logging, int readTimeoutSeconds, int lockReadTimeout, int maxConcurrentChannels,
+                     int chunkSize, boolean compressTxStreams, boolean compressStoreCopy )
+        {
+            super( logging, readTimeoutSeconds, lockReadTimeout, maxConcurrentChannels, chunkSize );
+            this.compressTxStreams = compressTxStreams;
+            this.compressStoreCopy = compressStoreCopy;
+        }
+
+        @Override
+        public MasterClient instantiate( String hostNameOrIp, int port, Monitors monitors, StoreId storeId, LifeSupport life )
+        {
+            return life.add( new MasterClient220( hostNameOrIp, port, logging, monitors, storeId,
+                    readTimeoutSeconds, lockReadTimeout, maxConcurrentChannels, chunkSize,
+                    compressTxStreams, compressStoreCopy ) );
         }
     }
 }
@@ -20,11 +20,20 @@
 package org.neo4j.kernel.ha.id;
 
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.neo4j.com.Response;
+import org.neo4j.helpers.NamedThreadFactory;
 import org.neo4j.kernel.DefaultIdGeneratorFactory;
 import org.neo4j.kernel.IdGeneratorFactory;
 import org.neo4j.kernel.IdType;
@@ -36,23 +45,50 @@ import org.neo4j.kernel.impl.nioneo.store.IdGenerator;
 import org.neo4j.kernel.impl.nioneo.store.IdRange;
 import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.kernel.logging.Logging;
+import org.neo4j.kernel.monitoring.Monitors;
 
 public class HaIdGeneratorFactory implements IdGeneratorFactory
 {
+    public interface Monitor
+    {
+        /**
+         * Called after a slave has received an id range from the master, with the time the round trip took.
+         */
+        void idRangeAllocated( IdType idType, int rangeLength, long roundTripMillis );
+    }
+
     private final Map<IdType, HaIdGenerator> generators =
             new EnumMap<IdType, HaIdGenerator>( IdType.class );
     private final IdGeneratorFactory localFactory = new DefaultIdGeneratorFactory();
     private final DelegateInvocationHandler<Master> master;
     private final StringLogger logger;
     private final RequestContextFactory requestContextFactory;
+    private final boolean prefetch;
+    private final int maxPrefetchedRanges;
+    private final Monitor monitor;
+    private final ThreadPoolExecutor prefetcher;
     private IdGeneratorState globalState = IdGeneratorState.PENDING;
 
     public HaIdGeneratorFactory( DelegateInvocationHandler<Master> master, Logging logging,
             RequestContextFactory requestContextFactory )
+    {
+        this( master, logging, requestContextFactory, false, 1, new Monitors() );
+    }
+
+    public HaIdGeneratorFactory( DelegateInvocationHandler<Master> master, Logging logging,
+            RequestContextFactory requestContextFactory, boolean prefetch, int maxPrefetchedRanges,
+            Monitors monitors )
     {
         this.master = master;
         this.logger = logging.getMessagesLog( getClass() );
         this.requestContextFactory = requestContextFactory;
+        this.prefetch = prefetch;
+        this.maxPrefetchedRanges = maxPrefetchedRanges;
+        this.monitor = monitors.newMonitor( Monitor.class, getClass() );
+        // A single thread serves all id types. It goes away when idle, so there's nothing to shut down
+        this.prefetcher = new ThreadPoolExecutor( 1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DaemonThreadFactory( "HA id prefetcher" ) );
+        this.prefetcher.allowCoreThreadTimeOut( true );
     }
 
     @Override
@@ -71,7 +107,7 @@ public class HaIdGeneratorFactory implements IdGeneratorFactory
             initialIdGenerator = localFactory.open( fs, fileName, grabSize, idType, highId );
             break;
         case SLAVE:
-            initialIdGenerator = new SlaveIdGenerator( idType, highId, master.cement(), logger, requestContextFactory );
+            initialIdGenerator = newSlaveIdGenerator( idType, highId, master.cement() );
             break;
         default:
             throw new IllegalStateException( globalState.name() );
@@ -116,6 +152,12 @@ public class HaIdGeneratorFactory implements IdGeneratorFactory
         }
     }
 
+    private SlaveIdGenerator newSlaveIdGenerator( IdType idType, long highId, Master master )
+    {
+        return new SlaveIdGenerator( idType, highId, master, logger, requestContextFactory, monitor,
+                prefetch ? prefetcher : null, maxPrefetchedRanges );
+    }
+
     private static final long VALUE_REPRESENTING_NULL = -1;
 
     private enum IdGeneratorState
@@ -148,7 +190,12 @@ public class HaIdGeneratorFactory implements IdGeneratorFactory
         {
             long highId = delegate.getHighId();
             delegate.close();
-            delegate = new SlaveIdGenerator( idType, highId, master, logger, requestContextFactory );
+            if ( delegate instanceof SlaveIdGenerator )
+            {
+                // The new master doesn't know about the ranges the previous one handed out to us
+                ((SlaveIdGenerator) delegate).discardUnusedIds();
+            }
+            delegate = newSlaveIdGenerator( idType, highId, master );
             logger.debug( "Instantiated slave delegate " + delegate + " of type " + idType + " with highid " + highId );
             state = IdGeneratorState.SLAVE;
         }
@@ -165,7 +212,13 @@ public class HaIdGeneratorFactory implements IdGeneratorFactory
                 }
                     
                 localFactory.create( fs, fileName, highId );
+                IdGenerator slaveDelegate = delegate;
                 delegate = localFactory.open( fs, fileName, grabSize, idType, highId );
+                if ( slaveDelegate instanceof SlaveIdGenerator )
+                {
+                    // Ids we got from the previous master, but never used, are ours to give out now
+                    ((SlaveIdGenerator) slaveDelegate).releaseUnusedIds( delegate );
+                }
                 logger.debug( "Instantiated master delegate " + delegate + " of type " + idType + " with highid " + highId );
             }
             else
@@ -266,29 +319,55 @@ public class HaIdGeneratorFactory implements IdGeneratorFactory
         }
     }
 
+    /**
+     * Gets ids from ranges allocated by the master. Without prefetching a range is requested when the previous
+     * one has run out, making the transaction that needs the id wait for the round trip. With prefetching, the
+     * next ranges are requested in the background as soon as the last one we have starts being used. How many
+     * ranges to request at a time is based on how fast ids have been used lately, so that they last for about
+     * {@link #PREFETCH_WINDOW_MILLIS}, and is doubled whenever we ran out before a prefetch came back anyway.
+     * The master decides the size of each range, so we can only ask for more of them.
+     */
     private static class SlaveIdGenerator implements IdGenerator
     {
+        static final long PREFETCH_WINDOW_MILLIS = 1000;
+
         private volatile long highestIdInUse;
         private volatile long defragCount;
         private volatile IdRangeIterator idQueue = EMPTY_ID_RANGE_ITERATOR;
+        private final Deque<IdRangeIterator> prefetched = new ArrayDeque<>();
         private final Master master;
         private final IdType idType;
         private final StringLogger logger;
         private final RequestContextFactory requestContextFactory;
+        private final Monitor monitor;
+        private final ThreadPoolExecutor prefetcher;
+        private final int maxPrefetchedRanges;
+        private boolean prefetching;
+        private boolean ranDry;
+        private boolean closed;
+        private int rangesPerPrefetch = 1;
+        private int lastRangeLength;
+        private long idsSinceLastPrefetch;
+        private long lastPrefetchTime;
 
         SlaveIdGenerator( IdType idType, long highId, Master master, StringLogger logger,
-                RequestContextFactory requestContextFactory )
+                RequestContextFactory requestContextFactory, Monitor monitor, ThreadPoolExecutor prefetcher,
+                int maxPrefetchedRanges )
         {
             this.idType = idType;
             this.highestIdInUse = highId;
             this.master = master;
             this.logger = logger;
             this.requestContextFactory = requestContextFactory;
+            this.monitor = monitor;
+            this.prefetcher = prefetcher;
+            this.maxPrefetchedRanges = maxPrefetchedRanges;
         }
 
         @Override
-        public void close()
+        public synchronized void close()
         {
+            closed = true;
         }
 
         @Override
@@ -318,16 +397,22 @@ public class HaIdGeneratorFactory implements IdGeneratorFactory
         public synchronized long nextId()
         {
             long nextId = nextLocalId();
+            if ( nextId == VALUE_REPRESENTING_NULL && prefetching )
+            {
+                ranDry = true;
+                awaitPrefetch();
+                nextId = nextLocalId();
+            }
             if ( nextId == VALUE_REPRESENTING_NULL )
             {
                 // If we don't have anymore grabbed ids from master, grab a bunch
-                try ( Response<IdAllocation> response =
-                        master.allocateIds( requestContextFactory.newRequestContext(), idType ) )
-                {
-                    IdAllocation allocation = response.response();
-                    logger.info( "Received id allocation " + allocation + " from master " + master + " for " + idType );
-                    nextId = storeLocally( allocation );
-                }
+                ranDry = true;
+                nextId = storeLocally( allocate() );
+            }
+            idsSinceLastPrefetch++;
+            if ( prefetcher != null && !prefetching && prefetched.isEmpty() && !closed )
+            {
+                startPrefetch();
             }
             return nextId;
         }
@@ -338,17 +423,161 @@ public class HaIdGeneratorFactory implements IdGeneratorFactory
             throw new UnsupportedOperationException( "Should never be called" );
         }
 
+        private IdAllocation allocate()
+        {
+            long startTime = System.currentTimeMillis();
+            try ( Response<IdAllocation> response =
+                    master.allocateIds( requestContextFactory.newRequestContext(), idType ) )
+            {
+                IdAllocation allocation = response.response();
+                monitor.idRangeAllocated( idType, allocation.getIdRange().getRangeLength(),
+                        System.currentTimeMillis() - startTime );
+                logger.info( "Received id allocation " + allocation + " from master " + master + " for " + idType );
+                return allocation;
+            }
+        }
+
+        private void startPrefetch()
+        {
+            long now = System.currentTimeMillis();
+            if ( lastPrefetchTime != 0 && lastRangeLength > 0 )
+            {
+                long elapsed = Math.max( 1, now - lastPrefetchTime );
+                long idsInWindow = idsSinceLastPrefetch * PREFETCH_WINDOW_MILLIS / elapsed;
+                int ranges = (int) Math.min( maxPrefetchedRanges, 1 + idsInWindow / lastRangeLength );
+                rangesPerPrefetch = ranDry ? Math.max( ranges, rangesPerPrefetch * 2 ) : ranges;
+                rangesPerPrefetch = Math.max( 1, Math.min( maxPrefetchedRanges, rangesPerPrefetch ) );
+            }
+            lastPrefetchTime = now;
+            idsSinceLastPrefetch = 0;
+            ranDry = false;
+            prefetching = true;
+
+            final int ranges = rangesPerPrefetch;
+            prefetcher.execute( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    List<IdAllocation> allocations = new ArrayList<>( ranges );
+                    try
+                    {
+                        for ( int i = 0; i < ranges; i++ )
+                        {
+                            allocations.add( allocate() );
+                        }
+                    }
+                    catch ( RuntimeException e )
+                    {
+                        logger.warn( "Unable to prefetch ids of type " + idType + " from master " + master, e );
+                    }
+                    finally
+                    {
+                        prefetched( allocations );
+                    }
+                }
+            } );
+        }
+
+        private synchronized void prefetched( List<IdAllocation> allocations )
+        {
+            prefetching = false;
+            if ( closed )
+            {
+                logger.info( "Discarding " + allocations.size() + " id ranges of type " + idType +
+                        " prefetched after switching roles" );
+            }
+            else
+            {
+                for ( IdAllocation allocation : allocations )
+                {
+                    updateFrom( allocation );
+                    prefetched.add( new IdRangeIterator( allocation.getIdRange() ) );
+                }
+            }
+            notifyAll();
+        }
+
+        private void awaitPrefetch()
+        {
+            boolean interrupted = false;
+            while ( prefetching )
+            {
+                try
+                {
+                    wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    // The prefetch is bounded by the read timeout, and we need the ranges it brings back
+                    interrupted = true;
+                }
+            }
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
         private long storeLocally( IdAllocation allocation )
         {
-            setHighId( allocation.getHighestIdInUse() );
-            this.defragCount = allocation.getDefragCount();
+            updateFrom( allocation );
             this.idQueue = new IdRangeIterator( allocation.getIdRange() );
             return idQueue.next();
         }
 
+        private void updateFrom( IdAllocation allocation )
+        {
+            setHighId( allocation.getHighestIdInUse() );
+            this.defragCount = allocation.getDefragCount();
+            this.lastRangeLength = allocation.getIdRange().getRangeLength();
+        }
+
         private long nextLocalId()
         {
-            return this.idQueue.next();
+            long id = this.idQueue.next();
+            while ( id == VALUE_REPRESENTING_NULL && !prefetched.isEmpty() )
+            {
+                this.idQueue = prefetched.poll();
+                id = this.idQueue.next();
+            }
+            return id;
+        }
+
+        /**
+         * Hands ids allocated to us by the master, but not used yet, to the generator that takes over when this
+         * instance becomes master, instead of leaving holes in the id space.
+         */
+        synchronized void releaseUnusedIds( IdGenerator target )
+        {
+            long released = 0;
+            long highId = target.getHighId();
+            for ( long id; (id = nextLocalId()) != VALUE_REPRESENTING_NULL; )
+            {
+                if ( id < highId )
+                {
+                    target.freeId( id );
+                    released++;
+                }
+            }
+            logger.info( "Released " + released + " unused ids of type " + idType + " when switching to master" );
+        }
+
+        /**
+         * Drops ids allocated to us by a master we're no longer talking to. Those can't be given back to the new
+         * master, but at least we won't hand them out either.
+         */
+        synchronized void discardUnusedIds()
+        {
+            long discarded = 0;
+            while ( nextLocalId() != VALUE_REPRESENTING_NULL )
+            {
+                discarded++;
+            }
+            if ( discarded > 0 )
+            {
+                logger.info( "Discarding " + discarded + " unused ids of type " + idType + " from previous master" );
+            }
         }
 
         @Override
@@ -427,4 +656,22 @@ public class HaIdGeneratorFactory implements IdGeneratorFactory
 
                 ;
             };
+
+    private static class DaemonThreadFactory implements ThreadFactory
+    {
+        private final ThreadFactory delegate;
+
+        DaemonThreadFactory( String threadNamePrefix )
+        {
+            this.delegate = new NamedThreadFactory( threadNamePrefix );
+        }
+
+        @Override
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = delegate.newThread( runnable );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.lock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.neo4j.kernel.impl.locking.Locks;
+
+/**
+ * Lock requests that a slave sends to the master in a single round trip. The master acquires them in the order
+ * they were added.
+ */
+public class LockBatch implements Iterable<LockBatch.Request>
+{
+    public static class Request
+    {
+        private final boolean exclusive;
+        private final Locks.ResourceType type;
+        private final long[] resourceIds;
+
+        public Request( boolean exclusive, Locks.ResourceType type, long... resourceIds )
+        {
+            this.exclusive = exclusive;
+            this.type = type;
+            this.resourceIds = resourceIds;
+        }
+
+        public boolean isExclusive()
+        {
+            return exclusive;
+        }
+
+        public Locks.ResourceType type()
+        {
+            return type;
+        }
+
+        public long[] resourceIds()
+        {
+            return resourceIds;
+        }
+
+        @Override
+        public String toString()
+        {
+            return (exclusive ? "EXCLUSIVE " : "SHARED ") + type + Arrays.toString( resourceIds );
+        }
+    }
+
+    private final List<Request> requests = new ArrayList<>();
+    private int resourceCount;
+
+    public void add( boolean exclusive, Locks.ResourceType type, long... resourceIds )
+    {
+        requests.add( new Request( exclusive, type, resourceIds ) );
+        resourceCount += resourceIds.length;
+    }
+
+    public int size()
+    {
+        return requests.size();
+    }
+
+    /**
+     * @return the total number of resources to lock, over all requests in this batch.
+     */
+    public int resourceCount()
+    {
+        return resourceCount;
+    }
+
+    public boolean isEmpty()
+    {
+        return requests.isEmpty();
+    }
+
+    /**
+     * Removes the given resource from the exclusive requests of the given type, because the lock has been released
+     * before the batch was sent.
+     */
+    public void removeExclusive( Locks.ResourceType type, long resourceId )
+    {
+        for ( ListIterator<Request> iterator = requests.listIterator(); iterator.hasNext(); )
+        {
+            Request request = iterator.next();
+            if ( !request.exclusive || !request.type.equals( type ) )
+            {
+                continue;
+            }
+            long[] remaining = without( request.resourceIds, resourceId );
+            if ( remaining.length == request.resourceIds.length )
+            {
+                continue;
+            }
+            resourceCount -= request.resourceIds.length - remaining.length;
+            if ( remaining.length == 0 )
+            {
+                iterator.remove();
+            }
+            else
+            {
+                iterator.set( new Request( true, type, remaining ) );
+            }
+        }
+    }
+
+    private static long[] without( long[] resourceIds, long resourceId )
+    {
+        long[] remaining = new long[resourceIds.length];
+        int count = 0;
+        for ( long id : resourceIds )
+        {
+            if ( id != resourceId )
+            {
+                remaining[count++] = id;
+            }
+        }
+        return count == resourceIds.length ? resourceIds : Arrays.copyOf( remaining, count );
+    }
+
+    public void clear()
+    {
+        requests.clear();
+        resourceCount = 0;
+    }
+
+    @Override
+    public Iterator<Request> iterator()
+    {
+        return requests.iterator();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LockBatch" + requests;
+    }
+}
@@ -73,6 +73,18 @@ public class LockManagerModeSwitcher extends AbstractModeSwitcher<Locks>
             {
                 return config.get( HaSettings.lock_read_timeout );
             }
+
+            @Override
+            public boolean isLockBatchingEnabled()
+            {
+                return config.get( HaSettings.slave_lock_batching );
+            }
+
+            @Override
+            public int getLockBatchSize()
+            {
+                return config.get( HaSettings.slave_lock_batch_size );
+            }
         });
     }
 }
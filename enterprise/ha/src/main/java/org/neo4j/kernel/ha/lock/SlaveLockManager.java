@@ -38,6 +38,14 @@ public class SlaveLockManager extends LifecycleAdapter implements Locks
     public static interface Configuration
     {
         long getAvailabilityTimeout();
+
+        boolean isLockBatchingEnabled();
+
+        /**
+         * @return the number of deferred locks to collect before sending them to the master, only used if
+         * {@link #isLockBatchingEnabled()}.
+         */
+        int getLockBatchSize();
     }
 
     public SlaveLockManager( Locks localLocks, RequestContextFactory requestContextFactory, Master master,
@@ -46,6 +46,15 @@ import static org.neo4j.kernel.impl.transaction.LockType.WRITE;
  * The client maintains a local "real" lock client, backed by some regular Locks implementation, but it also coordinates
  * with the master for certain types of locks. If you grab a lock on a node, for instance, this class will grab a
  * cluster-global lock by talking to the master machine, and then grab that same lock locally before returning.
+ *
+ * If {@link SlaveLockManager.Configuration#isLockBatchingEnabled() lock batching} is enabled, the exclusive node and
+ * relationship locks the kernel takes for writing, i.e. those {@link #acquireDeferrableExclusive acquired as
+ * deferrable}, are grabbed locally only, and sent to the master later in one go: together with the next lock
+ * that has to be taken on the master right away, when enough of them have been collected, or at the latest in
+ * {@link #prepareForCommit()}. All lock requests then go through {@link Master#acquireLocks},
+ * which also initializes the transaction on the master, saving the separate round trip for that. A master that
+ * doesn't support batched lock requests is sent the collected locks one request at a time instead. Locks explicitly
+ * asked for, as well as schema and other locks, are always held on the master before they are granted.
  */
 class SlaveLocksClient implements Locks.Client
 {
@@ -61,6 +70,9 @@ class SlaveLocksClient implements Locks.Client
     private final Map<Locks.ResourceType, Map<Long, AtomicInteger>> sharedLocks;
     private final Map<Locks.ResourceType, Map<Long, AtomicInteger>> exclusiveLocks;
     private boolean initialized = false;
+    private final LockBatch deferredLocks = new LockBatch();
+    private boolean committing;
+    private boolean batchingUnsupported;
 
     public SlaveLocksClient(
             Master master,
@@ -122,6 +134,32 @@ class SlaveLocksClient implements Locks.Client
     {
         Map<Long, AtomicInteger> lockMap = getLockMap( exclusiveLocks, resourceType );
         long[] untakenIds = incrementAndRemoveAlreadyTakenLocks( lockMap, resourceIds );
+        acquireExclusive( lockMap, resourceType, untakenIds, resourceIds );
+    }
+
+    @Override
+    public void acquireDeferrableExclusive( Locks.ResourceType resourceType, long... resourceIds )
+            throws AcquireLockTimeoutException
+    {
+        Map<Long, AtomicInteger> lockMap = getLockMap( exclusiveLocks, resourceType );
+        long[] untakenIds = incrementAndRemoveAlreadyTakenLocks( lockMap, resourceIds );
+        if ( untakenIds.length > 0 && canDefer( resourceType ) && client.tryExclusiveLock( resourceType, untakenIds ) )
+        {
+            for ( int i = 0; i < untakenIds.length; i++ )
+            {
+                lockMap.put( untakenIds[i], new AtomicInteger( 1 ) );
+            }
+            deferExclusiveOnMaster( resourceType, untakenIds );
+        }
+        else
+        {
+            acquireExclusive( lockMap, resourceType, untakenIds, resourceIds );
+        }
+    }
+
+    private void acquireExclusive( Map<Long, AtomicInteger> lockMap, Locks.ResourceType resourceType,
+            long[] untakenIds, long[] resourceIds )
+    {
         if ( untakenIds.length > 0 && acquireExclusiveOnMaster( resourceType, untakenIds ) )
         {
             if ( client.tryExclusiveLock( resourceType, untakenIds ) )
@@ -212,6 +250,7 @@ class SlaveLocksClient implements Locks.Client
             if(counter.decrementAndGet() == 0)
             {
                 lockMap.remove( resourceId );
+                deferredLocks.removeExclusive( resourceType, resourceId );
                 client.releaseExclusive( resourceType, resourceId );
             }
         }
@@ -228,14 +267,29 @@ class SlaveLocksClient implements Locks.Client
     public void releaseAllExclusive()
     {
         exclusiveLocks.clear();
+        deferredLocks.clear();
         client.releaseAllExclusive();
     }
 
+    @Override
+    public void prepareForCommit()
+    {
+        // Locks taken from now on, for example while preparing the commit, must be held on the master right away
+        committing = true;
+        if ( !deferredLocks.isEmpty() )
+        {
+            makeSureTxHasBeenInitialized();
+            sendDeferredLocks();
+        }
+    }
+
     @Override
     public void releaseAll()
     {
         sharedLocks.clear();
         exclusiveLocks.clear();
+        deferredLocks.clear();
+        committing = false;
         if ( initialized )
         {
             master.finishTransaction( requestContextFactory.newRequestContext( (int) client.getIdentifier() ), true );
@@ -249,6 +303,8 @@ class SlaveLocksClient implements Locks.Client
     {
         sharedLocks.clear();
         exclusiveLocks.clear();
+        deferredLocks.clear();
+        committing = false;
         if ( initialized )
         {
             master.finishTransaction( requestContextFactory.newRequestContext( (int) client.getIdentifier() ), true );
@@ -270,6 +326,11 @@ class SlaveLocksClient implements Locks.Client
             || resourceType == ResourceTypes.LEGACY_INDEX )
         {
             makeSureTxHasBeenInitialized();
+            if ( isLockBatchingEnabled() )
+            {
+                deferredLocks.add( false, resourceType, resourceId );
+                return sendDeferredLocks();
+            }
             return receiveLockResponse(
                 master.acquireSharedLock( requestContextFactory.newRequestContext( (int) getIdentifier() ), resourceType, resourceId ));
         }
@@ -282,10 +343,74 @@ class SlaveLocksClient implements Locks.Client
     private boolean acquireExclusiveOnMaster( Locks.ResourceType resourceType, long ... resourceId )
     {
         makeSureTxHasBeenInitialized();
+        if ( isLockBatchingEnabled() )
+        {
+            deferredLocks.add( true, resourceType, resourceId );
+            return sendDeferredLocks();
+        }
         return receiveLockResponse(
                 master.acquireExclusiveLock( requestContextFactory.newRequestContext( (int) getIdentifier() ), resourceType, resourceId ));
     }
 
+    private boolean canDefer( Locks.ResourceType resourceType )
+    {
+        return isLockBatchingEnabled() && !committing &&
+               (resourceType == ResourceTypes.NODE || resourceType == ResourceTypes.RELATIONSHIP);
+    }
+
+    private void deferExclusiveOnMaster( Locks.ResourceType resourceType, long... resourceIds )
+    {
+        deferredLocks.add( true, resourceType, resourceIds );
+        if ( deferredLocks.resourceCount() >= config.getLockBatchSize() )
+        {
+            makeSureTxHasBeenInitialized();
+            sendDeferredLocks();
+        }
+    }
+
+    private boolean isLockBatchingEnabled()
+    {
+        return config.isLockBatchingEnabled() && !batchingUnsupported;
+    }
+
+    private boolean sendDeferredLocks()
+    {
+        Response<LockResult> response;
+        try
+        {
+            response = master.acquireLocks( requestContextFactory.newRequestContext( (int) getIdentifier() ),
+                    deferredLocks );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // The master speaks an older protocol, so fall back to a request per lock for this transaction
+            batchingUnsupported = true;
+            return sendDeferredLocksOneByOne();
+        }
+        finally
+        {
+            deferredLocks.clear();
+        }
+        // The first batch also created the lock client for this transaction on the master
+        initialized = true;
+        return receiveLockResponse( response );
+    }
+
+    private boolean sendDeferredLocksOneByOne()
+    {
+        makeSureTxHasBeenInitialized();
+        for ( LockBatch.Request request : deferredLocks )
+        {
+            Response<LockResult> response = request.isExclusive()
+                    ? master.acquireExclusiveLock( requestContextFactory.newRequestContext( (int) getIdentifier() ),
+                            request.type(), request.resourceIds() )
+                    : master.acquireSharedLock( requestContextFactory.newRequestContext( (int) getIdentifier() ),
+                            request.type(), request.resourceIds() );
+            receiveLockResponse( response );
+        }
+        return true;
+    }
+
     private boolean receiveLockResponse( Response<LockResult> response )
     {
         LockResult result = null;
@@ -321,7 +446,7 @@ class SlaveLocksClient implements Locks.Client
             throw new RuntimeException( "Timed out waiting for database to allow operations to proceed. "
                     + availabilityGuard.describeWhoIsBlocking() );
         }
-        if ( !initialized )
+        if ( !initialized && !isLockBatchingEnabled() )
         {
             master.initializeTx( requestContextFactory.newRequestContext( (int) client.getIdentifier() ) );
             initialized = true;
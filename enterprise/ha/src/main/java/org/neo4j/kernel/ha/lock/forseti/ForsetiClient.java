@@ -19,12 +19,9 @@
  */
 package org.neo4j.kernel.ha.lock.forseti;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
-
 import org.neo4j.collection.pool.LinkedQueuePool;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
 import org.neo4j.kernel.DeadlockDetectedException;
 import org.neo4j.kernel.impl.locking.AcquireLockTimeoutException;
 import org.neo4j.kernel.impl.locking.Locks;
@@ -45,7 +42,7 @@ public class ForsetiClient implements Locks.Client
     private final int myId;
 
     /** resourceType -> lock map. These are the global lock maps, shared across all clients. */
-    private final ConcurrentMap[] lockMaps;
+    private final LockTable[] lockMaps;
 
     /** resourceType -> wait strategy */
     private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
@@ -53,22 +50,19 @@ public class ForsetiClient implements Locks.Client
     /** Handle to return client to pool when closed. */
     private final LinkedQueuePool<ForsetiClient> clientPool;
 
-    // TODO We should really look into some kind of primitive maps here.
-    // TODO As a stop-gap, we could start out by using AtomicInteger values, and thereby remove a lot
-    // TODO of object creation due to the boxing of the integers.
     /**
      * resourceType -> Map( resourceId -> num locks ).
      *
      * These are local lock maps. They exist to avoid grabbing locks in the global maps more than absolutely necessary.
      */
-    private final Map<Long, Integer>[] sharedLockCounts;
+    private final LockCounts[] sharedLockCounts;
 
     /**
      * resourceType -> Map( resourceId -> num locks )
      *
      * These are local lock maps. They exist to avoid grabbing locks in the global maps more than absolutely necessary.
      */
-    private final Map<Long, Integer>[] exclusiveLockCounts;
+    private final LockCounts[] exclusiveLockCounts;
 
     /** List of other clients this client is waiting for. */
     private final SimpleBitSet waitList = new SimpleBitSet( 64 );
@@ -78,8 +72,14 @@ public class ForsetiClient implements Locks.Client
      * we want to hold in the global lock map. */
     private final ExclusiveLock myExclusiveLock = new ExclusiveLock(this);
 
+    /** Re-usable visitors for releasing all locks of a resource type, so that doing so creates no garbage. */
+    private final ReleaseSharedVisitor releaseSharedVisitor = new ReleaseSharedVisitor();
+    private final ReleaseExclusiveVisitor releaseExclusiveVisitor = new ReleaseExclusiveVisitor();
+    private final ForceReleaseExclusiveVisitor forceReleaseExclusiveVisitor = new ForceReleaseExclusiveVisitor();
+    private final ForceReleaseSharedVisitor forceReleaseSharedVisitor = new ForceReleaseSharedVisitor();
+
     public ForsetiClient( int id,
-                          ConcurrentMap[] lockMaps,
+                          LockTable[] lockMaps,
                           WaitStrategy[] waitStrategies,
                           LinkedQueuePool<ForsetiClient> clientPool )
     {
@@ -87,13 +87,13 @@ public class ForsetiClient implements Locks.Client
         this.lockMaps            = lockMaps;
         this.waitStrategies      = waitStrategies;
         this.clientPool          = clientPool;
-        this.sharedLockCounts    = new HashMap[lockMaps.length];
-        this.exclusiveLockCounts = new HashMap[lockMaps.length];
+        this.sharedLockCounts    = new LockCounts[lockMaps.length];
+        this.exclusiveLockCounts = new LockCounts[lockMaps.length];
 
         for ( int i = 0; i < sharedLockCounts.length; i++ )
         {
-            sharedLockCounts[i] = new HashMap<>();
-            exclusiveLockCounts[i] = new HashMap<>();
+            sharedLockCounts[i] = new LockCounts();
+            exclusiveLockCounts[i] = new LockCounts();
         }
     }
 
@@ -101,17 +101,17 @@ public class ForsetiClient implements Locks.Client
     public void acquireShared( Locks.ResourceType resourceType, long... resourceIds ) throws AcquireLockTimeoutException
     {
         // Grab the global lock map we will be using
-        ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap  = lockMaps[resourceType.typeId()];
+        LockTable lockMap  = lockMaps[resourceType.typeId()];
 
         // And grab our local lock maps
-        Map<Long, Integer> heldShareLocks     = sharedLockCounts[resourceType.typeId()];
-        Map<Long, Integer> heldExclusiveLocks = exclusiveLockCounts[resourceType.typeId()];
+        LockCounts heldShareLocks     = sharedLockCounts[resourceType.typeId()];
+        LockCounts heldExclusiveLocks = exclusiveLockCounts[resourceType.typeId()];
 
         for ( long resourceId : resourceIds )
         {
             // First, check if we already hold this as a shared lock
-            Integer heldCount = heldShareLocks.get( resourceId );
-            if(heldCount != null)
+            int heldCount = heldShareLocks.get( resourceId );
+            if(heldCount != 0)
             {
                 // We already have a lock on this, just increment our local reference counter.
                 heldShareLocks.put( resourceId, heldCount + 1 );
@@ -119,7 +119,7 @@ public class ForsetiClient implements Locks.Client
             }
 
             // Second, check if we hold it as an exclusive lock
-            if( heldExclusiveLocks.containsKey( resourceId ) )
+            if( heldExclusiveLocks.contains( resourceId ) )
             {
                 // We already have an exclusive lock, so just leave that in place. When the exclusive lock is released,
                 // it will be automatically downgraded to a shared lock, since we bumped the share lock reference count.
@@ -197,13 +197,13 @@ public class ForsetiClient implements Locks.Client
     {
         // For details on how this works, refer to the acquireShared method call, as the two are very similar
 
-        ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
-        Map<Long, Integer> heldLocks      = exclusiveLockCounts[resourceType.typeId()];
+        LockTable lockMap = lockMaps[resourceType.typeId()];
+        LockCounts heldLocks      = exclusiveLockCounts[resourceType.typeId()];
 
         for ( long resourceId : resourceIds )
         {
-            Integer heldCount = heldLocks.get( resourceId );
-            if(heldCount != null)
+            int heldCount = heldLocks.get( resourceId );
+            if(heldCount != 0)
             {
                 // We already have a lock on this, just increment our local reference counter.
                 heldLocks.put( resourceId, heldCount + 1 );
@@ -237,16 +237,23 @@ public class ForsetiClient implements Locks.Client
         }
     }
 
+    @Override
+    public void acquireDeferrableExclusive( Locks.ResourceType resourceType, long... resourceIds )
+            throws AcquireLockTimeoutException
+    {
+        acquireExclusive( resourceType, resourceIds );
+    }
+
     @Override
     public boolean tryExclusiveLock( Locks.ResourceType resourceType, long... resourceIds )
     {
-        ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
-        Map<Long, Integer> heldLocks      = exclusiveLockCounts[resourceType.typeId()];
+        LockTable lockMap = lockMaps[resourceType.typeId()];
+        LockCounts heldLocks      = exclusiveLockCounts[resourceType.typeId()];
 
         for ( long resourceId : resourceIds )
         {
-            Integer heldCount = heldLocks.get( resourceId );
-            if(heldCount != null)
+            int heldCount = heldLocks.get( resourceId );
+            if(heldCount != 0)
             {
                 // We already have a lock on this, just increment our local reference counter.
                 heldLocks.put( resourceId, heldCount + 1 );
@@ -257,7 +264,7 @@ public class ForsetiClient implements Locks.Client
             ForsetiLockManager.Lock lock;
             if((lock = lockMap.putIfAbsent( resourceId, myExclusiveLock )) != null)
             {
-                if(lock instanceof SharedLock && sharedLockCounts[resourceType.typeId()].containsKey( resourceId ))
+                if(lock instanceof SharedLock && sharedLockCounts[resourceType.typeId()].contains( resourceId ))
                 {
                     SharedLock sharedLock = (SharedLock) lock;
                     if(sharedLock.tryAcquireUpdateLock( this ))
@@ -297,21 +304,21 @@ public class ForsetiClient implements Locks.Client
     @Override
     public boolean trySharedLock( Locks.ResourceType resourceType, long... resourceIds )
     {
-        ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap     = lockMaps[resourceType.typeId()];
-        Map<Long, Integer> heldShareLocks     = sharedLockCounts[resourceType.typeId()];
-        Map<Long, Integer> heldExclusiveLocks = exclusiveLockCounts[resourceType.typeId()];
+        LockTable lockMap     = lockMaps[resourceType.typeId()];
+        LockCounts heldShareLocks     = sharedLockCounts[resourceType.typeId()];
+        LockCounts heldExclusiveLocks = exclusiveLockCounts[resourceType.typeId()];
 
         for ( long resourceId : resourceIds )
         {
-            Integer heldCount = heldShareLocks.get( resourceId );
-            if(heldCount != null)
+            int heldCount = heldShareLocks.get( resourceId );
+            if(heldCount != 0)
             {
                 // We already have a lock on this, just increment our local reference counter.
                 heldShareLocks.put( resourceId, heldCount + 1 );
                 continue;
             }
 
-            if( heldExclusiveLocks.containsKey( resourceId ) )
+            if( heldExclusiveLocks.contains( resourceId ) )
             {
                 // We already have an exclusive lock, so just leave that in place. When the exclusive lock is released,
                 // it will be automatically downgraded to a shared lock, since we bumped the share lock reference count.
@@ -371,7 +378,7 @@ public class ForsetiClient implements Locks.Client
             }
 
             // Only release if we were not holding an exclusive lock as well
-            if( !exclusiveLockCounts[resourceType.typeId()].containsKey( resourceId ) )
+            if( !exclusiveLockCounts[resourceType.typeId()].contains( resourceId ) )
             {
                 releaseGlobalLock( lockMaps[resourceType.typeId()], resourceId );
             }
@@ -388,7 +395,7 @@ public class ForsetiClient implements Locks.Client
                 continue;
             }
 
-            if( sharedLockCounts[resourceType.typeId()].containsKey( resourceId ) )
+            if( sharedLockCounts[resourceType.typeId()].contains( resourceId ) )
             {
                 // We are still holding a shared lock, so swap the exclusive lock for that
                 lockMaps[resourceType.typeId()].put( resourceId, new SharedLock( this ) );
@@ -405,17 +412,11 @@ public class ForsetiClient implements Locks.Client
     {
         for ( int i = 0; i < sharedLockCounts.length; i++ )
         {
-            Map<Long, Integer> localLocks = sharedLockCounts[i];
-            if(localLocks != null)
+            LockCounts localLocks = sharedLockCounts[i];
+            if(!localLocks.isEmpty())
             {
-                ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap = lockMaps[i];
-                for ( Long resourceId : localLocks.keySet() )
-                {
-                    if(!exclusiveLockCounts[i].containsKey( resourceId ))
-                    {
-                        releaseGlobalLock( lockMap, resourceId );
-                    }
-                }
+                releaseSharedVisitor.initialize( i );
+                localLocks.visitKeys( releaseSharedVisitor );
                 localLocks.clear();
             }
         }
@@ -426,21 +427,11 @@ public class ForsetiClient implements Locks.Client
     {
         for ( int i = 0; i < exclusiveLockCounts.length; i++ )
         {
-            Map<Long, Integer> localLocks = exclusiveLockCounts[i];
-            if(localLocks != null)
+            LockCounts localLocks = exclusiveLockCounts[i];
+            if(!localLocks.isEmpty())
             {
-                ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap = lockMaps[i];
-                for ( Long resourceId : localLocks.keySet() )
-                {
-                    if(sharedLockCounts[i].containsKey( resourceId ))
-                    {
-                        lockMap.put( resourceId, new SharedLock( this ) );
-                    }
-                    else
-                    {
-                        releaseGlobalLock( lockMap, resourceId );
-                    }
-                }
+                releaseExclusiveVisitor.initialize( i );
+                localLocks.visitKeys( releaseExclusiveVisitor );
                 localLocks.clear();
             }
         }
@@ -452,37 +443,24 @@ public class ForsetiClient implements Locks.Client
         // Force the release of all locks held.
         for ( int i = 0; i < exclusiveLockCounts.length; i++ )
         {
-            Map<Long, Integer> exclusiveLocks = exclusiveLockCounts[i];
-            Map<Long, Integer> sharedLocks = sharedLockCounts[i];
+            LockCounts exclusiveLocks = exclusiveLockCounts[i];
+            LockCounts sharedLocks = sharedLockCounts[i];
 
             // Begin releasing exclusive locks, as we may hold both exclusive and shared locks on the same resource,
             // and so releasing shared locks means we can "throw away" our shared lock (which would normally have been
             // re-instated after releasing the exclusive lock).
-            if(exclusiveLocks != null)
+            if(!exclusiveLocks.isEmpty())
             {
-                ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap = lockMaps[i];
-                for ( Long resourceId : exclusiveLocks.keySet() )
-                {
-                    releaseGlobalLock( lockMap, resourceId );
-
-                    // If we hold this as a shared lock, we can throw that shared lock away directly, since we haven't
-                    // followed the down-grade protocol.
-                    if(sharedLocks != null)
-                    {
-                        sharedLocks.remove( resourceId );
-                    }
-                }
+                forceReleaseExclusiveVisitor.initialize( i );
+                exclusiveLocks.visitKeys( forceReleaseExclusiveVisitor );
                 exclusiveLocks.clear();
             }
 
             // Then release all remaining shared locks
-            if(sharedLocks != null)
+            if(!sharedLocks.isEmpty())
             {
-                ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap = lockMaps[i];
-                for ( Long resourceId : sharedLocks.keySet() )
-                {
-                    releaseGlobalLock( lockMap, resourceId );
-                }
+                forceReleaseSharedVisitor.initialize( i );
+                sharedLocks.visitKeys( forceReleaseSharedVisitor );
                 sharedLocks.clear();
             }
         }
@@ -495,6 +473,12 @@ public class ForsetiClient implements Locks.Client
         clientPool.release( this );
     }
 
+    @Override
+    public void prepareForCommit()
+    {
+        // All locks are acquired right away
+    }
+
     @Override
     public long getIdentifier()
     {
@@ -550,7 +534,7 @@ public class ForsetiClient implements Locks.Client
     }
 
     /** Release a lock from the global pool. */
-    private void releaseGlobalLock( ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap, long resourceId )
+    private void releaseGlobalLock( LockTable lockMap, long resourceId )
     {
         ForsetiLockManager.Lock lock = lockMap.get( resourceId );
         if( lock instanceof ExclusiveLock )
@@ -565,10 +549,10 @@ public class ForsetiClient implements Locks.Client
     }
 
     /** Release a lock locally, and return true if we still hold more references to that lock. */
-    private boolean releaseLocalLock( Locks.ResourceType type, long resourceId, Map<Long, Integer> localLocks )
+    private boolean releaseLocalLock( Locks.ResourceType type, long resourceId, LockCounts localLocks )
     {
-        Integer lockCount = localLocks.remove( resourceId );
-        if(lockCount == null)
+        int lockCount = localLocks.remove( resourceId );
+        if(lockCount == 0)
         {
             throw new IllegalStateException( this + " cannot release lock that it does not hold: " +
                     type + "[" + resourceId + "]." );
@@ -583,11 +567,11 @@ public class ForsetiClient implements Locks.Client
     }
 
     /** Attempt to upgrade a share lock to an exclusive lock, grabbing the share lock if we don't hold it. */
-    private boolean tryUpgradeSharedToExclusive( Locks.ResourceType resourceType, ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap,
+    private boolean tryUpgradeSharedToExclusive( Locks.ResourceType resourceType, LockTable lockMap,
                                                  long resourceId, SharedLock sharedLock ) throws AcquireLockTimeoutException
     {
         int tries = 0;
-        if(!sharedLockCounts[resourceType.typeId()].containsKey( resourceId ))
+        if(!sharedLockCounts[resourceType.typeId()].contains( resourceId ))
         {
             // We don't hold the shared lock, we need to grab it to upgrade it to an exclusive one
             if(!sharedLock.acquire( this ))
@@ -623,7 +607,7 @@ public class ForsetiClient implements Locks.Client
     /** Attempt to upgrade a share lock that we hold to an exclusive lock. */
     private boolean tryUpgradeToExclusiveWithShareLockHeld(
             Locks.ResourceType resourceType,
-            ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap,
+            LockTable lockMap,
             long resourceId,
             SharedLock sharedLock,
             int tries ) throws AcquireLockTimeoutException
@@ -696,4 +680,92 @@ public class ForsetiClient implements Locks.Client
     {
         return myId;
     }
+
+    /** Releases global shared locks, except those we also hold exclusively. */
+    private class ReleaseSharedVisitor implements PrimitiveLongVisitor
+    {
+        private LockTable lockMap;
+        private LockCounts exclusiveLocks;
+
+        void initialize( int typeId )
+        {
+            this.lockMap = lockMaps[typeId];
+            this.exclusiveLocks = exclusiveLockCounts[typeId];
+        }
+
+        @Override
+        public void visited( long resourceId )
+        {
+            if(!exclusiveLocks.contains( resourceId ))
+            {
+                releaseGlobalLock( lockMap, resourceId );
+            }
+        }
+    }
+
+    /** Releases global exclusive locks, downgrading those we also hold as shared locks. */
+    private class ReleaseExclusiveVisitor implements PrimitiveLongVisitor
+    {
+        private LockTable lockMap;
+        private LockCounts sharedLocks;
+
+        void initialize( int typeId )
+        {
+            this.lockMap = lockMaps[typeId];
+            this.sharedLocks = sharedLockCounts[typeId];
+        }
+
+        @Override
+        public void visited( long resourceId )
+        {
+            if(sharedLocks.contains( resourceId ))
+            {
+                lockMap.put( resourceId, new SharedLock( ForsetiClient.this ) );
+            }
+            else
+            {
+                releaseGlobalLock( lockMap, resourceId );
+            }
+        }
+    }
+
+    /**
+     * Releases global exclusive locks, throwing away any shared lock held on the same resource, since we haven't
+     * followed the down-grade protocol.
+     */
+    private class ForceReleaseExclusiveVisitor implements PrimitiveLongVisitor
+    {
+        private LockTable lockMap;
+        private LockCounts sharedLocks;
+
+        void initialize( int typeId )
+        {
+            this.lockMap = lockMaps[typeId];
+            this.sharedLocks = sharedLockCounts[typeId];
+        }
+
+        @Override
+        public void visited( long resourceId )
+        {
+            releaseGlobalLock( lockMap, resourceId );
+            sharedLocks.remove( resourceId );
+        }
+    }
+
+    /** Releases global shared locks. */
+    private class ForceReleaseSharedVisitor implements PrimitiveLongVisitor
+    {
+        private LockTable lockMap;
+
+        void initialize( int typeId )
+        {
+            this.lockMap = lockMaps[typeId];
+        }
+
+        @Override
+        public void visited( long resourceId )
+        {
+            releaseGlobalLock( lockMap, resourceId );
+        }
+    }
 }
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.lock.forseti;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+
+/**
+ * How many times a client holds each of its locks of one resource type, keyed by primitive resource id so that
+ * re-entrant locking doesn't box ids and counts.
+ */
+class LockCounts
+{
+    /** The primitive maps can't hold this key, so the count for this resource id is kept on the side. */
+    private static final long RESERVED_KEY = -1;
+
+    private final PrimitiveLongIntMap counts = Primitive.longIntMap( 32 );
+    private int reservedKeyCount;
+
+    /**
+     * @return how many times the lock is held, or {@code 0} if it isn't.
+     */
+    int get( long resourceId )
+    {
+        if ( resourceId == RESERVED_KEY )
+        {
+            return reservedKeyCount;
+        }
+        int count = counts.get( resourceId );
+        return count == -1 ? 0 : count;
+    }
+
+    boolean contains( long resourceId )
+    {
+        return get( resourceId ) > 0;
+    }
+
+    void put( long resourceId, int count )
+    {
+        if ( resourceId == RESERVED_KEY )
+        {
+            reservedKeyCount = count;
+        }
+        else
+        {
+            counts.put( resourceId, count );
+        }
+    }
+
+    /**
+     * @return how many times the lock was held before removing it, or {@code 0} if it wasn't.
+     */
+    int remove( long resourceId )
+    {
+        if ( resourceId == RESERVED_KEY )
+        {
+            int count = reservedKeyCount;
+            reservedKeyCount = 0;
+            return count;
+        }
+        int count = counts.remove( resourceId );
+        return count == -1 ? 0 : count;
+    }
+
+    void visitKeys( PrimitiveLongVisitor visitor )
+    {
+        counts.visitKeys( visitor );
+        if ( reservedKeyCount > 0 )
+        {
+            visitor.visited( RESERVED_KEY );
+        }
+    }
+
+    boolean isEmpty()
+    {
+        return reservedKeyCount == 0 && counts.isEmpty();
+    }
+
+    void clear()
+    {
+        if ( !counts.isEmpty() )
+        {
+            counts.clear();
+        }
+        reservedKeyCount = 0;
+    }
+}
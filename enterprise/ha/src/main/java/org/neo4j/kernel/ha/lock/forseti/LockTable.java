@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.lock.forseti;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongObjectVisitor;
+
+/**
+ * The global lock map for one resource type, mapping resource ids to the lock currently held on them.
+ *
+ * Resource ids are kept as primitives, in a number of stripes that each guard their own primitive map. This
+ * avoids boxing the resource id on every lock operation, which a {@code ConcurrentMap<Long,Lock>} requires, while
+ * still letting operations on different stripes proceed in parallel. The critical sections are a single map
+ * operation each, and never wait for anything else.
+ */
+class LockTable
+{
+    /** The primitive maps can't hold this key, so the lock for this resource id is kept on the side. */
+    private static final long RESERVED_KEY = -1;
+    /** Tables grow as needed, most stripes only ever hold a handful of locks. */
+    private static final int INITIAL_STRIPE_CAPACITY = 32;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    LockTable( int concurrencyLevel )
+    {
+        int stripeCount = Integer.highestOneBit( Math.max( 1, concurrencyLevel - 1 ) ) << 1;
+        this.stripes = new Stripe[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        for ( int i = 0; i < stripeCount; i++ )
+        {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    ForsetiLockManager.Lock get( long resourceId )
+    {
+        Stripe stripe = stripe( resourceId );
+        synchronized ( stripe )
+        {
+            return stripe.get( resourceId );
+        }
+    }
+
+    /**
+     * @return the lock already held on the resource, in which case nothing was changed, or {@code null} if the
+     * given lock is now held on it.
+     */
+    ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        Stripe stripe = stripe( resourceId );
+        synchronized ( stripe )
+        {
+            ForsetiLockManager.Lock existing = stripe.get( resourceId );
+            if ( existing == null )
+            {
+                stripe.put( resourceId, lock );
+            }
+            return existing;
+        }
+    }
+
+    void put( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        Stripe stripe = stripe( resourceId );
+        synchronized ( stripe )
+        {
+            stripe.put( resourceId, lock );
+        }
+    }
+
+    void remove( long resourceId )
+    {
+        Stripe stripe = stripe( resourceId );
+        synchronized ( stripe )
+        {
+            stripe.remove( resourceId );
+        }
+    }
+
+    /**
+     * Visits all held locks. Each stripe is visited atomically, but the table as a whole is not, so this is
+     * meant for introspection only.
+     */
+    void visitEntries( PrimitiveLongObjectVisitor<ForsetiLockManager.Lock> visitor )
+    {
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                stripe.visitEntries( visitor );
+            }
+        }
+    }
+
+    private Stripe stripe( long resourceId )
+    {
+        // Spread the bits, since resource ids are often sequential
+        int hash = (int) (resourceId ^ (resourceId >>> 32)) * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+    }
+
+    private static class Stripe
+    {
+        private final PrimitiveLongObjectMap<ForsetiLockManager.Lock> locks = Primitive.longObjectMap( INITIAL_STRIPE_CAPACITY );
+        private ForsetiLockManager.Lock reservedKeyLock;
+
+        ForsetiLockManager.Lock get( long resourceId )
+        {
+            return resourceId == RESERVED_KEY ? reservedKeyLock : locks.get( resourceId );
+        }
+
+        void put( long resourceId, ForsetiLockManager.Lock lock )
+        {
+            if ( resourceId == RESERVED_KEY )
+            {
+                reservedKeyLock = lock;
+            }
+            else
+            {
+                locks.put( resourceId, lock );
+            }
+        }
+
+        void remove( long resourceId )
+        {
+            if ( resourceId == RESERVED_KEY )
+            {
+                reservedKeyLock = null;
+            }
+            else
+            {
+                locks.remove( resourceId );
+            }
+        }
+
+        void visitEntries( PrimitiveLongObjectVisitor<ForsetiLockManager.Lock> visitor )
+        {
+            locks.visitEntries( visitor );
+            if ( reservedKeyLock != null )
+            {
+                visitor.visited( RESERVED_KEY, reservedKeyLock );
+            }
+        }
+    }
+}
@@ -19,8 +19,13 @@
  */
 package org.neo4j.kernel.ha.management;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import javax.management.NotCompliantMBeanException;
 
+import org.neo4j.com.monitor.ChunkCompressionStatistics;
 import org.neo4j.helpers.Format;
 import org.neo4j.helpers.Service;
 import org.neo4j.jmx.impl.ManagementBeanProvider;
@@ -28,6 +33,7 @@ import org.neo4j.jmx.impl.ManagementData;
 import org.neo4j.jmx.impl.Neo4jMBean;
 import org.neo4j.kernel.ha.HighlyAvailableGraphDatabase;
 import org.neo4j.kernel.ha.UpdatePuller;
+import org.neo4j.kernel.ha.transaction.ReplicationStreams;
 import org.neo4j.management.ClusterMemberInfo;
 import org.neo4j.management.HighAvailability;
 
@@ -124,6 +130,26 @@ public final class HighAvailabilityBean extends ManagementBeanProvider
             return kernelData.getMemberInfo().getLastCommittedTxId();
         }
 
+        @Override
+        public String[] getSlaveLag()
+        {
+            Map<Integer, Long> lag = kernelData.graphDatabase().getDependencyResolver().resolveDependency(
+                    ReplicationStreams.class ).lag();
+            List<String> result = new ArrayList<>();
+            for ( Map.Entry<Integer, Long> slave : lag.entrySet() )
+            {
+                result.add( "Instance " + slave.getKey() + ": " + slave.getValue() + " transactions behind" );
+            }
+            return result.toArray( new String[result.size()] );
+        }
+
+        @Override
+        public String getCompressionStatistics()
+        {
+            return kernelData.graphDatabase().getDependencyResolver().resolveDependency(
+                    ChunkCompressionStatistics.class ).toString();
+        }
+
         @Override
         public String update()
         {
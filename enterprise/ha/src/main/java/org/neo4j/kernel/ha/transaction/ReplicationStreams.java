@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.transaction;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.helpers.Clock;
+
+/**
+ * Lets replication stream requests from slaves wait on the master for transactions to be committed, and keeps track
+ * of how far behind the master each slave is, as of its latest request for updates.
+ * <p/>
+ * A slave is forgotten when it leaves the cluster, or when it has not asked for updates within the stream timeout,
+ * i.e. when its stream has ended without the cluster noticing.
+ */
+public class ReplicationStreams
+{
+    private final ConcurrentMap<Integer, SlaveProgress> lastAppliedBySlave = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final long streamTimeoutMillis;
+    private long lastCommittedTxId;
+
+    public ReplicationStreams( Clock clock, long streamTimeoutMillis )
+    {
+        this.clock = clock;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+    }
+
+    public synchronized void committed( long txId )
+    {
+        if ( txId > lastCommittedTxId )
+        {
+            lastCommittedTxId = txId;
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return {@code true} if a transaction with an id higher than {@code txId} has been committed, {@code false}
+     * if none was committed within the given timeout.
+     */
+    public synchronized boolean awaitCommittedAfter( long txId, long timeoutMillis ) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while ( lastCommittedTxId <= txId && remaining > 0 )
+        {
+            wait( remaining );
+            remaining = end - System.currentTimeMillis();
+        }
+        return lastCommittedTxId > txId;
+    }
+
+    public void slaveApplied( int serverId, long txId )
+    {
+        lastAppliedBySlave.put( serverId, new SlaveProgress( txId, clock.currentTimeMillis() ) );
+    }
+
+    /**
+     * Called when the session of a slave has ended, because it left or failed, or because this instance is no longer
+     * the master.
+     */
+    public void slaveLeft( int serverId )
+    {
+        lastAppliedBySlave.remove( serverId );
+    }
+
+    public void allSlavesLeft()
+    {
+        lastAppliedBySlave.clear();
+    }
+
+    /**
+     * @return the number of transactions each slave with an ongoing stream is behind, by server id.
+     */
+    public Map<Integer, Long> lag()
+    {
+        long lastCommitted;
+        synchronized ( this )
+        {
+            lastCommitted = lastCommittedTxId;
+        }
+        long staleBefore = clock.currentTimeMillis() - streamTimeoutMillis;
+        Map<Integer, Long> lag = new TreeMap<>();
+        for ( Iterator<Map.Entry<Integer, SlaveProgress>> slaves = lastAppliedBySlave.entrySet().iterator();
+              slaves.hasNext(); )
+        {
+            Map.Entry<Integer, SlaveProgress> slave = slaves.next();
+            if ( slave.getValue().requestedAt < staleBefore )
+            {
+                slaves.remove();
+                continue;
+            }
+            lag.put( slave.getKey(), Math.max( 0, lastCommitted - slave.getValue().lastAppliedTxId ) );
+        }
+        return lag;
+    }
+
+    private static class SlaveProgress
+    {
+        private final long lastAppliedTxId;
+        private final long requestedAt;
+
+        SlaveProgress( long lastAppliedTxId, long requestedAt )
+        {
+            this.lastAppliedTxId = lastAppliedTxId;
+            this.requestedAt = requestedAt;
+        }
+    }
+}
@@ -34,6 +34,7 @@ import java.util.concurrent.TimeUnit;
 import org.neo4j.cluster.ClusterSettings;
 import org.neo4j.cluster.InstanceId;
 import org.neo4j.com.ComException;
+import org.neo4j.helpers.Clock;
 import org.neo4j.helpers.NamedThreadFactory;
 import org.neo4j.helpers.Predicate;
 import org.neo4j.helpers.collection.FilteringIterator;
@@ -123,6 +124,7 @@ public class TransactionPropagator implements Lifecycle
     private final Configuration config;
     private final Slaves slaves;
     private final CommitPusher pusher;
+    private final ReplicationStreams streams;
     private final CappedOperation<Throwable> slaveCommitFailureLogger = new CappedOperation<Throwable>(
             CappedOperation.time( 5, TimeUnit.SECONDS ),
             CappedOperation.differentItemClasses() )
@@ -136,11 +138,18 @@ public class TransactionPropagator implements Lifecycle
     };
 
     public TransactionPropagator( Configuration config, StringLogger log, Slaves slaves, CommitPusher pusher )
+    {
+        this( config, log, slaves, pusher, new ReplicationStreams( Clock.SYSTEM_CLOCK, Long.MAX_VALUE ) );
+    }
+
+    public TransactionPropagator( Configuration config, StringLogger log, Slaves slaves, CommitPusher pusher,
+                                  ReplicationStreams streams )
     {
         this.config = config;
         this.log = log;
         this.slaves = slaves;
         this.pusher = pusher;
+        this.streams = streams;
     }
 
     @Override
@@ -169,6 +178,9 @@ public class TransactionPropagator implements Lifecycle
 
     public void committed( long txId, int authorId )
     {
+        // Wake up the replication streams first, they don't need to wait for the slaves we push to below
+        streams.committed( txId );
+
         int replicationFactor = desiredReplicationFactor;
         // If the author is not this instance, then we need to push to one less - the committer already has it
         if ( config.getServerId().toIntegerIndex() != authorId )
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A growable byte array which entities are encoded into and decoded from. Most numbers are written as variable
+ * length integers, seven bits per byte, so that small numbers, such as deltas between sorted ids, take little
+ * space.
+ */
+class CodecBuffer
+{
+    private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    private byte[] bytes;
+    private int position;
+
+    CodecBuffer( int initialCapacity )
+    {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    /**
+     * Creates a buffer for reading the given data.
+     */
+    CodecBuffer( byte[] data )
+    {
+        this.bytes = data;
+    }
+
+    void clear()
+    {
+        position = 0;
+    }
+
+    byte[] array()
+    {
+        return bytes;
+    }
+
+    int length()
+    {
+        return position;
+    }
+
+    void putByte( int value )
+    {
+        ensureCapacity( 1 );
+        bytes[position++] = (byte) value;
+    }
+
+    void putVarLong( long value )
+    {
+        ensureCapacity( 10 );
+        while ( (value & ~0x7FL) != 0 )
+        {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+    }
+
+    /**
+     * Writes a number which may be negative, zig-zag encoded so that numbers close to zero stay small.
+     */
+    void putSignedVarLong( long value )
+    {
+        putVarLong( (value << 1) ^ (value >> 63) );
+    }
+
+    void putLong( long value )
+    {
+        ensureCapacity( 8 );
+        for ( int i = 0; i < 8; i++ )
+        {
+            bytes[position++] = (byte) (value >>> (i * 8));
+        }
+    }
+
+    void putString( String value )
+    {
+        byte[] encoded = value.getBytes( UTF8 );
+        putVarLong( encoded.length );
+        ensureCapacity( encoded.length );
+        System.arraycopy( encoded, 0, bytes, position, encoded.length );
+        position += encoded.length;
+    }
+
+    byte getByte()
+    {
+        return bytes[position++];
+    }
+
+    long getVarLong()
+    {
+        long value = 0;
+        for ( int shift = 0; ; shift += 7 )
+        {
+            byte b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if ( (b & 0x80) == 0 )
+            {
+                return value;
+            }
+        }
+    }
+
+    int getVarInt()
+    {
+        return (int) getVarLong();
+    }
+
+    long getSignedVarLong()
+    {
+        long value = getVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long getLong()
+    {
+        long value = 0;
+        for ( int i = 0; i < 8; i++ )
+        {
+            value |= (bytes[position++] & 0xFFL) << (i * 8);
+        }
+        return value;
+    }
+
+    String getString()
+    {
+        int length = getVarInt();
+        String value = new String( bytes, position, length, UTF8 );
+        position += length;
+        return value;
+    }
+
+    private void ensureCapacity( int additional )
+    {
+        if ( position + additional > bytes.length )
+        {
+            bytes = Arrays.copyOf( bytes, Math.max( bytes.length * 2, position + additional ) );
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+/**
+ * Turns cached entities into bytes and back, for caches keeping entities outside of the Java heap.
+ * Only state that the entity has loaded is encoded, and whatever isn't encoded is loaded again, from the store,
+ * after decoding.
+ */
+interface EntityCodec<E extends EntityWithSizeObject>
+{
+    /**
+     * Writes a consistent snapshot of the state of the given entity, except for its id, to the buffer, even if
+     * the entity is being changed concurrently.
+     */
+    void encode( E entity, CodecBuffer buffer );
+
+    E decode( long id, CodecBuffer buffer );
+}
@@ -25,6 +25,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
 import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.kernel.info.DiagnosticsPhase;
 import org.neo4j.kernel.info.DiagnosticsProvider;
@@ -442,6 +443,19 @@ public class HighPerformanceCache<E extends EntityWithSizeObject> implements Cac
         highestIdSet.set( 0 );
     }
 
+    @Override
+    public void visitKeys( PrimitiveLongVisitor visitor )
+    {
+        for ( int i = 0; i < cache.length(); i++ )
+        {
+            E obj = cache.get( i );
+            if ( obj != null )
+            {
+                visitor.visited( obj.getId() );
+            }
+        }
+    }
+
     @Override
     public void putAll( Collection<E> objects )
     {
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.impl.core.NodeImpl;
+import org.neo4j.kernel.impl.util.RelIdArray;
+import org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper;
+import org.neo4j.kernel.impl.util.RelIdArrayWithLoops;
+import org.neo4j.kernel.impl.util.RelIdIterator;
+
+/**
+ * Encodes the labels, short properties and relationship ids a node has loaded. Relationship ids are encoded
+ * per type and direction as deltas between consecutive ids, which mostly are close to each other, and only
+ * once all relationships of the node have been loaded.
+ *
+ * Nodes are encoded while holding their monitor, which is held for every change made to them, so that what's
+ * encoded is a consistent snapshot even if the node is being changed concurrently.
+ */
+class NodeCodec implements EntityCodec<NodeImpl>
+{
+    private static final int LABELS = 1;
+    private static final int PROPERTIES = 2;
+    private static final int RELATIONSHIPS = 4;
+
+    @Override
+    public void encode( NodeImpl node, CodecBuffer buffer )
+    {
+        synchronized ( node )
+        {
+            encodeSnapshot( node, buffer );
+        }
+    }
+
+    private void encodeSnapshot( NodeImpl node, CodecBuffer buffer )
+    {
+        int[] labels = node.getCachedLabelsIfLoaded();
+        DefinedProperty[] properties = node.getCachedPropertiesIfLoaded();
+        RelIdArray[] relationships = node.getCachedRelationshipsIfAllLoaded();
+        boolean inlineProperties = PropertyCodec.canInline( properties );
+        buffer.putByte( (labels != null ? LABELS : 0) | (inlineProperties ? PROPERTIES : 0) |
+                (relationships != null ? RELATIONSHIPS : 0) );
+
+        if ( labels != null )
+        {
+            buffer.putVarLong( labels.length );
+            long previous = 0;
+            for ( int label : labels )
+            {
+                buffer.putSignedVarLong( label - previous );
+                previous = label;
+            }
+        }
+        if ( inlineProperties )
+        {
+            PropertyCodec.encode( properties, buffer );
+        }
+        if ( relationships != null )
+        {
+            buffer.putVarLong( relationships.length );
+            for ( RelIdArray ids : relationships )
+            {
+                boolean loops = ids.exactLength( DirectionWrapper.BOTH ) > 0;
+                buffer.putVarLong( ids.getType() );
+                buffer.putByte( loops ? 1 : 0 );
+                encodeIds( ids, DirectionWrapper.OUTGOING, buffer );
+                encodeIds( ids, DirectionWrapper.INCOMING, buffer );
+                if ( loops )
+                {
+                    encodeIds( ids, DirectionWrapper.BOTH, buffer );
+                }
+            }
+        }
+    }
+
+    private void encodeIds( RelIdArray ids, DirectionWrapper direction, CodecBuffer buffer )
+    {
+        buffer.putVarLong( ids.exactLength( direction ) );
+        long previous = 0;
+        for ( RelIdIterator iterator = ids.exactIterator( direction ); iterator.hasNext(); )
+        {
+            long id = iterator.next();
+            buffer.putSignedVarLong( id - previous );
+            previous = id;
+        }
+    }
+
+    @Override
+    public NodeImpl decode( long id, CodecBuffer buffer )
+    {
+        NodeImpl node = new NodeImpl( id );
+        byte flags = buffer.getByte();
+        if ( (flags & LABELS) != 0 )
+        {
+            int[] labels = new int[buffer.getVarInt()];
+            long previous = 0;
+            for ( int i = 0; i < labels.length; i++ )
+            {
+                previous += buffer.getSignedVarLong();
+                labels[i] = (int) previous;
+            }
+            node.commitLabels( labels );
+        }
+        if ( (flags & PROPERTIES) != 0 )
+        {
+            node.restoreCachedProperties( PropertyCodec.decode( buffer ) );
+        }
+        if ( (flags & RELATIONSHIPS) != 0 )
+        {
+            RelIdArray[] relationships = new RelIdArray[buffer.getVarInt()];
+            for ( int i = 0; i < relationships.length; i++ )
+            {
+                int type = buffer.getVarInt();
+                boolean loops = buffer.getByte() != 0;
+                RelIdArray ids = loops ? new RelIdArrayWithLoops( type ) : new RelIdArray( type );
+                decodeIds( ids, DirectionWrapper.OUTGOING, buffer );
+                decodeIds( ids, DirectionWrapper.INCOMING, buffer );
+                if ( loops )
+                {
+                    decodeIds( ids, DirectionWrapper.BOTH, buffer );
+                }
+                relationships[i] = ids;
+            }
+            node.restoreCachedRelationships( relationships );
+        }
+        return node;
+    }
+
+    private void decodeIds( RelIdArray ids, DirectionWrapper direction, CodecBuffer buffer )
+    {
+        int length = buffer.getVarInt();
+        long id = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            id += buffer.getSignedVarLong();
+            ids.add( id, direction );
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.kernel.impl.util.StringLogger;
+
+/**
+ * A {@link SetAssociativeCache} which, instead of dropping the entities it evicts, encodes them into an
+ * {@link OffHeapStore} outside of the Java heap. Entities found there are decoded and put back on the heap
+ * when asked for, so that lots of entities can be cached without the garbage collector having to deal with them.
+ *
+ * An entity is encoded before it's evicted from the heap, so that it's always in one of the two places while
+ * cached. Every change to a cached entity is followed by a call to {@link #updateSize(EntityWithSizeObject, int)},
+ * which drops any encoded copy of it, so that a copy encoded before the change is never decoded after it.
+ *
+ * Entities on the heap are returned without locking. The off-heap store is split into stripes by entity id, each
+ * with a lock of its own, which is only held while touching the store itself, never while encoding, decoding or
+ * putting entities on the heap. Instead, encoded copies and decoded entities are thrown away if their stripe saw
+ * changes while they were made.
+ */
+public class OffHeapCache<E extends EntityWithSizeObject> extends SetAssociativeCache<E>
+        implements ChangeTrackingCache<E>
+{
+    // Stripes are only worth having when they each get a decent amount of memory
+    private static final long MIN_STRIPE_SIZE = 1024 * 1024;
+    private static final int RESTORING = 0;
+    private static final int ASKED_FOR_WHILE_RESTORING = 1;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final EntityCodec<E> codec;
+    private final ThreadLocal<CodecBuffer> buffers = new ThreadLocal<CodecBuffer>()
+    {
+        @Override
+        protected CodecBuffer initialValue()
+        {
+            return new CodecBuffer( 256 );
+        }
+    };
+    private final StripedCounter offHeapHits = new StripedCounter();
+
+    OffHeapCache( long maxSizeInBytes, float arrayHeapFraction, long maxOffHeapSizeInBytes,
+                  long minLogInterval, String name, StringLogger logger, Monitor monitor,
+                  EntityCodec<E> codec )
+    {
+        this( numberOfSets( arrayHeapFraction ), maxSizeInBytes, maxOffHeapSizeInBytes, minLogInterval, name,
+                logger, monitor, codec );
+    }
+
+    OffHeapCache( int numberOfSets, long maxSizeInBytes, long maxOffHeapSizeInBytes, long minLogInterval,
+                  String name, StringLogger logger, Monitor monitor, EntityCodec<E> codec )
+    {
+        super( numberOfSets, maxSizeInBytes, minLogInterval, name, logger, monitor );
+        int stripeCount = numberOfStripes( maxOffHeapSizeInBytes );
+        this.stripes = new Stripe[stripeCount];
+        for ( int i = 0; i < stripeCount; i++ )
+        {
+            stripes[i] = new Stripe( maxOffHeapSizeInBytes / stripeCount );
+        }
+        this.stripeMask = stripeCount - 1;
+        this.codec = codec;
+    }
+
+    private static int numberOfStripes( long maxOffHeapSizeInBytes )
+    {
+        int wanted = Integer.highestOneBit( Runtime.getRuntime().availableProcessors() * 4 - 1 ) << 1;
+        long affordable = Long.highestOneBit( Math.max( 1, maxOffHeapSizeInBytes / MIN_STRIPE_SIZE ) );
+        return (int) Math.min( wanted, affordable );
+    }
+
+    @Override
+    public E get( long id )
+    {
+        E entity = super.get( id );
+        if ( entity != null )
+        {
+            return entity;
+        }
+
+        Stripe stripe = stripeOf( id );
+        byte[] data;
+        long changes;
+        synchronized ( stripe )
+        {
+            // Someone may have brought it back while we were waiting for the lock
+            entity = lookup( id );
+            if ( entity == null )
+            {
+                if ( stripe.restoring.containsKey( id ) )
+                {   // Whoever is restoring it may put it back after we miss it, see below
+                    stripe.restoring.put( id, ASKED_FOR_WHILE_RESTORING );
+                    return null;
+                }
+                data = stripe.store.take( id );
+                if ( data == null )
+                {
+                    return null;
+                }
+                stripe.restoring.put( id, RESTORING );
+                changes = stripe.changes;
+            }
+            else
+            {
+                data = null;
+                changes = 0;
+            }
+        }
+
+        if ( data != null )
+        {
+            entity = put( codec.decode( id, new CodecBuffer( data ) ) );
+            synchronized ( stripe )
+            {
+                // Someone missed it while we were decoding it, and may have changed it without us seeing it
+                if ( stripe.restoring.remove( id ) == ASKED_FOR_WHILE_RESTORING || stripe.changes != changes )
+                {
+                    super.remove( id );
+                    stripe.store.remove( id );
+                }
+            }
+        }
+        offHeapHits.increment();
+        return entity;
+    }
+
+    @Override
+    protected void evicting( E entity )
+    {
+        long id = entity.getId();
+        Stripe stripe = stripeOf( id );
+        long changes = stripe.changes;
+        CodecBuffer buffer = buffers.get();
+        buffer.clear();
+        codec.encode( entity, buffer );
+        synchronized ( stripe )
+        {
+            // Unless something in this stripe changed since we started, the copy is as new as the entity
+            if ( stripe.changes == changes )
+            {
+                stripe.store.put( id, buffer.array(), buffer.length() );
+            }
+        }
+    }
+
+    @Override
+    protected void evictionFailed( E entity )
+    {
+        // It's either still on the heap or removed, either way our copy isn't needed
+        dropCopy( entity.getId() );
+    }
+
+    @Override
+    public void updateSize( E obj, int newSize )
+    {
+        super.updateSize( obj, newSize );
+        dropCopy( obj.getId() );
+    }
+
+    @Override
+    public E remove( long id )
+    {
+        E removed = super.remove( id );
+        dropCopy( id );
+        return removed;
+    }
+
+    private void dropCopy( long id )
+    {
+        Stripe stripe = stripeOf( id );
+        synchronized ( stripe )
+        {
+            stripe.store.remove( id );
+            stripe.changes++;
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        super.clear();
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                stripe.store.clear();
+                stripe.changes++;
+            }
+        }
+    }
+
+    private Stripe stripeOf( long id )
+    {
+        return stripes[(int) (id ^ (id >>> 32)) & stripeMask];
+    }
+
+    @Override
+    public long hitCount()
+    {
+        return super.hitCount() + offHeapHits.sum();
+    }
+
+    @Override
+    public long missCount()
+    {
+        return super.missCount() - offHeapHits.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        long entries = 0;
+        long allocated = 0;
+        long dropped = 0;
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                entries += stripe.store.entries();
+                allocated += stripe.store.allocatedBytes();
+                dropped += stripe.store.droppedEntries();
+            }
+        }
+        return super.toString() + " off-heap entries:" + entries + " allocated:" + allocated + "B dropped:" +
+                dropped + " stripes:" + stripes.length + " hits:" + offHeapHits.sum();
+    }
+
+    private static class Stripe
+    {
+        // All guarded by the stripe itself
+        private final OffHeapStore store;
+        // Ids taken off-heap and on their way back to the heap
+        private final PrimitiveLongIntMap restoring = Primitive.longIntMap();
+        // Incremented whenever copies are dropped, volatile since encoding starts out without the lock
+        private volatile long changes;
+
+        Stripe( long maxSizeInBytes )
+        {
+            this.store = new OffHeapStore( maxSizeInBytes );
+        }
+    }
+}
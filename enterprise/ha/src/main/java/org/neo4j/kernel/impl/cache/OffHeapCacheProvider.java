@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.core.NodeImpl;
+import org.neo4j.kernel.impl.core.RelationshipImpl;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.kernel.monitoring.Monitors;
+
+/**
+ * Provides {@link OffHeapCache off-heap caches}. Since most cached entities are expected to live off the heap,
+ * the heap part of the caches defaults to a smaller size than the {@link HighPerformanceCacheProvider
+ * High-Performance Cache} does.
+ */
+@Service.Implementation(CacheProvider.class)
+public class OffHeapCacheProvider extends CacheProvider
+{
+    public static final String NAME = "offheap";
+
+    public OffHeapCacheProvider()
+    {
+        super( NAME, "Off-Heap Cache" );
+    }
+
+    @Override
+    public Cache<NodeImpl> newNodeCache( StringLogger logger, Config config, Monitors monitors )
+    {
+        return new OffHeapCache<>( heapSize( config.get( HighPerformanceCacheSettings.node_cache_size ) ),
+                config.get( HighPerformanceCacheSettings.node_cache_array_fraction ),
+                config.get( OffHeapCacheSettings.node_off_heap_cache_size ),
+                config.get( HighPerformanceCacheSettings.log_interval ), NODE_CACHE_NAME, logger,
+                monitors.newMonitor( SetAssociativeCache.Monitor.class ), new NodeCodec() );
+    }
+
+    @Override
+    public Cache<RelationshipImpl> newRelationshipCache( StringLogger logger, Config config, Monitors monitors )
+    {
+        return new OffHeapCache<>( heapSize( config.get( HighPerformanceCacheSettings.relationship_cache_size ) ),
+                config.get( HighPerformanceCacheSettings.relationship_cache_array_fraction ),
+                config.get( OffHeapCacheSettings.relationship_off_heap_cache_size ),
+                config.get( HighPerformanceCacheSettings.log_interval ), RELATIONSHIP_CACHE_NAME, logger,
+                monitors.newMonitor( SetAssociativeCache.Monitor.class ), new RelationshipCodec() );
+    }
+
+    private static long heapSize( Long configured )
+    {
+        return configured != null ? configured : Runtime.getRuntime().maxMemory() / 10;
+    }
+
+    @Override
+    public Class getSettingsClass()
+    {
+        return OffHeapCacheSettings.class;
+    }
+}
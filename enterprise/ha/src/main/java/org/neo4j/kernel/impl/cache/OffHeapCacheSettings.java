@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.Description;
+
+import static org.neo4j.helpers.Settings.BYTES;
+import static org.neo4j.helpers.Settings.range;
+import static org.neo4j.helpers.Settings.setting;
+
+/**
+ * Settings for the Off-Heap Cache. The part of it on the Java heap is sized by the
+ * {@link HighPerformanceCacheSettings High-Performance Cache settings}.
+ */
+public class OffHeapCacheSettings
+{
+    @Description( "Maximum amount of memory outside of the Java heap for keeping nodes evicted from the node " +
+            "cache in, when using the off-heap cache. It's allocated as needed, as direct memory, so the JVM " +
+            "needs to be started with -XX:MaxDirectMemorySize set to at least the total off-heap cache size." )
+    @SuppressWarnings("unchecked")
+    public static final Setting<Long> node_off_heap_cache_size = setting( "node_off_heap_cache_size", BYTES,
+            "1G", range( 1024L, OffHeapStore.MAX_SIZE ) );
+
+    @Description( "Maximum amount of memory outside of the Java heap for keeping relationships evicted from the " +
+            "relationship cache in, when using the off-heap cache." )
+    @SuppressWarnings("unchecked")
+    public static final Setting<Long> relationship_off_heap_cache_size = setting(
+            "relationship_off_heap_cache_size", BYTES, "1G", range( 1024L, OffHeapStore.MAX_SIZE ) );
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+
+/**
+ * Keeps byte arrays, keyed by entity id, in direct memory outside of the Java heap. The memory is split into
+ * segments which are written one after the other, like a log. When all segments are full the oldest one is
+ * emptied, dropping the entries still in it, and written to again. Replacing or removing an entry only removes
+ * it from the index, its bytes stay where they are until their segment is reused.
+ *
+ * Segments are allocated as they're first needed. If the JVM runs out of direct memory, see
+ * -XX:MaxDirectMemorySize, the store keeps going with the segments it has.
+ *
+ * Not thread safe.
+ */
+class OffHeapStore
+{
+    static final int ALIGNMENT = 16;
+    static final long MAX_SIZE = ALIGNMENT * (long) Integer.MAX_VALUE;
+    private static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int HEADER_SIZE = 8/*id*/ + 4/*length*/;
+
+    private final int segmentSize;
+    private final ByteBuffer[] segments;
+    private final int[] limits;
+    // Entry addresses, in units of ALIGNMENT, which is what lets them fit in an int
+    private final PrimitiveLongIntMap index = Primitive.longIntMap();
+    private int usableSegments;
+    private int current = -1;
+    private long droppedEntries;
+
+    OffHeapStore( long maxSizeInBytes )
+    {
+        if ( maxSizeInBytes > MAX_SIZE )
+        {
+            throw new IllegalArgumentException( "Off-heap cache can not be bigger than " + MAX_SIZE +
+                    " bytes, was " + maxSizeInBytes );
+        }
+        int count = (int) Math.max( 2, (maxSizeInBytes + MAX_SEGMENT_SIZE - 1) / MAX_SEGMENT_SIZE );
+        this.segmentSize = (int) Math.max( ALIGNMENT, maxSizeInBytes / count / ALIGNMENT * ALIGNMENT );
+        this.segments = new ByteBuffer[count];
+        this.limits = new int[count];
+        this.usableSegments = count;
+    }
+
+    /**
+     * Stores the first {@code length} bytes of {@code data} for the given id, replacing what's stored for it.
+     * @return {@code false} if the data didn't fit, in which case nothing is stored for the id.
+     */
+    boolean put( long id, byte[] data, int length )
+    {
+        int entrySize = aligned( HEADER_SIZE + length );
+        if ( entrySize > segmentSize ||
+                ((current == -1 || limits[current] + entrySize > segmentSize) && !moveToNextSegment()) )
+        {
+            index.remove( id );
+            return false;
+        }
+
+        ByteBuffer segment = segments[current];
+        int offset = limits[current];
+        segment.putLong( offset, id );
+        segment.putInt( offset + 8, length );
+        segment.position( offset + HEADER_SIZE );
+        segment.put( data, 0, length );
+        limits[current] = offset + entrySize;
+        index.put( id, (int) (((long) current * segmentSize + offset) / ALIGNMENT) );
+        return true;
+    }
+
+    /**
+     * Removes what's stored for the given id.
+     * @return the removed data, or {@code null} if nothing was stored for the id.
+     */
+    byte[] take( long id )
+    {
+        int address = index.remove( id );
+        if ( address == -1 )
+        {
+            return null;
+        }
+        long position = (long) address * ALIGNMENT;
+        ByteBuffer segment = segments[(int) (position / segmentSize)];
+        int offset = (int) (position % segmentSize);
+        byte[] data = new byte[segment.getInt( offset + 8 )];
+        segment.position( offset + HEADER_SIZE );
+        segment.get( data );
+        return data;
+    }
+
+    void remove( long id )
+    {
+        index.remove( id );
+    }
+
+    void clear()
+    {
+        index.clear();
+        Arrays.fill( limits, 0 );
+        current = -1;
+    }
+
+    int entries()
+    {
+        return index.size();
+    }
+
+    long droppedEntries()
+    {
+        return droppedEntries;
+    }
+
+    long allocatedBytes()
+    {
+        long allocated = 0;
+        for ( ByteBuffer segment : segments )
+        {
+            allocated += segment != null ? segment.capacity() : 0;
+        }
+        return allocated;
+    }
+
+    private boolean moveToNextSegment()
+    {
+        if ( usableSegments == 0 )
+        {
+            return false;
+        }
+        int next = (current + 1) % usableSegments;
+        if ( segments[next] == null )
+        {
+            try
+            {
+                segments[next] = ByteBuffer.allocateDirect( segmentSize );
+            }
+            catch ( OutOfMemoryError e )
+            {   // Out of direct memory, make do with the segments we've got
+                usableSegments = next;
+                if ( next == 0 )
+                {
+                    return false;
+                }
+                next = 0;
+            }
+        }
+
+        dropEntriesIn( next );
+        current = next;
+        return true;
+    }
+
+    private void dropEntriesIn( int segmentIndex )
+    {
+        ByteBuffer segment = segments[segmentIndex];
+        int offset = 0;
+        while ( offset < limits[segmentIndex] )
+        {
+            long id = segment.getLong( offset );
+            int address = (int) (((long) segmentIndex * segmentSize + offset) / ALIGNMENT);
+            if ( index.get( id ) == address )
+            {
+                index.remove( id );
+                droppedEntries++;
+            }
+            offset += aligned( HEADER_SIZE + segment.getInt( offset + 8 ) );
+        }
+        limits[segmentIndex] = 0;
+    }
+
+    private static int aligned( int size )
+    {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.api.properties.Property;
+
+/**
+ * Encodes the cached properties of an entity, inlined into the encoded entity. Only short properties are
+ * inlined, i.e. primitives and short strings. If an entity has any other property, such as an array or a
+ * string that hasn't been loaded yet, none of its properties are encoded and they're loaded again on demand.
+ */
+class PropertyCodec
+{
+    static final int MAX_INLINED_STRING_LENGTH = 64;
+
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte SHORT = 3;
+    private static final byte CHAR = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte STRING = 9;
+
+    private PropertyCodec()
+    {
+    }
+
+    static boolean canInline( DefinedProperty[] properties )
+    {
+        if ( properties == null )
+        {
+            return false;
+        }
+        for ( DefinedProperty property : properties )
+        {
+            if ( !property.isValueLoaded() )
+            {
+                return false;
+            }
+            Object value = property.value();
+            if ( value instanceof String )
+            {
+                if ( ((String) value).length() > MAX_INLINED_STRING_LENGTH )
+                {
+                    return false;
+                }
+            }
+            else if ( !(value instanceof Number || value instanceof Boolean || value instanceof Character) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes properties which {@link #canInline(DefinedProperty[]) can be inlined}.
+     */
+    static void encode( DefinedProperty[] properties, CodecBuffer buffer )
+    {
+        buffer.putVarLong( properties.length );
+        for ( DefinedProperty property : properties )
+        {
+            buffer.putVarLong( property.propertyKeyId() );
+            Object value = property.value();
+            if ( value instanceof String )
+            {
+                buffer.putByte( STRING );
+                buffer.putString( (String) value );
+            }
+            else if ( value instanceof Boolean )
+            {
+                buffer.putByte( BOOLEAN );
+                buffer.putByte( (Boolean) value ? 1 : 0 );
+            }
+            else if ( value instanceof Character )
+            {
+                buffer.putByte( CHAR );
+                buffer.putVarLong( (Character) value );
+            }
+            else if ( value instanceof Byte )
+            {
+                buffer.putByte( BYTE );
+                buffer.putByte( (Byte) value );
+            }
+            else if ( value instanceof Short )
+            {
+                buffer.putByte( SHORT );
+                buffer.putSignedVarLong( (Short) value );
+            }
+            else if ( value instanceof Integer )
+            {
+                buffer.putByte( INT );
+                buffer.putSignedVarLong( (Integer) value );
+            }
+            else if ( value instanceof Long )
+            {
+                buffer.putByte( LONG );
+                buffer.putSignedVarLong( (Long) value );
+            }
+            else if ( value instanceof Float )
+            {
+                buffer.putByte( FLOAT );
+                buffer.putVarLong( Float.floatToRawIntBits( (Float) value ) & 0xFFFFFFFFL );
+            }
+            else if ( value instanceof Double )
+            {
+                buffer.putByte( DOUBLE );
+                buffer.putLong( Double.doubleToRawLongBits( (Double) value ) );
+            }
+            else
+            {
+                throw new IllegalArgumentException( "Can not inline " + property );
+            }
+        }
+    }
+
+    static DefinedProperty[] decode( CodecBuffer buffer )
+    {
+        DefinedProperty[] properties = new DefinedProperty[buffer.getVarInt()];
+        for ( int i = 0; i < properties.length; i++ )
+        {
+            int key = buffer.getVarInt();
+            byte type = buffer.getByte();
+            switch ( type )
+            {
+            case BOOLEAN:
+                properties[i] = Property.booleanProperty( key, buffer.getByte() != 0 );
+                break;
+            case BYTE:
+                properties[i] = Property.byteProperty( key, buffer.getByte() );
+                break;
+            case SHORT:
+                properties[i] = Property.shortProperty( key, (short) buffer.getSignedVarLong() );
+                break;
+            case CHAR:
+                properties[i] = Property.charProperty( key, (char) buffer.getVarLong() );
+                break;
+            case INT:
+                properties[i] = Property.intProperty( key, (int) buffer.getSignedVarLong() );
+                break;
+            case LONG:
+                properties[i] = Property.longProperty( key, buffer.getSignedVarLong() );
+                break;
+            case FLOAT:
+                properties[i] = Property.floatProperty( key, Float.intBitsToFloat( (int) buffer.getVarLong() ) );
+                break;
+            case DOUBLE:
+                properties[i] = Property.doubleProperty( key, Double.longBitsToDouble( buffer.getLong() ) );
+                break;
+            case STRING:
+                properties[i] = Property.stringProperty( key, buffer.getString() );
+                break;
+            default:
+                throw new IllegalStateException( "Unknown inlined property type " + type );
+            }
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.impl.core.RelationshipImpl;
+
+/**
+ * Encodes the nodes and type of a relationship, along with its short properties if it has loaded them.
+ */
+class RelationshipCodec implements EntityCodec<RelationshipImpl>
+{
+    @Override
+    public void encode( RelationshipImpl relationship, CodecBuffer buffer )
+    {
+        buffer.putVarLong( relationship.getStartNodeId() );
+        buffer.putVarLong( relationship.getEndNodeId() );
+        buffer.putVarLong( relationship.getTypeId() );
+        DefinedProperty[] properties = relationship.getCachedPropertiesIfLoaded();
+        if ( PropertyCodec.canInline( properties ) )
+        {
+            buffer.putByte( 1 );
+            PropertyCodec.encode( properties, buffer );
+        }
+        else
+        {
+            buffer.putByte( 0 );
+        }
+    }
+
+    @Override
+    public RelationshipImpl decode( long id, CodecBuffer buffer )
+    {
+        RelationshipImpl relationship = new RelationshipImpl( id, buffer.getVarLong(), buffer.getVarLong(),
+                buffer.getVarInt() );
+        if ( buffer.getByte() != 0 )
+        {
+            relationship.restoreCachedProperties( PropertyCodec.decode( buffer ) );
+        }
+        return relationship;
+    }
+}
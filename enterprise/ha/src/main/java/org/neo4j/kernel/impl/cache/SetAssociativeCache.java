@@ -0,0 +1,465 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.kernel.info.DiagnosticsPhase;
+import org.neo4j.kernel.info.DiagnosticsProvider;
+
+/**
+ * A cache where every entity maps to a set of {@link #WAYS} slots rather than to a single slot, so that an entity
+ * only pushes out another entity when all slots in its set are taken, and then the one least recently used by
+ * CLOCK standards. Keeping the cache within its size budget is done by the threads putting entities into it, each
+ * of them moving a shared clock hand over at most {@link #EVICTION_SCAN_LIMIT} slots, clearing reference bits and
+ * evicting unreferenced entities. There is no lock and no purge to wait for, at the cost of the cache temporarily
+ * going somewhat above its budget when entities are put faster than they are evicted.
+ *
+ * Statistics are kept in {@link StripedCounter striped counters}, so that they are accurate without all threads
+ * reading from the cache contending on the same counters.
+ */
+public class SetAssociativeCache<E extends EntityWithSizeObject> implements Cache<E>, DiagnosticsProvider
+{
+    public interface Monitor
+    {
+        void evicted( long sizeBefore, long sizeAfter, int numberOfEntitiesEvicted );
+    }
+
+    public static final long MIN_SIZE = 1;
+    static final int WAYS = 8;
+    static final int EVICTION_BATCH = 16;
+    static final int EVICTION_SCAN_LIMIT = 4 * EVICTION_BATCH;
+
+    private final AtomicReferenceArray<E> slots;
+    // CLOCK reference bits, one per slot, and hands, one per set. These are updated without synchronization
+    // since a lost update only means that an entity gets one chance more or less before being evicted.
+    private final byte[] referenced;
+    private final byte[] hands;
+    private final int sets;
+    private final long maxSize;
+    private final AtomicLong currentSize = new AtomicLong();
+    private final AtomicLong clockHand = new AtomicLong();
+    private final long minLogInterval;
+    private final String name;
+    private final StringLogger logger;
+    private final Monitor monitor;
+    private volatile long lastLogTimestamp;
+
+    private final StripedCounter hitCount = new StripedCounter();
+    private final StripedCounter missCount = new StripedCounter();
+    private final StripedCounter totalPuts = new StripedCounter();
+    private final StripedCounter collisions = new StripedCounter();
+    private final StripedCounter evictions = new StripedCounter();
+
+    SetAssociativeCache( int numberOfSets, long maxSizeInBytes, Monitor monitor )
+    {
+        this( numberOfSets, maxSizeInBytes, Long.MAX_VALUE, "test cache", StringLogger.DEV_NULL, monitor );
+    }
+
+    public SetAssociativeCache( long maxSizeInBytes, float arrayHeapFraction, long minLogInterval, String name,
+                                StringLogger logger, Monitor monitor )
+    {
+        this( numberOfSets( arrayHeapFraction ), maxSizeInBytes, minLogInterval, name, logger, monitor );
+    }
+
+    SetAssociativeCache( int numberOfSets, long maxSizeInBytes, long minLogInterval, String name,
+                         StringLogger logger, Monitor monitor )
+    {
+        if ( logger == null )
+        {
+            throw new IllegalArgumentException( "Null logger" );
+        }
+        if ( maxSizeInBytes < MIN_SIZE )
+        {
+            throw new IllegalArgumentException( "Max size can not be " + maxSizeInBytes );
+        }
+
+        this.sets = numberOfSets;
+        this.slots = new AtomicReferenceArray<>( numberOfSets * WAYS );
+        this.referenced = new byte[numberOfSets * WAYS];
+        this.hands = new byte[numberOfSets];
+        this.maxSize = maxSizeInBytes;
+        this.minLogInterval = minLogInterval;
+        this.name = name == null ? super.toString() : name;
+        this.logger = logger;
+        this.monitor = monitor;
+    }
+
+    static int numberOfSets( float arrayHeapFraction )
+    {
+        if ( arrayHeapFraction < 1 || arrayHeapFraction > 10 )
+        {
+            throw new IllegalArgumentException(
+                    "The heap fraction used by the Set-Associative Cache must be between 1% and 10%, not "
+                            + arrayHeapFraction + "%" );
+        }
+        long memToUse = (long)(((double)arrayHeapFraction) * Runtime.getRuntime().maxMemory() / 100);
+        // A reference and a reference bit per slot
+        long maxElementCount = Math.min( memToUse / 9, Integer.MAX_VALUE - WAYS );
+        return (int) Math.max( 1, maxElementCount / WAYS );
+    }
+
+    private int firstSlotOf( long id )
+    {
+        return (int) (id % sets) * WAYS;
+    }
+
+    @Override
+    public E put( E obj )
+    {
+        long time = System.currentTimeMillis();
+        if ( time - lastLogTimestamp > minLogInterval )
+        {
+            lastLogTimestamp = time;
+            printStatistics();
+        }
+
+        long id = obj.getId();
+        int first = firstSlotOf( id );
+        int objectSize = obj.sizeOfObjectInBytesIncludingOverhead();
+        while ( true )
+        {
+            int slot = -1;
+            for ( int i = first; i < first + WAYS; i++ )
+            {
+                E existing = slots.get( i );
+                if ( existing == null )
+                {
+                    if ( slot == -1 )
+                    {
+                        slot = i;
+                    }
+                }
+                else if ( existing.getId() == id )
+                {   // There's an existing element representing the same entity in this set, return the existing
+                    return existing;
+                }
+            }
+            if ( slot == -1 )
+            {   // The set is full, replace the least recently used element in it
+                slot = victimIn( first );
+            }
+
+            E oldObj = slots.get( slot );
+            obj.setRegisteredSize( objectSize );
+            if ( oldObj != null )
+            {
+                evicting( oldObj );
+            }
+            if ( !slots.compareAndSet( slot, oldObj, obj ) )
+            {   // Someone else changed this set right in front of our very nose, have another go
+                if ( oldObj != null )
+                {
+                    evictionFailed( oldObj );
+                }
+                continue;
+            }
+
+            referenced[slot] = 0;
+            int oldObjSize = 0;
+            if ( oldObj != null )
+            {
+                oldObjSize = oldObj.getRegisteredSize();
+                collisions.increment();
+            }
+            long size = currentSize.addAndGet( objectSize - oldObjSize );
+            totalPuts.increment();
+
+            E winner = resolveConcurrentPut( first, slot, obj );
+            if ( size > maxSize )
+            {
+                evict();
+            }
+            return winner;
+        }
+    }
+
+    /**
+     * Two threads putting elements representing the same entity may have placed them in different slots of the
+     * same set. The one in the lowest slot wins, since both threads agree on which that is.
+     */
+    private E resolveConcurrentPut( int first, int slot, E obj )
+    {
+        for ( int i = first; i < slot; i++ )
+        {
+            E other = slots.get( i );
+            if ( other != null && other.getId() == obj.getId() )
+            {
+                if ( slots.compareAndSet( slot, obj, null ) )
+                {
+                    currentSize.addAndGet( -obj.getRegisteredSize() );
+                }
+                return other;
+            }
+        }
+        return obj;
+    }
+
+    private int victimIn( int first )
+    {
+        int set = first / WAYS;
+        int hand = hands[set];
+        // Two laps, since the first may only clear reference bits
+        for ( int i = 0; i < 2 * WAYS; i++ )
+        {
+            int slot = first + (hand + i) % WAYS;
+            if ( referenced[slot] == 0 )
+            {
+                hands[set] = (byte) ((hand + i + 1) % WAYS);
+                return slot;
+            }
+            referenced[slot] = 0;
+        }
+        // Others keep referencing this set as we go, just pick the one under the hand
+        return first + hand;
+    }
+
+    private void evict()
+    {
+        long sizeBefore = currentSize.get();
+        int numberOfEntitiesEvicted = 0;
+        int scanned = 0;
+        while ( scanned < EVICTION_SCAN_LIMIT && currentSize.get() > maxSize )
+        {
+            // Claim a batch of slots at a time so that evicting threads don't contend on the hand for every slot
+            long from = clockHand.getAndAdd( EVICTION_BATCH );
+            for ( int i = 0; i < EVICTION_BATCH && currentSize.get() > maxSize; i++ )
+            {
+                int slot = (int) ((from + i) % slots.length());
+                E obj = slots.get( slot );
+                if ( obj == null )
+                {
+                    continue;
+                }
+                if ( referenced[slot] != 0 )
+                {   // Used since the hand last passed, give it another lap
+                    referenced[slot] = 0;
+                    continue;
+                }
+                evicting( obj );
+                if ( slots.compareAndSet( slot, obj, null ) )
+                {
+                    currentSize.addAndGet( -obj.getRegisteredSize() );
+                    numberOfEntitiesEvicted++;
+                }
+                else
+                {
+                    evictionFailed( obj );
+                }
+            }
+            scanned += EVICTION_BATCH;
+        }
+
+        if ( numberOfEntitiesEvicted > 0 )
+        {
+            evictions.add( numberOfEntitiesEvicted );
+            monitor.evicted( sizeBefore, currentSize.get(), numberOfEntitiesEvicted );
+        }
+    }
+
+    @Override
+    public E remove( long id )
+    {
+        int first = firstSlotOf( id );
+        E removed = null;
+        for ( int i = first; i < first + WAYS; i++ )
+        {
+            E obj = slots.get( i );
+            if ( obj != null && obj.getId() == id && slots.compareAndSet( i, obj, null ) )
+            {
+                currentSize.addAndGet( -obj.getRegisteredSize() );
+                removed = obj;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Called right before an entity is evicted from this cache, while it's still in it, so that subclasses can
+     * keep it elsewhere. If someone else changes its slot first, {@link #evictionFailed(EntityWithSizeObject)}
+     * is called and the entity may or may not still be in this cache.
+     */
+    protected void evicting( E entity )
+    {
+    }
+
+    protected void evictionFailed( E entity )
+    {
+    }
+
+    @Override
+    public E get( long id )
+    {
+        E obj = lookup( id );
+        if ( obj != null )
+        {
+            hitCount.increment();
+            return obj;
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * Like {@link #get(long)}, but without counting hits and misses.
+     */
+    protected E lookup( long id )
+    {
+        int first = firstSlotOf( id );
+        for ( int i = first; i < first + WAYS; i++ )
+        {
+            E obj = slots.get( i );
+            if ( obj != null && obj.getId() == id )
+            {
+                if ( referenced[i] == 0 )
+                {   // Only write if needed, to not have readers of neighbouring slots invalidate each others caches
+                    referenced[i] = 1;
+                }
+                return obj;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void updateSize( E obj, int newSize )
+    {
+        int first = firstSlotOf( obj.getId() );
+        for ( int i = first; i < first + WAYS; i++ )
+        {
+            if ( slots.get( i ) == obj )
+            {
+                long size = currentSize.addAndGet( newSize - obj.getRegisteredSize() );
+                obj.setRegisteredSize( newSize );
+                if ( size > maxSize )
+                {
+                    evict();
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        for ( int i = 0; i < slots.length(); i++ )
+        {
+            slots.set( i, null );
+            referenced[i] = 0;
+        }
+        currentSize.set( 0 );
+    }
+
+    @Override
+    public void visitKeys( PrimitiveLongVisitor visitor )
+    {
+        for ( int i = 0; i < slots.length(); i++ )
+        {
+            E obj = slots.get( i );
+            if ( obj != null )
+            {
+                visitor.visited( obj.getId() );
+            }
+        }
+    }
+
+    @Override
+    public void putAll( Collection<E> objects )
+    {
+        for ( E obj : objects )
+        {
+            put( obj );
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public long size()
+    {
+        return currentSize.get();
+    }
+
+    @Override
+    public long hitCount()
+    {
+        return hitCount.sum();
+    }
+
+    @Override
+    public long missCount()
+    {
+        return missCount.sum();
+    }
+
+    @Override
+    public void printStatistics()
+    {
+        if ( logger.isDebugEnabled() )
+        {
+            logger.debug( this.toString() );
+        }
+    }
+
+    @Override
+    public String getDiagnosticsIdentifier()
+    {
+        return getName();
+    }
+
+    @Override
+    public void acceptDiagnosticsVisitor( Object visitor )
+    {
+        // accept no visitors.
+    }
+
+    @Override
+    public void dump( DiagnosticsPhase phase, StringLogger log )
+    {
+        if ( phase.isExplicitlyRequested() )
+        {
+            log.debug( this.toString() );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        long puts = totalPuts.sum();
+        long collided = collisions.sum();
+        String missPercentage = ((float) misses / (float) (hits + misses) * 100.0f) + "%";
+        String colPercentage = ((float) collided / (float) puts * 100.0f) + "%";
+
+        return name + " sets:" + sets + "x" + WAYS + " size:" + currentSize.get() + "B/" + maxSize + "B" +
+                " misses:" + missPercentage + " collisions:" + colPercentage + " (" + collided + ") evictions:" +
+                evictions.sum();
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.core.NodeImpl;
+import org.neo4j.kernel.impl.core.RelationshipImpl;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.kernel.monitoring.Monitors;
+
+/**
+ * Provides {@link SetAssociativeCache set-associative caches}, sized by the same settings as the
+ * {@link HighPerformanceCacheProvider High-Performance Cache}.
+ */
+@Service.Implementation(CacheProvider.class)
+public class SetAssociativeCacheProvider extends CacheProvider
+{
+    public static final String NAME = "sac";
+
+    public SetAssociativeCacheProvider()
+    {
+        super( NAME, "Set-Associative Cache" );
+    }
+
+    @Override
+    public Cache<NodeImpl> newNodeCache( StringLogger logger, Config config, Monitors monitors )
+    {
+        checkMemToUse( logger, config );
+        long node = cacheSize( config.get( HighPerformanceCacheSettings.node_cache_size ) );
+        return new SetAssociativeCache<>( node, config.get( HighPerformanceCacheSettings.node_cache_array_fraction ),
+                config.get( HighPerformanceCacheSettings.log_interval ), NODE_CACHE_NAME, logger,
+                monitors.newMonitor( SetAssociativeCache.Monitor.class ) );
+    }
+
+    @Override
+    public Cache<RelationshipImpl> newRelationshipCache( StringLogger logger, Config config, Monitors monitors )
+    {
+        checkMemToUse( logger, config );
+        long rel = cacheSize( config.get( HighPerformanceCacheSettings.relationship_cache_size ) );
+        return new SetAssociativeCache<>( rel,
+                config.get( HighPerformanceCacheSettings.relationship_cache_array_fraction ),
+                config.get( HighPerformanceCacheSettings.log_interval ), RELATIONSHIP_CACHE_NAME, logger,
+                monitors.newMonitor( SetAssociativeCache.Monitor.class ) );
+    }
+
+    private static long cacheSize( Long configured )
+    {
+        return configured != null ? configured : Runtime.getRuntime().maxMemory() / 4;
+    }
+
+    @SuppressWarnings("boxing")
+    private static void checkMemToUse( StringLogger logger, Config config )
+    {
+        long available = Runtime.getRuntime().maxMemory();
+        long node = Math.max( SetAssociativeCache.MIN_SIZE,
+                cacheSize( config.get( HighPerformanceCacheSettings.node_cache_size ) ) );
+        long rel = Math.max( SetAssociativeCache.MIN_SIZE,
+                cacheSize( config.get( HighPerformanceCacheSettings.relationship_cache_size ) ) );
+        long total = node + rel;
+        long advicedMax = available / 2;
+        if ( total > available )
+        {
+            throw new IllegalArgumentException(
+                    String.format( "Configured cache memory limits (node=%s, relationship=%s, " +
+                            "total=%s) exceeds available heap space (%s)",
+                            node, rel, total, available ) );
+        }
+        if ( total > advicedMax )
+        {
+            logger.logMessage( String.format( "Configured cache memory limits(node=%s, relationship=%s, " +
+                    "total=%s) exceeds recommended limit (%s)",
+                    node, rel, total, advicedMax ) );
+        }
+    }
+
+    @Override
+    public Class getSettingsClass()
+    {
+        return HighPerformanceCacheSettings.class;
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which threads increment in different cache lines, depending on their id, so that threads counting
+ * the same event don't all contend on the same memory. Reading the total adds up all stripes, which is accurate
+ * but slower than incrementing, so it's meant for statistics that are counted often and read seldom.
+ */
+class StripedCounter
+{
+    // Longs between two stripes, so that they end up in different cache lines
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+
+    StripedCounter()
+    {
+        this( Runtime.getRuntime().availableProcessors() * 2 );
+    }
+
+    StripedCounter( int stripes )
+    {
+        this.stripes = Math.max( 1, stripes );
+        this.cells = new AtomicLongArray( this.stripes * PADDING );
+    }
+
+    void increment()
+    {
+        cells.incrementAndGet( stripe() );
+    }
+
+    void add( long delta )
+    {
+        cells.addAndGet( stripe(), delta );
+    }
+
+    long sum()
+    {
+        long sum = 0;
+        for ( int i = 0; i < stripes; i++ )
+        {
+            sum += cells.get( i * PADDING );
+        }
+        return sum;
+    }
+
+    private int stripe()
+    {
+        return (int) (Thread.currentThread().getId() % stripes) * PADDING;
+    }
+}
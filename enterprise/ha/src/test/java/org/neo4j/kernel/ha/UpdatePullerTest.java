@@ -21,10 +21,13 @@ package org.neo4j.kernel.ha;
 
 import java.net.URI;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import org.neo4j.cluster.ClusterSettings;
 import org.neo4j.cluster.InstanceId;
@@ -49,7 +52,9 @@ import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -75,6 +80,7 @@ public class UpdatePullerTest
     public void setup()
     {
         when( config.get( HaSettings.pull_interval ) ).thenReturn( 1000l );
+        when( config.get( HaSettings.tx_stream_enabled ) ).thenReturn( false );
         when( config.get( ClusterSettings.server_id ) ).thenReturn( myId );
         when( availabilityGuard.isAvailable( anyLong() ) ).thenReturn( true );
     }
@@ -292,6 +298,92 @@ public class UpdatePullerTest
         verifyNoMoreInteractions( lastUpdateTime, availabilityGuard, unpacker );
     }
 
+    @Test
+    public void shouldStreamUpdatesFromMasterUntilStopped() throws Throwable
+    {
+        // GIVEN
+        when( config.get( HaSettings.tx_stream_enabled ) ).thenReturn( true );
+        when( config.get( HaSettings.tx_stream_max_wait ) ).thenReturn( 5000l );
+        final UpdatePuller puller = new UpdatePuller(
+                stateMachine,
+                master,
+                requestContextFactory,
+                availabilityGuard,
+                lastUpdateTime,
+                config,
+                scheduler,
+                stringLogger,
+                unpacker );
+        final AtomicInteger requests = new AtomicInteger();
+        when( master.streamUpdates( Matchers.<RequestContext>any(), anyLong() ) ).thenAnswer( new Answer<Response<Void>>()
+        {
+            @Override
+            public Response<Void> answer( InvocationOnMock invocation ) throws Throwable
+            {
+                if ( requests.incrementAndGet() == 3 )
+                {
+                    puller.stop();
+                }
+                return null;
+            }
+        } );
+
+        // WHEN
+        puller.init();
+        puller.start();
+        scheduler.runJob();
+
+        // THEN
+        verify( master, times( 3 ) ).streamUpdates( Matchers.<RequestContext>any(), eq( 5000l ) );
+        verify( unpacker, times( 3 ) ).unpackResponse( Matchers.<Response>any() );
+        verify( lastUpdateTime, times( 3 ) ).setLastUpdateTime( anyLong() );
+        verify( master, never() ).pullUpdates( Matchers.<RequestContext>any() );
+    }
+
+    @Test
+    public void shouldFallBackToPullingUpdatesIfTheMasterDoesNotSupportStreams() throws Throwable
+    {
+        // GIVEN
+        when( config.get( HaSettings.tx_stream_enabled ) ).thenReturn( true );
+        when( config.get( HaSettings.tx_stream_max_wait ) ).thenReturn( 5000l );
+        when( config.get( HaSettings.pull_interval ) ).thenReturn( 1l );
+        final UpdatePuller puller = new UpdatePuller(
+                stateMachine,
+                master,
+                requestContextFactory,
+                availabilityGuard,
+                lastUpdateTime,
+                config,
+                scheduler,
+                stringLogger,
+                unpacker );
+        when( master.streamUpdates( Matchers.<RequestContext>any(), anyLong() ) )
+                .thenThrow( new UnsupportedOperationException() );
+        final AtomicInteger requests = new AtomicInteger();
+        when( master.pullUpdates( Matchers.<RequestContext>any() ) ).thenAnswer( new Answer<Response<Void>>()
+        {
+            @Override
+            public Response<Void> answer( InvocationOnMock invocation ) throws Throwable
+            {
+                if ( requests.incrementAndGet() == 3 )
+                {
+                    puller.stop();
+                }
+                return null;
+            }
+        } );
+
+        // WHEN
+        puller.init();
+        puller.start();
+        scheduler.runJob();
+
+        // THEN
+        verify( master, times( 1 ) ).streamUpdates( Matchers.<RequestContext>any(), anyLong() );
+        verify( master, times( 3 ) ).pullUpdates( Matchers.<RequestContext>any() );
+        verify( unpacker, times( 3 ) ).unpackResponse( Matchers.<Response>any() );
+    }
+
     private static class OnDemandCallScheduler extends LifecycleAdapter implements JobScheduler
     {
         private Runnable job;
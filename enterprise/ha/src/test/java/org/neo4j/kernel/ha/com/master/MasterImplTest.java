@@ -25,6 +25,8 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.HashMap;
@@ -125,6 +127,62 @@ public class MasterImplTest
         }
     }
 
+    @Test
+    public void shouldStreamAtMostOneBatchOfTransactions() throws Throwable
+    {
+        // Given
+        MasterImpl.SPI spi = mock( MasterImpl.SPI.class );
+        Map<String, String> params = new HashMap<>();
+        params.put( HaSettings.tx_stream_batch_size.name(), "10" );
+        params.put( HaSettings.tx_stream_batch_delay.name(), "0ms" );
+        params.put( ClusterSettings.server_id.name(), "1" );
+        Config config = new Config( params, HaSettings.class );
+
+        when( spi.awaitTransactionsCommittedAfter( anyLong(), anyLong() ) ).thenReturn( true );
+
+        MasterImpl instance = new MasterImpl( spi, mock( MasterImpl.Monitor.class ),
+                new DevNullLoggingService(), config );
+        RequestContext context = new RequestContext( 0, 2, 3, 42, 1, 0 );
+
+        // When
+        instance.streamUpdates( context, 1000 );
+
+        // Then
+        verify( spi ).slaveApplied( 2, 42 );
+        verify( spi ).awaitTransactionsCommittedAfter( 42, 1000 );
+        verify( spi ).packResponse( context, null, 52 );
+    }
+
+    @Test
+    public void shouldWaitForBatchToFillUpOnceThereAreTransactionsToStream() throws Throwable
+    {
+        // Given
+        MasterImpl.SPI spi = mock( MasterImpl.SPI.class );
+        Map<String, String> params = new HashMap<>();
+        params.put( HaSettings.tx_stream_batch_size.name(), "10" );
+        params.put( HaSettings.tx_stream_batch_delay.name(), "5ms" );
+        params.put( ClusterSettings.server_id.name(), "1" );
+        Config config = new Config( params, HaSettings.class );
+
+        when( spi.awaitTransactionsCommittedAfter( 42, 1000 ) ).thenReturn( false );
+
+        MasterImpl instance = new MasterImpl( spi, mock( MasterImpl.Monitor.class ),
+                new DevNullLoggingService(), config );
+
+        // When
+        instance.streamUpdates( new RequestContext( 0, 2, 3, 42, 1, 0 ), 1000 );
+
+        // Then no transactions arrived within the max wait, so there is no batch to fill up
+        verify( spi, never() ).awaitTransactionsCommittedAfter( 51, 5 );
+
+        // When
+        when( spi.awaitTransactionsCommittedAfter( 42, 1000 ) ).thenReturn( true );
+        instance.streamUpdates( new RequestContext( 0, 2, 3, 42, 1, 0 ), 1000 );
+
+        // Then
+        verify( spi ).awaitTransactionsCommittedAfter( 51, 5 );
+    }
+
     private Config config( int lockReadTimeout )
     {
         Map<String, String> params = new HashMap<String, String>();
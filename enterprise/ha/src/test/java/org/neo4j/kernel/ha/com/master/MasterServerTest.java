@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.com.master;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.neo4j.com.RequestContext;
+import org.neo4j.com.Server;
+import org.neo4j.com.TxChecksumVerifier;
+import org.neo4j.helpers.HostnamePort;
+import org.neo4j.kernel.ha.HaRequestType210;
+import org.neo4j.kernel.ha.MasterClient210;
+import org.neo4j.kernel.ha.MasterClient220;
+import org.neo4j.kernel.ha.lock.LockBatch;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.nioneo.store.StoreId;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.kernel.logging.DevNullLoggingService;
+import org.neo4j.kernel.monitoring.Monitors;
+
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class MasterServerTest
+{
+    private static final int PORT = 1237;
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final LifeSupport life = new LifeSupport();
+
+    @After
+    public void shutdown()
+    {
+        life.shutdown();
+    }
+
+    @Test
+    public void shouldAnswerRequestTypesItDoesNotKnowAsUnsupported() throws Throwable
+    {
+        // Given a master that doesn't know of replication streams
+        HaRequestType210[] knownTypes =
+                Arrays.copyOf( HaRequestType210.values(), HaRequestType210.STREAM_UPDATES.ordinal() );
+        life.add( new MasterServer( mock( Master.class ), DevNullLoggingService.DEV_NULL, configuration(),
+                TxChecksumVerifier.ALWAYS_MATCH, new Monitors(), knownTypes ) );
+        MasterClient220 client = life.add( new MasterClient220( "localhost", PORT, DevNullLoggingService.DEV_NULL,
+                new Monitors(), new StoreId(), 20, 20, 1, CHUNK_SIZE ) );
+        life.start();
+
+        // When
+        try
+        {
+            client.streamUpdates( RequestContext.EMPTY, 1000 );
+            fail( "Should not be supported" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // Then good
+        }
+    }
+
+    @Test
+    public void shouldNotSendReplicationStreamRequestsToMastersUsingAnOlderProtocol() throws Throwable
+    {
+        // Given
+        MasterClient210 client = new MasterClient210( "localhost", PORT, DevNullLoggingService.DEV_NULL,
+                new Monitors(), new StoreId(), 20, 20, 1, CHUNK_SIZE );
+
+        // When
+        try
+        {
+            client.streamUpdates( RequestContext.EMPTY, 1000 );
+            fail( "Should not be supported" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // Then good, and nothing was sent since the client was never started
+        }
+    }
+
+    @Test
+    public void shouldNotSendBatchedLockRequestsToMastersUsingAnOlderProtocol() throws Throwable
+    {
+        // Given
+        MasterClient210 client = new MasterClient210( "localhost", PORT, DevNullLoggingService.DEV_NULL,
+                new Monitors(), new StoreId(), 20, 20, 1, CHUNK_SIZE );
+        LockBatch locks = new LockBatch();
+        locks.add( true, ResourceTypes.NODE, 1 );
+
+        // When
+        try
+        {
+            client.acquireLocks( RequestContext.EMPTY, locks );
+            fail( "Should not be supported" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // Then good, the slave falls back to acquiring the locks one by one
+        }
+    }
+
+    private Server.Configuration configuration()
+    {
+        return new Server.Configuration()
+        {
+            @Override
+            public long getOldChannelThreshold()
+            {
+                return 20 * 1000;
+            }
+
+            @Override
+            public int getMaxConcurrentTransactions()
+            {
+                return Server.DEFAULT_MAX_NUMBER_OF_CONCURRENT_TRANSACTIONS;
+            }
+
+            @Override
+            public int getChunkSize()
+            {
+                return CHUNK_SIZE;
+            }
+
+            @Override
+            public HostnamePort getServerAddress()
+            {
+                return new HostnamePort( null, PORT );
+            }
+        };
+    }
+}
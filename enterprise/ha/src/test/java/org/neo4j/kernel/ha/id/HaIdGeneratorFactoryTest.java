@@ -33,12 +33,15 @@ import org.neo4j.kernel.ha.com.master.Master;
 import org.neo4j.kernel.impl.nioneo.store.IdGenerator;
 import org.neo4j.kernel.impl.nioneo.store.IdRange;
 import org.neo4j.kernel.logging.DevNullLoggingService;
+import org.neo4j.kernel.monitoring.Monitors;
 import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -152,6 +155,70 @@ public class HaIdGeneratorFactoryTest
         // THEN
         assertEquals ( highIdFromUpdatedRecord, gen.getHighId() );
     }
+
+    @Test
+    public void slaveShouldPrefetchNextRangeBeforeCurrentRunsOut() throws Exception
+    {
+        // GIVEN
+        fac = new HaIdGeneratorFactory( masterDelegate, new DevNullLoggingService(),
+                mock( RequestContextFactory.class ), true, 4, new Monitors() );
+        IdAllocation firstResult = new IdAllocation( new IdRange( new long[]{}, 42, 10 ), 42 + 10, 0 );
+        IdAllocation secondResult = new IdAllocation( new IdRange( new long[]{}, 1042, 10 ), 1042 + 10, 0 );
+        Response<IdAllocation> response = response( firstResult, secondResult );
+        when( master.allocateIds( any( RequestContext.class ), any( IdType.class ) ) ).thenReturn( response );
+        IdGenerator gen = switchToSlave();
+
+        // WHEN
+        assertEquals( 42, gen.nextId() );
+
+        // THEN
+        verify( master, timeout( 5000 ).times( 2 ) ).allocateIds( any( RequestContext.class ), eq( IdType.NODE ) );
+        for ( long i = 43; i < 52; i++ )
+        {
+            assertEquals( i, gen.nextId() );
+        }
+        assertEquals( 1042, gen.nextId() );
+        assertEquals( 1042 + 10, gen.getHighId() );
+    }
+
+    @Test
+    public void slaveShouldReleaseUnusedIdsWhenSwitchingToMaster() throws Exception
+    {
+        // GIVEN
+        IdAllocation firstResult = new IdAllocation( new IdRange( new long[]{}, 42, 10 ), 42 + 10, 0 );
+        Response<IdAllocation> response = response( firstResult );
+        when( master.allocateIds( any( RequestContext.class ), any( IdType.class ) ) ).thenReturn( response );
+        IdGenerator gen = switchToSlave();
+        gen.nextId();
+        gen.nextId();
+
+        // WHEN
+        fac.switchToMaster();
+
+        // THEN
+        assertEquals( 8, gen.getDefragCount() );
+    }
+
+    @Test
+    public void slaveShouldReportAllocationRoundTrips() throws Exception
+    {
+        // GIVEN
+        Monitors monitors = new Monitors();
+        HaIdGeneratorFactory.Monitor monitor = mock( HaIdGeneratorFactory.Monitor.class );
+        monitors.addMonitorListener( monitor );
+        fac = new HaIdGeneratorFactory( masterDelegate, new DevNullLoggingService(),
+                mock( RequestContextFactory.class ), false, 1, monitors );
+        IdAllocation firstResult = new IdAllocation( new IdRange( new long[]{}, 42, 10 ), 42 + 10, 0 );
+        Response<IdAllocation> response = response( firstResult );
+        when( master.allocateIds( any( RequestContext.class ), any( IdType.class ) ) ).thenReturn( response );
+        IdGenerator gen = switchToSlave();
+
+        // WHEN
+        gen.nextId();
+
+        // THEN
+        verify( monitor ).idRangeAllocated( eq( IdType.NODE ), eq( 10 ), anyLong() );
+    }
     
     private Master master;
     private DelegateInvocationHandler<Master> masterDelegate;
@@ -19,9 +19,14 @@
  */
 package org.neo4j.kernel.ha.lock;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import org.neo4j.com.RequestContext;
 import org.neo4j.com.ResourceReleaser;
@@ -33,25 +38,37 @@ import org.neo4j.kernel.ha.com.RequestContextFactory;
 import org.neo4j.kernel.ha.com.master.Master;
 import org.neo4j.kernel.impl.locking.Locks;
 
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.SCHEMA;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.schemaResource;
 
 public class SlaveLocksClientTest
 {
     private SlaveLocksClient client;
     private Master master;
     private Locks.Client local;
+    private Locks localLockManager;
+    private RequestContextFactory requestContextFactory;
+    private AvailabilityGuard availabilityGuard;
+    private TransactionCommittingResponseUnpacker unpacker;
+    private final List<String> sentBatches = new ArrayList<>();
 
     @Before
     public void setUp() throws Exception
     {
-        Locks localLockManager = mock( Locks.class );
+        localLockManager = mock( Locks.class );
 
         master = mock( Master.class );
         local = mock(Locks.Client.class);
@@ -61,7 +78,7 @@ public class SlaveLocksClientTest
 
         when(localLockManager.newClient()).thenReturn( local );
 
-        RequestContextFactory requestContextFactory = mock( RequestContextFactory.class );
+        requestContextFactory = mock( RequestContextFactory.class );
 
         when( master.acquireSharedLock( Matchers.<RequestContext>any(),
                 Matchers.<Locks.ResourceType>any(), Matchers.<long[]>anyVararg() ) ).thenReturn( new Response
@@ -72,11 +89,23 @@ public class SlaveLocksClientTest
                 Matchers.<Locks.ResourceType>any(), Matchers.<long[]>anyVararg() ) ).thenReturn( new Response
                 <>( new LockResult( LockStatus.OK_LOCKED ), null,
                 TransactionStream.EMPTY, ResourceReleaser.NO_OP  ));
-        AvailabilityGuard availabilityGuard = mock( AvailabilityGuard.class );
+        when( master.acquireLocks( Matchers.<RequestContext>any(), any( LockBatch.class ) ) ).thenAnswer(
+                new Answer<Response<LockResult>>()
+                {
+                    @Override
+                    public Response<LockResult> answer( InvocationOnMock invocation ) throws Throwable
+                    {
+                        // The batch is reused by the client, so remember what it looked like when it was sent
+                        sentBatches.add( invocation.getArguments()[1].toString() );
+                        return new Response<>( new LockResult( LockStatus.OK_LOCKED ), null,
+                                TransactionStream.EMPTY, ResourceReleaser.NO_OP );
+                    }
+                } );
+        availabilityGuard = mock( AvailabilityGuard.class );
         when( availabilityGuard.isAvailable( anyLong() )).thenReturn( true );
         SlaveLockManager.Configuration config = mock( SlaveLockManager.Configuration.class );
 
-        TransactionCommittingResponseUnpacker unpacker = mock( TransactionCommittingResponseUnpacker.class );
+        unpacker = mock( TransactionCommittingResponseUnpacker.class );
         when( unpacker.unpackResponse( Matchers.<Response>any() ) ).thenReturn( new LockResult( LockStatus.OK_LOCKED ) );
 
         client = new SlaveLocksClient(
@@ -199,4 +228,170 @@ public class SlaveLocksClientTest
         verify( local, times(1) ).trySharedLock( NODE, 1l);
         verify( local, times(0) ).releaseShared( NODE, 1l);
     }
+
+    @Test
+    public void shouldDeferExclusiveNodeLocksUntilCommitWhenBatching() throws Exception
+    {
+        // Given
+        Locks.Client batchingClient = newBatchingClient( 10 );
+        when( local.tryExclusiveLock( NODE, 2, 3 ) ).thenReturn( true );
+
+        // When
+        batchingClient.acquireDeferrableExclusive( NODE, 1 );
+        batchingClient.acquireDeferrableExclusive( NODE, 2, 3 );
+
+        // Then no round trip should have been made yet
+        verify( master, never() ).acquireLocks( Matchers.<RequestContext>any(), any( LockBatch.class ) );
+        verify( local ).tryExclusiveLock( NODE, 1 );
+        verify( local ).tryExclusiveLock( NODE, 2, 3 );
+
+        // When
+        batchingClient.prepareForCommit();
+
+        // Then all locks should be sent in one go, also initializing the transaction on the master
+        assertEquals( asList( "LockBatch[EXCLUSIVE NODE[1], EXCLUSIVE NODE[2, 3]]" ), sentBatches );
+        verify( master, never() ).initializeTx( Matchers.<RequestContext>any() );
+        verify( master, never() ).acquireExclusiveLock( Matchers.<RequestContext>any(),
+                Matchers.<Locks.ResourceType>any(), Matchers.<long[]>anyVararg() );
+    }
+
+    @Test
+    public void shouldSendDeferredLocksTogetherWithLockThatCannotBeDeferred() throws Exception
+    {
+        // Given
+        Locks.Client batchingClient = newBatchingClient( 10 );
+        batchingClient.acquireDeferrableExclusive( NODE, 1 );
+
+        // When
+        batchingClient.acquireShared( NODE, 2 );
+
+        // Then
+        assertEquals( asList( "LockBatch[EXCLUSIVE NODE[1], SHARED NODE[2]]" ), sentBatches );
+        verify( local ).trySharedLock( NODE, 2 );
+    }
+
+    @Test
+    public void shouldSendDeferredLocksWhenBatchIsFull() throws Exception
+    {
+        // Given
+        Locks.Client batchingClient = newBatchingClient( 3 );
+        when( local.tryExclusiveLock( NODE, 1, 2 ) ).thenReturn( true );
+
+        // When
+        batchingClient.acquireDeferrableExclusive( NODE, 1, 2 );
+        batchingClient.acquireDeferrableExclusive( NODE, 3 );
+        batchingClient.acquireDeferrableExclusive( NODE, 4 );
+
+        // Then
+        assertEquals( asList( "LockBatch[EXCLUSIVE NODE[1, 2], EXCLUSIVE NODE[3]]" ), sentBatches );
+    }
+
+    @Test
+    public void shouldNotDeferLocksTakenWhilePreparingCommit() throws Exception
+    {
+        // Given
+        Locks.Client batchingClient = newBatchingClient( 10 );
+        batchingClient.prepareForCommit();
+
+        // When
+        batchingClient.acquireDeferrableExclusive( NODE, 1 );
+
+        // Then
+        assertEquals( asList( "LockBatch[EXCLUSIVE NODE[1]]" ), sentBatches );
+    }
+
+    @Test
+    public void shouldForgetDeferredLocksOnRollback() throws Exception
+    {
+        // Given
+        Locks.Client batchingClient = newBatchingClient( 10 );
+        batchingClient.acquireDeferrableExclusive( NODE, 1 );
+
+        // When
+        batchingClient.releaseAll();
+
+        // Then nothing was ever held on the master, so there's nothing to finish there either
+        verify( master, never() ).acquireLocks( Matchers.<RequestContext>any(), any( LockBatch.class ) );
+        verify( master, never() ).finishTransaction( Matchers.<RequestContext>any(), anyBoolean() );
+    }
+
+    @Test
+    public void shouldNotSendDeferredLocksThatHaveBeenReleased() throws Exception
+    {
+        // Given
+        Locks.Client batchingClient = newBatchingClient( 10 );
+        when( local.tryExclusiveLock( NODE, 2, 3 ) ).thenReturn( true );
+        batchingClient.acquireDeferrableExclusive( NODE, 1 );
+        batchingClient.acquireDeferrableExclusive( NODE, 2, 3 );
+
+        // When
+        batchingClient.releaseExclusive( NODE, 1 );
+        batchingClient.releaseExclusive( NODE, 3 );
+        batchingClient.prepareForCommit();
+
+        // Then
+        assertEquals( asList( "LockBatch[EXCLUSIVE NODE[2]]" ), sentBatches );
+    }
+
+    @Test
+    public void shouldAcquireDeferredLocksOneByOneIfTheMasterCannotTakeBatches() throws Exception
+    {
+        // Given
+        when( master.acquireLocks( Matchers.<RequestContext>any(), any( LockBatch.class ) ) )
+                .thenThrow( new UnsupportedOperationException() );
+        Locks.Client batchingClient = newBatchingClient( 10 );
+        batchingClient.acquireDeferrableExclusive( NODE, 1 );
+
+        // When
+        batchingClient.acquireShared( NODE, 2 );
+
+        // Then
+        verify( master ).initializeTx( Matchers.<RequestContext>any() );
+        verify( master ).acquireExclusiveLock( Matchers.<RequestContext>any(), eq( NODE ), eq( 1l ) );
+        verify( master ).acquireSharedLock( Matchers.<RequestContext>any(), eq( NODE ), eq( 2l ) );
+
+        // When
+        batchingClient.acquireDeferrableExclusive( NODE, 3 );
+
+        // Then later locks go to the master right away, without trying another batch
+        verify( master ).acquireExclusiveLock( Matchers.<RequestContext>any(), eq( NODE ), eq( 3l ) );
+        verify( master, times( 1 ) ).acquireLocks( Matchers.<RequestContext>any(), any( LockBatch.class ) );
+    }
+
+    @Test
+    public void shouldAcquireExplicitExclusiveLocksOnMasterRightAwayWhenBatching() throws Exception
+    {
+        // Given
+        Locks.Client batchingClient = newBatchingClient( 10 );
+
+        // When
+        batchingClient.acquireExclusive( NODE, 1 );
+
+        // Then
+        assertEquals( asList( "LockBatch[EXCLUSIVE NODE[1]]" ), sentBatches );
+        verify( local ).tryExclusiveLock( NODE, 1 );
+    }
+
+    @Test
+    public void shouldAcquireSchemaLocksOnMasterRightAwayWhenBatching() throws Exception
+    {
+        // Given
+        Locks.Client batchingClient = newBatchingClient( 10 );
+        batchingClient.acquireDeferrableExclusive( NODE, 1 );
+
+        // When
+        batchingClient.acquireExclusive( SCHEMA, schemaResource() );
+
+        // Then
+        assertEquals( asList( "LockBatch[EXCLUSIVE NODE[1], EXCLUSIVE SCHEMA[0]]" ), sentBatches );
+    }
+
+    private Locks.Client newBatchingClient( int batchSize )
+    {
+        SlaveLockManager.Configuration config = mock( SlaveLockManager.Configuration.class );
+        when( config.isLockBatchingEnabled() ).thenReturn( true );
+        when( config.getLockBatchSize() ).thenReturn( batchSize );
+        return new SlaveLocksClient( master, local, localLockManager, requestContextFactory, availabilityGuard,
+                unpacker, config );
+    }
 }
@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.lock.forseti;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.locking.community.CommunityLockManger;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures lock throughput under high contention, many threads locking few resources, for the lock managers and
+ * for the global lock maps Forseti can use. Run with for example
+ * {@code -Dbenchmark=LOCK_MAPS -DmaxThreads=16 -Dresources=64}.
+ */
+public class ForsetiLockManagerMicroBenchmark
+{
+    public static void main( String... args ) throws Exception
+    {
+        Benchmark.valueOf( System.getProperty( "benchmark", Benchmark.LOCK_MANAGERS.name() ) ).execute();
+    }
+
+    enum Benchmark
+    {
+        /**
+         * Each transaction takes a shared lock on a hot resource, plus exclusive locks on a few random resources
+         * out of a small set, in sorted order so that there are no deadlocks, and then releases all of them.
+         */
+        LOCK_MANAGERS
+        {
+            @Override
+            void execute() throws Exception
+            {
+                for ( LockManager impl : LockManager.values() )
+                {
+                    for ( int threads = minThreads(); threads <= maxThreads(); threads *= 2 )
+                    {
+                        Locks locks = impl.create();
+                        report( this, impl, threads, run( threads, new LockManagerWorkload( locks ) ) );
+                    }
+                }
+            }
+        },
+        /**
+         * Isolates the global lock map: each operation inserts a lock for a random resource out of a small set if
+         * absent, looks it up and removes it again.
+         */
+        LOCK_MAPS
+        {
+            @Override
+            void execute() throws Exception
+            {
+                for ( LockMap impl : LockMap.values() )
+                {
+                    for ( int threads = minThreads(); threads <= maxThreads(); threads *= 2 )
+                    {
+                        report( this, impl, threads, run( threads, impl.workload() ) );
+                    }
+                }
+            }
+        };
+
+        abstract void execute() throws Exception;
+    }
+
+    enum LockManager
+    {
+        FORSETI
+        {
+            @Override
+            Locks create()
+            {
+                return new ForsetiLockManager( ResourceTypes.values() );
+            }
+        },
+        COMMUNITY
+        {
+            @Override
+            Locks create()
+            {
+                return new CommunityLockManger();
+            }
+        };
+
+        abstract Locks create();
+    }
+
+    enum LockMap
+    {
+        LOCK_TABLE
+        {
+            @Override
+            Workload workload()
+            {
+                final LockTable table = new LockTable( 128 );
+                return new Workload()
+                {
+                    @Override
+                    public void perform( Random random, long[] scratch )
+                    {
+                        long resourceId = random.nextInt( resources() );
+                        ForsetiLockManager.Lock lock = new ExclusiveLock( null );
+                        if ( table.putIfAbsent( resourceId, lock ) == null )
+                        {
+                            table.get( resourceId );
+                            table.remove( resourceId );
+                        }
+                    }
+                };
+            }
+        },
+        CONCURRENT_HASH_MAP
+        {
+            @Override
+            Workload workload()
+            {
+                final ConcurrentMap<Long, ForsetiLockManager.Lock> map = new ConcurrentHashMap<>( 16, 0.6f, 512 );
+                return new Workload()
+                {
+                    @Override
+                    public void perform( Random random, long[] scratch )
+                    {
+                        long resourceId = random.nextInt( resources() );
+                        ForsetiLockManager.Lock lock = new ExclusiveLock( null );
+                        if ( map.putIfAbsent( resourceId, lock ) == null )
+                        {
+                            map.get( resourceId );
+                            map.remove( resourceId );
+                        }
+                    }
+                };
+            }
+        };
+
+        abstract Workload workload();
+    }
+
+    interface Workload
+    {
+        void perform( Random random, long[] scratch );
+    }
+
+    private static class LockManagerWorkload implements Workload
+    {
+        private final Locks locks;
+
+        LockManagerWorkload( Locks locks )
+        {
+            this.locks = locks;
+        }
+
+        @Override
+        public void perform( Random random, long[] scratch )
+        {
+            for ( int i = 0; i < scratch.length; i++ )
+            {
+                scratch[i] = random.nextInt( resources() );
+            }
+            Arrays.sort( scratch );
+            try ( Locks.Client client = locks.newClient() )
+            {
+                client.acquireShared( ResourceTypes.SCHEMA, ResourceTypes.schemaResource() );
+                for ( long resourceId : scratch )
+                {
+                    client.acquireExclusive( ResourceTypes.NODE, resourceId );
+                }
+                client.releaseAll();
+            }
+        }
+    }
+
+    private static long run( int threads, final Workload workload ) throws InterruptedException
+    {
+        final long runNanos = SECONDS.toNanos( Integer.getInteger( "seconds", 5 ) );
+        final int locksPerTransaction = Integer.getInteger( "locksPerTransaction", 4 );
+        final AtomicLong operations = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch( 1 );
+        Thread[] workers = new Thread[threads];
+        for ( int i = 0; i < threads; i++ )
+        {
+            final int seed = i;
+            workers[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    Random random = new Random( seed );
+                    long[] scratch = new long[locksPerTransaction];
+                    long count = 0;
+                    try
+                    {
+                        start.await();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        return;
+                    }
+                    long end = nanoTime() + runNanos;
+                    while ( nanoTime() < end )
+                    {
+                        workload.perform( random, scratch );
+                        count++;
+                    }
+                    operations.addAndGet( count );
+                }
+            };
+            workers[i].start();
+        }
+        start.countDown();
+        for ( Thread worker : workers )
+        {
+            worker.join();
+        }
+        return operations.get() * SECONDS.toNanos( 1 ) / runNanos;
+    }
+
+    private static void report( Benchmark benchmark, Enum<?> impl, int threads, long operationsPerSecond )
+    {
+        System.out.printf( "%s / %s - %d threads: %,d ops/s (%,d ns/op per thread)%n", benchmark, impl, threads,
+                operationsPerSecond, NANOSECONDS.convert( threads, SECONDS ) / Math.max( 1, operationsPerSecond ) );
+    }
+
+    private static int minThreads()
+    {
+        return Integer.getInteger( "minThreads", 1 );
+    }
+
+    private static int maxThreads()
+    {
+        return Integer.getInteger( "maxThreads", Runtime.getRuntime().availableProcessors() * 2 );
+    }
+
+    private static int resources()
+    {
+        return Integer.getInteger( "resources", 64 );
+    }
+}
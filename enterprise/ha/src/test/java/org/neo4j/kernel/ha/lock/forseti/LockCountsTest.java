@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.lock.forseti;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.neo4j.collection.primitive.PrimitiveLongVisitor;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LockCountsTest
+{
+    private final LockCounts counts = new LockCounts();
+
+    @Test
+    public void shouldCountLocksPerResource() throws Exception
+    {
+        // WHEN
+        counts.put( 1, 1 );
+        counts.put( 2, 3 );
+
+        // THEN
+        assertEquals( 1, counts.get( 1 ) );
+        assertEquals( 3, counts.get( 2 ) );
+        assertEquals( 0, counts.get( 3 ) );
+        assertFalse( counts.contains( 3 ) );
+    }
+
+    @Test
+    public void shouldHandleResourceIdThatPrimitiveMapsReserve() throws Exception
+    {
+        // GIVEN index entry resource ids are hash codes, so can be anything
+        counts.put( -1, 2 );
+        counts.put( 5, 1 );
+
+        // WHEN
+        Set<Long> visited = visitKeys();
+
+        // THEN
+        assertEquals( 2, counts.get( -1 ) );
+        assertEquals( new HashSet<>( asList( -1L, 5L ) ), visited );
+        assertEquals( 2, counts.remove( -1 ) );
+        assertFalse( counts.contains( -1 ) );
+    }
+
+    @Test
+    public void shouldBeEmptyAfterClear() throws Exception
+    {
+        // GIVEN
+        counts.put( -1, 1 );
+        counts.put( 10, 1 );
+
+        // WHEN
+        counts.clear();
+
+        // THEN
+        assertTrue( counts.isEmpty() );
+        assertTrue( visitKeys().isEmpty() );
+        assertEquals( 0, counts.remove( 10 ) );
+    }
+
+    private Set<Long> visitKeys()
+    {
+        final Set<Long> visited = new HashSet<>();
+        counts.visitKeys( new PrimitiveLongVisitor()
+        {
+            @Override
+            public void visited( long value )
+            {
+                visited.add( value );
+            }
+        } );
+        return visited;
+    }
+}
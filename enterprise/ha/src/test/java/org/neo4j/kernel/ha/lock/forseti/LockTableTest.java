@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.lock.forseti;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.neo4j.collection.primitive.PrimitiveLongObjectVisitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class LockTableTest
+{
+    private final LockTable table = new LockTable( 4 );
+    private final ForsetiLockManager.Lock lockA = new ExclusiveLock( mock( ForsetiClient.class ) );
+    private final ForsetiLockManager.Lock lockB = new ExclusiveLock( mock( ForsetiClient.class ) );
+
+    @Test
+    public void shouldOnlyPutLockIfAbsent() throws Exception
+    {
+        // WHEN
+        ForsetiLockManager.Lock first = table.putIfAbsent( 10, lockA );
+        ForsetiLockManager.Lock second = table.putIfAbsent( 10, lockB );
+
+        // THEN
+        assertNull( first );
+        assertSame( lockA, second );
+        assertSame( lockA, table.get( 10 ) );
+    }
+
+    @Test
+    public void shouldHoldLocksOnResourceIdThatPrimitiveMapsReserve() throws Exception
+    {
+        // GIVEN
+        table.putIfAbsent( -1, lockA );
+        table.putIfAbsent( 1, lockB );
+
+        // WHEN
+        Map<Long, ForsetiLockManager.Lock> visited = visitEntries();
+
+        // THEN
+        assertSame( lockA, table.get( -1 ) );
+        assertEquals( 2, visited.size() );
+        assertSame( lockA, visited.get( -1L ) );
+        table.remove( -1 );
+        assertNull( table.get( -1 ) );
+    }
+
+    @Test
+    public void shouldReplaceAndRemoveLocks() throws Exception
+    {
+        // GIVEN
+        for ( long resourceId = 0; resourceId < 1000; resourceId++ )
+        {
+            table.putIfAbsent( resourceId, lockA );
+        }
+
+        // WHEN
+        table.put( 500, lockB );
+        table.remove( 501 );
+
+        // THEN
+        assertSame( lockB, table.get( 500 ) );
+        assertNull( table.get( 501 ) );
+        assertEquals( 999, visitEntries().size() );
+    }
+
+    private Map<Long, ForsetiLockManager.Lock> visitEntries()
+    {
+        final Map<Long, ForsetiLockManager.Lock> visited = new HashMap<>();
+        table.visitEntries( new PrimitiveLongObjectVisitor<ForsetiLockManager.Lock>()
+        {
+            @Override
+            public void visited( long key, ForsetiLockManager.Lock value )
+            {
+                visited.put( key, value );
+            }
+        } );
+        return visited;
+    }
+}
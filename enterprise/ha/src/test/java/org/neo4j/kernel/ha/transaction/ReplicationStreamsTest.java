@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.transaction;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.neo4j.helpers.FakeClock;
+
+import static java.util.Collections.singleton;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicationStreamsTest
+{
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final FakeClock clock = new FakeClock();
+
+    @After
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldReturnImmediatelyIfTransactionsHaveAlreadyBeenCommitted() throws Exception
+    {
+        // GIVEN
+        ReplicationStreams streams = new ReplicationStreams( clock, SECONDS.toMillis( 10 ) );
+        streams.committed( 10 );
+
+        // WHEN/THEN
+        assertTrue( streams.awaitCommittedAfter( 9, SECONDS.toMillis( 10 ) ) );
+    }
+
+    @Test
+    public void shouldTimeOutIfNoTransactionsAreCommitted() throws Exception
+    {
+        // GIVEN
+        ReplicationStreams streams = new ReplicationStreams( clock, SECONDS.toMillis( 10 ) );
+        streams.committed( 10 );
+
+        // WHEN/THEN
+        assertFalse( streams.awaitCommittedAfter( 10, 10 ) );
+    }
+
+    @Test
+    public void shouldWakeUpWaitersWhenTransactionIsCommitted() throws Exception
+    {
+        // GIVEN
+        final ReplicationStreams streams = new ReplicationStreams( clock, SECONDS.toMillis( 10 ) );
+        streams.committed( 10 );
+        Future<Boolean> waiter = executor.submit( new Callable<Boolean>()
+        {
+            @Override
+            public Boolean call() throws Exception
+            {
+                return streams.awaitCommittedAfter( 10, SECONDS.toMillis( 10 ) );
+            }
+        } );
+
+        // WHEN
+        streams.committed( 11 );
+
+        // THEN
+        assertTrue( waiter.get( 10, SECONDS ) );
+    }
+
+    @Test
+    public void shouldReportHowFarBehindEachSlaveIs() throws Exception
+    {
+        // GIVEN
+        ReplicationStreams streams = new ReplicationStreams( clock, SECONDS.toMillis( 10 ) );
+        streams.slaveApplied( 2, 5 );
+        streams.slaveApplied( 3, 10 );
+
+        // WHEN
+        streams.committed( 10 );
+
+        // THEN
+        assertEquals( Long.valueOf( 5 ), streams.lag().get( 2 ) );
+        assertEquals( Long.valueOf( 0 ), streams.lag().get( 3 ) );
+    }
+
+    @Test
+    public void shouldForgetSlavesThatHaveLeft() throws Exception
+    {
+        // GIVEN
+        ReplicationStreams streams = new ReplicationStreams( clock, SECONDS.toMillis( 10 ) );
+        streams.slaveApplied( 2, 5 );
+        streams.slaveApplied( 3, 10 );
+
+        // WHEN
+        streams.slaveLeft( 2 );
+
+        // THEN
+        assertEquals( singleton( 3 ), streams.lag().keySet() );
+    }
+
+    @Test
+    public void shouldForgetSlavesWhoseStreamHasTimedOut() throws Exception
+    {
+        // GIVEN
+        ReplicationStreams streams = new ReplicationStreams( clock, SECONDS.toMillis( 10 ) );
+        streams.slaveApplied( 2, 5 );
+        clock.forward( 6, SECONDS );
+        streams.slaveApplied( 3, 10 );
+
+        // WHEN
+        clock.forward( 6, SECONDS );
+
+        // THEN
+        assertEquals( singleton( 3 ), streams.lag().keySet() );
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.cache.SetAssociativeCache.Monitor;
+import org.neo4j.kernel.impl.core.RelationshipImpl;
+import org.neo4j.kernel.impl.util.StringLogger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class TestOffHeapCache
+{
+    private final HookedCodec codec = new HookedCodec();
+    private final OffHeapCache<RelationshipImpl> cache = new OffHeapCache<>( 4, 1000, 1024 * 1024, Long.MAX_VALUE,
+            "test cache", StringLogger.DEV_NULL, mock( Monitor.class ), codec );
+
+    @Test
+    public void shouldGetEvictedEntitiesBackFromOffHeap() throws Exception
+    {
+        // GIVEN a lot more relationships than fit on the heap
+        for ( int id = 0; id < 1000; id++ )
+        {
+            cache.put( relationship( id ) );
+        }
+        assertTrue( cache.size() < 1000 * relationship( 0 ).sizeOfObjectInBytesIncludingOverhead() );
+
+        // WHEN/THEN
+        for ( int id = 0; id < 1000; id++ )
+        {
+            RelationshipImpl relationship = cache.get( id );
+            assertNotNull( relationship );
+            assertEquals( id + 1, relationship.getStartNodeId() );
+            assertEquals( id + 2, relationship.getEndNodeId() );
+            assertEquals( id, relationship.getCachedPropertiesIfLoaded()[0].value() );
+        }
+        assertEquals( 1000, cache.hitCount() );
+        assertEquals( 0, cache.missCount() );
+    }
+
+    @Test
+    public void shouldReturnSameEntityWhenAskedAgain() throws Exception
+    {
+        // GIVEN
+        for ( int id = 0; id < 1000; id++ )
+        {
+            cache.put( relationship( id ) );
+        }
+
+        // WHEN
+        RelationshipImpl relationship = cache.get( 0 );
+
+        // THEN
+        assertSame( relationship, cache.get( 0 ) );
+    }
+
+    @Test
+    public void shouldForgetRemovedEntities() throws Exception
+    {
+        // GIVEN
+        for ( int id = 0; id < 1000; id++ )
+        {
+            cache.put( relationship( id ) );
+        }
+
+        // WHEN
+        for ( int id = 0; id < 1000; id++ )
+        {
+            cache.remove( id );
+        }
+
+        // THEN
+        for ( int id = 0; id < 1000; id++ )
+        {
+            assertNull( cache.get( id ) );
+        }
+    }
+
+    @Test
+    public void shouldDropOffHeapCopyOfEntityThatChanged() throws Exception
+    {
+        // GIVEN a relationship which gets evicted while someone is about to change it
+        RelationshipImpl changed = relationship( 0 );
+        cache.put( changed );
+        cache.evicting( changed );
+
+        // WHEN
+        cache.updateSize( changed, changed.sizeOfObjectInBytesIncludingOverhead() );
+        cache.remove( 0 );
+
+        // THEN the copy encoded before the change is gone
+        assertNull( cache.get( 0 ) );
+    }
+
+    @Test
+    public void shouldNotKeepCopyOfEntityThatChangedWhileBeingEncoded() throws Exception
+    {
+        // GIVEN a relationship which changes while it's being encoded
+        final RelationshipImpl changing = relationship( 0 );
+        codec.whileEncoding = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                cache.updateSize( changing, changing.sizeOfObjectInBytesIncludingOverhead() );
+            }
+        };
+        cache.put( changing );
+
+        // WHEN it gets evicted
+        for ( int id = 1; id < 1000; id++ )
+        {
+            cache.put( relationship( id ) );
+        }
+
+        // THEN
+        assertNull( cache.get( 0 ) );
+        assertNotNull( cache.get( 999 ) );
+    }
+
+    @Test
+    public void shouldNotKeepEntityThatWasMissedWhileBeingRestored() throws Exception
+    {
+        // GIVEN
+        for ( int id = 0; id < 1000; id++ )
+        {
+            cache.put( relationship( id ) );
+        }
+        // someone else misses the relationship while it's being brought back, and may change it in the store
+        codec.whileDecoding = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                assertNull( cache.get( 0 ) );
+            }
+        };
+
+        // WHEN
+        RelationshipImpl restored = cache.get( 0 );
+
+        // THEN it's returned, but not kept
+        assertNotNull( restored );
+        assertNull( cache.get( 0 ) );
+    }
+
+    @Test
+    public void shouldForgetEverythingOnClear() throws Exception
+    {
+        // GIVEN
+        for ( int id = 0; id < 1000; id++ )
+        {
+            cache.put( relationship( id ) );
+        }
+
+        // WHEN
+        cache.clear();
+
+        // THEN
+        for ( int id = 0; id < 1000; id++ )
+        {
+            assertNull( cache.get( id ) );
+        }
+    }
+
+    @Test
+    public void shouldReuseOldestSegmentWhenOffHeapStoreIsFull() throws Exception
+    {
+        // GIVEN
+        OffHeapStore store = new OffHeapStore( 1024 );
+
+        // WHEN
+        for ( int id = 0; id < 100; id++ )
+        {
+            store.put( id, new byte[] {(byte) id}, 1 );
+        }
+
+        // THEN
+        assertNull( store.take( 0 ) );
+        assertEquals( 99, store.take( 99 )[0] );
+        assertTrue( store.entries() < 100 );
+        assertTrue( store.droppedEntries() > 0 );
+    }
+
+    private static class HookedCodec extends RelationshipCodec
+    {
+        // Run once for the relationship with id 0
+        private Runnable whileEncoding;
+        private Runnable whileDecoding;
+
+        @Override
+        public void encode( RelationshipImpl relationship, CodecBuffer buffer )
+        {
+            super.encode( relationship, buffer );
+            if ( relationship.getId() == 0 && whileEncoding != null )
+            {
+                Runnable hook = whileEncoding;
+                whileEncoding = null;
+                hook.run();
+            }
+        }
+
+        @Override
+        public RelationshipImpl decode( long id, CodecBuffer buffer )
+        {
+            if ( id == 0 && whileDecoding != null )
+            {
+                Runnable hook = whileDecoding;
+                whileDecoding = null;
+                hook.run();
+            }
+            return super.decode( id, buffer );
+        }
+    }
+
+    private RelationshipImpl relationship( int id )
+    {
+        RelationshipImpl relationship = new RelationshipImpl( id, id + 1, id + 2, 1 );
+        relationship.restoreCachedProperties( new DefinedProperty[] {Property.intProperty( 1, id )} );
+        return relationship;
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.core.NodeImpl;
+import org.neo4j.kernel.impl.core.RelationshipImpl;
+import org.neo4j.kernel.impl.util.RelIdArray;
+import org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper;
+import org.neo4j.kernel.impl.util.RelIdArrayWithLoops;
+import org.neo4j.kernel.impl.util.RelIdIterator;
+
+import static java.util.Arrays.asList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.BOTH;
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.INCOMING;
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.OUTGOING;
+
+public class TestOffHeapEntityCodecs
+{
+    @Test
+    public void shouldEncodeAndDecodeLoadedNodeState() throws Exception
+    {
+        // GIVEN
+        NodeImpl node = new NodeImpl( 42 );
+        node.commitLabels( new int[] {1, 5, 9} );
+        DefinedProperty[] properties = {
+                Property.intProperty( 1, -7 ),
+                Property.stringProperty( 2, "short" ),
+                Property.doubleProperty( 3, 1.5d ),
+                Property.longProperty( 4, Long.MIN_VALUE ),
+                Property.charProperty( 5, 'x' ),
+                Property.booleanProperty( 6, true ),
+                Property.floatProperty( 7, -2.5f ),
+                Property.shortProperty( 8, (short) -3 ),
+                Property.byteProperty( 9, (byte) -1 )};
+        node.restoreCachedProperties( properties );
+        RelIdArray knows = new RelIdArray( 3 );
+        knows.add( 10, OUTGOING );
+        knows.add( 5, OUTGOING );
+        knows.add( 1L << 33, INCOMING );
+        RelIdArray likes = new RelIdArrayWithLoops( 1 );
+        likes.add( 7, BOTH );
+        likes.add( 8, INCOMING );
+        node.restoreCachedRelationships( new RelIdArray[] {knows, likes} );
+
+        // WHEN
+        NodeImpl decoded = roundTrip( new NodeCodec(), node );
+
+        // THEN
+        assertEquals( 42, decoded.getId() );
+        assertArrayEquals( new int[] {1, 5, 9}, decoded.getCachedLabelsIfLoaded() );
+        assertArrayEquals( properties, decoded.getCachedPropertiesIfLoaded() );
+        RelIdArray[] relationships = decoded.getCachedRelationshipsIfAllLoaded();
+        assertEquals( 2, relationships.length );
+        assertEquals( 1, relationships[0].getType() );
+        assertEquals( asList( 7L ), ids( relationships[0], BOTH ) );
+        assertEquals( asList( 8L ), ids( relationships[0], INCOMING ) );
+        assertEquals( 3, relationships[1].getType() );
+        assertEquals( asList( 10L, 5L ), ids( relationships[1], OUTGOING ) );
+        assertEquals( asList( 1L << 33 ), ids( relationships[1], INCOMING ) );
+    }
+
+    @Test
+    public void shouldLeaveStateNotLoadedBeforeEncodingForLoadingAfterDecoding() throws Exception
+    {
+        // WHEN
+        NodeImpl decoded = roundTrip( new NodeCodec(), new NodeImpl( 7 ) );
+
+        // THEN
+        assertNull( decoded.getCachedLabelsIfLoaded() );
+        assertNull( decoded.getCachedPropertiesIfLoaded() );
+        assertNull( decoded.getCachedRelationshipsIfAllLoaded() );
+    }
+
+    @Test
+    public void shouldNotInlinePropertiesOfEntityWithLongProperties() throws Exception
+    {
+        // GIVEN
+        char[] chars = new char[PropertyCodec.MAX_INLINED_STRING_LENGTH + 1];
+        Arrays.fill( chars, 'a' );
+        RelationshipImpl relationship = new RelationshipImpl( 1L << 34, 1L << 33, 3, 12 );
+        relationship.restoreCachedProperties( new DefinedProperty[] {
+                Property.intProperty( 1, 1 ), Property.stringProperty( 2, new String( chars ) )} );
+
+        // WHEN
+        RelationshipImpl decoded = roundTrip( new RelationshipCodec(), relationship );
+
+        // THEN
+        assertEquals( 1L << 34, decoded.getId() );
+        assertEquals( 1L << 33, decoded.getStartNodeId() );
+        assertEquals( 3, decoded.getEndNodeId() );
+        assertEquals( 12, decoded.getTypeId() );
+        assertNull( decoded.getCachedPropertiesIfLoaded() );
+    }
+
+    private <E extends EntityWithSizeObject> E roundTrip( EntityCodec<E> codec, E entity )
+    {
+        CodecBuffer buffer = new CodecBuffer( 1 );
+        codec.encode( entity, buffer );
+        return codec.decode( entity.getId(), new CodecBuffer( Arrays.copyOf( buffer.array(), buffer.length() ) ) );
+    }
+
+    private List<Long> ids( RelIdArray relationships, DirectionWrapper direction )
+    {
+        List<Long> ids = new ArrayList<>();
+        for ( RelIdIterator iterator = relationships.exactIterator( direction ); iterator.hasNext(); )
+        {
+            ids.add( iterator.next() );
+        }
+        return ids;
+    }
+}
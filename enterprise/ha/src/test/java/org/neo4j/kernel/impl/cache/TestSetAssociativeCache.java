@@ -0,0 +1,303 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.cache.SetAssociativeCache.Monitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class TestSetAssociativeCache
+{
+    private final Monitor monitor = mock( Monitor.class );
+    private SetAssociativeCache<Entity> cache;
+
+    @Before
+    public void setup()
+    {
+        cache = new SetAssociativeCache<>( 10, 1024 * 1024, monitor );
+    }
+
+    @Test
+    public void assertThatPutPutsSomething()
+    {
+        long key = 5;
+        Entity entity = new Entity( key, 10 );
+        cache.put( entity );
+        assertEquals( entity, cache.get( key ) );
+    }
+
+    @Test
+    public void assertThatRemoveRemovesSomething()
+    {
+        long key = 5;
+        Entity entity = new Entity( key, 10 );
+        cache.put( entity );
+        assertEquals( entity, cache.remove( key ) );
+        assertNull( cache.get( key ) );
+        assertEquals( 0, cache.size() );
+    }
+
+    @Test
+    public void shouldReturnExistingObjectIfDifferentObjectButSameId() throws Exception
+    {
+        // GIVEN
+        Entity version1 = new Entity( 10, 0 );
+        assertSame( version1, cache.put( version1 ) );
+
+        // WHEN
+        Entity version2 = new Entity( 10, 0 );
+
+        // THEN
+        assertSame( version1, cache.put( version2 ) );
+    }
+
+    @Test
+    public void shouldKeepEntitiesMappingToTheSameSetUntilItIsFull() throws Exception
+    {
+        // GIVEN ids which all map to set 0
+        for ( int i = 0; i < SetAssociativeCache.WAYS; i++ )
+        {
+            cache.put( new Entity( i * 10, 10 ) );
+        }
+
+        // THEN
+        for ( int i = 0; i < SetAssociativeCache.WAYS; i++ )
+        {
+            assertNotNull( cache.get( i * 10 ) );
+        }
+        assertEquals( SetAssociativeCache.WAYS * 10, cache.size() );
+    }
+
+    @Test
+    public void shouldReplaceEntityNotRecentlyUsedWhenSetIsFull() throws Exception
+    {
+        // GIVEN a full set where all but one entity are used
+        int unused = 3;
+        for ( int i = 0; i < SetAssociativeCache.WAYS; i++ )
+        {
+            cache.put( new Entity( i * 10, 10 ) );
+        }
+        for ( int i = 0; i < SetAssociativeCache.WAYS; i++ )
+        {
+            if ( i != unused )
+            {
+                cache.get( i * 10 );
+            }
+        }
+
+        // WHEN
+        cache.put( new Entity( SetAssociativeCache.WAYS * 10, 10 ) );
+
+        // THEN
+        assertNull( cache.get( unused * 10 ) );
+        for ( int i = 0; i <= SetAssociativeCache.WAYS; i++ )
+        {
+            if ( i != unused )
+            {
+                assertNotNull( cache.get( i * 10 ) );
+            }
+        }
+        assertEquals( SetAssociativeCache.WAYS * 10, cache.size() );
+    }
+
+    @Test
+    public void shouldEvictWhenAboveMaxSize() throws Exception
+    {
+        // GIVEN
+        cache = new SetAssociativeCache<>( 10, 100, monitor );
+        cache.put( new Entity( 0, 10 ) );
+        cache.put( new Entity( 1, 50 ) );
+        cache.put( new Entity( 2, 10 ) );
+        cache.put( new Entity( 3, 10 ) );
+        verifyZeroInteractions( monitor );
+
+        // WHEN
+        cache.put( new Entity( 4, 50 ) );
+
+        // THEN the clock hand evicts from the start of the cache until below max size again
+        verify( monitor ).evicted( 130L, 70L, 2 );
+        assertEquals( 70, cache.size() );
+        assertNull( cache.get( 0 ) );
+        assertNull( cache.get( 1 ) );
+    }
+
+    @Test
+    public void shouldSpareRecentlyUsedEntitiesWhenEvicting() throws Exception
+    {
+        // GIVEN
+        cache = new SetAssociativeCache<>( 10, 100, monitor );
+        cache.put( new Entity( 0, 50 ) );
+        cache.put( new Entity( 1, 40 ) );
+        cache.get( 0 );
+
+        // WHEN
+        cache.put( new Entity( 2, 50 ) );
+
+        // THEN
+        assertNotNull( cache.get( 0 ) );
+        assertNull( cache.get( 1 ) );
+        verify( monitor ).evicted( 140L, 100L, 1 );
+    }
+
+    @Test
+    public void shouldKeepTrackOfSizeUpdates() throws Exception
+    {
+        // GIVEN
+        Entity entity = new Entity( 5, 10 );
+        cache.put( entity );
+
+        // WHEN
+        cache.updateSize( entity, 30 );
+
+        // THEN
+        assertEquals( 30, cache.size() );
+        cache.remove( 5 );
+        assertEquals( 0, cache.size() );
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() throws Exception
+    {
+        // GIVEN
+        cache.put( new Entity( 1, 10 ) );
+
+        // WHEN
+        cache.get( 1 );
+        cache.get( 1 );
+        cache.get( 2 );
+
+        // THEN
+        assertEquals( 2, cache.hitCount() );
+        assertEquals( 1, cache.missCount() );
+    }
+
+    @Test
+    public void shouldKeepOneElementPerEntityWhenPuttingConcurrently() throws Exception
+    {
+        // GIVEN
+        final int threads = 4;
+        final int ids = 1000;
+        cache = new SetAssociativeCache<>( 1000, Long.MAX_VALUE, monitor );
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        List<Future<Void>> futures = new ArrayList<>();
+
+        // WHEN
+        for ( int t = 0; t < threads; t++ )
+        {
+            futures.add( executor.submit( new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    for ( int id = 0; id < ids; id++ )
+                    {
+                        Entity entity = new Entity( id, 10 );
+                        Entity cached = cache.put( entity );
+                        assertTrue( cached.getId() == id );
+                    }
+                    return null;
+                }
+            } ) );
+        }
+        for ( Future<Void> future : futures )
+        {
+            future.get();
+        }
+        executor.shutdown();
+
+        // THEN
+        assertEquals( ids * 10, cache.size() );
+        for ( int id = 0; id < ids; id++ )
+        {
+            assertNotNull( cache.remove( id ) );
+        }
+        assertEquals( 0, cache.size() );
+    }
+
+    @Test
+    public void shouldNotEvictAnythingWhenBelowMaxSize() throws Exception
+    {
+        // WHEN
+        for ( int id = 0; id < 100; id++ )
+        {
+            cache.put( new Entity( id, 10 ) );
+        }
+
+        // THEN
+        verify( monitor, never() ).evicted( anyLong(), anyLong(), anyInt() );
+    }
+
+    private static class Entity implements EntityWithSizeObject
+    {
+        private final long id;
+        private final int size;
+        private int registeredSize;
+
+        Entity( long id, int size )
+        {
+            this.id = id;
+            this.size = size;
+        }
+
+        @Override
+        public int sizeOfObjectInBytesIncludingOverhead()
+        {
+            return size;
+        }
+
+        @Override
+        public long getId()
+        {
+            return id;
+        }
+
+        @Override
+        public void setRegisteredSize( int size )
+        {
+            this.registeredSize = size;
+        }
+
+        @Override
+        public int getRegisteredSize()
+        {
+            return registeredSize;
+        }
+    }
+}
@@ -33,9 +33,8 @@ import static org.neo4j.kernel.impl.cache.SizeOfs.withReference;
 import java.lang.reflect.Array;
 import java.util.Map;
 
-import org.junit.AfterClass;
+import org.junit.After;
 import org.junit.Before;
-import org.junit.BeforeClass;
 import org.junit.Test;
 import org.neo4j.graphdb.DynamicRelationshipType;
 import org.neo4j.graphdb.Node;
@@ -54,11 +53,13 @@ import org.neo4j.test.TestGraphDatabaseFactory;
 
 public class TestSizeOf
 {
-    private static GraphDatabaseAPI db;
+    private GraphDatabaseAPI db;
     public static final int _8_BYTES_FOR_VALUE = 8;
 
-    @BeforeClass
-    public static void setupDB()
+    // A database per test, so that relationship ids, and with that the size of their encoded form, are the same
+    // regardless of which tests ran before
+    @Before
+    public void setupDB()
     {
         db = (GraphDatabaseAPI) new TestGraphDatabaseFactory().
               newImpermanentDatabaseBuilder().
@@ -66,13 +67,12 @@ public class TestSizeOf
               newGraphDatabase();
     }
 
-    @AfterClass
-    public static void shutdown() throws Exception
+    @After
+    public void shutdown() throws Exception
     {
         db.shutdown();
     }
 
-    @Before
     public void clearCache()
     {
         db.getDependencyResolver().resolveDependency( Caches.class ).clear();
@@ -291,7 +291,10 @@ public class TestSizeOf
             {
                 if ( rels > 0 )
                 {
-                    size += withObjectOverhead( withReference( withArrayOverhead( 4 * (rels + 1) ) ) );
+                    size += withObjectOverhead( 8 + // for the last id
+                            8 + // for the position and length
+                            withReference( withArrayOverhead( rels ) ) + // one byte per id, since they're all small
+                            REFERENCE_SIZE ); // for the, still empty, full chunks
                 }
             }
             if ( nrLoop > 0 )